@@ -20,19 +20,19 @@ package it.unibz.inf.ontop.owlapi.impl;
  * #L%
  */
 
+import com.google.common.collect.ImmutableSortedSet;
 import it.unibz.inf.ontop.answering.OntopQueryEngine;
 import it.unibz.inf.ontop.answering.connection.OntopConnection;
-import it.unibz.inf.ontop.answering.connection.OntopStatement;
-import it.unibz.inf.ontop.answering.reformulation.input.AskQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
-import it.unibz.inf.ontop.answering.resultset.BooleanResultSet;
 import it.unibz.inf.ontop.exception.InvalidOntopConfigurationException;
 import it.unibz.inf.ontop.exception.OBDASpecificationException;
 import it.unibz.inf.ontop.exception.OntopConnectionException;
 import it.unibz.inf.ontop.injection.OntopSystemOWLAPIConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSettings;
 import it.unibz.inf.ontop.owlapi.OntopOWLReasoner;
 import it.unibz.inf.ontop.owlapi.connection.OntopOWLConnection;
 import it.unibz.inf.ontop.owlapi.connection.impl.DefaultOntopOWLConnection;
+import it.unibz.inf.ontop.owlapi.validation.BatchedEmptinessChecker;
 import it.unibz.inf.ontop.spec.ontology.*;
 import it.unibz.inf.ontop.spec.ontology.owlapi.OWLAPITranslatorOWL2QL;
 import it.unibz.inf.ontop.utils.VersionInfo;
@@ -46,8 +46,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -106,6 +108,10 @@ public class QuestOWL extends OWLReasonerBase implements OntopOWLReasoner {
 	private final InputQueryFactory inputQueryFactory;
 	private final OWLAPITranslatorOWL2QL owlapiTranslator;
 
+	/* Consistency checks */
+	private final int validationBatchSize;
+	private final int validationThreads;
+
 	/* Used to signal whether to apply the user constraints above */
 	//private boolean applyExcludeFromTMappings = false;
 
@@ -147,6 +153,10 @@ public class QuestOWL extends OWLReasonerBase implements OntopOWLReasoner {
 
 		owlapiTranslator = ontopConfiguration.getInjector().getInstance(OWLAPITranslatorOWL2QL.class);
 
+		OntopSystemSettings settings = ontopConfiguration.getSettings();
+		validationBatchSize = settings.getValidationBatchSize();
+		validationThreads = settings.getValidationThreads();
+
 		prepareReasoner();
 
     }
@@ -371,7 +381,7 @@ public class QuestOWL extends OWLReasonerBase implements OntopOWLReasoner {
 	@Override
     public boolean isConsistent() throws ReasonerInterruptedException, TimeOutException {
 		try {
-			return isDisjointAxiomsConsistent() && isFunctionalPropertyAxiomsConsistent();
+			return isAxiomsConsistent();
 		} catch (OWLException e) {
 			throw new ReasonerInterruptedException(e);
 		}
@@ -383,119 +393,90 @@ public class QuestOWL extends OWLReasonerBase implements OntopOWLReasoner {
 		return inconsistent;
 	}
 	
-	private boolean isDisjointAxiomsConsistent() throws ReasonerInterruptedException, TimeOutException, OWLException {
+	/**
+	 * The checks are evaluated in the order of the axioms, round by round
+	 * (as many checks as the batches of the different threads), so that the first inconsistent axiom is reported.
+	 */
+	private boolean isAxiomsConsistent() throws ReasonerInterruptedException, TimeOutException, OWLException {
+		List<Object> axioms = new ArrayList<>();
+		List<String> patterns = new ArrayList<>();
 
 		//deal with disjoint classes
 		{
-			final String strQueryClass = "ASK {?x a <%s>; a <%s> }";
-			
+			final String strQueryClass = "?x a <%s>; a <%s>";
+
 			for (NaryAxiom<ClassExpression> dda : translatedOntologyMerge.disjointClasses()) {
 				// TODO: handle complex class expressions and many pairs of disjoint classes
 				Collection<ClassExpression> disj = dda.getComponents();
 				Iterator<ClassExpression> classIterator = disj.iterator();
 				ClassExpression s1 = classIterator.next();
 				ClassExpression s2 = classIterator.next();
-				String strQuery = String.format(strQueryClass, s1, s2);
-				
-				boolean isConsistent = executeConsistencyQuery(strQuery);
-				if (!isConsistent) {
-					inconsistent = dda;
-					return false;
-				}
+				axioms.add(dda);
+				patterns.add(String.format(strQueryClass, s1, s2));
 			}
 		}
-		
+
 		//deal with disjoint properties
 		{
-			final String strQueryProp = "ASK {?x <%s> ?y; <%s> ?y }";
+			final String strQueryProp = "?x <%s> ?y; <%s> ?y";
 
 			for(NaryAxiom<ObjectPropertyExpression> dda
 						: translatedOntologyMerge.disjointObjectProperties()) {
-				// TODO: handle role inverses and multiple arguments			
+				// TODO: handle role inverses and multiple arguments
 				Collection<ObjectPropertyExpression> props = dda.getComponents();
 				Iterator<ObjectPropertyExpression> iterator = props.iterator();
 				ObjectPropertyExpression p1 = iterator.next();
 				ObjectPropertyExpression p2 = iterator.next();
-				String strQuery = String.format(strQueryProp, p1, p2);
-				
-				boolean isConsistent = executeConsistencyQuery(strQuery);
-				if (!isConsistent) {
-					inconsistent = dda;
-					return false;
-				}
+				axioms.add(dda);
+				patterns.add(String.format(strQueryProp, p1, p2));
 			}
-		}
-		
-		{
-			final String strQueryProp = "ASK {?x <%s> ?y; <%s> ?y }";
 
 			for(NaryAxiom<DataPropertyExpression> dda
 						: translatedOntologyMerge.disjointDataProperties()) {
-				// TODO: handle role inverses and multiple arguments			
+				// TODO: handle role inverses and multiple arguments
 				Collection<DataPropertyExpression> props = dda.getComponents();
 				Iterator<DataPropertyExpression> iterator = props.iterator();
 				DataPropertyExpression p1 = iterator.next();
 				DataPropertyExpression p2 = iterator.next();
-				String strQuery = String.format(strQueryProp, p1, p2);
-				
-				boolean isConsistent = executeConsistencyQuery(strQuery);
-				if (!isConsistent) {
-					inconsistent = dda;
-					return false;
-				}
+				axioms.add(dda);
+				patterns.add(String.format(strQueryProp, p1, p2));
 			}
 		}
-		
-		return true;
-	}
-	
-	private boolean isFunctionalPropertyAxiomsConsistent() throws ReasonerInterruptedException, TimeOutException, OWLException {
-		
+
 		//deal with functional properties
+		{
+			final String strQueryFunc = "?x <%s> ?y; <%s> ?z. FILTER (?z != ?y)";
 
-		final String strQueryFunc = "ASK { ?x <%s> ?y; <%s> ?z. FILTER (?z != ?y) }";
-		
-		for (ObjectPropertyExpression pfa : translatedOntologyMerge.functionalObjectProperties()) {
-			// TODO: handle inverses
-			String propFunc = pfa.getName();
-			String strQuery = String.format(strQueryFunc, propFunc, propFunc);
-			
-			boolean isConsistent = executeConsistencyQuery(strQuery);
-			if (!isConsistent) {
-				inconsistent = pfa;
-				return false;
+			for (ObjectPropertyExpression pfa : translatedOntologyMerge.functionalObjectProperties()) {
+				// TODO: handle inverses
+				String propFunc = pfa.getName();
+				axioms.add(pfa);
+				patterns.add(String.format(strQueryFunc, propFunc, propFunc));
 			}
-		}
-		
-		for (DataPropertyExpression pfa : translatedOntologyMerge.functionalDataProperties()) {
-			String propFunc = pfa.getName();
-			String strQuery = String.format(strQueryFunc, propFunc, propFunc);
-			
-			boolean isConsistent = executeConsistencyQuery(strQuery);
-			if (!isConsistent) {
-				inconsistent = pfa;
-				return false;
+
+			for (DataPropertyExpression pfa : translatedOntologyMerge.functionalDataProperties()) {
+				String propFunc = pfa.getName();
+				axioms.add(pfa);
+				patterns.add(String.format(strQueryFunc, propFunc, propFunc));
 			}
 		}
-		
-		return true;
-	}
-	
-	private boolean executeConsistencyQuery(String strQuery) throws OWLException {
-		try (OntopConnection connection = queryEngine.getConnection();
-			 OntopStatement st = connection.createStatement()) {
-
-			AskQuery query = inputQueryFactory.createAskQuery(strQuery);
-			BooleanResultSet trs = st.execute(query);
-			if (trs != null) {
-				boolean b = trs.getValue();
-				trs.close();
-				if (b)
+
+		if (patterns.isEmpty())
+			return true;
+
+		try (OntopOWLConnection connection = getConnection()) {
+			BatchedEmptinessChecker checker = new BatchedEmptinessChecker(connection, validationBatchSize,
+					validationThreads, this::getConnection);
+
+			for (int start = 0; start < patterns.size(); start += checker.getRoundSize()) {
+				int end = Math.min(start + checker.getRoundSize(), patterns.size());
+				ImmutableSortedSet<Integer> violations = checker.getNonEmptyPatterns(patterns.subList(start, end));
+				if (!violations.isEmpty()) {
+					inconsistent = axioms.get(start + violations.first());
 					return false;
+				}
 			}
 			return true;
-		} catch (Exception e) {
-			throw new OWLException(e);
 		}
 	}
 
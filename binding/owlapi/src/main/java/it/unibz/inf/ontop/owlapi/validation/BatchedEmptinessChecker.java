@@ -0,0 +1,185 @@
+package it.unibz.inf.ontop.owlapi.validation;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Lists;
+import it.unibz.inf.ontop.owlapi.connection.OWLConnection;
+import it.unibz.inf.ontop.owlapi.connection.OWLStatement;
+import it.unibz.inf.ontop.owlapi.resultset.TupleOWLResultSet;
+import org.semanticweb.owlapi.model.OWLException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Finds the SPARQL graph patterns that have at least one solution, with few queries.
+ *
+ * The patterns of a batch are packed into one query: each of them is a branch of a UNION
+ * (a UNION ALL in SQL) that binds a discriminator variable to its position.
+ * A batch of one pattern is evaluated with LIMIT 1.
+ *
+ * When several threads are allowed and a connection factory is given, the batches of a round are evaluated
+ * at the same time, each worker using its own connection (the additional connections are closed after the round).
+ */
+public class BatchedEmptinessChecker {
+
+    private static final String DISCRIMINATOR_VARIABLE = "check";
+
+    private static final Logger log = LoggerFactory.getLogger(BatchedEmptinessChecker.class);
+
+    private final OWLConnection connection;
+    private final int batchSize;
+    private final int threads;
+    @Nullable
+    private final ConnectionFactory connectionFactory;
+
+    /**
+     * @param connectionFactory creates the additional connections used by the parallel workers.
+     *                          If null, the batches are evaluated one after the other.
+     */
+    public BatchedEmptinessChecker(OWLConnection connection, int batchSize, int threads,
+                                   @Nullable ConnectionFactory connectionFactory) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("The batch size must be positive");
+        if (threads < 1)
+            throw new IllegalArgumentException("The number of threads must be positive");
+        this.connection = connection;
+        this.batchSize = batchSize;
+        this.threads = threads;
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * Number of patterns evaluated at the same time (one batch per thread).
+     *
+     * Useful for stopping early: larger lists are not evaluated faster.
+     */
+    public int getRoundSize() {
+        return batchSize * threads;
+    }
+
+    /**
+     * Returns the positions of the non-empty patterns (in the increasing order).
+     *
+     * The patterns are group graph patterns without the enclosing brackets (e.g. "?x a <A>").
+     */
+    public ImmutableSortedSet<Integer> getNonEmptyPatterns(List<String> graphPatterns) throws OWLException {
+        List<List<String>> batches = Lists.partition(graphPatterns, batchSize);
+        ImmutableSortedSet.Builder<Integer> builder = ImmutableSortedSet.naturalOrder();
+
+        List<OWLConnection> additionalConnections = new ArrayList<>();
+        if (connectionFactory != null && batches.size() > 1) {
+            for (int i = 1; i < Math.min(threads, batches.size()); i++) {
+                try {
+                    additionalConnections.add(connectionFactory.createConnection());
+                }
+                catch (OWLException | RuntimeException e) {
+                    log.warn("Cannot create an additional connection for the emptiness checks: " + e.getMessage());
+                    break;
+                }
+            }
+        }
+
+        try {
+            if (additionalConnections.isEmpty()) {
+                for (int i = 0; i < batches.size(); i++)
+                    builder.addAll(evaluateBatch(connection, batches.get(i), i * batchSize));
+                return builder.build();
+            }
+
+            BlockingQueue<OWLConnection> availableConnections = new LinkedBlockingQueue<>(additionalConnections);
+            availableConnections.add(connection);
+            ExecutorService executor = Executors.newFixedThreadPool(availableConnections.size(), r -> {
+                Thread thread = new Thread(r, "ontop-emptiness-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<ImmutableList<Integer>>> futures = new ArrayList<>(batches.size());
+                for (int i = 0; i < batches.size(); i++) {
+                    List<String> batch = batches.get(i);
+                    int offset = i * batchSize;
+                    futures.add(executor.submit(() -> {
+                        OWLConnection workerConnection = availableConnections.take();
+                        try {
+                            return evaluateBatch(workerConnection, batch, offset);
+                        }
+                        finally {
+                            availableConnections.put(workerConnection);
+                        }
+                    }));
+                }
+                for (Future<ImmutableList<Integer>> future : futures)
+                    builder.addAll(future.get());
+                return builder.build();
+            }
+            catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof OWLException)
+                    throw (OWLException) cause;
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException) cause;
+                throw new OWLException(cause);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OWLException(e);
+            }
+            finally {
+                executor.shutdownNow();
+            }
+        }
+        finally {
+            for (OWLConnection additionalConnection : additionalConnections) {
+                try {
+                    additionalConnection.close();
+                }
+                catch (OWLException e) {
+                    log.warn("Cannot close a connection used for the emptiness checks: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static ImmutableList<Integer> evaluateBatch(OWLConnection connection, List<String> batch, int offset)
+            throws OWLException {
+        String query = getQuery(batch);
+        log.debug("Emptiness check of {} patterns:\n{}", batch.size(), query);
+
+        ImmutableList.Builder<Integer> builder = ImmutableList.builder();
+        try (OWLStatement st = connection.createStatement();
+             TupleOWLResultSet rs = st.executeSelectQuery(query)) {
+            while (rs.hasNext())
+                builder.add(offset + rs.next().getOWLLiteral(DISCRIMINATOR_VARIABLE).parseInteger());
+        }
+        return builder.build();
+    }
+
+    private static String getQuery(List<String> batch) {
+        if (batch.size() == 1)
+            return String.format("SELECT ?%s WHERE { %s BIND(0 AS ?%s) } LIMIT 1",
+                    DISCRIMINATOR_VARIABLE, batch.get(0), DISCRIMINATOR_VARIABLE);
+
+        return IntStream.range(0, batch.size())
+                .mapToObj(i -> String.format("{ %s BIND(%d AS ?%s) }", batch.get(i), i, DISCRIMINATOR_VARIABLE))
+                .collect(Collectors.joining("\n UNION ",
+                        String.format("SELECT DISTINCT ?%s WHERE {\n ", DISCRIMINATOR_VARIABLE),
+                        "\n}"));
+    }
+
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        OWLConnection createConnection() throws OWLException;
+    }
+}
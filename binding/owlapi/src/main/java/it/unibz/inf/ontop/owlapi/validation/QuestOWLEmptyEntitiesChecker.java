@@ -20,27 +20,36 @@ package it.unibz.inf.ontop.owlapi.validation;
  * #L%
  */
 
+import com.google.common.collect.ImmutableSortedSet;
 import it.unibz.inf.ontop.owlapi.connection.OWLConnection;
-import it.unibz.inf.ontop.owlapi.connection.OWLStatement;
-import it.unibz.inf.ontop.owlapi.resultset.TupleOWLResultSet;
 import it.unibz.inf.ontop.spec.ontology.*;
 import org.apache.commons.rdf.api.IRI;
 import org.semanticweb.owlapi.model.OWLException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Return empty concepts and roles, based on the mappings. Given an ontology,
  * which is connected to a database via mappings, generate a suitable set of
  * queries that test if there are empty concepts, concepts that are no populated
  * to anything.
+ *
+ * The queries can be batched (see {@link BatchedEmptinessChecker}).
  */
 public class QuestOWLEmptyEntitiesChecker {
 
 	private final ClassifiedTBox onto;
-	private final OWLConnection conn;
+	private final BatchedEmptinessChecker checker;
 
 	private int nEmptyConcepts = 0;
 	private int nEmptyRoles = 0;
@@ -52,16 +61,41 @@ public class QuestOWLEmptyEntitiesChecker {
 	 * @throws Exception
 	 */
 	public QuestOWLEmptyEntitiesChecker(ClassifiedTBox tbox, OWLConnection conn)	 {
+		this(tbox, conn, 1, 1, null);
+	}
+
+	/**
+	 * @param batchSize number of entities checked by one query
+	 * @param threads number of queries executed at the same time
+	 * @param connectionFactory creates one connection per additional thread
+	 *                          (if null, the queries are executed one after the other)
+	 */
+	public QuestOWLEmptyEntitiesChecker(ClassifiedTBox tbox, OWLConnection conn, int batchSize, int threads,
+										@Nullable BatchedEmptinessChecker.ConnectionFactory connectionFactory) {
 		this.onto = tbox;
-		this.conn = conn;
+		this.checker = new BatchedEmptinessChecker(conn, batchSize, threads, connectionFactory);
 	}
 
 	public Iterator<IRI> iEmptyConcepts() {
-		return new EmptyEntitiesIterator(onto.classes().iterator(), conn);
+		return new EmptyEntitiesIterator(stream(onto.classes())
+				.filter(c -> !c.isTop() && !c.isBottom())
+				.map(OClass::getIRI)
+				.iterator(), true);
 	}
 
 	public Iterator<IRI> iEmptyRoles() {
-		return new EmptyEntitiesIterator(onto.objectProperties().iterator(), onto.dataProperties().iterator(), conn);
+		return new EmptyEntitiesIterator(Stream.concat(
+				stream(onto.objectProperties())
+						.filter(p -> !p.isTop() && !p.isBottom())
+						.map(ObjectPropertyExpression::getIRI),
+				stream(onto.dataProperties())
+						.filter(p -> !p.isTop() && !p.isBottom())
+						.map(DataPropertyExpression::getIRI))
+				.iterator(), false);
+	}
+
+	private static <T> Stream<T> stream(Iterable<T> iterable) {
+		return StreamSupport.stream(iterable.spliterator(), false);
 	}
 
 	public int getEConceptsSize() {
@@ -85,168 +119,82 @@ public class QuestOWLEmptyEntitiesChecker {
 
 
 	/***
-	 * An iterator that will dynamically construct ABox assertions for the given
-	 * predicate based on the results of executing the mappings for the
-	 * predicate in each data source.
+	 * An iterator that checks the entities round by round
+	 * (as many entities as the checker evaluates at the same time).
 	 *
 	 */
 	private class EmptyEntitiesIterator implements Iterator<IRI> {
 
+		private static final String patternConcepts = "?x a <%s>";
+		private static final String patternRoles = "?x <%s> ?y";
 
-		private static final String queryConcepts = "SELECT ?x WHERE {?x a <%s>.} LIMIT 1";
-		private static final String queryRoles = "SELECT * WHERE {?x <%s> ?y.} LIMIT 1";
-
-		private final OWLConnection questConn;
-
-		private boolean hasNext = false;
-		private IRI nextConcept;
-
-		private final Iterator<OClass> classIterator;
-		private final Iterator<ObjectPropertyExpression> objectRoleIterator;
-		private final Iterator<DataPropertyExpression> dataRoleIterator;
+		private final Iterator<IRI> entityIterator;
+		private final boolean isConcept;
+		private final Queue<IRI> emptyEntities = new LinkedList<>();
 
 		private Logger log = LoggerFactory.getLogger(EmptyEntitiesIterator.class);
 
-		/** iterator for classes  of the ontologies */
-		public EmptyEntitiesIterator(Iterator<OClass> classIterator, OWLConnection questConn) {
-
-			this.questConn = questConn;
-
-			this.classIterator = classIterator;
-
-			this.objectRoleIterator = new Iterator<ObjectPropertyExpression>() {
-				@Override
-				public boolean hasNext() {
-					return false;
-				}
-
-				@Override
-				public ObjectPropertyExpression next() {
-					return null;
-				}
-			};
-
-			this.dataRoleIterator = new Iterator<DataPropertyExpression>() {
-				@Override
-				public boolean hasNext() {
-					return false;
-				}
-
-				@Override
-				public DataPropertyExpression next() {
-					return null;
-				}
-			};
-		}
-
-		/** iterator for roles of the ontologies */
-		public EmptyEntitiesIterator(Iterator<ObjectPropertyExpression> objectRoleIterator, Iterator<DataPropertyExpression> dataRoleIterator, OWLConnection questConn) {
-
-			this.questConn = questConn;
-
-			this.classIterator = new Iterator<OClass>() {
-				@Override
-				public boolean hasNext() {
-					return false;
-				}
-
-				@Override
-				public OClass next() {
-					return null;
-				}
-			};
-
-			this.objectRoleIterator = objectRoleIterator;
-			this.dataRoleIterator = dataRoleIterator;
+		EmptyEntitiesIterator(Iterator<IRI> entityIterator, boolean isConcept) {
+			this.entityIterator = entityIterator;
+			this.isConcept = isConcept;
 		}
 
-		private String getPredicateQuery(IRI p) {
-			return String.format(queryRoles, p.getIRIString()); }
-
-		private String getClassQuery(IRI p) {
-			return String.format(queryConcepts, p.getIRIString()); }
-
-		private String getQuery(int arity, IRI iri)
-		{
-			switch(arity) {
-				case 1:
-					return getClassQuery(iri);
-				case 2:
-					return getPredicateQuery(iri);
-				default:
-					return "";
-			}
+		private String getPattern(IRI iri) {
+			return String.format(isConcept ? patternConcepts : patternRoles, iri.getIRIString());
 		}
 
 		@Override
 		public boolean hasNext() {
-			while (classIterator.hasNext()){
-				OClass next = classIterator.next();
-				if (!next.isTop() && !next.isBottom()) {
-					if (nextEmptyEntity(next.getIRI(), 1)) {
-						nEmptyConcepts++;
-						return hasNext;
+			while (emptyEntities.isEmpty() && entityIterator.hasNext()) {
+				List<IRI> entities = new ArrayList<>();
+				while (entityIterator.hasNext() && entities.size() < checker.getRoundSize())
+					entities.add(entityIterator.next());
+
+				List<String> patterns = new ArrayList<>(entities.size());
+				for (IRI entity : entities)
+					patterns.add(getPattern(entity));
+
+				try {
+					ImmutableSortedSet<Integer> nonEmpty = checker.getNonEmptyPatterns(patterns);
+					for (int i = 0; i < entities.size(); i++) {
+						if (!nonEmpty.contains(i)) {
+							log.debug("Empty " + entities.get(i));
+							emptyEntities.add(entities.get(i));
+						}
 					}
 				}
-			}
-			log.debug( "No more empty concepts" );
-
-			while (objectRoleIterator.hasNext()){
-				ObjectPropertyExpression next = objectRoleIterator.next();
-				if (!next.isTop() && !next.isBottom()) {
-					if (nextEmptyEntity(next.getIRI(), 2)) {
-						nEmptyRoles++;
-						return hasNext;
-					}
-				}
-			}
-			log.debug( "No more empty object roles" );
-
-			while (dataRoleIterator.hasNext()){
-				DataPropertyExpression next = dataRoleIterator.next();
-				if (!next.isTop() && !next.isBottom()) {
-					if (nextEmptyEntity(next.getIRI(), 2)) {
-						nEmptyRoles++;
-						return hasNext;
+				catch (OWLException e) {
+					log.error("Cannot check the emptiness of " + entities.size() + " entities at once, "
+							+ "checking them one by one: " + e.getMessage(), e);
+					for (int i = 0; i < entities.size(); i++) {
+						try {
+							if (checker.getNonEmptyPatterns(Collections.singletonList(patterns.get(i))).isEmpty()) {
+								log.debug("Empty " + entities.get(i));
+								emptyEntities.add(entities.get(i));
+							}
+						}
+						catch (OWLException e1) {
+							log.error("Cannot check the emptiness of " + entities.get(i) + ": " + e1.getMessage(), e1);
+						}
 					}
 				}
 			}
-			log.debug( "No more empty data roles" );
-			hasNext = false;
+			if (emptyEntities.isEmpty())
+				log.debug(isConcept ? "No more empty concepts" : "No more empty roles");
 
-			return hasNext;
-		}
-
-		private boolean nextEmptyEntity(IRI entity, int arity) {
-
-			String query =getQuery(arity, entity);
-
-			//execute next query
-			try (OWLStatement stm = questConn.createStatement()){
-				try (TupleOWLResultSet rs = stm.executeSelectQuery(query)) {
-					if (!rs.hasNext()) {
-						nextConcept = entity;
-						log.debug( "Empty " + entity );
-
-						hasNext = true;
-						return true;
-					}
-
-					return false;
-				}
-			}
-			catch (OWLException e) {
-				e.printStackTrace();
-			}
-			return false;
+			return !emptyEntities.isEmpty();
 		}
 
 		@Override
 		public IRI next() {
-			if (hasNext) {
-				return nextConcept;
-			}
-			return null;
+			if (!hasNext())
+				return null;
+
+			if (isConcept)
+				nEmptyConcepts++;
+			else
+				nEmptyRoles++;
+			return emptyEntities.poll();
 		}
 
 		@Override
@@ -255,4 +203,3 @@ public class QuestOWLEmptyEntitiesChecker {
 		}
 	}
 }
-
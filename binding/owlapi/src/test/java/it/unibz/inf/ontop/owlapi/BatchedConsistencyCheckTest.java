@@ -0,0 +1,192 @@
+package it.unibz.inf.ontop.owlapi;
+
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSettings;
+import it.unibz.inf.ontop.spec.ontology.NaryAxiom;
+import it.unibz.inf.ontop.spec.ontology.OClass;
+import it.unibz.inf.ontop.spec.ontology.ObjectPropertyExpression;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.semanticweb.owlapi.apibinding.OWLFunctionalSyntaxFactory.Class;
+import static org.semanticweb.owlapi.apibinding.OWLFunctionalSyntaxFactory.*;
+
+/**
+ * Consistency checks of the axioms against the data of the mappings, several checks being evaluated
+ * by one query and the queries on several threads (see ontop.validation.batchSize and ontop.validation.threads).
+ *
+ * Person 4 is both Male and Female and person 3 has two mothers.
+ * Person 1 has the same age and the same mother twice (not a violation of functionality).
+ */
+public class BatchedConsistencyCheckTest {
+
+    private static final String OBDA_FILE = "src/test/resources/consistency/consistency.obda";
+    private static final String URL = "jdbc:h2:mem:batchedconsistencydb";
+    private static final String USERNAME = "sa";
+    private static final String PASSWORD = "";
+
+    private static final String PREFIX = "http://www.example.org/";
+
+    private static final OWLClass MALE = Class(IRI.create(PREFIX + "Male"));
+    private static final OWLClass FEMALE = Class(IRI.create(PREFIX + "Female"));
+    private static final OWLClass ADULT = Class(IRI.create(PREFIX + "Adult"));
+    private static final OWLClass CHILD = Class(IRI.create(PREFIX + "Child"));
+    private static final OWLObjectProperty HAS_MOTHER = ObjectProperty(IRI.create(PREFIX + "hasMother"));
+    private static final OWLDataProperty HAS_AGE = DataProperty(IRI.create(PREFIX + "hasAge"));
+
+    private Connection conn;
+    private final List<OntopOWLReasoner> reasoners = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        conn = DriverManager.getConnection(URL, USERNAME, PASSWORD);
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("CREATE TABLE \"gender\" (\"id\" INTEGER, \"g\" CHAR(1))");
+            st.executeUpdate("INSERT INTO \"gender\" VALUES (1, 'M'), (2, 'F'), (3, 'F'), (4, 'M'), (4, 'F')");
+            st.executeUpdate("CREATE TABLE \"age\" (\"id\" INTEGER, \"age\" INTEGER)");
+            st.executeUpdate("INSERT INTO \"age\" VALUES (1, 30), (1, 30), (2, 60), (3, 10)");
+            st.executeUpdate("CREATE TABLE \"mother\" (\"child\" INTEGER, \"mother\" INTEGER)");
+            st.executeUpdate("INSERT INTO \"mother\" VALUES (1, 2), (1, 2), (3, 2), (3, 4)");
+        }
+        conn.commit();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (OntopOWLReasoner reasoner : reasoners)
+            reasoner.dispose();
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("DROP TABLE \"gender\"");
+            st.executeUpdate("DROP TABLE \"age\"");
+            st.executeUpdate("DROP TABLE \"mother\"");
+        }
+        conn.commit();
+        conn.close();
+    }
+
+    @Test
+    public void testConsistent() throws Exception {
+        OntopOWLReasoner reasoner = createReasoner(2, 2,
+                DisjointClasses(ADULT, CHILD),
+                DisjointClasses(CHILD, MALE),
+                FunctionalDataProperty(HAS_AGE));
+        assertTrue(reasoner.isConsistent());
+    }
+
+    @Test
+    public void testDisjointClasses() throws Exception {
+        OntopOWLReasoner reasoner = createReasoner(2, 2,
+                DisjointClasses(ADULT, CHILD),
+                DisjointClasses(MALE, FEMALE),
+                FunctionalDataProperty(HAS_AGE));
+
+        assertFalse(reasoner.isConsistent());
+        assertDisjointClasses(reasoner.getInconsistentAxiom(), MALE, FEMALE);
+    }
+
+    /**
+     * Checked with FILTER (?z != ?y): the duplicate mother of person 1 is not a violation, the two mothers of 3 are
+     */
+    @Test
+    public void testFunctionalObjectProperty() throws Exception {
+        OntopOWLReasoner reasoner = createReasoner(2, 2,
+                DisjointClasses(ADULT, CHILD),
+                FunctionalDataProperty(HAS_AGE),
+                FunctionalObjectProperty(HAS_MOTHER));
+
+        assertFalse(reasoner.isConsistent());
+        assertFunctionalObjectProperty(reasoner.getInconsistentAxiom(), HAS_MOTHER);
+    }
+
+    /**
+     * The duplicate age of person 1 is not a violation
+     */
+    @Test
+    public void testFunctionalDataPropertyWithDuplicateValues() throws Exception {
+        OntopOWLReasoner reasoner = createReasoner(2, 2, FunctionalDataProperty(HAS_AGE));
+
+        assertTrue(reasoner.isConsistent());
+    }
+
+    /**
+     * Disjoint classes are checked before the functional properties, whatever the batches and the threads
+     */
+    @Test
+    public void testFirstInconsistentAxiom() throws Exception {
+        OWLAxiom[] axioms = {
+                FunctionalObjectProperty(HAS_MOTHER),
+                DisjointClasses(ADULT, CHILD),
+                FunctionalDataProperty(HAS_AGE),
+                DisjointClasses(MALE, FEMALE),
+                DisjointClasses(CHILD, MALE) };
+
+        for (int[] parameters : new int[][] { { 1, 1 }, { 1, 2 }, { 2, 2 }, { 10, 1 }, { 2, 3 } }) {
+            OntopOWLReasoner reasoner = createReasoner(parameters[0], parameters[1], axioms);
+
+            assertFalse(reasoner.isConsistent());
+            assertDisjointClasses(reasoner.getInconsistentAxiom(), MALE, FEMALE);
+        }
+    }
+
+    private OntopOWLReasoner createReasoner(int batchSize, int threads, OWLAxiom... axioms) throws Exception {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        OWLOntology ontology = Ontology(manager,
+                Declaration(MALE),
+                Declaration(FEMALE),
+                Declaration(ADULT),
+                Declaration(CHILD),
+                Declaration(HAS_MOTHER),
+                Declaration(HAS_AGE));
+        manager.addAxioms(ontology, ImmutableSet.copyOf(axioms));
+
+        Properties properties = new Properties();
+        properties.setProperty(OntopSystemSettings.VALIDATION_BATCH_SIZE, String.valueOf(batchSize));
+        properties.setProperty(OntopSystemSettings.VALIDATION_THREADS, String.valueOf(threads));
+
+        OntopSQLOWLAPIConfiguration config = OntopSQLOWLAPIConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(OBDA_FILE)
+                .ontology(ontology)
+                .jdbcUrl(URL)
+                .jdbcUser(USERNAME)
+                .jdbcPassword(PASSWORD)
+                .properties(properties)
+                .enableTestMode()
+                .build();
+
+        OntopOWLReasoner reasoner = OntopOWLFactory.defaultFactory().createReasoner(config);
+        reasoners.add(reasoner);
+        return reasoner;
+    }
+
+    private static void assertDisjointClasses(Object axiom, OWLClass... classes) {
+        assertTrue("Unexpected axiom " + axiom, axiom instanceof NaryAxiom);
+        ImmutableSet.Builder<String> iris = ImmutableSet.builder();
+        for (Object component : ((NaryAxiom<?>) axiom).getComponents())
+            iris.add(((OClass) component).getIRI().getIRIString());
+
+        ImmutableSet.Builder<String> expectedIris = ImmutableSet.builder();
+        for (OWLClass c : classes)
+            expectedIris.add(c.getIRI().toString());
+
+        assertEquals(expectedIris.build(), iris.build());
+    }
+
+    private static void assertFunctionalObjectProperty(Object axiom, OWLObjectProperty property) {
+        assertTrue("Unexpected axiom " + axiom, axiom instanceof ObjectPropertyExpression);
+        assertEquals(property.getIRI().toString(), ((ObjectPropertyExpression) axiom).getIRI().getIRIString());
+    }
+}
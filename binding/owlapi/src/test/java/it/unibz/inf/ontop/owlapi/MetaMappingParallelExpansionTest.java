@@ -0,0 +1,149 @@
+package it.unibz.inf.ontop.owlapi;
+
+import it.unibz.inf.ontop.injection.OntopMappingSQLSettings;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import it.unibz.inf.ontop.owlapi.connection.OWLConnection;
+import it.unibz.inf.ontop.owlapi.connection.OWLStatement;
+import it.unibz.inf.ontop.owlapi.resultset.TupleOWLResultSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Expansion of many meta-mappings on several connections, with and without the cache of the expansion queries.
+ */
+public class MetaMappingParallelExpansionTest {
+
+    private static final int META_MAPPING_COUNT = 200;
+    private static final String[] CLASSES = { "A_1", "A_2", "B_1" };
+
+    private static final String OWL_FILE = "src/test/resources/test/metamapping.owl";
+    private static final String URL = "jdbc:h2:mem:metamappingexpansiondb;DATABASE_TO_UPPER=FALSE";
+    private static final String USERNAME = "sa";
+    private static final String PASSWORD = "";
+
+    private Connection conn;
+    private File workingDirectory;
+    private File obdaFile;
+
+    @Before
+    public void setUp() throws Exception {
+        conn = DriverManager.getConnection(URL, USERNAME, PASSWORD);
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("CREATE TABLE \"entity\" (\"id\" INTEGER PRIMARY KEY, \"grp\" INTEGER, \"cls\" VARCHAR(10))");
+        }
+        try (PreparedStatement st = conn.prepareStatement("INSERT INTO \"entity\" VALUES (?, ?, ?)")) {
+            for (int i = 0; i < 2 * META_MAPPING_COUNT; i++) {
+                st.setInt(1, i);
+                st.setInt(2, i % META_MAPPING_COUNT);
+                st.setString(3, CLASSES[i % CLASSES.length]);
+                st.executeUpdate();
+            }
+        }
+        conn.commit();
+
+        workingDirectory = Files.createTempDirectory("metamapping").toFile();
+        obdaFile = new File(workingDirectory, "metamapping-parallel.obda");
+        try (PrintWriter writer = new PrintWriter(obdaFile, "UTF-8")) {
+            writer.println("[PrefixDeclaration]");
+            writer.println(":\t\thttp://it.unibz.inf/obda/test/simple#");
+            writer.println();
+            writer.println("[MappingDeclaration] @collection [[");
+            for (int i = 0; i < META_MAPPING_COUNT; i++) {
+                writer.println("mappingId\tmapping" + i);
+                writer.println("target\t<http://example.org/{id}> a :{cls} .");
+                writer.println("source\tSELECT \"id\", \"cls\" FROM \"entity\" WHERE \"grp\" = " + i);
+                writer.println();
+            }
+            writer.println("]]");
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("DROP TABLE \"entity\"");
+        }
+        conn.commit();
+        conn.close();
+
+        File[] files = workingDirectory.listFiles();
+        if (files != null)
+            for (File file : files)
+                file.delete();
+        workingDirectory.delete();
+    }
+
+    @Test
+    public void testSameResultsOnSeveralConnections() throws Exception {
+        Properties sequential = new Properties();
+        sequential.setProperty(OntopMappingSQLSettings.META_MAPPING_EXPANSION_CONNECTIONS, "1");
+
+        Properties parallel = new Properties();
+        parallel.setProperty(OntopMappingSQLSettings.META_MAPPING_EXPANSION_CONNECTIONS, "4");
+
+        assertEquals(134, countInstances(sequential, "A_1"));
+        assertEquals(134, countInstances(parallel, "A_1"));
+        assertEquals(133, countInstances(parallel, "B_1"));
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        File cacheFile = new File(workingDirectory, "expansion.cache");
+
+        Properties cached = new Properties();
+        cached.setProperty(OntopMappingSQLSettings.META_MAPPING_EXPANSION_CONNECTIONS, "4");
+        cached.setProperty(OntopMappingSQLSettings.META_MAPPING_EXPANSION_CACHE_FILE, cacheFile.getPath());
+
+        assertEquals(134, countInstances(cached, "A_1"));
+        assertTrue(cacheFile.exists());
+
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("UPDATE \"entity\" SET \"cls\" = 'B_2' WHERE \"id\" = 0");
+        }
+        conn.commit();
+
+        // The expansion queries are not run again: B_2 is unknown to the expanded mappings
+        assertEquals(0, countInstances(cached, "B_2"));
+        assertEquals(1, countInstances(new Properties(), "B_2"));
+    }
+
+    private int countInstances(Properties properties, String className) throws Exception {
+        OntopSQLOWLAPIConfiguration config = OntopSQLOWLAPIConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(obdaFile.getPath())
+                .ontologyFile(OWL_FILE)
+                .properties(properties)
+                .jdbcUrl(URL)
+                .jdbcUser(USERNAME)
+                .jdbcPassword(PASSWORD)
+                .enableTestMode()
+                .build();
+
+        String query = "PREFIX : <http://it.unibz.inf/obda/test/simple#> SELECT ?x WHERE { ?x a :" + className + " }";
+
+        OntopOWLFactory factory = OntopOWLFactory.defaultFactory();
+        try (OntopOWLReasoner reasoner = factory.createReasoner(config);
+             OWLConnection connection = reasoner.getConnection();
+             OWLStatement st = connection.createStatement();
+             TupleOWLResultSet rs = st.executeSelectQuery(query)) {
+            int count = 0;
+            while (rs.hasNext()) {
+                rs.next();
+                count++;
+            }
+            return count;
+        }
+    }
+}
@@ -169,4 +169,27 @@ public class QuestOWLEmptyEntitiesCheckerTest {
 		assertEquals(2, emptyRoles.size());
 		assertEquals(2, empties.getERolesSize());
 	}
+
+	/**
+	 * Same results when several entities are checked by one query, on several threads
+	 * (each of them with its own connection)
+	 */
+	@Test
+	public void testBatchedEmptyEntities() {
+		QuestOWLEmptyEntitiesChecker empties = new QuestOWLEmptyEntitiesChecker(onto, conn, 3, 2,
+				reasoner::getConnection);
+		Iterator<IRI> conceptIterator = empties.iEmptyConcepts();
+		while (conceptIterator.hasNext()){
+			emptyConcepts.add(conceptIterator.next());
+		}
+		Iterator<IRI> roleIterator = empties.iEmptyRoles();
+		while (roleIterator.hasNext()){
+			emptyRoles.add(roleIterator.next());
+		}
+
+		assertEquals(1, emptyConcepts.size());
+		assertEquals(1, empties.getEConceptsSize());
+		assertEquals(2, emptyRoles.size());
+		assertEquals(2, empties.getERolesSize());
+	}
 }
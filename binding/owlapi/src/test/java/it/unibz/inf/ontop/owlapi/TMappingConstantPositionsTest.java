@@ -20,6 +20,7 @@ package it.unibz.inf.ontop.owlapi;
  * #L%
  */
 
+import it.unibz.inf.ontop.injection.OntopMappingSettings;
 import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
 
 import it.unibz.inf.ontop.owlapi.OntopOWLFactory;
@@ -153,5 +154,14 @@ public class TMappingConstantPositionsTest extends TestCase {
 		runTests(p);
 	}
 
+	@Test
+	public void testParallelTMappings() throws Exception {
+
+		Properties p = new Properties();
+		p.put(OntopMappingSettings.TMAPPING_THREADS, "4");
+
+		runTests(p);
+	}
+
 
 }
@@ -201,6 +201,11 @@ public class DefaultRDF4JMaterializer implements RDF4JMaterializer {
 			return graphResultSet.getTripleCountSoFar();
 		}
 
+		@Override
+		public ImmutableMap<IRI, Long> getTripleCountsPerPropertyAndClassSoFar() {
+			return graphResultSet.getTripleCountsPerPropertyAndClassSoFar();
+		}
+
 		@Override
 		public boolean hasEncounteredProblemsSoFar() {
 			return graphResultSet.hasEncounteredProblemsSoFar();
@@ -1,6 +1,7 @@
 package it.unibz.inf.ontop.rdf4j.query;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.apache.commons.rdf.api.IRI;
 import org.eclipse.rdf4j.query.GraphQuery;
@@ -16,6 +17,13 @@ public interface MaterializationGraphQuery extends GraphQuery {
      */
     long getTripleCountSoFar();
 
+    /**
+     * Number of RDF triples that have been materialized for each RDF property/class.
+     *
+     * May evolve until the materialization completes.
+     */
+    ImmutableMap<IRI, Long> getTripleCountsPerPropertyAndClassSoFar();
+
     /**
      * Returns true if a problem has occurred so far.
      *
@@ -128,6 +128,22 @@ public abstract class AbstractOntopQuery implements Query {
         return select + where;
     }
 
+    /**
+     * Parsed query WITHOUT the bindings (to be provided separately)
+     */
+    protected ParsedQuery getInitialParsedQuery() {
+        return initialParsedQuery;
+    }
+
+    /**
+     * Immutable copy of the current bindings
+     */
+    protected BindingSet getBindingsSnapshot() {
+        MapBindingSet snapshot = new MapBindingSet(bindings.size());
+        bindings.forEach(b -> snapshot.addBinding(b.getName(), b.getValue()));
+        return snapshot;
+    }
+
     protected ParsedQuery getParsedQuery() {
         // NB: no binding at construction time
         if (bindings.size() == 0)
@@ -45,7 +45,8 @@ public class OntopBooleanQuery extends AbstractOntopQuery implements BooleanQuer
 
     @Override
 	public boolean evaluate() throws QueryEvaluationException {
-		AskQuery query = factory.createAskQuery(getQueryString(), getParsedQuery());
+		AskQuery query = factory.createAskQuery(getQueryString(), getInitialParsedQuery(),
+				getBindingsSnapshot());
 
 		try (OntopStatement stm = conn.createStatement();
 			 BooleanResultSet rs = stm.execute(query)) {
@@ -23,17 +23,13 @@ package it.unibz.inf.ontop.rdf4j.query.impl;
 import it.unibz.inf.ontop.answering.reformulation.input.GraphSPARQLQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.RDF4JInputQueryFactory;
 import it.unibz.inf.ontop.answering.resultset.SimpleGraphResultSet;
-import it.unibz.inf.ontop.spec.ontology.Assertion;
 
 import java.util.HashMap;
 import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
 
 import it.unibz.inf.ontop.answering.connection.OntopConnection;
 import it.unibz.inf.ontop.answering.connection.OntopStatement;
 import it.unibz.inf.ontop.answering.reformulation.input.SPARQLQueryUtility;
-import it.unibz.inf.ontop.rdf4j.utils.RDF4JHelper;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.query.GraphQuery;
 import org.eclipse.rdf4j.query.GraphQueryResult;
@@ -59,41 +55,31 @@ public class OntopGraphQuery extends AbstractOntopQuery implements GraphQuery {
 		this.inputQueryFactory = inputQueryFactory;
 	}
 
-	private Statement createStatement(Assertion assertion) {
-
-		Statement stm = RDF4JHelper.createStatement(assertion);
-		if (stm.getSubject()!=null && stm.getPredicate()!=null && stm.getObject()!=null)
-			return stm;
-		else 
-			return null;
-	}
-
     @Override
 	public GraphQueryResult evaluate() throws QueryEvaluationException {
 		ParsedQuery parsedQuery = getParsedQuery();
 		GraphSPARQLQuery query = isConstruct
 				? inputQueryFactory.createConstructQuery(getQueryString(), parsedQuery)
 				: inputQueryFactory.createDescribeQuery(getQueryString(), parsedQuery);
-		try (
-				OntopStatement stm = conn.createStatement();
-				SimpleGraphResultSet res = stm.execute(query)
-		){
-			
-			Map<String, String> namespaces = new HashMap<>();
-			List<Statement> results = new LinkedList<>();
-			if (res != null) {
-				while (res.hasNext()) {
-					Assertion as = res.next();
-					Statement st = createStatement(as);
-					if (st!=null)
-						results.add(st);
-				}
+		OntopStatement stm = null;
+		try {
+			stm = conn.createStatement();
+			SimpleGraphResultSet res = stm.execute(query);
+			if (res == null) {
+				stm.close();
+				return new GraphQueryResultImpl(new HashMap<>(), new CollectionIteration<>(new LinkedList<Statement>()));
 			}
-			
-			//return new GraphQueryResultImpl(namespaces, results.iterator());
-            return new GraphQueryResultImpl(namespaces, new CollectionIteration<>(results));
-			
+			// The statements are pulled lazily; the result closes the Ontop statement
+			return new OntopGraphQueryResult(stm, res);
+
 		} catch (Exception e) {
+			if (stm != null) {
+				try {
+					stm.close();
+				} catch (Exception e1) {
+					e.addSuppressed(e1);
+				}
+			}
 			throw new QueryEvaluationException(e);
 		}
 	}
@@ -0,0 +1,95 @@
+package it.unibz.inf.ontop.rdf4j.query.impl;
+
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.resultset.SimpleGraphResultSet;
+import it.unibz.inf.ontop.rdf4j.utils.RDF4JHelper;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.query.GraphQueryResult;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Pulls the statements from the graph result set one by one (nothing is materialized).
+ *
+ * Owns the Ontop statement: closing the result releases the underlying JDBC resources.
+ * Also closed automatically once all the statements have been consumed.
+ */
+public class OntopGraphQueryResult implements GraphQueryResult {
+
+	private final OntopStatement statement;
+	private final SimpleGraphResultSet res;
+
+	private Statement nextStatement;
+	private boolean isClosed = false;
+
+	public OntopGraphQueryResult(OntopStatement statement, SimpleGraphResultSet res) {
+		if (res == null)
+			throw new NullPointerException();
+		this.statement = statement;
+		this.res = res;
+	}
+
+	@Override
+	public Map<String, String> getNamespaces() throws QueryEvaluationException {
+		return Collections.emptyMap();
+	}
+
+	@Override
+	public boolean hasNext() throws QueryEvaluationException {
+		if (nextStatement != null)
+			return true;
+		if (isClosed)
+			return false;
+
+		try {
+			while (res.hasNext()) {
+				Statement stm = RDF4JHelper.createStatement(res.next());
+				// Incomplete statements are skipped
+				if (stm.getSubject() != null && stm.getPredicate() != null && stm.getObject() != null) {
+					nextStatement = stm;
+					return true;
+				}
+			}
+		} catch (Exception e) {
+			close();
+			throw new QueryEvaluationException(e);
+		}
+		close();
+		return false;
+	}
+
+	@Override
+	public Statement next() throws QueryEvaluationException {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		Statement stm = nextStatement;
+		nextStatement = null;
+		return stm;
+	}
+
+	@Override
+	public void remove() throws QueryEvaluationException {
+		throw new QueryEvaluationException("The query result is read-only. Elements cannot be removed");
+	}
+
+	@Override
+	public void close() throws QueryEvaluationException {
+		if (isClosed)
+			return;
+		isClosed = true;
+		try {
+			res.close();
+		} catch (Exception e) {
+			throw new QueryEvaluationException(e);
+		} finally {
+			try {
+				statement.close();
+			} catch (Exception e) {
+				throw new QueryEvaluationException(e);
+			}
+		}
+	}
+}
@@ -57,7 +57,8 @@ public class OntopTupleQuery extends AbstractOntopQuery implements TupleQuery {
 			if(this.queryTimeout > 0)
 				stm.setQueryTimeout(this.queryTimeout);
 			try {
-				SelectQuery inputQuery = factory.createSelectQuery(getQueryString(), getParsedQuery());
+				SelectQuery inputQuery = factory.createSelectQuery(getQueryString(),
+						getInitialParsedQuery(), getBindingsSnapshot());
 				res = stm.execute(inputQuery);
 			} catch (OntopQueryAnsweringException e) {
 				long end = System.currentTimeMillis();
@@ -81,12 +82,13 @@ public class OntopTupleQuery extends AbstractOntopQuery implements TupleQuery {
     @Override
 	public void evaluate(TupleQueryResultHandler handler) 
 			throws QueryEvaluationException, TupleQueryResultHandlerException {
-		TupleQueryResult result = evaluate();
-		handler.startQueryResult(result.getBindingNames());
-		while (result.hasNext()) {
-			handler.handleSolution(result.next());
+		try (TupleQueryResult result = evaluate()) {
+			handler.startQueryResult(result.getBindingNames());
+			while (result.hasNext()) {
+				handler.handleSolution(result.next());
+			}
+			handler.endQueryResult();
 		}
-		handler.endQueryResult();
 	}
 
     @Override
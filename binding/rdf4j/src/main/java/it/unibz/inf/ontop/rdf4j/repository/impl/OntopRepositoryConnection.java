@@ -29,8 +29,8 @@ import it.unibz.inf.ontop.rdf4j.query.impl.OntopTupleQuery;
 import it.unibz.inf.ontop.rdf4j.repository.OntopRepository;
 import org.eclipse.rdf4j.IsolationLevel;
 import org.eclipse.rdf4j.IsolationLevels;
-import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.common.iteration.CloseableIteratorIteration;
+import org.eclipse.rdf4j.common.iteration.ExceptionConvertingIteration;
 import org.eclipse.rdf4j.model.*;
 import org.eclipse.rdf4j.model.impl.NamespaceImpl;
 import org.eclipse.rdf4j.model.impl.ValueFactoryImpl;
@@ -175,18 +175,16 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
             throws RepositoryException, RDFHandlerException {
         //Exports all statements with a specific subject, predicate
         //and/or object from the repository, optionally from the specified contexts.
-        RepositoryResult<Statement> stms = getStatements(subj, pred, obj, includeInferred, contexts);
-
-        handler.startRDF();
-        // handle
-        if (stms != null) {
+        try (RepositoryResult<Statement> stms = getStatements(subj, pred, obj, includeInferred, contexts)) {
+            handler.startRDF();
+            // handle
             while (stms.hasNext()) {
                 Statement st = stms.next();
                 if (st != null)
                     handler.handleStatement(st);
             }
+            handler.endRDF();
         }
-        handler.endRDF();
 
     }
 
@@ -255,24 +253,24 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
 		queryString.append(spo).append("} WHERE {").append(spo).append("}");
 		
 		//execute construct query
-		try {
-			List<Statement> list = new LinkedList<Statement>();
-			
-			if (contexts.length == 0 || (contexts.length > 0 && contexts[0] == null)) {
-					GraphQuery query = prepareGraphQuery(QueryLanguage.SPARQL,
-							queryString.toString());
-					GraphQueryResult result = query.evaluate();
-
-					// System.out.println("result: "+result.hasNext());
-					while (result.hasNext())
-						list.add(result.next());
-					// result.close();
-			}
-			CloseableIteration<Statement, RepositoryException> iter = new CloseableIteratorIteration<Statement, RepositoryException>(
-					list.iterator());
-			RepositoryResult<Statement> repoResult = new RepositoryResult<Statement>(iter);
+		if (contexts.length > 0 && contexts[0] != null)
+			return new RepositoryResult<Statement>(new CloseableIteratorIteration<Statement, RepositoryException>(
+					Collections.<Statement>emptyIterator()));
 
-			return repoResult;
+		try {
+			GraphQuery query = prepareGraphQuery(QueryLanguage.SPARQL, queryString.toString());
+			/*
+			 * The statements are pulled from the result set during the iteration (not materialized).
+			 * Closing the RepositoryResult releases the JDBC resources.
+			 */
+			GraphQueryResult result = query.evaluate();
+			return new RepositoryResult<Statement>(
+					new ExceptionConvertingIteration<Statement, RepositoryException>(result) {
+						@Override
+						protected RepositoryException convert(Exception e) {
+							return new RepositoryException(e);
+						}
+					});
 		} catch (MalformedQueryException e) {
 			throw new RepositoryException(e);
 
@@ -0,0 +1,191 @@
+package it.unibz.inf.ontop.rdf4j.repository;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.eclipse.rdf4j.query.Binding;
+import org.eclipse.rdf4j.query.QueryLanguage;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the answers obtained with the DirectSQLGenerator (IQ2SQLTranslator)
+ * with the ones of the default LegacySQLGenerator, on H2.
+ */
+public class DirectSQLGeneratorTest {
+
+    private static final String CREATE_DB_FILE = "/generators/company-create.sql";
+    private static final String MAPPING_FILE = "/generators/company.obda";
+    private static final String NATIVE_QUERY_GENERATOR_KEY =
+            "it.unibz.inf.ontop.answering.reformulation.generation.NativeQueryGenerator";
+    private static final String DIRECT_SQL_GENERATOR =
+            "it.unibz.inf.ontop.answering.reformulation.generation.impl.DirectSQLGenerator";
+    private static final String USER = "sa";
+    private static final String PASSWORD = "";
+
+    private static final String PREFIX = "PREFIX : <http://example.org/>\n";
+
+    private static Connection SQL_CONNECTION;
+    private static OntopRepository LEGACY_REPO;
+    private static OntopRepository DIRECT_REPO;
+    private static RepositoryConnection LEGACY_CONNECTION;
+    private static RepositoryConnection DIRECT_CONNECTION;
+
+    @BeforeClass
+    public static void before() throws IOException, SQLException {
+        String jdbcUrl = "jdbc:h2:mem:" + UUID.randomUUID().toString();
+        SQL_CONNECTION = DriverManager.getConnection(jdbcUrl, USER, PASSWORD);
+
+        try (Statement st = SQL_CONNECTION.createStatement();
+             BufferedReader in = new BufferedReader(new FileReader(
+                     DirectSQLGeneratorTest.class.getResource(CREATE_DB_FILE).getPath()))) {
+            StringBuilder bf = new StringBuilder();
+            String line;
+            while ((line = in.readLine()) != null)
+                bf.append(line);
+            st.executeUpdate(bf.toString());
+        }
+        SQL_CONNECTION.commit();
+
+        LEGACY_REPO = createRepository(jdbcUrl, new Properties());
+
+        Properties directProperties = new Properties();
+        directProperties.setProperty(NATIVE_QUERY_GENERATOR_KEY, DIRECT_SQL_GENERATOR);
+        DIRECT_REPO = createRepository(jdbcUrl, directProperties);
+
+        LEGACY_CONNECTION = LEGACY_REPO.getConnection();
+        DIRECT_CONNECTION = DIRECT_REPO.getConnection();
+    }
+
+    private static OntopRepository createRepository(String jdbcUrl, Properties properties) {
+        OntopSQLOWLAPIConfiguration config = OntopSQLOWLAPIConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(DirectSQLGeneratorTest.class.getResource(MAPPING_FILE).getPath())
+                .jdbcUrl(jdbcUrl)
+                .jdbcUser(USER)
+                .jdbcPassword(PASSWORD)
+                .properties(properties)
+                .enableTestMode()
+                .build();
+
+        OntopRepository repo = OntopRepository.defaultRepository(config);
+        repo.initialize();
+        return repo;
+    }
+
+    @AfterClass
+    public static void after() throws SQLException {
+        LEGACY_CONNECTION.close();
+        DIRECT_CONNECTION.close();
+        LEGACY_REPO.shutDown();
+        DIRECT_REPO.shutDown();
+        SQL_CONNECTION.close();
+    }
+
+    @Test
+    public void testJoin() {
+        checkSameAnswers("SELECT ?n ?dn WHERE { ?p :worksIn ?d . ?d :name ?dn . ?p :name ?n }", 4);
+    }
+
+    @Test
+    public void testLeftJoin() {
+        checkSameAnswers("SELECT ?p ?t WHERE { ?p a :Person . " +
+                "OPTIONAL { ?p :contributesTo ?proj . ?proj :title ?t } }", 6);
+    }
+
+    @Test
+    public void testLeftJoinWithFilterOnTheOptionalPart() {
+        checkSameAnswers("SELECT ?p WHERE { ?p a :Person . " +
+                "OPTIONAL { ?p :contributesTo ?proj } FILTER(!BOUND(?proj)) }", 3);
+    }
+
+    @Test
+    public void testUnion() {
+        checkSameAnswers("SELECT ?x WHERE { { ?x a :Person } UNION { ?x a :Department } }", 8);
+    }
+
+    @Test
+    public void testUnionOfMappings() {
+        checkSameAnswers("SELECT ?x ?n WHERE { ?x :name ?n }", 8);
+    }
+
+    @Test
+    public void testFilter() {
+        checkSameAnswers("SELECT ?p ?a WHERE { ?p :age ?a FILTER(?a > 30 && ?a < 60) }", 2);
+    }
+
+    @Test
+    public void testDistinct() {
+        checkSameAnswers("SELECT DISTINCT ?d WHERE { ?p :worksIn ?d }", 2);
+    }
+
+    @Test
+    public void testSlice() {
+        String query = PREFIX + "SELECT ?n WHERE { ?p a :Person ; :name ?n } ORDER BY ?n LIMIT 2 OFFSET 1";
+
+        // The order is significant
+        ImmutableList<String> legacyAnswers = evaluate(LEGACY_CONNECTION, query);
+        assertEquals(ImmutableList.of("Bob", "Carol"), legacyAnswers.stream()
+                .map(a -> a.substring(a.indexOf('"') + 1, a.lastIndexOf('"')))
+                .collect(ImmutableCollectors.toList()));
+        assertEquals(legacyAnswers, evaluate(DIRECT_CONNECTION, query));
+    }
+
+    @Test
+    public void testConstantsInTheMapping() {
+        checkSameAnswers("SELECT ?p ?c ?s WHERE { ?p :category ?c ; :status ?s }", 2);
+    }
+
+    @Test
+    public void testConstantInTheQuery() {
+        checkSameAnswers("SELECT ?p ?n WHERE { ?p :worksIn <http://example.org/dept/1> ; :name ?n }", 2);
+    }
+
+    private void checkSameAnswers(String queryBody, int expectedCount) {
+        String query = PREFIX + queryBody;
+        ImmutableList<String> legacyAnswers = sort(evaluate(LEGACY_CONNECTION, query));
+        ImmutableList<String> directAnswers = sort(evaluate(DIRECT_CONNECTION, query));
+
+        assertEquals(expectedCount, legacyAnswers.size());
+        assertEquals(legacyAnswers, directAnswers);
+    }
+
+    /**
+     * One string per binding set (in the order of the result)
+     */
+    private static ImmutableList<String> evaluate(RepositoryConnection connection, String query) {
+        List<String> answers = new ArrayList<>();
+        try (TupleQueryResult result = connection.prepareTupleQuery(QueryLanguage.SPARQL, query).evaluate()) {
+            while (result.hasNext()) {
+                answers.add(ImmutableList.copyOf(result.next().iterator()).stream()
+                        .map(Binding::toString)
+                        .sorted()
+                        .collect(Collectors.joining(" ")));
+            }
+        }
+        return ImmutableList.copyOf(answers);
+    }
+
+    private static ImmutableList<String> sort(ImmutableList<String> answers) {
+        return answers.stream()
+                .sorted()
+                .collect(ImmutableCollectors.toList());
+    }
+}
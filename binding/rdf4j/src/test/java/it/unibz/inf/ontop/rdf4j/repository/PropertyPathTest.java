@@ -0,0 +1,245 @@
+package it.unibz.inf.ontop.rdf4j.repository;
+
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import org.eclipse.rdf4j.query.QueryLanguage;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * SPARQL property paths p+ and p* on H2:
+ *   - unrolled up to the unrolling depth (10 by default) by the default SQL generator when no maximal depth is set,
+ *   - unrolled up to the maximal depth otherwise (smaller or larger than the unrolling depth),
+ *   - translated into a recursive common table expression by the DirectSQLGenerator (bounded by the unrolling
+ *     depth, as H2 only accepts UNION ALL in recursive common table expressions).
+ *
+ * The graph contains two paths from node 1 to node 3 (through 2 and through 7): the pairs must not be duplicated.
+ * The :link chain from node 10 to node 22 is longer than the unrolling depth.
+ */
+public class PropertyPathTest {
+
+    private static final String CREATE_DB_FILE = "/property-paths/graph-create.sql";
+    private static final String MAPPING_FILE = "/property-paths/graph.obda";
+    private static final String PROPERTY_PATH_MAX_DEPTH_KEY = "ontop.propertyPaths.maxDepth";
+    private static final String NATIVE_QUERY_GENERATOR_KEY =
+            "it.unibz.inf.ontop.answering.reformulation.generation.NativeQueryGenerator";
+    private static final String DIRECT_SQL_GENERATOR =
+            "it.unibz.inf.ontop.answering.reformulation.generation.impl.DirectSQLGenerator";
+    private static final String USER = "sa";
+    private static final String PASSWORD = "";
+
+    private static final String PREFIX = "PREFIX : <http://example.org/>\n";
+    private static final String NODE = "http://example.org/node/";
+
+    private static Connection SQL_CONNECTION;
+    private static final List<OntopRepository> REPOSITORIES = new ArrayList<>();
+    private static RepositoryConnection DEFAULT_CONNECTION;
+    private static RepositoryConnection BOUNDED_CONNECTION;
+    private static RepositoryConnection DEEP_CONNECTION;
+    private static RepositoryConnection DIRECT_CONNECTION;
+
+    @BeforeClass
+    public static void before() throws IOException, SQLException {
+        String jdbcUrl = "jdbc:h2:mem:" + UUID.randomUUID().toString();
+        SQL_CONNECTION = DriverManager.getConnection(jdbcUrl, USER, PASSWORD);
+
+        try (Statement st = SQL_CONNECTION.createStatement();
+             BufferedReader in = new BufferedReader(new FileReader(
+                     PropertyPathTest.class.getResource(CREATE_DB_FILE).getPath()))) {
+            StringBuilder bf = new StringBuilder();
+            String line;
+            while ((line = in.readLine()) != null)
+                bf.append(line);
+            st.executeUpdate(bf.toString());
+        }
+        SQL_CONNECTION.commit();
+
+        DEFAULT_CONNECTION = createConnection(jdbcUrl, new Properties());
+
+        Properties boundedProperties = new Properties();
+        boundedProperties.setProperty(PROPERTY_PATH_MAX_DEPTH_KEY, "2");
+        BOUNDED_CONNECTION = createConnection(jdbcUrl, boundedProperties);
+
+        Properties deepProperties = new Properties();
+        deepProperties.setProperty(PROPERTY_PATH_MAX_DEPTH_KEY, "15");
+        DEEP_CONNECTION = createConnection(jdbcUrl, deepProperties);
+
+        Properties directProperties = new Properties();
+        directProperties.setProperty(NATIVE_QUERY_GENERATOR_KEY, DIRECT_SQL_GENERATOR);
+        DIRECT_CONNECTION = createConnection(jdbcUrl, directProperties);
+    }
+
+    private static RepositoryConnection createConnection(String jdbcUrl, Properties properties) {
+        OntopSQLOWLAPIConfiguration config = OntopSQLOWLAPIConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(PropertyPathTest.class.getResource(MAPPING_FILE).getPath())
+                .jdbcUrl(jdbcUrl)
+                .jdbcUser(USER)
+                .jdbcPassword(PASSWORD)
+                .properties(properties)
+                .enableTestMode()
+                .build();
+
+        OntopRepository repo = OntopRepository.defaultRepository(config);
+        repo.initialize();
+        REPOSITORIES.add(repo);
+        return repo.getConnection();
+    }
+
+    @AfterClass
+    public static void after() throws SQLException {
+        DEFAULT_CONNECTION.close();
+        BOUNDED_CONNECTION.close();
+        DEEP_CONNECTION.close();
+        DIRECT_CONNECTION.close();
+        REPOSITORIES.forEach(OntopRepository::shutDown);
+        SQL_CONNECTION.close();
+    }
+
+    @Test
+    public void testOneOrMore() {
+        assertEquals(nodes(2, 3, 4, 5, 6, 7), evaluate(DEFAULT_CONNECTION,
+                "SELECT ?y WHERE { :node/1 :next+ ?y }", "y"));
+    }
+
+    @Test
+    public void testOneOrMoreBackward() {
+        assertEquals(nodes(1, 2, 7), evaluate(DEFAULT_CONNECTION,
+                "SELECT ?x WHERE { ?x :next+ :node/3 }", "x"));
+    }
+
+    @Test
+    public void testOneOrMoreBetweenVariables() {
+        assertEquals(20, count(DEFAULT_CONNECTION, "SELECT ?x ?y WHERE { ?x :next+ ?y }"));
+    }
+
+    @Test
+    public void testOneOrMoreJoined() {
+        assertEquals(6, count(DEFAULT_CONNECTION, "SELECT ?l WHERE { :node/1 :next+ ?y . ?y :label ?l }"));
+    }
+
+    @Test
+    public void testZeroOrMore() {
+        assertEquals(nodes(1, 2, 3, 4, 5, 6, 7), evaluate(DEFAULT_CONNECTION,
+                "SELECT ?y WHERE { :node/1 :next* ?y }", "y"));
+    }
+
+    @Test
+    public void testZeroOrMoreFromIsolatedNode() {
+        assertEquals(nodes(8), evaluate(DEFAULT_CONNECTION,
+                "SELECT ?y WHERE { :node/8 :next* ?y }", "y"));
+    }
+
+    /**
+     * Only the paths of length 1 and 2
+     */
+    @Test
+    public void testBoundedOneOrMore() {
+        assertEquals(nodes(2, 3, 7), evaluate(BOUNDED_CONNECTION,
+                "SELECT ?y WHERE { :node/1 :next+ ?y }", "y"));
+    }
+
+    @Test
+    public void testBoundedZeroOrMore() {
+        assertEquals(nodes(1, 2, 3, 7), evaluate(BOUNDED_CONNECTION,
+                "SELECT ?y WHERE { :node/1 :next* ?y }", "y"));
+    }
+
+    @Test
+    public void testBoundedChain() {
+        assertEquals(nodes(11, 12), evaluate(BOUNDED_CONNECTION,
+                "SELECT ?y WHERE { :node/10 :link+ ?y }", "y"));
+    }
+
+    /**
+     * The default SQL generator cannot express the recursion: the paths longer than the unrolling depth are lost
+     */
+    @Test
+    public void testChainLongerThanUnrollingDepth() {
+        assertEquals(nodes(11, 12, 13, 14, 15, 16, 17, 18, 19, 20), evaluate(DEFAULT_CONNECTION,
+                "SELECT ?y WHERE { :node/10 :link+ ?y }", "y"));
+    }
+
+    @Test
+    public void testMaxDepthLargerThanUnrollingDepth() {
+        assertEquals(nodes(11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22), evaluate(DEEP_CONNECTION,
+                "SELECT ?y WHERE { :node/10 :link+ ?y }", "y"));
+    }
+
+    @Test
+    public void testMaxDepthLargerThanUnrollingDepthBackward() {
+        assertEquals(nodes(10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21), evaluate(DEEP_CONNECTION,
+                "SELECT ?x WHERE { ?x :link+ :node/22 }", "x"));
+    }
+
+    @Test
+    public void testRecursiveOneOrMore() {
+        assertEquals(nodes(2, 3, 4, 5, 6, 7), evaluate(DIRECT_CONNECTION,
+                "SELECT ?y WHERE { :node/1 :next+ ?y }", "y"));
+    }
+
+    @Test
+    public void testRecursiveZeroOrMore() {
+        assertEquals(nodes(1, 2, 3, 4, 5, 6, 7), evaluate(DIRECT_CONNECTION,
+                "SELECT ?y WHERE { :node/1 :next* ?y }", "y"));
+    }
+
+    /**
+     * Without UNION in the recursive common table expressions of H2, the recursion is bounded by the unrolling depth
+     */
+    @Test
+    public void testRecursiveChainLongerThanUnrollingDepth() {
+        assertEquals(nodes(11, 12, 13, 14, 15, 16, 17, 18, 19, 20), evaluate(DIRECT_CONNECTION,
+                "SELECT ?y WHERE { :node/10 :link+ ?y }", "y"));
+    }
+
+    /**
+     * Fails if an answer is returned several times
+     */
+    private static ImmutableSet<String> evaluate(RepositoryConnection connection, String queryBody, String variable) {
+        List<String> answers = new ArrayList<>();
+        try (TupleQueryResult result = connection.prepareTupleQuery(QueryLanguage.SPARQL, PREFIX + queryBody)
+                .evaluate()) {
+            while (result.hasNext())
+                answers.add(result.next().getValue(variable).stringValue());
+        }
+        ImmutableSet<String> answerSet = ImmutableSet.copyOf(answers);
+        assertEquals("Duplicate answers: " + answers, answerSet.size(), answers.size());
+        return answerSet;
+    }
+
+    private static int count(RepositoryConnection connection, String queryBody) {
+        int count = 0;
+        try (TupleQueryResult result = connection.prepareTupleQuery(QueryLanguage.SPARQL, PREFIX + queryBody)
+                .evaluate()) {
+            while (result.hasNext()) {
+                result.next();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static ImmutableSet<String> nodes(int... ids) {
+        ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+        for (int id : ids)
+            builder.add(NODE + id);
+        return builder.build();
+    }
+}
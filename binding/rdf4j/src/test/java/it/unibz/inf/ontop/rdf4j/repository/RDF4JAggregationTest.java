@@ -0,0 +1,163 @@
+package it.unibz.inf.ontop.rdf4j.repository;
+
+import com.google.common.collect.ImmutableMap;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * SPARQL GROUP BY and aggregates (COUNT, SUM, AVG, MIN, MAX) evaluated through the default pipeline on H2
+ */
+public class RDF4JAggregationTest extends AbstractRDF4JTest {
+
+    private static final String CREATE_DB_FILE = "/generators/company-create.sql";
+    private static final String MAPPING_FILE = "/generators/company.obda";
+    private static final String PREFIX = "PREFIX : <http://example.org/>\n";
+    private static final String DEPT_1 = "http://example.org/dept/1";
+    private static final String DEPT_2 = "http://example.org/dept/2";
+    // Key of the group whose grouping variable is unbound
+    private static final String UNBOUND = "UNBOUND";
+
+    @BeforeClass
+    public static void before() throws IOException, SQLException {
+        init(CREATE_DB_FILE, MAPPING_FILE);
+    }
+
+    @AfterClass
+    public static void after() throws SQLException {
+        release();
+    }
+
+    @Test
+    public void testCount() {
+        Map<String, String> counts = evaluateGroups(PREFIX +
+                "SELECT ?d (COUNT(?p) AS ?c) WHERE { ?p :worksIn ?d } GROUP BY ?d", "d", "c");
+
+        assertEquals(ImmutableMap.of(DEPT_1, "2", DEPT_2, "2"), counts);
+    }
+
+    @Test
+    public void testSum() {
+        Map<String, String> sums = evaluateGroups(PREFIX +
+                "SELECT ?d (SUM(?a) AS ?s) WHERE { ?p :worksIn ?d ; :age ?a } GROUP BY ?d", "d", "s");
+
+        assertEquals(2, sums.size());
+        assertEquals(62, Double.parseDouble(sums.get(DEPT_1)), 0.0);
+        assertEquals(45, Double.parseDouble(sums.get(DEPT_2)), 0.0);
+    }
+
+    @Test
+    public void testAvg() {
+        Map<String, String> averages = evaluateGroups(PREFIX +
+                "SELECT ?d (AVG(?a) AS ?m) WHERE { ?p :worksIn ?d ; :age ?a } GROUP BY ?d", "d", "m");
+
+        assertEquals(2, averages.size());
+        assertEquals(31, Double.parseDouble(averages.get(DEPT_1)), 0.001);
+        assertEquals(45, Double.parseDouble(averages.get(DEPT_2)), 0.001);
+    }
+
+    @Test
+    public void testMinMax() {
+        String query = PREFIX + "SELECT ?d (MIN(?a) AS ?min) (MAX(?a) AS ?max) " +
+                "WHERE { ?p :worksIn ?d ; :age ?a } GROUP BY ?d";
+
+        assertEquals(ImmutableMap.of(DEPT_1, "28", DEPT_2, "45"), evaluateGroups(query, "d", "min"));
+        assertEquals(ImmutableMap.of(DEPT_1, "34", DEPT_2, "45"), evaluateGroups(query, "d", "max"));
+    }
+
+    @Test
+    public void testMinOfStrings() {
+        Map<String, String> names = evaluateGroups(PREFIX +
+                "SELECT ?d (MIN(?n) AS ?first) WHERE { ?p :worksIn ?d ; :name ?n } GROUP BY ?d", "d", "first");
+
+        assertEquals(ImmutableMap.of(DEPT_1, "Alice", DEPT_2, "Carol"), names);
+    }
+
+    /**
+     * Implicit group, no matching row in the DB
+     */
+    @Test
+    public void testCountStarNoMatch() {
+        TupleQueryResult result = evaluate(PREFIX +
+                "SELECT (COUNT(*) AS ?c) WHERE { ?p :worksIn <http://example.org/dept/3> }");
+        assertTrue(result.hasNext());
+        assertEquals("0", result.next().getValue("c").stringValue());
+        assertFalse(result.hasNext());
+        result.close();
+    }
+
+    /**
+     * Implicit group over a query that is empty before reaching the DB (incompatible IRI templates)
+     */
+    @Test
+    public void testCountStarEmptyQuery() {
+        TupleQueryResult result = evaluate(PREFIX +
+                "SELECT (COUNT(*) AS ?c) WHERE { ?x a :Project ; :worksIn ?d }");
+        assertTrue(result.hasNext());
+        assertEquals("0", result.next().getValue("c").stringValue());
+        assertFalse(result.hasNext());
+        result.close();
+    }
+
+    /**
+     * Explicit groups over an empty query: no group, no answer
+     */
+    @Test
+    public void testCountGroupsEmptyQuery() {
+        assertEquals(0, runQueryAndCount(PREFIX +
+                "SELECT ?d (COUNT(*) AS ?c) WHERE { ?x a :Project ; :worksIn ?d } GROUP BY ?d"));
+    }
+
+    /**
+     * Dave has no department: his group has an unbound grouping variable
+     */
+    @Test
+    public void testGroupByNullableColumn() {
+        Map<String, String> counts = evaluateGroups(PREFIX +
+                "SELECT ?d (COUNT(?p) AS ?c) WHERE { ?p a :Person OPTIONAL { ?p :worksIn ?d } } GROUP BY ?d",
+                "d", "c");
+
+        assertEquals(ImmutableMap.of(DEPT_1, "2", DEPT_2, "2", UNBOUND, "1"), counts);
+    }
+
+    /**
+     * Eve has no age: she is not counted by COUNT(?a), but is by COUNT(?p)
+     */
+    @Test
+    public void testCountNullableValues() {
+        String query = PREFIX + "SELECT ?d (COUNT(?a) AS ?ca) (COUNT(?p) AS ?cp) " +
+                "WHERE { ?p :worksIn ?d OPTIONAL { ?p :age ?a } } GROUP BY ?d";
+
+        assertEquals(ImmutableMap.of(DEPT_1, "2", DEPT_2, "1"), evaluateGroups(query, "d", "ca"));
+        assertEquals(ImmutableMap.of(DEPT_1, "2", DEPT_2, "2"), evaluateGroups(query, "d", "cp"));
+    }
+
+    /**
+     * Value of the aggregate variable for each group (indexed by the lexical value of the grouping variable)
+     */
+    private Map<String, String> evaluateGroups(String query, String groupVariable, String aggregateVariable) {
+        Map<String, String> values = new HashMap<>();
+        TupleQueryResult result = evaluate(query);
+        while (result.hasNext()) {
+            BindingSet bindingSet = result.next();
+            String key = bindingSet.hasBinding(groupVariable)
+                    ? bindingSet.getValue(groupVariable).stringValue()
+                    : UNBOUND;
+            String previousValue = values.put(key, bindingSet.getValue(aggregateVariable).stringValue());
+            assertEquals("Duplicate group " + key, null, previousValue);
+        }
+        result.close();
+        return values;
+    }
+}
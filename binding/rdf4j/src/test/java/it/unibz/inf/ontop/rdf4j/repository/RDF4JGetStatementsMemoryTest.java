@@ -0,0 +1,129 @@
+package it.unibz.inf.ontop.rdf4j.repository;
+
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.RepositoryResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * getStatements() must stream the statements: the used heap must not grow with the number of rows.
+ *
+ * The 10M rows are generated by a view (nothing is stored by H2).
+ */
+public class RDF4JGetStatementsMemoryTest {
+
+    private static final long ROW_COUNT = 10_000_000L;
+    private static final long SAMPLE_INTERVAL = 1_000_000L;
+    // Far below the size of 10M materialized statements
+    private static final long MAX_HEAP_GROWTH = 64L * 1024 * 1024;
+
+    private static final String URL = "jdbc:h2:mem:getstatementsmemory;LAZY_QUERY_EXECUTION=1";
+    private static final String USER = "sa";
+    private static final String PASSWORD = "";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RDF4JGetStatementsMemoryTest.class);
+
+    private Connection sqlConnection;
+    private File obdaFile;
+    private OntopRepository repository;
+
+    @Before
+    public void setUp() throws Exception {
+        sqlConnection = DriverManager.getConnection(URL, USER, PASSWORD);
+        try (java.sql.Statement st = sqlConnection.createStatement()) {
+            st.execute("CREATE VIEW \"big\" AS SELECT X AS \"id\" FROM SYSTEM_RANGE(1, " + ROW_COUNT + ")");
+        }
+
+        obdaFile = File.createTempFile("getstatements", ".obda");
+        try (PrintWriter writer = new PrintWriter(obdaFile, "UTF-8")) {
+            writer.println("[PrefixDeclaration]");
+            writer.println(":\t\thttp://example.org/voc#");
+            writer.println();
+            writer.println("[MappingDeclaration] @collection [[");
+            writer.println("mappingId\titem");
+            writer.println("target\t<http://example.org/item/{id}> a :Item .");
+            writer.println("source\tSELECT \"id\" FROM \"big\"");
+            writer.println("]]");
+        }
+
+        OntopSQLOWLAPIConfiguration config = OntopSQLOWLAPIConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(obdaFile.getPath())
+                .jdbcUrl(URL)
+                .jdbcUser(USER)
+                .jdbcPassword(PASSWORD)
+                .enableTestMode()
+                .build();
+
+        repository = OntopRepository.defaultRepository(config);
+        repository.initialize();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        repository.shutDown();
+        try (java.sql.Statement st = sqlConnection.createStatement()) {
+            st.execute("DROP VIEW \"big\"");
+        }
+        sqlConnection.close();
+        obdaFile.delete();
+    }
+
+    @Test
+    public void testFlatMemory() throws Exception {
+        long count = 0;
+        long initialHeap = -1;
+        long maxHeap = 0;
+
+        try (RepositoryConnection conn = repository.getConnection();
+             RepositoryResult<Statement> statements = conn.getStatements(null, RDF.TYPE, null, false)) {
+            while (statements.hasNext()) {
+                statements.next();
+                count++;
+                if (count == 1 || count % SAMPLE_INTERVAL == 0) {
+                    long usedHeap = getUsedHeap();
+                    LOGGER.debug("{} statements: {} bytes used", count, usedHeap);
+                    if (initialHeap < 0)
+                        initialHeap = usedHeap;
+                    maxHeap = Math.max(maxHeap, usedHeap);
+                }
+            }
+        }
+
+        assertEquals(ROW_COUNT, count);
+        assertTrue("The heap grew by " + (maxHeap - initialHeap) + " bytes",
+                maxHeap - initialHeap < MAX_HEAP_GROWTH);
+    }
+
+    @Test
+    public void testCloseBeforeTheEnd() throws Exception {
+        try (RepositoryConnection conn = repository.getConnection()) {
+            for (int i = 0; i < 3; i++) {
+                try (RepositoryResult<Statement> statements = conn.getStatements(null, RDF.TYPE, null, false)) {
+                    assertTrue(statements.hasNext());
+                    statements.next();
+                }
+            }
+            assertTrue(conn.hasStatement(null, RDF.TYPE, null, false));
+        }
+    }
+
+    private static long getUsedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
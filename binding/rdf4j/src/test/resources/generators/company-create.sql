@@ -0,0 +1,28 @@
+CREATE TABLE dept (
+    id integer NOT NULL PRIMARY KEY,
+    name character varying(20) NOT NULL
+);
+CREATE TABLE person (
+    id integer NOT NULL PRIMARY KEY,
+    name character varying(20) NOT NULL,
+    age integer,
+    dept_id integer,
+    FOREIGN KEY (dept_id) REFERENCES dept(id)
+);
+CREATE TABLE project (
+    id integer NOT NULL PRIMARY KEY,
+    title character varying(30) NOT NULL,
+    person_id integer NOT NULL,
+    FOREIGN KEY (person_id) REFERENCES person(id)
+);
+INSERT INTO dept VALUES (1, 'Research');
+INSERT INTO dept VALUES (2, 'Sales');
+INSERT INTO dept VALUES (3, 'Legal');
+INSERT INTO person VALUES (1, 'Alice', 34, 1);
+INSERT INTO person VALUES (2, 'Bob', 28, 1);
+INSERT INTO person VALUES (3, 'Carol', 45, 2);
+INSERT INTO person VALUES (4, 'Dave', 61, NULL);
+INSERT INTO person VALUES (5, 'Eve', NULL, 2);
+INSERT INTO project VALUES (1, 'Ontologies', 1);
+INSERT INTO project VALUES (2, 'Mappings', 1);
+INSERT INTO project VALUES (3, 'Contracts', 3);
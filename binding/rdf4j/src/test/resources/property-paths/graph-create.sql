@@ -0,0 +1,43 @@
+CREATE TABLE node (
+    id integer NOT NULL PRIMARY KEY,
+    label character varying(10) NOT NULL
+);
+CREATE TABLE edge (
+    src integer NOT NULL,
+    dst integer NOT NULL,
+    PRIMARY KEY (src, dst),
+    FOREIGN KEY (src) REFERENCES node(id),
+    FOREIGN KEY (dst) REFERENCES node(id)
+);
+CREATE TABLE link (
+    src integer NOT NULL,
+    dst integer NOT NULL,
+    PRIMARY KEY (src, dst)
+);
+INSERT INTO node VALUES (1, 'n1');
+INSERT INTO node VALUES (2, 'n2');
+INSERT INTO node VALUES (3, 'n3');
+INSERT INTO node VALUES (4, 'n4');
+INSERT INTO node VALUES (5, 'n5');
+INSERT INTO node VALUES (6, 'n6');
+INSERT INTO node VALUES (7, 'n7');
+INSERT INTO node VALUES (8, 'n8');
+INSERT INTO edge VALUES (1, 2);
+INSERT INTO edge VALUES (2, 3);
+INSERT INTO edge VALUES (3, 4);
+INSERT INTO edge VALUES (4, 5);
+INSERT INTO edge VALUES (5, 6);
+INSERT INTO edge VALUES (1, 7);
+INSERT INTO edge VALUES (7, 3);
+INSERT INTO link VALUES (10, 11);
+INSERT INTO link VALUES (11, 12);
+INSERT INTO link VALUES (12, 13);
+INSERT INTO link VALUES (13, 14);
+INSERT INTO link VALUES (14, 15);
+INSERT INTO link VALUES (15, 16);
+INSERT INTO link VALUES (16, 17);
+INSERT INTO link VALUES (17, 18);
+INSERT INTO link VALUES (18, 19);
+INSERT INTO link VALUES (19, 20);
+INSERT INTO link VALUES (20, 21);
+INSERT INTO link VALUES (21, 22);
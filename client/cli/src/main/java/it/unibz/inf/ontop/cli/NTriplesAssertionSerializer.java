@@ -0,0 +1,192 @@
+package it.unibz.inf.ontop.cli;
+
+import it.unibz.inf.ontop.model.term.BNode;
+import it.unibz.inf.ontop.model.term.IRIConstant;
+import it.unibz.inf.ontop.model.term.ObjectConstant;
+import it.unibz.inf.ontop.model.term.ValueConstant;
+import it.unibz.inf.ontop.model.type.RDFDatatype;
+import it.unibz.inf.ontop.model.vocabulary.RDF;
+import it.unibz.inf.ontop.model.vocabulary.XSD;
+import it.unibz.inf.ontop.spec.ontology.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Writes the materialized assertions as N-Triples lines, without converting them into RDF4J statements.
+ *
+ * When a graph IRI is given, the lines are N-Quads lines in that named graph.
+ *
+ * The escaped forms of the properties, classes and datatypes are cached, as they are repeated on every line.
+ *
+ * Not thread-safe.
+ */
+class NTriplesAssertionSerializer {
+
+    private static final String RDF_TYPE = "<" + RDF.TYPE.getIRIString() + ">";
+    private static final String XSD_STRING = XSD.STRING.getIRIString();
+
+    private final Map<String, String> escapedIRIs = new HashMap<>();
+    private final StringBuilder sb = new StringBuilder(256);
+    // Ends every line (graph term included, if any)
+    private final String lineEnd;
+
+    /**
+     * N-Triples
+     */
+    NTriplesAssertionSerializer() {
+        this.lineEnd = " .\n";
+    }
+
+    /**
+     * N-Quads, all the quads being in the given named graph
+     */
+    NTriplesAssertionSerializer(String graphIRI) {
+        StringBuilder lineEndBuilder = new StringBuilder(graphIRI.length() + 6);
+        lineEndBuilder.append(' ');
+        appendIRI(graphIRI, lineEndBuilder);
+        lineEndBuilder.append(" .\n");
+        this.lineEnd = lineEndBuilder.toString();
+    }
+
+    void write(Assertion assertion, Writer writer) throws IOException {
+        sb.setLength(0);
+
+        if (assertion instanceof ClassAssertion) {
+            ClassAssertion classAssertion = (ClassAssertion) assertion;
+            appendResource(classAssertion.getIndividual());
+            sb.append(' ').append(RDF_TYPE).append(' ');
+            sb.append(getCachedIRI(classAssertion.getConcept().getIRI().getIRIString()));
+        }
+        else if (assertion instanceof ObjectPropertyAssertion) {
+            ObjectPropertyAssertion propertyAssertion = (ObjectPropertyAssertion) assertion;
+            appendResource(propertyAssertion.getSubject());
+            sb.append(' ').append(getCachedIRI(propertyAssertion.getProperty().getIRI().getIRIString())).append(' ');
+            appendResource(propertyAssertion.getObject());
+        }
+        else if (assertion instanceof DataPropertyAssertion) {
+            DataPropertyAssertion propertyAssertion = (DataPropertyAssertion) assertion;
+            appendResource(propertyAssertion.getSubject());
+            sb.append(' ').append(getCachedIRI(propertyAssertion.getProperty().getIRI().getIRIString())).append(' ');
+            appendLiteral(propertyAssertion.getValue());
+        }
+        else if (assertion instanceof AnnotationAssertion) {
+            AnnotationAssertion annotationAssertion = (AnnotationAssertion) assertion;
+            appendResource(annotationAssertion.getSubject());
+            sb.append(' ').append(getCachedIRI(annotationAssertion.getProperty().getIRI().getIRIString())).append(' ');
+            if (annotationAssertion.getValue() instanceof ValueConstant)
+                appendLiteral((ValueConstant) annotationAssertion.getValue());
+            else
+                appendResource((ObjectConstant) annotationAssertion.getValue());
+        }
+        else
+            throw new IllegalArgumentException("Unsupported assertion: " + assertion);
+
+        sb.append(lineEnd);
+        writer.append(sb);
+    }
+
+    private String getCachedIRI(String iri) {
+        return escapedIRIs.computeIfAbsent(iri, i -> {
+            StringBuilder iriBuilder = new StringBuilder(i.length() + 2);
+            appendIRI(i, iriBuilder);
+            return iriBuilder.toString();
+        });
+    }
+
+    private void appendResource(ObjectConstant constant) {
+        if (constant instanceof IRIConstant)
+            appendIRI(((IRIConstant) constant).getIRI().getIRIString(), sb);
+        else if (constant instanceof BNode)
+            appendBNode(((BNode) constant).getName());
+        else
+            throw new IllegalArgumentException("Invalid constant as resource: " + constant);
+    }
+
+    /**
+     * ECHAR for the characters having one, UCHAR for the other control characters.
+     */
+    private void appendLiteral(ValueConstant literal) {
+        sb.append('"');
+        String value = literal.getValue();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                case '\b':
+                    sb.append("\\b");
+                    break;
+                case '\f':
+                    sb.append("\\f");
+                    break;
+                default:
+                    // Other control characters
+                    if (c < 0x20 || c == 0x7F)
+                        sb.append(String.format("\\u%04X", (int) c));
+                    else
+                        sb.append(c);
+            }
+        }
+        sb.append('"');
+
+        RDFDatatype datatype = literal.getType();
+        Optional<String> languageTag = datatype.getLanguageTag()
+                .map(t -> t.getFullString());
+        if (languageTag.isPresent())
+            sb.append('@').append(languageTag.get());
+        else {
+            String datatypeIRI = datatype.getIRI().getIRIString();
+            // Implicit in RDF 1.1
+            if (!datatypeIRI.equals(XSD_STRING))
+                sb.append("^^").append(getCachedIRI(datatypeIRI));
+        }
+    }
+
+    /**
+     * Characters not allowed in an IRIREF are written as UCHAR.
+     */
+    private static void appendIRI(String iri, StringBuilder builder) {
+        builder.append('<');
+        for (int i = 0; i < iri.length(); i++) {
+            char c = iri.charAt(i);
+            if (c <= 0x20 || c == '<' || c == '>' || c == '"' || c == '{' || c == '}'
+                    || c == '|' || c == '^' || c == '`' || c == '\\')
+                builder.append(String.format("\\u%04X", (int) c));
+            else
+                builder.append(c);
+        }
+        builder.append('>');
+    }
+
+    /**
+     * Blank node labels are restricted to letters and digits (other characters are hex-encoded,
+     * 'x' included as it introduces the encoded characters).
+     */
+    private void appendBNode(String name) {
+        sb.append("_:");
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (((c >= 'a' && c <= 'z') && c != 'x') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))
+                sb.append(c);
+            else
+                sb.append('x').append(String.format("%04X", (int) c));
+        }
+    }
+}
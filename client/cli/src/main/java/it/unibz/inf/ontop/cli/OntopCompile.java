@@ -21,14 +21,94 @@ package it.unibz.inf.ontop.cli;
  */
 
 import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.OptionType;
+import com.github.rvesse.airline.annotations.help.BashCompletion;
+import com.github.rvesse.airline.annotations.restrictions.Required;
+import com.github.rvesse.airline.help.cli.bash.CompletionBehaviour;
+import it.unibz.inf.ontop.dbschema.RDBMetadata;
+import it.unibz.inf.ontop.injection.OntopMappingSQLAllConfiguration;
+import it.unibz.inf.ontop.injection.OntopMappingSQLAllConfiguration.Builder;
+import it.unibz.inf.ontop.injection.OntopMappingSQLSettings;
+import it.unibz.inf.ontop.spec.dbschema.RDBMetadataExtractor;
+import it.unibz.inf.ontop.spec.mapping.pp.SQLPPMapping;
+import it.unibz.inf.ontop.utils.LocalJDBCConnectionUtils;
 
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Extracts the DB metadata once (connecting to the database) and saves it as a snapshot.
+ *
+ * Only the mapping is loaded (no conversion of the mapping, no ontology): the ontology option is ignored.
+ *
+ * The snapshot is then used at startup when the property "ontop.dbMetadataSnapshotFile" points to it,
+ * so that the (slow) JDBC metadata extraction is skipped.
+ *
+ * The user-supplied constraints are stored in the snapshot. The constraint file must be the one given at startup
+ * (its content is part of the fingerprint of the snapshot).
+ */
 @Command(name = "compile",
-        description = "compile the ontology axioms into  mappings",
+        description = "Extract the DB metadata used by the mapping and save it into a snapshot file " +
+                "(to be referred to by the property " + OntopMappingSQLSettings.DB_METADATA_SNAPSHOT_FILE + ")",
         hidden = true)
-public class OntopCompile implements OntopCommand {
+public class OntopCompile extends OntopMappingOntologyRelatedCommand {
+
+    @Option(type = OptionType.COMMAND, name = {"-o", "--output"},
+            title = "output", description = "output file of the DB metadata snapshot")
+    @Required
+    @BashCompletion(behaviour = CompletionBehaviour.FILENAMES)
+    private String outputFile;
+
+    @Option(type = OptionType.COMMAND, name = {"-c", "--constraint"}, title = "constraint file",
+            description = "user-supplied DB constraint file (the same as at startup)")
+    @BashCompletion(behaviour = CompletionBehaviour.FILENAMES)
+    private String constraintFile;
 
     @Override
     public void run() {
+        try {
+            OntopMappingSQLAllConfiguration configuration = createConfiguration();
+            SQLPPMapping ppMapping = configuration.loadProvidedPPMapping();
+            RDBMetadataExtractor extractor = configuration.getInjector().getInstance(RDBMetadataExtractor.class);
+
+            // Part of the fingerprint of the snapshot: must be the constraint file given at startup
+            Optional<File> constraints = Optional.ofNullable(constraintFile).map(File::new);
+            try (Connection connection = LocalJDBCConnectionUtils.createConnection(configuration.getSettings())) {
+                RDBMetadata metadata = extractor.extract(ppMapping, connection, constraints);
+                extractor.saveSnapshot(metadata, ppMapping, constraints, new File(outputFile));
+            }
+            System.out.println("DB metadata snapshot written to " + outputFile);
+        } catch (Exception e) {
+            System.err.println("Error occurred during the compilation: "
+                    + e.getMessage());
+            System.err.println("Debugging information for developers: ");
+            e.printStackTrace();
+        }
+    }
+
+    private OntopMappingSQLAllConfiguration createConfiguration() throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = new FileReader(propertiesFile)) {
+            properties.load(reader);
+        }
+        // The metadata must be extracted from the database, not from a previous snapshot
+        properties.remove(OntopMappingSQLSettings.DB_METADATA_SNAPSHOT_FILE);
+
+        Builder<? extends Builder> configBuilder = OntopMappingSQLAllConfiguration.defaultBuilder();
+
+        if (isR2rmlFile(mappingFile))
+            configBuilder.r2rmlMappingFile(mappingFile);
+        else
+            configBuilder.nativeOntopMappingFile(mappingFile);
 
+        return configBuilder
+                .properties(properties)
+                .build();
     }
 }
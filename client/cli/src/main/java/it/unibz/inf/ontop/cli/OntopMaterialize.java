@@ -25,11 +25,15 @@ import com.github.rvesse.airline.annotations.Command;
 import com.github.rvesse.airline.annotations.Option;
 import com.github.rvesse.airline.annotations.OptionType;
 import com.github.rvesse.airline.annotations.restrictions.AllowedValues;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.io.CountingOutputStream;
+import it.unibz.inf.ontop.answering.resultset.MaterializedGraphResultSet;
 import it.unibz.inf.ontop.exception.OBDASpecificationException;
 import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
 import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration.Builder;
 import it.unibz.inf.ontop.materialization.MaterializationParams;
+import it.unibz.inf.ontop.materialization.OntopRDFMaterializer;
 import it.unibz.inf.ontop.rdf4j.materialization.RDF4JMaterializer;
 import org.apache.commons.rdf.api.IRI;
 import org.eclipse.rdf4j.query.GraphQueryResult;
@@ -41,15 +45,18 @@ import org.semanticweb.owlapi.apibinding.OWLManager;
 import org.semanticweb.owlapi.model.OWLOntology;
 import org.semanticweb.owlapi.model.OWLOntologyCreationException;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.nio.charset.Charset;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.zip.GZIPOutputStream;
 
 import static org.apache.commons.io.FilenameUtils.removeExtension;
 
@@ -73,9 +80,13 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
     }
 
 
-    private static final int TRIPLE_LIMIT_PER_FILE = 500000;
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
     private static final String RDF_XML = "rdfxml";
     private static final String TURTLE = "turtle";
+    private static final String NTRIPLES = "ntriples";
+    private static final String NQUADS = "nquads";
+    private static final String NO_COMPRESSION = "none";
+    private static final String GZIP = "gzip";
 
 
     @Option(type = OptionType.COMMAND, override = true, name = {"-o", "--output"},
@@ -85,9 +96,9 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
 
     @Option(type = OptionType.COMMAND, name = {"-f", "--format"}, title = "outputFormat",
             description = "The format of the materialized ontology. " +
-                    //" Options: rdfxml, turtle. " +
+                    //" Options: rdfxml, turtle, ntriples, nquads. " +
                     "Default: rdfxml")
-    @AllowedValues(allowedValues = {RDF_XML, TURTLE})
+    @AllowedValues(allowedValues = {RDF_XML, TURTLE, NTRIPLES, NQUADS})
     public String format = RDF_XML;
 
     @Option(type = OptionType.COMMAND, name = {"--separate-files"}, title = "output to separate files",
@@ -99,6 +110,25 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
             description = "All the SQL results of one big query will be stored in memory. Not recommended. Default: false.")
     private boolean noStream = false;
 
+    @Option(type = OptionType.COMMAND, name = {"--workers"}, title = "number of workers",
+            description = "Number of classes/properties materialized in parallel, each one on its own DB connection" +
+                    " (and written by its own writer with --separate-files). Default: 1.")
+    private int numberOfWorkers = 1;
+
+    @Option(type = OptionType.COMMAND, name = {"--compression"}, title = "compression",
+            description = "Compression of the output files. Default: none")
+    @AllowedValues(allowedValues = {NO_COMPRESSION, GZIP})
+    private String compression = NO_COMPRESSION;
+
+    @Option(type = OptionType.COMMAND, name = {"--max-file-size"}, title = "maximum file size",
+            description = "Size (in MB, after compression) after which a new file is started" +
+                    " (only for --separate-files). Default: 100")
+    private int maxFileSizeInMB = 100;
+
+    @Option(type = OptionType.COMMAND, name = {"--graph"}, title = "graph IRI",
+            description = "IRI of the named graph the quads are placed in (required for nquads)")
+    private String graphIRI;
+
     private boolean doStreamResults = true;
 
     public OntopMaterialize() {
@@ -112,35 +142,56 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
         if (noStream) {
             doStreamResults = false;
         }
-        RDF4JMaterializer materializer = createMaterializer();
+        if (format.equals(NQUADS) && graphIRI == null) {
+            System.err.println("The nquads format requires a graph IRI (--graph)");
+            throw new IllegalArgumentException("The nquads format requires a graph IRI (--graph)");
+        }
+        if (graphIRI != null && !format.equals(NQUADS)) {
+            System.err.println("A graph IRI (--graph) can only be given for the nquads format");
+            throw new IllegalArgumentException("A graph IRI (--graph) can only be given for the nquads format");
+        }
+        TripleStreamFactory streamFactory = createTripleStreamFactory();
         OutputSpec outputSpec = (outputFile == null) ?
                 new OutputSpec(format) :
                 new OutputSpec(outputFile, format);
         if (separate) {
-            runWithSeparateFiles(materializer, outputSpec);
+            runWithSeparateFiles(streamFactory, outputSpec);
         } else {
-            runWithSingleFile(materializer, outputSpec);
+            runWithSingleFile(streamFactory, outputSpec);
         }
     }
 
-    private RDF4JMaterializer createMaterializer() {
+    /**
+     * N-Triples and N-Quads are directly written from the materialized assertions (no RDF4J statement)
+     */
+    private TripleStreamFactory createTripleStreamFactory() {
 
-        RDF4JMaterializer materializer;
         try {
             OWLOntology ontology = loadOntology();
             OntopSQLOWLAPIConfiguration materializerConfiguration = createAndInitConfigurationBuilder()
                     .ontology(ontology)
                     .build();
-            materializer = RDF4JMaterializer.defaultMaterializer(
-                    materializerConfiguration,
-                    MaterializationParams.defaultBuilder()
-                            .enableDBResultsStreaming(doStreamResults)
-                            .build()
-            );
+            MaterializationParams materializationParams = MaterializationParams.defaultBuilder()
+                    .enableDBResultsStreaming(doStreamResults)
+                    .numberOfWorkers(numberOfWorkers)
+                    .build();
+
+            switch (format) {
+                case NTRIPLES:
+                    return new AssertionStreamFactory(
+                            OntopRDFMaterializer.defaultMaterializer(materializerConfiguration, materializationParams),
+                            Optional.empty());
+                case NQUADS:
+                    return new AssertionStreamFactory(
+                            OntopRDFMaterializer.defaultMaterializer(materializerConfiguration, materializationParams),
+                            Optional.of(graphIRI));
+                default:
+                    return new RDF4JStreamFactory(
+                            RDF4JMaterializer.defaultMaterializer(materializerConfiguration, materializationParams));
+            }
         } catch (OBDASpecificationException | OWLOntologyCreationException e) {
             throw new RuntimeException(e);
         }
-        return materializer;
     }
 
     private OWLOntology loadOntology() throws OWLOntologyCreationException {
@@ -154,21 +205,13 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
         return OWLManager.createOWLOntologyManager().createOntology();
     }
 
-    private void runWithSingleFile(RDF4JMaterializer materializer, OutputSpec outputSpec) {
-        int tripleCount = 0;
+    private void runWithSingleFile(TripleStreamFactory streamFactory, OutputSpec outputSpec) {
+        long tripleCount;
 
         final long startTime = System.currentTimeMillis();
 
-        GraphQueryResult result = materializer.materialize().evaluate();
-
         try {
-            BufferedWriter writer = outputSpec.createWriter(Optional.empty());
-            tripleCount += serializeTripleBatch(
-                    result,
-                    Optional.empty(),
-                    writer,
-                    outputSpec.createRDFHandler(writer)
-            );
+            tripleCount = serialize(streamFactory.materialize(Optional.empty()), outputSpec, Optional.empty());
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -180,38 +223,49 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
         System.out.println("Elapsed time to materialize: " + time + " {ms}");
     }
 
-    private void runWithSeparateFiles(RDF4JMaterializer materializer, OutputSpec outputSpec) {
+    /**
+     * The classes and properties are serialized concurrently (one writer per class/property)
+     */
+    private void runWithSeparateFiles(TripleStreamFactory streamFactory, OutputSpec outputSpec) {
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfWorkers);
         try {
-            materializeClassesByFile(materializer, outputSpec);
-            materializePropertiesByFile(materializer, outputSpec);
+            ImmutableList<Future<?>> futures = ImmutableList.<Future<?>>builder()
+                    .addAll(submitPredicates(streamFactory, streamFactory.getClasses(), PredicateType.CLASS,
+                            outputSpec, executor))
+                    .addAll(submitPredicates(streamFactory, streamFactory.getProperties(), PredicateType.PROPERTY,
+                            outputSpec, executor))
+                    .build();
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            executor.shutdownNow();
         }
     }
 
-    private void materializeClassesByFile(RDF4JMaterializer materializer, OutputSpec outputSpec) throws Exception {
-        ImmutableSet<IRI> classes = materializer.getClasses();
-        int total = classes.size();
+    private ImmutableList<Future<?>> submitPredicates(TripleStreamFactory streamFactory, ImmutableSet<IRI> predicates,
+                                                      PredicateType predicateType, OutputSpec outputSpec,
+                                                      ExecutorService executor) {
+        int total = predicates.size();
         AtomicInteger i = new AtomicInteger();
-        for (IRI c : classes) {
-            serializePredicate(materializer, c, PredicateType.CLASS, i.incrementAndGet(), total, outputSpec);
-        }
-    }
-
-    private void materializePropertiesByFile(RDF4JMaterializer materializer, OutputSpec outputSpec) throws Exception {
-        ImmutableSet<IRI> properties = materializer.getProperties();
-
-        int total = properties.size();
-        AtomicInteger i = new AtomicInteger();
-        for (IRI p : properties) {
-            serializePredicate(materializer, p, PredicateType.PROPERTY, i.incrementAndGet(), total, outputSpec);
+        ImmutableList.Builder<Future<?>> futureBuilder = ImmutableList.builder();
+        for (IRI predicate : predicates) {
+            int index = i.incrementAndGet();
+            futureBuilder.add(executor.submit(() -> {
+                serializePredicate(streamFactory, predicate, predicateType, index, total, outputSpec);
+                return null;
+            }));
         }
+        return futureBuilder.build();
     }
 
     /**
      * Serializes the A-box corresponding to a predicate into one or multiple file.
      */
-    private void serializePredicate(RDF4JMaterializer materializer, IRI predicateIRI,
+    private void serializePredicate(TripleStreamFactory streamFactory, IRI predicateIRI,
                                     PredicateType predicateType, int index, int total,
                                     OutputSpec outputSpec) throws Exception {
         final long startTime = System.currentTimeMillis();
@@ -220,45 +274,43 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
         System.err.println(String.format("Materializing %s (%d/%d)", predicateIRI, index, total));
         System.err.println("Starts writing triples into files.");
 
-        int tripleCount = 0;
-        int fileCount = 0;
-
         String fileSubstring = predicateIRI.toString().replaceAll("[^a-zA-Z0-9]", "_")
                 + predicateType.getCode() + "_";
 
-        GraphQueryResult result = materializer.materialize(ImmutableSet.of(predicateIRI)).evaluate();
-
-        while (result.hasNext()) {
-            BufferedWriter writer = outputSpec.createWriter(Optional.of(fileSubstring + fileCount));
-            tripleCount += serializeTripleBatch(
-                    result,
-                    Optional.of(TRIPLE_LIMIT_PER_FILE),
-                    writer,
-                    outputSpec.createRDFHandler(writer)
-            );
-            fileCount++;
-        }
+        long tripleCount = serialize(streamFactory.materialize(Optional.of(predicateIRI)), outputSpec,
+                Optional.of(fileSubstring));
 
-        System.out.println("NR of TRIPLES: " + tripleCount);
+        System.out.println("NR of TRIPLES (" + predicateIRI + "): " + tripleCount);
 
         final long endTime = System.currentTimeMillis();
         final long time = endTime - startTime;
-        System.out.println("Elapsed time to materialize: " + time + " {ms}");
+        System.out.println("Elapsed time to materialize " + predicateIRI + ": " + time + " {ms}");
     }
 
     /**
-     * Serializes a batch of triples into one file.
-     * Upper bound: TRIPLE_LIMIT_PER_FILE.
+     * Without a file base name, writes everything into one file (created even if there is no triple).
+     *
+     * Otherwise, writes into files named after the base name, starting a new file once the current one
+     * has reached the maximum size.
      */
-    private int serializeTripleBatch(GraphQueryResult result, Optional<Integer> limitPerFile, BufferedWriter writer, RDFHandler handler) throws IOException {
-        int tripleCount = 0;
-        handler.startRDF();
-        while (result.hasNext() && (!limitPerFile.isPresent() || tripleCount < limitPerFile.get())) {
-            handler.handleStatement(result.next());
-            tripleCount++;
+    private long serialize(TripleStream tripleStream, OutputSpec outputSpec, Optional<String> fileBaseName)
+            throws Exception {
+        long tripleCount = 0;
+        int fileCount = 0;
+
+        try (TripleStream stream = tripleStream) {
+            while (fileBaseName.isPresent() ? stream.hasNext() : fileCount == 0) {
+                Optional<String> prefixExtension = fileBaseName.isPresent()
+                        ? Optional.of(fileBaseName.get() + fileCount)
+                        : Optional.empty();
+
+                try (OutputDocument document = outputSpec.createDocument(prefixExtension)) {
+                    tripleCount += stream.writeDocument(document.getWriter(),
+                            fileBaseName.isPresent() ? document::isFull : () -> false);
+                }
+                fileCount++;
+            }
         }
-        handler.endRDF();
-        writer.close();
         return tripleCount;
     }
 
@@ -280,6 +332,207 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
                 .enableOntologyAnnotationQuerying(true);
     }
 
+
+    /**
+     * Triples of the materialization, serialized as one or several documents
+     */
+    private interface TripleStream extends AutoCloseable {
+
+        boolean hasNext() throws Exception;
+
+        /**
+         * Writes the next triples as a complete document, until there is no more triple or the file is full.
+         *
+         * Returns the number of triples written.
+         */
+        long writeDocument(Writer writer, BooleanSupplier isFileFull) throws Exception;
+
+        @Override
+        void close() throws Exception;
+    }
+
+    private interface TripleStreamFactory {
+
+        /**
+         * Materializes the whole RDF graph if no predicate is given
+         */
+        TripleStream materialize(Optional<IRI> selectedPredicate) throws Exception;
+
+        ImmutableSet<IRI> getClasses();
+
+        ImmutableSet<IRI> getProperties();
+    }
+
+    private class RDF4JStreamFactory implements TripleStreamFactory {
+        private final RDF4JMaterializer materializer;
+
+        private RDF4JStreamFactory(RDF4JMaterializer materializer) {
+            this.materializer = materializer;
+        }
+
+        @Override
+        public TripleStream materialize(Optional<IRI> selectedPredicate) {
+            GraphQueryResult result = selectedPredicate.isPresent()
+                    ? materializer.materialize(ImmutableSet.of(selectedPredicate.get())).evaluate()
+                    : materializer.materialize().evaluate();
+
+            return new TripleStream() {
+                @Override
+                public boolean hasNext() {
+                    return result.hasNext();
+                }
+
+                @Override
+                public long writeDocument(Writer writer, BooleanSupplier isFileFull) {
+                    RDFHandler handler = createRDFHandler(writer);
+                    long tripleCount = 0;
+                    handler.startRDF();
+                    while (result.hasNext() && !isFileFull.getAsBoolean()) {
+                        handler.handleStatement(result.next());
+                        tripleCount++;
+                    }
+                    handler.endRDF();
+                    return tripleCount;
+                }
+
+                @Override
+                public void close() {
+                    result.close();
+                }
+            };
+        }
+
+        private RDFHandler createRDFHandler(Writer writer) {
+            switch (format) {
+                case RDF_XML:
+                    return new RDFXMLWriter(writer);
+                case TURTLE:
+                    TurtleWriter tw  = new TurtleWriter(writer);
+                    tw.set(BasicWriterSettings.PRETTY_PRINT, false);
+                    return tw;
+                default:
+                    throw new RuntimeException("Unknown output format: " + format);
+            }
+        }
+
+        @Override
+        public ImmutableSet<IRI> getClasses() {
+            return materializer.getClasses();
+        }
+
+        @Override
+        public ImmutableSet<IRI> getProperties() {
+            return materializer.getProperties();
+        }
+    }
+
+    private static class AssertionStreamFactory implements TripleStreamFactory {
+        private final OntopRDFMaterializer materializer;
+        // Only for N-Quads
+        private final Optional<String> graphIRI;
+
+        private AssertionStreamFactory(OntopRDFMaterializer materializer, Optional<String> graphIRI) {
+            this.materializer = materializer;
+            this.graphIRI = graphIRI;
+        }
+
+        @Override
+        public TripleStream materialize(Optional<IRI> selectedPredicate) throws OBDASpecificationException {
+            MaterializedGraphResultSet resultSet = selectedPredicate.isPresent()
+                    ? materializer.materialize(ImmutableSet.of(selectedPredicate.get()))
+                    : materializer.materialize();
+            NTriplesAssertionSerializer serializer = graphIRI.isPresent()
+                    ? new NTriplesAssertionSerializer(graphIRI.get())
+                    : new NTriplesAssertionSerializer();
+
+            return new TripleStream() {
+                @Override
+                public boolean hasNext() throws Exception {
+                    return resultSet.hasNext();
+                }
+
+                @Override
+                public long writeDocument(Writer writer, BooleanSupplier isFileFull) throws Exception {
+                    long tripleCount = 0;
+                    while (resultSet.hasNext() && !isFileFull.getAsBoolean()) {
+                        serializer.write(resultSet.next(), writer);
+                        tripleCount++;
+                    }
+                    return tripleCount;
+                }
+
+                @Override
+                public void close() throws Exception {
+                    resultSet.close();
+                }
+            };
+        }
+
+        @Override
+        public ImmutableSet<IRI> getClasses() {
+            return materializer.getClasses();
+        }
+
+        @Override
+        public ImmutableSet<IRI> getProperties() {
+            return materializer.getProperties();
+        }
+    }
+
+    /**
+     * Writer of one output file (or of the standard output)
+     */
+    private static class OutputDocument implements Closeable {
+        private final Writer writer;
+        // Null for the standard output
+        private final CountingOutputStream counter;
+        private final long maxSize;
+        private final Optional<GZIPOutputStream> gzipStream;
+
+        /**
+         * File
+         */
+        private OutputDocument(Writer writer, CountingOutputStream counter, long maxSize) {
+            this.writer = writer;
+            this.counter = counter;
+            this.maxSize = maxSize;
+            this.gzipStream = Optional.empty();
+        }
+
+        /**
+         * Standard output (never full)
+         */
+        private OutputDocument(Writer writer, Optional<GZIPOutputStream> gzipStream) {
+            this.writer = writer;
+            this.counter = null;
+            this.maxSize = 0;
+            this.gzipStream = gzipStream;
+        }
+
+        Writer getWriter() {
+            return writer;
+        }
+
+        /**
+         * Approximate (the content buffered by the writer is not counted yet)
+         */
+        boolean isFull() {
+            return counter != null && maxSize > 0 && counter.getCount() >= maxSize;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (counter != null)
+                writer.close();
+            else {
+                // The standard output is not closed
+                writer.flush();
+                if (gzipStream.isPresent())
+                    gzipStream.get().finish();
+            }
+        }
+    }
+
     private class OutputSpec {
         private final Optional<String> prefix;
         private final String format;
@@ -295,38 +548,46 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
         }
 
         // We need a direct access to the writer to close it (cannot be done via the RDFHandler)
-        private BufferedWriter createWriter(Optional<String> prefixExtension) throws IOException {
+        private OutputDocument createDocument(Optional<String> prefixExtension) throws IOException {
+            OutputStream outputStream;
+            CountingOutputStream counter = null;
+
             if (prefix.isPresent()) {
                 String suffix = getSuffix();
-                return Files.newBufferedWriter(
-                        prefixExtension.isPresent() ?
-                                Paths.get(prefix.get(), prefixExtension.get() + suffix) :
-                                Paths.get(prefix.get() + suffix),
-                        Charset.forName("UTF-8")
-                );
+                Path path = prefixExtension.isPresent()
+                        ? Paths.get(prefix.get(), prefixExtension.get() + suffix)
+                        : Paths.get(prefix.get() + suffix);
+                counter = new CountingOutputStream(Files.newOutputStream(path));
+                outputStream = counter;
             }
-            return new BufferedWriter(new OutputStreamWriter(System.out, "UTF-8"));
-        }
+            else
+                outputStream = System.out;
 
-        private String getSuffix() {
-            switch (format) {
-                case RDF_XML:
-                    return ".rdf";
-                case TURTLE:
-                    return ".ttl";
-                default:
-                    throw new RuntimeException("Unknown output format: " + format);
-            }
+            Optional<GZIPOutputStream> gzipStream = compression.equals(GZIP)
+                    ? Optional.of(new GZIPOutputStream(outputStream, OUTPUT_BUFFER_SIZE))
+                    : Optional.empty();
+            if (gzipStream.isPresent())
+                outputStream = gzipStream.get();
+
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8),
+                    OUTPUT_BUFFER_SIZE);
+
+            return (counter == null)
+                    ? new OutputDocument(writer, gzipStream)
+                    : new OutputDocument(writer, counter, maxFileSizeInMB * 1024L * 1024L);
         }
 
-        private RDFHandler createRDFHandler(BufferedWriter writer) {
+        private String getSuffix() {
+            String compressionSuffix = compression.equals(GZIP) ? ".gz" : "";
             switch (format) {
                 case RDF_XML:
-                    return new RDFXMLWriter(writer);
+                    return ".rdf" + compressionSuffix;
                 case TURTLE:
-                    TurtleWriter tw  = new TurtleWriter(writer);
-                    tw.set(BasicWriterSettings.PRETTY_PRINT, false);
-                    return tw;
+                    return ".ttl" + compressionSuffix;
+                case NTRIPLES:
+                    return ".nt" + compressionSuffix;
+                case NQUADS:
+                    return ".nq" + compressionSuffix;
                 default:
                     throw new RuntimeException("Unknown output format: " + format);
             }
@@ -0,0 +1,65 @@
+package it.unibz.inf.ontop.cli;
+
+import it.unibz.inf.ontop.injection.OntopModelConfiguration;
+import it.unibz.inf.ontop.model.term.IRIConstant;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.spec.ontology.Assertion;
+import it.unibz.inf.ontop.spec.ontology.DataPropertyExpression;
+import it.unibz.inf.ontop.spec.ontology.OntologyBuilder;
+import it.unibz.inf.ontop.spec.ontology.impl.OntologyBuilderImpl;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+
+public class NTriplesAssertionSerializerTest {
+
+    private static final OntopModelConfiguration CONFIGURATION = OntopModelConfiguration.defaultBuilder().build();
+    private static final TermFactory TERM_FACTORY = CONFIGURATION.getTermFactory();
+    private static final RDF RDF_FACTORY = CONFIGURATION.getRdfFactory();
+
+    private static final String PROPERTY = "http://example.org/voc#comment";
+
+    @Test
+    public void testLiteralEscaping() throws Exception {
+        Assertion assertion = createDataPropertyAssertion("http://example.org/s",
+                "a\"b\\c\nd\re\tf\bg\fh\u0001i\u007Fjé");
+
+        assertEquals("<http://example.org/s> <" + PROPERTY + "> "
+                        + "\"a\\\"b\\\\c\\nd\\re\\tf\\bg\\fh\\u0001i\\u007Fjé\" .\n",
+                serialize(new NTriplesAssertionSerializer(), assertion));
+    }
+
+    @Test
+    public void testIRIEscaping() throws Exception {
+        Assertion assertion = createDataPropertyAssertion("http://example.org/a b<c>\"{d}|^`\\", "v");
+
+        assertEquals("<http://example.org/a\\u0020b\\u003Cc\\u003E\\u0022\\u007Bd\\u007D\\u007C\\u005E\\u0060\\u005C> "
+                        + "<" + PROPERTY + "> \"v\" .\n",
+                serialize(new NTriplesAssertionSerializer(), assertion));
+    }
+
+    @Test
+    public void testNQuads() throws Exception {
+        Assertion assertion = createDataPropertyAssertion("http://example.org/s", "v");
+
+        assertEquals("<http://example.org/s> <" + PROPERTY + "> \"v\" <http://example.org/graph> .\n",
+                serialize(new NTriplesAssertionSerializer("http://example.org/graph"), assertion));
+    }
+
+    private static Assertion createDataPropertyAssertion(String subjectIRI, String value) throws Exception {
+        OntologyBuilder builder = OntologyBuilderImpl.builder(RDF_FACTORY);
+        DataPropertyExpression property = builder.declareDataProperty(PROPERTY);
+        IRIConstant subject = TERM_FACTORY.getConstantIRI(RDF_FACTORY.createIRI(subjectIRI));
+        return OntologyBuilderImpl.createDataPropertyAssertion(property, subject,
+                TERM_FACTORY.getConstantLiteral(value));
+    }
+
+    private static String serialize(NTriplesAssertionSerializer serializer, Assertion assertion) throws Exception {
+        StringWriter writer = new StringWriter();
+        serializer.write(assertion, writer);
+        return writer.toString();
+    }
+}
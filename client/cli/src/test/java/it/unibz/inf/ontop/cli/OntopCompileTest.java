@@ -0,0 +1,142 @@
+package it.unibz.inf.ontop.cli;
+
+import it.unibz.inf.ontop.dbschema.DatabaseRelationDefinition;
+import it.unibz.inf.ontop.dbschema.RDBMetadata;
+import it.unibz.inf.ontop.exception.DBMetadataExtractionException;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExternalResource;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class OntopCompileTest {
+
+    @ClassRule
+    public static ExternalResource h2Connection = new H2ExternalResourceForBookExample();
+
+    @Rule
+    public TemporaryFolder outputFolder = new TemporaryFolder();
+
+    private static final String MAPPING_FILE = "src/test/resources/books/exampleBooks.obda";
+    private static final String PROPERTIES_FILE = "src/test/resources/books/exampleBooks.properties";
+    private static final String CONSTRAINT_FILE = "src/test/resources/books/exampleBooks-constraints.lst";
+
+    @Test
+    public void testSnapshotUsedAtStartup() throws Exception {
+        File snapshot = compile();
+
+        RDBMetadata metadata = (RDBMetadata) createConfiguration(snapshot, loadProperties())
+                .loadSpecification().getDBMetadata();
+
+        DatabaseRelationDefinition books = metadata.getDatabaseRelations().stream()
+                .filter(r -> r.getID().getTableName().equals("tb_books"))
+                .findAny()
+                .orElseThrow(() -> new AssertionError("tb_books is missing"));
+        assertNotNull(books.getPrimaryKey());
+    }
+
+    /**
+     * The user-supplied unique constraint is stored in the snapshot
+     */
+    @Test
+    public void testSnapshotWithConstraintFile() throws Exception {
+        File snapshot = new File(outputFolder.getRoot(), "books-constraints.snapshot");
+        Ontop.main("compile", "-m", MAPPING_FILE, "-p", PROPERTIES_FILE, "-c", CONSTRAINT_FILE,
+                "-o", snapshot.getPath());
+        assertTrue(snapshot.exists());
+
+        RDBMetadata metadata = (RDBMetadata) OntopSQLOWLAPIConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(MAPPING_FILE)
+                .basicImplicitConstraintFile(CONSTRAINT_FILE)
+                .properties(loadProperties())
+                .dbMetadataSnapshotFile(snapshot)
+                .build()
+                .loadSpecification().getDBMetadata();
+
+        DatabaseRelationDefinition genres = metadata.getDatabaseRelations().stream()
+                .filter(r -> r.getID().getTableName().equals("tb_bk_gen"))
+                .findAny()
+                .orElseThrow(() -> new AssertionError("tb_bk_gen is missing"));
+        assertTrue(genres.getUniqueConstraints().stream()
+                .anyMatch(uc -> uc.getName().equals("tb_bk_gen_USER_UC_0")));
+    }
+
+    /**
+     * The snapshot was compiled without the constraint file
+     */
+    @Test(expected = DBMetadataExtractionException.class)
+    public void testStaleSnapshotOtherConstraintFile() throws Exception {
+        File snapshot = compile();
+
+        OntopSQLOWLAPIConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(MAPPING_FILE)
+                .basicImplicitConstraintFile(CONSTRAINT_FILE)
+                .properties(loadProperties())
+                .dbMetadataSnapshotFile(snapshot)
+                .build()
+                .loadSpecification();
+    }
+
+    @Test(expected = DBMetadataExtractionException.class)
+    public void testStaleSnapshotOtherDB() throws Exception {
+        File snapshot = compile();
+
+        Properties properties = loadProperties();
+        properties.setProperty("jdbc.url", properties.getProperty("jdbc.url") + ";IFEXISTS=TRUE");
+        createConfiguration(snapshot, properties).loadSpecification();
+    }
+
+    @Test(expected = DBMetadataExtractionException.class)
+    public void testStaleSnapshotOtherMapping() throws Exception {
+        File snapshot = compile();
+
+        // Same mapping, except one source query
+        File otherMapping = new File(outputFolder.getRoot(), "otherBooks.obda");
+        String mapping = new String(Files.readAllBytes(Paths.get(MAPPING_FILE)), StandardCharsets.UTF_8);
+        Files.write(otherMapping.toPath(), mapping.replace("\"bk_type\"='A'", "\"bk_type\"='P'")
+                .getBytes(StandardCharsets.UTF_8));
+
+        OntopSQLOWLAPIConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(otherMapping)
+                .properties(loadProperties())
+                .dbMetadataSnapshotFile(snapshot)
+                .build()
+                .loadSpecification();
+    }
+
+    private File compile() {
+        File snapshot = new File(outputFolder.getRoot(), "books.snapshot");
+        Ontop.main("compile", "-m", MAPPING_FILE, "-p", PROPERTIES_FILE, "-o", snapshot.getPath());
+        assertTrue(snapshot.exists());
+        return snapshot;
+    }
+
+    private static OntopSQLOWLAPIConfiguration createConfiguration(File snapshot, Properties properties) {
+        return OntopSQLOWLAPIConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(MAPPING_FILE)
+                .properties(properties)
+                .dbMetadataSnapshotFile(snapshot)
+                .build();
+    }
+
+    private static Properties loadProperties() throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = new FileReader(PROPERTIES_FILE)) {
+            properties.load(reader);
+        }
+        return properties;
+    }
+}
@@ -1,14 +1,44 @@
 package it.unibz.inf.ontop.cli;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
 import org.junit.ClassRule;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExternalResource;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class OntopMaterializeTest {
 
     @ClassRule
     public static ExternalResource h2Connection = new H2ExternalResourceForBookExample();
 
+    @Rule
+    public TemporaryFolder outputFolder = new TemporaryFolder();
+
+    private static final String GRAPH = "http://example.org/books";
+
+    private static final String IRI_REF = "<([^<>\\\\\\s]|\\\\u[0-9A-F]{4})*>";
+    private static final String BNODE = "_:[A-Za-z0-9]+";
+    private static final String LITERAL = "\"([^\"\\\\\\n\\r]|\\\\.)*\"(@[A-Za-z0-9-]+|\\^\\^" + IRI_REF + ")?";
+    // Subject, property and object followed by " ."
+    private static final Pattern N_TRIPLES_LINE = Pattern.compile(
+            "(" + IRI_REF + "|" + BNODE + ") " + IRI_REF + " (" + IRI_REF + "|" + BNODE + "|" + LITERAL + ") \\.");
+
     @Test
     public void testOntopHelpMaterialize(){
         Ontop.main("help", "materialize");
@@ -64,46 +94,148 @@ public class OntopMaterializeTest {
 //    }
 
     @Test
-    public void testOntopMaterializeNoStreamResults (){
+    public void testOntopMaterializeNoStreamResults () throws IOException {
+        File output = new File(outputFolder.getRoot(), "exampleBooks.materialized.nostreaming.ttl");
         String[] argv = {"materialize", "-m", "src/test/resources/books/exampleBooks.obda",
                 "-t", "src/test/resources/books/exampleBooks.owl",
                 "-p", "src/test/resources/books/exampleBooks.properties",
-                "-f", "turtle", "-o", "src/test/resources/output/exampleBooks.materialized.nostreaming.ttl",
+                "-f", "turtle", "-o", output.getPath(),
                 "--no-streaming"
         };
         Ontop.main(argv);
+        assertContainsBook(readFile(output.toPath()));
+    }
+
+    @Test
+    public void testOntopMaterialize () throws IOException {
+        File output = new File(outputFolder.getRoot(), "exampleBooks.materialized.ttl");
+        String[] argv = {"materialize", "-m", "src/test/resources/books/exampleBooks.obda",
+                "-t", "src/test/resources/books/exampleBooks.owl",
+                "-p", "src/test/resources/books/exampleBooks.properties",
+                "-f", "turtle", "-o", output.getPath(),
+        };
+        Ontop.main(argv);
+        assertContainsBook(readFile(output.toPath()));
+    }
+
+    @Test
+    public void testOntopMaterializeSeparatefiles () throws IOException {
+        String[] argv = {"materialize", "-m", "src/test/resources/books/exampleBooks.obda",
+                "-t", "src/test/resources/books/exampleBooks.owl",
+                "-p", "src/test/resources/books/exampleBooks.properties",
+                "-f", "turtle", "-o", outputFolder.getRoot().getPath() + "/",  "--separate-files",
+        };
+        Ontop.main(argv);
+        ImmutableList<Path> files = listFiles(".ttl");
+        assertFalse(files.isEmpty());
+        assertContainsBook(files.stream()
+                .map(OntopMaterializeTest::readFile)
+                .collect(Collectors.joining()));
     }
 
     @Test
-    public void testOntopMaterialize (){
+    public void testOntopMaterializeSeparatefilesNoFormat () throws IOException {
         String[] argv = {"materialize", "-m", "src/test/resources/books/exampleBooks.obda",
                 "-t", "src/test/resources/books/exampleBooks.owl",
                 "-p", "src/test/resources/books/exampleBooks.properties",
-                "-f", "turtle", "-o", "src/test/resources/output/exampleBooks.materialized.ttl",
+                "-o", outputFolder.getRoot().getPath() + "/",  "--separate-files",
         };
         Ontop.main(argv);
+        ImmutableList<Path> files = listFiles(".rdf");
+        assertFalse(files.isEmpty());
+        assertContainsBook(files.stream()
+                .map(OntopMaterializeTest::readFile)
+                .collect(Collectors.joining()));
     }
 
     @Test
-    public void testOntopMaterializeSeparatefiles (){
+    public void testOntopMaterializeNTriples () throws IOException {
+        ImmutableList<String> lines = materializeNTriples("2");
+
+        assertFalse(lines.isEmpty());
+        for (String line : lines) {
+            assertTrue(line, N_TRIPLES_LINE.matcher(line).matches());
+        }
+        assertTrue(lines.stream()
+                .anyMatch(l -> l.startsWith("<http://meraka/moss/exampleBooks.owl#book/")
+                        && l.endsWith("> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> "
+                        + "<http://meraka/moss/exampleBooks.owl#Book> .")));
+        // Same triples as with a single worker
+        assertEquals(ImmutableSet.copyOf(materializeNTriples("1")), ImmutableSet.copyOf(lines));
+    }
+
+    @Test
+    public void testOntopMaterializeSeparatefilesNQuadsGzip () throws IOException {
         String[] argv = {"materialize", "-m", "src/test/resources/books/exampleBooks.obda",
                 "-t", "src/test/resources/books/exampleBooks.owl",
                 "-p", "src/test/resources/books/exampleBooks.properties",
-                "-f", "turtle", "-o", "src/test/resources/output/",  "--separate-files",
+                "-f", "nquads", "-o", outputFolder.getRoot().getPath() + "/",  "--separate-files",
+                "--graph", GRAPH,
+                "--workers", "3", "--compression", "gzip", "--max-file-size", "1"
         };
         Ontop.main(argv);
+
+        ImmutableList<Path> files = listFiles(".nq.gz");
+        assertFalse(files.isEmpty());
+        ImmutableList.Builder<String> tripleBuilder = ImmutableList.builder();
+        for (Path file : files) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    assertTrue(line, line.endsWith(" <" + GRAPH + "> ."));
+                    tripleBuilder.add(line.substring(0, line.length() - GRAPH.length() - 5) + " .");
+                }
+            }
+        }
+        ImmutableList<String> triples = tripleBuilder.build();
+        // Same triples as the N-Triples output, each one written once
+        assertEquals(triples.size(), ImmutableSet.copyOf(triples).size());
+        assertEquals(ImmutableSet.copyOf(materializeNTriples("1")), ImmutableSet.copyOf(triples));
     }
 
     @Test
-    public void testOntopMaterializeSeparatefilesNoFormat (){
+    public void testOntopMaterializeNQuadsWithoutGraph () throws IOException {
+        File output = new File(outputFolder.getRoot(), "exampleBooks.materialized.nq");
+        String[] argv = {"materialize", "-m", "src/test/resources/books/exampleBooks.obda",
+                "-t", "src/test/resources/books/exampleBooks.owl",
+                "-p", "src/test/resources/books/exampleBooks.properties",
+                "-f", "nquads", "-o", output.getPath()
+        };
+        Ontop.main(argv);
+        // Rejected: no quad without its graph
+        assertFalse(output.exists());
+    }
+
+    private ImmutableList<String> materializeNTriples(String workers) throws IOException {
+        File output = new File(outputFolder.getRoot(), "exampleBooks.materialized." + workers + ".nt");
         String[] argv = {"materialize", "-m", "src/test/resources/books/exampleBooks.obda",
                 "-t", "src/test/resources/books/exampleBooks.owl",
                 "-p", "src/test/resources/books/exampleBooks.properties",
-                "-o", "src/test/resources/output/",  "--separate-files",
+                "-f", "ntriples", "-o", output.getPath(),
+                "--workers", workers
         };
         Ontop.main(argv);
+        return ImmutableList.copyOf(Files.readAllLines(output.toPath(), StandardCharsets.UTF_8));
     }
 
+    private ImmutableList<Path> listFiles(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(outputFolder.getRoot().toPath())) {
+            return files
+                    .filter(f -> f.getFileName().toString().endsWith(suffix))
+                    .collect(ImmutableCollectors.toList());
+        }
+    }
 
+    private static String readFile(Path file) {
+        try {
+            return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
+    private static void assertContainsBook(String content) {
+        assertTrue(content.contains("http://meraka/moss/exampleBooks.owl#book/"));
+    }
 }
@@ -9,6 +9,7 @@ import org.eclipse.rdf4j.query.MalformedQueryException;
 import org.eclipse.rdf4j.query.Query;
 import org.eclipse.rdf4j.query.QueryLanguage;
 import org.eclipse.rdf4j.query.TupleQuery;
+import org.eclipse.rdf4j.query.TupleQueryResultHandler;
 import org.eclipse.rdf4j.query.Update;
 import org.eclipse.rdf4j.query.resultio.BooleanQueryResultWriter;
 import org.eclipse.rdf4j.query.resultio.sparqljson.SPARQLBooleanJSONWriter;
@@ -22,22 +23,25 @@ import org.eclipse.rdf4j.repository.Repository;
 import org.eclipse.rdf4j.repository.RepositoryConnection;
 import org.eclipse.rdf4j.repository.RepositoryException;
 import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFHandler;
 import org.eclipse.rdf4j.rio.rdfxml.RDFXMLWriter;
 import org.eclipse.rdf4j.rio.turtle.TurtleWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.ModelAndView;
 
 import javax.servlet.http.HttpServletRequest;
-import java.io.ByteArrayOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 import static org.springframework.http.HttpHeaders.ACCEPT;
 import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
@@ -46,6 +50,11 @@ import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED_VAL
 @RestController
 public class SparqlQueryController {
 
+    /**
+     * Results are sent to the client in chunks of this size
+     */
+    private static final int RESPONSE_BUFFER_SIZE = 64 * 1024;
+
     private final Repository repository;
     private volatile boolean initialized = false;
 
@@ -85,41 +94,45 @@ public class SparqlQueryController {
     @RequestMapping(value = "/sparql",
             method = {RequestMethod.GET}
     )
-    @ResponseBody
-    public HttpEntity<String> query_get(
+    public void query_get(
             @RequestHeader(ACCEPT) String accept,
             @RequestParam(value = "query") String query,
             @RequestParam(value = "default-graph-uri", required = false) String[] defaultGraphUri,
-            @RequestParam(value = "named-graph-uri", required = false) String[] namedGraphUri) {
-        return execQuery(accept, query, defaultGraphUri, namedGraphUri);
+            @RequestParam(value = "named-graph-uri", required = false) String[] namedGraphUri,
+            HttpServletResponse response) throws IOException {
+        execQuery(accept, query, defaultGraphUri, namedGraphUri, response);
     }
 
     @RequestMapping(value = "/sparql",
             method = RequestMethod.POST,
             consumes = APPLICATION_FORM_URLENCODED_VALUE)
-    @ResponseBody
-    public HttpEntity<String> query_post_URL_encoded(
+    public void query_post_URL_encoded(
             @RequestHeader(ACCEPT) String accept,
             @RequestParam(value = "query") String query,
             @RequestParam(value = "default-graph-uri", required = false) String[] defaultGraphUri,
-            @RequestParam(value = "named-graph-uri", required = false) String[] namedGraphUri) {
-        return execQuery(accept, query, defaultGraphUri, namedGraphUri);
+            @RequestParam(value = "named-graph-uri", required = false) String[] namedGraphUri,
+            HttpServletResponse response) throws IOException {
+        execQuery(accept, query, defaultGraphUri, namedGraphUri, response);
     }
 
     @RequestMapping(value = "/sparql",
             method = RequestMethod.POST,
             consumes = "application/sparql-query")
-    @ResponseBody
-    public HttpEntity<String> query_post_directly(
+    public void query_post_directly(
             @RequestHeader(ACCEPT) String accept,
             @RequestBody String query,
             @RequestParam(value = "default-graph-uri", required = false) String[] defaultGraphUri,
-            @RequestParam(value = "named-graph-uri", required = false) String[] namedGraphUri) {
-        return execQuery(accept, query, defaultGraphUri, namedGraphUri);
+            @RequestParam(value = "named-graph-uri", required = false) String[] namedGraphUri,
+            HttpServletResponse response) throws IOException {
+        execQuery(accept, query, defaultGraphUri, namedGraphUri, response);
     }
 
-    private ResponseEntity<String> execQuery(String accept,
-                                             String query, String[] defaultGraphUri, String[] namedGraphUri) {
+    /**
+     * Results are directly streamed to the client (in chunks of RESPONSE_BUFFER_SIZE bytes),
+     * while being converted. Writing blocks when the client does not consume them fast enough.
+     */
+    private void execQuery(String accept, String query, String[] defaultGraphUri, String[] namedGraphUri,
+                           HttpServletResponse response) throws IOException {
         if (!initialized) {
             synchronized (this) {
                 if (!initialized) {
@@ -129,91 +142,94 @@ public class SparqlQueryController {
             }
         }
 
-        HttpHeaders headers = new HttpHeaders();
-        HttpStatus status = HttpStatus.OK;
-
-        RepositoryConnection connection = repository.getConnection();
-        Query q = connection.prepareQuery(QueryLanguage.SPARQL, query);
-        ByteArrayOutputStream bao = new ByteArrayOutputStream();
-        final String result;
-
-        if (q instanceof TupleQuery) {
-            TupleQuery selectQuery = (TupleQuery) q;
-
-            if ("*/*".equals(accept) || accept.contains("json")) {
-                headers.set(HttpHeaders.CONTENT_TYPE, "application/sparql-results+json");
-                selectQuery.evaluate(new SPARQLResultsJSONWriter(bao));
-                result = bao.toString();
-            } else if (accept.contains("xml")) {
-                headers.set(HttpHeaders.CONTENT_TYPE, "application/sparql-results+xml");
-                selectQuery.evaluate(new SPARQLResultsXMLWriter(bao));
-                result = bao.toString();
-            } else if (accept.contains("csv")) {
-                headers.set(HttpHeaders.CONTENT_TYPE, "text/sparql-results+csv");
-                selectQuery.evaluate(new SPARQLResultsCSVWriter(bao));
-                result = bao.toString();
-            } else if (accept.contains("tsv")) {
-                headers.set(HttpHeaders.CONTENT_TYPE, "text/sparql-results+tsv");
-                selectQuery.evaluate(new SPARQLResultsTSVWriter(bao));
-                result = bao.toString();
-            } else {
-                result = "";
-                status = HttpStatus.BAD_REQUEST;
-                //throw new IllegalArgumentException("unsupported ACCEPT : " + accept);
-            }
+        try (RepositoryConnection connection = repository.getConnection()) {
+            Query q = connection.prepareQuery(QueryLanguage.SPARQL, query);
 
-        } else if (q instanceof BooleanQuery) {
-            BooleanQuery askQuery = (BooleanQuery) q;
-            boolean b = askQuery.evaluate();
-
-            if ("*/*".equals(accept) || accept.contains("json")) {
-                headers.set(HttpHeaders.CONTENT_TYPE, "application/sparql-results+json");
-                BooleanQueryResultWriter writer = new SPARQLBooleanJSONWriter(bao);
-                writer.handleBoolean(b);
-                result = bao.toString();
-            } else if (accept.contains("xml")) {
-                headers.set(HttpHeaders.CONTENT_TYPE, "application/sparql-results+xml");
-                BooleanQueryResultWriter writer = new SPARQLBooleanXMLWriter(bao);
-                writer.handleBoolean(b);
-                result = bao.toString();
-            } else if (accept.contains("text")) {
-                headers.set(HttpHeaders.CONTENT_TYPE, "text/boolean");
-                BooleanQueryResultWriter writer = new BooleanTextWriter(bao);
-                writer.handleBoolean(b);
-                result = bao.toString();
-            } else {
-                result = "";
-                status = HttpStatus.BAD_REQUEST;
-                //throw new IllegalArgumentException("unsupported ACCEPT : " + accept);
-            }
-        } else if (q instanceof GraphQuery) {
-            GraphQuery graphQuery = (GraphQuery) q;
-            if ("*/*".equals(accept) || accept.contains("turtle")) {
-                headers.set(HttpHeaders.CONTENT_TYPE, "text/turtle");
-                graphQuery.evaluate(new TurtleWriter(bao));
-                result = bao.toString();
-            } else if (accept.contains("json")) {
-                headers.set(HttpHeaders.CONTENT_TYPE, "application/json");
-                graphQuery.evaluate(new org.eclipse.rdf4j.rio.rdfjson.RDFJSONWriter(bao, RDFFormat.JSONLD));
-                result = bao.toString();
-            } else if (accept.contains("xml")) {
-                headers.set(HttpHeaders.CONTENT_TYPE, "application/rdf+xml");
-                graphQuery.evaluate(new RDFXMLWriter(bao));
-                result = bao.toString();
+            if (q instanceof TupleQuery) {
+                TupleQuery selectQuery = (TupleQuery) q;
+
+                if ("*/*".equals(accept) || accept.contains("json")) {
+                    evaluateSelectQuery(selectQuery, "application/sparql-results+json",
+                            SPARQLResultsJSONWriter::new, response);
+                } else if (accept.contains("xml")) {
+                    evaluateSelectQuery(selectQuery, "application/sparql-results+xml",
+                            SPARQLResultsXMLWriter::new, response);
+                } else if (accept.contains("csv")) {
+                    evaluateSelectQuery(selectQuery, "text/sparql-results+csv",
+                            SPARQLResultsCSVWriter::new, response);
+                } else if (accept.contains("tsv")) {
+                    evaluateSelectQuery(selectQuery, "text/sparql-results+tsv",
+                            SPARQLResultsTSVWriter::new, response);
+                } else {
+                    response.setStatus(HttpStatus.BAD_REQUEST.value());
+                    //throw new IllegalArgumentException("unsupported ACCEPT : " + accept);
+                }
+
+            } else if (q instanceof BooleanQuery) {
+                BooleanQuery askQuery = (BooleanQuery) q;
+
+                if ("*/*".equals(accept) || accept.contains("json")) {
+                    evaluateAskQuery(askQuery, "application/sparql-results+json",
+                            SPARQLBooleanJSONWriter::new, response);
+                } else if (accept.contains("xml")) {
+                    evaluateAskQuery(askQuery, "application/sparql-results+xml",
+                            SPARQLBooleanXMLWriter::new, response);
+                } else if (accept.contains("text")) {
+                    evaluateAskQuery(askQuery, "text/boolean",
+                            BooleanTextWriter::new, response);
+                } else {
+                    response.setStatus(HttpStatus.BAD_REQUEST.value());
+                    //throw new IllegalArgumentException("unsupported ACCEPT : " + accept);
+                }
+            } else if (q instanceof GraphQuery) {
+                GraphQuery graphQuery = (GraphQuery) q;
+
+                if ("*/*".equals(accept) || accept.contains("turtle")) {
+                    evaluateGraphQuery(graphQuery, "text/turtle", TurtleWriter::new, response);
+                } else if (accept.contains("json")) {
+                    evaluateGraphQuery(graphQuery, "application/json",
+                            out -> new org.eclipse.rdf4j.rio.rdfjson.RDFJSONWriter(out, RDFFormat.JSONLD), response);
+                } else if (accept.contains("xml")) {
+                    evaluateGraphQuery(graphQuery, "application/rdf+xml", RDFXMLWriter::new, response);
+                } else {
+                    //throw new IllegalArgumentException("unsupported ACCEPT : " + accept);
+                    response.setStatus(HttpStatus.BAD_REQUEST.value());
+                }
+            } else if (q instanceof Update) {
+                response.setStatus(HttpStatus.NOT_IMPLEMENTED.value());
             } else {
-                //throw new IllegalArgumentException("unsupported ACCEPT : " + accept);
-                result = "";
-                status = HttpStatus.BAD_REQUEST;
+                response.setStatus(HttpStatus.BAD_REQUEST.value());
             }
-        } else if (q instanceof Update) {
-            //else if (q instanceof Update)
-            result = "";
-            status = HttpStatus.NOT_IMPLEMENTED;
-        } else {
-            result = "";
-            status = HttpStatus.BAD_REQUEST;
         }
-        return new ResponseEntity<>(result, headers, status);
+    }
+
+    private void evaluateSelectQuery(TupleQuery selectQuery, String contentType,
+                                     Function<OutputStream, TupleQueryResultHandler> writerConstructor,
+                                     HttpServletResponse response) throws IOException {
+        response.setContentType(contentType);
+        OutputStream out = new BufferedOutputStream(response.getOutputStream(), RESPONSE_BUFFER_SIZE);
+        selectQuery.evaluate(writerConstructor.apply(out));
+        out.flush();
+    }
+
+    private void evaluateAskQuery(BooleanQuery askQuery, String contentType,
+                                  Function<OutputStream, BooleanQueryResultWriter> writerConstructor,
+                                  HttpServletResponse response) throws IOException {
+        // Evaluated before sending anything (so that errors can still be reported)
+        boolean b = askQuery.evaluate();
+        response.setContentType(contentType);
+        OutputStream out = response.getOutputStream();
+        writerConstructor.apply(out).handleBoolean(b);
+        out.flush();
+    }
+
+    private void evaluateGraphQuery(GraphQuery graphQuery, String contentType,
+                                    Function<OutputStream, RDFHandler> writerConstructor,
+                                    HttpServletResponse response) throws IOException {
+        response.setContentType(contentType);
+        OutputStream out = new BufferedOutputStream(response.getOutputStream(), RESPONSE_BUFFER_SIZE);
+        graphQuery.evaluate(writerConstructor.apply(out));
+        out.flush();
     }
 
 
@@ -1,6 +1,8 @@
 package it.unibz.inf.ontop.protege.core;
 
 import it.unibz.inf.ontop.exception.OntopConnectionException;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSettings;
 import it.unibz.inf.ontop.owlapi.OntopOWLFactory;
 import it.unibz.inf.ontop.owlapi.OntopOWLReasoner;
 import it.unibz.inf.ontop.owlapi.connection.OWLConnection;
@@ -29,6 +31,9 @@ public class OntopProtegeReasoner extends OWLReasonerBase implements AutoCloseab
     private final OntopConfigurationManager configurationManager;
     private OntopOWLConnection owlConnection;
     private final OWLAPITranslatorOWL2QL owlapiTranslator;
+    // See ontop.validation.batchSize and ontop.validation.threads
+    private int validationBatchSize;
+    private int validationThreads;
 
 
     protected OntopProtegeReasoner(OWLOntology rootOntology, OntopProtegeOWLConfiguration configuration) throws IllegalConfigurationException {
@@ -38,6 +43,12 @@ public class OntopProtegeReasoner extends OWLReasonerBase implements AutoCloseab
         reasoner = factory.createReasoner(rootOntology, configuration);
         this.configurationManager = configuration.getOntopConfigurationManager();
         owlConnection = reasoner.getConnection();
+        readValidationSettings(configuration.getOntopConfiguration().getSettings());
+    }
+
+    private void readValidationSettings(OntopSystemSettings settings) {
+        validationBatchSize = settings.getValidationBatchSize();
+        validationThreads = settings.getValidationThreads();
     }
 
     public OntopOWLStatement getStatement() throws OWLException {
@@ -64,7 +75,10 @@ public class OntopProtegeReasoner extends OWLReasonerBase implements AutoCloseab
     public void flush() {
         super.flush();
         try {
-            reasoner = factory.createReasoner(configurationManager.buildOntopSQLOWLAPIConfiguration(getRootOntology()));
+            OntopSQLOWLAPIConfiguration ontopConfiguration =
+                    configurationManager.buildOntopSQLOWLAPIConfiguration(getRootOntology());
+            reasoner = factory.createReasoner(ontopConfiguration);
+            readValidationSettings(ontopConfiguration.getSettings());
         } catch (OWLOntologyCreationException e) {
             e.printStackTrace();
         }
@@ -330,7 +344,8 @@ public class OntopProtegeReasoner extends OWLReasonerBase implements AutoCloseab
         Ontology mergeOntology = owlapiTranslator.translateAndClassify(rootOntology);
         ClassifiedTBox tBox = mergeOntology.tbox();
 
-        return new QuestOWLEmptyEntitiesChecker(tBox, owlConnection);
+        return new QuestOWLEmptyEntitiesChecker(tBox, owlConnection, validationBatchSize, validationThreads,
+                reasoner::getConnection);
     }
 
     /**
@@ -42,6 +42,12 @@ public interface DatalogFactory {
     AlgebraOperatorPredicate getSparqlGroupPredicate();
     AlgebraOperatorPredicate getSparqlHavingPredicate();
 
+    /**
+     * TransitiveClosure(s, o) or TransitiveClosure(s, o, maxDepth): the head of the rule is the transitive closure
+     * of the relation given by the rest of the body
+     */
+    AlgebraOperatorPredicate getSparqlTransitiveClosurePredicate();
+
     AtomPredicate getSubqueryPredicate(String suffix, int arity);
 
     /**
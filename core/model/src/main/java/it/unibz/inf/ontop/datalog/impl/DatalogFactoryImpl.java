@@ -13,6 +13,7 @@ import it.unibz.inf.ontop.model.type.TypeFactory;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
 
@@ -24,6 +25,7 @@ public class DatalogFactoryImpl implements DatalogFactory {
     private final AlgebraOperatorPredicate sparqlLeftjoinPredicate;
     private final AlgebraOperatorPredicate sparqlGroupPredicate;
     private final AlgebraOperatorPredicate sparqlHavingPredicate;
+    private final AlgebraOperatorPredicate sparqlTransitiveClosurePredicate;
     private final TermFactory termFactory;
     private final TypeFactory typeFactory;
 
@@ -33,6 +35,7 @@ public class DatalogFactoryImpl implements DatalogFactory {
         sparqlLeftjoinPredicate = new AlgebraOperatorPredicateImpl("LeftJoin", typeFactory);
         sparqlGroupPredicate = new AlgebraOperatorPredicateImpl("Group", typeFactory);
         sparqlHavingPredicate = new AlgebraOperatorPredicateImpl("Having", typeFactory);
+        sparqlTransitiveClosurePredicate = new AlgebraOperatorPredicateImpl("TransitiveClosure", typeFactory);
         this.termFactory = termFactory;
         this.typeFactory = typeFactory;
     }
@@ -122,6 +125,11 @@ public class DatalogFactoryImpl implements DatalogFactory {
         return sparqlHavingPredicate;
     }
 
+    @Override
+    public AlgebraOperatorPredicate getSparqlTransitiveClosurePredicate() {
+        return sparqlTransitiveClosurePredicate;
+    }
+
     @Override
     public AtomPredicate getSubqueryPredicate(String suffix, int arity) {
         return new DatalogAtomPredicate(SUBQUERY_PRED_PREFIX + suffix, arity, typeFactory);
@@ -158,7 +166,7 @@ public class DatalogFactoryImpl implements DatalogFactory {
     @Override
     public CQIE getFreshCQIECopy(CQIE rule) {
 
-        int suff = ++suffix;
+        int suff = suffix.incrementAndGet();
 
         // This method doesn't support nested functional terms
         CQIE freshRule = rule.clone();
@@ -182,7 +190,7 @@ public class DatalogFactoryImpl implements DatalogFactory {
         return freshRule;
     }
 
-    private int suffix = 0;
+    private final AtomicInteger suffix = new AtomicInteger(0);
 
     private Term getFreshTerm(Term term, int suff) {
         Term newTerm;
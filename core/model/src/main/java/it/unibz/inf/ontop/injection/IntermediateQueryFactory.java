@@ -12,6 +12,7 @@ import it.unibz.inf.ontop.model.atom.DataAtom;
 import it.unibz.inf.ontop.model.atom.DistinctVariableOnlyDataAtom;
 import it.unibz.inf.ontop.model.atom.RelationPredicate;
 import it.unibz.inf.ontop.model.term.ImmutableExpression;
+import it.unibz.inf.ontop.model.term.ImmutableFunctionalTerm;
 import it.unibz.inf.ontop.model.term.ImmutableTerm;
 import it.unibz.inf.ontop.model.term.NonGroundTerm;
 import it.unibz.inf.ontop.model.term.Variable;
@@ -57,6 +58,13 @@ public interface IntermediateQueryFactory {
     SliceNode createSliceNode(@Assisted("offset") long offset, @Assisted("limit") long limit);
     SliceNode createSliceNode(long offset);
 
+    AggregationNode createAggregationNode(ImmutableSet<Variable> groupingVariables,
+                                          ImmutableSubstitution<ImmutableFunctionalTerm> substitution);
+
+    TransitiveClosureNode createTransitiveClosureNode(@Assisted("source") Variable sourceVariable,
+                                                      @Assisted("target") Variable targetVariable,
+                                                      Optional<Integer> maxDepth);
+
     OrderByNode createOrderByNode(ImmutableList<OrderByNode.OrderComparator> comparators);
     OrderByNode.OrderComparator createOrderComparator(NonGroundTerm term, boolean isAscending);
 
@@ -72,6 +72,8 @@ public class OntopModelModule extends OntopAbstractModule {
                 DistinctNode.class,
                 SliceNode.class,
                 OrderByNode.class,
+                AggregationNode.class,
+                TransitiveClosureNode.class,
                 OrderByNode.OrderComparator.class,
                 UnaryIQTree.class,
                 BinaryNonCommutativeIQTree.class,
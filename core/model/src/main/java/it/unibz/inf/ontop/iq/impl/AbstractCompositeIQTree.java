@@ -33,6 +33,12 @@ public abstract class AbstractCompositeIQTree<N extends QueryNode> implements Co
     @Nullable
     private ImmutableSet<Variable> knownVariables;
 
+    /**
+     * LAZY: structural hash, consistent with isEquivalentTo()
+     */
+    @Nullable
+    private Integer hashCode;
+
     // Non final
     private boolean hasBeenSuccessfullyValidate;
 
@@ -51,6 +57,7 @@ public abstract class AbstractCompositeIQTree<N extends QueryNode> implements Co
         this.iqProperties = iqProperties;
         // To be computed on-demand
         knownVariables = null;
+        hashCode = null;
         hasBeenSuccessfullyValidate = false;
     }
 
@@ -87,30 +94,54 @@ public abstract class AbstractCompositeIQTree<N extends QueryNode> implements Co
 
     @Override
     public String toString() {
-        return printSubtree(this, "");
+        StringBuilder sb = new StringBuilder();
+        printSubtree(this, "", sb);
+        return sb.toString();
     }
 
     /**
      * Recursive
      */
-    private static String printSubtree(IQTree subTree, String offset) {
-        String childOffset = offset + TAB_STR;
+    private static void printSubtree(IQTree subTree, String offset, StringBuilder sb) {
+        sb.append(offset).append(subTree.getRootNode()).append("\n");
 
-        return offset + subTree.getRootNode() + "\n"
-                + subTree.getChildren().stream()
-                    .map(c -> printSubtree(c, childOffset))
-                    .reduce("", (c, a) -> c + a);
+        String childOffset = offset + TAB_STR;
+        for (IQTree child : subTree.getChildren())
+            printSubtree(child, childOffset, sb);
     }
 
     @Override
     public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if ((o instanceof AbstractCompositeIQTree) && (hashCode() != o.hashCode()))
+            return false;
         return (o instanceof CompositeIQTree)
                 && isEquivalentTo((CompositeIQTree) o);
     }
 
+    /**
+     * Combines the hashes of the children (cached) with the structural hash of the root node,
+     * so that it is consistent with isEquivalentTo() (e.g. insensitive to the order of the projected variables).
+     */
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        if (hashCode == null) {
+            int hash = rootNode.structuralHashCode();
+            for (IQTree child : children)
+                hash = 31 * hash + computeStructuralHash(child);
+            hashCode = hash;
+        }
+        return hashCode;
+    }
+
+    /**
+     * The leaves are query nodes: their structural hash is used
+     */
+    static int computeStructuralHash(IQTree tree) {
+        return (tree instanceof AbstractCompositeIQTree)
+                ? tree.hashCode()
+                : tree.getRootNode().structuralHashCode();
     }
 
     @Override
@@ -28,6 +28,12 @@ public class IQImpl implements IQ {
     @Nullable
     private VariableGenerator variableGenerator;
 
+    /**
+     * Lazy (structural hash of the tree)
+     */
+    @Nullable
+    private Integer hashCode;
+
     @AssistedInject
     private IQImpl(@Assisted DistinctVariableOnlyDataAtom projectionAtom, @Assisted IQTree tree,
                    IntermediateQueryFactory iqFactory,
@@ -38,6 +44,7 @@ public class IQImpl implements IQ {
         this.iqFactory = iqFactory;
         this.coreUtilsFactory = coreUtilsFactory;
         this.variableGenerator = null;
+        this.hashCode = null;
 
         if (settings.isTestModeEnabled())
             validate();
@@ -94,6 +101,10 @@ public class IQImpl implements IQ {
 
     @Override
     public boolean equals(Object otherObject) {
+        if (this == otherObject)
+            return true;
+        if ((otherObject instanceof IQImpl) && (hashCode() != otherObject.hashCode()))
+            return false;
         return (otherObject instanceof IQ)
                 && projectionAtom.equals(((IQ) otherObject).getProjectionAtom())
                 && tree.isEquivalentTo(((IQ) otherObject).getTree());
@@ -101,6 +112,8 @@ public class IQImpl implements IQ {
 
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        if (hashCode == null)
+            hashCode = 31 * projectionAtom.hashCode() + AbstractCompositeIQTree.computeStructuralHash(tree);
+        return hashCode;
     }
 }
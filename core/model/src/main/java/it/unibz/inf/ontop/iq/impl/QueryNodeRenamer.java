@@ -110,6 +110,20 @@ public class QueryNodeRenamer implements HomogeneousQueryNodeTransformer {
         return iqFactory.createOrderByNode(newComparators);
     }
 
+    @Override
+    public AggregationNode transform(AggregationNode aggregationNode) {
+        return iqFactory.createAggregationNode(renameProjectedVars(aggregationNode.getGroupingVariables()),
+                renamingSubstitution.applyRenaming(aggregationNode.getSubstitution()));
+    }
+
+    @Override
+    public TransitiveClosureNode transform(TransitiveClosureNode transitiveClosureNode) {
+        return iqFactory.createTransitiveClosureNode(
+                renamingSubstitution.applyToVariable(transitiveClosureNode.getSourceVariable()),
+                renamingSubstitution.applyToVariable(transitiveClosureNode.getTargetVariable()),
+                transitiveClosureNode.getMaxDepth());
+    }
+
     private ImmutableExpression renameBooleanExpression(ImmutableExpression booleanExpression) {
         return renamingSubstitution.applyToBooleanExpression(booleanExpression);
     }
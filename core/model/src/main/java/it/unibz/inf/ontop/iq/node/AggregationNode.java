@@ -0,0 +1,37 @@
+package it.unibz.inf.ontop.iq.node;
+
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.iq.exception.QueryNodeTransformationException;
+import it.unibz.inf.ontop.iq.transform.node.HomogeneousQueryNodeTransformer;
+import it.unibz.inf.ontop.model.term.ImmutableFunctionalTerm;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
+
+/**
+ * Groups the tuples of its child by the grouping variables and computes
+ * one aggregate (COUNT, SUM, AVG, MIN or MAX) per variable defined by the substitution.
+ *
+ * Projects the grouping variables and the aggregate variables.
+ * When there is no grouping variable, returns exactly one tuple (even if the child is empty).
+ */
+public interface AggregationNode extends ExplicitVariableProjectionNode, UnaryOperatorNode {
+
+    ImmutableSet<Variable> getGroupingVariables();
+
+    /**
+     * Maps each aggregate variable to a functional term whose root is an aggregate function symbol.
+     */
+    ImmutableSubstitution<ImmutableFunctionalTerm> getSubstitution();
+
+    /**
+     * Variables required from the child: the grouping variables and the arguments of the aggregates
+     */
+    ImmutableSet<Variable> getChildVariables();
+
+    @Override
+    AggregationNode clone();
+
+    @Override
+    AggregationNode acceptNodeTransformer(HomogeneousQueryNodeTransformer transformer)
+            throws QueryNodeTransformationException;
+}
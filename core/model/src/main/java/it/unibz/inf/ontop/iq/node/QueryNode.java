@@ -103,4 +103,9 @@ public interface QueryNode extends Cloneable {
      * Is syntactically equivalent
      */
     boolean isEquivalentTo(QueryNode queryNode);
+
+    /**
+     * Hash code consistent with isEquivalentTo()
+     */
+    int structuralHashCode();
 }
@@ -31,4 +31,8 @@ public interface QueryNodeVisitor {
     void visit(SliceNode sliceNode);
 
     void visit(OrderByNode orderByNode);
+
+    void visit(AggregationNode aggregationNode);
+
+    void visit(TransitiveClosureNode transitiveClosureNode);
 }
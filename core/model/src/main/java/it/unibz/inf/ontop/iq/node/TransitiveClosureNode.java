@@ -0,0 +1,32 @@
+package it.unibz.inf.ontop.iq.node;
+
+import it.unibz.inf.ontop.iq.exception.QueryNodeTransformationException;
+import it.unibz.inf.ontop.iq.transform.node.HomogeneousQueryNodeTransformer;
+import it.unibz.inf.ontop.model.term.Variable;
+
+import java.util.Optional;
+
+/**
+ * Computes the transitive closure of the binary relation given by its child
+ * (the pairs of values of the source and target variables).
+ *
+ * Used for the SPARQL property paths p+ (and p* together with the zero-length paths).
+ *
+ * Projects the source and target variables. Like for the property paths, the resulting pairs are distinct.
+ * When a maximum depth is given, only the paths of at most this length are considered.
+ */
+public interface TransitiveClosureNode extends ExplicitVariableProjectionNode, UnaryOperatorNode {
+
+    Variable getSourceVariable();
+
+    Variable getTargetVariable();
+
+    Optional<Integer> getMaxDepth();
+
+    @Override
+    TransitiveClosureNode clone();
+
+    @Override
+    TransitiveClosureNode acceptNodeTransformer(HomogeneousQueryNodeTransformer transformer)
+            throws QueryNodeTransformationException;
+}
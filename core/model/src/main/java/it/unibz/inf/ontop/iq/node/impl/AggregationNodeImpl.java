@@ -0,0 +1,480 @@
+package it.unibz.inf.ontop.iq.node.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.inject.assistedinject.Assisted;
+import com.google.inject.assistedinject.AssistedInject;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.injection.OntopModelSettings;
+import it.unibz.inf.ontop.iq.IQProperties;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.IntermediateQuery;
+import it.unibz.inf.ontop.iq.UnaryIQTree;
+import it.unibz.inf.ontop.iq.exception.InvalidIntermediateQueryException;
+import it.unibz.inf.ontop.iq.exception.InvalidQueryNodeException;
+import it.unibz.inf.ontop.iq.exception.QueryNodeTransformationException;
+import it.unibz.inf.ontop.iq.node.*;
+import it.unibz.inf.ontop.iq.transform.IQTreeVisitingTransformer;
+import it.unibz.inf.ontop.iq.transform.node.HeterogeneousQueryNodeTransformer;
+import it.unibz.inf.ontop.iq.transform.node.HomogeneousQueryNodeTransformer;
+import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.term.functionsymbol.ExpressionOperation;
+import it.unibz.inf.ontop.model.term.functionsymbol.FunctionSymbol;
+import it.unibz.inf.ontop.model.term.functionsymbol.RDFTermConstructionSymbol;
+import it.unibz.inf.ontop.model.term.impl.ImmutabilityTools;
+import it.unibz.inf.ontop.model.type.TypeFactory;
+import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
+import it.unibz.inf.ontop.substitution.SubstitutionFactory;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import it.unibz.inf.ontop.utils.VariableGenerator;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+import static it.unibz.inf.ontop.model.term.functionsymbol.ExpressionOperation.COUNT;
+import static it.unibz.inf.ontop.model.term.functionsymbol.ExpressionOperation.EQ;
+
+@SuppressWarnings("BindingAnnotationWithoutInject")
+public class AggregationNodeImpl extends CompositeQueryNodeImpl implements AggregationNode {
+
+    private static final String AGGREGATION_NODE_STR = "AGGREGATE";
+
+    private final ImmutableSet<Variable> groupingVariables;
+    private final ImmutableSubstitution<ImmutableFunctionalTerm> substitution;
+    private final ImmutableSet<Variable> projectedVariables;
+    private final ImmutableSet<Variable> childVariables;
+
+    private final TermFactory termFactory;
+    private final TypeFactory typeFactory;
+    private final ImmutabilityTools immutabilityTools;
+    private final ConstructionNodeTools constructionNodeTools;
+
+    @AssistedInject
+    private AggregationNodeImpl(@Assisted ImmutableSet<Variable> groupingVariables,
+                                @Assisted ImmutableSubstitution<ImmutableFunctionalTerm> substitution,
+                                SubstitutionFactory substitutionFactory, IntermediateQueryFactory iqFactory,
+                                TermFactory termFactory, TypeFactory typeFactory,
+                                ImmutabilityTools immutabilityTools, ConstructionNodeTools constructionNodeTools,
+                                OntopModelSettings settings) {
+        super(substitutionFactory, iqFactory);
+        this.groupingVariables = groupingVariables;
+        this.substitution = substitution;
+        this.termFactory = termFactory;
+        this.typeFactory = typeFactory;
+        this.immutabilityTools = immutabilityTools;
+        this.constructionNodeTools = constructionNodeTools;
+        this.projectedVariables = Sets.union(groupingVariables, substitution.getDomain()).immutableCopy();
+        this.childVariables = Stream.concat(
+                groupingVariables.stream(),
+                substitution.getImmutableMap().values().stream()
+                        .flatMap(ImmutableTerm::getVariableStream))
+                .collect(ImmutableCollectors.toSet());
+
+        if (settings.isTestModeEnabled())
+            validateNode();
+    }
+
+    /**
+     * Validates the node independently of its child
+     */
+    private void validateNode() throws InvalidQueryNodeException {
+        if (substitution.getDomain().stream()
+                .anyMatch(groupingVariables::contains))
+            throw new InvalidQueryNodeException("AggregationNode: a grouping variable cannot be defined " +
+                    "by the substitution.\n" + toString());
+
+        if (substitution.getImmutableMap().values().stream()
+                .map(ImmutableFunctionalTerm::getFunctionSymbol)
+                .anyMatch(s -> !isAggregate(s)))
+            throw new InvalidQueryNodeException("AggregationNode: only aggregates are expected " +
+                    "in the substitution.\n" + toString());
+    }
+
+    private static boolean isAggregate(FunctionSymbol functionSymbol) {
+        return (functionSymbol instanceof ExpressionOperation)
+                && ((ExpressionOperation) functionSymbol).isAggregate();
+    }
+
+    @Override
+    public ImmutableSet<Variable> getGroupingVariables() {
+        return groupingVariables;
+    }
+
+    @Override
+    public ImmutableSubstitution<ImmutableFunctionalTerm> getSubstitution() {
+        return substitution;
+    }
+
+    @Override
+    public ImmutableSet<Variable> getVariables() {
+        return projectedVariables;
+    }
+
+    @Override
+    public ImmutableSet<Variable> getChildVariables() {
+        return childVariables;
+    }
+
+    @Override
+    public IQTree liftBinding(IQTree child, VariableGenerator variableGenerator, IQProperties currentIQProperties) {
+        IQTree newChild = child.liftBinding(variableGenerator);
+        QueryNode newChildRoot = newChild.getRootNode();
+
+        if (newChild.isDeclaredAsEmpty())
+            return groupingVariables.isEmpty()
+                    ? createAggregatesOfEmptySet()
+                    : iqFactory.createEmptyNode(projectedVariables);
+        else if (newChildRoot instanceof ConstructionNode)
+            return liftBindingConstructionChild((ConstructionNode) newChildRoot, (UnaryIQTree) newChild,
+                    currentIQProperties);
+        else
+            return iqFactory.createUnaryIQTree(this, newChild, currentIQProperties.declareLifted());
+    }
+
+    /**
+     * Without grouping variables, one tuple is returned even when the child is empty:
+     * COUNT gives 0 and the other aggregates are unbound.
+     */
+    private IQTree createAggregatesOfEmptySet() {
+        ImmutableSubstitution<ImmutableTerm> newSubstitution = substitutionFactory.getSubstitution(
+                substitution.getImmutableMap().entrySet().stream()
+                        .collect(ImmutableCollectors.toMap(
+                                Map.Entry::getKey,
+                                e -> e.getValue().getFunctionSymbol() == COUNT
+                                        ? termFactory.getConstantLiteral("0", typeFactory.getXsdIntegerDatatype())
+                                        : termFactory.getNullConstant())));
+
+        return iqFactory.createUnaryIQTree(
+                iqFactory.createConstructionNode(projectedVariables, newSubstitution),
+                iqFactory.createTrueNode());
+    }
+
+    /**
+     * Lifts the definitions of the grouping variables that are constants or RDF term constructors
+     * (e.g. URI templates), which are treated as injective: grouping by the variables of the definition
+     * then gives the same groups.
+     *
+     * The other definitions stay below the aggregation.
+     */
+    private IQTree liftBindingConstructionChild(ConstructionNode childConstructionNode, UnaryIQTree childTree,
+                                                IQProperties currentIQProperties) {
+        IQProperties liftedProperties = currentIQProperties.declareLifted();
+
+        ImmutableMap<Variable, ImmutableTerm> liftedMap = childConstructionNode.getSubstitution()
+                .getImmutableMap().entrySet().stream()
+                .filter(e -> groupingVariables.contains(e.getKey()))
+                .filter(e -> isLiftable(e.getValue()))
+                .collect(ImmutableCollectors.toMap());
+
+        ImmutableSet<Variable> liftedValueVariables = liftedMap.values().stream()
+                .flatMap(ImmutableTerm::getVariableStream)
+                .collect(ImmutableCollectors.toSet());
+
+        ImmutableSet<Variable> newGroupingVariables = Stream.concat(
+                groupingVariables.stream()
+                        .filter(v -> !liftedMap.containsKey(v)),
+                liftedValueVariables.stream())
+                .collect(ImmutableCollectors.toSet());
+
+        /*
+         * Grouping by constants only is not equivalent to not grouping (when the child is empty)
+         */
+        if (liftedMap.isEmpty()
+                || (newGroupingVariables.isEmpty())
+                || liftedValueVariables.stream().anyMatch(substitution::isDefining))
+            return iqFactory.createUnaryIQTree(this, childTree, liftedProperties);
+
+        ImmutableSubstitution<ImmutableTerm> liftedSubstitution = substitutionFactory.getSubstitution(liftedMap);
+
+        ImmutableSubstitution<ImmutableFunctionalTerm> newSubstitution = substitutionFactory.getSubstitution(
+                substitution.getImmutableMap().entrySet().stream()
+                        .collect(ImmutableCollectors.toMap(
+                                Map.Entry::getKey,
+                                e -> liftedSubstitution.applyToFunctionalTerm(e.getValue()))));
+
+        ImmutableSubstitution<ImmutableTerm> remainingSubstitution = substitutionFactory.getSubstitution(
+                childConstructionNode.getSubstitution().getImmutableMap().entrySet().stream()
+                        .filter(e -> !liftedMap.containsKey(e.getKey()))
+                        .collect(ImmutableCollectors.toMap()));
+
+        ImmutableSet<Variable> newChildVariables = Stream.concat(
+                childConstructionNode.getVariables().stream()
+                        .filter(v -> !liftedMap.containsKey(v)),
+                liftedValueVariables.stream())
+                .collect(ImmutableCollectors.toSet());
+
+        IQTree grandChild = childTree.getChild();
+        IQTree newChild = (remainingSubstitution.isEmpty() && newChildVariables.equals(grandChild.getVariables()))
+                ? grandChild
+                : iqFactory.createUnaryIQTree(
+                        iqFactory.createConstructionNode(newChildVariables, remainingSubstitution),
+                        grandChild, liftedProperties);
+
+        IQTree aggregationTree = iqFactory.createUnaryIQTree(
+                iqFactory.createAggregationNode(newGroupingVariables, newSubstitution),
+                newChild, liftedProperties);
+
+        return iqFactory.createUnaryIQTree(
+                iqFactory.createConstructionNode(projectedVariables, liftedSubstitution),
+                aggregationTree, liftedProperties);
+    }
+
+    private boolean isLiftable(ImmutableTerm value) {
+        if (value instanceof Constant)
+            return true;
+        return (value instanceof ImmutableFunctionalTerm)
+                && (((ImmutableFunctionalTerm) value).getFunctionSymbol() instanceof RDFTermConstructionSymbol);
+    }
+
+    /**
+     * The constraint is not propagated
+     */
+    @Override
+    public IQTree applyDescendingSubstitution(ImmutableSubstitution<? extends VariableOrGroundTerm> descendingSubstitution,
+                                              Optional<ImmutableExpression> constraint, IQTree child) {
+        return applyDescendingSubstitution(descendingSubstitution, child,
+                (c, s) -> c.applyDescendingSubstitution(s, Optional.empty()));
+    }
+
+    @Override
+    public IQTree applyDescendingSubstitutionWithoutOptimizing(
+            ImmutableSubstitution<? extends VariableOrGroundTerm> descendingSubstitution, IQTree child) {
+        return applyDescendingSubstitution(descendingSubstitution, child,
+                IQTree::applyDescendingSubstitutionWithoutOptimizing);
+    }
+
+    /**
+     * Only the entries about the grouping variables can be propagated down to the child.
+     * Aggregate variables can be renamed; the other entries become equalities above the aggregation.
+     */
+    private IQTree applyDescendingSubstitution(
+            ImmutableSubstitution<? extends VariableOrGroundTerm> descendingSubstitution, IQTree child,
+            BiFunction<IQTree, ImmutableSubstitution<VariableOrGroundTerm>, IQTree> childUpdateFct) {
+
+        ImmutableSet<Variable> newProjectedVariables = constructionNodeTools.computeNewProjectedVariables(
+                descendingSubstitution, projectedVariables);
+
+        // Grouping by constants only is not equivalent to not grouping
+        boolean keepsGroupingVariables = groupingVariables.stream()
+                .anyMatch(v -> !(descendingSubstitution.isDefining(v)
+                        && (descendingSubstitution.get(v) instanceof GroundTerm)));
+
+        Map<Variable, VariableOrGroundTerm> childMap = new HashMap<>();
+        Map<Variable, Variable> aggregateRenaming = new HashMap<>();
+        List<ImmutableExpression> equalities = new ArrayList<>();
+        Set<Variable> usedTargets = new HashSet<>();
+
+        for (Variable v : groupingVariables) {
+            if (!descendingSubstitution.isDefining(v))
+                continue;
+            VariableOrGroundTerm value = descendingSubstitution.get(v);
+            if (value instanceof GroundTerm) {
+                if (keepsGroupingVariables)
+                    childMap.put(v, value);
+                else
+                    equalities.add(termFactory.getImmutableExpression(EQ, v, value));
+            }
+            else if (substitution.isDefining((Variable) value))
+                equalities.add(termFactory.getImmutableExpression(EQ, v, value));
+            else {
+                childMap.put(v, value);
+                usedTargets.add((Variable) value);
+            }
+        }
+
+        for (Variable v : substitution.getDomain()) {
+            if (!descendingSubstitution.isDefining(v))
+                continue;
+            VariableOrGroundTerm value = descendingSubstitution.get(v);
+            if ((value instanceof Variable) && (!projectedVariables.contains(value))
+                    && usedTargets.add((Variable) value))
+                aggregateRenaming.put(v, (Variable) value);
+            else
+                equalities.add(termFactory.getImmutableExpression(EQ, v, value));
+        }
+
+        ImmutableSubstitution<VariableOrGroundTerm> childSubstitution = substitutionFactory.getSubstitution(
+                ImmutableMap.copyOf(childMap));
+
+        ImmutableSet<Variable> newGroupingVariables = groupingVariables.stream()
+                .map(childSubstitution::applyToVariable)
+                .filter(t -> t instanceof Variable)
+                .map(t -> (Variable) t)
+                .collect(ImmutableCollectors.toSet());
+
+        ImmutableSubstitution<ImmutableFunctionalTerm> newSubstitution = substitutionFactory.getSubstitution(
+                substitution.getImmutableMap().entrySet().stream()
+                        .collect(ImmutableCollectors.toMap(
+                                e -> aggregateRenaming.getOrDefault(e.getKey(), e.getKey()),
+                                e -> childSubstitution.applyToFunctionalTerm(e.getValue()))));
+
+        IQTree newChild = childSubstitution.isEmpty()
+                ? child
+                : childUpdateFct.apply(child, childSubstitution);
+
+        IQTree aggregationTree = iqFactory.createUnaryIQTree(
+                iqFactory.createAggregationNode(newGroupingVariables, newSubstitution), newChild);
+
+        IQTree filteredTree = immutabilityTools.foldBooleanExpressions(equalities.stream())
+                .map(e -> (IQTree) iqFactory.createUnaryIQTree(iqFactory.createFilterNode(e), aggregationTree))
+                .orElse(aggregationTree);
+
+        return filteredTree.getVariables().equals(newProjectedVariables)
+                ? filteredTree
+                : iqFactory.createUnaryIQTree(iqFactory.createConstructionNode(newProjectedVariables), filteredTree);
+    }
+
+    /**
+     * The nullability of the grouping variables comes from the child.
+     * All the aggregates but COUNT are nullable (e.g. SUM of NULLs).
+     */
+    @Override
+    public VariableNullability getVariableNullability(IQTree child) {
+        Stream<ImmutableSet<Variable>> groupingGroups = child.getVariableNullability().getNullableGroups().stream()
+                .map(g -> Sets.intersection(g, groupingVariables).immutableCopy())
+                .filter(g -> !g.isEmpty());
+
+        Stream<ImmutableSet<Variable>> aggregateGroups = substitution.getImmutableMap().entrySet().stream()
+                .filter(e -> e.getValue().getFunctionSymbol() != COUNT)
+                .map(e -> ImmutableSet.of(e.getKey()));
+
+        return new VariableNullabilityImpl(Stream.concat(groupingGroups, aggregateGroups)
+                .collect(ImmutableCollectors.toSet()));
+    }
+
+    @Override
+    public boolean isVariableNullable(IntermediateQuery query, Variable variable) {
+        if (substitution.isDefining(variable))
+            return substitution.get(variable).getFunctionSymbol() != COUNT;
+        else if (groupingVariables.contains(variable))
+            return query.getFirstChild(this)
+                    .map(c -> c.isVariableNullable(query, variable))
+                    .orElseThrow(() -> new InvalidIntermediateQueryException(
+                            "An aggregation node must have a child"));
+        else
+            throw new IllegalArgumentException("The variable " + variable + " is not projected by " + this);
+    }
+
+    @Override
+    public boolean isConstructed(Variable variable, IQTree child) {
+        return substitution.isDefining(variable)
+                || (groupingVariables.contains(variable) && child.isConstructed(variable));
+    }
+
+    /**
+     * Unions are not lifted above the aggregation (they would split the groups)
+     */
+    @Override
+    public IQTree liftIncompatibleDefinitions(Variable variable, IQTree child) {
+        return iqFactory.createUnaryIQTree(this, child);
+    }
+
+    /**
+     * Only the conjuncts involving grouping variables exclusively are propagated:
+     * these variables have the same value in all the rows of a group.
+     */
+    @Override
+    public IQTree propagateDownConstraint(ImmutableExpression constraint, IQTree child) {
+        Optional<ImmutableExpression> childConstraint = immutabilityTools.foldBooleanExpressions(
+                constraint.flattenAND().stream()
+                        .filter(c -> groupingVariables.containsAll(c.getVariables())));
+
+        IQTree newChild = childConstraint
+                .map(child::propagateDownConstraint)
+                .orElse(child);
+        return iqFactory.createUnaryIQTree(this, newChild);
+    }
+
+    @Override
+    public IQTree acceptTransformer(IQTree tree, IQTreeVisitingTransformer transformer, IQTree child) {
+        return transformer.transformAggregation(tree, this, child);
+    }
+
+    @Override
+    public void validateNode(IQTree child) throws InvalidIntermediateQueryException {
+        validateNode();
+
+        if (!child.getVariables().containsAll(childVariables))
+            throw new InvalidIntermediateQueryException("This child " + child
+                    + " does not project all the variables required by the AGGREGATION node ("
+                    + childVariables + ")\n" + this);
+    }
+
+    /**
+     * Only the definitions of the grouping variables
+     */
+    @Override
+    public ImmutableSet<ImmutableSubstitution<NonVariableTerm>> getPossibleVariableDefinitions(IQTree child) {
+        return child.getPossibleVariableDefinitions().stream()
+                .map(s -> s.reduceDomainToIntersectionWith(groupingVariables))
+                .collect(ImmutableCollectors.toSet());
+    }
+
+    @Override
+    public void acceptVisitor(QueryNodeVisitor visitor) {
+        visitor.visit(this);
+    }
+
+    @Override
+    public AggregationNode acceptNodeTransformer(HomogeneousQueryNodeTransformer transformer)
+            throws QueryNodeTransformationException {
+        return transformer.transform(this);
+    }
+
+    @Override
+    public NodeTransformationProposal acceptNodeTransformer(HeterogeneousQueryNodeTransformer transformer) {
+        return transformer.transform(this);
+    }
+
+    @Override
+    public ImmutableSet<Variable> getLocalVariables() {
+        return Sets.union(projectedVariables, childVariables).immutableCopy();
+    }
+
+    @Override
+    public boolean isSyntacticallyEquivalentTo(QueryNode node) {
+        return isEquivalentTo(node);
+    }
+
+    @Override
+    public ImmutableSet<Variable> getLocallyRequiredVariables() {
+        return childVariables;
+    }
+
+    @Override
+    public ImmutableSet<Variable> getRequiredVariables(IntermediateQuery query) {
+        return childVariables;
+    }
+
+    @Override
+    public ImmutableSet<Variable> getLocallyDefinedVariables() {
+        return substitution.getDomain();
+    }
+
+    @Override
+    public boolean isEquivalentTo(QueryNode queryNode) {
+        if (!(queryNode instanceof AggregationNode))
+            return false;
+        AggregationNode node = (AggregationNode) queryNode;
+
+        return groupingVariables.equals(node.getGroupingVariables())
+                && substitution.equals(node.getSubstitution());
+    }
+
+    @Override
+    public int structuralHashCode() {
+        return Objects.hash(AggregationNode.class, groupingVariables, substitution.getImmutableMap());
+    }
+
+    @Override
+    public AggregationNode clone() {
+        return iqFactory.createAggregationNode(groupingVariables, substitution);
+    }
+
+    @Override
+    public String toString() {
+        return AGGREGATION_NODE_STR + " " + groupingVariables + " [" + substitution + "]";
+    }
+}
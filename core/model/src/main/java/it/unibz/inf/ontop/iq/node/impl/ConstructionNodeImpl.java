@@ -37,6 +37,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.Objects;
 
 import static it.unibz.inf.ontop.model.term.functionsymbol.ExpressionOperation.EQ;
 
@@ -518,6 +519,11 @@ public class ConstructionNodeImpl extends CompositeQueryNodeImpl implements Cons
                 && substitution.equals(node.getSubstitution());
     }
 
+    @Override
+    public int structuralHashCode() {
+        return Objects.hash(ConstructionNode.class, projectedVariables, substitution.getImmutableMap());
+    }
+
     @Override
     public void acceptVisitor(QueryNodeVisitor visitor) {
         visitor.visit(this);
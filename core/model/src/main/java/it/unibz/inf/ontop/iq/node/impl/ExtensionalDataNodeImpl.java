@@ -23,6 +23,7 @@ import it.unibz.inf.ontop.utils.ImmutableCollectors;
 
 import javax.annotation.Nullable;
 import java.util.stream.IntStream;
+import java.util.Objects;
 
 /**
  * "Default" implementation for an extensional data node.
@@ -133,6 +134,11 @@ public class ExtensionalDataNodeImpl extends DataNodeImpl<RelationPredicate> imp
                 && getProjectionAtom().equals(((ExtensionalDataNode) queryNode).getProjectionAtom());
     }
 
+    @Override
+    public int structuralHashCode() {
+        return Objects.hash(ExtensionalDataNode.class, getProjectionAtom());
+    }
+
 
     @Override
     public String toString() {
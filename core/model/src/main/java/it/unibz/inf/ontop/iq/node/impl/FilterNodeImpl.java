@@ -27,6 +27,7 @@ import it.unibz.inf.ontop.utils.ImmutableCollectors;
 import it.unibz.inf.ontop.utils.VariableGenerator;
 
 import java.util.Optional;
+import java.util.Objects;
 
 
 public class FilterNodeImpl extends JoinOrFilterNodeImpl implements FilterNode {
@@ -156,6 +157,11 @@ public class FilterNodeImpl extends JoinOrFilterNodeImpl implements FilterNode {
                 && getFilterCondition().equals(((FilterNode) queryNode).getFilterCondition());
     }
 
+    @Override
+    public int structuralHashCode() {
+        return Objects.hash(FilterNode.class, getFilterCondition());
+    }
+
     @Override
     public String toString() {
         return FILTER_NODE_STR + getOptionalFilterString();
@@ -15,6 +15,7 @@ import it.unibz.inf.ontop.model.term.Variable;
 import it.unibz.inf.ontop.iq.*;
 import it.unibz.inf.ontop.iq.transform.node.HeterogeneousQueryNodeTransformer;
 import it.unibz.inf.ontop.iq.transform.node.HomogeneousQueryNodeTransformer;
+import java.util.Objects;
 
 
 public class IntensionalDataNodeImpl extends DataNodeImpl<AtomPredicate> implements IntensionalDataNode {
@@ -86,6 +87,11 @@ public class IntensionalDataNodeImpl extends DataNodeImpl<AtomPredicate> impleme
                 && getProjectionAtom().equals(((IntensionalDataNode) queryNode).getProjectionAtom());
     }
 
+    @Override
+    public int structuralHashCode() {
+        return Objects.hash(IntensionalDataNode.class, getProjectionAtom());
+    }
+
     @Override
     public NodeTransformationProposal acceptNodeTransformer(HeterogeneousQueryNodeTransformer transformer) {
         return transformer.transform(this);
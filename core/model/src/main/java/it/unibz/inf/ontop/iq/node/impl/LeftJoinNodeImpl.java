@@ -28,6 +28,7 @@ import it.unibz.inf.ontop.utils.VariableGenerator;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
+import java.util.Objects;
 
 import static it.unibz.inf.ontop.iq.node.BinaryOrderedOperatorNode.ArgumentPosition.LEFT;
 import static it.unibz.inf.ontop.iq.node.BinaryOrderedOperatorNode.ArgumentPosition.RIGHT;
@@ -139,6 +140,11 @@ public class LeftJoinNodeImpl extends JoinLikeNodeImpl implements LeftJoinNode {
                 && getOptionalFilterCondition().equals(((LeftJoinNode) queryNode).getOptionalFilterCondition());
     }
 
+    @Override
+    public int structuralHashCode() {
+        return Objects.hash(LeftJoinNode.class, getOptionalFilterCondition());
+    }
+
     @Override
     public NodeTransformationProposal acceptNodeTransformer(HeterogeneousQueryNodeTransformer transformer) {
         return transformer.transform(this);
@@ -22,6 +22,7 @@ import it.unibz.inf.ontop.utils.VariableGenerator;
 
 import java.util.Optional;
 import java.util.stream.Stream;
+import java.util.Objects;
 
 public class OrderByNodeImpl extends QueryModifierNodeImpl implements OrderByNode {
 
@@ -172,6 +173,11 @@ public class OrderByNodeImpl extends QueryModifierNodeImpl implements OrderByNod
                 && ((OrderByNode) queryNode).getComparators().equals(comparators);
     }
 
+    @Override
+    public int structuralHashCode() {
+        return Objects.hash(OrderByNode.class, comparators);
+    }
+
     @Override
     public OrderByNode clone() {
         return iqFactory.createOrderByNode(comparators);
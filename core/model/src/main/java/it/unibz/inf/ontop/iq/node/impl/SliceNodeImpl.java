@@ -21,6 +21,7 @@ import it.unibz.inf.ontop.utils.VariableGenerator;
 
 import javax.annotation.Nullable;
 import java.util.Optional;
+import java.util.Objects;
 
 public class SliceNodeImpl extends QueryModifierNodeImpl implements SliceNode {
 
@@ -140,6 +141,11 @@ public class SliceNodeImpl extends QueryModifierNodeImpl implements SliceNode {
                 && ((SliceNode) queryNode).getLimit().equals(getLimit());
     }
 
+    @Override
+    public int structuralHashCode() {
+        return Objects.hash(SliceNode.class, offset, getLimit());
+    }
+
     @Override
     public ImmutableSet<Variable> getLocalVariables() {
         return ImmutableSet.of();
@@ -0,0 +1,408 @@
+package it.unibz.inf.ontop.iq.node.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.inject.assistedinject.Assisted;
+import com.google.inject.assistedinject.AssistedInject;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.injection.OntopModelSettings;
+import it.unibz.inf.ontop.iq.IQProperties;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.IntermediateQuery;
+import it.unibz.inf.ontop.iq.UnaryIQTree;
+import it.unibz.inf.ontop.iq.exception.InvalidIntermediateQueryException;
+import it.unibz.inf.ontop.iq.exception.InvalidQueryNodeException;
+import it.unibz.inf.ontop.iq.exception.QueryNodeTransformationException;
+import it.unibz.inf.ontop.iq.node.*;
+import it.unibz.inf.ontop.iq.transform.IQTreeVisitingTransformer;
+import it.unibz.inf.ontop.iq.transform.node.HeterogeneousQueryNodeTransformer;
+import it.unibz.inf.ontop.iq.transform.node.HomogeneousQueryNodeTransformer;
+import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.term.functionsymbol.RDFTermConstructionSymbol;
+import it.unibz.inf.ontop.model.term.impl.ImmutabilityTools;
+import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
+import it.unibz.inf.ontop.substitution.SubstitutionFactory;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import it.unibz.inf.ontop.utils.VariableGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.Objects;
+
+import static it.unibz.inf.ontop.model.term.functionsymbol.ExpressionOperation.EQ;
+
+@SuppressWarnings("BindingAnnotationWithoutInject")
+public class TransitiveClosureNodeImpl extends CompositeQueryNodeImpl implements TransitiveClosureNode {
+
+    private static final String TRANSITIVE_CLOSURE_NODE_STR = "TRANSITIVE_CLOSURE";
+
+    private final Variable sourceVariable;
+    private final Variable targetVariable;
+    private final Optional<Integer> maxDepth;
+    private final ImmutableSet<Variable> projectedVariables;
+
+    private final TermFactory termFactory;
+    private final ImmutabilityTools immutabilityTools;
+    private final ConstructionNodeTools constructionNodeTools;
+
+    @AssistedInject
+    private TransitiveClosureNodeImpl(@Assisted("source") Variable sourceVariable,
+                                      @Assisted("target") Variable targetVariable,
+                                      @Assisted Optional<Integer> maxDepth,
+                                      SubstitutionFactory substitutionFactory, IntermediateQueryFactory iqFactory,
+                                      TermFactory termFactory, ImmutabilityTools immutabilityTools,
+                                      ConstructionNodeTools constructionNodeTools, OntopModelSettings settings) {
+        super(substitutionFactory, iqFactory);
+        this.sourceVariable = sourceVariable;
+        this.targetVariable = targetVariable;
+        this.maxDepth = maxDepth;
+        this.termFactory = termFactory;
+        this.immutabilityTools = immutabilityTools;
+        this.constructionNodeTools = constructionNodeTools;
+        this.projectedVariables = ImmutableSet.of(sourceVariable, targetVariable);
+
+        if (settings.isTestModeEnabled())
+            validateNode();
+    }
+
+    /**
+     * Validates the node independently of its child
+     */
+    private void validateNode() throws InvalidQueryNodeException {
+        if (sourceVariable.equals(targetVariable))
+            throw new InvalidQueryNodeException("TransitiveClosureNode: the source and the target variables " +
+                    "must be distinct.\n" + toString());
+
+        if (maxDepth.filter(d -> d < 1).isPresent())
+            throw new InvalidQueryNodeException("TransitiveClosureNode: the maximum depth must be positive.\n"
+                    + toString());
+    }
+
+    @Override
+    public Variable getSourceVariable() {
+        return sourceVariable;
+    }
+
+    @Override
+    public Variable getTargetVariable() {
+        return targetVariable;
+    }
+
+    @Override
+    public Optional<Integer> getMaxDepth() {
+        return maxDepth;
+    }
+
+    @Override
+    public ImmutableSet<Variable> getVariables() {
+        return projectedVariables;
+    }
+
+    @Override
+    public IQTree liftBinding(IQTree child, VariableGenerator variableGenerator, IQProperties currentIQProperties) {
+        IQTree newChild = child.liftBinding(variableGenerator);
+        QueryNode newChildRoot = newChild.getRootNode();
+
+        if (newChild.isDeclaredAsEmpty())
+            return iqFactory.createEmptyNode(projectedVariables);
+        else if (newChildRoot instanceof ConstructionNode)
+            return liftBindingConstructionChild((ConstructionNode) newChildRoot, (UnaryIQTree) newChild,
+                    currentIQProperties);
+        else
+            return iqFactory.createUnaryIQTree(this, newChild, currentIQProperties.declareLifted());
+    }
+
+    /**
+     * When the source and the target are built by the same RDF term constructor (e.g. the same URI template)
+     * that only differ by one variable, the closure is computed over these variables
+     * and the definitions are lifted above.
+     *
+     * Otherwise, the construction node stays below.
+     */
+    private IQTree liftBindingConstructionChild(ConstructionNode childConstructionNode, UnaryIQTree childTree,
+                                                IQProperties currentIQProperties) {
+        IQProperties liftedProperties = currentIQProperties.declareLifted();
+        ImmutableSubstitution<ImmutableTerm> childSubstitution = childConstructionNode.getSubstitution();
+
+        Optional<ImmutableList<Variable>> optionalVaryingPair = extractVaryingVariables(
+                childSubstitution.get(sourceVariable), childSubstitution.get(targetVariable));
+
+        if (!optionalVaryingPair.isPresent())
+            return iqFactory.createUnaryIQTree(this, childTree, liftedProperties);
+
+        Variable newSource = optionalVaryingPair.get().get(0);
+        Variable newTarget = optionalVaryingPair.get().get(1);
+        ImmutableSet<Variable> newChildVariables = ImmutableSet.of(newSource, newTarget);
+
+        IQTree grandChild = childTree.getChild();
+        IQTree newChild = grandChild.getVariables().equals(newChildVariables)
+                ? grandChild
+                : iqFactory.createUnaryIQTree(iqFactory.createConstructionNode(newChildVariables), grandChild,
+                        liftedProperties);
+
+        IQTree closureTree = iqFactory.createUnaryIQTree(
+                iqFactory.createTransitiveClosureNode(newSource, newTarget, maxDepth),
+                newChild, liftedProperties);
+
+        return iqFactory.createUnaryIQTree(
+                iqFactory.createConstructionNode(projectedVariables,
+                        childSubstitution.reduceDomainToIntersectionWith(projectedVariables)),
+                closureTree, liftedProperties);
+    }
+
+    /**
+     * Returns the two variables that differ between the definition of the source and the one of the target,
+     * if these definitions only differ by them (the other arguments being ground).
+     */
+    private Optional<ImmutableList<Variable>> extractVaryingVariables(ImmutableTerm sourceDefinition,
+                                                                      ImmutableTerm targetDefinition) {
+        if (!((sourceDefinition instanceof ImmutableFunctionalTerm)
+                && (targetDefinition instanceof ImmutableFunctionalTerm)))
+            return Optional.empty();
+
+        ImmutableFunctionalTerm sourceTerm = (ImmutableFunctionalTerm) sourceDefinition;
+        ImmutableFunctionalTerm targetTerm = (ImmutableFunctionalTerm) targetDefinition;
+
+        if (!((sourceTerm.getFunctionSymbol() instanceof RDFTermConstructionSymbol)
+                && sourceTerm.getFunctionSymbol().equals(targetTerm.getFunctionSymbol())
+                && (sourceTerm.getArity() == targetTerm.getArity())))
+            return Optional.empty();
+
+        Optional<ImmutableList<Variable>> varyingPair = Optional.empty();
+        for (int i = 0; i < sourceTerm.getArity(); i++) {
+            ImmutableTerm sourceArgument = sourceTerm.getTerm(i);
+            ImmutableTerm targetArgument = targetTerm.getTerm(i);
+
+            if ((sourceArgument instanceof Variable) && (targetArgument instanceof Variable)
+                    && (!sourceArgument.equals(targetArgument)) && (!varyingPair.isPresent()))
+                varyingPair = Optional.of(ImmutableList.of((Variable) sourceArgument, (Variable) targetArgument));
+            else if (!((sourceArgument instanceof GroundTerm) && sourceArgument.equals(targetArgument)))
+                return Optional.empty();
+        }
+        return varyingPair;
+    }
+
+    /**
+     * The constraint is not propagated
+     */
+    @Override
+    public IQTree applyDescendingSubstitution(ImmutableSubstitution<? extends VariableOrGroundTerm> descendingSubstitution,
+                                              Optional<ImmutableExpression> constraint, IQTree child) {
+        return applyDescendingSubstitution(descendingSubstitution, child,
+                (c, s) -> c.applyDescendingSubstitution(s, Optional.empty()));
+    }
+
+    @Override
+    public IQTree applyDescendingSubstitutionWithoutOptimizing(
+            ImmutableSubstitution<? extends VariableOrGroundTerm> descendingSubstitution, IQTree child) {
+        return applyDescendingSubstitution(descendingSubstitution, child,
+                IQTree::applyDescendingSubstitutionWithoutOptimizing);
+    }
+
+    /**
+     * Only renamings can be propagated down to the child (a closure does not commute with a selection).
+     * Constants and merged variables become equalities above the closure.
+     */
+    private IQTree applyDescendingSubstitution(
+            ImmutableSubstitution<? extends VariableOrGroundTerm> descendingSubstitution, IQTree child,
+            BiFunction<IQTree, ImmutableSubstitution<VariableOrGroundTerm>, IQTree> childUpdateFct) {
+
+        ImmutableSet<Variable> newProjectedVariables = constructionNodeTools.computeNewProjectedVariables(
+                descendingSubstitution, projectedVariables);
+
+        VariableOrGroundTerm sourceValue = getValue(descendingSubstitution, sourceVariable);
+        VariableOrGroundTerm targetValue = getValue(descendingSubstitution, targetVariable);
+
+        Variable newSource = (sourceValue instanceof Variable) ? (Variable) sourceValue : sourceVariable;
+        Variable newTarget = ((targetValue instanceof Variable) && (!targetValue.equals(newSource)))
+                ? (Variable) targetValue
+                // The source variable is then free
+                : targetVariable.equals(newSource) ? sourceVariable : targetVariable;
+
+        List<ImmutableExpression> equalities = new ArrayList<>();
+        if (sourceValue instanceof GroundTerm)
+            equalities.add(termFactory.getImmutableExpression(EQ, newSource, sourceValue));
+        if (!targetValue.equals(newTarget))
+            equalities.add(termFactory.getImmutableExpression(EQ, newTarget, targetValue));
+
+        ImmutableMap<Variable, VariableOrGroundTerm> renamingMap = ImmutableMap.<Variable, VariableOrGroundTerm>of(
+                sourceVariable, newSource, targetVariable, newTarget).entrySet().stream()
+                .filter(e -> !e.getKey().equals(e.getValue()))
+                .collect(ImmutableCollectors.toMap());
+
+        IQTree newChild;
+        if (renamingMap.isEmpty())
+            newChild = child;
+        else {
+            // Protects the other variables of the child from the renaming
+            IQTree projectedChild = child.getVariables().equals(projectedVariables)
+                    ? child
+                    : iqFactory.createUnaryIQTree(iqFactory.createConstructionNode(projectedVariables), child);
+            newChild = childUpdateFct.apply(projectedChild, substitutionFactory.getSubstitution(renamingMap));
+        }
+
+        IQTree closureTree = iqFactory.createUnaryIQTree(
+                iqFactory.createTransitiveClosureNode(newSource, newTarget, maxDepth), newChild);
+
+        IQTree filteredTree = immutabilityTools.foldBooleanExpressions(equalities.stream())
+                .map(e -> (IQTree) iqFactory.createUnaryIQTree(iqFactory.createFilterNode(e), closureTree))
+                .orElse(closureTree);
+
+        return filteredTree.getVariables().equals(newProjectedVariables)
+                ? filteredTree
+                : iqFactory.createUnaryIQTree(iqFactory.createConstructionNode(newProjectedVariables), filteredTree);
+    }
+
+    private static VariableOrGroundTerm getValue(
+            ImmutableSubstitution<? extends VariableOrGroundTerm> descendingSubstitution, Variable variable) {
+        return descendingSubstitution.isDefining(variable)
+                ? descendingSubstitution.get(variable)
+                : variable;
+    }
+
+    @Override
+    public VariableNullability getVariableNullability(IQTree child) {
+        return new VariableNullabilityImpl(child.getVariableNullability().getNullableGroups().stream()
+                .map(g -> Sets.intersection(g, projectedVariables).immutableCopy())
+                .filter(g -> !g.isEmpty())
+                .collect(ImmutableCollectors.toSet()));
+    }
+
+    @Override
+    public boolean isVariableNullable(IntermediateQuery query, Variable variable) {
+        if (projectedVariables.contains(variable))
+            return query.getFirstChild(this)
+                    .map(c -> c.isVariableNullable(query, variable))
+                    .orElseThrow(() -> new InvalidIntermediateQueryException(
+                            "A transitive closure node must have a child"));
+        else
+            throw new IllegalArgumentException("The variable " + variable + " is not projected by " + this);
+    }
+
+    @Override
+    public boolean isConstructed(Variable variable, IQTree child) {
+        return projectedVariables.contains(variable) && child.isConstructed(variable);
+    }
+
+    /**
+     * Unions are not lifted above the closure (the paths may go through several branches)
+     */
+    @Override
+    public IQTree liftIncompatibleDefinitions(Variable variable, IQTree child) {
+        return iqFactory.createUnaryIQTree(this, child);
+    }
+
+    /**
+     * A selection does not commute with the closure
+     */
+    @Override
+    public IQTree propagateDownConstraint(ImmutableExpression constraint, IQTree child) {
+        return iqFactory.createUnaryIQTree(this, child);
+    }
+
+    @Override
+    public IQTree acceptTransformer(IQTree tree, IQTreeVisitingTransformer transformer, IQTree child) {
+        return transformer.transformTransitiveClosure(tree, this, child);
+    }
+
+    @Override
+    public void validateNode(IQTree child) throws InvalidIntermediateQueryException {
+        validateNode();
+
+        if (!child.getVariables().containsAll(projectedVariables))
+            throw new InvalidIntermediateQueryException("This child " + child
+                    + " does not project all the variables required by the TRANSITIVE_CLOSURE node ("
+                    + projectedVariables + ")\n" + this);
+    }
+
+    /**
+     * The source and the target of a path may come from different tuples of the child
+     */
+    @Override
+    public ImmutableSet<ImmutableSubstitution<NonVariableTerm>> getPossibleVariableDefinitions(IQTree child) {
+        ImmutableSet<ImmutableSubstitution<NonVariableTerm>> childDefinitions = child.getPossibleVariableDefinitions();
+
+        return childDefinitions.stream()
+                .map(s -> s.reduceDomainToIntersectionWith(ImmutableSet.of(sourceVariable)))
+                .flatMap(s -> childDefinitions.stream()
+                        .map(t -> t.reduceDomainToIntersectionWith(ImmutableSet.of(targetVariable)))
+                        .map(t -> substitutionFactory.getSubstitution(
+                                ImmutableMap.<Variable, NonVariableTerm>builder()
+                                        .putAll(s.getImmutableMap())
+                                        .putAll(t.getImmutableMap())
+                                        .build())))
+                .collect(ImmutableCollectors.toSet());
+    }
+
+    @Override
+    public void acceptVisitor(QueryNodeVisitor visitor) {
+        visitor.visit(this);
+    }
+
+    @Override
+    public TransitiveClosureNode acceptNodeTransformer(HomogeneousQueryNodeTransformer transformer)
+            throws QueryNodeTransformationException {
+        return transformer.transform(this);
+    }
+
+    @Override
+    public NodeTransformationProposal acceptNodeTransformer(HeterogeneousQueryNodeTransformer transformer) {
+        return transformer.transform(this);
+    }
+
+    @Override
+    public ImmutableSet<Variable> getLocalVariables() {
+        return projectedVariables;
+    }
+
+    @Override
+    public boolean isSyntacticallyEquivalentTo(QueryNode node) {
+        return isEquivalentTo(node);
+    }
+
+    @Override
+    public ImmutableSet<Variable> getLocallyRequiredVariables() {
+        return projectedVariables;
+    }
+
+    @Override
+    public ImmutableSet<Variable> getRequiredVariables(IntermediateQuery query) {
+        return projectedVariables;
+    }
+
+    @Override
+    public ImmutableSet<Variable> getLocallyDefinedVariables() {
+        return ImmutableSet.of();
+    }
+
+    @Override
+    public boolean isEquivalentTo(QueryNode queryNode) {
+        if (!(queryNode instanceof TransitiveClosureNode))
+            return false;
+        TransitiveClosureNode node = (TransitiveClosureNode) queryNode;
+
+        return sourceVariable.equals(node.getSourceVariable())
+                && targetVariable.equals(node.getTargetVariable())
+                && maxDepth.equals(node.getMaxDepth());
+    }
+
+    @Override
+    public int structuralHashCode() {
+        return Objects.hash(TransitiveClosureNode.class, sourceVariable, targetVariable, maxDepth);
+    }
+
+    @Override
+    public TransitiveClosureNode clone() {
+        return iqFactory.createTransitiveClosureNode(sourceVariable, targetVariable, maxDepth);
+    }
+
+    @Override
+    public String toString() {
+        return TRANSITIVE_CLOSURE_NODE_STR + " " + sourceVariable + " -> " + targetVariable
+                + maxDepth.map(d -> " (max depth " + d + ")").orElse("");
+    }
+}
@@ -90,6 +90,11 @@ public class TrueNodeImpl extends LeafIQTreeImpl implements TrueNode {
         return (queryNode instanceof TrueNode);
     }
 
+    @Override
+    public int structuralHashCode() {
+        return TrueNode.class.hashCode();
+    }
+
     @Override
     public ImmutableSet<Variable> getVariables() {
         return EMPTY_VARIABLE_SET;
@@ -23,6 +23,7 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
+import java.util.Objects;
 
 
 public class UnionNodeImpl extends CompositeQueryNodeImpl implements UnionNode {
@@ -240,6 +241,11 @@ public class UnionNodeImpl extends CompositeQueryNodeImpl implements UnionNode {
         return projectedVariables.equals(((UnionNode) queryNode).getVariables());
     }
 
+    @Override
+    public int structuralHashCode() {
+        return Objects.hash(UnionNode.class, projectedVariables);
+    }
+
     @Override
     public IQTree liftBinding(ImmutableList<IQTree> children, VariableGenerator variableGenerator, IQProperties currentIQProperties) {
 
@@ -61,6 +61,16 @@ public class DefaultIdentityIQTreeVisitingTransformer implements IQTreeVisitingT
         return tree;
     }
 
+    @Override
+    public IQTree transformAggregation(IQTree tree, AggregationNode rootNode, IQTree child) {
+        return tree;
+    }
+
+    @Override
+    public IQTree transformTransitiveClosure(IQTree tree, TransitiveClosureNode rootNode, IQTree child) {
+        return tree;
+    }
+
     @Override
     public IQTree transformNonStandardUnaryNode(IQTree tree, UnaryOperatorNode rootNode, IQTree child) {
         return tree;
@@ -61,6 +61,16 @@ public abstract class DefaultNonRecursiveIQTreeTransformer implements IQTreeVisi
         return transformUnaryNode(tree, rootNode, child);
     }
 
+    @Override
+    public IQTree transformAggregation(IQTree tree, AggregationNode rootNode, IQTree child) {
+        return transformUnaryNode(tree, rootNode, child);
+    }
+
+    @Override
+    public IQTree transformTransitiveClosure(IQTree tree, TransitiveClosureNode rootNode, IQTree child) {
+        return transformUnaryNode(tree, rootNode, child);
+    }
+
     @Override
     public IQTree transformNonStandardUnaryNode(IQTree tree, UnaryOperatorNode rootNode, IQTree child) {
         return transformUnaryNode(tree, rootNode, child);
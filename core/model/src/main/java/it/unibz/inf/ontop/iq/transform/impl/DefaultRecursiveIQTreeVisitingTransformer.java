@@ -69,6 +69,16 @@ public abstract class DefaultRecursiveIQTreeVisitingTransformer implements IQTre
         return transformUnaryNode(rootNode, child);
     }
 
+    @Override
+    public IQTree transformAggregation(IQTree tree, AggregationNode rootNode, IQTree child) {
+        return transformUnaryNode(rootNode, child);
+    }
+
+    @Override
+    public IQTree transformTransitiveClosure(IQTree tree, TransitiveClosureNode rootNode, IQTree child) {
+        return transformUnaryNode(rootNode, child);
+    }
+
     @Override
     public IQTree transformNonStandardUnaryNode(IQTree tree, UnaryOperatorNode rootNode, IQTree child) {
         return transformUnaryNode(rootNode, child);
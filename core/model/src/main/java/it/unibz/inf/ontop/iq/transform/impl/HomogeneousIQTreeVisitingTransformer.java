@@ -70,6 +70,16 @@ public class HomogeneousIQTreeVisitingTransformer extends DefaultRecursiveIQTree
         return transformUnaryNode(rootNode.acceptNodeTransformer(nodeTransformer), child);
     }
 
+    @Override
+    public IQTree transformAggregation(IQTree tree, AggregationNode rootNode, IQTree child) {
+        return transformUnaryNode(rootNode.acceptNodeTransformer(nodeTransformer), child);
+    }
+
+    @Override
+    public IQTree transformTransitiveClosure(IQTree tree, TransitiveClosureNode rootNode, IQTree child) {
+        return transformUnaryNode(rootNode.acceptNodeTransformer(nodeTransformer), child);
+    }
+
     @Override
     public IQTree transformNonStandardUnaryNode(IQTree tree, UnaryOperatorNode rootNode, IQTree child) {
         return transformUnaryNode(rootNode.acceptNodeTransformer(nodeTransformer), child);
@@ -30,4 +30,8 @@ public interface HeterogeneousQueryNodeTransformer<P extends NodeTransformationP
     P transform(SliceNode sliceNode);
 
     P transform(OrderByNode orderByNode);
+
+    P transform(AggregationNode aggregationNode);
+
+    P transform(TransitiveClosureNode transitiveClosureNode);
 }
@@ -30,4 +30,6 @@ public interface HomogeneousQueryNodeTransformer<T1 extends QueryNodeTransformat
     DistinctNode transform(DistinctNode distinctNode) throws T1, T2;
     SliceNode transform(SliceNode sliceNode) throws T1, T2;
     OrderByNode transform(OrderByNode orderByNode) throws T1, T2;
+    AggregationNode transform(AggregationNode aggregationNode) throws T1, T2;
+    TransitiveClosureNode transform(TransitiveClosureNode transitiveClosureNode) throws T1, T2;
 }
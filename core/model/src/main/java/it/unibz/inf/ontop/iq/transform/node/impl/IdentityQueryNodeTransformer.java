@@ -63,5 +63,15 @@ public class IdentityQueryNodeTransformer implements HomogeneousQueryNodeTransfo
         return orderByNode;
     }
 
+    @Override
+    public AggregationNode transform(AggregationNode aggregationNode) {
+        return aggregationNode;
+    }
+
+    @Override
+    public TransitiveClosureNode transform(TransitiveClosureNode transitiveClosureNode) {
+        return transitiveClosureNode;
+    }
+
 }
 
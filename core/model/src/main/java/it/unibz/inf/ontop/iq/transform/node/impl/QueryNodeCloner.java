@@ -64,4 +64,14 @@ public class QueryNodeCloner implements HomogeneousQueryNodeTransformer {
     public OrderByNode transform(OrderByNode orderByNode) {
         return orderByNode.clone();
     }
+
+    @Override
+    public AggregationNode transform(AggregationNode aggregationNode) {
+        return aggregationNode.clone();
+    }
+
+    @Override
+    public TransitiveClosureNode transform(TransitiveClosureNode transitiveClosureNode) {
+        return transitiveClosureNode.clone();
+    }
 }
@@ -180,6 +180,40 @@ public class StandardIntermediateQueryValidator implements IntermediateQueryVali
                 }
             }
         }
+
+        @Override
+        public void visit(AggregationNode aggregationNode) {
+            if (query.getChildren(aggregationNode).size() != 1) {
+                throw new InvalidIntermediateQueryException("AGGREGATION node " + aggregationNode
+                        + " must have ONE and ONLY ONE child.\n" + query);
+            }
+
+            ImmutableSet<Variable> requiredVariables = aggregationNode.getChildVariables();
+
+            for (QueryNode child : query.getChildren(aggregationNode)) {
+                if (!query.getVariables(child).containsAll(requiredVariables)) {
+                    throw new InvalidIntermediateQueryException("Some variables used in the node " + aggregationNode
+                            + " are not provided by its child " + child);
+                }
+            }
+        }
+
+        @Override
+        public void visit(TransitiveClosureNode transitiveClosureNode) {
+            if (query.getChildren(transitiveClosureNode).size() != 1) {
+                throw new InvalidIntermediateQueryException("TRANSITIVE_CLOSURE node " + transitiveClosureNode
+                        + " must have ONE and ONLY ONE child.\n" + query);
+            }
+
+            ImmutableSet<Variable> requiredVariables = transitiveClosureNode.getVariables();
+
+            for (QueryNode child : query.getChildren(transitiveClosureNode)) {
+                if (!query.getVariables(child).containsAll(requiredVariables)) {
+                    throw new InvalidIntermediateQueryException("Some variables used in the node " + transitiveClosureNode
+                            + " are not provided by its child " + child);
+                }
+            }
+        }
     }
 
     /**
@@ -25,10 +25,14 @@ public abstract class AbstractDataAtomImpl<P extends AtomPredicate>
     @Nullable
     private String string;
 
+    // Structural hash
+    private final int hashCode;
+
     protected AbstractDataAtomImpl(P predicate, ImmutableList<? extends VariableOrGroundTerm> variableOrGroundTerms) {
         this.predicate = predicate;
         this.arguments = variableOrGroundTerms;
         this.string = null;
+        this.hashCode = 31 * predicate.hashCode() + arguments.hashCode();
 
         if (predicate.getArity() != arguments.size()) {
             throw new IllegalArgumentException("Arity violation: " + predicate + " was expecting " + predicate.getArity()
@@ -39,6 +43,7 @@ public abstract class AbstractDataAtomImpl<P extends AtomPredicate>
     protected AbstractDataAtomImpl(P predicate, VariableOrGroundTerm... variableOrGroundTerms) {
         this.predicate = predicate;
         this.arguments = ImmutableList.copyOf(variableOrGroundTerms);
+        this.hashCode = 31 * predicate.hashCode() + arguments.hashCode();
     }
 
     @Override
@@ -91,12 +96,17 @@ public abstract class AbstractDataAtomImpl<P extends AtomPredicate>
     }
 
     /**
-     * TODO: improve
+     * Structural equality (all the data atoms derive from this class)
      */
     @Override
     public boolean equals(Object other) {
-        if (other instanceof DataAtom) {
-            return toString().equals(other.toString());
+        if (this == other)
+            return true;
+        if (other instanceof AbstractDataAtomImpl) {
+            AbstractDataAtomImpl<?> otherAtom = (AbstractDataAtomImpl<?>) other;
+            return (hashCode == otherAtom.hashCode)
+                    && predicate.equals(otherAtom.predicate)
+                    && arguments.equals(otherAtom.arguments);
         }
         else {
             return false;
@@ -105,7 +115,7 @@ public abstract class AbstractDataAtomImpl<P extends AtomPredicate>
 
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        return hashCode;
     }
 
     /**
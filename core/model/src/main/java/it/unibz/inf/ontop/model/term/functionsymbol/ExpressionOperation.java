@@ -122,8 +122,8 @@ public enum ExpressionOperation implements OperationPredicate {
 
 	AVG("AVG", TermTypeInferenceRules.NON_INTEGER_NUMERIC_RULE, RDF_TERM_TYPE),
 	SUM("SUM", TermTypeInferenceRules.STANDARD_NUMERIC_RULE, RDF_TERM_TYPE),
-	MAX("MAX", TermTypeInferenceRules.STANDARD_NUMERIC_RULE, RDF_TERM_TYPE),
-	MIN("MIN", TermTypeInferenceRules.STANDARD_NUMERIC_RULE, RDF_TERM_TYPE),
+	MAX("MAX", TermTypeInferenceRules.FIRST_ARG_RULE, RDF_TERM_TYPE),
+	MIN("MIN", TermTypeInferenceRules.FIRST_ARG_RULE, RDF_TERM_TYPE),
 	COUNT("COUNT", TermTypeInferenceRules.PREDEFINED_INTEGER_RULE, RDF_TERM_TYPE),
 
 	/*
@@ -201,6 +201,22 @@ public enum ExpressionOperation implements OperationPredicate {
 		return argumentValidator.getExpectedBaseArgumentTypes();
 	}
 
+	/**
+	 * Set functions: only expected in the substitution of an AggregationNode
+	 */
+	public boolean isAggregate() {
+		switch (this) {
+			case AVG:
+			case SUM:
+			case MAX:
+			case MIN:
+			case COUNT:
+				return true;
+			default:
+				return false;
+		}
+	}
+
 	@Override
 	public Optional<TermType> inferType(ImmutableList<? extends ImmutableTerm> terms) throws IncompatibleTermException {
 
@@ -29,7 +29,11 @@ public abstract class AbstractFunctionalTermImpl implements Function {
         if (obj == null || !(obj instanceof Function)) {
             return false;
         }
-        return this.hashCode() == obj.hashCode();
+        if (this == obj)
+            return true;
+        // The hash is only a fast rejection: distinct terms may collide
+        return (this.hashCode() == obj.hashCode())
+                && toString().equals(obj.toString());
     }
 
     @Override
@@ -23,6 +23,11 @@ public abstract class ImmutableFunctionalTermImpl implements ImmutableFunctional
      */
     private String string;
 
+    /**
+     * Structural hash, computed at construction time (the sub-terms cache their own)
+     */
+    private final int hashCode;
+
     protected ImmutableFunctionalTermImpl(FunctionSymbol functor, ImmutableTerm... terms) {
         this(functor, ImmutableList.copyOf(terms));
     }
@@ -32,6 +37,7 @@ public abstract class ImmutableFunctionalTermImpl implements ImmutableFunctional
         // No problem since the list is immutable
         this.terms = terms;
         string = null;
+        hashCode = 31 * functionSymbol.hashCode() + terms.hashCode();
 
         if (functionSymbol.getArity() != terms.size()) {
             throw new IllegalArgumentException("Arity violation: " + functionSymbol + " was expecting " + functionSymbol.getArity()
@@ -98,13 +104,17 @@ public abstract class ImmutableFunctionalTermImpl implements ImmutableFunctional
     }
 
     /**
-     * A bit hacky: only for the functional term
-     * that derives from ImmutableFunctionalTermImpl
+     * Structural equality. Interned terms (see TermFactoryImpl) are usually identical.
      */
     @Override
     public boolean equals(Object other) {
-        if (other instanceof ImmutableFunctionalTerm) {
-            return toString().equals(other.toString());
+        if (this == other)
+            return true;
+        if (other instanceof ImmutableFunctionalTermImpl) {
+            ImmutableFunctionalTermImpl otherTerm = (ImmutableFunctionalTermImpl) other;
+            return (hashCode == otherTerm.hashCode)
+                    && functionSymbol.equals(otherTerm.functionSymbol)
+                    && terms.equals(otherTerm.terms);
         }
         else {
             return false;
@@ -113,7 +123,7 @@ public abstract class ImmutableFunctionalTermImpl implements ImmutableFunctional
 
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        return hashCode;
     }
 
 }
@@ -21,6 +21,8 @@ package it.unibz.inf.ontop.model.term.impl;
  */
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import it.unibz.inf.ontop.exception.OntopInternalBugException;
@@ -54,6 +56,17 @@ public class TermFactoryImpl implements TermFactory {
 	private final AtomicInteger templateCounter;
 	private final Map<String, String> templateSuffix;
 
+	/**
+	 * Hash-consing of the immutable functional terms: structurally equal terms share the same instance,
+	 * so that the equality tests usually end with the identity check.
+	 *
+	 * One (weak) interner per concrete class, as the structural equality ignores the class.
+	 */
+	private final Interner<GroundFunctionalTermImpl> groundFunctionalTermInterner;
+	private final Interner<NonGroundFunctionalTermImpl> nonGroundFunctionalTermInterner;
+	private final Interner<GroundExpressionImpl> groundExpressionInterner;
+	private final Interner<NonGroundExpressionImpl> nonGroundExpressionInterner;
+
 	@Inject
 	private TermFactoryImpl(TypeFactory typeFactory, OntopModelSettings settings) {
 		// protected constructor prevents instantiation from other classes.
@@ -64,10 +77,15 @@ public class TermFactoryImpl implements TermFactory {
 		this.valueNull = new ValueConstantImpl("null", typeFactory.getXsdStringDatatype());
 		this.provenanceConstant = new ValueConstantImpl("ontop-provenance-constant", typeFactory.getXsdStringDatatype());
 		this.immutabilityTools = new ImmutabilityTools(this);
-		this.type2FunctionSymbolMap = new HashMap<>();
+		// Concurrent: also used while parsing the mapping in parallel
+		this.type2FunctionSymbolMap = new ConcurrentHashMap<>();
 		this.isTestModeEnabled = settings.isTestModeEnabled();
 		this.templateCounter = new AtomicInteger();
 		this.templateSuffix = new ConcurrentHashMap<>();
+		this.groundFunctionalTermInterner = Interners.newWeakInterner();
+		this.nonGroundFunctionalTermInterner = Interners.newWeakInterner();
+		this.groundExpressionInterner = Interners.newWeakInterner();
+		this.nonGroundExpressionInterner = Interners.newWeakInterner();
 	}
 
 	@Override
@@ -162,21 +180,23 @@ public class TermFactoryImpl implements TermFactory {
 	public ImmutableExpression getImmutableExpression(OperationPredicate functor,
 													  ImmutableList<? extends ImmutableTerm> arguments) {
 		if (GroundTermTools.areGroundTerms(arguments)) {
-			return new GroundExpressionImpl(functor, (ImmutableList<GroundTerm>)arguments);
+			return groundExpressionInterner.intern(
+					new GroundExpressionImpl(functor, (ImmutableList<GroundTerm>)arguments));
 		}
 		else {
-			return new NonGroundExpressionImpl(functor, arguments);
+			return nonGroundExpressionInterner.intern(new NonGroundExpressionImpl(functor, arguments));
 		}
 	}
 
 	@Override
 	public ImmutableExpression getImmutableExpression(Expression expression) {
 		if (GroundTermTools.isGroundTerm(expression)) {
-			return new GroundExpressionImpl(expression.getFunctionSymbol(),
-					(ImmutableList<? extends GroundTerm>)(ImmutableList<?>)convertTerms(expression));
+			return groundExpressionInterner.intern(new GroundExpressionImpl(expression.getFunctionSymbol(),
+					(ImmutableList<? extends GroundTerm>)(ImmutableList<?>)convertTerms(expression)));
 		}
 		else {
-			return new NonGroundExpressionImpl(expression.getFunctionSymbol(), convertTerms(expression));
+			return nonGroundExpressionInterner.intern(
+					new NonGroundExpressionImpl(expression.getFunctionSymbol(), convertTerms(expression)));
 		}
 	}
 
@@ -210,11 +230,12 @@ public class TermFactoryImpl implements TermFactory {
 		}
 
 		if (GroundTermTools.areGroundTerms(terms)) {
-			return new GroundFunctionalTermImpl((ImmutableList<? extends GroundTerm>)terms, functor);
+			return groundFunctionalTermInterner.intern(
+					new GroundFunctionalTermImpl((ImmutableList<? extends GroundTerm>)terms, functor));
 		}
 		else {
 			// Default constructor
-			return new NonGroundFunctionalTermImpl(functor, terms);
+			return nonGroundFunctionalTermInterner.intern(new NonGroundFunctionalTermImpl(functor, terms));
 		}
 	}
 
@@ -225,12 +246,12 @@ public class TermFactoryImpl implements TermFactory {
 
 	@Override
 	public NonGroundFunctionalTerm getNonGroundFunctionalTerm(FunctionSymbol functor, ImmutableTerm... terms) {
-		return new NonGroundFunctionalTermImpl(functor, terms);
+		return nonGroundFunctionalTermInterner.intern(new NonGroundFunctionalTermImpl(functor, terms));
 	}
 
 	@Override
 	public NonGroundFunctionalTerm getNonGroundFunctionalTerm(FunctionSymbol functor, ImmutableList<ImmutableTerm> terms) {
-		return new NonGroundFunctionalTermImpl(functor, terms);
+		return nonGroundFunctionalTermInterner.intern(new NonGroundFunctionalTermImpl(functor, terms));
 	}
 
 	public TypeFactory getTypeFactory() {
@@ -27,93 +27,92 @@ import it.unibz.inf.ontop.model.term.functionsymbol.URITemplatePredicate;
 import it.unibz.inf.ontop.model.term.*;
 
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
+/**
+ * Decomposes IRI strings according to the IRI templates of the mapping.
+ *
+ * The templates are indexed in a prefix trie (on their constant part before the first placeholder).
+ * A lookup walks the IRI once along the trie to collect the candidate templates,
+ * and then decomposes it with the most specific candidate that matches.
+ *
+ * Immutable once created, therefore thread-safe.
+ */
 public class UriTemplateMatcher {
 
+    private static final String PLACEHOLDER = "{}";
+    /**
+     * Key of the templates (regex-like syntax, kept for compatibility)
+     */
+    private static final String ARGUMENT_PATTERN = "(.+)";
+
     private final TermFactory termFactory;
+    /**
+     * Pattern string -> functional term, in the insertion order
+     */
+    private final ImmutableMap<String, ImmutableFunctionalTerm> uriTemplateMatcher;
+    private final TrieNode root;
 
-    private UriTemplateMatcher(TermFactory termFactory) {
+    private UriTemplateMatcher(ImmutableMap<String, ImmutableFunctionalTerm> uriTemplateMatcher,
+                               TermFactory termFactory) {
         this.termFactory = termFactory;
-    }
+        this.uriTemplateMatcher = uriTemplateMatcher;
+        this.root = new TrieNode();
 
-    private final Map<Pattern, ImmutableFunctionalTerm> uriTemplateMatcher = new HashMap<>();
+        int index = 0;
+        for (Map.Entry<String, ImmutableFunctionalTerm> e : uriTemplateMatcher.entrySet()) {
+            IRITemplate template = new IRITemplate(e.getKey(), e.getValue(), index++);
+            root.insert(template.getPrefix(), template);
+        }
+    }
 
-    /**
-     * TODO: refactor using streaming.
-     */
     public static UriTemplateMatcher create(Stream<? extends ImmutableFunctionalTerm> targetAtomStream,
                                             TermFactory termFactory) {
-        Set<String> templateStrings = new HashSet<>();
-
-        UriTemplateMatcher uriTemplateMatcher = new UriTemplateMatcher(termFactory);
-
-        ImmutableList<? extends ImmutableFunctionalTerm> targetAtoms = targetAtomStream.collect(ImmutableCollectors.toList());
-
-        for (ImmutableFunctionalTerm fun : targetAtoms) {
-
-            // Collecting URI templates and making pattern matchers for them.
-            if (!(fun.getFunctionSymbol() instanceof URITemplatePredicate)) {
-                continue;
-            }
-            /*
-			 * This is a URI function, so it can generate pattern matchers
-			 * for the URIs. We have two cases, one where the arity is 1,
-			 * and there is a constant/variable. The second case is
-			 * where the first element is a string template of the URI, and
-			 * the rest of the terms are variables/constants
-			 */
-            if (fun.getTerms().size() == 1) {
-				/*
-				 * URI without template, we get it directly from the column
-				 * of the table, and the function is only f(x)
-				 */
-                if (templateStrings.contains("(.+)")) {
-                    continue;
-                }
-
-                ImmutableFunctionalTerm templateFunction = termFactory.getImmutableUriTemplate(termFactory.getVariable("x"));
-                Pattern matcher = Pattern.compile("(.+)");
-                uriTemplateMatcher.uriTemplateMatcher.put(matcher, templateFunction);
-                templateStrings.add("(.+)");
-            } else {
-                ValueConstant template = (ValueConstant) fun.getTerms().get(0);
-                String templateString = template.getValue();
-                templateString = templateString.replace("{}", "(.+)");
-
-                if (templateStrings.contains(templateString)) {
-                    continue;
-                }
+        Map<String, ImmutableFunctionalTerm> pattern2Term = new LinkedHashMap<>();
 
-                Pattern matcher = Pattern.compile(templateString);
-                uriTemplateMatcher.uriTemplateMatcher.put(matcher, fun);
-                templateStrings.add(templateString);
+        targetAtomStream
+                // Collecting URI templates
+                .filter(fun -> fun.getFunctionSymbol() instanceof URITemplatePredicate)
+                .forEach(fun -> {
+                    /*
+                     * We have two cases, one where the arity is 1, and there is a constant/variable.
+                     * The second case is where the first element is a string template of the URI, and
+                     * the rest of the terms are variables/constants
+                     */
+                    if (fun.getTerms().size() == 1) {
+                        /*
+                         * URI without template, we get it directly from the column
+                         * of the table, and the function is only f(x)
+                         */
+                        if (!pattern2Term.containsKey(ARGUMENT_PATTERN))
+                            pattern2Term.put(ARGUMENT_PATTERN,
+                                    termFactory.getImmutableUriTemplate(termFactory.getVariable("x")));
+                    }
+                    else {
+                        String templateString = ((ValueConstant) fun.getTerms().get(0)).getValue();
+                        pattern2Term.putIfAbsent(templateString.replace(PLACEHOLDER, ARGUMENT_PATTERN), fun);
+                    }
+                });
 
-            }
-        }
-        return uriTemplateMatcher;
+        return new UriTemplateMatcher(ImmutableMap.copyOf(pattern2Term), termFactory);
     }
 
     public static UriTemplateMatcher merge(Stream<UriTemplateMatcher> uriTemplateMatchers, TermFactory termFactory) {
 
-        ImmutableMap<Pattern, Collection<ImmutableFunctionalTerm>> pattern2Terms = uriTemplateMatchers
-                .flatMap(m -> m.getMap().entrySet().stream())
+        ImmutableMap<String, Collection<ImmutableFunctionalTerm>> pattern2Terms = uriTemplateMatchers
+                .flatMap(m -> m.uriTemplateMatcher.entrySet().stream())
                 .collect(ImmutableCollectors.toMultimap())
                 .asMap();
 
-        ImmutableMap<Pattern, ImmutableFunctionalTerm> pattern2Term = pattern2Terms.entrySet().stream()
+        ImmutableMap<String, ImmutableFunctionalTerm> pattern2Term = pattern2Terms.entrySet().stream()
                 .collect(ImmutableCollectors.toMap(
                         e -> e.getKey(),
                         e -> flatten(e.getKey(), e.getValue())
                 ));
-        UriTemplateMatcher uriTemplateMatcher = new UriTemplateMatcher(termFactory);
-        uriTemplateMatcher.uriTemplateMatcher.putAll(pattern2Term);
-        return uriTemplateMatcher;
+        return new UriTemplateMatcher(pattern2Term, termFactory);
     }
 
-    private static ImmutableFunctionalTerm flatten(Pattern pattern, Collection<ImmutableFunctionalTerm> collection) {
+    private static ImmutableFunctionalTerm flatten(String pattern, Collection<ImmutableFunctionalTerm> collection) {
         if (ImmutableSet.copyOf(collection).size() == 1) {
             return collection.iterator().next();
         }
@@ -121,69 +120,174 @@ public class UriTemplateMatcher {
     }
 
     /***
-     * We will try to match the URI to one of our patterns, if this happens, we
+     * We will try to match the URI to one of our templates, if this happens, we
      * have a corresponding function, and the parameters for this function. The
-     * parameters are the values for the groups of the pattern.
+     * parameters are the substrings of the URI matching the placeholders.
+     *
+     * The most specific template (longest one) is preferred. Like with a greedy regex,
+     * the first placeholders take as many characters as possible.
      */
     public ImmutableFunctionalTerm generateURIFunction(String uriString) {
-        ImmutableFunctionalTerm functionURI = null;
-
-        List<Pattern> patternsMatched = new LinkedList<>();
-        for (Pattern pattern : uriTemplateMatcher.keySet()) {
-
-            Matcher matcher = pattern.matcher(uriString);
-            boolean match = matcher.matches();
-            if (!match) {
-                continue;
-            }
-            patternsMatched.add(pattern);
-        }
-        Comparator<Pattern> comparator = new Comparator<Pattern>() {
-            public int compare(Pattern c1, Pattern c2) {
-                return c2.pattern().length() - c1.pattern().length(); // use your logic
-            }
-        };
-
-        Collections.sort(patternsMatched, comparator);
-        for (Pattern pattern : patternsMatched) {
-            ImmutableFunctionalTerm matchingFunction = uriTemplateMatcher.get(pattern);
+        for (IRITemplate template : root.getCandidates(uriString)) {
+            ImmutableFunctionalTerm matchingFunction = template.getFunctionalTerm();
             ImmutableTerm baseParameter = matchingFunction.getTerm(0);
             if (baseParameter instanceof Constant) {
-				/*
-				 * This is a general template function of the form
-				 * uri("http://....", var1, var2,...) <p> we need to match var1,
-				 * var2, etc with substrings from the subjectURI
-				 */
-                Matcher matcher = pattern.matcher(uriString);
-                if (matcher.matches()) {
+                /*
+                 * This is a general template function of the form
+                 * uri("http://....", var1, var2,...) <p> we need to match var1,
+                 * var2, etc with substrings from the subjectURI
+                 */
+                Optional<ImmutableList<String>> arguments = template.decompose(uriString);
+                if (arguments.isPresent()) {
                     ImmutableList.Builder<ImmutableTerm> values = ImmutableList.builder();
                     values.add(baseParameter);
-                    for (int i = 0; i < matcher.groupCount(); i++) {
-                        String value = matcher.group(i + 1);
+                    for (String value : arguments.get())
                         values.add(termFactory.getConstantLiteral(value));
-                    }
-                    functionURI = termFactory.getImmutableUriTemplate(values.build());
+                    return termFactory.getImmutableUriTemplate(values.build());
                 }
             } else if (baseParameter instanceof Variable) {
-				/*
-				 * This is a direct mapping to a column, uri(x)
-				 * we need to match x with the subjectURI
-				 */
-                functionURI = termFactory.getImmutableUriTemplate(termFactory.getConstantLiteral(uriString));
+                /*
+                 * This is a direct mapping to a column, uri(x)
+                 * we need to match x with the subjectURI
+                 */
+                if (template.decompose(uriString).isPresent())
+                    break;
             }
-            break;
         }
-        if (functionURI == null) {
-			/* If we cannot match against a template, we try to match against the most general template (which will
-			 * generate empty queries later in the query answering process
-			 */
-            functionURI = termFactory.getImmutableUriTemplate(termFactory.getConstantLiteral(uriString));
+        /* If we cannot match against a template, we try to match against the most general template (which will
+         * generate empty queries later in the query answering process
+         */
+        return termFactory.getImmutableUriTemplate(termFactory.getConstantLiteral(uriString));
+    }
+
+
+    /**
+     * IRI template split into its constant segments (one more than the placeholders)
+     */
+    private static class IRITemplate {
+        private final ImmutableFunctionalTerm functionalTerm;
+        private final ImmutableList<String> segments;
+        // Longer patterns are more specific
+        private final int patternLength;
+        // Deterministic tie-breaking
+        private final int index;
+
+        private IRITemplate(String pattern, ImmutableFunctionalTerm functionalTerm, int index) {
+            this.functionalTerm = functionalTerm;
+            this.segments = split(pattern);
+            this.patternLength = pattern.length();
+            this.index = index;
+        }
+
+        private static ImmutableList<String> split(String pattern) {
+            ImmutableList.Builder<String> builder = ImmutableList.builder();
+            int start = 0;
+            int i;
+            while ((i = pattern.indexOf(ARGUMENT_PATTERN, start)) >= 0) {
+                builder.add(pattern.substring(start, i));
+                start = i + ARGUMENT_PATTERN.length();
+            }
+            builder.add(pattern.substring(start));
+            return builder.build();
+        }
+
+        String getPrefix() {
+            return segments.get(0);
+        }
+
+        ImmutableFunctionalTerm getFunctionalTerm() {
+            return functionalTerm;
+        }
+
+        /**
+         * Returns the values of the placeholders (non-empty strings), if the IRI matches the template.
+         *
+         * Assumes the IRI starts with the prefix (guaranteed by the trie).
+         */
+        Optional<ImmutableList<String>> decompose(String iri) {
+            int n = segments.size() - 1;
+            if (n == 0)
+                return iri.length() == getPrefix().length()
+                        ? Optional.of(ImmutableList.of())
+                        : Optional.empty();
+
+            String suffix = segments.get(n);
+            int end = iri.length() - suffix.length();
+            if (end <= getPrefix().length() || !iri.endsWith(suffix))
+                return Optional.empty();
+
+            int[] starts = new int[n + 1];
+            starts[0] = getPrefix().length();
+            if (!matchSegments(iri, 1, end, starts))
+                return Optional.empty();
+            starts[n] = end;
+
+            ImmutableList.Builder<String> builder = ImmutableList.builder();
+            for (int k = 0; k < n; k++) {
+                int from = (k == 0) ? starts[0] : starts[k] + segments.get(k).length();
+                builder.add(iri.substring(from, (k == n - 1) ? end : starts[k + 1]));
+            }
+            return Optional.of(builder.build());
         }
 
-        return functionURI;
+        /**
+         * Places the inner segment k (and the following ones) in the IRI, before end.
+         * The rightmost positions are tried first (greedy placeholders).
+         *
+         * starts[k - 1] is the position of the previous segment (or of the first placeholder for k = 1).
+         */
+        private boolean matchSegments(String iri, int k, int end, int[] starts) {
+            if (k == segments.size() - 1)
+                // The last placeholder must not be empty
+                return (k == 1 ? starts[0] : starts[k - 1] + segments.get(k - 1).length()) < end;
+
+            String segment = segments.get(k);
+            // The previous placeholder must not be empty
+            int minStart = (k == 1 ? starts[0] : starts[k - 1] + segments.get(k - 1).length()) + 1;
+            // The next placeholder must not be empty
+            int position = iri.lastIndexOf(segment, end - segment.length() - 1);
+            while (position >= minStart) {
+                starts[k] = position;
+                if (matchSegments(iri, k + 1, end, starts))
+                    return true;
+                position = iri.lastIndexOf(segment, position - 1);
+            }
+            return false;
+        }
     }
 
-    private ImmutableMap<Pattern, ImmutableFunctionalTerm> getMap() {
-        return ImmutableMap.copyOf(uriTemplateMatcher);
+    private static final Comparator<IRITemplate> SPECIFICITY_COMPARATOR = Comparator
+            .comparingInt((IRITemplate t) -> -t.patternLength)
+            .thenComparingInt(t -> t.index);
+
+    /**
+     * Character trie over the prefixes of the templates
+     */
+    private static class TrieNode {
+        private final Map<Character, TrieNode> children = new HashMap<>();
+        private final List<IRITemplate> templates = new ArrayList<>();
+
+        void insert(String prefix, IRITemplate template) {
+            TrieNode node = this;
+            for (int i = 0; i < prefix.length(); i++)
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new TrieNode());
+            node.templates.add(template);
+        }
+
+        /**
+         * Templates whose prefix is a prefix of the IRI, the most specific first
+         */
+        List<IRITemplate> getCandidates(String iri) {
+            List<IRITemplate> candidates = new ArrayList<>(templates);
+            TrieNode node = this;
+            for (int i = 0; i < iri.length(); i++) {
+                node = node.children.get(iri.charAt(i));
+                if (node == null)
+                    break;
+                candidates.addAll(node.templates);
+            }
+            candidates.sort(SPECIFICITY_COMPARATOR);
+            return candidates;
+        }
     }
 }
@@ -0,0 +1,92 @@
+package it.unibz.inf.ontop.iq;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.dbschema.BasicDBMetadata;
+import it.unibz.inf.ontop.dbschema.DatabaseRelationDefinition;
+import it.unibz.inf.ontop.dbschema.QuotedIDFactory;
+import it.unibz.inf.ontop.iq.node.ConstructionNode;
+import it.unibz.inf.ontop.iq.node.ExtensionalDataNode;
+import it.unibz.inf.ontop.iq.node.OrderByNode;
+import it.unibz.inf.ontop.model.atom.DistinctVariableOnlyDataAtom;
+import it.unibz.inf.ontop.model.atom.RelationPredicate;
+import it.unibz.inf.ontop.model.term.ImmutableTerm;
+import it.unibz.inf.ontop.model.term.Variable;
+import org.junit.Test;
+
+import java.sql.Types;
+
+import static it.unibz.inf.ontop.OntopModelTestingTools.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * The hash of the IQ trees must be consistent with isEquivalentTo()
+ */
+public class IQTreeEqualityTest {
+
+    private final static RelationPredicate TABLE1_PREDICATE;
+    private final static Variable X = TERM_FACTORY.getVariable("x");
+    private final static Variable Y = TERM_FACTORY.getVariable("y");
+    private final static Variable Z = TERM_FACTORY.getVariable("z");
+    private final static ImmutableTerm A = TERM_FACTORY.getConstantLiteral("a");
+    private final static ImmutableTerm B = TERM_FACTORY.getConstantLiteral("b");
+
+    static {
+        BasicDBMetadata dbMetadata = createDummyMetadata();
+        QuotedIDFactory idFactory = dbMetadata.getQuotedIDFactory();
+
+        DatabaseRelationDefinition table1Def = dbMetadata.createDatabaseRelation(idFactory.createRelationID(null, "TABLE1"));
+        table1Def.addAttribute(idFactory.createAttributeID("col1"), Types.INTEGER, null, false);
+        TABLE1_PREDICATE = table1Def.getAtomPredicate();
+        dbMetadata.freeze();
+    }
+
+    @Test
+    public void testConstructionNodeInsertionOrder() {
+        ExtensionalDataNode dataNode = IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE1_PREDICATE, Z));
+
+        ConstructionNode constructionNode1 = IQ_FACTORY.createConstructionNode(ImmutableSet.of(X, Y, Z),
+                SUBSTITUTION_FACTORY.getSubstitution(ImmutableMap.of(X, A, Y, B)));
+        ConstructionNode constructionNode2 = IQ_FACTORY.createConstructionNode(ImmutableSet.of(Z, Y, X),
+                SUBSTITUTION_FACTORY.getSubstitution(ImmutableMap.of(Y, B, X, A)));
+
+        IQTree tree1 = IQ_FACTORY.createUnaryIQTree(constructionNode1, dataNode);
+        IQTree tree2 = IQ_FACTORY.createUnaryIQTree(constructionNode2, dataNode);
+
+        assertEquals(tree1, tree2);
+        assertEquals(tree1.hashCode(), tree2.hashCode());
+
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(
+                ATOM_FACTORY.getRDFAnswerPredicate(3), X, Y, Z);
+        IQ iq1 = IQ_FACTORY.createIQ(projectionAtom, tree1);
+        IQ iq2 = IQ_FACTORY.createIQ(projectionAtom, tree2);
+
+        assertEquals(iq1, iq2);
+        assertEquals(iq1.hashCode(), iq2.hashCode());
+    }
+
+    @Test
+    public void testDifferentSubstitutions() {
+        ExtensionalDataNode dataNode = IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE1_PREDICATE, Z));
+
+        IQTree tree1 = IQ_FACTORY.createUnaryIQTree(IQ_FACTORY.createConstructionNode(ImmutableSet.of(X, Z),
+                SUBSTITUTION_FACTORY.getSubstitution(ImmutableMap.of(X, A))), dataNode);
+        IQTree tree2 = IQ_FACTORY.createUnaryIQTree(IQ_FACTORY.createConstructionNode(ImmutableSet.of(X, Z),
+                SUBSTITUTION_FACTORY.getSubstitution(ImmutableMap.of(X, B))), dataNode);
+
+        assertNotEquals(tree1, tree2);
+    }
+
+    @Test
+    public void testOrderComparators() {
+        OrderByNode.OrderComparator comparator1 = IQ_FACTORY.createOrderComparator(X, true);
+        OrderByNode.OrderComparator comparator2 = IQ_FACTORY.createOrderComparator(X, true);
+
+        assertEquals(comparator1, comparator2);
+        assertEquals(comparator1.hashCode(), comparator2.hashCode());
+        assertEquals(IQ_FACTORY.createOrderByNode(ImmutableList.of(comparator1)).structuralHashCode(),
+                IQ_FACTORY.createOrderByNode(ImmutableList.of(comparator2)).structuralHashCode());
+    }
+}
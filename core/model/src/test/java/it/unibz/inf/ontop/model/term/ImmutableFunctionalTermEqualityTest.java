@@ -0,0 +1,58 @@
+package it.unibz.inf.ontop.model.term;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import static it.unibz.inf.ontop.OntopModelTestingTools.TERM_FACTORY;
+import static it.unibz.inf.ontop.model.term.functionsymbol.ExpressionOperation.EQ;
+import static org.junit.Assert.*;
+
+public class ImmutableFunctionalTermEqualityTest {
+
+    private static final Variable X = TERM_FACTORY.getVariable("x");
+    private static final Variable Y = TERM_FACTORY.getVariable("y");
+    private static final String TEMPLATE = "http://example.org/person/{}/{}";
+
+    @Test
+    public void testEqualTemplatesAreShared() {
+        ImmutableFunctionalTerm term1 = TERM_FACTORY.getImmutableUriTemplate(
+                TERM_FACTORY.getConstantLiteral(TEMPLATE), X, Y);
+        ImmutableFunctionalTerm term2 = TERM_FACTORY.getImmutableUriTemplate(
+                TERM_FACTORY.getConstantLiteral(TEMPLATE), X, Y);
+
+        assertSame(term1, term2);
+        assertEquals(term1.hashCode(), term2.hashCode());
+    }
+
+    @Test
+    public void testDifferentArguments() {
+        ImmutableFunctionalTerm term1 = TERM_FACTORY.getImmutableUriTemplate(
+                TERM_FACTORY.getConstantLiteral(TEMPLATE), X, Y);
+        ImmutableFunctionalTerm term2 = TERM_FACTORY.getImmutableUriTemplate(
+                TERM_FACTORY.getConstantLiteral(TEMPLATE), Y, X);
+
+        assertNotEquals(term1, term2);
+    }
+
+    @Test
+    public void testGroundExpressions() {
+        ImmutableExpression expression1 = TERM_FACTORY.getImmutableExpression(EQ,
+                TERM_FACTORY.getConstantLiteral("a"), TERM_FACTORY.getConstantLiteral("b"));
+        ImmutableExpression expression2 = TERM_FACTORY.getImmutableExpression(EQ,
+                ImmutableList.of(TERM_FACTORY.getConstantLiteral("a"), TERM_FACTORY.getConstantLiteral("b")));
+
+        assertSame(expression1, expression2);
+        assertTrue(expression1 instanceof GroundFunctionalTerm);
+    }
+
+    @Test
+    public void testNestedTerms() {
+        ImmutableExpression expression1 = TERM_FACTORY.getImmutableExpression(EQ, X,
+                TERM_FACTORY.getImmutableUriTemplate(TERM_FACTORY.getConstantLiteral(TEMPLATE), X, Y));
+        ImmutableExpression expression2 = TERM_FACTORY.getImmutableExpression(EQ, X,
+                TERM_FACTORY.getImmutableUriTemplate(TERM_FACTORY.getConstantLiteral(TEMPLATE), X, Y));
+
+        assertEquals(expression1, expression2);
+        assertEquals(expression1.toString(), expression2.toString());
+    }
+}
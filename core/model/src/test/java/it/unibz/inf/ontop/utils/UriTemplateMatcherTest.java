@@ -0,0 +1,82 @@
+package it.unibz.inf.ontop.utils;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.model.term.ImmutableFunctionalTerm;
+import it.unibz.inf.ontop.model.term.ImmutableTerm;
+import it.unibz.inf.ontop.model.term.ValueConstant;
+import org.junit.Test;
+
+import java.util.stream.Stream;
+
+import static it.unibz.inf.ontop.OntopModelTestingTools.TERM_FACTORY;
+import static org.junit.Assert.assertEquals;
+
+public class UriTemplateMatcherTest {
+
+    private static final ImmutableFunctionalTerm PERSON = createTemplate("http://example.org/person/{}");
+    private static final ImmutableFunctionalTerm PERSON_ADDRESS = createTemplate("http://example.org/person/{}/address/{}");
+    private static final ImmutableFunctionalTerm PAIR = createTemplate("http://example.org/pair/{}-{}");
+    private static final ImmutableFunctionalTerm DIRECT = TERM_FACTORY.getImmutableUriTemplate(TERM_FACTORY.getVariable("y"));
+
+    private static final UriTemplateMatcher MATCHER = UriTemplateMatcher.create(
+            Stream.of(PERSON, PERSON_ADDRESS, PAIR, DIRECT), TERM_FACTORY);
+
+    @Test
+    public void testSimpleTemplate() {
+        assertArguments("http://example.org/person/{}", ImmutableList.of("1"),
+                MATCHER.generateURIFunction("http://example.org/person/1"));
+    }
+
+    @Test
+    public void testMostSpecificTemplate() {
+        assertArguments("http://example.org/person/{}/address/{}", ImmutableList.of("1", "2"),
+                MATCHER.generateURIFunction("http://example.org/person/1/address/2"));
+    }
+
+    @Test
+    public void testGreedyPlaceholders() {
+        assertArguments("http://example.org/pair/{}-{}", ImmutableList.of("a-b", "c"),
+                MATCHER.generateURIFunction("http://example.org/pair/a-b-c"));
+    }
+
+    @Test
+    public void testEmptyPlaceholder() {
+        assertArguments("http://example.org/pair/a-", ImmutableList.of(),
+                MATCHER.generateURIFunction("http://example.org/pair/a-"));
+    }
+
+    @Test
+    public void testNoTemplate() {
+        assertArguments("http://other.org/1", ImmutableList.of(),
+                MATCHER.generateURIFunction("http://other.org/1"));
+    }
+
+    @Test
+    public void testMerge() {
+        UriTemplateMatcher matcher = UriTemplateMatcher.merge(Stream.of(
+                UriTemplateMatcher.create(Stream.of(PERSON), TERM_FACTORY),
+                UriTemplateMatcher.create(Stream.of(PERSON, PERSON_ADDRESS), TERM_FACTORY)),
+                TERM_FACTORY);
+
+        assertArguments("http://example.org/person/{}/address/{}", ImmutableList.of("1", "2"),
+                matcher.generateURIFunction("http://example.org/person/1/address/2"));
+    }
+
+    private static ImmutableFunctionalTerm createTemplate(String template) {
+        ImmutableList.Builder<ImmutableTerm> builder = ImmutableList.builder();
+        builder.add(TERM_FACTORY.getConstantLiteral(template));
+        int count = (template.length() - template.replace("{}", "").length()) / 2;
+        for (int i = 0; i < count; i++)
+            builder.add(TERM_FACTORY.getVariable("x" + i));
+        return TERM_FACTORY.getImmutableUriTemplate(builder.build());
+    }
+
+    private static void assertArguments(String expectedTemplate, ImmutableList<String> expectedArguments,
+                                        ImmutableFunctionalTerm term) {
+        assertEquals(expectedTemplate, ((ValueConstant) term.getTerm(0)).getValue());
+        ImmutableList<String> arguments = term.getTerms().subList(1, term.getTerms().size()).stream()
+                .map(t -> ((ValueConstant) t).getValue())
+                .collect(ImmutableCollectors.toList());
+        assertEquals(expectedArguments, arguments);
+    }
+}
@@ -21,16 +21,16 @@ package it.unibz.inf.ontop.spec.ontology.impl;
  */
 
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import it.unibz.inf.ontop.spec.ontology.Equivalences;
 import it.unibz.inf.ontop.spec.ontology.EquivalencesDAG;
 import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
-import org.jgrapht.graph.EdgeReversedGraph;
 import org.jgrapht.graph.SimpleDirectedGraph;
-import org.jgrapht.traverse.BreadthFirstIterator;
 
 import java.util.*;
+import java.util.function.IntFunction;
 
 
 /**
@@ -39,6 +39,13 @@ import java.util.*;
  * The vertices of the DAG are equivalence sets (Equivalences)
  * The edges form the minimal set whose transitive and reflexive closure
  * coincides with the transitive and reflexive closure of the ontology graph
+ *
+ * The sub- and super-vertices are answered by a reachability index computed
+ * once at construction (the DAG is not modified afterwards): the returned sets are
+ * read-only views with constant-time membership tests.
+ * Representatives are resolved when the views are read because they can be set after construction.
+ *
+ * Thread-safe once the representatives have been set.
  *  
  *  @author Roman Kontchakov
  * 
@@ -52,8 +59,10 @@ public class EquivalencesDAGImpl<T> implements EquivalencesDAG<T> {
 	// maps all Ts (even from the non-reduced DAG) to the vertices of the possibly reduced  DAG
 	private final ImmutableMap<T, Equivalences<T>> fullVertexIndex;   
 
-	private final Map<Equivalences<T>, Set<Equivalences<T>>> cacheSub;
-	private final Map<T, Set<T>> cacheSubRep;
+	// vertices numbered in a topological order (super-vertices first)
+	private final ImmutableList<Equivalences<T>> vertices;
+	private final ImmutableMap<Equivalences<T>, Integer> vertexIds;
+	private final ReachabilityIndex reachability;
 
 	private DefaultDirectedGraph<T,DefaultEdge> graph; // used in tests only
 	
@@ -63,8 +72,12 @@ public class EquivalencesDAGImpl<T> implements EquivalencesDAG<T> {
 		this.vertexIndex = vertexIndex;
 		this.fullVertexIndex = fullVertexIndex;
 
-		this.cacheSub = new HashMap<>();
-		this.cacheSubRep = new HashMap<>();
+		this.vertices = sortTopologically(dag);
+		ImmutableMap.Builder<Equivalences<T>, Integer> vertexIdBuilder = ImmutableMap.builder();
+		for (int i = 0; i < vertices.size(); i++)
+			vertexIdBuilder.put(vertices.get(i), i);
+		this.vertexIds = vertexIdBuilder.build();
+		this.reachability = buildReachabilityIndex(dag, vertices, vertexIds);
 	}
 
 	
@@ -104,23 +117,11 @@ public class EquivalencesDAGImpl<T> implements EquivalencesDAG<T> {
 	 */
 	@Override
 	public Set<Equivalences<T>> getSub(Equivalences<T> v) {
+		Integer id = vertexIds.get(v);
+		if (id == null)
+			return Collections.emptySet();
 
-		Set<Equivalences<T>> result = cacheSub.get(v);
-		if (result == null) {
-			result = new LinkedHashSet<>();
-
-			BreadthFirstIterator<Equivalences<T>, DefaultEdge>  iterator = 
-						new BreadthFirstIterator<Equivalences<T>, DefaultEdge>(
-								new EdgeReversedGraph<>(dag), v);
-
-			while (iterator.hasNext()) {
-				Equivalences<T> child = iterator.next();
-				result.add(child);
-			}
-			result = Collections.unmodifiableSet(result);
-			cacheSub.put(v, result);
-		}
-		return result; 
+		return new ReachableSet<>(id, true, vertices::get, this::getId);
 	}
 
 	/** 
@@ -132,23 +133,9 @@ public class EquivalencesDAGImpl<T> implements EquivalencesDAG<T> {
 		
 		if (eq == null)
 			return Collections.singleton(v);
-		
-		Set<T> result = cacheSubRep.get(eq.getRepresentative());
-		if (result == null) {
-			result = new LinkedHashSet<T>();
-
-			BreadthFirstIterator<Equivalences<T>, DefaultEdge>  iterator = 
-						new BreadthFirstIterator<Equivalences<T>, DefaultEdge>(
-								new EdgeReversedGraph<>(dag), eq);
 
-			while (iterator.hasNext()) {
-				Equivalences<T> child = iterator.next();
-				result.add(child.getRepresentative());
-			}
-			result = Collections.unmodifiableSet(result);
-			cacheSubRep.put(eq.getRepresentative(), result);
-		}
-		return result; 
+		return new ReachableSet<>(vertexIds.get(eq), true, i -> vertices.get(i).getRepresentative(),
+				this::getRepresentativeId);
 	}
 	
 
@@ -172,17 +159,80 @@ public class EquivalencesDAGImpl<T> implements EquivalencesDAG<T> {
 	 */
 	@Override
 	public Set<Equivalences<T>> getSuper(Equivalences<T> v) {
+		Integer id = vertexIds.get(v);
+		if (id == null)
+			return Collections.emptySet();
 
-		Set<Equivalences<T>> result = new LinkedHashSet<>();
+		return new ReachableSet<>(id, false, vertices::get, this::getId);
+	}
 
-		BreadthFirstIterator<Equivalences<T>, DefaultEdge>  iterator = 
-				new BreadthFirstIterator<Equivalences<T>, DefaultEdge>(dag, v);
+	/**
+	 * Returns -1 if o is not a vertex of the DAG
+	 */
+	private int getId(Object o) {
+		Integer id = vertexIds.get(o);
+		return (id == null) ? -1 : id;
+	}
 
-		while (iterator.hasNext()) {
-			Equivalences<T> parent = iterator.next();
-			result.add(parent);
+	/**
+	 * Returns -1 if o is not the representative of a vertex of the DAG
+	 */
+	private int getRepresentativeId(Object o) {
+		Equivalences<T> eq = vertexIndex.get(o);
+		if (eq == null || !eq.getRepresentative().equals(o))
+			return -1;
+		return vertexIds.get(eq);
+	}
+
+	/**
+	 * Read-only view of the sub- or super-vertices of a vertex (the vertex itself comes first)
+	 */
+	private final class ReachableSet<E> extends AbstractSet<E> {
+		private final int id;
+		private final boolean isSub;
+		private final IntFunction<E> element;
+		private final ElementIdFunction elementId;
+
+		ReachableSet(int id, boolean isSub, IntFunction<E> element, ElementIdFunction elementId) {
+			this.id = id;
+			this.isSub = isSub;
+			this.element = element;
+			this.elementId = elementId;
 		}
-		return Collections.unmodifiableSet(result);
+
+		@Override
+		public boolean contains(Object o) {
+			int other = elementId.getId(o);
+			if (other < 0)
+				return false;
+			return isSub ? reachability.isSub(other, id) : reachability.isSub(id, other);
+		}
+
+		@Override
+		public Iterator<E> iterator() {
+			PrimitiveIterator.OfInt ids = isSub ? reachability.subIterator(id) : reachability.superIterator(id);
+			return new Iterator<E>() {
+				@Override
+				public boolean hasNext() {
+					return ids.hasNext();
+				}
+
+				@Override
+				public E next() {
+					return element.apply(ids.nextInt());
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return isSub ? reachability.getSubCount(id) : reachability.getSuperCount(id);
+		}
+	}
+
+	@FunctionalInterface
+	private interface ElementIdFunction {
+		int getId(Object o);
 	}
 
 	@Override
@@ -239,6 +289,75 @@ public class EquivalencesDAGImpl<T> implements EquivalencesDAG<T> {
 	/*
 	 *  construction: main algorithms (static generic methods)
 	 */
+
+	/**
+	 * Super-vertices come before their sub-vertices.
+	 * For forests, the order is a pre-order (each vertex is followed by all its sub-vertices).
+	 */
+	private static <TT> ImmutableList<Equivalences<TT>> sortTopologically(SimpleDirectedGraph<Equivalences<TT>,DefaultEdge> dag) {
+		ImmutableList.Builder<Equivalences<TT>> builder = ImmutableList.builder();
+		if (isForest(dag)) {
+			Deque<Equivalences<TT>> stack = new ArrayDeque<>();
+			for (Equivalences<TT> v : dag.vertexSet())
+				if (dag.outDegreeOf(v) == 0) {
+					stack.push(v);
+					while (!stack.isEmpty()) {
+						Equivalences<TT> current = stack.pop();
+						builder.add(current);
+						for (DefaultEdge edge : dag.incomingEdgesOf(current))
+							stack.push(dag.getEdgeSource(edge));
+					}
+				}
+		}
+		else {
+			Map<Equivalences<TT>, Integer> remainingSupers = new HashMap<>();
+			Deque<Equivalences<TT>> queue = new ArrayDeque<>();
+			for (Equivalences<TT> v : dag.vertexSet()) {
+				int outDegree = dag.outDegreeOf(v);
+				if (outDegree == 0)
+					queue.add(v);
+				else
+					remainingSupers.put(v, outDegree);
+			}
+			while (!queue.isEmpty()) {
+				Equivalences<TT> current = queue.poll();
+				builder.add(current);
+				for (DefaultEdge edge : dag.incomingEdgesOf(current)) {
+					Equivalences<TT> sub = dag.getEdgeSource(edge);
+					if (remainingSupers.merge(sub, -1, Integer::sum) == 0)
+						queue.add(sub);
+				}
+			}
+		}
+		return builder.build();
+	}
+
+	private static <TT> boolean isForest(SimpleDirectedGraph<Equivalences<TT>,DefaultEdge> dag) {
+		for (Equivalences<TT> v : dag.vertexSet())
+			if (dag.outDegreeOf(v) > 1)
+				return false;
+		return true;
+	}
+
+	private static <TT> ReachabilityIndex buildReachabilityIndex(SimpleDirectedGraph<Equivalences<TT>,DefaultEdge> dag,
+																 ImmutableList<Equivalences<TT>> vertices,
+																 ImmutableMap<Equivalences<TT>, Integer> vertexIds) {
+		if (isForest(dag)) {
+			int[] parent = new int[vertices.size()];
+			for (int i = 0; i < parent.length; i++) {
+				Set<DefaultEdge> out = dag.outgoingEdgesOf(vertices.get(i));
+				parent[i] = out.isEmpty() ? -1 : vertexIds.get(dag.getEdgeTarget(out.iterator().next()));
+			}
+			return ReachabilityIndex.forForest(parent);
+		}
+
+		int[][] directSupers = new int[vertices.size()][];
+		for (int i = 0; i < directSupers.length; i++)
+			directSupers[i] = dag.outgoingEdgesOf(vertices.get(i)).stream()
+					.mapToInt(e -> vertexIds.get(dag.getEdgeTarget(e)))
+					.toArray();
+		return ReachabilityIndex.forDAG(directSupers);
+	}
 	
 	public static <TT> EquivalencesDAGImpl<TT> getEquivalencesDAG(DefaultDirectedGraph<TT,DefaultEdge> graph) {
 		
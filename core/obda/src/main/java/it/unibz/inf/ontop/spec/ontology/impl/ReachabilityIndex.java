@@ -0,0 +1,203 @@
+package it.unibz.inf.ontop.spec.ontology.impl;
+
+import java.io.Serializable;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Reachability index of a DAG whose vertices are numbered from 0 to n-1
+ * in a topological order (the super-vertices before their sub-vertices).
+ *
+ * Forests (no multiple inheritance) are labelled with pre-order intervals: the sub-vertices
+ * of v are the vertices numbered from v to last[v], and its super-vertices form the chain of parents.
+ * Otherwise, the sub- and super-vertices of each vertex are stored in bitsets.
+ *
+ * The sub- and super-vertices are reflexive (they include the vertex itself, which is enumerated first).
+ *
+ * Immutable, therefore thread-safe.
+ */
+final class ReachabilityIndex implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int size;
+
+	// Forests only
+	private final int[] last;
+	// -1 for the roots
+	private final int[] parent;
+	private final int[] depth;
+
+	// Multiple inheritance only
+	private final BitSet[] sub;
+	private final BitSet[] sup;
+	private final int[] subCount;
+	private final int[] superCount;
+
+	private ReachabilityIndex(int[] last, int[] parent, int[] depth) {
+		this.size = last.length;
+		this.last = last;
+		this.parent = parent;
+		this.depth = depth;
+		this.sub = null;
+		this.sup = null;
+		this.subCount = null;
+		this.superCount = null;
+	}
+
+	private ReachabilityIndex(BitSet[] sub, BitSet[] sup) {
+		this.size = sub.length;
+		this.last = null;
+		this.parent = null;
+		this.depth = null;
+		this.sub = sub;
+		this.sup = sup;
+		this.subCount = new int[size];
+		this.superCount = new int[size];
+		for (int i = 0; i < size; i++) {
+			subCount[i] = sub[i].cardinality();
+			superCount[i] = sup[i].cardinality();
+		}
+	}
+
+	/**
+	 * @param parent the parent of each vertex (-1 for the roots) in a forest numbered in pre-order
+	 */
+	static ReachabilityIndex forForest(int[] parent) {
+		int n = parent.length;
+		int[] last = new int[n];
+		int[] depth = new int[n];
+		for (int v = 0; v < n; v++) {
+			last[v] = v;
+			depth[v] = (parent[v] < 0) ? 0 : depth[parent[v]] + 1;
+		}
+		// In pre-order, the descendants of v immediately follow v
+		for (int v = n - 1; v >= 0; v--) {
+			if (parent[v] >= 0)
+				last[parent[v]] = Math.max(last[parent[v]], last[v]);
+		}
+		return new ReachabilityIndex(last, parent, depth);
+	}
+
+	/**
+	 * @param directSupers the direct super-vertices of each vertex in a DAG numbered in a topological order
+	 */
+	static ReachabilityIndex forDAG(int[][] directSupers) {
+		int n = directSupers.length;
+		BitSet[] sup = new BitSet[n];
+		for (int v = 0; v < n; v++) {
+			BitSet s = new BitSet(v + 1);
+			s.set(v);
+			for (int p : directSupers[v])
+				s.or(sup[p]);
+			sup[v] = s;
+		}
+
+		BitSet[] sub = new BitSet[n];
+		for (int v = 0; v < n; v++)
+			sub[v] = new BitSet(n);
+		for (int v = 0; v < n; v++) {
+			BitSet s = sup[v];
+			for (int p = s.nextSetBit(0); p >= 0; p = s.nextSetBit(p + 1))
+				sub[p].set(v);
+		}
+		return new ReachabilityIndex(sub, sup);
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Returns true if u is a sub-vertex of v (or v itself)
+	 */
+	boolean isSub(int u, int v) {
+		if (last != null)
+			return (v <= u) && (u <= last[v]);
+		return sub[v].get(u);
+	}
+
+	int getSubCount(int v) {
+		return (last != null) ? last[v] - v + 1 : subCount[v];
+	}
+
+	int getSuperCount(int v) {
+		return (last != null) ? depth[v] + 1 : superCount[v];
+	}
+
+	PrimitiveIterator.OfInt subIterator(int v) {
+		if (last != null) {
+			int end = last[v];
+			return new AbstractIterator() {
+				int next = v;
+				@Override
+				int advance() {
+					return (next <= end) ? next++ : -1;
+				}
+			};
+		}
+		BitSet s = sub[v];
+		return new AbstractIterator() {
+			int next = s.nextSetBit(v);
+			@Override
+			int advance() {
+				int current = next;
+				if (current >= 0)
+					next = s.nextSetBit(current + 1);
+				return current;
+			}
+		};
+	}
+
+	PrimitiveIterator.OfInt superIterator(int v) {
+		if (last != null) {
+			return new AbstractIterator() {
+				int next = v;
+				@Override
+				int advance() {
+					int current = next;
+					if (current >= 0)
+						next = parent[current];
+					return current;
+				}
+			};
+		}
+		BitSet s = sup[v];
+		return new AbstractIterator() {
+			int next = s.previousSetBit(v);
+			@Override
+			int advance() {
+				int current = next;
+				if (current >= 0)
+					next = (current > 0) ? s.previousSetBit(current - 1) : -1;
+				return current;
+			}
+		};
+	}
+
+	/**
+	 * advance() returns -1 when there is no more element
+	 */
+	private static abstract class AbstractIterator implements PrimitiveIterator.OfInt {
+		private int lookahead = -2;
+
+		abstract int advance();
+
+		@Override
+		public boolean hasNext() {
+			if (lookahead == -2)
+				lookahead = advance();
+			return lookahead >= 0;
+		}
+
+		@Override
+		public int nextInt() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			int current = lookahead;
+			lookahead = -2;
+			return current;
+		}
+	}
+}
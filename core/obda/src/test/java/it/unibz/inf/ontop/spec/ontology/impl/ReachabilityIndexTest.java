@@ -0,0 +1,93 @@
+package it.unibz.inf.ontop.spec.ontology.impl;
+
+import org.junit.Test;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+import static org.junit.Assert.*;
+
+public class ReachabilityIndexTest {
+
+    /**
+     *      0     4
+     *     / \
+     *    1   3
+     *    |
+     *    2
+     */
+    @Test
+    public void forest() {
+        ReachabilityIndex index = ReachabilityIndex.forForest(new int[] { -1, 0, 1, 0, -1 });
+
+        assertTrue(index.isSub(2, 0));
+        assertTrue(index.isSub(3, 0));
+        assertTrue(index.isSub(1, 1));
+        assertFalse(index.isSub(3, 1));
+        assertFalse(index.isSub(0, 2));
+        assertFalse(index.isSub(4, 0));
+
+        assertEquals(list(0, 1, 2, 3), toList(index.subIterator(0)));
+        assertEquals(list(2, 1, 0), toList(index.superIterator(2)));
+        assertEquals(4, index.getSubCount(0));
+        assertEquals(3, index.getSuperCount(2));
+        assertEquals(list(4), toList(index.subIterator(4)));
+    }
+
+    /**
+     *    0   1
+     *     \ / \
+     *      2   3
+     *       \ /
+     *        4
+     */
+    @Test
+    public void multipleInheritance() {
+        ReachabilityIndex index = ReachabilityIndex.forDAG(new int[][] { {}, {}, { 0, 1 }, { 1 }, { 2, 3 } });
+
+        assertTrue(index.isSub(4, 0));
+        assertTrue(index.isSub(4, 1));
+        assertTrue(index.isSub(3, 1));
+        assertFalse(index.isSub(3, 0));
+        assertFalse(index.isSub(0, 4));
+
+        assertEquals(list(1, 2, 3, 4), toList(index.subIterator(1)));
+        assertEquals(list(4, 3, 2, 1, 0), toList(index.superIterator(4)));
+        assertEquals(4, index.getSubCount(1));
+        assertEquals(2, index.getSuperCount(3));
+    }
+
+    @Test
+    public void serialization() throws IOException, ClassNotFoundException {
+        ReachabilityIndex index = ReachabilityIndex.forDAG(new int[][] { {}, { 0 }, { 0 }, { 1, 2 } });
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(index);
+        }
+        ReachabilityIndex copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (ReachabilityIndex) in.readObject();
+        }
+
+        assertEquals(index.size(), copy.size());
+        assertTrue(copy.isSub(3, 0));
+        assertFalse(copy.isSub(2, 1));
+        assertEquals(toList(index.subIterator(0)), toList(copy.subIterator(0)));
+    }
+
+    private static List<Integer> toList(PrimitiveIterator.OfInt iterator) {
+        List<Integer> list = new ArrayList<>();
+        iterator.forEachRemaining((int i) -> list.add(i));
+        return list;
+    }
+
+    private static List<Integer> list(Integer... elements) {
+        List<Integer> list = new ArrayList<>();
+        for (Integer e : elements)
+            list.add(e);
+        return list;
+    }
+}
@@ -1,6 +1,7 @@
 package it.unibz.inf.ontop.datalog.impl;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultimap;
@@ -20,7 +21,7 @@ public class CQContainmentCheckUnderLIDs {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(CQContainmentCheckUnderLIDs.class);
 	
-	private final Map<CQIE,IndexedCQ> indexedCQcache = new HashMap<>();
+	private final Map<CQIE,IndexedCQ> indexedCQcache = new ConcurrentHashMap<>();
 	
 	private final ImmutableMultimap<Predicate, LinearInclusionDependency> dependencies;
 	private final DatalogFactory datalogFactory;
@@ -114,6 +115,13 @@ public class CQContainmentCheckUnderLIDs {
 				}
 		}
 		
+		/**
+		 * Predicates of the (chased) body
+		 */
+		public Set<Predicate> getPredicates() {
+			return Collections.unmodifiableSet(factMap.keySet());
+		}
+
 		private Substitution computeHomomorphism(CQIE query) {
 			SubstitutionBuilder sb = new  SubstitutionBuilder(termFactory);
 
@@ -133,17 +141,24 @@ public class CQContainmentCheckUnderLIDs {
 	
 
 	public Substitution computeHomomorphsim(CQIE q1, CQIE q2) {
+		IndexedCQ indexedQ1 = indexedCQcache.computeIfAbsent(q1, this::getIndexedCQ);
+		return computeHomomorphsim(indexedQ1, q2);
+	}
+
+	/**
+	 * Chases and indexes q1, so that it can be used in several containment checks.
+	 *
+	 * Unlike computeHomomorphsim(CQIE, CQIE), the result is not cached.
+	 */
+	public IndexedCQ getIndexedCQ(CQIE q1) {
+		Collection<Function> q1body = q1.getBody();
+		if (dependencies != null)
+			q1body = chaseAtoms(q1body);
+
+		return new IndexedCQ(q1.getHead(), q1body);
+	}
 
-        IndexedCQ indexedQ1 = indexedCQcache.get(q1);
-        if (indexedQ1 == null) {
-        	Collection<Function> q1body = q1.getBody();
-        	if (dependencies != null)
-        		q1body = chaseAtoms(q1body);
-        	
-        	indexedQ1 = new IndexedCQ(q1.getHead(), q1body);
-    		indexedCQcache.put(q1, indexedQ1);
-        }
-           
+	public Substitution computeHomomorphsim(IndexedCQ indexedQ1, CQIE q2) {
         // just to speed up the check in case there can be no match
         for (Function q2atom : q2.getBody()) 
 			if (!indexedQ1.factMap.containsKey(q2atom.getFunctionSymbol())) { 
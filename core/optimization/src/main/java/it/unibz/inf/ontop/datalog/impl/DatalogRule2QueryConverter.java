@@ -3,6 +3,7 @@ package it.unibz.inf.ontop.datalog.impl;
 import java.util.Optional;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 import fj.P2;
@@ -15,13 +16,17 @@ import it.unibz.inf.ontop.model.atom.TargetAtom;
 import it.unibz.inf.ontop.model.atom.DataAtom;
 import it.unibz.inf.ontop.model.atom.DistinctVariableOnlyDataAtom;
 import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.term.functionsymbol.ExpressionOperation;
 import it.unibz.inf.ontop.model.term.functionsymbol.Predicate;
 import it.unibz.inf.ontop.iq.*;
 import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
+import it.unibz.inf.ontop.substitution.SubstitutionFactory;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Converts a Datalog rule into an intermediate query.
@@ -73,13 +78,16 @@ public class DatalogRule2QueryConverter {
     private final DatalogConversionTools datalogConversionTools;
     private final DatalogTools datalogTools;
     private final PullOutEqualityNormalizer pullOutEqualityNormalizer;
+    private final SubstitutionFactory substitutionFactory;
 
     @Inject
     private DatalogRule2QueryConverter(TermFactory termFactory, DatalogFactory datalogFactory,
                                        DatalogConversionTools datalogConversionTools,
                                        DatalogTools datalogTools,
-                                       PullOutEqualityNormalizerImpl pullOutEqualityNormalizer) {
+                                       PullOutEqualityNormalizerImpl pullOutEqualityNormalizer,
+                                       SubstitutionFactory substitutionFactory) {
         this.termFactory = termFactory;
+        this.substitutionFactory = substitutionFactory;
         this.datalogFactory = datalogFactory;
         this.datalogConversionTools = datalogConversionTools;
         this.datalogTools = datalogTools;
@@ -97,6 +105,29 @@ public class DatalogRule2QueryConverter {
 
         DistinctVariableOnlyDataAtom projectionAtom = targetAtom.getProjectionAtom();
 
+        Optional<Function> groupAtom = datalogRule.getBody().stream()
+                .filter(this::isGroupAtom)
+                .findFirst();
+        if (groupAtom.isPresent()) {
+            return createAggregationDefinition(targetAtom, groupAtom.get(), optionalModifiers, tablePredicates,
+                    List.iterableList(datalogRule.getBody().stream()
+                            .filter(a -> !isGroupAtom(a))
+                            .collect(Collectors.toList())),
+                    iqFactory);
+        }
+
+        Optional<Function> closureAtom = datalogRule.getBody().stream()
+                .filter(this::isTransitiveClosureAtom)
+                .findFirst();
+        if (closureAtom.isPresent()) {
+            return createTransitiveClosureDefinition(targetAtom, closureAtom.get(), optionalModifiers,
+                    tablePredicates,
+                    List.iterableList(datalogRule.getBody().stream()
+                            .filter(a -> !isTransitiveClosureAtom(a))
+                            .collect(Collectors.toList())),
+                    iqFactory);
+        }
+
         ConstructionNode topConstructionNode = iqFactory.createConstructionNode(projectionAtom.getVariables(),
                 targetAtom.getSubstitution());
 
@@ -110,6 +141,118 @@ public class DatalogRule2QueryConverter {
         }
     }
 
+    private boolean isGroupAtom(Function atom) {
+        return atom.getFunctionSymbol().equals(datalogFactory.getSparqlGroupPredicate());
+    }
+
+    /**
+     * Rule of the form ans(x, COUNT(y)) :- body, Group(x)
+     *
+     * The aggregates of the head are computed by an aggregation node, grouping by the (variable)
+     * arguments of the Group atom. The remaining bindings of the head are kept in the construction node above.
+     */
+    private IQ createAggregationDefinition(TargetAtom targetAtom, Function groupAtom,
+                                           Optional<ImmutableQueryModifiers> optionalModifiers,
+                                           Collection<Predicate> tablePredicates, List<Function> bodyAtoms,
+                                           IntermediateQueryFactory iqFactory)
+            throws DatalogProgram2QueryConverterImpl.InvalidDatalogProgramException {
+
+        DistinctVariableOnlyDataAtom projectionAtom = targetAtom.getProjectionAtom();
+        ImmutableMap<Variable, ImmutableTerm> headBindings = targetAtom.getSubstitution().getImmutableMap();
+
+        ImmutableMap<Variable, ImmutableFunctionalTerm> aggregates = headBindings.entrySet().stream()
+                .filter(e -> isAggregate(e.getValue()))
+                .collect(ImmutableCollectors.toMap(
+                        Map.Entry::getKey,
+                        e -> (ImmutableFunctionalTerm) e.getValue()));
+        ImmutableMap<Variable, ImmutableTerm> otherBindings = headBindings.entrySet().stream()
+                .filter(e -> !aggregates.containsKey(e.getKey()))
+                .collect(ImmutableCollectors.toMap());
+
+        ImmutableSet<Variable> groupingVariables = groupAtom.getTerms().stream()
+                .filter(t -> t instanceof Variable)
+                .map(t -> (Variable) t)
+                .collect(ImmutableCollectors.toSet());
+
+        try {
+            AggregationNode aggregationNode = iqFactory.createAggregationNode(groupingVariables,
+                    substitutionFactory.getSubstitution(aggregates));
+            IQTree aggregationTree = iqFactory.createUnaryIQTree(aggregationNode,
+                    convertAtoms(bodyAtoms, tablePredicates, iqFactory));
+
+            IQTree constructionTree = iqFactory.createUnaryIQTree(
+                    iqFactory.createConstructionNode(projectionAtom.getVariables(),
+                            substitutionFactory.getSubstitution(otherBindings)),
+                    aggregationTree);
+
+            IQTree tree = optionalModifiers
+                    .map(m -> m.insertAbove(constructionTree, iqFactory))
+                    .orElse(constructionTree);
+
+            return iqFactory.createIQ(projectionAtom, tree);
+        }
+        catch (IntermediateQueryBuilderException e) {
+            throw new DatalogProgram2QueryConverterImpl.InvalidDatalogProgramException(e.getMessage());
+        }
+    }
+
+    private boolean isTransitiveClosureAtom(Function atom) {
+        return atom.getFunctionSymbol().equals(datalogFactory.getSparqlTransitiveClosurePredicate());
+    }
+
+    /**
+     * Rule of the form ans(s, o) :- body, TransitiveClosure(s, o) (with an optional maximum depth
+     * as third argument of the TransitiveClosure atom)
+     *
+     * The transitive closure is computed over the pairs (s, o) of the body.
+     */
+    private IQ createTransitiveClosureDefinition(TargetAtom targetAtom, Function closureAtom,
+                                                 Optional<ImmutableQueryModifiers> optionalModifiers,
+                                                 Collection<Predicate> tablePredicates, List<Function> bodyAtoms,
+                                                 IntermediateQueryFactory iqFactory)
+            throws DatalogProgram2QueryConverterImpl.InvalidDatalogProgramException {
+
+        DistinctVariableOnlyDataAtom projectionAtom = targetAtom.getProjectionAtom();
+        java.util.List<Term> closureArguments = closureAtom.getTerms();
+
+        if ((closureArguments.size() < 2) || (closureArguments.size() > 3)
+                || (!(closureArguments.get(0) instanceof Variable))
+                || (!(closureArguments.get(1) instanceof Variable))
+                || ((closureArguments.size() == 3) && (!(closureArguments.get(2) instanceof ValueConstant))))
+            throw new DatalogProgram2QueryConverterImpl.InvalidDatalogProgramException(
+                    "Invalid transitive closure atom: " + closureAtom);
+
+        Optional<Integer> maxDepth = (closureArguments.size() == 3)
+                ? Optional.of(Integer.parseInt(((ValueConstant) closureArguments.get(2)).getValue()))
+                : Optional.empty();
+
+        try {
+            TransitiveClosureNode closureNode = iqFactory.createTransitiveClosureNode(
+                    (Variable) closureArguments.get(0), (Variable) closureArguments.get(1), maxDepth);
+            IQTree closureTree = iqFactory.createUnaryIQTree(closureNode,
+                    convertAtoms(bodyAtoms, tablePredicates, iqFactory));
+
+            IQTree constructionTree = iqFactory.createUnaryIQTree(
+                    iqFactory.createConstructionNode(projectionAtom.getVariables(), targetAtom.getSubstitution()),
+                    closureTree);
+
+            IQTree tree = optionalModifiers
+                    .map(m -> m.insertAbove(constructionTree, iqFactory))
+                    .orElse(constructionTree);
+
+            return iqFactory.createIQ(projectionAtom, tree);
+        }
+        catch (IntermediateQueryBuilderException e) {
+            throw new DatalogProgram2QueryConverterImpl.InvalidDatalogProgramException(e.getMessage());
+        }
+    }
+
+    private static boolean isAggregate(ImmutableTerm term) {
+        return (term instanceof ImmutableFunctionalTerm)
+                && (((ImmutableFunctionalTerm) term).getFunctionSymbol() instanceof ExpressionOperation)
+                && ((ExpressionOperation) ((ImmutableFunctionalTerm) term).getFunctionSymbol()).isAggregate();
+    }
+
     private static IQ createFact(ConstructionNode topConstructionNode,
                                  Optional<ImmutableQueryModifiers> optionalModifiers,
                                  DistinctVariableOnlyDataAtom projectionAtom, IntermediateQueryFactory iqFactory) {
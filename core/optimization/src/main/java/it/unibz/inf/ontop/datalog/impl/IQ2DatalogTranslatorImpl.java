@@ -22,6 +22,7 @@ package it.unibz.inf.ontop.datalog.impl;
 
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 import it.unibz.inf.ontop.datalog.*;
@@ -35,6 +36,7 @@ import it.unibz.inf.ontop.model.atom.DataAtom;
 import it.unibz.inf.ontop.model.atom.DistinctVariableOnlyDataAtom;
 import it.unibz.inf.ontop.model.term.*;
 import it.unibz.inf.ontop.model.term.impl.ImmutabilityTools;
+import it.unibz.inf.ontop.model.vocabulary.XSD;
 import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
 import it.unibz.inf.ontop.substitution.SubstitutionFactory;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
@@ -65,11 +67,22 @@ public class IQ2DatalogTranslatorImpl implements IQ2DatalogTranslator {
 		public final ImmutableSubstitution<ImmutableTerm> substitution;
 		public final DataAtom atom;
 		public final Optional<IQTree> optionalChildNode;
+		/**
+		 * Present for the rules that aggregate their body (Group atom)
+		 * or compute its transitive closure (TransitiveClosure atom)
+		 */
+		public final Optional<Function> optionalOperatorAtom;
 
 		private RuleHead(ImmutableSubstitution<ImmutableTerm> substitution, DataAtom atom, Optional<IQTree> optionalChildNode) {
+			this(substitution, atom, optionalChildNode, Optional.empty());
+		}
+
+		private RuleHead(ImmutableSubstitution<ImmutableTerm> substitution, DataAtom atom, Optional<IQTree> optionalChildNode,
+						 Optional<Function> optionalOperatorAtom) {
 			this.atom = atom;
             this.substitution = substitution;
             this.optionalChildNode = optionalChildNode;
+            this.optionalOperatorAtom = optionalOperatorAtom;
         }
 	}
 
@@ -288,6 +301,9 @@ public class IQ2DatalogTranslatorImpl implements IQ2DatalogTranslator {
                 newrule.getBody().addAll(uAtoms);
             });
 
+			head.optionalOperatorAtom
+					.ifPresent(newrule.getBody()::add);
+
 		}
 	}
 
@@ -321,6 +337,59 @@ public class IQ2DatalogTranslatorImpl implements IQ2DatalogTranslator {
 			body.add(mutAt);
 			return body;
 			
+		} else if (node instanceof AggregationNode) {
+			AggregationNode aggregationNode = (AggregationNode) node;
+			DataAtom projectionAtom = Optional.ofNullable(
+					subQueryProjectionAtoms.get(aggregationNode))
+					.orElseGet(() -> generateProjectionAtom(aggregationNode.getVariables()));
+
+			ImmutableSubstitution<ImmutableTerm> aggregates = substitutionFactory.getSubstitution(
+					ImmutableMap.copyOf(aggregationNode.getSubstitution().getImmutableMap()));
+
+			Function groupAtom = termFactory.getFunction(datalogFactory.getSparqlGroupPredicate(),
+					new ArrayList<Term>(aggregationNode.getGroupingVariables()));
+
+			heads.add(new RuleHead(aggregates, projectionAtom, Optional.of(((UnaryIQTree)tree).getChild()),
+					Optional.of(groupAtom)));
+			subQueryProjectionAtoms.put(aggregationNode, projectionAtom);
+			body.add(immutabilityTools.convertToMutableFunction(projectionAtom));
+			return body;
+
+		} else if (node instanceof TransitiveClosureNode) {
+			TransitiveClosureNode closureNode = (TransitiveClosureNode) node;
+			DataAtom projectionAtom = Optional.ofNullable(
+					subQueryProjectionAtoms.get(closureNode))
+					.orElseGet(() -> generateProjectionAtom(closureNode.getVariables()));
+
+			List<Term> closureArguments = new ArrayList<>();
+			closureArguments.add(closureNode.getSourceVariable());
+			closureArguments.add(closureNode.getTargetVariable());
+			closureNode.getMaxDepth()
+					.map(d -> termFactory.getConstantLiteral(String.valueOf(d), XSD.INTEGER))
+					.ifPresent(closureArguments::add);
+			Function closureAtom = termFactory.getFunction(datalogFactory.getSparqlTransitiveClosurePredicate(),
+					closureArguments);
+
+			heads.add(new RuleHead(substitutionFactory.getSubstitution(), projectionAtom,
+					Optional.of(((UnaryIQTree)tree).getChild()), Optional.of(closureAtom)));
+			subQueryProjectionAtoms.put(closureNode, projectionAtom);
+			body.add(immutabilityTools.convertToMutableFunction(projectionAtom));
+			return body;
+
+		/*
+		 * Nested DISTINCT (the top one is a query modifier): grouping by all the projected variables
+		 */
+		} else if (node instanceof DistinctNode) {
+			DataAtom projectionAtom = generateProjectionAtom(tree.getVariables());
+
+			Function groupAtom = termFactory.getFunction(datalogFactory.getSparqlGroupPredicate(),
+					new ArrayList<Term>(tree.getVariables()));
+
+			heads.add(new RuleHead(substitutionFactory.getSubstitution(), projectionAtom,
+					Optional.of(((UnaryIQTree)tree).getChild()), Optional.of(groupAtom)));
+			body.add(immutabilityTools.convertToMutableFunction(projectionAtom));
+			return body;
+
 		} else if (node instanceof FilterNode) {
 			ImmutableExpression filter = ((FilterNode) node).getFilterCondition();
 			List<IQTree> children =  tree.getChildren();
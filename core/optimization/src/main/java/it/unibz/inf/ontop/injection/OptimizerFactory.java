@@ -1,9 +1,16 @@
 package it.unibz.inf.ontop.injection;
 
 import it.unibz.inf.ontop.iq.transformer.ExplicitEqualityTransformer;
+import it.unibz.inf.ontop.iq.transformer.TransitiveClosureUnroller;
 import it.unibz.inf.ontop.utils.VariableGenerator;
 
 public interface OptimizerFactory {
 
     ExplicitEqualityTransformer createEETransformer(VariableGenerator variableGenerator);
+
+    /**
+     * defaultMaxDepth: for the transitive closures without maximal depth
+     */
+    TransitiveClosureUnroller createTransitiveClosureUnroller(VariableGenerator variableGenerator,
+                                                              int defaultMaxDepth);
 }
@@ -22,6 +22,7 @@ import it.unibz.inf.ontop.iq.executor.union.UnionLiftExecutor;
 import it.unibz.inf.ontop.iq.optimizer.*;
 import it.unibz.inf.ontop.iq.tools.UnionBasedQueryMerger;
 import it.unibz.inf.ontop.iq.transformer.ExplicitEqualityTransformer;
+import it.unibz.inf.ontop.iq.transformer.TransitiveClosureUnroller;
 
 public class OntopOptimizationModule extends OntopAbstractModule {
 
@@ -62,7 +63,8 @@ public class OntopOptimizationModule extends OntopAbstractModule {
         bindFromSettings(PushUpBooleanExpressionOptimizer.class);
 
         Module optimizerModule = buildFactory(ImmutableList.of(
-                ExplicitEqualityTransformer.class),
+                ExplicitEqualityTransformer.class,
+                TransitiveClosureUnroller.class),
                 OptimizerFactory.class);
         install(optimizerModule);
         // Releases the configuration (enables some GC)
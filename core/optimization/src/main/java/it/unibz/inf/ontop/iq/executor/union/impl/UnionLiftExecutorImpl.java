@@ -4,6 +4,7 @@ import com.google.inject.Inject;
 import it.unibz.inf.ontop.iq.executor.union.UnionLiftExecutor;
 import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
 import it.unibz.inf.ontop.iq.IntermediateQuery;
+import it.unibz.inf.ontop.iq.node.AggregationNode;
 import it.unibz.inf.ontop.iq.node.LeftJoinNode;
 import it.unibz.inf.ontop.iq.node.BinaryOrderedOperatorNode.ArgumentPosition;
 import it.unibz.inf.ontop.iq.node.QueryNode;
@@ -59,6 +60,29 @@ public class UnionLiftExecutorImpl implements UnionLiftExecutor {
         else if (!query.hasAncestor(focusNode, targetNode)) {
             throw new InvalidQueryOptimizationProposalException("The focus must be a descendant of the target node");
         }
+
+        if (isCrossingAnAggregation(focusNode, targetNode, query)) {
+            throw new InvalidQueryOptimizationProposalException("Lifting a UNION above an aggregation is not allowed " +
+                    "(it would split the groups)");
+        }
+    }
+
+    /**
+     * The target node is included
+     */
+    private boolean isCrossingAnAggregation(UnionNode focusNode, QueryNode targetNode, IntermediateQuery query) {
+        // Non-final
+        Optional<QueryNode> optionalCurrentAncestor = query.getParent(focusNode);
+
+        while (optionalCurrentAncestor.isPresent()) {
+            QueryNode currentAncestor = optionalCurrentAncestor.get();
+            if (currentAncestor instanceof AggregationNode)
+                return true;
+            if (currentAncestor == targetNode)
+                return false;
+            optionalCurrentAncestor = query.getParent(currentAncestor);
+        }
+        return false;
     }
 
     private ArgumentPosition getDescendantPosition(LeftJoinNode ancestorNode, QueryNode descendantNode, IntermediateQuery query)
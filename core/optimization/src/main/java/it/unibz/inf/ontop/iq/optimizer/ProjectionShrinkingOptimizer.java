@@ -47,6 +47,13 @@ public class ProjectionShrinkingOptimizer implements IntermediateQueryOptimizer
             retainedVariables = updateRetainedVariables((JoinOrFilterNode) focusNode, query, retainedVariables);
         } else if (focusNode instanceof ConstructionNode) {
             retainedVariables = updateRetainedVariables((ConstructionNode) focusNode);
+        } else if (focusNode instanceof AggregationNode) {
+            /*
+              The grouping variables and the arguments of the aggregates
+             */
+            retainedVariables = ((AggregationNode) focusNode).getChildVariables();
+        } else if (focusNode instanceof TransitiveClosureNode) {
+            retainedVariables = ((TransitiveClosureNode) focusNode).getVariables();
         }
 
 
@@ -322,7 +322,7 @@ public class PushDownBooleanExpressionOptimizerImpl implements PushDownBooleanEx
             return Stream.of(findPushInConstructionNodeRootedSubtree(query, expression, (ConstructionNode) subtreeRoot));
         }
         /*
-         * for GroupNodes only (not supported yet) ?
+         * E.g. aggregation nodes: the expression is not pushed below them
          */
         else {
             return findPushesInUnexpectedNodeRootedSubtree(query, expression, providerNode, subtreeRoot);
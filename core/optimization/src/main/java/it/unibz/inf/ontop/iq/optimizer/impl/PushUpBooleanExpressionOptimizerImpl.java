@@ -181,6 +181,14 @@ public class PushUpBooleanExpressionOptimizerImpl implements PushUpBooleanExpres
                 }
                 break;
             }
+            if (currentParentNode instanceof AggregationNode) {
+                /* the expression must be evaluated before grouping */
+                break;
+            }
+            if (currentParentNode instanceof TransitiveClosureNode) {
+                /* the expression must be evaluated before computing the closure */
+                break;
+            }
             if (currentParentNode instanceof LeftJoinNode &&
                     (query.getOptionalPosition(currentChildNode)
                             .orElseThrow(() -> new InvalidIntermediateQueryException("The child of a LeftJoin node must have a position"))
@@ -207,7 +215,7 @@ public class PushUpBooleanExpressionOptimizerImpl implements PushUpBooleanExpres
             return Optional.empty();
         }
 
-        // if we reach this point, the upward propagation up must have been blocked by a union or by the root
+        // if we reach this point, the upward propagation up must have been blocked by a union, an aggregation or by the root
 
         recipient = currentChildNode instanceof CommutativeJoinOrFilterNode ?
                 Optional.of((CommutativeJoinOrFilterNode) currentChildNode) :
@@ -0,0 +1,15 @@
+package it.unibz.inf.ontop.iq.transformer;
+
+import it.unibz.inf.ontop.iq.transform.IQTreeTransformer;
+
+/**
+ * Replaces the transitive closures by the distinct union of their paths of length 1 to the maximal depth
+ * (chains of joined copies of the child).
+ *
+ * For the translations that cannot express the recursion.
+ *
+ * The transitive closures without maximal depth are unrolled up to the default maximal depth
+ * given to the factory. As the longer paths are lost, a warning is logged.
+ */
+public interface TransitiveClosureUnroller extends IQTreeTransformer {
+}
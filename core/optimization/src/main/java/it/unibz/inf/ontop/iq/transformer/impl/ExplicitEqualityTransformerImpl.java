@@ -380,7 +380,7 @@ public class ExplicitEqualityTransformerImpl implements ExplicitEqualityTransfor
     /**
      * - Default behavior: for each child, deletes its root if it is a substitution-free construction node (i.e. a simple projection),
      * and lift the projection if needed
-     * - Distinct or slice nodes: does not apply
+     * - Distinct, slice, aggregation or transitive closure nodes: does not apply
      */
     class CnLifter extends DefaultNonRecursiveIQTreeTransformer {
 
@@ -394,6 +394,16 @@ public class ExplicitEqualityTransformerImpl implements ExplicitEqualityTransfor
             return tree;
         }
 
+        @Override
+        public IQTree transformAggregation(IQTree tree, AggregationNode rootNode, IQTree child) {
+            return tree;
+        }
+
+        @Override
+        public IQTree transformTransitiveClosure(IQTree tree, TransitiveClosureNode rootNode, IQTree child) {
+            return tree;
+        }
+
         @Override
         public IQTree transformUnaryNode(IQTree tree, UnaryOperatorNode rootNode, IQTree child) {
             ImmutableList<ConstructionNode> idleCns = getIdleCns(Stream.of(child));
@@ -0,0 +1,124 @@
+package it.unibz.inf.ontop.iq.transformer.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.assistedinject.Assisted;
+import com.google.inject.assistedinject.AssistedInject;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.impl.QueryNodeRenamer;
+import it.unibz.inf.ontop.iq.node.TransitiveClosureNode;
+import it.unibz.inf.ontop.iq.transform.impl.DefaultRecursiveIQTreeVisitingTransformer;
+import it.unibz.inf.ontop.iq.transform.impl.HomogeneousIQTreeVisitingTransformer;
+import it.unibz.inf.ontop.iq.transformer.TransitiveClosureUnroller;
+import it.unibz.inf.ontop.model.atom.AtomFactory;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.substitution.InjectiveVar2VarSubstitution;
+import it.unibz.inf.ontop.substitution.SubstitutionFactory;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import it.unibz.inf.ontop.utils.VariableGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+public class TransitiveClosureUnrollerImpl implements TransitiveClosureUnroller {
+
+    private static final Logger log = LoggerFactory.getLogger(TransitiveClosureUnrollerImpl.class);
+
+    private final VariableGenerator variableGenerator;
+    private final int defaultMaxDepth;
+    private final IntermediateQueryFactory iqFactory;
+    private final AtomFactory atomFactory;
+    private final SubstitutionFactory substitutionFactory;
+    private final Unroller unroller;
+
+    @AssistedInject
+    public TransitiveClosureUnrollerImpl(@Assisted VariableGenerator variableGenerator,
+                                         @Assisted int defaultMaxDepth,
+                                         IntermediateQueryFactory iqFactory,
+                                         AtomFactory atomFactory,
+                                         SubstitutionFactory substitutionFactory) {
+        this.variableGenerator = variableGenerator;
+        this.defaultMaxDepth = defaultMaxDepth;
+        this.iqFactory = iqFactory;
+        this.atomFactory = atomFactory;
+        this.substitutionFactory = substitutionFactory;
+        this.unroller = new Unroller();
+    }
+
+    @Override
+    public IQTree transform(IQTree tree) {
+        return tree.acceptTransformer(unroller);
+    }
+
+    private class Unroller extends DefaultRecursiveIQTreeVisitingTransformer {
+
+        Unroller() {
+            super(TransitiveClosureUnrollerImpl.this.iqFactory);
+        }
+
+        @Override
+        public IQTree transformTransitiveClosure(IQTree tree, TransitiveClosureNode rootNode, IQTree child) {
+            int maxDepth = rootNode.getMaxDepth()
+                    .orElse(defaultMaxDepth);
+            log.warn("Transitive closure unrolled up to depth {}: the longer paths are ignored and the answers "
+                    + "may be incomplete ({})", maxDepth, rootNode);
+
+            IQTree newChild = child.acceptTransformer(this);
+            ImmutableList<IQTree> paths = IntStream.rangeClosed(1, maxDepth)
+                    .mapToObj(length -> createPath(rootNode, newChild, length))
+                    .collect(ImmutableCollectors.toList());
+
+            IQTree union = paths.size() == 1
+                    ? paths.get(0)
+                    : iqFactory.createNaryIQTree(iqFactory.createUnionNode(rootNode.getVariables()), paths);
+
+            // Several paths may connect the same pair
+            return iqFactory.createUnaryIQTree(iqFactory.createDistinctNode(), union);
+        }
+
+        /**
+         * Joins copies of the step relation, the target of each copy being the source of the next one.
+         * All the other variables of the copies are fresh.
+         */
+        private IQTree createPath(TransitiveClosureNode rootNode, IQTree step, int length) {
+            Variable source = rootNode.getSourceVariable();
+            Variable target = rootNode.getTargetVariable();
+
+            ImmutableList<Variable> nodes = IntStream.rangeClosed(0, length)
+                    .mapToObj(i -> i == 0
+                            ? source
+                            : i == length ? target : variableGenerator.generateNewVariableFromVar(target))
+                    .collect(ImmutableCollectors.toList());
+
+            ImmutableList<IQTree> copies = IntStream.range(0, length)
+                    .mapToObj(i -> (length == 1) ? step : renameStep(step, source, target, nodes.get(i), nodes.get(i + 1)))
+                    .collect(ImmutableCollectors.toList());
+
+            IQTree join = copies.size() == 1
+                    ? copies.get(0)
+                    : iqFactory.createNaryIQTree(iqFactory.createInnerJoinNode(), copies);
+
+            ImmutableSet<Variable> projectedVariables = rootNode.getVariables();
+            return join.getVariables().equals(projectedVariables)
+                    ? join
+                    : iqFactory.createUnaryIQTree(iqFactory.createConstructionNode(projectedVariables), join);
+        }
+
+        private IQTree renameStep(IQTree step, Variable source, Variable target, Variable newSource, Variable newTarget) {
+            Map<Variable, Variable> renamingMap = new HashMap<>();
+            for (Variable variable : step.getKnownVariables())
+                renamingMap.put(variable, variableGenerator.generateNewVariableFromVar(variable));
+            renamingMap.put(source, newSource);
+            renamingMap.put(target, newTarget);
+            renamingMap.entrySet().removeIf(e -> e.getKey().equals(e.getValue()));
+
+            InjectiveVar2VarSubstitution renaming = substitutionFactory.getInjectiveVar2VarSubstitution(renamingMap);
+            return step.acceptTransformer(new HomogeneousIQTreeVisitingTransformer(
+                    new QueryNodeRenamer(iqFactory, renaming, atomFactory), iqFactory));
+        }
+    }
+}
@@ -2,6 +2,7 @@ package it.unibz.inf.ontop.iq.executor;
 
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import it.unibz.inf.ontop.iq.exception.EmptyQueryException;
 import it.unibz.inf.ontop.iq.node.*;
@@ -12,6 +13,7 @@ import it.unibz.inf.ontop.iq.exception.InvalidQueryOptimizationProposalException
 import it.unibz.inf.ontop.iq.proposal.NodeCentricOptimizationResults;
 import it.unibz.inf.ontop.iq.proposal.impl.UnionLiftProposalImpl;
 import it.unibz.inf.ontop.model.atom.AtomPredicate;
+import it.unibz.inf.ontop.model.term.functionsymbol.ExpressionOperation;
 import it.unibz.inf.ontop.model.term.functionsymbol.URITemplatePredicate;
 import it.unibz.inf.ontop.model.term.Constant;
 import it.unibz.inf.ontop.model.term.ImmutableFunctionalTerm;
@@ -818,6 +820,39 @@ public class UnionLiftInternalTest {
 
     }
 
+    /**
+     * Lifting the union above the aggregation would split the groups
+     */
+    @Test(expected = InvalidQueryOptimizationProposalException.class)
+    public void unionLiftAboveAggregation() throws EmptyQueryException {
+
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(
+                P2_PREDICATE, ImmutableList.of(A, C));
+
+        IntermediateQueryBuilder originalBuilder = createQueryBuilder(DB_METADATA);
+
+        ConstructionNode rootConstructionNode = IQ_FACTORY.createConstructionNode(projectionAtom.getVariables());
+        AggregationNode aggregationNode = IQ_FACTORY.createAggregationNode(ImmutableSet.of(A),
+                SUBSTITUTION_FACTORY.getSubstitution(ImmutableMap.<Variable, ImmutableFunctionalTerm>of(
+                        C, TERM_FACTORY.getImmutableExpression(ExpressionOperation.COUNT, B))));
+        UnionNode unionNode = IQ_FACTORY.createUnionNode(ImmutableSet.of(A, B));
+
+        ExtensionalDataNode table1DataNode = IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE1_AR2, A, B));
+        ExtensionalDataNode table2DataNode = IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE2_AR2, A, B));
+
+        originalBuilder.init(projectionAtom, rootConstructionNode);
+        originalBuilder.addChild(rootConstructionNode, aggregationNode);
+        originalBuilder.addChild(aggregationNode, unionNode);
+        originalBuilder.addChild(unionNode, table1DataNode);
+        originalBuilder.addChild(unionNode, table2DataNode);
+
+        IntermediateQuery query = originalBuilder.build();
+
+        System.out.println("\n Original query: \n" +  query);
+
+        query.applyProposal(new UnionLiftProposalImpl(unionNode, rootConstructionNode));
+    }
+
     private static ImmutableFunctionalTerm generateURI1(VariableOrGroundTerm argument) {
         return TERM_FACTORY.getImmutableUriTemplate(URI_TEMPLATE_STR_1, argument);
     }
@@ -24,6 +24,7 @@ import static it.unibz.inf.ontop.iq.node.BinaryOrderedOperatorNode.ArgumentPosit
 import static it.unibz.inf.ontop.iq.node.BinaryOrderedOperatorNode.ArgumentPosition.RIGHT;
 import static it.unibz.inf.ontop.model.term.functionsymbol.ExpressionOperation.*;
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
 
 import static it.unibz.inf.ontop.OptimizationTestingTools.*;
@@ -2233,6 +2234,134 @@ public class BindingLiftTest {
         optimizeAndCompare(initialIQ, expectedIQ);
     }
 
+    @Test
+    public void testAggregationGroupingURITemplate() {
+        ExtensionalDataNode dataNode = buildExtensionalDataNode(TABLE1_AR2, A, B);
+
+        UnaryIQTree childTree = IQ_FACTORY.createUnaryIQTree(
+                IQ_FACTORY.createConstructionNode(ImmutableSet.of(X, B),
+                        SUBSTITUTION_FACTORY.getSubstitution(X, generateURI1(A))),
+                dataNode);
+
+        ImmutableSubstitution<ImmutableFunctionalTerm> countSubstitution = SUBSTITUTION_FACTORY.getSubstitution(
+                ImmutableMap.<Variable, ImmutableFunctionalTerm>of(C, TERM_FACTORY.getImmutableExpression(COUNT, B)));
+
+        UnaryIQTree aggregationTree = IQ_FACTORY.createUnaryIQTree(
+                IQ_FACTORY.createAggregationNode(ImmutableSet.of(X), countSubstitution),
+                childTree);
+
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(ANS1_ARITY_2_PREDICATE, X, C);
+        IQ initialIQ = IQ_FACTORY.createIQ(projectionAtom, aggregationTree);
+
+        // Expected: the URI template is lifted, the grouping is done on its argument
+        UnaryIQTree newAggregationTree = IQ_FACTORY.createUnaryIQTree(
+                IQ_FACTORY.createAggregationNode(ImmutableSet.of(A), countSubstitution),
+                dataNode);
+
+        ConstructionNode newRootNode = IQ_FACTORY.createConstructionNode(projectionAtom.getVariables(),
+                SUBSTITUTION_FACTORY.getSubstitution(X, generateURI1(A)));
+
+        IQ expectedIQ = IQ_FACTORY.createIQ(projectionAtom, IQ_FACTORY.createUnaryIQTree(newRootNode, newAggregationTree));
+
+        optimizeAndCompare(initialIQ, expectedIQ);
+    }
+
+    @Test
+    public void testAggregationWithoutGroupingOverEmpty() {
+        ImmutableSubstitution<ImmutableFunctionalTerm> countSubstitution = SUBSTITUTION_FACTORY.getSubstitution(
+                ImmutableMap.<Variable, ImmutableFunctionalTerm>of(C, TERM_FACTORY.getImmutableExpression(COUNT, B)));
+
+        UnaryIQTree aggregationTree = IQ_FACTORY.createUnaryIQTree(
+                IQ_FACTORY.createAggregationNode(ImmutableSet.of(), countSubstitution),
+                IQ_FACTORY.createEmptyNode(ImmutableSet.of(A, B)));
+
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(ANS1_ARITY_1_PREDICATE, C);
+        IQ initialIQ = IQ_FACTORY.createIQ(projectionAtom, aggregationTree);
+
+        // Expected: one tuple, with a count of 0
+        ConstructionNode newRootNode = IQ_FACTORY.createConstructionNode(projectionAtom.getVariables(),
+                SUBSTITUTION_FACTORY.getSubstitution(C, TERM_FACTORY.getConstantLiteral("0", XSD.INTEGER)));
+
+        IQ expectedIQ = IQ_FACTORY.createIQ(projectionAtom,
+                IQ_FACTORY.createUnaryIQTree(newRootNode, IQ_FACTORY.createTrueNode()));
+
+        optimizeAndCompare(initialIQ, expectedIQ);
+    }
+
+    @Test
+    public void testAggregationWithGroupingOverEmpty() {
+        ImmutableSubstitution<ImmutableFunctionalTerm> countSubstitution = SUBSTITUTION_FACTORY.getSubstitution(
+                ImmutableMap.<Variable, ImmutableFunctionalTerm>of(C, TERM_FACTORY.getImmutableExpression(COUNT, B)));
+
+        UnaryIQTree aggregationTree = IQ_FACTORY.createUnaryIQTree(
+                IQ_FACTORY.createAggregationNode(ImmutableSet.of(A), countSubstitution),
+                IQ_FACTORY.createEmptyNode(ImmutableSet.of(A, B)));
+
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(ANS1_ARITY_2_PREDICATE, A, C);
+        IQ initialIQ = IQ_FACTORY.createIQ(projectionAtom, aggregationTree);
+
+        // Expected: no group, no tuple
+        IQ expectedIQ = IQ_FACTORY.createIQ(projectionAtom, IQ_FACTORY.createEmptyNode(ImmutableSet.of(A, C)));
+
+        optimizeAndCompare(initialIQ, expectedIQ);
+    }
+
+    /**
+     * The union must stay below the aggregation (lifting it would split the groups)
+     */
+    @Test
+    public void testNoUnionLiftAboveAggregation() {
+        UnaryIQTree child1 = IQ_FACTORY.createUnaryIQTree(
+                IQ_FACTORY.createConstructionNode(ImmutableSet.of(X, B),
+                        SUBSTITUTION_FACTORY.getSubstitution(X, generateURI1(A))),
+                buildExtensionalDataNode(TABLE1_AR2, A, B));
+        UnaryIQTree child2 = IQ_FACTORY.createUnaryIQTree(
+                IQ_FACTORY.createConstructionNode(ImmutableSet.of(X, B),
+                        SUBSTITUTION_FACTORY.getSubstitution(X, generateURI2(A))),
+                buildExtensionalDataNode(TABLE2_AR2, A, B));
+
+        NaryIQTree unionTree = IQ_FACTORY.createNaryIQTree(IQ_FACTORY.createUnionNode(ImmutableSet.of(X, B)),
+                ImmutableList.of(child1, child2));
+
+        UnaryIQTree aggregationTree = IQ_FACTORY.createUnaryIQTree(
+                IQ_FACTORY.createAggregationNode(ImmutableSet.of(X), SUBSTITUTION_FACTORY.getSubstitution(
+                        ImmutableMap.<Variable, ImmutableFunctionalTerm>of(C, TERM_FACTORY.getImmutableExpression(COUNT, B)))),
+                unionTree);
+
+        // Joined on the grouping variable, so that the join tries to lift the incompatible definitions of x
+        UnaryIQTree otherTree = IQ_FACTORY.createUnaryIQTree(
+                IQ_FACTORY.createConstructionNode(ImmutableSet.of(X, D),
+                        SUBSTITUTION_FACTORY.getSubstitution(X, generateURI1(E))),
+                buildExtensionalDataNode(TABLE3_AR2, E, D));
+
+        NaryIQTree joinTree = IQ_FACTORY.createNaryIQTree(IQ_FACTORY.createInnerJoinNode(),
+                ImmutableList.of(aggregationTree, otherTree));
+
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(
+                ANS1_ARITY_3_PREDICATE, X, C, D);
+        IQ initialIQ = IQ_FACTORY.createIQ(projectionAtom, IQ_FACTORY.createUnaryIQTree(
+                IQ_FACTORY.createConstructionNode(projectionAtom.getVariables()), joinTree));
+
+        IQ optimizedIQ = UNION_AND_BINDING_LIFT_OPTIMIZER.optimize(initialIQ);
+        System.out.println("\n Optimized query: \n" +  optimizedIQ);
+
+        assertTrue(hasAggregation(optimizedIQ.getTree()));
+        assertFalse(hasUnionOutsideAggregation(optimizedIQ.getTree()));
+    }
+
+    private static boolean hasAggregation(IQTree tree) {
+        return (tree.getRootNode() instanceof AggregationNode)
+                || tree.getChildren().stream().anyMatch(BindingLiftTest::hasAggregation);
+    }
+
+    private static boolean hasUnionOutsideAggregation(IQTree tree) {
+        QueryNode rootNode = tree.getRootNode();
+        if (rootNode instanceof AggregationNode)
+            return false;
+        return (rootNode instanceof UnionNode)
+                || tree.getChildren().stream().anyMatch(BindingLiftTest::hasUnionOutsideAggregation);
+    }
+
     private static ImmutableFunctionalTerm generateIfIsNotNullElseNull(Variable rightSpecificVariable,
                                                                        ImmutableTerm conditionalValue) {
         return TERM_FACTORY.getImmutableExpression(IF_ELSE_NULL,
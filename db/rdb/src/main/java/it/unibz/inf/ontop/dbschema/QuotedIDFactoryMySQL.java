@@ -50,6 +50,10 @@ public class QuotedIDFactoryMySQL implements QuotedIDFactory {
 		this.caseSensitiveTableNames = caseSensitiveTableNames;
 	}
 
+	boolean areTableNamesCaseSensitive() {
+		return caseSensitiveTableNames;
+	}
+
 	@Override
 	public QuotedID createAttributeID(String s) {
 		if (s == null)
@@ -26,8 +26,11 @@ import it.unibz.inf.ontop.model.type.TypeFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
 
 /**
  * Retrieves the database metadata (table schema and database constraints)
@@ -105,6 +108,11 @@ public class RDBMetadataExtractionTools {
 
 	private static Logger log = LoggerFactory.getLogger(RDBMetadataExtractionTools.class);
 
+	/**
+	 * Minimal number of relations in a schema for using schema-wide calls in the bulk extraction mode
+	 */
+	private static final int BULK_EXTRACTION_THRESHOLD = 20;
+
 	/**
 	 * Creates database metadata description (but does not load metadata)
 	 *
@@ -182,6 +190,25 @@ public class RDBMetadataExtractionTools {
 	 */
 
 	public static void loadMetadata(RDBMetadata metadata, Connection conn, Set<RelationID> realTables) throws SQLException {
+		loadMetadata(metadata, conn, realTables, false, 1, null);
+	}
+
+	/**
+	 * Same as above, with the following options:
+	 *
+	 * bulkExtraction: for schemas with many relations, retrieves the columns with one call per schema
+	 *    and the keys and foreign keys with one dialect-specific catalog query per schema
+	 *    (PostgreSQL, Oracle, MS SQL Server, DB2, MySQL and H2). Falls back to per-table calls
+	 *    if a catalog query fails.
+	 *
+	 * numberOfConnections: per-table calls are distributed over that many connections
+	 *    (the given one and additional connections created by the connectionFactory, closed at the end).
+	 *    The metadata object itself is only modified by the calling thread.
+	 */
+
+	public static void loadMetadata(RDBMetadata metadata, Connection conn, Set<RelationID> realTables,
+									boolean bulkExtraction, int numberOfConnections,
+									@Nullable ConnectionFactory connectionFactory) throws SQLException {
 
 		if (printouts)
 			System.out.println("GETTING METADATA WITH " + conn + " ON " + realTables);
@@ -218,64 +245,102 @@ public class RDBMetadataExtractionTools {
 				seedRelationIds = getTableList(null, realTables, idfac);
 		}
 
-		DatatypeNormalizer dt = DefaultTypeFixer;
-		if (productName.contains("Oracle"))
-			dt = OracleTypeFixer;
-		else if (productName.contains("MySQL"))
-			dt = MySQLTypeFixer;
-		else if (productName.contains("Microsoft SQL Server"))
-			dt = SQLServerTypeFixer;
-
-		List<DatabaseRelationDefinition> extractedRelations = new LinkedList<>();
-
-        String catalog = getCatalog(metadata, conn);
-
-        for (RelationID seedId : seedRelationIds) {
-			// the same seedId can be mapped to many tables (if the seedId has no schema)
-			// we collect attributes from all of them
-			DatabaseRelationDefinition currentRelation = null;
-
-			// catalog is ignored for now (rs.getString("TABLE_CAT"))
-            try (ResultSet rs = md.getColumns(catalog, seedId.getSchemaName(), seedId.getTableName(), null)) {
-				while (rs.next()) {
-					String schema = rs.getString("TABLE_SCHEM");
-					// MySQL workaround
-					if (schema == null)
-						schema = rs.getString("TABLE_CAT");
-
-					RelationID relationId = RelationID.createRelationIdFromDatabaseRecord(idfac, schema,
-										rs.getString("TABLE_NAME"));
-					QuotedID attributeId = QuotedID.createIdFromDatabaseRecord(idfac, rs.getString("COLUMN_NAME"));
-					if (printouts)
-						System.out.println("         " + relationId + "." + attributeId);
-
-					if (currentRelation == null || !currentRelation.getID().equals(relationId)) {
-						// switch to the next database relation
-						currentRelation = metadata.createDatabaseRelation(relationId);
-						extractedRelations.add(currentRelation);
-					}
+		DatatypeNormalizer dt = getDatatypeNormalizer(productName);
+
+		String catalog = getCatalog(metadata, conn);
+
+		try (MetadataConnectionPool pool = new MetadataConnectionPool(conn, numberOfConnections, connectionFactory)) {
+
+			// seed -> (relation -> columns)
+			Map<RelationID, Map<RelationID, List<ColumnRecord>>> columns = new HashMap<>();
+			List<RelationID> remainingSeeds = new ArrayList<>();
 
-					// columnNoNulls, columnNullable, columnNullableUnknown
-					boolean isNullable = rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls;
-					String typeName = rs.getString("TYPE_NAME");
-					int dataType = dt.getCorrectedDatatype(rs.getInt("DATA_TYPE"), typeName);
+			if (bulkExtraction) {
+				Map<Optional<String>, List<RelationID>> seedsPerSchema = seedRelationIds.stream()
+						.collect(Collectors.groupingBy(s -> Optional.ofNullable(s.getSchemaName()),
+								LinkedHashMap::new, Collectors.toList()));
 
-					currentRelation.addAttribute(attributeId, dataType, typeName, isNullable);
+				for (Map.Entry<Optional<String>, List<RelationID>> e : seedsPerSchema.entrySet()) {
+					// without schema nor catalog, a schema-wide call would retrieve the columns of the whole database
+					if ((e.getValue().size() >= BULK_EXTRACTION_THRESHOLD) && (e.getKey().isPresent() || catalog != null))
+						columns.putAll(getSchemaColumns(md, catalog, e.getKey().orElse(null), e.getValue(), idfac, dt));
+					else
+						remainingSeeds.addAll(e.getValue());
+				}
+			}
+			else
+				remainingSeeds.addAll(seedRelationIds);
+
+			List<Map<RelationID, List<ColumnRecord>>> perTableColumns = pool.map(remainingSeeds,
+					(c, seedId) -> getColumns(c.getMetaData(), catalog, seedId, idfac, dt));
+			for (int i = 0; i < remainingSeeds.size(); i++)
+				columns.put(remainingSeeds.get(i), perTableColumns.get(i));
+
+			List<DatabaseRelationDefinition> extractedRelations = new ArrayList<>();
+			for (RelationID seedId : seedRelationIds) {
+				// the same seedId can be mapped to many tables (if the seedId has no schema)
+				// we collect attributes from all of them
+				for (Map.Entry<RelationID, List<ColumnRecord>> e : columns.get(seedId).entrySet()) {
+					DatabaseRelationDefinition relation = metadata.createDatabaseRelation(e.getKey());
+					extractedRelations.add(relation);
+					for (ColumnRecord column : e.getValue()) {
+						if (printouts)
+							System.out.println("         " + relation.getID() + "." + column.attributeId);
+						relation.addAttribute(column.attributeId, column.dataType, column.typeName, column.isNullable);
+					}
 				}
 			}
-		}
 
-		for (DatabaseRelationDefinition relation : extractedRelations)	{
-			getPrimaryKey(md, relation, metadata.getQuotedIDFactory());
-			getUniqueAttributes(md, relation, metadata.getQuotedIDFactory());
-			getForeignKeys(md, relation, metadata);
-			if (printouts) {
-				System.out.println(relation + ";");
-				for (UniqueConstraint uc : relation.getUniqueConstraints())
-					System.out.println(uc + ";");
-				for (ForeignKeyConstraint fk : relation.getForeignKeys())
-					System.out.println(fk +  ";");
-				System.out.println("");
+			Map<RelationID, RelationConstraints> constraints = new HashMap<>();
+			List<RelationID> remainingRelations = new ArrayList<>();
+
+			Optional<CatalogQueries> catalogQueries = bulkExtraction
+					? getCatalogQueries(productName)
+					: Optional.empty();
+
+			if (catalogQueries.isPresent()) {
+				Map<Optional<String>, List<RelationID>> relationsPerSchema = extractedRelations.stream()
+						.map(DatabaseRelationDefinition::getID)
+						.collect(Collectors.groupingBy(id -> Optional.ofNullable(id.getSchemaName()),
+								LinkedHashMap::new, Collectors.toList()));
+
+				for (Map.Entry<Optional<String>, List<RelationID>> e : relationsPerSchema.entrySet()) {
+					Optional<Map<RelationID, RelationConstraints>> schemaConstraints =
+							(e.getValue().size() >= BULK_EXTRACTION_THRESHOLD) && e.getKey().isPresent()
+									? getSchemaConstraints(conn, catalogQueries.get(), e.getKey().get(), e.getValue(), idfac)
+									: Optional.empty();
+
+					if (schemaConstraints.isPresent())
+						constraints.putAll(schemaConstraints.get());
+					else
+						remainingRelations.addAll(e.getValue());
+				}
+			}
+			else
+				extractedRelations.forEach(r -> remainingRelations.add(r.getID()));
+
+			List<RelationConstraints> perTableConstraints = pool.map(remainingRelations,
+					(c, id) -> getConstraints(c.getMetaData(), id, idfac));
+			for (int i = 0; i < remainingRelations.size(); i++)
+				constraints.put(remainingRelations.get(i), perTableConstraints.get(i));
+
+			for (DatabaseRelationDefinition relation : extractedRelations) {
+				RelationConstraints relationConstraints = constraints.get(relation.getID());
+				// the primary key goes first (the unique index created for it is then ignored)
+				relationConstraints.primaryKey.ifPresent(pk -> insertUniqueConstraint(relation, idfac, pk));
+				for (KeyDescription uc : relationConstraints.uniqueConstraints)
+					insertUniqueConstraint(relation, idfac, uc);
+				for (ForeignKeyDescription fk : relationConstraints.foreignKeys)
+					insertForeignKey(relation, metadata, idfac, fk);
+
+				if (printouts) {
+					System.out.println(relation + ";");
+					for (UniqueConstraint uc : relation.getUniqueConstraints())
+						System.out.println(uc + ";");
+					for (ForeignKeyConstraint fk : relation.getForeignKeys())
+						System.out.println(fk +  ";");
+					System.out.println("");
+				}
 			}
 		}
 
@@ -285,6 +350,82 @@ public class RDBMetadataExtractionTools {
 		}
 	}
 
+	private static DatatypeNormalizer getDatatypeNormalizer(String productName) {
+		if (productName.contains("Oracle"))
+			return OracleTypeFixer;
+		else if (productName.contains("MySQL"))
+			return MySQLTypeFixer;
+		else if (productName.contains("Microsoft SQL Server"))
+			return SQLServerTypeFixer;
+		return DefaultTypeFixer;
+	}
+
+	/**
+	 * Columns of the relations matching the seed (the catalog is ignored for now)
+	 */
+	private static Map<RelationID, List<ColumnRecord>> getColumns(DatabaseMetaData md, String catalog, RelationID seedId,
+																  QuotedIDFactory idfac, DatatypeNormalizer dt) throws SQLException {
+		Map<RelationID, List<ColumnRecord>> columns = new LinkedHashMap<>();
+		try (ResultSet rs = md.getColumns(catalog, seedId.getSchemaName(), seedId.getTableName(), null)) {
+			while (rs.next()) {
+				ColumnRecord column = extractColumn(rs, idfac, dt);
+				columns.computeIfAbsent(column.relationId, id -> new ArrayList<>()).add(column);
+			}
+		}
+		return columns;
+	}
+
+	/**
+	 * Columns of all the relations of the schema, with one call, restricted to the ones matching the seeds
+	 */
+	private static Map<RelationID, Map<RelationID, List<ColumnRecord>>> getSchemaColumns(
+			DatabaseMetaData md, String catalog, @Nullable String schema, List<RelationID> seedIds,
+			QuotedIDFactory idfac, DatatypeNormalizer dt) throws SQLException {
+
+		Map<RelationID, List<RelationID>> seedsPerSchemalessId = new HashMap<>();
+		Map<RelationID, Map<RelationID, List<ColumnRecord>>> columns = new HashMap<>();
+		for (RelationID seedId : seedIds) {
+			seedsPerSchemalessId.computeIfAbsent(seedId.getSchemalessID(), id -> new ArrayList<>()).add(seedId);
+			columns.put(seedId, new LinkedHashMap<>());
+		}
+
+		try (ResultSet rs = md.getColumns(catalog, schema, null, null)) {
+			while (rs.next()) {
+				String tableName = rs.getString("TABLE_NAME");
+				List<RelationID> candidates = seedsPerSchemalessId.get(
+						RelationID.createRelationIdFromDatabaseRecord(idfac, null, tableName));
+				if (candidates == null)
+					continue;
+
+				ColumnRecord column = extractColumn(rs, idfac, dt);
+				for (RelationID seedId : candidates) {
+					if (!seedId.hasSchema() || seedId.equals(column.relationId))
+						columns.get(seedId).computeIfAbsent(column.relationId, id -> new ArrayList<>()).add(column);
+				}
+			}
+		}
+		return columns;
+	}
+
+	private static ColumnRecord extractColumn(ResultSet rs, QuotedIDFactory idfac, DatatypeNormalizer dt) throws SQLException {
+		String schema = rs.getString("TABLE_SCHEM");
+		// MySQL workaround
+		if (schema == null)
+			schema = rs.getString("TABLE_CAT");
+
+		RelationID relationId = RelationID.createRelationIdFromDatabaseRecord(idfac, schema,
+				rs.getString("TABLE_NAME"));
+		QuotedID attributeId = QuotedID.createIdFromDatabaseRecord(idfac, rs.getString("COLUMN_NAME"));
+
+		// columnNoNulls, columnNullable, columnNullableUnknown
+		boolean isNullable = rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls;
+		String typeName = rs.getString("TYPE_NAME");
+		int dataType = dt.getCorrectedDatatype(rs.getInt("DATA_TYPE"), typeName);
+
+		return new ColumnRecord(relationId, attributeId, dataType, typeName, isNullable);
+	}
+
+
     private static String getCatalog(RDBMetadata metadata, Connection conn) throws SQLException {
         String catalog = null;
 
@@ -557,26 +698,36 @@ public class RDBMetadataExtractionTools {
 
 
 
+	/**
+	 * Primary key, unique constraints and foreign keys of the relation, with per-table JDBC calls
+	 */
+	private static RelationConstraints getConstraints(DatabaseMetaData md, RelationID id, QuotedIDFactory idfac) throws SQLException {
+		return new RelationConstraints(
+				getPrimaryKey(md, id, idfac),
+				getUniqueAttributes(md, id),
+				getForeignKeys(md, id, idfac));
+	}
+
 	/**
 	 * Retrieves the primary key for the table
 	 *
 	 */
-	private static void getPrimaryKey(DatabaseMetaData md, DatabaseRelationDefinition relation, QuotedIDFactory idfac) throws SQLException {
-		RelationID id = relation.getID();
+	private static Optional<KeyDescription> getPrimaryKey(DatabaseMetaData md, RelationID id, QuotedIDFactory idfac) throws SQLException {
 		// Retrieves a description of the given table's primary key columns. They are ordered by COLUMN_NAME (sic!)
 		try (ResultSet rs = md.getPrimaryKeys(null, id.getSchemaName(), id.getTableName())) {
-			extractPrimaryKey(relation, idfac, id, rs);
+			return extractPrimaryKey(idfac, id, rs);
 		} catch (SQLSyntaxErrorException e) {
 		    // WORKAROUND for MySQL connector >= 8.0:
             // <https://github.com/ontop/ontop/issues/270>
             try (ResultSet rs = md.getPrimaryKeys(id.getSchemaName(), null, id.getTableName())) {
-                extractPrimaryKey(relation, idfac, id, rs);
+                return extractPrimaryKey(idfac, id, rs);
             }
 		}
 	}
 
-	private static void extractPrimaryKey(DatabaseRelationDefinition relation, QuotedIDFactory idfac, RelationID id, ResultSet rs) throws SQLException {
-		Map<Integer, String> primaryKeyAttributes = new HashMap<>();
+	private static Optional<KeyDescription> extractPrimaryKey(QuotedIDFactory idfac, RelationID id, ResultSet rs) throws SQLException {
+		// use the KEY_SEQ values to restore the correct order of attributes in the PK
+		Map<Integer, String> primaryKeyAttributes = new TreeMap<>();
 		String currentName = null;
 		while (rs.next()) {
 			// TABLE_CAT is ignored for now; assume here that relation has a fully specified name
@@ -589,15 +740,9 @@ public class RDBMetadataExtractionTools {
 				primaryKeyAttributes.put(seq, attr);
 			}
 		}
-		if (!primaryKeyAttributes.isEmpty()) {
-			// use the KEY_SEQ values to restore the correct order of attributes in the PK
-			UniqueConstraint.Builder builder = UniqueConstraint.builder(relation);
-			for (int i = 1; i <= primaryKeyAttributes.size(); i++) {
-				QuotedID attrId = QuotedID.createIdFromDatabaseRecord(idfac, primaryKeyAttributes.get(i));
-				builder.add(relation.getAttribute(attrId));
-			}
-			relation.addUniqueConstraint(builder.build(currentName, true));
-		}
+		return primaryKeyAttributes.isEmpty()
+				? Optional.empty()
+				: Optional.of(new KeyDescription(currentName, true, new ArrayList<>(primaryKeyAttributes.values())));
 	}
 
 	/**
@@ -606,22 +751,22 @@ public class RDBMetadataExtractionTools {
 	 * @return
 	 * @throws SQLException
 	 */
-	private static void getUniqueAttributes(DatabaseMetaData md, DatabaseRelationDefinition relation, QuotedIDFactory idfac) throws SQLException {
+	private static List<KeyDescription> getUniqueAttributes(DatabaseMetaData md, RelationID id) throws SQLException {
 
-		RelationID id = relation.getID();
 		// extracting unique
 		try (ResultSet rs = md.getIndexInfo(null, id.getSchemaName(), id.getTableName(), true, true)) {
-            extractUniqueAttributes(relation, idfac, rs);
+            return extractUniqueAttributes(rs);
         } catch (Exception e){
 		    // Workaround for MySQL-connector >= 8.0
             try (ResultSet rs = md.getIndexInfo(id.getSchemaName(),null, id.getTableName(), true, true)) {
-                extractUniqueAttributes(relation, idfac, rs);
+                return extractUniqueAttributes(rs);
             }
         }
 	}
 
-    private static void extractUniqueAttributes(DatabaseRelationDefinition relation, QuotedIDFactory idfac, ResultSet rs) throws SQLException {
-        UniqueConstraint.Builder builder = null;
+    private static List<KeyDescription> extractUniqueAttributes(ResultSet rs) throws SQLException {
+		List<KeyDescription> uniqueConstraints = new ArrayList<>();
+        List<String> columns = null;
         String currentName = null;
         while (rs.next()) {
             // TYPE: tableIndexStatistic - this identifies table statistics that are returned in conjunction with a table's index descriptions
@@ -629,29 +774,28 @@ public class RDBMetadataExtractionTools {
             //       tableIndexHashed - this is a hashed index
             //       tableIndexOther (all are static final int in DatabaseMetaData)
             if (rs.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic) {
-                if (builder != null)
-                    relation.addUniqueConstraint(builder.build(currentName, false));
+                if (columns != null)
+                    uniqueConstraints.add(new KeyDescription(currentName, false, columns));
 
-                builder = null;
+                columns = null;
                 continue;
             }
             if (rs.getShort("ORDINAL_POSITION") == 1) {
-                if (builder != null)
-                    relation.addUniqueConstraint(builder.build(currentName, false));
+                if (columns != null)
+                    uniqueConstraints.add(new KeyDescription(currentName, false, columns));
 
                 // TABLE_CAT is ignored for now; assume here that relation has a fully specified name
                 // and so, no need to check whether TABLE_SCHEM and TABLE_NAME match
 
                 if (!rs.getBoolean("NON_UNIQUE")) {
-                    builder = UniqueConstraint.builder(relation);
+                    columns = new ArrayList<>();
                     currentName = rs.getString("INDEX_NAME");
                 }
                 else
-                    builder = null;
+                    columns = null;
             }
 
-            if (builder != null) {
-                QuotedID attrId = QuotedID.createIdFromDatabaseRecord(idfac, rs.getString("COLUMN_NAME"));
+            if (columns != null) {
                 // ASC_OR_DESC String => column sort sequence, "A" => ascending, "D" => descending,
                 //        may be null if sort sequence is not supported; null when TYPE is tableIndexStatistic
                 // CARDINALITY int => When TYPE is tableIndexStatistic, then this is the number of rows in the table;
@@ -659,41 +803,59 @@ public class RDBMetadataExtractionTools {
                 // PAGES int => When TYPE is tableIndexStatisic then this is the number of pages used for the table,
                 //                    otherwise it is the number of pages used for the current index.
                 // FILTER_CONDITION String => Filter condition, if any. (may be null)
-                Attribute attr = relation.getAttribute(attrId);
-                if (attr == null) { // Compensate for the bug in PostgreSQL JBDC driver that
-                    // strips off the quotation marks
-                    attrId = QuotedID.createIdFromDatabaseRecord(idfac, "\"" + rs.getString("COLUMN_NAME") + "\"");
-                    attr = relation.getAttribute(attrId);
-                }
-                builder.add(attr);
+                columns.add(rs.getString("COLUMN_NAME"));
             }
         }
-        if (builder != null)
-            relation.addUniqueConstraint(builder.build(currentName, false));
+        if (columns != null)
+            uniqueConstraints.add(new KeyDescription(currentName, false, columns));
+        return uniqueConstraints;
     }
 
+	private static void insertUniqueConstraint(DatabaseRelationDefinition relation, QuotedIDFactory idfac,
+											   KeyDescription key) {
+		UniqueConstraint.Builder builder = UniqueConstraint.builder(relation);
+		for (String column : key.columns) {
+			Attribute attr = getAttribute(relation, idfac, column);
+			if (attr == null) {
+				// e.g. functional indexes (no column name)
+				log.debug("Skipping the key {} of {}: cannot find its attribute {}", key.name, relation.getID(), column);
+				return;
+			}
+			builder.add(attr);
+		}
+		relation.addUniqueConstraint(builder.build(key.name, key.isPrimaryKey));
+	}
+
+	@Nullable
+	private static Attribute getAttribute(DatabaseRelationDefinition relation, QuotedIDFactory idfac, String column) {
+		if (column == null)
+			return null;
+		Attribute attr = relation.getAttribute(QuotedID.createIdFromDatabaseRecord(idfac, column));
+		if (attr == null) // Compensate for the bug in PostgreSQL JBDC driver that
+			// strips off the quotation marks
+			attr = relation.getAttribute(QuotedID.createIdFromDatabaseRecord(idfac, "\"" + column + "\""));
+		return attr;
+	}
+
     /**
 	 * Retrieves the foreign keys for the table
 	 *
 	 */
-	private static void getForeignKeys(DatabaseMetaData md, DatabaseRelationDefinition relation, DBMetadata metadata) throws SQLException {
+	private static List<ForeignKeyDescription> getForeignKeys(DatabaseMetaData md, RelationID relationId, QuotedIDFactory idfac) throws SQLException {
 
-		QuotedIDFactory idfac = metadata.getQuotedIDFactory();
-
-		RelationID relationId = relation.getID();
 		try (ResultSet rs = md.getImportedKeys(null, relationId.getSchemaName(), relationId.getTableName())) {
-            extractForeignKeys(relation, metadata, idfac, rs);
+            return extractForeignKeys(idfac, rs);
         }
         catch (Exception ex) {
             try (ResultSet rs = md.getImportedKeys(relationId.getSchemaName(),null, relationId.getTableName())) {
-                extractForeignKeys(relation, metadata, idfac, rs);
+                return extractForeignKeys(idfac, rs);
             }
         }
 	}
 
-    private static void extractForeignKeys(DatabaseRelationDefinition relation, DBMetadata metadata, QuotedIDFactory idfac, ResultSet rs) throws SQLException {
-        ForeignKeyConstraint.Builder builder = null;
-        String currentName = null;
+    private static List<ForeignKeyDescription> extractForeignKeys(QuotedIDFactory idfac, ResultSet rs) throws SQLException {
+		List<ForeignKeyDescription> foreignKeys = new ArrayList<>();
+        ForeignKeyDescription current = null;
         while (rs.next()) {
 			String schemaName = rs.getString("PKTABLE_SCHEM");
 
@@ -702,33 +864,459 @@ public class RDBMetadataExtractionTools {
 			    schemaName = rs.getString("PKTABLE_CAT");
             }
 
-			RelationID refId = RelationID.createRelationIdFromDatabaseRecord(idfac,
-					schemaName, rs.getString("PKTABLE_NAME"));
-            DatabaseRelationDefinition ref = metadata.getDatabaseRelation(refId);
             // FKTABLE_SCHEM and FKTABLE_NAME are ignored for now
             int seq = rs.getShort("KEY_SEQ");
             if (seq == 1) {
-                if (builder != null)
-                    relation.addForeignKeyConstraint(builder.build(currentName));
-
-                currentName = rs.getString("FK_NAME"); // String => foreign key name (may be null)
-
-                if (ref != null) {
-                    builder = new ForeignKeyConstraint.Builder(relation, ref);
-                }
-                else {
-                    builder = null; // do not add this foreign key
-                                    // because there is no table it refers to
-                    log.warn("Cannot find table: " + refId + " for FK " + currentName);
-                }
-            }
-            if (builder != null) {
-                QuotedID attrId = QuotedID.createIdFromDatabaseRecord(idfac, rs.getString("FKCOLUMN_NAME"));
-                QuotedID refAttrId = QuotedID.createIdFromDatabaseRecord(idfac, rs.getString("PKCOLUMN_NAME"));
-                builder.add(relation.getAttribute(attrId), ref.getAttribute(refAttrId));
+				RelationID refId = RelationID.createRelationIdFromDatabaseRecord(idfac,
+						schemaName, rs.getString("PKTABLE_NAME"));
+                // String => foreign key name (may be null)
+                current = new ForeignKeyDescription(rs.getString("FK_NAME"), refId);
+                foreignKeys.add(current);
             }
+            if (current != null)
+                current.add(rs.getString("FKCOLUMN_NAME"), rs.getString("PKCOLUMN_NAME"));
         }
-        if (builder != null)
-            relation.addForeignKeyConstraint(builder.build(currentName));
+        return foreignKeys;
     }
+
+	private static void insertForeignKey(DatabaseRelationDefinition relation, DBMetadata metadata, QuotedIDFactory idfac,
+										 ForeignKeyDescription fk) {
+		DatabaseRelationDefinition ref = metadata.getDatabaseRelation(fk.referencedRelationId);
+		if (ref == null) {
+			// do not add this foreign key because there is no table it refers to
+			log.warn("Cannot find table: " + fk.referencedRelationId + " for FK " + fk.name);
+			return;
+		}
+		ForeignKeyConstraint.Builder builder = new ForeignKeyConstraint.Builder(relation, ref);
+		for (int i = 0; i < fk.columns.size(); i++) {
+			QuotedID attrId = QuotedID.createIdFromDatabaseRecord(idfac, fk.columns.get(i));
+			QuotedID refAttrId = QuotedID.createIdFromDatabaseRecord(idfac, fk.referencedColumns.get(i));
+			builder.add(relation.getAttribute(attrId), ref.getAttribute(refAttrId));
+		}
+		relation.addForeignKeyConstraint(builder.build(fk.name));
+	}
+
+
+	/**
+	 * Keys and foreign keys of all the relations of the schema, with one catalog query per kind.
+	 *
+	 * Returns empty if one of the queries failed (e.g. insufficient privileges on the catalog).
+	 */
+	private static Optional<Map<RelationID, RelationConstraints>> getSchemaConstraints(
+			Connection conn, CatalogQueries queries, String schema, List<RelationID> relationIds,
+			QuotedIDFactory idfac) {
+
+		Map<RelationID, RelationConstraints> constraints = new HashMap<>();
+		for (RelationID id : relationIds)
+			constraints.put(id, new RelationConstraints(Optional.empty(), new ArrayList<>(), new ArrayList<>()));
+
+		try {
+			// (relation, key name) -> (position -> column)
+			Map<RelationID, Map<String, Map<Integer, String>>> keyColumns = new HashMap<>();
+			Map<RelationID, Set<String>> primaryKeyNames = new HashMap<>();
+			try (PreparedStatement stmt = conn.prepareStatement(queries.getKeyQuery())) {
+				stmt.setString(1, schema);
+				try (ResultSet rs = stmt.executeQuery()) {
+					while (rs.next()) {
+						RelationID id = RelationID.createRelationIdFromDatabaseRecord(idfac, rs.getString(1), rs.getString(2));
+						if (!constraints.containsKey(id))
+							continue;
+						String keyName = rs.getString(3);
+						if ("P".equals(rs.getString(4)))
+							primaryKeyNames.computeIfAbsent(id, i -> new HashSet<>()).add(keyName);
+						keyColumns.computeIfAbsent(id, i -> new LinkedHashMap<>())
+								.computeIfAbsent(keyName, n -> new TreeMap<>())
+								.put(rs.getInt(6), rs.getString(5));
+					}
+				}
+			}
+
+			// (relation, foreign key name) -> foreign key
+			Map<RelationID, Map<String, ForeignKeyDescription>> foreignKeys = new HashMap<>();
+			try (PreparedStatement stmt = conn.prepareStatement(queries.getForeignKeyQuery())) {
+				stmt.setString(1, schema);
+				try (ResultSet rs = stmt.executeQuery()) {
+					while (rs.next()) {
+						RelationID id = RelationID.createRelationIdFromDatabaseRecord(idfac, rs.getString(1), rs.getString(2));
+						if (!constraints.containsKey(id))
+							continue;
+						String fkName = rs.getString(3);
+						RelationID refId = RelationID.createRelationIdFromDatabaseRecord(idfac, rs.getString(6), rs.getString(7));
+						// rows are ordered by position
+						foreignKeys.computeIfAbsent(id, i -> new LinkedHashMap<>())
+								.computeIfAbsent(fkName, n -> new ForeignKeyDescription(fkName, refId))
+								.add(rs.getString(4), rs.getString(8));
+					}
+				}
+			}
+
+			for (Map.Entry<RelationID, Map<String, Map<Integer, String>>> e : keyColumns.entrySet()) {
+				Set<String> pkNames = primaryKeyNames.getOrDefault(e.getKey(), ImmutableSet.of());
+				Optional<KeyDescription> primaryKey = Optional.empty();
+				List<KeyDescription> uniqueConstraints = new ArrayList<>();
+				for (Map.Entry<String, Map<Integer, String>> key : e.getValue().entrySet()) {
+					boolean isPrimaryKey = pkNames.contains(key.getKey());
+					KeyDescription description = new KeyDescription(key.getKey(), isPrimaryKey,
+							new ArrayList<>(key.getValue().values()));
+					if (isPrimaryKey)
+						primaryKey = Optional.of(description);
+					else
+						uniqueConstraints.add(description);
+				}
+				constraints.put(e.getKey(), new RelationConstraints(primaryKey, uniqueConstraints,
+						foreignKeys.containsKey(e.getKey())
+								? new ArrayList<>(foreignKeys.get(e.getKey()).values())
+								: new ArrayList<>()));
+			}
+			for (Map.Entry<RelationID, Map<String, ForeignKeyDescription>> e : foreignKeys.entrySet()) {
+				if (!keyColumns.containsKey(e.getKey()))
+					constraints.put(e.getKey(), new RelationConstraints(Optional.empty(), new ArrayList<>(),
+							new ArrayList<>(e.getValue().values())));
+			}
+			return Optional.of(constraints);
+		}
+		catch (SQLException e) {
+			log.warn("Cannot retrieve the constraints of the schema " + schema
+					+ " with a catalog query (falling back to per-table extraction): " + e.getMessage());
+			return Optional.empty();
+		}
+	}
+
+	private static Optional<CatalogQueries> getCatalogQueries(String productName) {
+		if (productName.contains("PostgreSQL"))
+			return Optional.of(POSTGRESQL_CATALOG_QUERIES);
+		else if (productName.contains("Oracle"))
+			return Optional.of(ORACLE_CATALOG_QUERIES);
+		else if (productName.contains("SQL Server"))
+			return Optional.of(SQL_SERVER_CATALOG_QUERIES);
+		else if (productName.contains("DB2"))
+			return Optional.of(DB2_CATALOG_QUERIES);
+		else if (productName.contains("MySQL"))
+			return Optional.of(MYSQL_CATALOG_QUERIES);
+		else if (productName.equals("H2"))
+			return Optional.of(H2_CATALOG_QUERIES);
+		return Optional.empty();
+	}
+
+	/**
+	 * Dialect-specific queries over the system catalog, parameterized by the schema name.
+	 *
+	 * Key query columns: schema, table, key name, 'P' (primary key) or 'U', column, position in the key.
+	 * Foreign key query columns: schema, table, foreign key name, column, position, referenced schema,
+	 *    referenced table, referenced column.
+	 */
+	private interface CatalogQueries {
+		String getKeyQuery();
+		String getForeignKeyQuery();
+	}
+
+	private static CatalogQueries catalogQueries(String keyQuery, String foreignKeyQuery) {
+		return new CatalogQueries() {
+			@Override
+			public String getKeyQuery() {
+				return keyQuery;
+			}
+
+			@Override
+			public String getForeignKeyQuery() {
+				return foreignKeyQuery;
+			}
+		};
+	}
+
+	/**
+	 * Unique indexes (like getIndexInfo), excluding partial and expression indexes (requires PostgreSQL 9.4+)
+	 */
+	private static final CatalogQueries POSTGRESQL_CATALOG_QUERIES = catalogQueries(
+			"SELECT ns.nspname, cl.relname, ic.relname, CASE WHEN i.indisprimary THEN 'P' ELSE 'U' END, " +
+			"       a.attname, k.n " +
+			"FROM pg_index i " +
+			"  JOIN pg_class ic ON ic.oid = i.indexrelid " +
+			"  JOIN pg_class cl ON cl.oid = i.indrelid " +
+			"  JOIN pg_namespace ns ON ns.oid = cl.relnamespace " +
+			"  CROSS JOIN LATERAL unnest(i.indkey::int2[]) WITH ORDINALITY AS k(attnum, n) " +
+			"  JOIN pg_attribute a ON a.attrelid = i.indrelid AND a.attnum = k.attnum " +
+			"WHERE i.indisunique AND i.indpred IS NULL AND i.indexprs IS NULL AND ns.nspname = ? " +
+			"ORDER BY 1, 2, 3, 6",
+			"SELECT ns.nspname, cl.relname, c.conname, a.attname, k.n, rns.nspname, rcl.relname, ra.attname " +
+			"FROM pg_constraint c " +
+			"  JOIN pg_class cl ON cl.oid = c.conrelid " +
+			"  JOIN pg_namespace ns ON ns.oid = cl.relnamespace " +
+			"  JOIN pg_class rcl ON rcl.oid = c.confrelid " +
+			"  JOIN pg_namespace rns ON rns.oid = rcl.relnamespace " +
+			"  CROSS JOIN LATERAL unnest(c.conkey, c.confkey) WITH ORDINALITY AS k(attnum, refattnum, n) " +
+			"  JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = k.attnum " +
+			"  JOIN pg_attribute ra ON ra.attrelid = c.confrelid AND ra.attnum = k.refattnum " +
+			"WHERE c.contype = 'f' AND ns.nspname = ? " +
+			"ORDER BY 1, 2, 3, 5");
+
+	/**
+	 * Only enabled constraints
+	 */
+	private static final CatalogQueries ORACLE_CATALOG_QUERIES = catalogQueries(
+			"SELECT c.OWNER, c.TABLE_NAME, c.CONSTRAINT_NAME, c.CONSTRAINT_TYPE, cc.COLUMN_NAME, cc.POSITION " +
+			"FROM ALL_CONSTRAINTS c " +
+			"  JOIN ALL_CONS_COLUMNS cc ON cc.OWNER = c.OWNER AND cc.CONSTRAINT_NAME = c.CONSTRAINT_NAME " +
+			"WHERE c.CONSTRAINT_TYPE IN ('P', 'U') AND c.STATUS = 'ENABLED' AND c.OWNER = ? " +
+			"ORDER BY 1, 2, 3, 6",
+			"SELECT c.OWNER, c.TABLE_NAME, c.CONSTRAINT_NAME, cc.COLUMN_NAME, cc.POSITION, " +
+			"       r.OWNER, r.TABLE_NAME, rc.COLUMN_NAME " +
+			"FROM ALL_CONSTRAINTS c " +
+			"  JOIN ALL_CONS_COLUMNS cc ON cc.OWNER = c.OWNER AND cc.CONSTRAINT_NAME = c.CONSTRAINT_NAME " +
+			"  JOIN ALL_CONSTRAINTS r ON r.OWNER = c.R_OWNER AND r.CONSTRAINT_NAME = c.R_CONSTRAINT_NAME " +
+			"  JOIN ALL_CONS_COLUMNS rc ON rc.OWNER = r.OWNER AND rc.CONSTRAINT_NAME = r.CONSTRAINT_NAME " +
+			"       AND rc.POSITION = cc.POSITION " +
+			"WHERE c.CONSTRAINT_TYPE = 'R' AND c.STATUS = 'ENABLED' AND c.OWNER = ? " +
+			"ORDER BY 1, 2, 3, 5");
+
+	/**
+	 * Unique indexes (like getIndexInfo), excluding filtered indexes and included columns
+	 */
+	private static final CatalogQueries SQL_SERVER_CATALOG_QUERIES = catalogQueries(
+			"SELECT s.name, t.name, i.name, CASE WHEN i.is_primary_key = 1 THEN 'P' ELSE 'U' END, " +
+			"       c.name, ic.key_ordinal " +
+			"FROM sys.indexes i " +
+			"  JOIN sys.tables t ON t.object_id = i.object_id " +
+			"  JOIN sys.schemas s ON s.schema_id = t.schema_id " +
+			"  JOIN sys.index_columns ic ON ic.object_id = i.object_id AND ic.index_id = i.index_id " +
+			"  JOIN sys.columns c ON c.object_id = ic.object_id AND c.column_id = ic.column_id " +
+			"WHERE i.is_unique = 1 AND i.has_filter = 0 AND ic.is_included_column = 0 AND s.name = ? " +
+			"ORDER BY 1, 2, 3, 6",
+			"SELECT s.name, t.name, fk.name, c.name, fkc.constraint_column_id, rs.name, rt.name, rc.name " +
+			"FROM sys.foreign_keys fk " +
+			"  JOIN sys.tables t ON t.object_id = fk.parent_object_id " +
+			"  JOIN sys.schemas s ON s.schema_id = t.schema_id " +
+			"  JOIN sys.tables rt ON rt.object_id = fk.referenced_object_id " +
+			"  JOIN sys.schemas rs ON rs.schema_id = rt.schema_id " +
+			"  JOIN sys.foreign_key_columns fkc ON fkc.constraint_object_id = fk.object_id " +
+			"  JOIN sys.columns c ON c.object_id = fkc.parent_object_id AND c.column_id = fkc.parent_column_id " +
+			"  JOIN sys.columns rc ON rc.object_id = fkc.referenced_object_id AND rc.column_id = fkc.referenced_column_id " +
+			"WHERE s.name = ? " +
+			"ORDER BY 1, 2, 3, 5");
+
+	private static final CatalogQueries DB2_CATALOG_QUERIES = catalogQueries(
+			"SELECT k.TABSCHEMA, k.TABNAME, k.CONSTNAME, t.TYPE, k.COLNAME, k.COLSEQ " +
+			"FROM SYSCAT.TABCONST t " +
+			"  JOIN SYSCAT.KEYCOLUSE k ON k.CONSTNAME = t.CONSTNAME AND k.TABSCHEMA = t.TABSCHEMA " +
+			"       AND k.TABNAME = t.TABNAME " +
+			"WHERE t.TYPE IN ('P', 'U') AND t.TABSCHEMA = ? " +
+			"ORDER BY 1, 2, 3, 6",
+			"SELECT r.TABSCHEMA, r.TABNAME, r.CONSTNAME, k.COLNAME, k.COLSEQ, r.REFTABSCHEMA, r.REFTABNAME, rk.COLNAME " +
+			"FROM SYSCAT.REFERENCES r " +
+			"  JOIN SYSCAT.KEYCOLUSE k ON k.CONSTNAME = r.CONSTNAME AND k.TABSCHEMA = r.TABSCHEMA " +
+			"       AND k.TABNAME = r.TABNAME " +
+			"  JOIN SYSCAT.KEYCOLUSE rk ON rk.CONSTNAME = r.REFKEYNAME AND rk.TABSCHEMA = r.REFTABSCHEMA " +
+			"       AND rk.TABNAME = r.REFTABNAME AND rk.COLSEQ = k.COLSEQ " +
+			"WHERE r.TABSCHEMA = ? " +
+			"ORDER BY 1, 2, 3, 5");
+
+	/**
+	 * The schema is the database (catalog). Functional indexes have no column name: they are ignored
+	 * when inserting the constraints.
+	 */
+	private static final CatalogQueries MYSQL_CATALOG_QUERIES = catalogQueries(
+			"SELECT TABLE_SCHEMA, TABLE_NAME, INDEX_NAME, CASE WHEN INDEX_NAME = 'PRIMARY' THEN 'P' ELSE 'U' END, " +
+			"       COLUMN_NAME, SEQ_IN_INDEX " +
+			"FROM information_schema.STATISTICS " +
+			"WHERE NON_UNIQUE = 0 AND TABLE_SCHEMA = ? " +
+			"ORDER BY 1, 2, 3, 6",
+			"SELECT TABLE_SCHEMA, TABLE_NAME, CONSTRAINT_NAME, COLUMN_NAME, ORDINAL_POSITION, " +
+			"       REFERENCED_TABLE_SCHEMA, REFERENCED_TABLE_NAME, REFERENCED_COLUMN_NAME " +
+			"FROM information_schema.KEY_COLUMN_USAGE " +
+			"WHERE REFERENCED_TABLE_NAME IS NOT NULL AND TABLE_SCHEMA = ? " +
+			"ORDER BY 1, 2, 3, 5");
+
+	/**
+	 * Same key names as getPrimaryKeys() and getIndexInfo() of the H2 driver (H2 1.4)
+	 */
+	private static final CatalogQueries H2_CATALOG_QUERIES = catalogQueries(
+			"SELECT TABLE_SCHEMA, TABLE_NAME, " +
+			"       CASE WHEN PRIMARY_KEY THEN IFNULL(CONSTRAINT_NAME, INDEX_NAME) ELSE INDEX_NAME END, " +
+			"       CASE WHEN PRIMARY_KEY THEN 'P' ELSE 'U' END, COLUMN_NAME, ORDINAL_POSITION " +
+			"FROM INFORMATION_SCHEMA.INDEXES " +
+			"WHERE NON_UNIQUE = FALSE AND TABLE_SCHEMA = ? " +
+			"ORDER BY 1, 2, 3, 6",
+			"SELECT FKTABLE_SCHEMA, FKTABLE_NAME, FK_NAME, FKCOLUMN_NAME, ORDINAL_POSITION, " +
+			"       PKTABLE_SCHEMA, PKTABLE_NAME, PKCOLUMN_NAME " +
+			"FROM INFORMATION_SCHEMA.CROSS_REFERENCES " +
+			"WHERE FKTABLE_SCHEMA = ? " +
+			"ORDER BY 1, 2, 3, 5");
+
+
+	@FunctionalInterface
+	public interface ConnectionFactory {
+		Connection createConnection() throws SQLException;
+	}
+
+	@FunctionalInterface
+	private interface MetadataCall<T, R> {
+		R apply(Connection connection, T argument) throws SQLException;
+	}
+
+	/**
+	 * Distributes per-table calls over several connections.
+	 *
+	 * The additional connections are only created when needed, and closed with the pool.
+	 */
+	private static final class MetadataConnectionPool implements AutoCloseable {
+
+		private final Connection mainConnection;
+		private final int numberOfConnections;
+		@Nullable
+		private final ConnectionFactory connectionFactory;
+		private final List<Connection> additionalConnections = new ArrayList<>();
+		private boolean initialized = false;
+
+		MetadataConnectionPool(Connection mainConnection, int numberOfConnections,
+							   @Nullable ConnectionFactory connectionFactory) {
+			this.mainConnection = mainConnection;
+			this.numberOfConnections = connectionFactory == null ? 1 : numberOfConnections;
+			this.connectionFactory = connectionFactory;
+		}
+
+		/**
+		 * Results are in the order of the arguments
+		 */
+		<T, R> List<R> map(List<T> arguments, MetadataCall<T, R> call) throws SQLException {
+			if (numberOfConnections > 1 && arguments.size() > 1)
+				initialize();
+
+			if (additionalConnections.isEmpty()) {
+				List<R> results = new ArrayList<>(arguments.size());
+				for (T argument : arguments)
+					results.add(call.apply(mainConnection, argument));
+				return results;
+			}
+
+			BlockingQueue<Connection> availableConnections = new LinkedBlockingQueue<>(additionalConnections);
+			availableConnections.add(mainConnection);
+			ExecutorService executor = Executors.newFixedThreadPool(availableConnections.size(), r -> {
+				Thread thread = new Thread(r, "ontop-metadata-extraction");
+				thread.setDaemon(true);
+				return thread;
+			});
+			try {
+				List<Future<R>> futures = new ArrayList<>(arguments.size());
+				for (T argument : arguments)
+					futures.add(executor.submit(() -> {
+						Connection connection = availableConnections.take();
+						try {
+							return call.apply(connection, argument);
+						}
+						finally {
+							availableConnections.put(connection);
+						}
+					}));
+
+				List<R> results = new ArrayList<>(arguments.size());
+				for (Future<R> future : futures)
+					results.add(future.get());
+				return results;
+			}
+			catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof SQLException)
+					throw (SQLException) cause;
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				throw new SQLException(cause);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SQLException("Interrupted during the metadata extraction");
+			}
+			finally {
+				executor.shutdownNow();
+			}
+		}
+
+		private void initialize() {
+			if (initialized)
+				return;
+			initialized = true;
+			for (int i = 1; i < numberOfConnections; i++) {
+				try {
+					additionalConnections.add(connectionFactory.createConnection());
+				}
+				catch (SQLException e) {
+					log.warn("Cannot create an additional connection for extracting the metadata: " + e.getMessage());
+					break;
+				}
+			}
+		}
+
+		@Override
+		public void close() {
+			for (Connection connection : additionalConnections) {
+				try {
+					connection.close();
+				}
+				catch (SQLException e) {
+					log.warn("Cannot close a connection used for extracting the metadata: " + e.getMessage());
+				}
+			}
+		}
+	}
+
+
+	private static final class ColumnRecord {
+		private final RelationID relationId;
+		private final QuotedID attributeId;
+		private final int dataType;
+		private final String typeName;
+		private final boolean isNullable;
+
+		private ColumnRecord(RelationID relationId, QuotedID attributeId, int dataType, String typeName,
+							 boolean isNullable) {
+			this.relationId = relationId;
+			this.attributeId = attributeId;
+			this.dataType = dataType;
+			this.typeName = typeName;
+			this.isNullable = isNullable;
+		}
+	}
+
+	private static final class KeyDescription {
+		@Nullable
+		private final String name;
+		private final boolean isPrimaryKey;
+		private final List<String> columns;
+
+		private KeyDescription(@Nullable String name, boolean isPrimaryKey, List<String> columns) {
+			this.name = name;
+			this.isPrimaryKey = isPrimaryKey;
+			this.columns = columns;
+		}
+	}
+
+	private static final class ForeignKeyDescription {
+		@Nullable
+		private final String name;
+		private final RelationID referencedRelationId;
+		private final List<String> columns = new ArrayList<>();
+		private final List<String> referencedColumns = new ArrayList<>();
+
+		private ForeignKeyDescription(@Nullable String name, RelationID referencedRelationId) {
+			this.name = name;
+			this.referencedRelationId = referencedRelationId;
+		}
+
+		private void add(String column, String referencedColumn) {
+			columns.add(column);
+			referencedColumns.add(referencedColumn);
+		}
+	}
+
+	private static final class RelationConstraints {
+		private final Optional<KeyDescription> primaryKey;
+		private final List<KeyDescription> uniqueConstraints;
+		private final List<ForeignKeyDescription> foreignKeys;
+
+		private RelationConstraints(Optional<KeyDescription> primaryKey, List<KeyDescription> uniqueConstraints,
+									List<ForeignKeyDescription> foreignKeys) {
+			this.primaryKey = primaryKey;
+			this.uniqueConstraints = uniqueConstraints;
+			this.foreignKeys = foreignKeys;
+		}
+	}
 }
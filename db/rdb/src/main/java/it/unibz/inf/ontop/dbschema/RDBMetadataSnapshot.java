@@ -0,0 +1,304 @@
+package it.unibz.inf.ontop.dbschema;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.model.type.TypeFactory;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Versioned binary snapshot of the database relations (attributes and constraints) of a RDBMetadata.
+ *
+ * Loading a snapshot replaces the extraction of the metadata through JDBC.
+ * Parser views are not included: they are re-created when the mapping is converted.
+ *
+ * The snapshot records a fingerprint of its source (see Fingerprint): a snapshot whose fingerprint
+ * differs from the current one is rejected as stale.
+ * Changes of the database schema itself cannot be detected without connecting to the database:
+ * the snapshot must then be re-generated.
+ */
+public class RDBMetadataSnapshot {
+
+	private static final String MAGIC = "ONTOP-RDB-METADATA";
+	/**
+	 * To be incremented on any change of the format
+	 */
+	private static final int FORMAT_VERSION = 2;
+
+	private static final String MYSQL_ID_FACTORY = "MYSQL";
+	private static final String IDENTITY_ID_FACTORY = "IDENTITY";
+	private static final String LOWER_CASE_ID_FACTORY = "LOWER_CASE";
+	private static final String STANDARD_SQL_ID_FACTORY = "STANDARD_SQL";
+
+	private RDBMetadataSnapshot() {
+	}
+
+	public static void write(RDBMetadata metadata, Fingerprint fingerprint, OutputStream outputStream)
+			throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+		out.writeUTF(MAGIC);
+		out.writeInt(FORMAT_VERSION);
+
+		writeNullableString(out, fingerprint.jdbcUrl);
+		writeNullableString(out, fingerprint.jdbcUser);
+		out.writeUTF(fingerprint.mappingHash);
+
+		writeNullableString(out, metadata.getDriverName());
+		writeNullableString(out, metadata.getDriverVersion());
+		writeNullableString(out, metadata.getDbmsProductName());
+		writeNullableString(out, metadata.getDbmsVersion());
+		writeIDFactory(out, metadata.getQuotedIDFactory());
+
+		List<DatabaseRelationDefinition> relations = ImmutableList.copyOf(metadata.getDatabaseRelations());
+		Map<RelationID, Integer> relationIndexes = new HashMap<>();
+
+		out.writeInt(relations.size());
+		for (DatabaseRelationDefinition relation : relations) {
+			relationIndexes.put(relation.getID(), relationIndexes.size());
+			writeNullableString(out, relation.getID().getSchemaName());
+			out.writeUTF(relation.getID().getTableName());
+
+			List<Attribute> attributes = relation.getAttributes();
+			out.writeInt(attributes.size());
+			for (Attribute attribute : attributes) {
+				out.writeUTF(attribute.getID().getName());
+				out.writeInt(attribute.getType());
+				writeNullableString(out, attribute.getSQLTypeName());
+				out.writeBoolean(attribute.canNull());
+			}
+		}
+
+		// Constraints: once all the relations are known (foreign keys)
+		for (DatabaseRelationDefinition relation : relations) {
+			ImmutableList<UniqueConstraint> uniqueConstraints = relation.getUniqueConstraints();
+			out.writeInt(uniqueConstraints.size());
+			for (UniqueConstraint uc : uniqueConstraints) {
+				writeNullableString(out, uc.getName());
+				out.writeBoolean(uc.isPrimaryKey());
+				writeAttributeIndexes(out, uc.getAttributes());
+			}
+
+			ImmutableList<FunctionalDependency> functionalDependencies = relation.getOtherFunctionalDependencies();
+			out.writeInt(functionalDependencies.size());
+			for (FunctionalDependency fd : functionalDependencies) {
+				writeAttributeIndexes(out, fd.getDeterminants().asList());
+				writeAttributeIndexes(out, fd.getDependents().asList());
+			}
+
+			ImmutableList<ForeignKeyConstraint> foreignKeys = relation.getForeignKeys();
+			out.writeInt(foreignKeys.size());
+			for (ForeignKeyConstraint fk : foreignKeys) {
+				writeNullableString(out, fk.getName());
+				out.writeInt(relationIndexes.get(fk.getReferencedRelation().getID()));
+				ImmutableList<ForeignKeyConstraint.Component> components = fk.getComponents();
+				out.writeInt(components.size());
+				for (ForeignKeyConstraint.Component component : components) {
+					out.writeInt(component.getAttribute().getIndex());
+					out.writeInt(component.getReference().getIndex());
+				}
+			}
+		}
+		out.flush();
+	}
+
+	/**
+	 * Returns a mutable metadata (parser views can still be added)
+	 *
+	 * Throws an IOException if the snapshot has not been produced for the expected fingerprint.
+	 */
+	public static RDBMetadata read(InputStream inputStream, Fingerprint expectedFingerprint, TypeFactory typeFactory,
+								   JdbcTypeMapper jdbcTypeMapper) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+		String magic;
+		try {
+			magic = in.readUTF();
+		}
+		catch (UTFDataFormatException e) {
+			throw new IOException("Not a DB metadata snapshot");
+		}
+		if (!magic.equals(MAGIC))
+			throw new IOException("Not a DB metadata snapshot");
+		int version = in.readInt();
+		if (version != FORMAT_VERSION)
+			throw new IOException("Unsupported version of the DB metadata snapshot: " + version
+					+ " (expected: " + FORMAT_VERSION + "). Please re-generate it.");
+
+		Fingerprint fingerprint = new Fingerprint(readNullableString(in), readNullableString(in), in.readUTF());
+		if (!Objects.equals(fingerprint.jdbcUrl, expectedFingerprint.jdbcUrl))
+			throw new IOException("Stale DB metadata snapshot: produced for the JDBC URL " + fingerprint.jdbcUrl
+					+ " (current: " + expectedFingerprint.jdbcUrl + "). Please re-generate it.");
+		if (!Objects.equals(fingerprint.jdbcUser, expectedFingerprint.jdbcUser))
+			throw new IOException("Stale DB metadata snapshot: produced for the JDBC user " + fingerprint.jdbcUser
+					+ " (current: " + expectedFingerprint.jdbcUser + "). Please re-generate it.");
+		if (!fingerprint.mappingHash.equals(expectedFingerprint.mappingHash))
+			throw new IOException("Stale DB metadata snapshot: the mapping or the constraint file has changed. "
+					+ "Please re-generate it.");
+
+		String driverName = readNullableString(in);
+		String driverVersion = readNullableString(in);
+		String productName = readNullableString(in);
+		String dbVersion = readNullableString(in);
+		QuotedIDFactory idfac = readIDFactory(in);
+
+		RDBMetadata metadata = new RDBMetadata(driverName, driverVersion, productName, dbVersion, idfac,
+				jdbcTypeMapper, typeFactory);
+
+		int relationCount = in.readInt();
+		DatabaseRelationDefinition[] relations = new DatabaseRelationDefinition[relationCount];
+		for (int i = 0; i < relationCount; i++) {
+			String schemaName = readNullableString(in);
+			String tableName = in.readUTF();
+			DatabaseRelationDefinition relation = metadata.createDatabaseRelation(
+					RelationID.createRelationIdFromDatabaseRecord(idfac, schemaName, tableName));
+
+			int attributeCount = in.readInt();
+			for (int j = 0; j < attributeCount; j++) {
+				QuotedID attributeId = QuotedID.createIdFromDatabaseRecord(idfac, in.readUTF());
+				int type = in.readInt();
+				String typeName = readNullableString(in);
+				relation.addAttribute(attributeId, type, typeName, in.readBoolean());
+			}
+			relations[i] = relation;
+		}
+
+		for (DatabaseRelationDefinition relation : relations) {
+			int ucCount = in.readInt();
+			for (int i = 0; i < ucCount; i++) {
+				String name = readNullableString(in);
+				boolean isPrimaryKey = in.readBoolean();
+				UniqueConstraint.Builder builder = UniqueConstraint.builder(relation);
+				for (Attribute attribute : readAttributes(in, relation))
+					builder.add(attribute);
+				relation.addUniqueConstraint(builder.build(name, isPrimaryKey));
+			}
+
+			int fdCount = in.readInt();
+			for (int i = 0; i < fdCount; i++) {
+				FunctionalDependency.Builder builder = FunctionalDependency.defaultBuilder();
+				for (Attribute determinant : readAttributes(in, relation))
+					builder.addDeterminant(determinant);
+				for (Attribute dependent : readAttributes(in, relation))
+					builder.addDependent(dependent);
+				relation.addFunctionalDependency(builder.build());
+			}
+
+			int fkCount = in.readInt();
+			for (int i = 0; i < fkCount; i++) {
+				String name = readNullableString(in);
+				DatabaseRelationDefinition referencedRelation = relations[in.readInt()];
+				ForeignKeyConstraint.Builder builder = ForeignKeyConstraint.builder(relation, referencedRelation);
+				int componentCount = in.readInt();
+				for (int j = 0; j < componentCount; j++) {
+					Attribute attribute = relation.getAttribute(in.readInt());
+					builder.add(attribute, referencedRelation.getAttribute(in.readInt()));
+				}
+				relation.addForeignKeyConstraint(builder.build(name));
+			}
+		}
+		return metadata;
+	}
+
+	/**
+	 * What the snapshot has been extracted for.
+	 *
+	 * The JDBC URL and user determine the database and its default schema.
+	 * The mapping hash covers the source queries of the mapping (which determine the relations to extract)
+	 * and the user-supplied constraints.
+	 */
+	public static class Fingerprint {
+		@Nullable
+		private final String jdbcUrl;
+		@Nullable
+		private final String jdbcUser;
+		private final String mappingHash;
+
+		public Fingerprint(@Nullable String jdbcUrl, @Nullable String jdbcUser, String mappingHash) {
+			this.jdbcUrl = jdbcUrl;
+			this.jdbcUser = jdbcUser;
+			this.mappingHash = mappingHash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+			Fingerprint that = (Fingerprint) o;
+			return Objects.equals(jdbcUrl, that.jdbcUrl)
+					&& Objects.equals(jdbcUser, that.jdbcUser)
+					&& mappingHash.equals(that.mappingHash);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(jdbcUrl, jdbcUser, mappingHash);
+		}
+
+		@Override
+		public String toString() {
+			return "Fingerprint(" + jdbcUrl + ", " + jdbcUser + ", " + mappingHash + ")";
+		}
+	}
+
+	private static void writeIDFactory(DataOutputStream out, QuotedIDFactory idfac) throws IOException {
+		if (idfac instanceof QuotedIDFactoryMySQL) {
+			out.writeUTF(MYSQL_ID_FACTORY);
+			out.writeBoolean(((QuotedIDFactoryMySQL) idfac).areTableNamesCaseSensitive());
+		}
+		else if (idfac instanceof QuotedIDFactoryIdentity)
+			out.writeUTF(IDENTITY_ID_FACTORY);
+		else if (idfac instanceof QuotedIDFactoryLowerCase)
+			out.writeUTF(LOWER_CASE_ID_FACTORY);
+		else if (idfac instanceof QuotedIDFactoryStandardSQL)
+			out.writeUTF(STANDARD_SQL_ID_FACTORY);
+		else
+			throw new IllegalArgumentException("Unsupported QuotedIDFactory: " + idfac.getClass());
+		out.writeUTF(idfac.getIDQuotationString());
+	}
+
+	private static QuotedIDFactory readIDFactory(DataInputStream in) throws IOException {
+		String kind = in.readUTF();
+		switch (kind) {
+			case MYSQL_ID_FACTORY:
+				boolean caseSensitiveTableNames = in.readBoolean();
+				return new QuotedIDFactoryMySQL(caseSensitiveTableNames, in.readUTF());
+			case IDENTITY_ID_FACTORY:
+				return new QuotedIDFactoryIdentity(in.readUTF());
+			case LOWER_CASE_ID_FACTORY:
+				return new QuotedIDFactoryLowerCase(in.readUTF());
+			case STANDARD_SQL_ID_FACTORY:
+				return new QuotedIDFactoryStandardSQL(in.readUTF());
+			default:
+				throw new IOException("Unknown QuotedIDFactory in the DB metadata snapshot: " + kind);
+		}
+	}
+
+	private static void writeAttributeIndexes(DataOutputStream out, List<Attribute> attributes) throws IOException {
+		out.writeInt(attributes.size());
+		for (Attribute attribute : attributes)
+			out.writeInt(attribute.getIndex());
+	}
+
+	private static ImmutableList<Attribute> readAttributes(DataInputStream in, DatabaseRelationDefinition relation)
+			throws IOException {
+		int count = in.readInt();
+		ImmutableList.Builder<Attribute> builder = ImmutableList.builder();
+		for (int i = 0; i < count; i++)
+			builder.add(relation.getAttribute(in.readInt()));
+		return builder.build();
+	}
+
+	private static void writeNullableString(DataOutputStream out, @Nullable String s) throws IOException {
+		out.writeBoolean(s != null);
+		if (s != null)
+			out.writeUTF(s);
+	}
+
+	@Nullable
+	private static String readNullableString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+}
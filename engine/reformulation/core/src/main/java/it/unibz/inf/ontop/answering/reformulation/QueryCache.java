@@ -5,7 +5,7 @@ import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
 /**
  * Cache of queries.
  *
- * Mutable class.
+ * Mutable class. Implementations must be thread-safe.
  *
  */
 public interface QueryCache {
@@ -14,4 +14,14 @@ public interface QueryCache {
     void put(InputQuery inputQuery, ExecutableQuery executableQuery);
 
     void clear();
+
+    //--------------------------
+    // Statistics
+    //--------------------------
+
+    long getHitCount();
+
+    long getMissCount();
+
+    long getEvictionCount();
 }
@@ -3,12 +3,34 @@ package it.unibz.inf.ontop.answering.reformulation;
 
 import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
+import it.unibz.inf.ontop.answering.reformulation.metrics.QueryReformulationMetrics;
+import it.unibz.inf.ontop.answering.reformulation.trace.PlanTrace;
 import it.unibz.inf.ontop.exception.OntopReformulationException;
 
+import java.util.function.Consumer;
+
 public interface QueryReformulator {
 
     ExecutableQuery reformulateIntoNativeQuery(InputQuery inputQuery) throws OntopReformulationException;
 
+    /**
+     * The metrics of the reformulation are passed to the consumer (in the same thread),
+     * unless their recording is disabled.
+     */
+    default ExecutableQuery reformulateIntoNativeQuery(InputQuery inputQuery,
+                                                       Consumer<QueryReformulationMetrics> metricsConsumer)
+            throws OntopReformulationException {
+        return reformulateIntoNativeQuery(inputQuery, metricsConsumer, PlanTrace.disabled());
+    }
+
+    /**
+     * When the plan trace is enabled, the query cache is bypassed (so that all the phases are traced)
+     */
+    ExecutableQuery reformulateIntoNativeQuery(InputQuery inputQuery,
+                                               Consumer<QueryReformulationMetrics> metricsConsumer,
+                                               PlanTrace planTrace)
+            throws OntopReformulationException;
+
     /**
      * For analysis purposes
      */
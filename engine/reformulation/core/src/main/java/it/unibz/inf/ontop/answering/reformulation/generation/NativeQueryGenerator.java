@@ -21,8 +21,10 @@ package it.unibz.inf.ontop.answering.reformulation.generation;
  */
 
 import java.io.Serializable;
+import java.util.Optional;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import it.unibz.inf.ontop.exception.OntopReformulationException;
 import it.unibz.inf.ontop.answering.reformulation.ExecutableQuery;
 import it.unibz.inf.ontop.iq.IntermediateQuery;
@@ -42,4 +44,16 @@ public interface NativeQueryGenerator extends Serializable {
 			throws OntopReformulationException;
 
 	ExecutableQuery generateEmptyQuery(ImmutableList<String> signature);
+
+	/**
+	 * Binds the placeholders appearing in a query template to their actual values.
+	 *
+	 * The placeholders are replaced by parameters of the native query when possible.
+	 *
+	 * Returns empty if some placeholders are used in a way that prevents their replacement.
+	 *
+	 * @param parameters placeholder -> actual value
+	 */
+	Optional<ExecutableQuery> instantiateTemplate(ExecutableQuery templateQuery,
+												  ImmutableMap<String, String> parameters);
 }
@@ -1,38 +1,71 @@
 package it.unibz.inf.ontop.answering.reformulation.impl;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.inject.Inject;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
 import it.unibz.inf.ontop.answering.reformulation.ExecutableQuery;
 import it.unibz.inf.ontop.answering.reformulation.QueryCache;
-
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
 
 /**
- * Basic implementation. No memory management, no consideration for similar queries.
+ * Bounded cache (LRU-like eviction), safe for concurrent use.
+ *
+ * Input queries are compared structurally (see their equals() method), so textually different
+ * but equivalent queries share the same entry.
+ *
+ * Bounded either by the number of entries or, if a positive maximal weight is given,
+ * by the cumulated length of the input query strings.
  *
  */
 public class BasicQueryCache implements QueryCache {
 
-    private final Map<InputQuery, ExecutableQuery> mutableMap;
+    private final Cache<InputQuery, ExecutableQuery> cache;
 
     @Inject
-    private BasicQueryCache() {
-        mutableMap = new ConcurrentHashMap<>();
+    private BasicQueryCache(OntopReformulationSettings settings) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .recordStats();
+
+        long maxWeight = settings.getQueryCacheMaxWeight();
+        if (maxWeight > 0)
+            cache = builder
+                    .maximumWeight(maxWeight)
+                    .<InputQuery, ExecutableQuery>weigher((q, e) -> q.getInputString().length())
+                    .build();
+        else
+            cache = builder
+                    .maximumSize(settings.getQueryCacheMaxSize())
+                    .build();
     }
 
     @Override
     public ExecutableQuery get(InputQuery inputQuery) {
-        return mutableMap.get(inputQuery);
+        return cache.getIfPresent(inputQuery);
     }
 
     @Override
     public void put(InputQuery inputQuery, ExecutableQuery executableQuery) {
-        mutableMap.put(inputQuery, executableQuery);
+        cache.put(inputQuery, executableQuery);
     }
 
     @Override
     public void clear() {
-        mutableMap.clear();
+        cache.invalidateAll();
+    }
+
+    @Override
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
     }
 }
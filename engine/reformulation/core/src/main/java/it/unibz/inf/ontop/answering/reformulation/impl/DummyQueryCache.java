@@ -21,4 +21,19 @@ public class DummyQueryCache implements QueryCache {
     @Override
     public void clear() {
     }
+
+    @Override
+    public long getHitCount() {
+        return 0;
+    }
+
+    @Override
+    public long getMissCount() {
+        return 0;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return 0;
+    }
 }
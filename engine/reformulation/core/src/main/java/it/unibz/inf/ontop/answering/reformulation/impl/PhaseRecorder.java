@@ -0,0 +1,103 @@
+package it.unibz.inf.ontop.answering.reformulation.impl;
+
+import it.unibz.inf.ontop.answering.reformulation.metrics.QueryReformulationMetrics;
+import it.unibz.inf.ontop.answering.reformulation.metrics.ReformulationPhase;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.IntermediateQuery;
+import it.unibz.inf.ontop.iq.node.UnionNode;
+
+import javax.annotation.Nullable;
+
+import static it.unibz.inf.ontop.answering.reformulation.metrics.QueryReformulationMetrics.NO_TREE_SIZE;
+
+/**
+ * Times the phases of one reformulation and measures the query trees before and after each of them.
+ *
+ * Does nothing when disabled (the trees are not traversed). Not thread-safe.
+ */
+class PhaseRecorder {
+
+    @Nullable
+    private final QueryReformulationMetrics.Builder builder;
+    private long phaseStart;
+    private int treeSizeBefore;
+
+    PhaseRecorder(boolean isEnabled) {
+        this.builder = isEnabled ? new QueryReformulationMetrics.Builder() : null;
+    }
+
+    boolean isEnabled() {
+        return builder != null;
+    }
+
+    void startPhase() {
+        if (builder != null)
+            start(NO_TREE_SIZE);
+    }
+
+    void startPhase(IQ query) {
+        if (builder != null)
+            start(getSize(query.getTree()));
+    }
+
+    void startPhase(IntermediateQuery query) {
+        if (builder != null)
+            start(query.getNodesInTopDownOrder().size());
+    }
+
+    private void start(int treeSize) {
+        treeSizeBefore = treeSize;
+        phaseStart = System.nanoTime();
+    }
+
+    void endPhase(ReformulationPhase phase) {
+        if (builder != null)
+            builder.addPhase(phase, System.nanoTime() - phaseStart, treeSizeBefore, NO_TREE_SIZE);
+    }
+
+    /**
+     * The measure of the tree is not included in the duration of the phase
+     */
+    void endPhase(ReformulationPhase phase, IQ query) {
+        if (builder != null) {
+            long duration = System.nanoTime() - phaseStart;
+            builder.addPhase(phase, duration, treeSizeBefore, getSize(query.getTree()));
+        }
+    }
+
+    void endPhase(ReformulationPhase phase, IntermediateQuery query) {
+        if (builder != null) {
+            long duration = System.nanoTime() - phaseStart;
+            builder.addPhase(phase, duration, treeSizeBefore, query.getNodesInTopDownOrder().size());
+        }
+    }
+
+    void recordUnfoldedQuery(IQ unfoldedQuery) {
+        if (builder != null)
+            builder.unionWidthAfterUnfolding(getMaxUnionWidth(unfoldedQuery.getTree()));
+    }
+
+    /**
+     * Only when enabled
+     */
+    QueryReformulationMetrics build(boolean cacheHit, boolean empty) {
+        if (builder == null)
+            throw new IllegalStateException("The recording of the metrics is disabled");
+        return builder.build(cacheHit, empty);
+    }
+
+    private static int getSize(IQTree tree) {
+        int size = 1;
+        for (IQTree child : tree.getChildren())
+            size += getSize(child);
+        return size;
+    }
+
+    private static int getMaxUnionWidth(IQTree tree) {
+        int width = (tree.getRootNode() instanceof UnionNode) ? tree.getChildren().size() : 0;
+        for (IQTree child : tree.getChildren())
+            width = Math.max(width, getMaxUnionWidth(child));
+        return width;
+    }
+}
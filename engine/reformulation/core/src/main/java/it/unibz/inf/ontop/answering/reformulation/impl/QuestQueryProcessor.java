@@ -2,6 +2,7 @@ package it.unibz.inf.ontop.answering.reformulation.impl;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import it.unibz.inf.ontop.answering.reformulation.ExecutableQuery;
@@ -10,9 +11,14 @@ import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
 import it.unibz.inf.ontop.answering.reformulation.generation.NativeQueryGenerator;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
+import it.unibz.inf.ontop.answering.reformulation.input.ParameterizableInputQuery;
+import it.unibz.inf.ontop.answering.reformulation.input.ParameterizedInputQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.translation.InputQueryTranslator;
+import it.unibz.inf.ontop.answering.reformulation.metrics.QueryReformulationMetrics;
+import it.unibz.inf.ontop.answering.reformulation.metrics.ReformulationMonitor;
 import it.unibz.inf.ontop.answering.reformulation.rewriting.QueryRewriter;
 import it.unibz.inf.ontop.answering.reformulation.rewriting.SameAsRewriter;
+import it.unibz.inf.ontop.answering.reformulation.trace.PlanTrace;
 import it.unibz.inf.ontop.answering.reformulation.unfolding.QueryUnfolder;
 import it.unibz.inf.ontop.datalog.*;
 import it.unibz.inf.ontop.dbschema.DBMetadata;
@@ -21,18 +27,28 @@ import it.unibz.inf.ontop.exception.OntopReformulationException;
 import it.unibz.inf.ontop.injection.OntopReformulationSettings;
 import it.unibz.inf.ontop.injection.TranslationFactory;
 import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
 import it.unibz.inf.ontop.iq.IntermediateQuery;
 import it.unibz.inf.ontop.iq.exception.EmptyQueryException;
+import it.unibz.inf.ontop.iq.node.ConstructionNode;
 import it.unibz.inf.ontop.iq.optimizer.*;
 import it.unibz.inf.ontop.iq.tools.ExecutorRegistry;
 import it.unibz.inf.ontop.iq.tools.IQConverter;
-import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.term.functionsymbol.URITemplatePredicate;
 import it.unibz.inf.ontop.spec.OBDASpecification;
 import it.unibz.inf.ontop.spec.mapping.Mapping;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import it.unibz.inf.ontop.utils.UriTemplateMatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static it.unibz.inf.ontop.answering.reformulation.metrics.ReformulationPhase.*;
+
 /**
  * TODO: rename it QueryTranslatorImpl ?
  */
@@ -59,6 +75,9 @@ public class QuestQueryProcessor implements QueryReformulator {
 	private final PushUpBooleanExpressionOptimizer pullUpExpressionOptimizer;
 	private final IQConverter iqConverter;
     private final DatalogProgram2QueryConverter datalogConverter;
+	private final UriTemplateMatcher uriTemplateMatcher;
+	private final ImmutableSet<String> mappingIRIConstants;
+	private final ReformulationMonitor monitor;
 
 	@AssistedInject
 	private QuestQueryProcessor(@Assisted OBDASpecification obdaSpecification,
@@ -73,7 +92,8 @@ public class QuestQueryProcessor implements QueryReformulator {
                                 FlattenUnionOptimizer flattenUnionOptimizer,
                                 EQNormalizer eqNormalizer,
                                 PushUpBooleanExpressionOptimizer pullUpExpressionOptimizer,
-                                IQConverter iqConverter, DatalogProgram2QueryConverter datalogConverter) {
+                                IQConverter iqConverter, DatalogProgram2QueryConverter datalogConverter,
+                                ReformulationMonitor monitor) {
 		this.bindingLiftOptimizer = bindingLiftOptimizer;
 		this.settings = settings;
 		this.joinLikeOptimizer = joinLikeOptimizer;
@@ -85,6 +105,7 @@ public class QuestQueryProcessor implements QueryReformulator {
 		this.iqConverter = iqConverter;
 		this.rewriter = queryRewriter;
         this.datalogConverter = datalogConverter;
+        this.monitor = monitor;
 
         this.rewriter.setTBox(obdaSpecification.getSaturatedTBox());
 
@@ -101,8 +122,11 @@ public class QuestQueryProcessor implements QueryReformulator {
 
 		this.dbMetadata = obdaSpecification.getDBMetadata();
 		this.datasourceQueryGenerator = translationFactory.create(dbMetadata);
-		this.inputQueryTranslator = translationFactory.createInputQueryTranslator(saturatedMapping.getMetadata()
-				.getUriTemplateMatcher());
+		this.uriTemplateMatcher = saturatedMapping.getMetadata().getUriTemplateMatcher();
+		this.inputQueryTranslator = translationFactory.createInputQueryTranslator(uriTemplateMatcher);
+		this.mappingIRIConstants = settings.isQueryParameterizationEnabled()
+				? extractIRIConstants(saturatedMapping)
+				: ImmutableSet.of();
 		this.sameAsRewriter = translationFactory.createSameAsRewriter(saturatedMapping);
 		this.queryCache = queryCache;
 		this.executorRegistry = executorRegistry;
@@ -142,54 +166,171 @@ public class QuestQueryProcessor implements QueryReformulator {
 	@Override
 	public ExecutableQuery reformulateIntoNativeQuery(InputQuery inputQuery)
 			throws OntopReformulationException {
+		return reformulateIntoNativeQuery(inputQuery, m -> {}, PlanTrace.disabled());
+	}
+
+	@Override
+	public ExecutableQuery reformulateIntoNativeQuery(InputQuery inputQuery,
+													  Consumer<QueryReformulationMetrics> metricsConsumer,
+													  PlanTrace planTrace)
+			throws OntopReformulationException {
+
+		if (settings.isQueryParameterizationEnabled() && (inputQuery instanceof ParameterizableInputQuery)) {
+			Optional<ExecutableQuery> instantiatedQuery = reformulateParameterizedQuery(
+					(ParameterizableInputQuery<?>) inputQuery, metricsConsumer, planTrace);
+			if (instantiatedQuery.isPresent())
+				return instantiatedQuery.get();
+		}
+		return reformulate(inputQuery, metricsConsumer, planTrace);
+	}
 
-		ExecutableQuery cachedQuery = queryCache.get(inputQuery);
-		if (cachedQuery != null)
+	/**
+	 * The template query is reformulated (or retrieved from the cache) and then instantiated
+	 * with the actual values of its parameters.
+	 */
+	private Optional<ExecutableQuery> reformulateParameterizedQuery(ParameterizableInputQuery<?> inputQuery,
+																	Consumer<QueryReformulationMetrics> metricsConsumer,
+																	PlanTrace planTrace)
+			throws OntopReformulationException {
+		Optional<? extends ParameterizedInputQuery<?>> parameterizedQuery = inputQuery.parameterize(uriTemplateMatcher,
+				mappingIRIConstants);
+		if (!parameterizedQuery.isPresent())
+			return Optional.empty();
+
+		ExecutableQuery templateQuery = reformulate(parameterizedQuery.get().getTemplateQuery(), metricsConsumer,
+				planTrace);
+		Optional<ExecutableQuery> instantiatedQuery = datasourceQueryGenerator.instantiateTemplate(templateQuery,
+				parameterizedQuery.get().getParameters());
+		if (!instantiatedQuery.isPresent())
+			log.debug("The template query cannot be instantiated, reformulating the bound query instead");
+		return instantiatedQuery;
+	}
+
+	/**
+	 * IRIs built by the mapping without template (used for deciding whether a bound IRI can be parameterized)
+	 */
+	private static ImmutableSet<String> extractIRIConstants(Mapping mapping) {
+		return mapping.getRDFAtomPredicates().stream()
+				.flatMap(p -> mapping.getQueries(p).stream())
+				.flatMap(q -> extractIRIConstants(q.getTree()))
+				.collect(ImmutableCollectors.toSet());
+	}
+
+	private static Stream<String> extractIRIConstants(IQTree tree) {
+		Stream<String> localConstants = (tree.getRootNode() instanceof ConstructionNode)
+				? ((ConstructionNode) tree.getRootNode()).getSubstitution().getImmutableMap().values().stream()
+					.map(QuestQueryProcessor::getIRIConstant)
+					.filter(Optional::isPresent)
+					.map(Optional::get)
+				: Stream.empty();
+		return Stream.concat(localConstants,
+				tree.getChildren().stream()
+						.flatMap(QuestQueryProcessor::extractIRIConstants));
+	}
+
+	private static Optional<String> getIRIConstant(ImmutableTerm term) {
+		if (term instanceof IRIConstant)
+			return Optional.of(((IRIConstant) term).getIRI().getIRIString());
+		if ((term instanceof ImmutableFunctionalTerm)
+				&& (((ImmutableFunctionalTerm) term).getFunctionSymbol() instanceof URITemplatePredicate)
+				&& (((ImmutableFunctionalTerm) term).getArity() == 1)
+				&& (((ImmutableFunctionalTerm) term).getTerm(0) instanceof ValueConstant))
+			return Optional.of(((ValueConstant) ((ImmutableFunctionalTerm) term).getTerm(0)).getValue());
+		return Optional.empty();
+	}
+
+	private ExecutableQuery reformulate(InputQuery inputQuery, Consumer<QueryReformulationMetrics> metricsConsumer,
+										PlanTrace planTrace)
+			throws OntopReformulationException {
+
+		PhaseRecorder recorder = new PhaseRecorder(monitor.isEnabled());
+
+		ExecutableQuery cachedQuery = planTrace.isEnabled() ? null : queryCache.get(inputQuery);
+		if (cachedQuery != null) {
+			reportMetrics(recorder, true, false, metricsConsumer);
 			return cachedQuery;
+		}
 
 		try {
+			recorder.startPhase();
             InternalSparqlQuery translation = inputQuery.translate(inputQueryTranslator);
+			recorder.endPhase(TRANSLATION);
+			planTrace.record(TRANSLATION, translation);
+            checkInterruption();
 
             try {
+				recorder.startPhase();
                 IQ convertedIQ = preProcess(translation);
+				recorder.endPhase(PRE_PROCESSING, convertedIQ);
+				planTrace.record(PRE_PROCESSING, convertedIQ);
 
                 log.debug("Start the rewriting process...");
+				recorder.startPhase(convertedIQ);
                 IQ rewrittenIQ = rewriter.rewrite(convertedIQ);
+				recorder.endPhase(REWRITING, rewrittenIQ);
+				planTrace.record(REWRITING, rewrittenIQ);
+                checkInterruption();
 
-                log.debug("Directly translated (SPARQL) IQ: \n" + rewrittenIQ.toString());
+                log.debug("Directly translated (SPARQL) IQ: \n{}", rewrittenIQ);
 
                 log.debug("Start the unfolding...");
 
+				recorder.startPhase(rewrittenIQ);
                 IQ unfoldedIQ = queryUnfolder.optimize(rewrittenIQ);
+				recorder.endPhase(UNFOLDING, unfoldedIQ);
+				planTrace.record(UNFOLDING, unfoldedIQ);
                 if (unfoldedIQ.getTree().isDeclaredAsEmpty())
                     throw new EmptyQueryException();
-                log.debug("Unfolded query: \n" + unfoldedIQ.toString());
+				recorder.recordUnfoldedQuery(unfoldedIQ);
+                log.debug("Unfolded query: \n{}", unfoldedIQ);
+                checkInterruption();
 
                 // Non-final
+				recorder.startPhase(unfoldedIQ);
                 IntermediateQuery intermediateQuery = iqConverter.convert(unfoldedIQ, dbMetadata, executorRegistry);
+				recorder.endPhase(IQ_CONVERSION, intermediateQuery);
+				planTrace.record(IQ_CONVERSION, intermediateQuery);
 
                 //lift bindings and union when it is possible
+				recorder.startPhase(intermediateQuery);
                 intermediateQuery = bindingLiftOptimizer.optimize(intermediateQuery);
-                log.debug("New query after substitution lift optimization: \n" + intermediateQuery.toString());
-
-                log.debug("New lifted query: \n" + intermediateQuery.toString());
+				recorder.endPhase(BINDING_LIFT, intermediateQuery);
+				planTrace.record(BINDING_LIFT, intermediateQuery);
+                log.debug("New query after substitution lift optimization: \n{}", intermediateQuery);
 
+				recorder.startPhase(intermediateQuery);
                 intermediateQuery = pullUpExpressionOptimizer.optimize(intermediateQuery);
-                log.debug("After pushing up boolean expressions: \n" + intermediateQuery.toString());
+				recorder.endPhase(BOOLEAN_EXPRESSION_PUSH_UP, intermediateQuery);
+				planTrace.record(BOOLEAN_EXPRESSION_PUSH_UP, intermediateQuery);
+                log.debug("After pushing up boolean expressions: \n{}", intermediateQuery);
 
+				recorder.startPhase(intermediateQuery);
                 intermediateQuery = new ProjectionShrinkingOptimizer().optimize(intermediateQuery);
+				recorder.endPhase(PROJECTION_SHRINKING, intermediateQuery);
+				planTrace.record(PROJECTION_SHRINKING, intermediateQuery);
 
-                log.debug("After projection shrinking: \n" + intermediateQuery.toString());
+                log.debug("After projection shrinking: \n{}", intermediateQuery);
 
 
+				recorder.startPhase(intermediateQuery);
                 intermediateQuery = joinLikeOptimizer.optimize(intermediateQuery);
-                log.debug("New query after fixed point join optimization: \n" + intermediateQuery.toString());
+				recorder.endPhase(JOIN_OPTIMIZATION, intermediateQuery);
+				planTrace.record(JOIN_OPTIMIZATION, intermediateQuery);
+                log.debug("New query after fixed point join optimization: \n{}", intermediateQuery);
 
+				recorder.startPhase(intermediateQuery);
                 intermediateQuery = flattenUnionOptimizer.optimize(intermediateQuery);
-                log.debug("New query after flattening Unions: \n" + intermediateQuery.toString());
+				recorder.endPhase(UNION_FLATTENING, intermediateQuery);
+				planTrace.record(UNION_FLATTENING, intermediateQuery);
+                log.debug("New query after flattening Unions: \n{}", intermediateQuery);
 
+                checkInterruption();
+				recorder.startPhase(intermediateQuery);
                 ExecutableQuery executableQuery = generateExecutableQuery(intermediateQuery);
+				recorder.endPhase(NATIVE_QUERY_GENERATION);
+				planTrace.record(NATIVE_QUERY_GENERATION, executableQuery);
                 queryCache.put(inputQuery, executableQuery);
+				reportMetrics(recorder, false, false, metricsConsumer);
                 return executableQuery;
 
             }
@@ -201,7 +342,9 @@ public class QuestQueryProcessor implements QueryReformulator {
 								.collect(ImmutableCollectors.toList()));
 
                 log.debug("Empty query --> no solution.");
+                planTrace.record(NATIVE_QUERY_GENERATION, emptyQuery);
                 queryCache.put(inputQuery, emptyQuery);
+				reportMetrics(recorder, false, true, metricsConsumer);
                 return emptyQuery;
             }
             catch (OntopReformulationException e) {
@@ -219,6 +362,24 @@ public class QuestQueryProcessor implements QueryReformulator {
 		}
 	}
 
+	private void reportMetrics(PhaseRecorder recorder, boolean cacheHit, boolean empty,
+							   Consumer<QueryReformulationMetrics> metricsConsumer) {
+		if (!recorder.isEnabled())
+			return;
+		QueryReformulationMetrics metrics = recorder.build(cacheHit, empty);
+		log.debug("Reformulation metrics: {}", metrics);
+		monitor.record(metrics);
+		metricsConsumer.accept(metrics);
+	}
+
+	/**
+	 * Cooperative cancellation: the reformulation stops between two phases when the thread is interrupted
+	 */
+	private static void checkInterruption() throws OntopReformulationException {
+		if (Thread.currentThread().isInterrupted())
+			throw new OntopReformulationException(new InterruptedException("Query reformulation interrupted"));
+	}
+
 	private ExecutableQuery generateExecutableQuery(IntermediateQuery intermediateQuery)
 			throws OntopReformulationException {
 		log.debug("Producing the native query string...");
@@ -0,0 +1,24 @@
+package it.unibz.inf.ontop.answering.reformulation.input;
+
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.answering.resultset.OBDAResultSet;
+import it.unibz.inf.ontop.utils.UriTemplateMatcher;
+
+import java.util.Optional;
+
+/**
+ * Input query with externally bound constants (e.g. provided through setBinding()).
+ *
+ * The arguments of the bound IRIs can be replaced by placeholders, so that all the queries
+ * only differing by these arguments share the same template (and thus the same reformulation).
+ */
+public interface ParameterizableInputQuery<R extends OBDAResultSet> extends InputQuery<R> {
+
+    /**
+     * mappingIRIConstants: IRIs appearing as constants in the mapping (never parameterized).
+     *
+     * Returns empty if no bound constant can be turned into a parameter.
+     */
+    Optional<ParameterizedInputQuery<R>> parameterize(UriTemplateMatcher uriTemplateMatcher,
+                                                      ImmutableSet<String> mappingIRIConstants);
+}
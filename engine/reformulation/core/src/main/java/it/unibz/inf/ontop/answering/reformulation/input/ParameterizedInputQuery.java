@@ -0,0 +1,35 @@
+package it.unibz.inf.ontop.answering.reformulation.input;
+
+import com.google.common.collect.ImmutableMap;
+import it.unibz.inf.ontop.answering.resultset.OBDAResultSet;
+
+/**
+ * Template query (where some constants are replaced by placeholders)
+ * and the actual values of these placeholders.
+ *
+ * Immutable.
+ */
+public class ParameterizedInputQuery<R extends OBDAResultSet> {
+
+    private final InputQuery<R> templateQuery;
+    private final ImmutableMap<String, String> parameters;
+
+    public ParameterizedInputQuery(InputQuery<R> templateQuery, ImmutableMap<String, String> parameters) {
+        this.templateQuery = templateQuery;
+        this.parameters = parameters;
+    }
+
+    /**
+     * Does not depend on the actual values of the parameters
+     */
+    public InputQuery<R> getTemplateQuery() {
+        return templateQuery;
+    }
+
+    /**
+     * Placeholder -> actual value (as lexical strings)
+     */
+    public ImmutableMap<String, String> getParameters() {
+        return parameters;
+    }
+}
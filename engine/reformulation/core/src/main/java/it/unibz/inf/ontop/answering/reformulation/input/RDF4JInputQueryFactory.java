@@ -1,5 +1,6 @@
 package it.unibz.inf.ontop.answering.reformulation.input;
 
+import org.eclipse.rdf4j.query.BindingSet;
 import org.eclipse.rdf4j.query.parser.ParsedQuery;
 
 /**
@@ -17,6 +18,20 @@ public interface RDF4JInputQueryFactory {
      */
     AskQuery createAskQuery(String queryString, ParsedQuery parsedQuery);
 
+    /**
+     * The bindings are applied to the parsed query (which must not already contain them).
+     *
+     * The resulting query can be parameterized (see ParameterizableInputQuery).
+     */
+    SelectQuery createSelectQuery(String queryString, ParsedQuery parsedQuery, BindingSet bindings);
+
+    /**
+     * The bindings are applied to the parsed query (which must not already contain them).
+     *
+     * The resulting query can be parameterized (see ParameterizableInputQuery).
+     */
+    AskQuery createAskQuery(String queryString, ParsedQuery parsedQuery, BindingSet bindings);
+
     /**
      * TODO: support bindings
      */
@@ -25,6 +25,8 @@ import org.eclipse.rdf4j.query.algebra.TupleExpr;
 import org.eclipse.rdf4j.query.parser.ParsedQuery;
 import org.eclipse.rdf4j.query.parser.sparql.SPARQLParser;
 
+import java.util.Collection;
+
 public class SPARQLQueryUtility {
 	
 	private static final String ASK_KEYWORD = "ask";
@@ -127,6 +129,25 @@ public class SPARQLQueryUtility {
 				+ constant + "> ?p ?o}";
 	}
 
+	/**
+	 * Single CONSTRUCT query describing all the given IRIs (in subject and in object position).
+	 *
+	 * Each IRI appears as a constant in its own UNION branch (and not in a VALUES block),
+	 * so that the mappings can be pruned according to its IRI template.
+	 */
+	public static String getConstructDescribeQuery(Collection<String> constants) {
+		StringBuilder bf = new StringBuilder("CONSTRUCT { ?s ?p ?o } WHERE { ");
+		boolean first = true;
+		for (String constant : constants) {
+			if (!first)
+				bf.append(" UNION ");
+			bf.append("{ <").append(constant).append("> ?p ?o . BIND(<").append(constant).append("> AS ?s) }");
+			bf.append(" UNION { ?s ?p <").append(constant).append("> . BIND(<").append(constant).append("> AS ?o) }");
+			first = false;
+		}
+		return bf.append(" }").toString();
+	}
+
 	public static String getSelectFromConstruct(String strquery){
 		String strlower = strquery.toLowerCase();
 		// Let's assume it IS Construct query and we don't need to check
@@ -1,28 +1,40 @@
 package it.unibz.inf.ontop.answering.reformulation.input.impl;
 
+import com.google.common.collect.ImmutableSet;
 import it.unibz.inf.ontop.answering.reformulation.input.AskQuery;
+import it.unibz.inf.ontop.answering.reformulation.input.ParameterizableInputQuery;
+import it.unibz.inf.ontop.answering.reformulation.input.ParameterizedInputQuery;
 import it.unibz.inf.ontop.answering.resultset.BooleanResultSet;
+import it.unibz.inf.ontop.utils.UriTemplateMatcher;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.impl.EmptyBindingSet;
 import org.eclipse.rdf4j.query.parser.ParsedQuery;
 
+import java.util.Optional;
 
-class RDF4JAskQuery extends RDF4JInputQuery<BooleanResultSet>  implements AskQuery {
 
-    RDF4JAskQuery(ParsedQuery parsedQuery, String queryString) {
-        super(parsedQuery, queryString);
-    }
+class RDF4JAskQuery extends RDF4JInputQuery<BooleanResultSet>  implements AskQuery,
+        ParameterizableInputQuery<BooleanResultSet> {
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+    private final ParsedQuery unboundParsedQuery;
+    private final BindingSet bindings;
 
-        RDF4JAskQuery that = (RDF4JAskQuery) o;
+    RDF4JAskQuery(ParsedQuery parsedQuery, String queryString) {
+        this(parsedQuery, queryString, EmptyBindingSet.getInstance());
+    }
 
-        return getParsedQuery().equals(that.getParsedQuery());
+    RDF4JAskQuery(ParsedQuery unboundParsedQuery, String queryString, BindingSet bindings) {
+        super(RDF4JQueryBindings.apply(unboundParsedQuery, bindings), queryString);
+        this.unboundParsedQuery = unboundParsedQuery;
+        this.bindings = bindings;
     }
 
     @Override
-    public int hashCode() {
-        return getParsedQuery().hashCode();
+    public Optional<ParameterizedInputQuery<BooleanResultSet>> parameterize(UriTemplateMatcher uriTemplateMatcher,
+                                                                ImmutableSet<String> mappingIRIConstants) {
+        return RDF4JQueryBindings.parameterize(unboundParsedQuery, bindings, uriTemplateMatcher, mappingIRIConstants)
+                .map(p -> new ParameterizedInputQuery<>(
+                        new RDF4JAskQuery(unboundParsedQuery, getInputString(), p.getBindings()),
+                        p.getParameters()));
     }
 }
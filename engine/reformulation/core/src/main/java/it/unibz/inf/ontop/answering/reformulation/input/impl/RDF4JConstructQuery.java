@@ -12,10 +12,12 @@ import org.eclipse.rdf4j.query.parser.QueryParserUtil;
 
 class RDF4JConstructQuery extends RDF4JInputQuery<SimpleGraphResultSet> implements ConstructQuery {
     private final ConstructTemplate template;
+    private final ParsedQuery constructParsedQuery;
 
     RDF4JConstructQuery(String queryString, ParsedQuery parsedQuery) {
         super(extractSelectParsedQuery(queryString), queryString);
         this.template = new RDF4JConstructTemplate(parsedQuery);
+        this.constructParsedQuery = parsedQuery;
     }
 
     private static ParsedQuery extractSelectParsedQuery(String constructString) {
@@ -34,21 +36,11 @@ class RDF4JConstructQuery extends RDF4JInputQuery<SimpleGraphResultSet> implemen
         return template;
     }
 
+    /**
+     * The template is taken into account, in addition to the SELECT fragment
+     */
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-
-        RDF4JConstructQuery that = (RDF4JConstructQuery) o;
-
-        if (!template.equals(that.template)) return false;
-        return getParsedQuery().equals(that.getParsedQuery());
-    }
-
-    @Override
-    public int hashCode() {
-        int result = template.hashCode();
-        result = 31 * result + getParsedQuery().hashCode();
-        return result;
+    protected String computeNormalizedKey() {
+        return super.computeNormalizedKey() + "\nTEMPLATE:\n" + RDF4JQueryNormalizer.normalize(constructParsedQuery);
     }
 }
@@ -14,6 +14,8 @@ class RDF4JInputQuery<R extends OBDAResultSet> implements InputQuery<R> {
 
     private final ParsedQuery parsedQuery;
     private final String inputQueryString;
+    // Lazy (computed at most a few times under concurrent access)
+    private volatile String normalizedKey;
 
     /**
      * TODO: support bindings
@@ -40,4 +42,38 @@ class RDF4JInputQuery<R extends OBDAResultSet> implements InputQuery<R> {
     protected ParsedQuery getParsedQuery() {
         return parsedQuery;
     }
+
+    /**
+     * Canonical representation of the query, insensitive to whitespace, prefixes
+     * and to the naming of the non-projected variables.
+     */
+    protected String computeNormalizedKey() {
+        return RDF4JQueryNormalizer.normalize(parsedQuery);
+    }
+
+    private String getNormalizedKey() {
+        String key = normalizedKey;
+        if (key == null) {
+            key = computeNormalizedKey();
+            normalizedKey = key;
+        }
+        return key;
+    }
+
+    /**
+     * Structural equality (used for caching the reformulation)
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        RDF4JInputQuery<?> that = (RDF4JInputQuery<?>) o;
+        return getNormalizedKey().equals(that.getNormalizedKey());
+    }
+
+    @Override
+    public int hashCode() {
+        return getNormalizedKey().hashCode();
+    }
 }
@@ -2,6 +2,7 @@ package it.unibz.inf.ontop.answering.reformulation.input.impl;
 
 import com.google.inject.Inject;
 import it.unibz.inf.ontop.answering.reformulation.input.*;
+import org.eclipse.rdf4j.query.BindingSet;
 import org.eclipse.rdf4j.query.parser.ParsedQuery;
 
 
@@ -21,6 +22,16 @@ public class RDF4JInputQueryFactoryImpl implements RDF4JInputQueryFactory {
         return new RDF4JAskQuery(parsedQuery, queryString);
     }
 
+    @Override
+    public SelectQuery createSelectQuery(String queryString, ParsedQuery parsedQuery, BindingSet bindings) {
+        return new RDF4JSelectQuery(parsedQuery, queryString, bindings);
+    }
+
+    @Override
+    public AskQuery createAskQuery(String queryString, ParsedQuery parsedQuery, BindingSet bindings) {
+        return new RDF4JAskQuery(parsedQuery, queryString, bindings);
+    }
+
     @Override
     public ConstructQuery createConstructQuery(String queryString, ParsedQuery parsedQuery) {
         return new RDF4JConstructQuery(queryString, parsedQuery);
@@ -0,0 +1,255 @@
+package it.unibz.inf.ontop.answering.reformulation.input.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.model.term.ImmutableFunctionalTerm;
+import it.unibz.inf.ontop.model.term.ImmutableTerm;
+import it.unibz.inf.ontop.model.term.ValueConstant;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import it.unibz.inf.ontop.utils.R2RMLIRISafeEncoder;
+import it.unibz.inf.ontop.utils.UriTemplateMatcher;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.algebra.*;
+import org.eclipse.rdf4j.query.algebra.helpers.AbstractQueryModelVisitor;
+import org.eclipse.rdf4j.query.impl.MapBindingSet;
+import org.eclipse.rdf4j.query.parser.ParsedBooleanQuery;
+import org.eclipse.rdf4j.query.parser.ParsedQuery;
+import org.eclipse.rdf4j.query.parser.ParsedTupleQuery;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Applies externally-provided bindings (e.g. from Query.setBinding()) to a parsed query,
+ * without going back to the query string.
+ */
+final class RDF4JQueryBindings {
+
+    /**
+     * Prefix of the placeholder values inserted in the IRI templates
+     */
+    static final String PLACEHOLDER_PREFIX = "ontopParameter";
+
+    private RDF4JQueryBindings() {
+    }
+
+    /**
+     * Returns a new parsed query where the bound variables are replaced by their values.
+     *
+     * The bound variables are removed from the top projection (like when the values are inlined
+     * in the query string).
+     */
+    static ParsedQuery apply(ParsedQuery parsedQuery, BindingSet bindings) {
+        if (bindings.size() == 0)
+            return parsedQuery;
+
+        TupleExpr tupleExpr = parsedQuery.getTupleExpr().clone();
+        removeFromTopProjection(tupleExpr, bindings);
+        tupleExpr.visit(new BindingApplier(bindings));
+
+        ParsedQuery newParsedQuery;
+        if (parsedQuery instanceof ParsedTupleQuery)
+            newParsedQuery = new ParsedTupleQuery(parsedQuery.getSourceString(), tupleExpr);
+        else if (parsedQuery instanceof ParsedBooleanQuery)
+            newParsedQuery = new ParsedBooleanQuery(parsedQuery.getSourceString(), tupleExpr);
+        else
+            throw new IllegalArgumentException("Bindings are only supported for SELECT and ASK queries");
+
+        newParsedQuery.setDataset(parsedQuery.getDataset());
+        return newParsedQuery;
+    }
+
+    /**
+     * Replaces the arguments of the bound IRIs (decomposed according to their IRI template)
+     * by placeholder values.
+     *
+     * Identical arguments share the same placeholder (so that equalities between constants are preserved).
+     *
+     * Literals and IRIs not matching a template are kept as such.
+     *
+     * The reformulation of the template query must not depend on the actual values. Therefore, an IRI is
+     * also kept as such when it is a constant of the mapping, or when the query contains an IRI constant
+     * built from the same template (the placeholder would not be unified with these constants, while the
+     * actual value may).
+     *
+     * Returns empty if no bound value can be parameterized.
+     */
+    static Optional<PlaceholderBindings> parameterize(ParsedQuery unboundParsedQuery, BindingSet bindings,
+                                                      UriTemplateMatcher uriTemplateMatcher,
+                                                      ImmutableSet<String> mappingIRIConstants) {
+        MapBindingSet placeholderBindings = new MapBindingSet(bindings.size());
+        // Actual value -> placeholder
+        Map<String, String> placeholderMap = new LinkedHashMap<>();
+
+        ImmutableSet<ImmutableTerm> queryIRITemplates = extractIRIConstants(unboundParsedQuery.getTupleExpr()).stream()
+                .map(i -> uriTemplateMatcher.generateURIFunction(R2RMLIRISafeEncoder.decode(i)).getTerm(0))
+                .collect(ImmutableCollectors.toSet());
+
+        for (String name : bindings.getBindingNames()) {
+            Value value = bindings.getValue(name);
+            Value newValue = (value instanceof IRI)
+                    ? parameterizeIRI((IRI) value, uriTemplateMatcher, mappingIRIConstants, queryIRITemplates,
+                        placeholderMap)
+                    : value;
+            placeholderBindings.addBinding(name, newValue);
+        }
+
+        if (placeholderMap.isEmpty())
+            return Optional.empty();
+
+        ImmutableMap<String, String> parameters = placeholderMap.entrySet().stream()
+                .collect(ImmutableCollectors.toMap(Map.Entry::getValue, Map.Entry::getKey));
+        return Optional.of(new PlaceholderBindings(placeholderBindings, parameters));
+    }
+
+    /**
+     * Like in the translation of the query, the IRI is decomposed after having been IRI-safe decoded
+     */
+    private static Value parameterizeIRI(IRI iri, UriTemplateMatcher uriTemplateMatcher,
+                                         ImmutableSet<String> mappingIRIConstants,
+                                         ImmutableSet<ImmutableTerm> queryIRITemplates,
+                                         Map<String, String> placeholderMap) {
+        String iriString = R2RMLIRISafeEncoder.decode(iri.stringValue());
+        if (mappingIRIConstants.contains(iriString) || mappingIRIConstants.contains(iri.stringValue()))
+            return iri;
+
+        ImmutableFunctionalTerm functionalTerm = uriTemplateMatcher.generateURIFunction(iriString);
+        ImmutableList<? extends ImmutableTerm> terms = functionalTerm.getTerms();
+        // No template (e.g. direct IRI column)
+        if (terms.size() < 2 || !(terms.get(0) instanceof ValueConstant) || queryIRITemplates.contains(terms.get(0)))
+            return iri;
+
+        String template = ((ValueConstant) terms.get(0)).getValue();
+
+        Map<String, String> newPlaceholderMap = new LinkedHashMap<>(placeholderMap);
+        ImmutableList<String> placeholders = terms.subList(1, terms.size()).stream()
+                .map(t -> ((ValueConstant) t).getValue())
+                .map(v -> newPlaceholderMap.computeIfAbsent(v, k -> PLACEHOLDER_PREFIX + newPlaceholderMap.size()))
+                .collect(ImmutableCollectors.toList());
+
+        StringBuilder sb = new StringBuilder();
+        int start = 0;
+        for (String placeholder : placeholders) {
+            int index = template.indexOf("{}", start);
+            if (index < 0)
+                return iri;
+            sb.append(template, start, index).append(placeholder);
+            start = index + 2;
+        }
+        sb.append(template.substring(start));
+        String placeholderIRIString = sb.toString();
+        // Must not be modified by the decoding of the translation
+        if (!R2RMLIRISafeEncoder.decode(placeholderIRIString).equals(placeholderIRIString))
+            return iri;
+
+        // The placeholder IRI must be decomposed in the same way as the original one
+        ImmutableFunctionalTerm placeholderTerm = uriTemplateMatcher.generateURIFunction(placeholderIRIString);
+        ImmutableList<? extends ImmutableTerm> placeholderTerms = placeholderTerm.getTerms();
+        if (!placeholderTerms.get(0).equals(terms.get(0))
+                || placeholderTerms.size() != terms.size()
+                || !placeholderTerms.subList(1, placeholderTerms.size()).stream()
+                    .map(t -> ((ValueConstant) t).getValue())
+                    .collect(Collectors.toList())
+                    .equals(placeholders))
+            return iri;
+
+        placeholderMap.putAll(newPlaceholderMap);
+        return SimpleValueFactory.getInstance().createIRI(placeholderIRIString);
+    }
+
+    /**
+     * IRIs appearing as constants in the query (triple patterns, filters, etc.)
+     */
+    private static ImmutableSet<String> extractIRIConstants(TupleExpr tupleExpr) {
+        ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+        tupleExpr.visit(new AbstractQueryModelVisitor<RuntimeException>() {
+            @Override
+            public void meet(Var node) {
+                if (node.getValue() instanceof IRI)
+                    builder.add(node.getValue().stringValue());
+            }
+
+            @Override
+            public void meet(org.eclipse.rdf4j.query.algebra.ValueConstant node) {
+                if (node.getValue() instanceof IRI)
+                    builder.add(node.getValue().stringValue());
+            }
+        });
+        return builder.build();
+    }
+
+    private static void removeFromTopProjection(TupleExpr tupleExpr, BindingSet bindings) {
+        TupleExpr expr = tupleExpr;
+        while ((expr instanceof Slice) || (expr instanceof Distinct) || (expr instanceof Reduced)
+                || (expr instanceof Order))
+            expr = ((UnaryTupleOperator) expr).getArg();
+
+        if (expr instanceof Projection) {
+            ProjectionElemList elemList = ((Projection) expr).getProjectionElemList();
+            List<ProjectionElem> remainingElements = elemList.getElements().stream()
+                    .filter(e -> !bindings.hasBinding(e.getTargetName()))
+                    .collect(Collectors.toList());
+            elemList.setElements(remainingElements);
+        }
+    }
+
+
+    /**
+     * Bindings where the IRI template arguments have been replaced by placeholders,
+     * and the mapping from these placeholders to the actual values.
+     */
+    static class PlaceholderBindings {
+        private final BindingSet bindings;
+        private final ImmutableMap<String, String> parameters;
+
+        private PlaceholderBindings(BindingSet bindings, ImmutableMap<String, String> parameters) {
+            this.bindings = bindings;
+            this.parameters = parameters;
+        }
+
+        BindingSet getBindings() {
+            return bindings;
+        }
+
+        /**
+         * Placeholder -> actual value
+         */
+        ImmutableMap<String, String> getParameters() {
+            return parameters;
+        }
+    }
+
+
+    private static class BindingApplier extends AbstractQueryModelVisitor<RuntimeException> {
+        private final BindingSet bindings;
+
+        private BindingApplier(BindingSet bindings) {
+            this.bindings = bindings;
+        }
+
+        @Override
+        public void meet(Var node) {
+            if (node.hasValue() || !bindings.hasBinding(node.getName()))
+                return;
+
+            Value value = bindings.getValue(node.getName());
+            QueryModelNode parent = node.getParentNode();
+
+            // Var in a triple pattern
+            if (parent instanceof StatementPattern)
+                node.setValue(value);
+            // BOUND(?x) only accepts a variable
+            else if ((parent instanceof ValueExpr) && !(parent instanceof Bound))
+                node.replaceWith(new org.eclipse.rdf4j.query.algebra.ValueConstant(value));
+            else
+                node.setValue(value);
+        }
+    }
+}
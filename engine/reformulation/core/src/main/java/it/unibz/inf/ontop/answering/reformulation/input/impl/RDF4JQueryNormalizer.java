@@ -0,0 +1,118 @@
+package it.unibz.inf.ontop.answering.reformulation.input.impl;
+
+import com.google.common.collect.ImmutableSet;
+import org.eclipse.rdf4j.query.algebra.*;
+import org.eclipse.rdf4j.query.algebra.helpers.AbstractQueryModelVisitor;
+import org.eclipse.rdf4j.query.parser.ParsedBooleanQuery;
+import org.eclipse.rdf4j.query.parser.ParsedQuery;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Builds a canonical string for a parsed SPARQL query.
+ *
+ * Prefixes and whitespace are already resolved by the parser. The remaining variability comes
+ * from the names of the internal variables (including the generated names of anonymous variables),
+ * which are renamed consistently in the order of their first occurrence.
+ *
+ * The variables visible in the results (projected ones) are kept as they are,
+ * as they appear in the signature of the reformulated query.
+ */
+final class RDF4JQueryNormalizer {
+
+    /**
+     * Not a valid SPARQL variable name: prevents any conflict with the preserved names.
+     */
+    private static final String RENAMED_VARIABLE_PREFIX = "#v";
+
+    private RDF4JQueryNormalizer() {
+    }
+
+    static String normalize(ParsedQuery parsedQuery) {
+        TupleExpr tupleExpr = parsedQuery.getTupleExpr().clone();
+
+        ImmutableSet<String> preservedNames = (parsedQuery instanceof ParsedBooleanQuery)
+                ? ImmutableSet.of()
+                : ImmutableSet.copyOf(tupleExpr.getBindingNames());
+
+        VariableRenamer renamer = new VariableRenamer(preservedNames);
+        tupleExpr.visit(renamer);
+
+        return renamer.isComplete()
+                ? tupleExpr.toString() + "\nDATASET: " + parsedQuery.getDataset()
+                // Renaming not applicable: falls back to the original names
+                : parsedQuery.getTupleExpr().toString() + "\nDATASET: " + parsedQuery.getDataset();
+    }
+
+
+    private static class VariableRenamer extends AbstractQueryModelVisitor<RuntimeException> {
+
+        private final ImmutableSet<String> preservedNames;
+        private final Map<String, String> renaming = new HashMap<>();
+        private boolean complete = true;
+
+        private VariableRenamer(ImmutableSet<String> preservedNames) {
+            this.preservedNames = preservedNames;
+        }
+
+        boolean isComplete() {
+            return complete;
+        }
+
+        private String rename(String name) {
+            if (name == null || preservedNames.contains(name))
+                return name;
+            return renaming.computeIfAbsent(name, n -> RENAMED_VARIABLE_PREFIX + renaming.size());
+        }
+
+        @Override
+        public void meet(Var node) {
+            // Constants are identified by their value
+            if (!node.hasValue())
+                node.setName(rename(node.getName()));
+        }
+
+        @Override
+        public void meet(ProjectionElem node) {
+            node.setSourceName(rename(node.getSourceName()));
+            node.setTargetName(rename(node.getTargetName()));
+        }
+
+        @Override
+        public void meet(ExtensionElem node) {
+            node.setName(rename(node.getName()));
+            super.meet(node);
+        }
+
+        @Override
+        public void meet(Group node) {
+            Set<String> groupBindingNames = node.getGroupBindingNames().stream()
+                    .map(this::rename)
+                    .collect(Collectors.toSet());
+            node.setGroupBindingNames(groupBindingNames);
+            super.meet(node);
+        }
+
+        @Override
+        public void meet(GroupElem node) {
+            node.setName(rename(node.getName()));
+            super.meet(node);
+        }
+
+        /**
+         * VALUES blocks carry the names inside their binding sets: not renamed.
+         */
+        @Override
+        public void meet(BindingSetAssignment node) {
+            complete = false;
+        }
+
+        @Override
+        public void meet(Service node) {
+            complete = false;
+        }
+    }
+}
@@ -1,30 +1,39 @@
 package it.unibz.inf.ontop.answering.reformulation.input.impl;
 
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.answering.reformulation.input.ParameterizableInputQuery;
+import it.unibz.inf.ontop.answering.reformulation.input.ParameterizedInputQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.SelectQuery;
 import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.utils.UriTemplateMatcher;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.impl.EmptyBindingSet;
 import org.eclipse.rdf4j.query.parser.ParsedQuery;
 
-class RDF4JSelectQuery extends RDF4JInputQuery<TupleResultSet> implements SelectQuery {
+import java.util.Optional;
 
-    /**
-     * TODO: support bindings
-     */
-    RDF4JSelectQuery(ParsedQuery parsedQuery, String queryString) {
-        super(parsedQuery, queryString);
-    }
+class RDF4JSelectQuery extends RDF4JInputQuery<TupleResultSet> implements SelectQuery,
+        ParameterizableInputQuery<TupleResultSet> {
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+    private final ParsedQuery unboundParsedQuery;
+    private final BindingSet bindings;
 
-        RDF4JSelectQuery that = (RDF4JSelectQuery) o;
+    RDF4JSelectQuery(ParsedQuery parsedQuery, String queryString) {
+        this(parsedQuery, queryString, EmptyBindingSet.getInstance());
+    }
 
-        return getParsedQuery().equals(that.getParsedQuery());
+    RDF4JSelectQuery(ParsedQuery unboundParsedQuery, String queryString, BindingSet bindings) {
+        super(RDF4JQueryBindings.apply(unboundParsedQuery, bindings), queryString);
+        this.unboundParsedQuery = unboundParsedQuery;
+        this.bindings = bindings;
     }
 
     @Override
-    public int hashCode() {
-        return getParsedQuery().hashCode();
+    public Optional<ParameterizedInputQuery<TupleResultSet>> parameterize(UriTemplateMatcher uriTemplateMatcher,
+                                                                ImmutableSet<String> mappingIRIConstants) {
+        return RDF4JQueryBindings.parameterize(unboundParsedQuery, bindings, uriTemplateMatcher, mappingIRIConstants)
+                .map(p -> new ParameterizedInputQuery<>(
+                        new RDF4JSelectQuery(unboundParsedQuery, getInputString(), p.getBindings()),
+                        p.getParameters()));
     }
 }
@@ -8,6 +8,7 @@ import it.unibz.inf.ontop.answering.reformulation.input.translation.RDF4JInputQu
 import it.unibz.inf.ontop.answering.reformulation.IRIDictionary;
 import it.unibz.inf.ontop.exception.OntopInvalidInputQueryException;
 import it.unibz.inf.ontop.exception.OntopUnsupportedInputQueryException;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
 import it.unibz.inf.ontop.model.atom.AtomFactory;
 import it.unibz.inf.ontop.model.term.TermFactory;
 import it.unibz.inf.ontop.model.term.impl.ImmutabilityTools;
@@ -17,6 +18,7 @@ import org.apache.commons.rdf.api.RDF;
 import org.eclipse.rdf4j.query.parser.ParsedQuery;
 
 import javax.annotation.Nullable;
+import java.util.Optional;
 
 /**
  * Wrapper for SparqlAlgebraToDatalogTranslator to make it thread-safe
@@ -32,6 +34,7 @@ public class DatalogSparqlQueryTranslator implements RDF4JInputQueryTranslator {
     private final DatalogFactory datalogFactory;
     private final ImmutabilityTools immutabilityTools;
     private final RDF rdfFactory;
+    private final Optional<Integer> propertyPathMaxDepth;
 
     /**
      * TODO: use Guice and retrieve the IRIDictionary by injection (not assisted, nullable)
@@ -41,7 +44,8 @@ public class DatalogSparqlQueryTranslator implements RDF4JInputQueryTranslator {
                                          @Nullable IRIDictionary iriDictionary,
                                          AtomFactory atomFactory, TermFactory termFactory,
                                          TypeFactory typeFactory, DatalogFactory datalogFactory,
-                                         ImmutabilityTools immutabilityTools, RDF rdfFactory) {
+                                         ImmutabilityTools immutabilityTools, RDF rdfFactory,
+                                         OntopReformulationSettings settings) {
 
         this.uriTemplateMatcher = uriTemplateMatcher;
         this.iriDictionary = iriDictionary;
@@ -51,6 +55,7 @@ public class DatalogSparqlQueryTranslator implements RDF4JInputQueryTranslator {
         this.datalogFactory = datalogFactory;
         this.immutabilityTools = immutabilityTools;
         this.rdfFactory = rdfFactory;
+        this.propertyPathMaxDepth = settings.getPropertyPathMaxDepth();
     }
 
 
@@ -60,7 +65,7 @@ public class DatalogSparqlQueryTranslator implements RDF4JInputQueryTranslator {
 
         SparqlAlgebraToDatalogTranslator mutableTranslator =
                 new SparqlAlgebraToDatalogTranslator(uriTemplateMatcher, iriDictionary, atomFactory, termFactory,
-                        typeFactory, datalogFactory, immutabilityTools, rdfFactory);
+                        typeFactory, datalogFactory, immutabilityTools, rdfFactory, propertyPathMaxDepth);
 
         return mutableTranslator.translate(inputParsedQuery);
     }
@@ -46,6 +46,7 @@ import org.eclipse.rdf4j.model.datatypes.XMLDatatypeUtil;
 import org.eclipse.rdf4j.model.vocabulary.RDF;
 import org.eclipse.rdf4j.query.BindingSet;
 import org.eclipse.rdf4j.query.algebra.*;
+import org.eclipse.rdf4j.query.algebra.helpers.AbstractQueryModelVisitor;
 import org.eclipse.rdf4j.query.parser.ParsedGraphQuery;
 import org.eclipse.rdf4j.query.parser.ParsedQuery;
 import org.eclipse.rdf4j.query.parser.ParsedTupleQuery;
@@ -71,6 +72,10 @@ public class SparqlAlgebraToDatalogTranslator {
 
     private static final Logger log = LoggerFactory.getLogger(SparqlAlgebraToDatalogTranslator.class);
 
+    private static final String PATH_SOURCE_PREFIX = "ontopPathSource";
+    private static final String PATH_TARGET_PREFIX = "ontopPathTarget";
+    private static final String PATH_NODE_PREFIX = "ontopPathNode";
+
 	private final UriTemplateMatcher uriTemplateMatcher;
 	private final IRIDictionary uriRef;
     private final AtomFactory atomFactory;
@@ -80,9 +85,12 @@ public class SparqlAlgebraToDatalogTranslator {
     private final DatalogProgram program;
     private final DatalogFactory datalogFactory;
     private int predicateIdx = 0;
+    // aggregates computed by the GROUP BY operators translated so far
+    private final Map<ValueExpr, Variable> aggregateVariables = new HashMap<>();
     private final org.apache.commons.rdf.api.RDF rdfFactory;
     private final it.unibz.inf.ontop.model.term.ValueConstant valueNull;
     private final ImmutabilityTools immutabilityTools;
+    private final Optional<Integer> propertyPathMaxDepth;
 
     /**
      * @param uriTemplateMatcher matches URIs to templates (comes from mappings)
@@ -98,6 +106,19 @@ public class SparqlAlgebraToDatalogTranslator {
                                      AtomFactory atomFactory, TermFactory termFactory, TypeFactory typeFactory,
                                      DatalogFactory datalogFactory, ImmutabilityTools immutabilityTools,
                                      org.apache.commons.rdf.api.RDF rdfFactory) {
+	    this(uriTemplateMatcher, iriDictionary, atomFactory, termFactory, typeFactory, datalogFactory,
+                immutabilityTools, rdfFactory, Optional.empty());
+    }
+
+     * @param propertyPathMaxDepth maximal length of the paths for the property paths p+ and p* (empty: no bound)
+     * @param propertyPathMaxDepth maximal length of the paths for the property paths p+ and p*
+     */
+    SparqlAlgebraToDatalogTranslator(@Nonnull UriTemplateMatcher uriTemplateMatcher,
+                                     @Nullable IRIDictionary iriDictionary,
+                                     AtomFactory atomFactory, TermFactory termFactory, TypeFactory typeFactory,
+                                     DatalogFactory datalogFactory, ImmutabilityTools immutabilityTools,
+                                     org.apache.commons.rdf.api.RDF rdfFactory,
+                                     Optional<Integer> propertyPathMaxDepth) {
 		this.uriTemplateMatcher = uriTemplateMatcher;
 		this.uriRef = iriDictionary;
         this.atomFactory = atomFactory;
@@ -109,6 +130,7 @@ public class SparqlAlgebraToDatalogTranslator {
         this.program = this.datalogFactory.getDatalogProgram();
         this.rdfFactory = rdfFactory;
         this.valueNull = termFactory.getNullConstant();
+        this.propertyPathMaxDepth = propertyPathMaxDepth;
     }
 
 	/**
@@ -397,7 +419,10 @@ public class SparqlAlgebraToDatalogTranslator {
             TranslationResult sub = translate(extension.getArg());
             final Stream<ExtensionElem> nontrivialBindings = extension.getElements().stream()
                     // ignore EXTEND(P, v, v), which is sometimes introduced by Sesame SPARQL parser
-                    .filter(ee -> !(ee.getExpr() instanceof Var && ee.getName().equals(((Var) ee.getExpr()).getName())));
+                    .filter(ee -> !(ee.getExpr() instanceof Var && ee.getName().equals(((Var) ee.getExpr()).getName())))
+                    // ignore the aggregates already computed (under the same name) by the GROUP BY below
+                    .filter(ee -> !(ee.getExpr() instanceof AggregateOperator
+                            && sub.variables.contains(termFactory.getVariable(ee.getName()))));
             return sub.extendWithBindings(
                     nontrivialBindings,
                     ee -> termFactory.getVariable(ee.getName()),
@@ -425,11 +450,209 @@ public class SparqlAlgebraToDatalogTranslator {
             return res;
         }
         else if (node instanceof Group) {
-            throw new OntopUnsupportedInputQueryException("GROUP BY is not supported yet");
+            return translateGroup((Group) node);
+        }
+        else if (node instanceof ArbitraryLengthPath) { // property paths p+ and p*
+            return translateArbitraryLengthPath((ArbitraryLengthPath) node);
+        }
+        else if (node instanceof ZeroLengthPath) {
+            return translateZeroLengthPath((ZeroLengthPath) node);
         }
         throw new OntopUnsupportedInputQueryException("Not supported: " + node);
     }
 
+    /**
+     * GROUP BY: translated into a rule of the form
+     *    ansN(x, COUNT(y)) :- ansM(x, y), Group(x)
+     * where the Group atom lists the grouping variables.
+     *
+     * Only COUNT, SUM, AVG, MIN and MAX are supported (without DISTINCT).
+     */
+    private TranslationResult translateGroup(Group group)
+            throws OntopUnsupportedInputQueryException, OntopInvalidInputQueryException {
+        TranslationResult sub = translate(group.getArg());
+
+        // grouping variables that are not bound by the argument are always NULL: ignored
+        List<Term> groupingVariables = group.getGroupBindingNames().stream()
+                .map(termFactory::getVariable)
+                .filter(sub.variables::contains)
+                .collect(Collectors.toList());
+
+        LinkedHashSet<Variable> vars = groupingVariables.stream()
+                .map(t -> (Variable) t)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        List<Term> headTerms = new ArrayList<>(groupingVariables);
+        for (GroupElem ge : group.getGroupElements()) {
+            Variable v = termFactory.getVariable(ge.getName());
+            if (!vars.add(v))
+                throw new OntopInvalidInputQueryException("Duplicate binding for variable " + v);
+            headTerms.add(getAggregate(ge.getOperator(), sub.variables));
+            aggregateVariables.put(ge.getOperator(), v);
+        }
+
+        Function head = getFreshHead(headTerms);
+        appendRule(head, ImmutableList.of(
+                wrapNonTriplePattern(sub),
+                termFactory.getFunction(datalogFactory.getSparqlGroupPredicate(), groupingVariables)));
+
+        Function atom = termFactory.getFunction(head.getFunctionSymbol(), new ArrayList<>(vars));
+        return new TranslationResult(ImmutableList.of(atom), vars, false);
+    }
+
+    /**
+     * Property path p+ (and p*): translated into the rules
+     *    stepN(s, o) :- [translation of p]
+     *    closureM(s, o) :- stepN(s, o), TransitiveClosure(s, o)
+     * where the TransitiveClosure atom may also carry the maximal depth of the paths.
+     *
+     * For p*, the zero-length paths are added: the constant end if there is one,
+     * otherwise the nodes appearing in the relation p.
+     */
+    private TranslationResult translateArbitraryLengthPath(ArbitraryLengthPath path)
+            throws OntopUnsupportedInputQueryException, OntopInvalidInputQueryException {
+        Var subject = path.getSubjectVar();
+        Var object = path.getObjectVar();
+
+        if (path.getMinLength() > 1)
+            throw new OntopUnsupportedInputQueryException("Property paths of minimal length "
+                    + path.getMinLength() + " are not supported yet");
+        if (subject.getName().equals(object.getName()))
+            throw new OntopUnsupportedInputQueryException("Property paths with the same subject and object " +
+                    "are not supported yet: " + path);
+
+        // not shared with the nested paths
+        int pathIdx = predicateIdx++;
+        Variable source = termFactory.getVariable(PATH_SOURCE_PREFIX + pathIdx);
+        Variable target = termFactory.getVariable(PATH_TARGET_PREFIX + pathIdx);
+        Variable node = termFactory.getVariable(PATH_NODE_PREFIX + pathIdx);
+
+        // The ends of the step are always variables (even when the ends of the path are constants)
+        TupleExpr stepExpression = path.getPathExpression().clone();
+        stepExpression.visit(new AbstractQueryModelVisitor<RuntimeException>() {
+            @Override
+            public void meet(Var var) {
+                if (var.getName().equals(subject.getName()))
+                    renameEnd(var, source);
+                else if (var.getName().equals(object.getName()))
+                    renameEnd(var, target);
+            }
+        });
+        TranslationResult step = translate(stepExpression);
+        if (!(step.variables.contains(source) && step.variables.contains(target)))
+            throw new OntopUnsupportedInputQueryException("The property path " + path + " is not supported yet");
+
+        Function stepHead = getFreshHead(Lists.<Term>newArrayList(source, target));
+        appendRule(stepHead, step.atoms);
+
+        List<Term> closureArguments = Lists.<Term>newArrayList(source, target);
+        propertyPathMaxDepth
+                .map(d -> termFactory.getConstantLiteral(String.valueOf(d), typeFactory.getXsdIntegerDatatype()))
+                .ifPresent(closureArguments::add);
+
+        Function closureHead = getFreshHead(Lists.<Term>newArrayList(source, target));
+        appendRule(closureHead, ImmutableList.of(stepHead,
+                termFactory.getFunction(datalogFactory.getSparqlTransitiveClosurePredicate(), closureArguments)));
+
+        Function pathHead;
+        if (path.getMinLength() == 0) {
+            pathHead = getFreshHead(Lists.<Term>newArrayList(source, target));
+            appendRule(pathHead, ImmutableList.of(closureHead));
+
+            if (subject.hasValue() || object.hasValue()) {
+                Term end = getTermForLiteralOrIri(subject.hasValue() ? subject.getValue() : object.getValue());
+                appendRule(pathHead, ImmutableList.of(
+                        termFactory.getFunctionEQ(source, end),
+                        termFactory.getFunctionEQ(target, end)));
+            }
+            else {
+                appendRule(pathHead, ImmutableList.of(
+                        termFactory.getFunction(stepHead.getFunctionSymbol(), source, node),
+                        termFactory.getFunctionEQ(target, source)));
+                appendRule(pathHead, ImmutableList.of(
+                        termFactory.getFunction(stepHead.getFunctionSymbol(), node, source),
+                        termFactory.getFunctionEQ(target, source)));
+            }
+        }
+        else
+            pathHead = closureHead;
+
+        LinkedHashSet<Variable> variables = new LinkedHashSet<>();
+        Term subjectTerm = subject.hasValue()
+                ? getTermForLiteralOrIri(subject.getValue())
+                : getTermForVariable(subject, variables);
+        Term objectTerm = object.hasValue()
+                ? getTermForLiteralOrIri(object.getValue())
+                : getTermForVariable(object, variables);
+
+        Function atom = termFactory.getFunction(pathHead.getFunctionSymbol(), subjectTerm, objectTerm);
+        return new TranslationResult(ImmutableList.of(atom), variables, false);
+    }
+
+    private static void renameEnd(Var var, Variable newVariable) {
+        var.setName(newVariable.getName());
+        var.setValue(null);
+    }
+
+    /**
+     * Only when one of the ends is a constant (otherwise, all the nodes of the graph would be needed)
+     */
+    private TranslationResult translateZeroLengthPath(ZeroLengthPath path)
+            throws OntopUnsupportedInputQueryException {
+        Var subject = path.getSubjectVar();
+        Var object = path.getObjectVar();
+
+        if (!(subject.hasValue() || object.hasValue()))
+            throw new OntopUnsupportedInputQueryException("Zero-length paths between two variables " +
+                    "are not supported yet: " + path);
+
+        LinkedHashSet<Variable> variables = new LinkedHashSet<>();
+        Term subjectTerm = subject.hasValue()
+                ? getTermForLiteralOrIri(subject.getValue())
+                : getTermForVariable(subject, variables);
+        Term objectTerm = object.hasValue()
+                ? getTermForLiteralOrIri(object.getValue())
+                : getTermForVariable(object, variables);
+
+        // single solution (like the empty BGP)
+        if (subjectTerm.equals(objectTerm))
+            return new TranslationResult(ImmutableList.of(), variables, true);
+
+        return new TranslationResult(ImmutableList.of(termFactory.getFunctionEQ(subjectTerm, objectTerm)),
+                variables, false);
+    }
+
+    private Function getAggregate(AggregateOperator operator, Set<Variable> variables)
+            throws OntopUnsupportedInputQueryException, OntopInvalidInputQueryException {
+        if (operator.isDistinct())
+            throw new OntopUnsupportedInputQueryException("DISTINCT in aggregates is not supported yet: " + operator);
+
+        if (!(operator instanceof UnaryValueOperator))
+            throw new OntopUnsupportedInputQueryException("The aggregate " + operator + " is not supported yet");
+        ValueExpr argument = ((UnaryValueOperator) operator).getArg();
+
+        if (operator instanceof Count) {
+            // COUNT(*) counts the solutions: equivalent to the count of a constant
+            Term arg = (argument == null)
+                    ? termFactory.getConstantLiteral("1", typeFactory.getXsdIntegerDatatype())
+                    : getExpression(argument, variables);
+            return termFactory.getFunction(ExpressionOperation.COUNT, arg);
+        }
+        else if (operator instanceof Sum) {
+            return termFactory.getFunction(ExpressionOperation.SUM, getExpression(argument, variables));
+        }
+        else if (operator instanceof Avg) {
+            return termFactory.getFunction(ExpressionOperation.AVG, getExpression(argument, variables));
+        }
+        else if (operator instanceof Min) {
+            return termFactory.getFunction(ExpressionOperation.MIN, getExpression(argument, variables));
+        }
+        else if (operator instanceof Max) {
+            return termFactory.getFunction(ExpressionOperation.MAX, getExpression(argument, variables));
+        }
+        throw new OntopUnsupportedInputQueryException("The aggregate " + operator + " is not supported yet");
+    }
+
     /**
      *
      * @param expr  expression
@@ -605,7 +828,14 @@ public class SparqlAlgebraToDatalogTranslator {
         //                          RDFLiteral | NumericLiteral | BooleanLiteral | Var
         // iriOrFunction ::= iri ArgList?
 
-		if (expr instanceof Var) {
+		if (expr instanceof AggregateOperator) {
+            // computed by the GROUP BY below (see translateGroup)
+            Variable var = aggregateVariables.get(expr);
+            if (var == null)
+                throw new OntopInvalidInputQueryException("The aggregate " + expr + " is not computed by a GROUP BY");
+            return variables.contains(var) ? var : valueNull;
+        }
+		else if (expr instanceof Var) {
             Var v = (Var) expr;
             Variable var = termFactory.getVariable(v.getName());
             return variables.contains(var) ? var : valueNull;
@@ -0,0 +1,146 @@
+package it.unibz.inf.ontop.answering.reformulation.metrics;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Metrics of the reformulation of one query.
+ *
+ * Immutable.
+ */
+public class QueryReformulationMetrics {
+
+    /**
+     * Tree size of the phases that do not operate on a tree (e.g. the translation)
+     */
+    public static final int NO_TREE_SIZE = -1;
+
+    private final boolean cacheHit;
+    private final boolean empty;
+    private final long totalDurationNanos;
+    private final ImmutableMap<ReformulationPhase, PhaseMetrics> phases;
+    private final int unionWidthAfterUnfolding;
+
+    private QueryReformulationMetrics(Builder builder, boolean cacheHit, boolean empty, long totalDurationNanos) {
+        this.cacheHit = cacheHit;
+        this.empty = empty;
+        this.totalDurationNanos = totalDurationNanos;
+        this.phases = ImmutableMap.copyOf(builder.phases);
+        this.unionWidthAfterUnfolding = builder.unionWidthAfterUnfolding;
+    }
+
+    /**
+     * True if the native query was retrieved from the cache (no phase has been executed)
+     */
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    /**
+     * True if the reformulation has detected that the query has no solution
+     * (the remaining phases have been skipped)
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    public long getTotalDurationNanos() {
+        return totalDurationNanos;
+    }
+
+    /**
+     * Executed phases, in their order of execution
+     */
+    public ImmutableMap<ReformulationPhase, PhaseMetrics> getPhases() {
+        return phases;
+    }
+
+    /**
+     * Largest number of children of a union in the unfolded query (0 if there is no union)
+     */
+    public int getUnionWidthAfterUnfolding() {
+        return unionWidthAfterUnfolding;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("QueryReformulationMetrics{total=")
+                .append(totalDurationNanos / 1000).append("us");
+        if (cacheHit)
+            sb.append(", cacheHit");
+        if (empty)
+            sb.append(", empty");
+        sb.append(", unionWidth=").append(unionWidthAfterUnfolding);
+        for (Map.Entry<ReformulationPhase, PhaseMetrics> e : phases.entrySet())
+            sb.append(", ").append(e.getKey()).append('=').append(e.getValue());
+        return sb.append('}').toString();
+    }
+
+
+    public static class PhaseMetrics {
+        private final long durationNanos;
+        private final int treeSizeBefore;
+        private final int treeSizeAfter;
+
+        private PhaseMetrics(long durationNanos, int treeSizeBefore, int treeSizeAfter) {
+            this.durationNanos = durationNanos;
+            this.treeSizeBefore = treeSizeBefore;
+            this.treeSizeAfter = treeSizeAfter;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        /**
+         * Number of nodes of the query tree (NO_TREE_SIZE if not applicable)
+         */
+        public int getTreeSizeBefore() {
+            return treeSizeBefore;
+        }
+
+        /**
+         * Number of nodes of the query tree (NO_TREE_SIZE if not applicable)
+         */
+        public int getTreeSizeAfter() {
+            return treeSizeAfter;
+        }
+
+        @Override
+        public String toString() {
+            return (durationNanos / 1000) + "us[" + treeSizeBefore + "->" + treeSizeAfter + "]";
+        }
+    }
+
+
+    /**
+     * Not thread-safe
+     */
+    public static class Builder {
+        private final long startNanos;
+        private final Map<ReformulationPhase, PhaseMetrics> phases;
+        private int unionWidthAfterUnfolding;
+
+        public Builder() {
+            this.startNanos = System.nanoTime();
+            this.phases = new EnumMap<>(ReformulationPhase.class);
+            this.unionWidthAfterUnfolding = 0;
+        }
+
+        public Builder addPhase(ReformulationPhase phase, long durationNanos, int treeSizeBefore, int treeSizeAfter) {
+            phases.put(phase, new PhaseMetrics(durationNanos, treeSizeBefore, treeSizeAfter));
+            return this;
+        }
+
+        public Builder unionWidthAfterUnfolding(int width) {
+            this.unionWidthAfterUnfolding = width;
+            return this;
+        }
+
+        public QueryReformulationMetrics build(boolean cacheHit, boolean empty) {
+            return new QueryReformulationMetrics(this, cacheHit, empty, System.nanoTime() - startNanos);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package it.unibz.inf.ontop.answering.reformulation.metrics;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Aggregates the metrics of the reformulated queries.
+ *
+ * Pluggable (see the implementation properties). Implementations must be thread-safe,
+ * and shared by all the query reformulators of the same configuration (singleton).
+ */
+public interface ReformulationMonitor {
+
+    /**
+     * When false, the reformulation does not collect any metric
+     */
+    boolean isEnabled();
+
+    void record(QueryReformulationMetrics metrics);
+
+    /**
+     * Latencies of the phases (phases never executed are absent)
+     */
+    ImmutableMap<ReformulationPhase, LatencyStatistics> getPhaseStatistics();
+
+    /**
+     * Latencies of the complete reformulations (cache hits excluded)
+     */
+    LatencyStatistics getReformulationStatistics();
+
+    long getCacheHitCount();
+
+    long getCacheMissCount();
+
+    /**
+     * Largest union width observed after unfolding
+     */
+    int getMaxUnionWidthAfterUnfolding();
+
+    /**
+     * Forgets everything recorded so far
+     */
+    void reset();
+
+    /**
+     * Releases the resources held by the monitor (e.g. unregisters its MXBean).
+     *
+     * Called when the query engine is closed.
+     */
+    void close();
+
+
+    /**
+     * Snapshot of a latency histogram
+     */
+    interface LatencyStatistics {
+
+        long getCount();
+
+        long getTotalNanos();
+
+        long getMaxNanos();
+
+        /**
+         * Approximation (upper bound of the histogram bucket)
+         *
+         * @param quantile between 0 and 1 (e.g. 0.99)
+         */
+        long getQuantileNanos(double quantile);
+
+        default long getMeanNanos() {
+            long count = getCount();
+            return (count == 0) ? 0 : getTotalNanos() / count;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package it.unibz.inf.ontop.answering.reformulation.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of the ReformulationMonitor (durations in microseconds, phases indexed by their names)
+ */
+public interface ReformulationMonitorMXBean {
+
+    long getReformulationCount();
+
+    double getMeanReformulationMicros();
+
+    double getReformulation99thPercentileMicros();
+
+    double getMaxReformulationMicros();
+
+    Map<String, Long> getPhaseCounts();
+
+    Map<String, Double> getMeanPhaseMicros();
+
+    Map<String, Double> getPhase99thPercentileMicros();
+
+    Map<String, Double> getMaxPhaseMicros();
+
+    long getCacheHitCount();
+
+    long getCacheMissCount();
+
+    /**
+     * Between 0 and 1 (0 if no query has been reformulated)
+     */
+    double getCacheHitRate();
+
+    int getMaxUnionWidthAfterUnfolding();
+
+    void reset();
+}
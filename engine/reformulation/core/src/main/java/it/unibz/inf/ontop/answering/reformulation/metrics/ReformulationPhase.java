@@ -0,0 +1,18 @@
+package it.unibz.inf.ontop.answering.reformulation.metrics;
+
+/**
+ * Phases of the reformulation of a query, in their order of execution
+ */
+public enum ReformulationPhase {
+    TRANSLATION,
+    PRE_PROCESSING,
+    REWRITING,
+    UNFOLDING,
+    IQ_CONVERSION,
+    BINDING_LIFT,
+    BOOLEAN_EXPRESSION_PUSH_UP,
+    PROJECTION_SHRINKING,
+    JOIN_OPTIMIZATION,
+    UNION_FLATTENING,
+    NATIVE_QUERY_GENERATION
+}
@@ -0,0 +1,147 @@
+package it.unibz.inf.ontop.answering.reformulation.metrics.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import it.unibz.inf.ontop.answering.reformulation.metrics.QueryReformulationMetrics;
+import it.unibz.inf.ontop.answering.reformulation.metrics.ReformulationMonitor;
+import it.unibz.inf.ontop.answering.reformulation.metrics.ReformulationPhase;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps a latency histogram per phase, in memory.
+ *
+ * When enabled in the settings, is also exported as an MXBean
+ * (it.unibz.inf.ontop:type=ReformulationMonitor,name=...).
+ */
+@Singleton
+public class HistogramReformulationMonitor implements ReformulationMonitor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HistogramReformulationMonitor.class);
+    private static final AtomicInteger INSTANCE_COUNTER = new AtomicInteger(0);
+
+    private final boolean isEnabled;
+    private final ImmutableMap<ReformulationPhase, LatencyHistogram> phaseHistograms;
+    private final LatencyHistogram reformulationHistogram;
+    private final LongAdder cacheHits;
+    private final LongAdder cacheMisses;
+    private final AtomicInteger maxUnionWidth;
+    // Null when not exported (or already unregistered)
+    @Nullable
+    private ObjectName mxBeanName;
+
+    @Inject
+    private HistogramReformulationMonitor(OntopReformulationSettings settings) {
+        this.isEnabled = settings.isReformulationMetricsEnabled();
+
+        Map<ReformulationPhase, LatencyHistogram> histograms = new EnumMap<>(ReformulationPhase.class);
+        for (ReformulationPhase phase : ReformulationPhase.values())
+            histograms.put(phase, new LatencyHistogram());
+        this.phaseHistograms = ImmutableMap.copyOf(histograms);
+        this.reformulationHistogram = new LatencyHistogram();
+        this.cacheHits = new LongAdder();
+        this.cacheMisses = new LongAdder();
+        this.maxUnionWidth = new AtomicInteger(0);
+        this.mxBeanName = null;
+
+        if (isEnabled && settings.isReformulationMetricsJMXEnabled())
+            registerMXBean();
+    }
+
+    private void registerMXBean() {
+        try {
+            ObjectName name = new ObjectName("it.unibz.inf.ontop:type=ReformulationMonitor,name=monitor-"
+                    + INSTANCE_COUNTER.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new ReformulationMonitorMXBeanImpl(this), name);
+            mxBeanName = name;
+            LOGGER.debug("Reformulation metrics exported as {}", name);
+        } catch (JMException e) {
+            LOGGER.warn("Cannot export the reformulation metrics to JMX: " + e);
+        }
+    }
+
+    /**
+     * Unregisters the MXBean (if any). The metrics can still be recorded and read afterwards.
+     */
+    @Override
+    public synchronized void close() {
+        if (mxBeanName == null)
+            return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(mxBeanName);
+            LOGGER.debug("Reformulation metrics {} unregistered", mxBeanName);
+        } catch (JMException e) {
+            LOGGER.warn("Cannot unregister the reformulation metrics from JMX: " + e);
+        }
+        mxBeanName = null;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    @Override
+    public void record(QueryReformulationMetrics metrics) {
+        if (metrics.isCacheHit()) {
+            cacheHits.increment();
+            return;
+        }
+        cacheMisses.increment();
+        reformulationHistogram.record(metrics.getTotalDurationNanos());
+        for (Map.Entry<ReformulationPhase, QueryReformulationMetrics.PhaseMetrics> e : metrics.getPhases().entrySet())
+            phaseHistograms.get(e.getKey()).record(e.getValue().getDurationNanos());
+        maxUnionWidth.accumulateAndGet(metrics.getUnionWidthAfterUnfolding(), Math::max);
+    }
+
+    @Override
+    public ImmutableMap<ReformulationPhase, LatencyStatistics> getPhaseStatistics() {
+        ImmutableMap.Builder<ReformulationPhase, LatencyStatistics> builder = ImmutableMap.builder();
+        for (Map.Entry<ReformulationPhase, LatencyHistogram> e : phaseHistograms.entrySet()) {
+            LatencyStatistics statistics = e.getValue().getSnapshot();
+            if (statistics.getCount() > 0)
+                builder.put(e.getKey(), statistics);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public LatencyStatistics getReformulationStatistics() {
+        return reformulationHistogram.getSnapshot();
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMissCount() {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public int getMaxUnionWidthAfterUnfolding() {
+        return maxUnionWidth.get();
+    }
+
+    @Override
+    public void reset() {
+        phaseHistograms.values().forEach(LatencyHistogram::reset);
+        reformulationHistogram.reset();
+        cacheHits.reset();
+        cacheMisses.reset();
+        maxUnionWidth.set(0);
+    }
+}
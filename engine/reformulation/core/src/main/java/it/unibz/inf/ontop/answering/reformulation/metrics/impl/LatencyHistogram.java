@@ -0,0 +1,121 @@
+package it.unibz.inf.ontop.answering.reformulation.metrics.impl;
+
+import it.unibz.inf.ontop.answering.reformulation.metrics.ReformulationMonitor.LatencyStatistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram with logarithmic buckets: each power of two is split into 4 buckets
+ * (relative error below 25%), from 0 to Long.MAX_VALUE nanoseconds.
+ *
+ * Thread-safe and lock-free. A snapshot taken during concurrent recordings may be slightly inconsistent.
+ */
+class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(getBucket(value));
+        count.increment();
+        total.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++)
+            counts.set(i, 0);
+        count.reset();
+        total.reset();
+        max.set(0);
+    }
+
+    LatencyStatistics getSnapshot() {
+        long[] snapshot = new long[BUCKETS];
+        long snapshotCount = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            snapshotCount += snapshot[i];
+        }
+        return new Snapshot(snapshot, snapshotCount, total.sum(), max.get());
+    }
+
+    static int getBucket(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Largest value of the bucket
+     */
+    static long getUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = bucket % SUB_BUCKETS;
+        long lowerBound = (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+
+    private static class Snapshot implements LatencyStatistics {
+        private final long[] counts;
+        private final long count;
+        private final long total;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long total, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.total = total;
+            this.max = max;
+        }
+
+        @Override
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public long getTotalNanos() {
+            return total;
+        }
+
+        @Override
+        public long getMaxNanos() {
+            return max;
+        }
+
+        @Override
+        public long getQuantileNanos(double quantile) {
+            if (count == 0)
+                return 0;
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long cumulated = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulated += counts[i];
+                if (cumulated >= rank)
+                    return Math.min(getUpperBound(i), max);
+            }
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + ", mean=" + getMeanNanos() / 1000 + "us, p99="
+                    + getQuantileNanos(0.99) / 1000 + "us, max=" + max / 1000 + "us";
+        }
+    }
+}
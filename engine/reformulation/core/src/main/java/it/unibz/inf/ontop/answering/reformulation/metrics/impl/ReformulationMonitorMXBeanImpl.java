@@ -0,0 +1,100 @@
+package it.unibz.inf.ontop.answering.reformulation.metrics.impl;
+
+import com.google.common.collect.ImmutableMap;
+import it.unibz.inf.ontop.answering.reformulation.metrics.ReformulationMonitor;
+import it.unibz.inf.ontop.answering.reformulation.metrics.ReformulationMonitor.LatencyStatistics;
+import it.unibz.inf.ontop.answering.reformulation.metrics.ReformulationMonitorMXBean;
+import it.unibz.inf.ontop.answering.reformulation.metrics.ReformulationPhase;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Read-only adapter (apart from reset()), computed at each JMX request
+ */
+class ReformulationMonitorMXBeanImpl implements ReformulationMonitorMXBean {
+
+    private final ReformulationMonitor monitor;
+
+    ReformulationMonitorMXBeanImpl(ReformulationMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    @Override
+    public long getReformulationCount() {
+        return monitor.getReformulationStatistics().getCount();
+    }
+
+    @Override
+    public double getMeanReformulationMicros() {
+        return toMicros(monitor.getReformulationStatistics().getMeanNanos());
+    }
+
+    @Override
+    public double getReformulation99thPercentileMicros() {
+        return toMicros(monitor.getReformulationStatistics().getQuantileNanos(0.99));
+    }
+
+    @Override
+    public double getMaxReformulationMicros() {
+        return toMicros(monitor.getReformulationStatistics().getMaxNanos());
+    }
+
+    @Override
+    public Map<String, Long> getPhaseCounts() {
+        return mapPhases(LatencyStatistics::getCount);
+    }
+
+    @Override
+    public Map<String, Double> getMeanPhaseMicros() {
+        return mapPhases(s -> toMicros(s.getMeanNanos()));
+    }
+
+    @Override
+    public Map<String, Double> getPhase99thPercentileMicros() {
+        return mapPhases(s -> toMicros(s.getQuantileNanos(0.99)));
+    }
+
+    @Override
+    public Map<String, Double> getMaxPhaseMicros() {
+        return mapPhases(s -> toMicros(s.getMaxNanos()));
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return monitor.getCacheHitCount();
+    }
+
+    @Override
+    public long getCacheMissCount() {
+        return monitor.getCacheMissCount();
+    }
+
+    @Override
+    public double getCacheHitRate() {
+        long hits = monitor.getCacheHitCount();
+        long total = hits + monitor.getCacheMissCount();
+        return (total == 0) ? 0 : ((double) hits) / total;
+    }
+
+    @Override
+    public int getMaxUnionWidthAfterUnfolding() {
+        return monitor.getMaxUnionWidthAfterUnfolding();
+    }
+
+    @Override
+    public void reset() {
+        monitor.reset();
+    }
+
+    private <T> ImmutableMap<String, T> mapPhases(Function<LatencyStatistics, T> function) {
+        ImmutableMap<ReformulationPhase, LatencyStatistics> statistics = monitor.getPhaseStatistics();
+        return statistics.entrySet().stream()
+                .collect(ImmutableCollectors.toMap(e -> e.getKey().name(), e -> function.apply(e.getValue())));
+    }
+
+    private static double toMicros(long nanos) {
+        return nanos / 1000.0;
+    }
+}
@@ -0,0 +1,215 @@
+package it.unibz.inf.ontop.answering.reformulation.trace;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.answering.reformulation.metrics.ReformulationPhase;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.IntermediateQuery;
+import it.unibz.inf.ontop.iq.node.QueryNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Query plan obtained after each phase of the reformulation of one query (EXPLAIN-like view).
+ *
+ * Only references (or snapshots of the mutable IntermediateQuery) are kept: nothing is rendered
+ * before toText() or toJson() is called. The disabled trace records nothing.
+ *
+ * Not thread-safe: read it once the reformulation is over.
+ */
+public class PlanTrace {
+
+    private static final PlanTrace DISABLED = new PlanTrace(false);
+
+    private final boolean enabled;
+    private final List<Step> steps;
+
+    private PlanTrace(boolean enabled) {
+        this.enabled = enabled;
+        this.steps = enabled ? new ArrayList<>() : ImmutableList.of();
+    }
+
+    public static PlanTrace create() {
+        return new PlanTrace(true);
+    }
+
+    public static PlanTrace disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void record(ReformulationPhase phase, IQ query) {
+        if (enabled)
+            steps.add(new IQStep(phase, query));
+    }
+
+    /**
+     * The query is copied, as it may be modified by the next phases
+     */
+    public void record(ReformulationPhase phase, IntermediateQuery query) {
+        if (enabled)
+            steps.add(new IntermediateQueryStep(phase, query.createSnapshot()));
+    }
+
+    /**
+     * For the other immutable representations (e.g. the native query), rendered by toString()
+     */
+    public void record(ReformulationPhase phase, Object plan) {
+        if (enabled)
+            steps.add(new Step(phase, plan));
+    }
+
+    public ImmutableList<Step> getSteps() {
+        return ImmutableList.copyOf(steps);
+    }
+
+    public String toText() {
+        StringBuilder sb = new StringBuilder();
+        for (Step step : steps)
+            sb.append("=== ").append(step.getPhase()).append(" ===\n")
+                    .append(step.getPlan()).append("\n");
+        return sb.toString();
+    }
+
+    /**
+     * Array of {"phase": ..., "plan": ...} objects. Query trees are rendered as nested
+     * {"node": ..., "children": [...]} objects, the other plans as strings.
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < steps.size(); i++) {
+            if (i > 0)
+                sb.append(",");
+            Step step = steps.get(i);
+            sb.append("{\"phase\":");
+            appendJsonString(sb, step.getPhase().name());
+            sb.append(",\"plan\":");
+            step.appendJsonPlan(sb);
+            sb.append("}");
+        }
+        return sb.append("]").toString();
+    }
+
+    @Override
+    public String toString() {
+        return toText();
+    }
+
+    private static void appendJsonString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                        sb.append(String.format("\\u%04x", (int) c));
+                    else
+                        sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+
+    public static class Step {
+        private final ReformulationPhase phase;
+        private final Object plan;
+
+        private Step(ReformulationPhase phase, Object plan) {
+            this.phase = phase;
+            this.plan = plan;
+        }
+
+        public ReformulationPhase getPhase() {
+            return phase;
+        }
+
+        /**
+         * IQ, IntermediateQuery or another representation of the query
+         */
+        public Object getPlan() {
+            return plan;
+        }
+
+        void appendJsonPlan(StringBuilder sb) {
+            appendJsonString(sb, plan.toString());
+        }
+    }
+
+    private static class IQStep extends Step {
+        private IQStep(ReformulationPhase phase, IQ query) {
+            super(phase, query);
+        }
+
+        @Override
+        void appendJsonPlan(StringBuilder sb) {
+            IQ query = (IQ) getPlan();
+            sb.append("{\"projection\":");
+            appendJsonString(sb, query.getProjectionAtom().toString());
+            sb.append(",\"tree\":");
+            appendTree(sb, query.getTree());
+            sb.append("}");
+        }
+
+        private static void appendTree(StringBuilder sb, IQTree tree) {
+            sb.append("{\"node\":");
+            appendJsonString(sb, tree.getRootNode().toString());
+            sb.append(",\"children\":[");
+            ImmutableList<IQTree> children = tree.getChildren();
+            for (int i = 0; i < children.size(); i++) {
+                if (i > 0)
+                    sb.append(",");
+                appendTree(sb, children.get(i));
+            }
+            sb.append("]}");
+        }
+    }
+
+    private static class IntermediateQueryStep extends Step {
+        private IntermediateQueryStep(ReformulationPhase phase, IntermediateQuery query) {
+            super(phase, query);
+        }
+
+        @Override
+        void appendJsonPlan(StringBuilder sb) {
+            IntermediateQuery query = (IntermediateQuery) getPlan();
+            sb.append("{\"projection\":");
+            appendJsonString(sb, query.getProjectionAtom().toString());
+            sb.append(",\"tree\":");
+            appendTree(sb, query, query.getRootNode());
+            sb.append("}");
+        }
+
+        private static void appendTree(StringBuilder sb, IntermediateQuery query, QueryNode node) {
+            sb.append("{\"node\":");
+            appendJsonString(sb, node.toString());
+            sb.append(",\"children\":[");
+            ImmutableList<QueryNode> children = query.getChildren(node);
+            for (int i = 0; i < children.size(); i++) {
+                if (i > 0)
+                    sb.append(",");
+                appendTree(sb, query, children.get(i));
+            }
+            sb.append("]}");
+        }
+    }
+}
@@ -34,6 +34,7 @@ public class BasicQueryUnfolder extends AbstractIntensionalQueryMerger implement
     private final QueryTransformerFactory transformerFactory;
     private final UnionBasedQueryMerger queryMerger;
     private final CoreUtilsFactory coreUtilsFactory;
+    private final MappingDefinitionPruner definitionPruner;
 
     @AssistedInject
     private BasicQueryUnfolder(@Assisted Mapping mapping, IntermediateQueryFactory iqFactory,
@@ -45,6 +46,7 @@ public class BasicQueryUnfolder extends AbstractIntensionalQueryMerger implement
         this.transformerFactory = transformerFactory;
         this.queryMerger = queryMerger;
         this.coreUtilsFactory = coreUtilsFactory;
+        this.definitionPruner = new MappingDefinitionPruner(iqFactory);
     }
 
     @Override
@@ -73,27 +75,42 @@ public class BasicQueryUnfolder extends AbstractIntensionalQueryMerger implement
             return predicate.getPropertyIRI(arguments)
                     .map(i -> i.equals(RDF.TYPE)
                             ? getRDFClassDefinition(predicate, arguments)
-                            : mapping.getRDFPropertyDefinition(predicate, i))
-                    .orElseGet(() -> getStarDefinition(predicate));
+                            : mapping.getRDFPropertyDefinition(predicate, i)
+                                .flatMap(d -> definitionPruner.pruneDefinition(d, arguments)))
+                    .orElseGet(() -> getStarDefinition(predicate, arguments));
         }
 
         private Optional<IQ> getRDFClassDefinition(RDFAtomPredicate predicate,
                                                    ImmutableList<? extends VariableOrGroundTerm> arguments) {
             return predicate.getClassIRI(arguments)
-                    .map(i -> mapping.getRDFClassDefinition(predicate, i))
-                    .orElseGet(() -> getStarClassDefinition(predicate));
+                    .map(i -> mapping.getRDFClassDefinition(predicate, i)
+                            .flatMap(d -> definitionPruner.pruneDefinition(d, arguments)))
+                    .orElseGet(() -> getStarClassDefinition(predicate, arguments));
         }
 
-        private Optional<IQ> getStarClassDefinition(RDFAtomPredicate predicate) {
+        /**
+         * The definitions are pruned before being merged
+         */
+        private Optional<IQ> getStarClassDefinition(RDFAtomPredicate predicate,
+                                                    ImmutableList<? extends VariableOrGroundTerm> arguments) {
             return queryMerger.mergeDefinitions(mapping.getRDFClasses(predicate).stream()
                     .flatMap(i -> mapping.getRDFClassDefinition(predicate, i)
+                            .flatMap(d -> definitionPruner.pruneDefinition(d, arguments))
                             .map(Stream::of)
                             .orElseGet(Stream::empty))
                     .collect(ImmutableCollectors.toList()));
         }
 
-        private Optional<IQ> getStarDefinition(RDFAtomPredicate predicate) {
-            return queryMerger.mergeDefinitions(mapping.getQueries(predicate));
+        /**
+         * The definitions are pruned before being merged
+         */
+        private Optional<IQ> getStarDefinition(RDFAtomPredicate predicate,
+                                               ImmutableList<? extends VariableOrGroundTerm> arguments) {
+            return queryMerger.mergeDefinitions(mapping.getQueries(predicate).stream()
+                    .flatMap(d -> definitionPruner.pruneDefinition(d, arguments)
+                            .map(Stream::of)
+                            .orElseGet(Stream::empty))
+                    .collect(ImmutableCollectors.toList()));
         }
 
         @Override
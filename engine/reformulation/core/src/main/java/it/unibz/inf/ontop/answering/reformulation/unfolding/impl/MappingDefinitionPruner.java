@@ -0,0 +1,114 @@
+package it.unibz.inf.ontop.answering.reformulation.unfolding.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.node.ConstructionNode;
+import it.unibz.inf.ontop.iq.node.UnionNode;
+import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+/**
+ * Removes the mapping definitions, or the branches of their top union, that cannot produce the ground terms
+ * of a data atom (e.g. a subject IRI built from another IRI template, or a literal instead of an IRI).
+ *
+ * Bound IRIs have already been decomposed according to the IRI templates of the mapping
+ * (see UriTemplateMatcher), so comparing the function symbols and the templates is enough.
+ * These branches would otherwise only be eliminated after the merge, which is expensive for
+ * the unbound predicates and classes (one branch per mapping definition).
+ */
+class MappingDefinitionPruner {
+
+    private final IntermediateQueryFactory iqFactory;
+
+    MappingDefinitionPruner(IntermediateQueryFactory iqFactory) {
+        this.iqFactory = iqFactory;
+    }
+
+    /**
+     * Returns empty if no branch of the definition can match the arguments
+     */
+    Optional<IQ> pruneDefinition(IQ definition, ImmutableList<? extends VariableOrGroundTerm> arguments) {
+        ImmutableList<Variable> projectedVariables = definition.getProjectionAtom().getArguments();
+        if (projectedVariables.size() != arguments.size())
+            return Optional.of(definition);
+
+        ImmutableMap<Variable, GroundTerm> groundArguments = IntStream.range(0, arguments.size())
+                .filter(i -> arguments.get(i) instanceof GroundTerm)
+                .boxed()
+                .collect(ImmutableCollectors.toMap(
+                        projectedVariables::get,
+                        i -> (GroundTerm) arguments.get(i)));
+        if (groundArguments.isEmpty())
+            return Optional.of(definition);
+
+        IQTree tree = definition.getTree();
+        if (tree.getRootNode() instanceof UnionNode) {
+            ImmutableList<IQTree> children = tree.getChildren().stream()
+                    .filter(c -> canMatch(c, groundArguments))
+                    .collect(ImmutableCollectors.toList());
+
+            if (children.size() == tree.getChildren().size())
+                return Optional.of(definition);
+
+            switch (children.size()) {
+                case 0:
+                    return Optional.empty();
+                case 1:
+                    IQTree child = children.get(0);
+                    return Optional.of(iqFactory.createIQ(definition.getProjectionAtom(),
+                            child.getVariables().equals(tree.getVariables())
+                                    ? child
+                                    : iqFactory.createUnaryIQTree(
+                                            iqFactory.createConstructionNode(tree.getVariables()), child)));
+                default:
+                    return Optional.of(iqFactory.createIQ(definition.getProjectionAtom(),
+                            iqFactory.createNaryIQTree((UnionNode) tree.getRootNode(), children)));
+            }
+        }
+        return canMatch(tree, groundArguments)
+                ? Optional.of(definition)
+                : Optional.empty();
+    }
+
+    /**
+     * Only looks at the top construction node (conservative: true when unknown)
+     */
+    private static boolean canMatch(IQTree tree, ImmutableMap<Variable, GroundTerm> groundArguments) {
+        if (!(tree.getRootNode() instanceof ConstructionNode))
+            return true;
+
+        ImmutableSubstitution<ImmutableTerm> substitution = ((ConstructionNode) tree.getRootNode()).getSubstitution();
+        return groundArguments.entrySet().stream()
+                .allMatch(e -> canMatch(substitution.applyToVariable(e.getKey()), e.getValue()));
+    }
+
+    /**
+     * Returns false if no instantiation of the variables of the definition term gives the ground term.
+     *
+     * The variables are considered independently (conservative when a variable occurs several times).
+     */
+    private static boolean canMatch(ImmutableTerm definitionTerm, ImmutableTerm groundTerm) {
+        if (definitionTerm instanceof Variable)
+            return true;
+        if (definitionTerm instanceof Constant)
+            return definitionTerm.equals(groundTerm);
+        if (!(groundTerm instanceof ImmutableFunctionalTerm))
+            return false;
+
+        ImmutableFunctionalTerm definitionFunctionalTerm = (ImmutableFunctionalTerm) definitionTerm;
+        ImmutableFunctionalTerm groundFunctionalTerm = (ImmutableFunctionalTerm) groundTerm;
+        if (!definitionFunctionalTerm.getFunctionSymbol().equals(groundFunctionalTerm.getFunctionSymbol())
+                || definitionFunctionalTerm.getArity() != groundFunctionalTerm.getArity())
+            return false;
+
+        return IntStream.range(0, definitionFunctionalTerm.getArity())
+                .allMatch(i -> canMatch(definitionFunctionalTerm.getTerm(i), groundFunctionalTerm.getTerm(i)));
+    }
+}
@@ -1,5 +1,6 @@
 package it.unibz.inf.ontop.injection;
 
+import java.util.Optional;
 
 public interface OntopReformulationSettings extends OntopOBDASettings, OntopOptimizationSettings {
 
@@ -12,6 +13,46 @@ public interface OntopReformulationSettings extends OntopOBDASettings, OntopOpti
 
     boolean isDistinctPostProcessingEnabled();
 
+    /**
+     * Maximal number of reformulated queries kept in the cache
+     */
+    int getQueryCacheMaxSize();
+
+    /**
+     * Maximal cumulated length of the input query strings kept in the cache.
+     * If positive, replaces the bound on the number of entries.
+     */
+    long getQueryCacheMaxWeight();
+
+    /**
+     * When enabled, queries only differing by the IRIs bound externally (e.g. through setBinding())
+     * share the same reformulation, and these IRIs are passed as parameters of the native query.
+     */
+    boolean isQueryParameterizationEnabled();
+
+    /**
+     * Per-phase durations and tree sizes of the reformulations (see ReformulationMonitor)
+     */
+    boolean isReformulationMetricsEnabled();
+
+    /**
+     * Exports the aggregated reformulation metrics as an MXBean
+     */
+    boolean isReformulationMetricsJMXEnabled();
+
+    /**
+     * Maximal length of the paths considered for the SPARQL property paths p+ and p*.
+     *
+     * Empty by default or when the property is set to 0 (no bound).
+     */
+    Optional<Integer> getPropertyPathMaxDepth();
+
+    /**
+     * Maximal length of the paths for p+ and p* without maximal depth when the native query language
+     * cannot express their transitive closure (e.g. no recursive SQL): the answers may then be incomplete.
+     */
+    int getPropertyPathUnrollingDepth();
+
 
     //--------------------------
     // Keys
@@ -20,4 +61,11 @@ public interface OntopReformulationSettings extends OntopOBDASettings, OntopOpti
     String SQL_GENERATE_REPLACE = "ontop.iriSafeEncoding";
     String EXISTENTIAL_REASONING = "ontop.existentialReasoning";
     String DISTINCT_RESULTSET = "ontop.distinctResultSet";
+    String QUERY_CACHE_MAX_SIZE = "ontop.queryCache.maxSize";
+    String QUERY_CACHE_MAX_WEIGHT = "ontop.queryCache.maxWeight";
+    String QUERY_PARAMETERIZATION = "ontop.queryParameterization";
+    String REFORMULATION_METRICS = "ontop.reformulationMetrics";
+    String REFORMULATION_METRICS_JMX = "ontop.reformulationMetrics.jmx";
+    String PROPERTY_PATH_MAX_DEPTH = "ontop.propertyPaths.maxDepth";
+    String PROPERTY_PATH_UNROLLING_DEPTH = "ontop.propertyPaths.unrollingDepth";
 }
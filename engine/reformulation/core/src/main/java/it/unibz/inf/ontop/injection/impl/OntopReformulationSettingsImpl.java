@@ -4,6 +4,7 @@ import it.unibz.inf.ontop.injection.OntopOBDASettings;
 import it.unibz.inf.ontop.injection.OntopOptimizationSettings;
 import it.unibz.inf.ontop.injection.OntopReformulationSettings;
 
+import java.util.Optional;
 import java.util.Properties;
 
 public class OntopReformulationSettingsImpl extends OntopOBDASettingsImpl implements OntopReformulationSettings {
@@ -41,4 +42,41 @@ public class OntopReformulationSettingsImpl extends OntopOBDASettingsImpl implem
     public boolean isDistinctPostProcessingEnabled() {
         return getRequiredBoolean(DISTINCT_RESULTSET);
     }
+
+    @Override
+    public int getQueryCacheMaxSize() {
+        return getRequiredInteger(QUERY_CACHE_MAX_SIZE);
+    }
+
+    @Override
+    public long getQueryCacheMaxWeight() {
+        return Long.parseLong(getRequiredProperty(QUERY_CACHE_MAX_WEIGHT));
+    }
+
+    @Override
+    public boolean isQueryParameterizationEnabled() {
+        return getRequiredBoolean(QUERY_PARAMETERIZATION);
+    }
+
+    @Override
+    public boolean isReformulationMetricsEnabled() {
+        return getRequiredBoolean(REFORMULATION_METRICS);
+    }
+
+    @Override
+    public boolean isReformulationMetricsJMXEnabled() {
+        return getRequiredBoolean(REFORMULATION_METRICS_JMX);
+    }
+
+    @Override
+    public Optional<Integer> getPropertyPathMaxDepth() {
+        return getProperty(PROPERTY_PATH_MAX_DEPTH)
+                .map(Integer::parseInt)
+                .filter(d -> d > 0);
+    }
+
+    @Override
+    public int getPropertyPathUnrollingDepth() {
+        return getRequiredInteger(PROPERTY_PATH_UNROLLING_DEPTH);
+    }
 }
@@ -0,0 +1,64 @@
+package it.unibz.inf.ontop.answering.reformulation.input.impl;
+
+import it.unibz.inf.ontop.answering.reformulation.input.SelectQuery;
+import org.eclipse.rdf4j.query.QueryLanguage;
+import org.eclipse.rdf4j.query.parser.ParsedQuery;
+import org.eclipse.rdf4j.query.parser.QueryParserUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class RDF4JInputQueryEqualityTest {
+
+    @Test
+    public void testSameQueryString() {
+        String query = "SELECT ?x WHERE { ?x <http://example.org/p> ?y }";
+        SelectQuery q1 = createSelectQuery(query);
+        SelectQuery q2 = createSelectQuery(query);
+        assertEquals(q1, q2);
+        assertEquals(q1.hashCode(), q2.hashCode());
+    }
+
+    @Test
+    public void testPrefixAndWhitespace() {
+        SelectQuery q1 = createSelectQuery("PREFIX ex: <http://example.org/>\n" +
+                "SELECT ?x\nWHERE {\n  ?x ex:p ?y .\n}");
+        SelectQuery q2 = createSelectQuery("SELECT ?x WHERE { ?x <http://example.org/p> ?y }");
+        assertEquals(q1, q2);
+    }
+
+    @Test
+    public void testInternalVariableRenaming() {
+        SelectQuery q1 = createSelectQuery("SELECT ?x WHERE { ?x <http://example.org/p> ?y . ?y <http://example.org/q> ?z }");
+        SelectQuery q2 = createSelectQuery("SELECT ?x WHERE { ?x <http://example.org/p> ?a . ?a <http://example.org/q> ?b }");
+        assertEquals(q1, q2);
+        assertEquals(q1.hashCode(), q2.hashCode());
+    }
+
+    @Test
+    public void testBlankNodes() {
+        SelectQuery q1 = createSelectQuery("SELECT ?x WHERE { ?x <http://example.org/p> [ <http://example.org/q> ?z ] }");
+        SelectQuery q2 = createSelectQuery("SELECT ?x WHERE { ?x <http://example.org/p> [ <http://example.org/q> ?z ] }");
+        assertEquals(q1, q2);
+    }
+
+    @Test
+    public void testDifferentProjectedVariables() {
+        SelectQuery q1 = createSelectQuery("SELECT ?x WHERE { ?x <http://example.org/p> ?y }");
+        SelectQuery q2 = createSelectQuery("SELECT ?s WHERE { ?s <http://example.org/p> ?y }");
+        assertNotEquals(q1, q2);
+    }
+
+    @Test
+    public void testDifferentConstants() {
+        SelectQuery q1 = createSelectQuery("SELECT ?x WHERE { ?x <http://example.org/p> \"a\" }");
+        SelectQuery q2 = createSelectQuery("SELECT ?x WHERE { ?x <http://example.org/p> \"b\" }");
+        assertNotEquals(q1, q2);
+    }
+
+    private static SelectQuery createSelectQuery(String queryString) {
+        ParsedQuery parsedQuery = QueryParserUtil.parseQuery(QueryLanguage.SPARQL, queryString, null);
+        return new RDF4JSelectQuery(parsedQuery, queryString);
+    }
+}
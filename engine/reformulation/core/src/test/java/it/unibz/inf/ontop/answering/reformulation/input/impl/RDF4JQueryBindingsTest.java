@@ -0,0 +1,122 @@
+package it.unibz.inf.ontop.answering.reformulation.input.impl;
+
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.utils.UriTemplateMatcher;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.QueryLanguage;
+import org.eclipse.rdf4j.query.algebra.Compare;
+import org.eclipse.rdf4j.query.algebra.ValueConstant;
+import org.eclipse.rdf4j.query.algebra.helpers.AbstractQueryModelVisitor;
+import org.eclipse.rdf4j.query.impl.MapBindingSet;
+import org.eclipse.rdf4j.query.parser.ParsedQuery;
+import org.eclipse.rdf4j.query.parser.QueryParserUtil;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static it.unibz.inf.ontop.utils.ReformulationTestingTools.TERM_FACTORY;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RDF4JQueryBindingsTest {
+
+    private static final ValueFactory VALUE_FACTORY = SimpleValueFactory.getInstance();
+    private static final String PERSON_TEMPLATE = "http://example.org/person/{}";
+    private static final UriTemplateMatcher URI_TEMPLATE_MATCHER = UriTemplateMatcher.create(
+            Stream.of(TERM_FACTORY.getImmutableUriTemplate(TERM_FACTORY.getConstantLiteral(PERSON_TEMPLATE),
+                    TERM_FACTORY.getVariable("id"))),
+            TERM_FACTORY);
+
+    @Test
+    public void testBoundVariableNotProjected() {
+        ParsedQuery parsedQuery = parse("SELECT ?x ?y WHERE { ?x <http://example.org/p> ?y }");
+        MapBindingSet bindings = new MapBindingSet();
+        bindings.addBinding("y", VALUE_FACTORY.createIRI("http://example.org/a"));
+
+        ParsedQuery boundQuery = RDF4JQueryBindings.apply(parsedQuery, bindings);
+        assertEquals(ImmutableSet.of("x"), boundQuery.getTupleExpr().getBindingNames());
+        // The initial query is not modified
+        assertEquals(ImmutableSet.of("x", "y"), parsedQuery.getTupleExpr().getBindingNames());
+    }
+
+    @Test
+    public void testBoundVariableInFilter() {
+        ParsedQuery parsedQuery = parse("SELECT ?x WHERE { ?x <http://example.org/p> ?z . FILTER(?z > ?y) }");
+        MapBindingSet bindings = new MapBindingSet();
+        bindings.addBinding("y", VALUE_FACTORY.createLiteral(3));
+
+        ParsedQuery boundQuery = RDF4JQueryBindings.apply(parsedQuery, bindings);
+        boolean[] hasConstant = {false};
+        boundQuery.getTupleExpr().visit(new AbstractQueryModelVisitor<RuntimeException>() {
+            @Override
+            public void meet(Compare node) {
+                hasConstant[0] = node.getRightArg() instanceof ValueConstant;
+            }
+        });
+        assertTrue(hasConstant[0]);
+    }
+
+    @Test
+    public void testSameBindingsSameQuery() {
+        String query = "SELECT ?x WHERE { ?x <http://example.org/p> ?y }";
+        MapBindingSet bindings1 = new MapBindingSet();
+        bindings1.addBinding("y", VALUE_FACTORY.createIRI("http://example.org/a"));
+        MapBindingSet bindings2 = new MapBindingSet();
+        bindings2.addBinding("y", VALUE_FACTORY.createIRI("http://example.org/a"));
+        MapBindingSet bindings3 = new MapBindingSet();
+        bindings3.addBinding("y", VALUE_FACTORY.createIRI("http://example.org/b"));
+
+        RDF4JSelectQuery q1 = new RDF4JSelectQuery(parse(query), query, bindings1);
+        RDF4JSelectQuery q2 = new RDF4JSelectQuery(parse(query), query, bindings2);
+        RDF4JSelectQuery q3 = new RDF4JSelectQuery(parse(query), query, bindings3);
+        assertEquals(q1, q2);
+        assertNotEquals(q1, q3);
+    }
+
+    @Test
+    public void testParameterizeIRI() {
+        String query = "SELECT ?x WHERE { ?x <http://example.org/knows> ?y }";
+        MapBindingSet bindings = new MapBindingSet();
+        bindings.addBinding("y", VALUE_FACTORY.createIRI("http://example.org/person/2"));
+
+        Optional<RDF4JQueryBindings.PlaceholderBindings> placeholderBindings = RDF4JQueryBindings.parameterize(
+                parse(query), bindings, URI_TEMPLATE_MATCHER, ImmutableSet.of("http://example.org/person/1"));
+        assertTrue(placeholderBindings.isPresent());
+        assertEquals(ImmutableSet.of("2"),
+                ImmutableSet.copyOf(placeholderBindings.get().getParameters().values()));
+        assertNotEquals(bindings.getValue("y"), placeholderBindings.get().getBindings().getValue("y"));
+    }
+
+    /**
+     * The placeholder IRI would not be unified with the constant of the mapping
+     */
+    @Test
+    public void testBoundIRIMatchingMappingConstant() {
+        String query = "SELECT ?x WHERE { ?x <http://example.org/knows> ?y }";
+        MapBindingSet bindings = new MapBindingSet();
+        bindings.addBinding("y", VALUE_FACTORY.createIRI("http://example.org/person/1"));
+
+        assertFalse(RDF4JQueryBindings.parameterize(parse(query), bindings, URI_TEMPLATE_MATCHER,
+                ImmutableSet.of("http://example.org/person/1")).isPresent());
+    }
+
+    @Test
+    public void testQueryConstantWithSameTemplate() {
+        String query = "SELECT ?x WHERE { ?x <http://example.org/knows> ?y . " +
+                "?x <http://example.org/knows> <http://example.org/person/3> }";
+        MapBindingSet bindings = new MapBindingSet();
+        bindings.addBinding("y", VALUE_FACTORY.createIRI("http://example.org/person/3"));
+
+        assertFalse(RDF4JQueryBindings.parameterize(parse(query), bindings, URI_TEMPLATE_MATCHER,
+                ImmutableSet.of()).isPresent());
+    }
+
+    private static ParsedQuery parse(String queryString) {
+        return QueryParserUtil.parseQuery(QueryLanguage.SPARQL, queryString, null);
+    }
+}
@@ -0,0 +1,47 @@
+package it.unibz.inf.ontop.answering.reformulation.metrics.impl;
+
+import it.unibz.inf.ontop.answering.reformulation.metrics.ReformulationMonitor.LatencyStatistics;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketBounds() {
+        for (long value : new long[]{0, 1, 3, 4, 5, 7, 8, 1000, 123456789, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.getBucket(value);
+            assertTrue(value <= LatencyHistogram.getUpperBound(bucket));
+            if (bucket > 0)
+                assertTrue(value > LatencyHistogram.getUpperBound(bucket - 1));
+        }
+    }
+
+    @Test
+    public void testQuantiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++)
+            histogram.record(i * 1000L);
+
+        LatencyStatistics statistics = histogram.getSnapshot();
+        assertEquals(1000, statistics.getCount());
+        assertEquals(1_000_000L, statistics.getMaxNanos());
+        assertEquals(500_500L, statistics.getMeanNanos());
+
+        long median = statistics.getQuantileNanos(0.5);
+        assertTrue(median >= 500_000L && median < 500_000L * 5 / 4);
+        assertEquals(1_000_000L, statistics.getQuantileNanos(1.0));
+    }
+
+    @Test
+    public void testReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(42);
+        histogram.reset();
+
+        LatencyStatistics statistics = histogram.getSnapshot();
+        assertEquals(0, statistics.getCount());
+        assertEquals(0, statistics.getQuantileNanos(0.99));
+    }
+}
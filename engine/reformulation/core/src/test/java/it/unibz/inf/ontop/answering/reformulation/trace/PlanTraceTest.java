@@ -0,0 +1,42 @@
+package it.unibz.inf.ontop.answering.reformulation.trace;
+
+import org.junit.Test;
+
+import static it.unibz.inf.ontop.answering.reformulation.metrics.ReformulationPhase.NATIVE_QUERY_GENERATION;
+import static it.unibz.inf.ontop.answering.reformulation.metrics.ReformulationPhase.TRANSLATION;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PlanTraceTest {
+
+    @Test
+    public void testDisabled() {
+        PlanTrace trace = PlanTrace.disabled();
+        trace.record(TRANSLATION, "ans1(x) :- C(x)");
+
+        assertFalse(trace.isEnabled());
+        assertTrue(trace.getSteps().isEmpty());
+        assertEquals("[]", trace.toJson());
+    }
+
+    @Test
+    public void testJson() {
+        PlanTrace trace = PlanTrace.create();
+        trace.record(TRANSLATION, "ans1(x) :- C(x)");
+        trace.record(NATIVE_QUERY_GENERATION, "SELECT \"x\"\nFROM t");
+
+        assertEquals(2, trace.getSteps().size());
+        assertEquals("[{\"phase\":\"TRANSLATION\",\"plan\":\"ans1(x) :- C(x)\"},"
+                        + "{\"phase\":\"NATIVE_QUERY_GENERATION\",\"plan\":\"SELECT \\\"x\\\"\\nFROM t\"}]",
+                trace.toJson());
+    }
+
+    @Test
+    public void testText() {
+        PlanTrace trace = PlanTrace.create();
+        trace.record(TRANSLATION, "ans1(x) :- C(x)");
+
+        assertEquals("=== TRANSLATION ===\nans1(x) :- C(x)\n", trace.toText());
+    }
+}
@@ -0,0 +1,212 @@
+package it.unibz.inf.ontop.answering.reformulation.unfolding.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.dbschema.BasicDBMetadata;
+import it.unibz.inf.ontop.dbschema.DatabaseRelationDefinition;
+import it.unibz.inf.ontop.dbschema.QuotedIDFactory;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.node.UnionNode;
+import it.unibz.inf.ontop.model.atom.DistinctVariableOnlyDataAtom;
+import it.unibz.inf.ontop.model.atom.RelationPredicate;
+import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.vocabulary.XSD;
+import org.junit.Test;
+
+import java.sql.Types;
+import java.util.Optional;
+
+import static it.unibz.inf.ontop.utils.ReformulationTestingTools.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class MappingDefinitionPrunerTest {
+
+    private static final RelationPredicate TABLE1_PREDICATE;
+    private static final RelationPredicate TABLE2_PREDICATE;
+    private static final RelationPredicate TABLE3_PREDICATE;
+
+    private static final Variable S = TERM_FACTORY.getVariable("s");
+    private static final Variable P = TERM_FACTORY.getVariable("p");
+    private static final Variable O = TERM_FACTORY.getVariable("o");
+    private static final Variable A = TERM_FACTORY.getVariable("a");
+    private static final Variable B = TERM_FACTORY.getVariable("b");
+
+    private static final Constant PERSON_TEMPLATE = TERM_FACTORY.getConstantLiteral("http://example.org/person/{}");
+    private static final Constant COMPANY_TEMPLATE = TERM_FACTORY.getConstantLiteral("http://example.org/company/{}");
+    private static final Constant DEPT_TEMPLATE = TERM_FACTORY.getConstantLiteral("http://example.org/dept/{}");
+    private static final IRIConstant WORKS_IN = TERM_FACTORY.getConstantIRI(
+            RDF_FACTORY.createIRI("http://example.org/worksIn"));
+    private static final IRIConstant NAME = TERM_FACTORY.getConstantIRI(
+            RDF_FACTORY.createIRI("http://example.org/name"));
+
+    private static final DistinctVariableOnlyDataAtom PROJECTION_ATOM = ATOM_FACTORY.getDistinctTripleAtom(S, P, O);
+
+    private static final MappingDefinitionPruner PRUNER = new MappingDefinitionPruner(IQ_FACTORY);
+
+    static {
+        BasicDBMetadata dbMetadata = createDummyMetadata();
+        QuotedIDFactory idFactory = dbMetadata.getQuotedIDFactory();
+
+        TABLE1_PREDICATE = createTable(dbMetadata, idFactory, "TABLE1");
+        TABLE2_PREDICATE = createTable(dbMetadata, idFactory, "TABLE2");
+        TABLE3_PREDICATE = createTable(dbMetadata, idFactory, "TABLE3");
+        dbMetadata.freeze();
+    }
+
+    private static RelationPredicate createTable(BasicDBMetadata dbMetadata, QuotedIDFactory idFactory, String name) {
+        DatabaseRelationDefinition tableDef = dbMetadata.createDatabaseRelation(idFactory.createRelationID(null, name));
+        tableDef.addAttribute(idFactory.createAttributeID("col1"), Types.INTEGER, null, false);
+        tableDef.addAttribute(idFactory.createAttributeID("col2"), Types.INTEGER, null, false);
+        return tableDef.getAtomPredicate();
+    }
+
+    /**
+     * ?s ?p ?o with a bound subject: only the branches with the same IRI template are kept
+     */
+    @Test
+    public void testBoundSubject() {
+        IQTree personBranch1 = createBranch(TABLE1_PREDICATE, PERSON_TEMPLATE, WORKS_IN, iri(DEPT_TEMPLATE, B));
+        IQTree companyBranch = createBranch(TABLE2_PREDICATE, COMPANY_TEMPLATE, WORKS_IN, iri(DEPT_TEMPLATE, B));
+        IQTree personBranch2 = createBranch(TABLE3_PREDICATE, PERSON_TEMPLATE, NAME, literal(B));
+
+        UnionNode unionNode = IQ_FACTORY.createUnionNode(ImmutableSet.of(S, P, O));
+        IQ definition = IQ_FACTORY.createIQ(PROJECTION_ATOM, IQ_FACTORY.createNaryIQTree(unionNode,
+                ImmutableList.of(personBranch1, companyBranch, personBranch2)));
+
+        IQ expectedDefinition = IQ_FACTORY.createIQ(PROJECTION_ATOM, IQ_FACTORY.createNaryIQTree(unionNode,
+                ImmutableList.of(personBranch1, personBranch2)));
+
+        assertEquals(Optional.of(expectedDefinition),
+                PRUNER.pruneDefinition(definition, ImmutableList.of(groundIri(PERSON_TEMPLATE, "1"), P, O)));
+    }
+
+    @Test
+    public void testBoundSubjectNoUnion() {
+        IQ definition = IQ_FACTORY.createIQ(PROJECTION_ATOM,
+                createBranch(TABLE1_PREDICATE, PERSON_TEMPLATE, WORKS_IN, iri(DEPT_TEMPLATE, B)));
+
+        assertEquals(Optional.of(definition),
+                PRUNER.pruneDefinition(definition, ImmutableList.of(groundIri(PERSON_TEMPLATE, "1"), P, O)));
+        assertFalse(PRUNER.pruneDefinition(definition, ImmutableList.of(groundIri(COMPANY_TEMPLATE, "1"), P, O))
+                .isPresent());
+    }
+
+    /**
+     * IRI expected by the query, literal produced by the mapping
+     */
+    @Test
+    public void testIRIInsteadOfLiteral() {
+        IQ definition = IQ_FACTORY.createIQ(PROJECTION_ATOM,
+                createBranch(TABLE1_PREDICATE, PERSON_TEMPLATE, NAME, literal(B)));
+
+        assertFalse(PRUNER.pruneDefinition(definition, ImmutableList.of(S, NAME, groundIri(DEPT_TEMPLATE, "2")))
+                .isPresent());
+    }
+
+    /**
+     * Literal expected by the query, IRI produced by the mapping
+     */
+    @Test
+    public void testLiteralInsteadOfIRI() {
+        IQ definition = IQ_FACTORY.createIQ(PROJECTION_ATOM,
+                createBranch(TABLE1_PREDICATE, PERSON_TEMPLATE, WORKS_IN, iri(DEPT_TEMPLATE, B)));
+
+        GroundTerm literal = (GroundTerm) TERM_FACTORY.getImmutableTypedTerm(
+                TERM_FACTORY.getConstantLiteral("Research"), XSD.STRING);
+
+        assertFalse(PRUNER.pruneDefinition(definition, ImmutableList.of(S, WORKS_IN, literal))
+                .isPresent());
+    }
+
+    /**
+     * The union is removed when a single branch is left
+     */
+    @Test
+    public void testSingleRemainingBranch() {
+        IQTree personBranch = createBranch(TABLE1_PREDICATE, PERSON_TEMPLATE, WORKS_IN, iri(DEPT_TEMPLATE, B));
+        IQTree companyBranch = createBranch(TABLE2_PREDICATE, COMPANY_TEMPLATE, WORKS_IN, iri(DEPT_TEMPLATE, B));
+
+        IQ definition = IQ_FACTORY.createIQ(PROJECTION_ATOM, IQ_FACTORY.createNaryIQTree(
+                IQ_FACTORY.createUnionNode(ImmutableSet.of(S, P, O)),
+                ImmutableList.of(personBranch, companyBranch)));
+
+        assertEquals(Optional.of(IQ_FACTORY.createIQ(PROJECTION_ATOM, companyBranch)),
+                PRUNER.pruneDefinition(definition, ImmutableList.of(groundIri(COMPANY_TEMPLATE, "3"), P, O)));
+    }
+
+    /**
+     * The remaining branch projects more variables than the union: a construction node restores the projection
+     */
+    @Test
+    public void testSingleRemainingBranchWithOtherVariables() {
+        IQTree personBranch = createBranch(TABLE1_PREDICATE, PERSON_TEMPLATE, WORKS_IN, iri(DEPT_TEMPLATE, B));
+        IQTree companyBranch = IQ_FACTORY.createUnaryIQTree(
+                IQ_FACTORY.createConstructionNode(ImmutableSet.of(S, P, O, A),
+                        SUBSTITUTION_FACTORY.getSubstitution(ImmutableMap.<Variable, ImmutableTerm>of(
+                                S, iri(COMPANY_TEMPLATE, A),
+                                P, WORKS_IN,
+                                O, iri(DEPT_TEMPLATE, B)))),
+                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE2_PREDICATE, A, B)));
+
+        ImmutableSet<Variable> unionVariables = ImmutableSet.of(S, P, O);
+        IQ definition = IQ_FACTORY.createIQ(PROJECTION_ATOM, IQ_FACTORY.createNaryIQTree(
+                IQ_FACTORY.createUnionNode(unionVariables),
+                ImmutableList.of(personBranch, companyBranch)));
+
+        IQ expectedDefinition = IQ_FACTORY.createIQ(PROJECTION_ATOM, IQ_FACTORY.createUnaryIQTree(
+                IQ_FACTORY.createConstructionNode(unionVariables), companyBranch));
+
+        assertEquals(Optional.of(expectedDefinition),
+                PRUNER.pruneDefinition(definition, ImmutableList.of(groundIri(COMPANY_TEMPLATE, "3"), P, O)));
+    }
+
+    @Test
+    public void testAllBranchesPruned() {
+        IQ definition = IQ_FACTORY.createIQ(PROJECTION_ATOM, IQ_FACTORY.createNaryIQTree(
+                IQ_FACTORY.createUnionNode(ImmutableSet.of(S, P, O)),
+                ImmutableList.of(
+                        createBranch(TABLE1_PREDICATE, PERSON_TEMPLATE, WORKS_IN, iri(DEPT_TEMPLATE, B)),
+                        createBranch(TABLE2_PREDICATE, COMPANY_TEMPLATE, WORKS_IN, iri(DEPT_TEMPLATE, B)))));
+
+        assertEquals(Optional.empty(),
+                PRUNER.pruneDefinition(definition, ImmutableList.of(groundIri(DEPT_TEMPLATE, "2"), P, O)));
+    }
+
+    @Test
+    public void testNoGroundArgument() {
+        IQ definition = IQ_FACTORY.createIQ(PROJECTION_ATOM,
+                createBranch(TABLE1_PREDICATE, PERSON_TEMPLATE, WORKS_IN, iri(DEPT_TEMPLATE, B)));
+
+        assertEquals(Optional.of(definition), PRUNER.pruneDefinition(definition, ImmutableList.of(S, P, O)));
+    }
+
+    /**
+     * CONSTRUCT [s, p, o] {s = IRI(subjectTemplate, a), p = property, o = object}
+     *    TABLE(a, b)
+     */
+    private static IQTree createBranch(RelationPredicate table, Constant subjectTemplate, IRIConstant property,
+                                       ImmutableTerm object) {
+        return IQ_FACTORY.createUnaryIQTree(
+                IQ_FACTORY.createConstructionNode(ImmutableSet.of(S, P, O),
+                        SUBSTITUTION_FACTORY.getSubstitution(ImmutableMap.<Variable, ImmutableTerm>of(
+                                S, iri(subjectTemplate, A),
+                                P, property,
+                                O, object))),
+                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(table, A, B)));
+    }
+
+    private static ImmutableFunctionalTerm iri(Constant template, Variable variable) {
+        return TERM_FACTORY.getImmutableUriTemplate(template, variable);
+    }
+
+    private static GroundTerm groundIri(Constant template, String value) {
+        return (GroundTerm) TERM_FACTORY.getImmutableUriTemplate(template, TERM_FACTORY.getConstantLiteral(value));
+    }
+
+    private static ImmutableFunctionalTerm literal(Variable variable) {
+        return TERM_FACTORY.getImmutableTypedTerm(variable, XSD.STRING);
+    }
+}
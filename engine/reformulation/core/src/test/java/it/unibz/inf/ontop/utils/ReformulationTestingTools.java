@@ -4,6 +4,7 @@ import com.google.inject.Injector;
 import it.unibz.inf.ontop.answering.reformulation.rewriting.ImmutableLinearInclusionDependenciesTools;
 import it.unibz.inf.ontop.answering.reformulation.rewriting.impl.ImmutableHomomorphismUtilities;
 import it.unibz.inf.ontop.datalog.DatalogFactory;
+import it.unibz.inf.ontop.dbschema.BasicDBMetadata;
 import it.unibz.inf.ontop.dbschema.DBMetadata;
 import it.unibz.inf.ontop.dbschema.DummyBasicDBMetadata;
 import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
@@ -71,4 +72,8 @@ public class ReformulationTestingTools {
     public static IntermediateQueryBuilder createQueryBuilder(DBMetadata dbMetadata) {
         return IQ_FACTORY.createIQBuilder(dbMetadata, EXECUTOR_REGISTRY);
     }
+
+    public static BasicDBMetadata createDummyMetadata() {
+        return DEFAULT_DUMMY_DB_METADATA.clone();
+    }
 }
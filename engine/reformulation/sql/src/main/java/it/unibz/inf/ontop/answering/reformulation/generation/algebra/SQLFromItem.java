@@ -0,0 +1,7 @@
+package it.unibz.inf.ontop.answering.reformulation.generation.algebra;
+
+/**
+ * Item of a FROM clause: SQLTable, SQLSubQuery or SQLJoin
+ */
+public interface SQLFromItem {
+}
@@ -0,0 +1,58 @@
+package it.unibz.inf.ontop.answering.reformulation.generation.algebra;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * CROSS JOIN (without ON clause) or LEFT OUTER JOIN
+ */
+public class SQLJoin implements SQLFromItem {
+
+    public enum JoinType {
+        CROSS,
+        LEFT_OUTER
+    }
+
+    private final SQLFromItem left;
+    private final SQLFromItem right;
+    private final JoinType joinType;
+    private final ImmutableList<String> onConditions;
+
+    private SQLJoin(SQLFromItem left, SQLFromItem right, JoinType joinType, ImmutableList<String> onConditions) {
+        this.left = left;
+        this.right = right;
+        this.joinType = joinType;
+        this.onConditions = onConditions;
+    }
+
+    public static SQLJoin crossJoin(SQLFromItem left, SQLFromItem right) {
+        return new SQLJoin(left, right, JoinType.CROSS, ImmutableList.of());
+    }
+
+    /**
+     * The right item must not be a join (wrap it into a sub-query otherwise)
+     */
+    public static SQLJoin leftOuterJoin(SQLFromItem left, SQLFromItem right, ImmutableList<String> onConditions) {
+        if (right instanceof SQLJoin)
+            throw new IllegalArgumentException("The right item of a left join cannot be a join");
+        return new SQLJoin(left, right, JoinType.LEFT_OUTER, onConditions);
+    }
+
+    public SQLFromItem getLeft() {
+        return left;
+    }
+
+    public SQLFromItem getRight() {
+        return right;
+    }
+
+    public JoinType getJoinType() {
+        return joinType;
+    }
+
+    /**
+     * Conjunction (empty for cross joins)
+     */
+    public ImmutableList<String> getOnConditions() {
+        return onConditions;
+    }
+}
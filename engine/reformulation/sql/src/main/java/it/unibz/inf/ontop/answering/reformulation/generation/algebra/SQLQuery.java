@@ -0,0 +1,10 @@
+package it.unibz.inf.ontop.answering.reformulation.generation.algebra;
+
+/**
+ * Relational structure of an SQL query (SQLSelect or SQLUnion).
+ *
+ * The expressions and conditions are already rendered for the SQL dialect,
+ * the structure is rendered by SQLRenderer.
+ */
+public interface SQLQuery {
+}
@@ -0,0 +1,46 @@
+package it.unibz.inf.ontop.answering.reformulation.generation.algebra;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Definition of a recursive common table expression: the initial query UNION [ALL] the recursive one,
+ * which refers to the common table expression itself.
+ *
+ * The column names are declared explicitly (required by some dialects).
+ */
+public class SQLRecursiveQuery implements SQLQuery {
+
+    private final ImmutableList<String> columns;
+    private final SQLSelect initialQuery;
+    private final SQLSelect recursiveQuery;
+    private final boolean all;
+
+    public SQLRecursiveQuery(ImmutableList<String> columns, SQLSelect initialQuery, SQLSelect recursiveQuery,
+                             boolean all) {
+        if (columns.isEmpty())
+            throw new IllegalArgumentException("A recursive query requires at least one column");
+        this.columns = columns;
+        this.initialQuery = initialQuery;
+        this.recursiveQuery = recursiveQuery;
+        this.all = all;
+    }
+
+    public ImmutableList<String> getColumns() {
+        return columns;
+    }
+
+    public SQLSelect getInitialQuery() {
+        return initialQuery;
+    }
+
+    public SQLSelect getRecursiveQuery() {
+        return recursiveQuery;
+    }
+
+    /**
+     * False if the duplicates are eliminated
+     */
+    public boolean isAll() {
+        return all;
+    }
+}
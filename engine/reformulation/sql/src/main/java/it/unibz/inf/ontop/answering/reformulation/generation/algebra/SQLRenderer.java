@@ -0,0 +1,171 @@
+package it.unibz.inf.ontop.answering.reformulation.generation.algebra;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.answering.reformulation.generation.dialect.SQLDialectAdapter;
+
+import java.util.Map;
+
+/**
+ * Renders the relational structure of a query in the SQL dialect.
+ *
+ * Stateless.
+ */
+public class SQLRenderer {
+
+    private static final String INDENT = "    ";
+    private static final String OUTER_VIEW_NAME = "SUB_QVIEW";
+
+    private final SQLDialectAdapter sqladapter;
+
+    public SQLRenderer(SQLDialectAdapter sqladapter) {
+        this.sqladapter = sqladapter;
+    }
+
+    public String render(SQLStatement statement) {
+        StringBuilder sb = new StringBuilder();
+
+        if (!statement.getCommonTableExpressions().isEmpty()) {
+            if (!sqladapter.supportsCommonTableExpressions())
+                throw new IllegalArgumentException("Common table expressions are not supported by the dialect");
+
+            boolean isRecursive = statement.getCommonTableExpressions().values().stream()
+                    .anyMatch(q -> q instanceof SQLRecursiveQuery);
+            if (isRecursive && !sqladapter.supportsRecursiveCommonTableExpressions())
+                throw new IllegalArgumentException("Recursive common table expressions are not supported by the dialect");
+
+            sb.append(isRecursive ? sqladapter.getRecursiveCommonTableExpressionKeyword() : "WITH").append(" ");
+            boolean first = true;
+            for (Map.Entry<String, SQLQuery> e : statement.getCommonTableExpressions().entrySet()) {
+                if (!first)
+                    sb.append(",\n");
+                sb.append(e.getKey());
+                if (e.getValue() instanceof SQLRecursiveQuery) {
+                    sb.append("(");
+                    Joiner.on(", ").appendTo(sb, ((SQLRecursiveQuery) e.getValue()).getColumns());
+                    sb.append(")");
+                }
+                sb.append(" AS (\n");
+                appendQuery(sb, e.getValue(), INDENT);
+                sb.append("\n)");
+                first = false;
+            }
+            sb.append("\n");
+        }
+
+        if (statement.hasModifiers()) {
+            String modifier = statement.getOrderConditions().isEmpty()
+                    ? sqladapter.sqlSlice(statement.getLimit(), statement.getOffset())
+                    : sqladapter.sqlOrderByAndSlice(statement.getOrderConditions(), OUTER_VIEW_NAME,
+                            statement.getLimit(), statement.getOffset());
+
+            sb.append("SELECT *\nFROM (\n");
+            appendQuery(sb, statement.getQuery(), "");
+            sb.append("\n) ").append(OUTER_VIEW_NAME).append("\n").append(modifier).append("\n");
+        }
+        else
+            appendQuery(sb, statement.getQuery(), "");
+
+        return sb.toString();
+    }
+
+    private void appendQuery(StringBuilder sb, SQLQuery query, String indent) {
+        if (query instanceof SQLSelect)
+            appendSelect(sb, (SQLSelect) query, indent);
+        else if (query instanceof SQLUnion) {
+            SQLUnion union = (SQLUnion) query;
+            appendUnion(sb, union.getQueries(), union.isAll(), indent);
+        }
+        else if (query instanceof SQLRecursiveQuery) {
+            SQLRecursiveQuery recursiveQuery = (SQLRecursiveQuery) query;
+            appendUnion(sb, ImmutableList.of(recursiveQuery.getInitialQuery(), recursiveQuery.getRecursiveQuery()),
+                    recursiveQuery.isAll(), indent);
+        }
+        else
+            throw new IllegalArgumentException("Unexpected query: " + query);
+    }
+
+    private void appendUnion(StringBuilder sb, ImmutableList<SQLSelect> selects, boolean all, String indent) {
+        String separator = ")\n" + indent + (all ? "UNION ALL" : "UNION") + "\n" + indent + "(";
+        sb.append(indent).append("(");
+        boolean first = true;
+        for (SQLSelect select : selects) {
+            if (!first)
+                sb.append(separator);
+            // The first line is already indented
+            StringBuilder selectBuilder = new StringBuilder();
+            appendSelect(selectBuilder, select, indent);
+            sb.append(selectBuilder.substring(indent.length()));
+            first = false;
+        }
+        sb.append(")");
+    }
+
+    private void appendSelect(StringBuilder sb, SQLSelect select, String indent) {
+        sb.append(indent).append("SELECT ");
+        if (select.isDistinct())
+            sb.append("DISTINCT ");
+
+        boolean first = true;
+        for (SQLSelect.Projection projection : select.getProjections()) {
+            if (!first)
+                sb.append(", ");
+            sb.append("\n").append(indent).append(INDENT)
+                    .append(projection.getExpression()).append(" AS ").append(projection.getAlias());
+            first = false;
+        }
+
+        sb.append("\n").append(indent).append("FROM ");
+        if (select.getFromItem().isPresent())
+            appendFromItem(sb, select.getFromItem().get(), indent + INDENT);
+        else
+            sb.append("(").append(sqladapter.getDummyTable()).append(") tdummy");
+
+        if (!select.getConditions().isEmpty()) {
+            sb.append("\n").append(indent).append("WHERE ");
+            Joiner.on(" AND\n" + indent + INDENT).appendTo(sb, select.getConditions());
+        }
+
+        if (!select.getGroupBy().isEmpty()) {
+            sb.append("\n").append(indent).append("GROUP BY ");
+            Joiner.on(", ").appendTo(sb, select.getGroupBy());
+        }
+    }
+
+    private void appendFromItem(StringBuilder sb, SQLFromItem item, String indent) {
+        if (item instanceof SQLTable) {
+            SQLTable table = (SQLTable) item;
+            sb.append(sqladapter.sqlTableName(table.getDefinition(), table.getAlias()));
+        }
+        else if (item instanceof SQLSubQuery) {
+            SQLSubQuery subQuery = (SQLSubQuery) item;
+            StringBuilder definition = new StringBuilder("(\n");
+            appendQuery(definition, subQuery.getQuery(), indent + INDENT);
+            definition.append("\n").append(indent).append(")");
+            sb.append(sqladapter.sqlTableName(definition.toString(), subQuery.getAlias()));
+        }
+        else if (item instanceof SQLJoin) {
+            SQLJoin join = (SQLJoin) item;
+            appendFromItem(sb, join.getLeft(), indent);
+            switch (join.getJoinType()) {
+                case CROSS:
+                    sb.append("\n").append(indent).append("CROSS JOIN ");
+                    appendFromItem(sb, join.getRight(), indent);
+                    break;
+                case LEFT_OUTER:
+                    sb.append("\n").append(indent).append("LEFT OUTER JOIN ");
+                    appendFromItem(sb, join.getRight(), indent);
+                    sb.append("\n").append(indent).append("ON ");
+                    if (join.getOnConditions().isEmpty())
+                        sb.append("1 = 1");
+                    else
+                        Joiner.on(" AND\n" + indent + INDENT).appendTo(sb, join.getOnConditions());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unexpected join type: " + join.getJoinType());
+            }
+        }
+        else
+            throw new IllegalArgumentException("Unexpected FROM item: " + item);
+    }
+}
@@ -0,0 +1,80 @@
+package it.unibz.inf.ontop.answering.reformulation.generation.algebra;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.Optional;
+
+/**
+ * SELECT [DISTINCT] ... [FROM ...] [WHERE ...] [GROUP BY ...]
+ *
+ * Without FROM item, the dummy table of the dialect is used.
+ */
+public class SQLSelect implements SQLQuery {
+
+    private final boolean distinct;
+    private final ImmutableList<Projection> projections;
+    private final Optional<SQLFromItem> fromItem;
+    private final ImmutableList<String> conditions;
+    private final ImmutableList<String> groupBy;
+
+    public SQLSelect(boolean distinct, ImmutableList<Projection> projections, Optional<SQLFromItem> fromItem,
+                     ImmutableList<String> conditions) {
+        this(distinct, projections, fromItem, conditions, ImmutableList.of());
+    }
+
+    public SQLSelect(boolean distinct, ImmutableList<Projection> projections, Optional<SQLFromItem> fromItem,
+                     ImmutableList<String> conditions, ImmutableList<String> groupBy) {
+        if (projections.isEmpty())
+            throw new IllegalArgumentException("At least one projection is expected");
+        this.distinct = distinct;
+        this.projections = projections;
+        this.fromItem = fromItem;
+        this.conditions = conditions;
+        this.groupBy = groupBy;
+    }
+
+    public boolean isDistinct() {
+        return distinct;
+    }
+
+    public ImmutableList<Projection> getProjections() {
+        return projections;
+    }
+
+    public Optional<SQLFromItem> getFromItem() {
+        return fromItem;
+    }
+
+    /**
+     * Conjunction
+     */
+    public ImmutableList<String> getConditions() {
+        return conditions;
+    }
+
+    /**
+     * Empty if the tuples are not grouped
+     */
+    public ImmutableList<String> getGroupBy() {
+        return groupBy;
+    }
+
+
+    public static class Projection {
+        private final String expression;
+        private final String alias;
+
+        public Projection(String expression, String alias) {
+            this.expression = expression;
+            this.alias = alias;
+        }
+
+        public String getExpression() {
+            return expression;
+        }
+
+        public String getAlias() {
+            return alias;
+        }
+    }
+}
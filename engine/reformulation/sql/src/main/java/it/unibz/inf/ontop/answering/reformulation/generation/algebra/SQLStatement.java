@@ -0,0 +1,56 @@
+package it.unibz.inf.ontop.answering.reformulation.generation.algebra;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import it.unibz.inf.ontop.datalog.OrderCondition;
+
+/**
+ * Top-level query: common table expressions, query and then ORDER BY and slice
+ * (applied to the columns of the query, named after the variables).
+ */
+public class SQLStatement {
+
+    private final ImmutableMap<String, SQLQuery> commonTableExpressions;
+    private final SQLQuery query;
+    private final ImmutableList<OrderCondition> orderConditions;
+    private final long limit;
+    private final long offset;
+
+    /**
+     * @param commonTableExpressions indexed by their names, in their order of definition
+     * @param limit -1 if none
+     * @param offset -1 if none
+     */
+    public SQLStatement(ImmutableMap<String, SQLQuery> commonTableExpressions, SQLQuery query,
+                        ImmutableList<OrderCondition> orderConditions, long limit, long offset) {
+        this.commonTableExpressions = commonTableExpressions;
+        this.query = query;
+        this.orderConditions = orderConditions;
+        this.limit = limit;
+        this.offset = offset;
+    }
+
+    public ImmutableMap<String, SQLQuery> getCommonTableExpressions() {
+        return commonTableExpressions;
+    }
+
+    public SQLQuery getQuery() {
+        return query;
+    }
+
+    public ImmutableList<OrderCondition> getOrderConditions() {
+        return orderConditions;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public boolean hasModifiers() {
+        return !orderConditions.isEmpty() || limit != -1 || offset != -1;
+    }
+}
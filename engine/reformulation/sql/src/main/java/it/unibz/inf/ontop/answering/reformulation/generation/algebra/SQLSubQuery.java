@@ -0,0 +1,23 @@
+package it.unibz.inf.ontop.answering.reformulation.generation.algebra;
+
+/**
+ * Derived table
+ */
+public class SQLSubQuery implements SQLFromItem {
+
+    private final SQLQuery query;
+    private final String alias;
+
+    public SQLSubQuery(SQLQuery query, String alias) {
+        this.query = query;
+        this.alias = alias;
+    }
+
+    public SQLQuery getQuery() {
+        return query;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+}
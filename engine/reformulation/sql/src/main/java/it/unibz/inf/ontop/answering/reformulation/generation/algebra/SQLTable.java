@@ -0,0 +1,26 @@
+package it.unibz.inf.ontop.answering.reformulation.generation.algebra;
+
+/**
+ * Database relation, view definition or common table expression, with its alias
+ */
+public class SQLTable implements SQLFromItem {
+
+    private final String definition;
+    private final String alias;
+
+    /**
+     * @param definition rendered name of the relation (or the view definition in brackets)
+     */
+    public SQLTable(String definition, String alias) {
+        this.definition = definition;
+        this.alias = alias;
+    }
+
+    public String getDefinition() {
+        return definition;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+}
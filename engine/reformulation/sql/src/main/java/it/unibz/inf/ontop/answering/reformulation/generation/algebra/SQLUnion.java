@@ -0,0 +1,30 @@
+package it.unibz.inf.ontop.answering.reformulation.generation.algebra;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * UNION [ALL] of SELECT queries (with the same columns)
+ */
+public class SQLUnion implements SQLQuery {
+
+    private final ImmutableList<SQLSelect> queries;
+    private final boolean all;
+
+    public SQLUnion(ImmutableList<SQLSelect> queries, boolean all) {
+        if (queries.size() < 2)
+            throw new IllegalArgumentException("A union requires at least two queries");
+        this.queries = queries;
+        this.all = all;
+    }
+
+    public ImmutableList<SQLSelect> getQueries() {
+        return queries;
+    }
+
+    /**
+     * False if the duplicates are eliminated
+     */
+    public boolean isAll() {
+        return all;
+    }
+}
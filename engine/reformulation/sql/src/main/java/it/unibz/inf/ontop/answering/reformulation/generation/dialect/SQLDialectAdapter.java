@@ -150,4 +150,25 @@ public interface SQLDialectAdapter {
     String ifElseNull(String condition, String valueIfTrue);
 
     String getNullForLang();
+
+	/**
+	 * WITH clauses (SQL:1999)
+	 */
+	boolean supportsCommonTableExpressions();
+
+	/**
+	 * Recursive WITH clauses (SQL:1999), used for the transitive closures
+	 */
+	boolean supportsRecursiveCommonTableExpressions();
+
+	/**
+	 * Keyword introducing a WITH clause that defines a recursive common table expression
+	 */
+	String getRecursiveCommonTableExpressionKeyword();
+
+	/**
+	 * True if the recursive member can be combined with UNION (and not only with UNION ALL).
+	 * Otherwise, the recursion only terminates on cyclic data when its depth is bounded.
+	 */
+	boolean supportsUnionInRecursiveCommonTableExpressions();
 }
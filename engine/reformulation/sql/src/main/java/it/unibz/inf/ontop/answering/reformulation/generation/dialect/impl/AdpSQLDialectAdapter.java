@@ -81,4 +81,8 @@ public class AdpSQLDialectAdapter extends SQL99DialectAdapter {
 		return bf.toString();
 	}
 
+	@Override
+	public boolean supportsCommonTableExpressions() {
+		return false;
+	}
 }
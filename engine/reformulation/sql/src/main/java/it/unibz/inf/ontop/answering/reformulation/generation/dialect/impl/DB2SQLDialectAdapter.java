@@ -200,5 +200,16 @@ public class DB2SQLDialectAdapter extends SQL99DialectAdapter {
 		return bf.toString();
 	}
 
-	
+	@Override
+	public boolean supportsRecursiveCommonTableExpressions() {
+		return true;
+	}
+
+	/**
+	 * No RECURSIVE keyword
+	 */
+	@Override
+	public String getRecursiveCommonTableExpressionKeyword() {
+		return "WITH";
+	}
 }
@@ -38,4 +38,8 @@ public class DenodoSQLDialectAdapter extends SQL99DialectAdapter {
         }
     }
 
+    @Override
+    public boolean supportsCommonTableExpressions() {
+        return false;
+    }
 }
@@ -148,5 +148,9 @@ public class H2SQLDialectAdapter extends SQL99DialectAdapter {
 		
 		return bf.toString();
 	}
-	
+
+	@Override
+	public boolean supportsRecursiveCommonTableExpressions() {
+		return true;
+	}
 }
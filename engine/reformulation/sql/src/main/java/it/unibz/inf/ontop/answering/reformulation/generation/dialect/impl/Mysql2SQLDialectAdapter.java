@@ -262,4 +262,12 @@ public class Mysql2SQLDialectAdapter extends SQL99DialectAdapter {
         return "'" + constant.replace("\\", "\\\\").replace("'", "\\'") + "'";
         //return super.getSQLLexicalFormString(constant).replace("\\", "\\\\");
     }
+
+    /**
+     * Only from MySQL 8
+     */
+    @Override
+    public boolean supportsCommonTableExpressions() {
+        return false;
+    }
 }
@@ -412,4 +412,17 @@ public class OracleSQLDialectAdapter extends SQL99DialectAdapter {
 		throw new RuntimeException("Impossible to create a new variable/view " + prefix + shortenIntermediateNamePrefix
 				+ "???" + suffix + " : already " + Math.pow(10, NAME_NUMBER_LENGTH) + " of them.");
 	}
+
+	@Override
+	public boolean supportsRecursiveCommonTableExpressions() {
+		return true;
+	}
+
+	/**
+	 * No RECURSIVE keyword
+	 */
+	@Override
+	public String getRecursiveCommonTableExpressionKeyword() {
+		return "WITH";
+	}
 }
@@ -215,4 +215,13 @@ public class PostgreSQLDialectAdapter extends SQL99DialectAdapter {
 		return bf.toString();
 	}
 
+	@Override
+	public boolean supportsRecursiveCommonTableExpressions() {
+		return true;
+	}
+
+	@Override
+	public boolean supportsUnionInRecursiveCommonTableExpressions() {
+		return true;
+	}
 }
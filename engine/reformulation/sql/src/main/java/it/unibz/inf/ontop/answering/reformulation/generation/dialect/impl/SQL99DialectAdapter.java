@@ -490,6 +490,29 @@ public class SQL99DialectAdapter implements SQLDialectAdapter {
         return "NULL";
     }
 
+    @Override
+    public boolean supportsCommonTableExpressions() {
+        return true;
+    }
+
+    /**
+     * Disabled by default, enabled by the dialects that have been checked
+     */
+    @Override
+    public boolean supportsRecursiveCommonTableExpressions() {
+        return false;
+    }
+
+    @Override
+    public String getRecursiveCommonTableExpressionKeyword() {
+        return "WITH RECURSIVE";
+    }
+
+    @Override
+    public boolean supportsUnionInRecursiveCommonTableExpressions() {
+        return false;
+    }
+
     /**
      * Concatenates the strings.
      * Default way to name a variable or a view.
@@ -311,5 +311,16 @@ public class SQLServerSQLDialectAdapter extends SQL99DialectAdapter {
 		return bf.toString();
 	}
 
+	@Override
+	public boolean supportsRecursiveCommonTableExpressions() {
+		return true;
+	}
 
+	/**
+	 * No RECURSIVE keyword
+	 */
+	@Override
+	public String getRecursiveCommonTableExpressionKeyword() {
+		return "WITH";
+	}
 }
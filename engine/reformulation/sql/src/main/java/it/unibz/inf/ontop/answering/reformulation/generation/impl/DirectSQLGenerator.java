@@ -0,0 +1,155 @@
+package it.unibz.inf.ontop.answering.reformulation.generation.impl;
+
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.assistedinject.Assisted;
+import com.google.inject.assistedinject.AssistedInject;
+import it.unibz.inf.ontop.answering.reformulation.ExecutableQuery;
+import it.unibz.inf.ontop.answering.reformulation.IRIDictionary;
+import it.unibz.inf.ontop.answering.reformulation.generation.NativeQueryGenerator;
+import it.unibz.inf.ontop.answering.reformulation.generation.algebra.SQLRenderer;
+import it.unibz.inf.ontop.answering.reformulation.generation.algebra.SQLStatement;
+import it.unibz.inf.ontop.answering.reformulation.impl.SQLExecutableQuery;
+import it.unibz.inf.ontop.datalog.DatalogFactory;
+import it.unibz.inf.ontop.datalog.DatalogNormalizer;
+import it.unibz.inf.ontop.datalog.IQ2DatalogTranslator;
+import it.unibz.inf.ontop.datalog.UnionFlattener;
+import it.unibz.inf.ontop.dbschema.DBMetadata;
+import it.unibz.inf.ontop.dbschema.JdbcTypeMapper;
+import it.unibz.inf.ontop.dbschema.RDBMetadata;
+import it.unibz.inf.ontop.dbschema.Relation2Predicate;
+import it.unibz.inf.ontop.exception.IncompatibleTermException;
+import it.unibz.inf.ontop.exception.OntopReformulationException;
+import it.unibz.inf.ontop.exception.OntopTypingException;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.injection.OntopReformulationSQLSettings;
+import it.unibz.inf.ontop.injection.OptimizerFactory;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IntermediateQuery;
+import it.unibz.inf.ontop.iq.optimizer.PushDownBooleanExpressionOptimizer;
+import it.unibz.inf.ontop.iq.optimizer.PushUpBooleanExpressionOptimizer;
+import it.unibz.inf.ontop.iq.tools.IQConverter;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.model.term.impl.ImmutabilityTools;
+import it.unibz.inf.ontop.model.type.TypeFactory;
+import it.unibz.inf.ontop.model.type.impl.TermTypeInferenceTools;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.Optional;
+
+/**
+ * Translates the IQ directly into SQL (without going through Datalog).
+ *
+ * The structure of the SQL query (a relational AST, see the algebra package) is built
+ * from the IQ tree, with as few sub-queries as possible, and is then rendered
+ * in the dialect by the SQLRenderer. The terms and conditions are rendered
+ * by the OneShotSQLGeneratorEngine, as for the LegacySQLGenerator.
+ *
+ * Falls back to the Datalog-based translation for the trees it does not support.
+ *
+ * Wrapper over a non thread-safe implementation
+ *  --> the engine has to be cloned for every query
+ */
+public class DirectSQLGenerator implements NativeQueryGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(DirectSQLGenerator.class);
+
+    /**
+     * To be cloned for every non-empty query!
+     */
+    private final OneShotSQLGeneratorEngine originalEngine;
+    private final RDBMetadata metadata;
+    private final SQLRenderer renderer;
+    private final Relation2Predicate relation2Predicate;
+    private final ImmutabilityTools immutabilityTools;
+    private final TermTypeInferenceTools termTypeInferenceTools;
+    private final IQConverter iqConverter;
+    private final PushDownBooleanExpressionOptimizer pushDownExpressionOptimizer;
+
+    @AssistedInject
+    private DirectSQLGenerator(@Assisted DBMetadata metadata,
+                               @Nullable IRIDictionary iriDictionary,
+                               OntopReformulationSQLSettings settings,
+                               IQ2DatalogTranslator iq2DatalogTranslator,
+                               JdbcTypeMapper jdbcTypeMapper,
+                               TypeExtractor typeExtractor, Relation2Predicate relation2Predicate,
+                               DatalogNormalizer datalogNormalizer, DatalogFactory datalogFactory,
+                               TypeFactory typeFactory, TermFactory termFactory,
+                               IntermediateQueryFactory iqFactory,
+                               IQConverter iqConverter, UnionFlattener unionFlattener,
+                               PushDownBooleanExpressionOptimizer pushDownExpressionOptimizer,
+                               OptimizerFactory optimizerFactory, PushUpBooleanExpressionOptimizer pullUpExpressionOptimizer,
+                               ImmutabilityTools immutabilityTools, TermTypeInferenceTools termTypeInferenceTools)
+    {
+        if (!(metadata instanceof RDBMetadata)) {
+            throw new IllegalArgumentException("Not a DBMetadata!");
+        }
+
+        this.originalEngine = new OneShotSQLGeneratorEngine(metadata, iriDictionary, settings, jdbcTypeMapper,
+                iq2DatalogTranslator, typeExtractor, relation2Predicate, datalogNormalizer, datalogFactory,
+                typeFactory, termFactory, iqFactory, iqConverter, unionFlattener,
+                pushDownExpressionOptimizer, optimizerFactory, pullUpExpressionOptimizer);
+        this.metadata = (RDBMetadata) metadata;
+        this.renderer = new SQLRenderer(originalEngine.getSQLAdapter());
+        this.relation2Predicate = relation2Predicate;
+        this.immutabilityTools = immutabilityTools;
+        this.termTypeInferenceTools = termTypeInferenceTools;
+        this.iqConverter = iqConverter;
+        this.pushDownExpressionOptimizer = pushDownExpressionOptimizer;
+    }
+
+    @Override
+    public ExecutableQuery generateSourceQuery(IntermediateQuery query)
+            throws OntopReformulationException {
+
+        // Trick for pushing down expressions under unions (e.g. for the SPARQL EBVs)
+        IQ iq = iqConverter.convert(pushDownExpressionOptimizer.optimize(query));
+
+        OneShotSQLGeneratorEngine engine = originalEngine.clone();
+        try {
+            SQLStatement statement = new IQ2SQLTranslator(engine, metadata, relation2Predicate, immutabilityTools,
+                    termTypeInferenceTools).translate(iq);
+
+            ImmutableList<String> signature = iq.getProjectionAtom().getArguments().stream()
+                    .map(Variable::getName)
+                    .collect(ImmutableCollectors.toList());
+
+            return new SQLExecutableQuery(renderer.render(statement), signature);
+        }
+        catch (IQ2SQLTranslator.UnsupportedTreeException e) {
+            log.debug("Falling back to the Datalog-based translation: {}", e.getMessage());
+            return originalEngine.clone()
+                    .generateSourceQuery(query);
+        }
+        /*
+         * Currently, incompatible terms are treated as a reformulation error
+         */
+        catch (IncompatibleTermException e) {
+            throw new OntopTypingException(e.getMessage());
+        }
+    }
+
+    @Override
+    public ExecutableQuery generateEmptyQuery(ImmutableList<String> signatureContainer) {
+        // Empty string query
+        return new SQLExecutableQuery(signatureContainer);
+    }
+
+    /**
+     * Stateless: no need to clone the engine
+     */
+    @Override
+    public Optional<ExecutableQuery> instantiateTemplate(ExecutableQuery templateQuery,
+                                                         ImmutableMap<String, String> parameters) {
+        if (!(templateQuery instanceof SQLExecutableQuery))
+            throw new IllegalArgumentException("An SQLExecutableQuery was expected");
+
+        return originalEngine.instantiateTemplate((SQLExecutableQuery) templateQuery, parameters)
+                .map(q -> q);
+    }
+}
@@ -0,0 +1,798 @@
+package it.unibz.inf.ontop.answering.reformulation.generation.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import it.unibz.inf.ontop.answering.reformulation.generation.algebra.*;
+import it.unibz.inf.ontop.answering.reformulation.generation.dialect.SQLDialectAdapter;
+import it.unibz.inf.ontop.datalog.MutableQueryModifiers;
+import it.unibz.inf.ontop.datalog.OrderCondition;
+import it.unibz.inf.ontop.datalog.impl.MutableQueryModifiersImpl;
+import it.unibz.inf.ontop.dbschema.*;
+import it.unibz.inf.ontop.exception.IncompatibleTermException;
+import it.unibz.inf.ontop.iq.BinaryNonCommutativeIQTree;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.UnaryIQTree;
+import it.unibz.inf.ontop.iq.node.*;
+import it.unibz.inf.ontop.model.atom.DataAtom;
+import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.term.functionsymbol.DatatypePredicate;
+import it.unibz.inf.ontop.model.term.functionsymbol.Predicate;
+import it.unibz.inf.ontop.model.term.impl.ImmutabilityTools;
+import it.unibz.inf.ontop.model.type.TermType;
+import it.unibz.inf.ontop.model.type.impl.TermTypeInferenceTools;
+import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Translates an IQ into the relational structure of an SQL query, without going through Datalog.
+ *
+ * Each sub-tree is translated into a block: a FROM item, WHERE conditions and the columns of its variables.
+ * Joins and filters are merged into the blocks of their children. Only unions, construction nodes
+ * defining new terms, distincts and the right children of left joins made of several relations
+ * introduce sub-queries. Aggregation nodes are translated into sub-queries with a GROUP BY clause
+ * (the filters above them, i.e. HAVING, apply to the sub-query). When supported by the dialect, the sub-queries appearing several times
+ * in the tree are only defined once, as common table expressions. Transitive closures are translated
+ * into recursive common table expressions (bounded by a depth column when a maximal depth is given
+ * or when the dialect only accepts UNION ALL in these expressions).
+ *
+ * The terms and the conditions are rendered by the engine.
+ *
+ * One instance per query (not thread-safe).
+ */
+class IQ2SQLTranslator {
+
+    private static final Logger log = LoggerFactory.getLogger(IQ2SQLTranslator.class);
+
+    private static final String VIEW_SUFFIX = "VIEW";
+    private static final String SUB_QUERY_NAME = "ans";
+    private static final String SUB_QUERY_SUFFIX = "View";
+    private static final String CTE_NAME = "cte";
+    private static final String CLOSURE_NAME = "closure";
+    private static final String STEP_NAME = "step";
+    private static final String DEPTH_COLUMN_NAME = "depth";
+
+    private final OneShotSQLGeneratorEngine engine;
+    private final RDBMetadata metadata;
+    private final QuotedIDFactory idFactory;
+    private final Relation2Predicate relation2Predicate;
+    private final ImmutabilityTools immutabilityTools;
+    private final TermTypeInferenceTools termTypeInferenceTools;
+    private final boolean useCommonTableExpressions;
+
+    private final Set<RelationID> usedAliases = new HashSet<>();
+    private final Map<IQTree, Integer> occurrences = new HashMap<>();
+    private final Map<IQTree, CommonTableExpression> commonTableExpressions = new HashMap<>();
+    // In their order of definition (the dependencies first), including the recursive ones
+    private final List<CommonTableExpression> commonTableExpressionDefinitions = new ArrayList<>();
+    private int aliasCounter = 0;
+
+    IQ2SQLTranslator(OneShotSQLGeneratorEngine engine, RDBMetadata metadata, Relation2Predicate relation2Predicate,
+                     ImmutabilityTools immutabilityTools, TermTypeInferenceTools termTypeInferenceTools) {
+        this.engine = engine;
+        this.metadata = metadata;
+        this.idFactory = metadata.getQuotedIDFactory();
+        this.relation2Predicate = relation2Predicate;
+        this.immutabilityTools = immutabilityTools;
+        this.termTypeInferenceTools = termTypeInferenceTools;
+        this.useCommonTableExpressions = engine.getSQLAdapter().supportsCommonTableExpressions();
+    }
+
+    /**
+     * The query modifiers (slice, distinct and order by) are only expected at the top,
+     * in this order, like in the IQ2DatalogTranslator.
+     *
+     * @throws UnsupportedTreeException for the trees not (yet) supported by this translation
+     * @throws IncompatibleTermException when the terms of a projection are incompatible
+     */
+    SQLStatement translate(IQ query) {
+        IQTree tree = query.getTree();
+
+        Optional<SliceNode> sliceNode = Optional.of(tree.getRootNode())
+                .filter(n -> n instanceof SliceNode)
+                .map(n -> (SliceNode) n);
+        if (sliceNode.isPresent())
+            tree = ((UnaryIQTree) tree).getChild();
+
+        Optional<DistinctNode> distinctNode = Optional.of(tree.getRootNode())
+                .filter(n -> n instanceof DistinctNode)
+                .map(n -> (DistinctNode) n);
+        if (distinctNode.isPresent())
+            tree = ((UnaryIQTree) tree).getChild();
+
+        Optional<OrderByNode> orderByNode = Optional.of(tree.getRootNode())
+                .filter(n -> n instanceof OrderByNode)
+                .map(n -> (OrderByNode) n);
+        if (orderByNode.isPresent())
+            tree = ((UnaryIQTree) tree).getChild();
+
+        ImmutableList<OrderCondition> orderConditions = orderByNode
+                .map(n -> convertComparators(n.getComparators()))
+                .orElseGet(ImmutableList::of);
+
+        boolean isDistinct = distinctNode.isPresent();
+        engine.setQueryModifiers(isDistinct, !orderConditions.isEmpty());
+        boolean eliminateDuplicates = isDistinct && !engine.isDistinctResultSet();
+
+        countOccurrences(tree);
+
+        // The root union is not nested in a sub-query
+        ImmutableList<IQTree> topTrees = (tree.getRootNode() instanceof UnionNode)
+                ? collectUnionChildren(tree)
+                : ImmutableList.of(tree);
+
+        ImmutableList<Variable> signature = ImmutableList.copyOf(query.getProjectionAtom().getArguments());
+        ImmutableList<ImmutableList<String>> columnAliases = engine.createTopColumnAliases(
+                signature.stream()
+                        .map(Variable::getName)
+                        .collect(ImmutableCollectors.toList()));
+
+        SQLQuery sqlQuery = translateBranches(topTrees, signature, columnAliases, eliminateDuplicates).getQuery();
+
+        return new SQLStatement(
+                commonTableExpressionDefinitions.stream()
+                        .collect(ImmutableCollectors.toMap(c -> c.name, c -> c.relation.getQuery())),
+                sqlQuery,
+                orderConditions,
+                sliceNode.flatMap(SliceNode::getLimit).orElse(-1L),
+                sliceNode.map(SliceNode::getOffset).filter(o -> o > 0).orElse(-1L));
+    }
+
+    private ImmutableList<OrderCondition> convertComparators(ImmutableList<OrderByNode.OrderComparator> comparators) {
+        MutableQueryModifiers modifiers = new MutableQueryModifiersImpl();
+        for (OrderByNode.OrderComparator comparator : comparators) {
+            if (!(comparator.getTerm() instanceof Variable))
+                throw new UnsupportedTreeException("Only variables are supported in ORDER BY: " + comparator);
+            modifiers.addOrderCondition((Variable) comparator.getTerm(),
+                    comparator.isAscending() ? OrderCondition.ORDER_ASCENDING : OrderCondition.ORDER_DESCENDING);
+        }
+        return ImmutableList.copyOf(modifiers.getSortConditions());
+    }
+
+    /**
+     * Counts the sub-trees that are translated into sub-queries.
+     * The sub-trees of a repeated sub-tree are only counted once.
+     */
+    private void countOccurrences(IQTree tree) {
+        if (isSubQuery(tree)) {
+            int count = occurrences.merge(tree, 1, Integer::sum);
+            if (count > 1)
+                return;
+        }
+        tree.getChildren().forEach(this::countOccurrences);
+    }
+
+    private static boolean isSubQuery(IQTree tree) {
+        QueryNode node = tree.getRootNode();
+        return (node instanceof UnionNode)
+                || (node instanceof DistinctNode)
+                || (node instanceof AggregationNode)
+                || (node instanceof TransitiveClosureNode)
+                || ((node instanceof ConstructionNode) && !((ConstructionNode) node).getSubstitution().isEmpty());
+    }
+
+    /**
+     * Children of a union, the directly nested unions being flattened
+     */
+    private static ImmutableList<IQTree> collectUnionChildren(IQTree unionTree) {
+        return unionTree.getChildren().stream()
+                .flatMap(c -> (c.getRootNode() instanceof UnionNode)
+                        ? collectUnionChildren(c).stream()
+                        : ImmutableList.of(c).stream())
+                .collect(ImmutableCollectors.toList());
+    }
+
+    private Block translateTree(IQTree tree) {
+        QueryNode node = tree.getRootNode();
+
+        if (node instanceof ExtensionalDataNode)
+            return translateDataAtom(((ExtensionalDataNode) node).getProjectionAtom());
+
+        else if (node instanceof FilterNode) {
+            Block child = translateTree(((UnaryIQTree) tree).getChild());
+            return child.addConditions(translateCondition(((FilterNode) node).getFilterCondition(), child));
+        }
+        else if (node instanceof InnerJoinNode) {
+            Block block = tree.getChildren().stream()
+                    .map(this::translateTree)
+                    .reduce(Block::join)
+                    .orElseThrow(() -> new UnsupportedTreeException("Join without children"));
+            Optional<ImmutableExpression> condition = ((InnerJoinNode) node).getOptionalFilterCondition();
+            return condition.isPresent()
+                    ? block.addConditions(translateCondition(condition.get(), block))
+                    : block;
+        }
+        else if (node instanceof LeftJoinNode)
+            return translateLeftJoin((LeftJoinNode) node, (BinaryNonCommutativeIQTree) tree);
+
+        else if ((node instanceof ConstructionNode) && ((ConstructionNode) node).getSubstitution().isEmpty())
+            return translateTree(((UnaryIQTree) tree).getChild())
+                    .restrict(((ConstructionNode) node).getVariables());
+
+        else if (isSubQuery(tree))
+            return translateSubQuery(tree);
+
+        else if (node instanceof TrueNode)
+            return Block.EMPTY;
+
+        else
+            throw new UnsupportedTreeException("Unsupported node in the middle of the tree: " + node);
+    }
+
+    private Block translateDataAtom(DataAtom atom) {
+        Predicate predicate = atom.getPredicate();
+        RelationDefinition relation = metadata.getRelation(
+                relation2Predicate.createRelationFromPredicateName(idFactory, predicate));
+        if (relation == null)
+            throw new UnsupportedTreeException("Unknown relation: " + predicate);
+
+        RelationID alias = createAlias(predicate.getName(), VIEW_SUFFIX + aliasCounter++);
+        String definition = (relation instanceof DatabaseRelationDefinition)
+                ? relation.getID().getSQLRendering()
+                : "(" + ((ParserViewDefinition) relation).getStatement() + ")";
+
+        Map<Variable, QualifiedAttributeID> columns = new HashMap<>();
+        Map<Variable, TermType> castTypes = new HashMap<>();
+        ImmutableList.Builder<String> conditionBuilder = ImmutableList.builder();
+
+        ImmutableList<? extends VariableOrGroundTerm> arguments = atom.getArguments();
+        for (int i = 0; i < arguments.size(); i++) {
+            Attribute attribute = relation.getAttribute(i + 1);
+            QualifiedAttributeID column = new QualifiedAttributeID(alias, attribute.getID());
+            VariableOrGroundTerm argument = arguments.get(i);
+
+            if (argument instanceof Variable) {
+                Variable variable = (Variable) argument;
+                QualifiedAttributeID previousColumn = columns.get(variable);
+                if (previousColumn == null) {
+                    columns.put(variable, column);
+                    castTypes.put(variable, attribute.getTermType());
+                }
+                else
+                    conditionBuilder.add(equality(previousColumn.getSQLRendering(), column.getSQLRendering()));
+            }
+            else if (argument instanceof Constant)
+                conditionBuilder.add(equality(column.getSQLRendering(),
+                        engine.getSQLExpression(immutabilityTools.convertToMutableTerm(argument), Block.EMPTY)));
+            else
+                throw new UnsupportedTreeException("Unsupported argument of a data atom: " + argument);
+        }
+
+        return new Block(Optional.of(new SQLTable(definition, alias.getSQLRendering())),
+                conditionBuilder.build(), ImmutableMap.copyOf(columns), ImmutableMap.of(), ImmutableMap.of(),
+                ImmutableMap.copyOf(castTypes), ImmutableMap.of(alias, relation));
+    }
+
+    /**
+     * The conditions of the right block go to the ON clause.
+     * A right block made of several relations is nested in a sub-query.
+     */
+    private Block translateLeftJoin(LeftJoinNode node, BinaryNonCommutativeIQTree tree) {
+        Block left = translateTree(tree.getLeftChild());
+        Block right = translateTree(tree.getRightChild());
+
+        if (!left.fromItem.isPresent() || !right.fromItem.isPresent())
+            throw new UnsupportedTreeException("Left join without relation on one side: " + tree);
+
+        if (right.fromItem.get() instanceof SQLJoin)
+            right = translateSubQuery(tree.getRightChild());
+
+        ImmutableList.Builder<String> onConditionBuilder = ImmutableList.<String>builder()
+                .addAll(right.conditions)
+                .addAll(left.getSharedVariableEqualities(right));
+        Optional<ImmutableExpression> condition = node.getOptionalFilterCondition();
+        if (condition.isPresent())
+            onConditionBuilder.addAll(translateCondition(condition.get(),
+                    left.merge(right, Optional.empty(), ImmutableList.of())));
+
+        return left.merge(right,
+                Optional.of(SQLJoin.leftOuterJoin(left.fromItem.get(), right.fromItem.get(), onConditionBuilder.build())),
+                left.conditions);
+    }
+
+    private ImmutableList<String> translateCondition(ImmutableExpression condition, Block block) {
+        return engine.getSQLConditions(
+                condition.flattenAND().stream()
+                        .map(immutabilityTools::convertToMutableBooleanExpression)
+                        .collect(ImmutableCollectors.toList()),
+                block);
+    }
+
+    /**
+     * Repeated sub-queries are defined once as common table expressions (if supported)
+     */
+    private Block translateSubQuery(IQTree tree) {
+        RelationID alias = createAlias(SUB_QUERY_NAME + aliasCounter++, SUB_QUERY_SUFFIX);
+
+        final DerivedRelation relation;
+        final SQLFromItem fromItem;
+        if (useCommonTableExpressions && occurrences.getOrDefault(tree, 0) > 1) {
+            CommonTableExpression cte = commonTableExpressions.get(tree);
+            if (cte == null) {
+                DerivedRelation cteRelation = translateDerivedRelation(tree);
+                cte = new CommonTableExpression(
+                        createAlias(CTE_NAME + aliasCounter++, "").getSQLRendering(), cteRelation);
+                commonTableExpressions.put(tree, cte);
+                commonTableExpressionDefinitions.add(cte);
+            }
+            relation = cte.relation;
+            fromItem = new SQLTable(cte.name, alias.getSQLRendering());
+        }
+        else {
+            relation = translateDerivedRelation(tree);
+            fromItem = new SQLSubQuery(relation.getQuery(), alias.getSQLRendering());
+        }
+
+        ImmutableMap.Builder<Variable, QualifiedAttributeID> typeColumnBuilder = ImmutableMap.builder();
+        ImmutableMap.Builder<Variable, QualifiedAttributeID> langColumnBuilder = ImmutableMap.builder();
+        ImmutableMap.Builder<Variable, QualifiedAttributeID> mainColumnBuilder = ImmutableMap.builder();
+        for (int i = 0; i < relation.variables.size(); i++) {
+            Variable variable = relation.variables.get(i);
+            ImmutableList<String> aliases = relation.columnAliases.get(i);
+            typeColumnBuilder.put(variable, new QualifiedAttributeID(alias, idFactory.createAttributeID(aliases.get(0))));
+            langColumnBuilder.put(variable, new QualifiedAttributeID(alias, idFactory.createAttributeID(aliases.get(1))));
+            mainColumnBuilder.put(variable, new QualifiedAttributeID(alias, idFactory.createAttributeID(aliases.get(2))));
+        }
+
+        return new Block(Optional.of(fromItem), ImmutableList.of(), mainColumnBuilder.build(),
+                typeColumnBuilder.build(), langColumnBuilder.build(), relation.castTypes, ImmutableMap.of());
+    }
+
+    private DerivedRelation translateDerivedRelation(IQTree tree) {
+        if (tree.getRootNode() instanceof TransitiveClosureNode)
+            return translateTransitiveClosure((TransitiveClosureNode) tree.getRootNode(), (UnaryIQTree) tree);
+
+        boolean isDistinct = tree.getRootNode() instanceof DistinctNode;
+        IQTree body = isDistinct ? ((UnaryIQTree) tree).getChild() : tree;
+
+        ImmutableList<IQTree> branches = (body.getRootNode() instanceof UnionNode)
+                ? collectUnionChildren(body)
+                : ImmutableList.of(body);
+
+        ImmutableList<Variable> variables = ImmutableList.copyOf(tree.getVariables());
+        ImmutableList<ImmutableList<String>> columnAliases = engine.createTopColumnAliases(
+                variables.stream()
+                        .map(v -> "v" + variables.indexOf(v))
+                        .collect(ImmutableCollectors.toList()));
+
+        return translateBranches(branches, variables, columnAliases, isDistinct);
+    }
+
+    /**
+     * The child (the step relation) is used in both members of a recursive common table expression:
+     *   the initial member returns its pairs (at depth 1),
+     *   the recursive member extends the pairs found so far with one more step (while below the maximal depth).
+     *
+     * Without maximal depth, the duplicates must be eliminated by the recursive union for the recursion to
+     * terminate on cyclic data. When the dialect only accepts UNION ALL, the recursion is bounded by
+     * the property path unrolling depth instead (the answers may then be incomplete).
+     *
+     * The paths are joined on the main columns only (like the shared variables of a join).
+     */
+    private DerivedRelation translateTransitiveClosure(TransitiveClosureNode node, UnaryIQTree tree) {
+        SQLDialectAdapter sqladapter = engine.getSQLAdapter();
+        if (!sqladapter.supportsRecursiveCommonTableExpressions())
+            throw new UnsupportedTreeException("Recursive common table expressions are not supported by the dialect");
+
+        Optional<Integer> maxDepth = node.getMaxDepth();
+        if (!maxDepth.isPresent() && !sqladapter.supportsUnionInRecursiveCommonTableExpressions()) {
+            maxDepth = Optional.of(engine.getPropertyPathUnrollingDepth());
+            log.warn("Transitive closure bounded by depth {} (no UNION in the recursive common table expressions "
+                    + "of this dialect): the longer paths are ignored and the answers may be incomplete ({})",
+                    maxDepth.get(), node);
+        }
+
+        ImmutableList<Variable> variables = ImmutableList.of(node.getSourceVariable(), node.getTargetVariable());
+        ImmutableList<ImmutableList<String>> columnAliases = engine.createTopColumnAliases(
+                ImmutableList.of("v0", "v1"));
+
+        IQTree child = tree.getChild();
+        ImmutableList<IQTree> branches = (child.getRootNode() instanceof UnionNode)
+                ? collectUnionChildren(child)
+                : ImmutableList.of(child);
+        DerivedRelation step = translateBranches(branches, variables, columnAliases, false);
+
+        ImmutableList<String> sourceColumns = columnAliases.get(0);
+        ImmutableList<String> targetColumns = columnAliases.get(1);
+        String depthColumn = sqladapter.sqlQuote(DEPTH_COLUMN_NAME);
+
+        ImmutableList<String> columns = ImmutableList.<String>builder()
+                .addAll(sourceColumns)
+                .addAll(targetColumns)
+                .addAll(maxDepth.isPresent() ? ImmutableList.of(depthColumn) : ImmutableList.of())
+                .build();
+        String closureName = createAlias(CLOSURE_NAME + aliasCounter++, "").getSQLRendering();
+
+        RelationID initialStepAlias = createAlias(STEP_NAME + aliasCounter++, SUB_QUERY_SUFFIX);
+        ImmutableList.Builder<SQLSelect.Projection> initialProjectionBuilder = ImmutableList.builder();
+        for (String column : Iterables.concat(sourceColumns, targetColumns))
+            initialProjectionBuilder.add(new SQLSelect.Projection(qualify(initialStepAlias, column), column));
+        if (maxDepth.isPresent())
+            initialProjectionBuilder.add(new SQLSelect.Projection("1", depthColumn));
+        SQLSelect initialQuery = new SQLSelect(false, initialProjectionBuilder.build(),
+                Optional.of(new SQLSubQuery(step.getQuery(), initialStepAlias.getSQLRendering())),
+                ImmutableList.of());
+
+        RelationID pathAlias = createAlias(CLOSURE_NAME + aliasCounter++, SUB_QUERY_SUFFIX);
+        RelationID recursiveStepAlias = createAlias(STEP_NAME + aliasCounter++, SUB_QUERY_SUFFIX);
+        ImmutableList.Builder<SQLSelect.Projection> recursiveProjectionBuilder = ImmutableList.builder();
+        for (String column : sourceColumns)
+            recursiveProjectionBuilder.add(new SQLSelect.Projection(qualify(pathAlias, column), column));
+        for (String column : targetColumns)
+            recursiveProjectionBuilder.add(new SQLSelect.Projection(qualify(recursiveStepAlias, column), column));
+        ImmutableList.Builder<String> recursiveConditionBuilder = ImmutableList.<String>builder()
+                .add(equality(qualify(pathAlias, targetColumns.get(2)), qualify(recursiveStepAlias, sourceColumns.get(2))));
+        if (maxDepth.isPresent()) {
+            recursiveProjectionBuilder.add(new SQLSelect.Projection(qualify(pathAlias, depthColumn) + " + 1", depthColumn));
+            recursiveConditionBuilder.add(qualify(pathAlias, depthColumn) + " < " + maxDepth.get());
+        }
+        SQLSelect recursiveQuery = new SQLSelect(false, recursiveProjectionBuilder.build(),
+                Optional.of(SQLJoin.crossJoin(
+                        new SQLTable(closureName, pathAlias.getSQLRendering()),
+                        new SQLSubQuery(step.getQuery(), recursiveStepAlias.getSQLRendering()))),
+                recursiveConditionBuilder.build());
+
+        commonTableExpressionDefinitions.add(new CommonTableExpression(closureName,
+                new DerivedRelation(new SQLRecursiveQuery(columns, initialQuery, recursiveQuery, maxDepth.isPresent()),
+                        variables, columnAliases, step.castTypes)));
+
+        // The same pair may be reached at different depths
+        RelationID closureAlias = createAlias(CLOSURE_NAME + aliasCounter++, SUB_QUERY_SUFFIX);
+        ImmutableList.Builder<SQLSelect.Projection> projectionBuilder = ImmutableList.builder();
+        for (String column : Iterables.concat(sourceColumns, targetColumns))
+            projectionBuilder.add(new SQLSelect.Projection(qualify(closureAlias, column), column));
+        SQLSelect select = new SQLSelect(maxDepth.isPresent(), projectionBuilder.build(),
+                Optional.of(new SQLTable(closureName, closureAlias.getSQLRendering())),
+                ImmutableList.of());
+
+        return new DerivedRelation(select, variables, columnAliases, step.castTypes);
+    }
+
+    private String qualify(RelationID alias, String column) {
+        return new QualifiedAttributeID(alias, idFactory.createAttributeID(column)).getSQLRendering();
+    }
+
+    /**
+     * One SELECT per branch (UNION if several), with a type, language tag and main column per variable.
+     * The cast types of the main columns are unified over the branches.
+     */
+    private DerivedRelation translateBranches(ImmutableList<IQTree> branches, ImmutableList<Variable> variables,
+                                              ImmutableList<ImmutableList<String>> columnAliases,
+                                              boolean eliminateDuplicates) {
+        ImmutableList<Branch> translatedBranches = branches.stream()
+                .map(this::translateBranch)
+                .collect(ImmutableCollectors.toList());
+
+        Map<Variable, Optional<TermType>> unifiedCastTypes = new HashMap<>();
+        Map<Branch, ImmutableMap<Variable, Optional<TermType>>> termTypes = new HashMap<>();
+        for (Branch branch : translatedBranches) {
+            ImmutableMap.Builder<Variable, Optional<TermType>> termTypeBuilder = ImmutableMap.builder();
+            for (Variable variable : variables) {
+                ImmutableTerm term = branch.getTerm(variable);
+                Optional<TermType> termType = termTypeInferenceTools.inferType(term);
+                termTypeBuilder.put(variable, termType);
+
+                Optional<TermType> castType = Optional.of(termType.orElseGet(() -> getCastType(term, branch.block)));
+                unifiedCastTypes.merge(variable, castType,
+                        (t1, t2) -> Optional.of(t1.get().getCommonDenominator(t2.get())));
+            }
+            termTypes.put(branch, termTypeBuilder.build());
+        }
+
+        ImmutableList.Builder<SQLSelect> selectBuilder = ImmutableList.builder();
+        for (Branch branch : translatedBranches) {
+            ImmutableList.Builder<SQLSelect.Projection> projectionBuilder = ImmutableList.builder();
+            for (int i = 0; i < variables.size(); i++) {
+                Variable variable = variables.get(i);
+                ImmutableList<String> expressions = engine.getSelectExpressions(
+                        immutabilityTools.convertToMutableTerm(branch.getTerm(variable)),
+                        termTypes.get(branch).get(variable),
+                        unifiedCastTypes.get(variable).orElse(null),
+                        branch.block);
+                for (int j = 0; j < expressions.size(); j++)
+                    projectionBuilder.add(new SQLSelect.Projection(expressions.get(j), columnAliases.get(i).get(j)));
+            }
+            ImmutableList<SQLSelect.Projection> projections = projectionBuilder.build();
+            selectBuilder.add(new SQLSelect(
+                    eliminateDuplicates && translatedBranches.size() == 1,
+                    // Only for ASK
+                    projections.isEmpty() ? ImmutableList.of(new SQLSelect.Projection("'true'", "x")) : projections,
+                    branch.block.fromItem,
+                    branch.block.conditions,
+                    branch.groupBy));
+        }
+        ImmutableList<SQLSelect> selects = selectBuilder.build();
+
+        return new DerivedRelation(
+                selects.size() == 1 ? selects.get(0) : new SQLUnion(selects, !eliminateDuplicates),
+                variables, columnAliases,
+                unifiedCastTypes.entrySet().stream()
+                        .collect(ImmutableCollectors.toMap(Map.Entry::getKey, e -> e.getValue().get())));
+    }
+
+    private Branch translateBranch(IQTree tree) {
+        QueryNode node = tree.getRootNode();
+        if (node instanceof ConstructionNode)
+            return new Branch(translateTree(((UnaryIQTree) tree).getChild()),
+                    ((ConstructionNode) node).getSubstitution(), ImmutableList.of());
+        if (node instanceof AggregationNode) {
+            AggregationNode aggregationNode = (AggregationNode) node;
+            Block child = translateTree(((UnaryIQTree) tree).getChild());
+            return new Branch(child, aggregationNode.getSubstitution(),
+                    getGroupBy(aggregationNode.getGroupingVariables(), child));
+        }
+        return new Branch(translateTree(tree), null, ImmutableList.of());
+    }
+
+    /**
+     * The type and language tag columns of the grouping variables are also projected
+     */
+    private static ImmutableList<String> getGroupBy(ImmutableSet<Variable> groupingVariables, Block block) {
+        ImmutableList.Builder<String> groupByBuilder = ImmutableList.builder();
+        for (Variable variable : groupingVariables) {
+            block.getTypeColumn(variable).ifPresent(c -> groupByBuilder.add(c.getSQLRendering()));
+            block.getLangColumn(variable).ifPresent(c -> groupByBuilder.add(c.getSQLRendering()));
+            block.getColumns(variable).forEach(c -> groupByBuilder.add(c.getSQLRendering()));
+        }
+        return groupByBuilder.build();
+    }
+
+    /**
+     * Same rules as the TypeExtractor, the variables taking the cast types of the columns that provide them.
+     */
+    private TermType getCastType(ImmutableTerm term, Block block) {
+        if (term instanceof Variable) {
+            TermType castType = block.castTypes.get(term);
+            if (castType == null)
+                throw new UnsupportedTreeException("No cast type for " + term);
+            return castType;
+        }
+        else if (term instanceof ImmutableExpression) {
+            ImmutableExpression expression = (ImmutableExpression) term;
+            ImmutableList<Optional<TermType>> argumentTypes = expression.getTerms().stream()
+                    .map(t -> Optional.of(getCastType(t, block)))
+                    .collect(ImmutableCollectors.toList());
+            return expression.getOptionalTermType(argumentTypes)
+                    .orElseThrow(() -> new UnsupportedTreeException("No type could be inferred for " + term));
+        }
+        else if (term instanceof Constant)
+            return ((Constant) term).getType();
+
+        else if (term instanceof ImmutableFunctionalTerm) {
+            Predicate functionSymbol = ((ImmutableFunctionalTerm) term).getFunctionSymbol();
+            if (functionSymbol instanceof DatatypePredicate)
+                return functionSymbol.getExpectedBaseType(0);
+        }
+        throw new UnsupportedTreeException("Could not determine the type of " + term);
+    }
+
+    private RelationID createAlias(String name, String suffix) {
+        RelationID alias = engine.createViewAlias(name, suffix, usedAliases);
+        usedAliases.add(alias);
+        return alias;
+    }
+
+    private static String equality(String left, String right) {
+        return String.format("(%s = %s)", left, right);
+    }
+
+    /**
+     * Appends the right item to the left one with a cross join.
+     * Right-nested joins are flattened (the conditions of a left join only refer to its own operands).
+     */
+    private static SQLFromItem crossJoin(SQLFromItem left, SQLFromItem right) {
+        if (right instanceof SQLJoin) {
+            SQLJoin join = (SQLJoin) right;
+            SQLFromItem newLeft = crossJoin(left, join.getLeft());
+            return join.getJoinType() == SQLJoin.JoinType.CROSS
+                    ? SQLJoin.crossJoin(newLeft, join.getRight())
+                    : SQLJoin.leftOuterJoin(newLeft, join.getRight(), join.getOnConditions());
+        }
+        return SQLJoin.crossJoin(left, right);
+    }
+
+
+    /**
+     * Thrown when the tree cannot be translated: the caller falls back to the Datalog-based translation.
+     */
+    static class UnsupportedTreeException extends RuntimeException {
+        UnsupportedTreeException(String message) {
+            super(message);
+        }
+    }
+
+
+    /**
+     * FROM item, WHERE conditions and columns of the variables.
+     *
+     * Immutable.
+     */
+    private static class Block implements OneShotSQLGeneratorEngine.ColumnIndex {
+
+        private static final Block EMPTY = new Block(Optional.empty(), ImmutableList.of(), ImmutableMap.of(),
+                ImmutableMap.of(), ImmutableMap.of(), ImmutableMap.of(), ImmutableMap.of());
+
+        private final Optional<SQLFromItem> fromItem;
+        private final ImmutableList<String> conditions;
+        private final ImmutableMap<Variable, QualifiedAttributeID> mainColumns;
+        // Only for the variables provided by sub-queries
+        private final ImmutableMap<Variable, QualifiedAttributeID> typeColumns;
+        private final ImmutableMap<Variable, QualifiedAttributeID> langColumns;
+        private final ImmutableMap<Variable, TermType> castTypes;
+        // Database relations of the table aliases
+        private final ImmutableMap<RelationID, RelationDefinition> relations;
+
+        private Block(Optional<SQLFromItem> fromItem, ImmutableList<String> conditions,
+                      ImmutableMap<Variable, QualifiedAttributeID> mainColumns,
+                      ImmutableMap<Variable, QualifiedAttributeID> typeColumns,
+                      ImmutableMap<Variable, QualifiedAttributeID> langColumns,
+                      ImmutableMap<Variable, TermType> castTypes,
+                      ImmutableMap<RelationID, RelationDefinition> relations) {
+            this.fromItem = fromItem;
+            this.conditions = conditions;
+            this.mainColumns = mainColumns;
+            this.typeColumns = typeColumns;
+            this.langColumns = langColumns;
+            this.castTypes = castTypes;
+            this.relations = relations;
+        }
+
+        @Override
+        public Set<QualifiedAttributeID> getColumns(Variable var) {
+            QualifiedAttributeID column = mainColumns.get(var);
+            if (column == null)
+                throw new UnsupportedTreeException("Unbound variable " + var);
+            return ImmutableSet.of(column);
+        }
+
+        @Override
+        public Optional<QualifiedAttributeID> getTypeColumn(Variable var) {
+            return Optional.ofNullable(typeColumns.get(var));
+        }
+
+        @Override
+        public Optional<QualifiedAttributeID> getLangColumn(Variable var) {
+            return Optional.ofNullable(langColumns.get(var));
+        }
+
+        @Override
+        public Optional<RelationDefinition> getRelation(RelationID alias) {
+            return Optional.ofNullable(relations.get(alias));
+        }
+
+        Block addConditions(ImmutableList<String> newConditions) {
+            return new Block(fromItem,
+                    ImmutableList.<String>builder().addAll(conditions).addAll(newConditions).build(),
+                    mainColumns, typeColumns, langColumns, castTypes, relations);
+        }
+
+        Block restrict(ImmutableSet<Variable> variables) {
+            return new Block(fromItem, conditions,
+                    filter(mainColumns, variables), filter(typeColumns, variables), filter(langColumns, variables),
+                    filter(castTypes, variables), relations);
+        }
+
+        /**
+         * Cross join: the shared variables become equalities
+         */
+        Block join(Block other) {
+            Optional<SQLFromItem> newFromItem = !fromItem.isPresent()
+                    ? other.fromItem
+                    : !other.fromItem.isPresent()
+                        ? fromItem
+                        : Optional.of(crossJoin(fromItem.get(), other.fromItem.get()));
+
+            return merge(other, newFromItem, ImmutableList.<String>builder()
+                    .addAll(conditions)
+                    .addAll(other.conditions)
+                    .addAll(getSharedVariableEqualities(other))
+                    .build());
+        }
+
+        ImmutableList<String> getSharedVariableEqualities(Block other) {
+            return mainColumns.entrySet().stream()
+                    .filter(e -> other.mainColumns.containsKey(e.getKey()))
+                    .map(e -> equality(e.getValue().getSQLRendering(),
+                            other.mainColumns.get(e.getKey()).getSQLRendering()))
+                    .collect(ImmutableCollectors.toList());
+        }
+
+        /**
+         * The columns of this block have the priority for the shared variables
+         */
+        Block merge(Block other, Optional<SQLFromItem> newFromItem, ImmutableList<String> newConditions) {
+            return new Block(newFromItem, newConditions,
+                    union(mainColumns, other.mainColumns),
+                    unionOfSecondaryColumns(typeColumns, other.typeColumns),
+                    unionOfSecondaryColumns(langColumns, other.langColumns),
+                    union(castTypes, other.castTypes),
+                    union(relations, other.relations));
+        }
+
+        private static <K, V> ImmutableMap<K, V> union(ImmutableMap<K, V> map, ImmutableMap<K, V> otherMap) {
+            Map<K, V> newMap = new HashMap<>(otherMap);
+            newMap.putAll(map);
+            return ImmutableMap.copyOf(newMap);
+        }
+
+        /**
+         * The type and language tag columns of the other block are ignored for the shared variables
+         */
+        private ImmutableMap<Variable, QualifiedAttributeID> unionOfSecondaryColumns(
+                ImmutableMap<Variable, QualifiedAttributeID> columns,
+                ImmutableMap<Variable, QualifiedAttributeID> otherColumns) {
+            return union(columns, otherColumns.entrySet().stream()
+                    .filter(e -> !mainColumns.containsKey(e.getKey()))
+                    .collect(ImmutableCollectors.toMap()));
+        }
+
+        private static <V> ImmutableMap<Variable, V> filter(ImmutableMap<Variable, V> map,
+                                                            ImmutableSet<Variable> variables) {
+            return map.entrySet().stream()
+                    .filter(e -> variables.contains(e.getKey()))
+                    .collect(ImmutableCollectors.toMap());
+        }
+    }
+
+
+    /**
+     * Block with the terms projected by a construction or an aggregation node (if any)
+     */
+    private static class Branch {
+        private final Block block;
+        private final Optional<ImmutableSubstitution<? extends ImmutableTerm>> substitution;
+        private final ImmutableList<String> groupBy;
+
+        private Branch(Block block, ImmutableSubstitution<? extends ImmutableTerm> substitution,
+                       ImmutableList<String> groupBy) {
+            this.block = block;
+            this.substitution = Optional.ofNullable(substitution);
+            this.groupBy = groupBy;
+        }
+
+        ImmutableTerm getTerm(Variable variable) {
+            return substitution
+                    .map(s -> s.applyToVariable(variable))
+                    .orElse(variable);
+        }
+    }
+
+
+    private static class DerivedRelation {
+        private final SQLQuery query;
+        private final ImmutableList<Variable> variables;
+        // Type, language tag and main column of each variable
+        private final ImmutableList<ImmutableList<String>> columnAliases;
+        private final ImmutableMap<Variable, TermType> castTypes;
+
+        private DerivedRelation(SQLQuery query, ImmutableList<Variable> variables,
+                                ImmutableList<ImmutableList<String>> columnAliases,
+                                ImmutableMap<Variable, TermType> castTypes) {
+            this.query = query;
+            this.variables = variables;
+            this.columnAliases = columnAliases;
+            this.castTypes = castTypes;
+        }
+
+        SQLQuery getQuery() {
+            return query;
+        }
+    }
+
+
+    private static class CommonTableExpression {
+        private final String name;
+        private final DerivedRelation relation;
+
+        private CommonTableExpression(String name, DerivedRelation relation) {
+            this.name = name;
+            this.relation = relation;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package it.unibz.inf.ontop.answering.reformulation.generation.impl;
 
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import it.unibz.inf.ontop.answering.reformulation.ExecutableQuery;
@@ -27,6 +28,7 @@ import it.unibz.inf.ontop.model.term.TermFactory;
 import it.unibz.inf.ontop.model.type.TypeFactory;
 
 import javax.annotation.Nullable;
+import java.util.Optional;
 
 /**
  * Wrapper over a non thread-safe implementation
@@ -72,4 +74,17 @@ public class LegacySQLGenerator implements NativeQueryGenerator {
         // Empty string query
         return new SQLExecutableQuery(signatureContainer);
     }
+
+    /**
+     * Stateless: no need to clone the engine
+     */
+    @Override
+    public Optional<ExecutableQuery> instantiateTemplate(ExecutableQuery templateQuery,
+                                                         ImmutableMap<String, String> parameters) {
+        if (!(templateQuery instanceof SQLExecutableQuery))
+            throw new IllegalArgumentException("An SQLExecutableQuery was expected");
+
+        return originalEngine.instantiateTemplate((SQLExecutableQuery) templateQuery, parameters)
+                .map(q -> q);
+    }
 }
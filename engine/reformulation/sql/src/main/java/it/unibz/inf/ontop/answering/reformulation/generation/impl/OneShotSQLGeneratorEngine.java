@@ -32,6 +32,7 @@ import it.unibz.inf.ontop.answering.reformulation.generation.dialect.SQLDialectA
 import it.unibz.inf.ontop.answering.reformulation.generation.dialect.impl.DB2SQLDialectAdapter;
 import it.unibz.inf.ontop.answering.reformulation.generation.utils.COL_TYPE;
 import it.unibz.inf.ontop.answering.reformulation.generation.utils.XsdDatatypeConverter;
+import it.unibz.inf.ontop.answering.reformulation.impl.PreparedSQLExecutableQuery;
 import it.unibz.inf.ontop.answering.reformulation.impl.SQLExecutableQuery;
 import it.unibz.inf.ontop.datalog.*;
 import it.unibz.inf.ontop.dbschema.*;
@@ -64,8 +65,10 @@ import java.sql.SQLException;
 import java.sql.Types;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static it.unibz.inf.ontop.answering.reformulation.generation.utils.COL_TYPE.*;
 
@@ -104,6 +107,7 @@ public class OneShotSQLGeneratorEngine {
 
 	private final boolean distinctResultSet;
 	private final boolean isIRISafeEncodingEnabled;
+	private final int propertyPathUnrollingDepth;
 
 	@Nullable
 	private final IRIDictionary uriRefIds;
@@ -177,6 +181,7 @@ public class OneShotSQLGeneratorEngine {
 		this.distinctResultSet = settings.isDistinctPostProcessingEnabled();
 		this.iq2DatalogTranslator = iq2DatalogTranslator;
 		this.isIRISafeEncodingEnabled = settings.isIRISafeEncodingEnabled();
+		this.propertyPathUnrollingDepth = settings.getPropertyPathUnrollingDepth();
 		this.uriRefIds = iriDictionary;
 		this.jdbcTypeMapper = jdbcTypeMapper;
 	}
@@ -186,6 +191,7 @@ public class OneShotSQLGeneratorEngine {
 	 */
 	private OneShotSQLGeneratorEngine(RDBMetadata metadata, SQLDialectAdapter sqlAdapter,
 									  boolean isIRISafeEncodingEnabled, boolean distinctResultSet,
+									  int propertyPathUnrollingDepth,
 									  IRIDictionary uriRefIds, JdbcTypeMapper jdbcTypeMapper,
 									  ImmutableMap<ExpressionOperation, String> operations,
 									  IQ2DatalogTranslator iq2DatalogTranslator,
@@ -201,6 +207,7 @@ public class OneShotSQLGeneratorEngine {
 		this.operations = operations;
 		this.isIRISafeEncodingEnabled = isIRISafeEncodingEnabled;
 		this.distinctResultSet = distinctResultSet;
+		this.propertyPathUnrollingDepth = propertyPathUnrollingDepth;
 		this.uriRefIds = uriRefIds;
 		this.jdbcTypeMapper = jdbcTypeMapper;
 		this.iq2DatalogTranslator = iq2DatalogTranslator;
@@ -271,7 +278,8 @@ public class OneShotSQLGeneratorEngine {
 	@Override
 	public OneShotSQLGeneratorEngine clone() {
 		return new OneShotSQLGeneratorEngine(metadata, sqladapter,
-				isIRISafeEncodingEnabled, distinctResultSet, uriRefIds, jdbcTypeMapper, operations, iq2DatalogTranslator,
+				isIRISafeEncodingEnabled, distinctResultSet, propertyPathUnrollingDepth, uriRefIds, jdbcTypeMapper,
+				operations, iq2DatalogTranslator,
 				typeExtractor, relation2Predicate, datalogNormalizer, datalogFactory,
                 typeFactory, termFactory, iqFactory, iqConverter, unionFlattener, pushDownExpressionOptimizer,
 				optimizerFactory, pullUpExpressionOptimizer);
@@ -295,7 +303,7 @@ public class OneShotSQLGeneratorEngine {
 		for (CQIE cq : queryProgram.getRules()) {
 			datalogNormalizer.addMinimalEqualityToLeftOrNestedInnerJoin(cq);
 		}
-		log.debug("Program normalized for SQL translation:\n" + queryProgram);
+		log.debug("Program normalized for SQL translation:\n{}", queryProgram);
 
 		MutableQueryModifiers queryModifiers = queryProgram.getQueryModifiers();
 		isDistinct = queryModifiers.hasModifiers() && queryModifiers.isDistinct();
@@ -346,19 +354,127 @@ public class OneShotSQLGeneratorEngine {
 		return new SQLExecutableQuery(resultingQuery, signature);
 	}
 
+	/**
+	 * Replaces the SQL string literals of the placeholders by JDBC parameters.
+	 *
+	 * Gives up (returns empty) when a placeholder is missing or is not used as a complete string literal
+	 * (e.g. inside a concatenation), as the actual value could then not be bound as a parameter.
+	 *
+	 * Does not depend on the query-dependent fields (no need to be cloned).
+	 */
+	Optional<PreparedSQLExecutableQuery> instantiateTemplate(SQLExecutableQuery templateQuery,
+															 ImmutableMap<String, String> parameters) {
+		String sql = templateQuery.getSQL();
+		// IRIs are then replaced by their ids: placeholders are not in the SQL query
+		if (sql.isEmpty() || parameters.isEmpty() || hasIRIDictionary())
+			return Optional.empty();
+
+		ImmutableMap<String, String> literal2Placeholder = parameters.keySet().stream()
+				.collect(ImmutableCollectors.toMap(
+						sqladapter::getSQLLexicalFormString,
+						p -> p));
+		Pattern literalPattern = Pattern.compile(literal2Placeholder.keySet().stream()
+				.map(Pattern::quote)
+				.collect(Collectors.joining("|")));
+
+		StringBuilder preparedSQL = new StringBuilder();
+		StringBuilder inlinedSQL = new StringBuilder();
+		ImmutableList.Builder<String> valueBuilder = ImmutableList.builder();
+		Set<String> usedPlaceholders = new HashSet<>();
+
+		Matcher matcher = literalPattern.matcher(sql);
+		int start = 0;
+		while (matcher.find()) {
+			String fragment = sql.substring(start, matcher.start());
+			String placeholder = literal2Placeholder.get(matcher.group());
+			String value = parameters.get(placeholder);
+
+			preparedSQL.append(fragment).append("?");
+			inlinedSQL.append(fragment).append(sqladapter.getSQLLexicalFormString(value));
+			valueBuilder.add(value);
+			usedPlaceholders.add(placeholder);
+			start = matcher.end();
+		}
+		String lastFragment = sql.substring(start);
+		preparedSQL.append(lastFragment);
+		inlinedSQL.append(lastFragment);
+
+		String preparedSQLString = preparedSQL.toString();
+		if ((usedPlaceholders.size() < parameters.size())
+				|| parameters.keySet().stream().anyMatch(preparedSQLString::contains))
+			return Optional.empty();
+
+		return Optional.of(new PreparedSQLExecutableQuery(inlinedSQL.toString(), preparedSQLString,
+				valueBuilder.build(), templateQuery.getSignature()));
+	}
+
+	/*
+	 * Used by DirectSQLGenerator, which builds the structure of the SQL query from the IQ tree
+	 * and only delegates the rendering of the terms and conditions to this engine.
+	 */
+
+	SQLDialectAdapter getSQLAdapter() {
+		return sqladapter;
+	}
+
+	/**
+	 * When true, the duplicates are eliminated after the execution of the SQL query
+	 */
+	boolean isDistinctResultSet() {
+		return distinctResultSet;
+	}
+
+	/**
+	 * Maximal depth of the transitive closures without maximal depth when the recursion cannot be expressed
+	 */
+	int getPropertyPathUnrollingDepth() {
+		return propertyPathUnrollingDepth;
+	}
+
+	void setQueryModifiers(boolean isDistinct, boolean isOrderBy) {
+		this.isDistinct = isDistinct;
+		this.isOrderBy = isOrderBy;
+	}
+
+	RelationID createViewAlias(String name, String suffix, Collection<RelationID> usedAliases) {
+		return createAlias(name, suffix, usedAliases);
+	}
+
+	String getSQLExpression(Term term, ColumnIndex index) {
+		return getSQLString(term, index, false);
+	}
+
+	ImmutableList<String> getSQLConditions(List<Function> atoms, ColumnIndex index) {
+		return ImmutableList.copyOf(getBooleanConditions(atoms, index));
+	}
+
+	/**
+	 * Type, language tag and main column expressions of a projected term.
+	 * The main column is cast to the cast type (if any).
+	 */
+	ImmutableList<String> getSelectExpressions(Term term, Optional<TermType> termType, @Nullable TermType castType,
+											   ColumnIndex index) {
+		return ImmutableList.of(
+				getTypeColumnForSELECT(term, index, termType),
+				getLangColumnForSELECT(term, index, termType),
+				getMainColumnForSELECT(term, index, castType));
+	}
+
 	private IQ normalizeIQ(IntermediateQuery intermediateQuery) {
 
 		// Trick for pushing down expressions under unions:
 		//   - there the context may be concrete enough for evaluating certain expressions
 		//   - useful for dealing with SPARQL EBVs for instance
 		IntermediateQuery pushedDownQuery = pushDownExpressionOptimizer.optimize(intermediateQuery);
-		log.debug("New query after pushing down the boolean expressions (temporary): \n" + pushedDownQuery);
+		log.debug("New query after pushing down the boolean expressions (temporary): \n{}", pushedDownQuery);
+
+		IQ unrolledIQ = unrollTransitiveClosures(iqConverter.convert(pushedDownQuery));
 
-		IQ flattenIQ = unionFlattener.optimize(iqConverter.convert(pushedDownQuery));
-		log.debug("New query after flattening the union: \n" + flattenIQ);
+		IQ flattenIQ = unionFlattener.optimize(unrolledIQ);
+		log.debug("New query after flattening the union: \n{}", flattenIQ);
 
 		IQTree treeAfterPullOut = optimizerFactory.createEETransformer(flattenIQ.getVariableGenerator()).transform(flattenIQ.getTree());
-		log.debug("Query tree after pulling out equalities: \n" + treeAfterPullOut);
+		log.debug("Query tree after pulling out equalities: \n{}", treeAfterPullOut);
 
 		// Pulling up is needed when filtering conditions appear above a data atom on the left
 		// (causes problems to the IQ2DatalogConverter)
@@ -366,7 +482,7 @@ public class OneShotSQLGeneratorEngine {
 			IntermediateQuery queryAfterPullUp = pullUpExpressionOptimizer.optimize(iqConverter.convert(
 					iqFactory.createIQ(flattenIQ.getProjectionAtom(), treeAfterPullOut),
 					intermediateQuery.getDBMetadata(), intermediateQuery.getExecutorRegistry()));
-			log.debug("New query after pulling up the boolean expressions: \n" + queryAfterPullUp);
+			log.debug("New query after pulling up the boolean expressions: \n{}", queryAfterPullUp);
 			return iqConverter.convert(queryAfterPullUp);
 
 		} catch (EmptyQueryException e) {
@@ -376,6 +492,22 @@ public class OneShotSQLGeneratorEngine {
 	}
 
 
+	/**
+	 * Recursion cannot be expressed in Datalog rules: the transitive closures are unrolled up to their maximal depth
+	 * (by default, up to the property path unrolling depth)
+	 */
+	private IQ unrollTransitiveClosures(IQ query) {
+		IQTree tree = query.getTree();
+		IQTree unrolledTree = optimizerFactory.createTransitiveClosureUnroller(query.getVariableGenerator(),
+				propertyPathUnrollingDepth)
+				.transform(tree);
+		if (unrolledTree.equals(tree))
+			return query;
+
+		log.debug("New query after unrolling the transitive closures: \n{}", unrolledTree);
+		return iqFactory.createIQ(query.getProjectionAtom(), unrolledTree);
+	}
+
 	/**
 	 * Generates the full SQL query.
 	 * An important part of this program is {@link #generateQueryFromRules}
@@ -568,8 +700,12 @@ public class OneShotSQLGeneratorEngine {
 				.filter(a -> a.getFunctionSymbol().equals(datalogFactory.getSparqlGroupPredicate()))
 				.map(Function::getVariables)
 				.flatMap(Collection::stream)
-				.map(index::getColumns)
-				.flatMap(Collection::stream)
+				// the type and language columns of the sub-views are also projected
+				.flatMap(v -> Stream.concat(
+						index.getColumns(v).stream(),
+						Stream.of(index.getTypeColumn(v), index.getLangColumn(v))
+								.filter(Optional::isPresent)
+								.map(Optional::get)))
 				.collect(ImmutableCollectors.toList());
 	}
 
@@ -588,7 +724,7 @@ public class OneShotSQLGeneratorEngine {
 	 * Returns a string with boolean conditions formed with the boolean atoms
 	 * found in the atoms list.
 	 */
-	private Set<String> getBooleanConditions(List<Function> atoms, AliasIndex index) {
+	private Set<String> getBooleanConditions(List<Function> atoms, ColumnIndex index) {
 		Set<String> conditions = new LinkedHashSet<>();
 		for (Function atom : atoms) {
 			if (atom.isOperation()) {  // Boolean expression
@@ -615,7 +751,7 @@ public class OneShotSQLGeneratorEngine {
 	/**
 	 * Returns the SQL for an atom representing an SQL condition (booleans).
 	 */
-	private String getSQLCondition(Function atom, AliasIndex index) {
+	private String getSQLCondition(Function atom, ColumnIndex index) {
 		Predicate functionSymbol = atom.getFunctionSymbol();
 		if (operations.containsKey(functionSymbol)) {
 			String expressionFormat = operations.get(functionSymbol);
@@ -744,6 +880,11 @@ public class OneShotSQLGeneratorEngine {
 
 		if (atom.isAlgebraFunction()) {
 			Predicate functionSymbol = atom.getFunctionSymbol();
+			// GROUP BY and HAVING: not table definitions
+			if (functionSymbol.equals(datalogFactory.getSparqlGroupPredicate())
+					|| functionSymbol.equals(datalogFactory.getSparqlHavingPredicate()))
+				return null;
+
 			ImmutableList<Function> joinAtoms = convert(atom.getTerms());
 			if (functionSymbol.equals(datalogFactory.getSparqlJoinPredicate())) {
 				// nested joins we need to add parenthesis later
@@ -883,7 +1024,7 @@ public class OneShotSQLGeneratorEngine {
 		return equalities;
 	}
 
-	private String effectiveBooleanValue(Term term, AliasIndex index) {
+	private String effectiveBooleanValue(Term term, ColumnIndex index) {
 
 		String column = getSQLString(term, index, false);
 		// find data type of term and evaluate accordingly
@@ -950,7 +1091,7 @@ public class OneShotSQLGeneratorEngine {
 	private String getSelectClauseFragment(SignatureVariable var,
 										   Term term,
 										   Optional<TermType> termType,
-										   AliasIndex index) {
+										   ColumnIndex index) {
 		/*
 		 * Datatype for the main column (to which it is cast).
 		 * Beware, it may defer the RDF datatype (the one of the type column).
@@ -971,16 +1112,26 @@ public class OneShotSQLGeneratorEngine {
 	}
 
 	private ImmutableList<SignatureVariable> createSignature(List<String> names, ImmutableList<TermType> castTypes) {
+		ImmutableList<ImmutableList<String>> columnAliases = createTopColumnAliases(names);
+		ImmutableList.Builder<SignatureVariable> builder = ImmutableList.builder();
+		for (int i = 0; i < names.size(); i++) {
+			builder.add(new SignatureVariable(names.get(i), columnAliases.get(i), castTypes.get(i)));
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Type, language tag and main column aliases of each variable of the top query
+	 */
+	ImmutableList<ImmutableList<String>> createTopColumnAliases(List<String> names) {
 		/**
 		 * Set that contains all the variable names created on the top query.
 		 * It helps the dialect adapter to generate variable names according to its possible restrictions.
 		 * Currently, this is needed for the Oracle adapter (max. length of 30 characters).
 		 */
 		Set<String> columnAliases = new HashSet<>();
-		ImmutableList.Builder<SignatureVariable> builder = ImmutableList.builder();
-		for (int i = 0; i < names.size(); i++) {
-			String name = names.get(i);
-
+		ImmutableList.Builder<ImmutableList<String>> builder = ImmutableList.builder();
+		for (String name : names) {
 			// Creates name names that satisfy the restrictions of the SQL dialect.
 			String typeAlias = sqladapter.nameTopVariable(name, TYPE_COLUMN_SUFFIX, columnAliases);
 			columnAliases.add(typeAlias);
@@ -991,14 +1142,12 @@ public class OneShotSQLGeneratorEngine {
 			String mainAlias = sqladapter.nameTopVariable(name, MAIN_COLUMN_SUFFIX, columnAliases);
 			columnAliases.add(mainAlias);
 
-			builder.add(new SignatureVariable(name,
-					ImmutableList.of(typeAlias, langAlias, mainAlias),
-					castTypes.get(i)));
+			builder.add(ImmutableList.of(typeAlias, langAlias, mainAlias));
 		}
 		return builder.build();
 	}
 
-	private String getMainColumnForSELECT(Term ht, AliasIndex index, TermType castDataType) {
+	private String getMainColumnForSELECT(Term ht, ColumnIndex index, TermType castDataType) {
 
 		String column = getSQLString(ht, index, false);
 		if (column.charAt(0) != '\'' && column.charAt(0) != '(' && castDataType != null) {
@@ -1008,7 +1157,7 @@ public class OneShotSQLGeneratorEngine {
 		return column;
 	}
 
-	private String getLangColumnForSELECT(Term ht, AliasIndex index, Optional<TermType> optionalTermType) {
+	private String getLangColumnForSELECT(Term ht, ColumnIndex index, Optional<TermType> optionalTermType) {
 
 		if (ht instanceof Variable) {
 			return index.getLangColumn((Variable) ht)
@@ -1035,7 +1184,7 @@ public class OneShotSQLGeneratorEngine {
 	 * @param index Used when the term correspond to a column name
 	 * @param optionalTermType
 	 */
-	private String getTypeColumnForSELECT(Term ht, AliasIndex index, Optional<TermType> optionalTermType) {
+	private String getTypeColumnForSELECT(Term ht, ColumnIndex index, Optional<TermType> optionalTermType) {
 
 		if (ht instanceof Variable) {
 	        // Such variable does not hold this information, so we have to look
@@ -1070,7 +1219,7 @@ public class OneShotSQLGeneratorEngine {
 
 	private static final Pattern pQuotes = Pattern.compile("[\"`\\['][^\\.]*[\"`\\]']");
 
-	private String getSQLStringForTemplateFunction(List<Term> terms, AliasIndex index) {
+	private String getSQLStringForTemplateFunction(List<Term> terms, ColumnIndex index) {
 
 		// The first argument determines the form of the result
 		Term term0 = terms.get(0);
@@ -1137,7 +1286,7 @@ public class OneShotSQLGeneratorEngine {
 		return toReturn;
 	}
 
-	private boolean isStringColType(Term term, AliasIndex index) {
+	private boolean isStringColType(Term term, ColumnIndex index) {
 		if (term instanceof Function) {
 			Function function = (Function) term;
 			Predicate functionSymbol = function.getFunctionSymbol();
@@ -1166,10 +1315,10 @@ public class OneShotSQLGeneratorEngine {
 			Set<QualifiedAttributeID> columns = index.getColumns((Variable) term);
 			QualifiedAttributeID column0 = columns.iterator().next();
 
-			RelationDefinition relation = index.relationsForAliases.get(column0.getRelation());
-			if (relation != null) {
+			Optional<RelationDefinition> relation = index.getRelation(column0.getRelation());
+			if (relation.isPresent()) {
 				QuotedID columnId = column0.getAttribute();
-				for (Attribute a : relation.getAttributes()) {
+				for (Attribute a : relation.get().getAttributes()) {
 					if (a.getID().equals(columnId)) {
 						switch (a.getType()) {
 							case Types.VARCHAR:
@@ -1205,7 +1354,7 @@ public class OneShotSQLGeneratorEngine {
 	 * <p>
 	 * If its a boolean comparison, it returns the corresponding SQL comparison.
 	 */
-	private String getSQLString(Term term, AliasIndex index, boolean useBrackets) {
+	private String getSQLString(Term term, ColumnIndex index, boolean useBrackets) {
 
 		if (term == null) {
 			return "";
@@ -1450,6 +1599,14 @@ public class OneShotSQLGeneratorEngine {
 			//havingCond = true;
 			return "SUM(" + columnName + ")";
 		}
+		if (functionSymbol == ExpressionOperation.MAX) {
+			String columnName = getSQLString(function.getTerm(0), index, false);
+			return "MAX(" + columnName + ")";
+		}
+		if (functionSymbol == ExpressionOperation.MIN) {
+			String columnName = getSQLString(function.getTerm(0), index, false);
+			return "MIN(" + columnName + ")";
+		}
 
 		throw new RuntimeException("Unexpected function in the query: " + functionSymbol);
 	}
@@ -1550,7 +1707,7 @@ public class OneShotSQLGeneratorEngine {
 	 * used in a FROM clause, and variables, to column references defined over
 	 * the existing view definitions of a query.
 	 */
-	public final class AliasIndex {
+	public final class AliasIndex implements ColumnIndex {
 
 		final Map<Function, FromItem> fromItemsForAtoms = new HashMap<>();
 		final Map<RelationID, FromItem> subQueryFromItems = new HashMap<>();
@@ -1648,7 +1805,8 @@ public class OneShotSQLGeneratorEngine {
 		 * @param var
 		 *            The variable we want the referenced columns.
 		 */
-		Set<QualifiedAttributeID> getColumns(Variable var) {
+		@Override
+		public Set<QualifiedAttributeID> getColumns(Variable var) {
 			Set<QualifiedAttributeID> columns = columnsForVariables.get(var);
 			if (columns == null || columns.isEmpty())
 				throw new RuntimeException("Unbound variable found in WHERE clause: " + var);
@@ -1677,14 +1835,21 @@ public class OneShotSQLGeneratorEngine {
 			return dd.attributes.get(column);
 		}
 
-		Optional<QualifiedAttributeID> getTypeColumn(Variable var) {
+		@Override
+		public Optional<QualifiedAttributeID> getTypeColumn(Variable var) {
 			return getNonMainColumn(var, -2);
 		}
 
-		Optional<QualifiedAttributeID> getLangColumn(Variable var) {
+		@Override
+		public Optional<QualifiedAttributeID> getLangColumn(Variable var) {
 			return getNonMainColumn(var, -1);
 		}
 
+		@Override
+		public Optional<RelationDefinition> getRelation(RelationID alias) {
+			return Optional.ofNullable(relationsForAliases.get(alias));
+		}
+
 		private Optional<QualifiedAttributeID> getNonMainColumn(Variable var, int relativeIndexWrtMainColumn) {
 
 			// For each column reference corresponding to the variable.
@@ -1706,6 +1871,32 @@ public class OneShotSQLGeneratorEngine {
 		}
 	}
 
+	/**
+	 * Resolves the variables into column references (for the rendering of terms and conditions)
+	 */
+	interface ColumnIndex {
+
+		/**
+		 * Non-empty: the first column is the one used in the expressions
+		 */
+		Set<QualifiedAttributeID> getColumns(Variable var);
+
+		/**
+		 * Only for the variables defined in sub-queries
+		 */
+		Optional<QualifiedAttributeID> getTypeColumn(Variable var);
+
+		/**
+		 * Only for the variables defined in sub-queries
+		 */
+		Optional<QualifiedAttributeID> getLangColumn(Variable var);
+
+		/**
+		 * Database relation of a table alias (empty for sub-queries)
+		 */
+		Optional<RelationDefinition> getRelation(RelationID alias);
+	}
+
 	private static String inBrackets(String s) {
 		return "(" + s + ")";
 	}
@@ -0,0 +1,36 @@
+package it.unibz.inf.ontop.answering.reformulation.impl;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * SQL query with JDBC parameters (for prepared statements) and their values.
+ *
+ * Also provides the equivalent SQL query with the values inlined,
+ * for the executors that do not support prepared statements.
+ */
+public class PreparedSQLExecutableQuery extends SQLExecutableQuery {
+
+    private final String preparedSQLQuery;
+    private final ImmutableList<String> parameterValues;
+
+    public PreparedSQLExecutableQuery(String inlinedSQLQuery, String preparedSQLQuery,
+                                      ImmutableList<String> parameterValues, ImmutableList<String> signature) {
+        super(inlinedSQLQuery, signature);
+        this.preparedSQLQuery = preparedSQLQuery;
+        this.parameterValues = parameterValues;
+    }
+
+    /**
+     * SQL string with "?" for the parameters. Shared by all the instances of the same template.
+     */
+    public String getPreparedSQL() {
+        return preparedSQLQuery;
+    }
+
+    /**
+     * Values of the parameters, in the order of their appearance in the prepared SQL string
+     */
+    public ImmutableList<String> getParameterValues() {
+        return parameterValues;
+    }
+}
@@ -0,0 +1,161 @@
+package it.unibz.inf.ontop.answering.reformulation.generation.algebra;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import it.unibz.inf.ontop.answering.reformulation.generation.dialect.impl.Mysql2SQLDialectAdapter;
+import it.unibz.inf.ontop.answering.reformulation.generation.dialect.impl.PostgreSQLDialectAdapter;
+import it.unibz.inf.ontop.answering.reformulation.generation.dialect.impl.SQL99DialectAdapter;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+
+public class SQLRendererTest {
+
+    private final SQLRenderer renderer = new SQLRenderer(new SQL99DialectAdapter());
+
+    @Test
+    public void testJoins() {
+        SQLFromItem from = SQLJoin.leftOuterJoin(
+                SQLJoin.crossJoin(new SQLTable("\"A\"", "a"), new SQLTable("\"B\"", "b")),
+                new SQLTable("\"C\"", "c"),
+                ImmutableList.of("(a.\"x\" = c.\"x\")"));
+        SQLSelect select = new SQLSelect(false,
+                ImmutableList.of(new SQLSelect.Projection("a.\"x\"", "\"x\"")),
+                Optional.of(from),
+                ImmutableList.of("(a.\"x\" = b.\"x\")", "b.\"y\" IS NOT NULL"));
+
+        assertEquals("SELECT \n" +
+                        "    a.\"x\" AS \"x\"\n" +
+                        "FROM \"A\" a\n" +
+                        "    CROSS JOIN \"B\" b\n" +
+                        "    LEFT OUTER JOIN \"C\" c\n" +
+                        "    ON (a.\"x\" = c.\"x\")\n" +
+                        "WHERE (a.\"x\" = b.\"x\") AND\n" +
+                        "    b.\"y\" IS NOT NULL",
+                render(select));
+    }
+
+    @Test
+    public void testCommonTableExpressionAndModifiers() {
+        SQLSelect select = new SQLSelect(true,
+                ImmutableList.of(new SQLSelect.Projection("1", "\"x\"")),
+                Optional.empty(), ImmutableList.of());
+        SQLUnion union = new SQLUnion(ImmutableList.of(select, select), true);
+
+        SQLSelect top = new SQLSelect(false,
+                ImmutableList.of(new SQLSelect.Projection("s.\"x\"", "\"x\"")),
+                Optional.of(SQLJoin.crossJoin(new SQLTable("\"cte\"", "s"), new SQLTable("\"cte\"", "t"))),
+                ImmutableList.of());
+
+        String sql = renderer.render(new SQLStatement(ImmutableMap.of("\"cte\"", union), top,
+                ImmutableList.of(), 10, -1));
+
+        assertEquals("WITH \"cte\" AS (\n" +
+                        "    (SELECT DISTINCT \n" +
+                        "        1 AS \"x\"\n" +
+                        "    FROM (SELECT 1) tdummy)\n" +
+                        "    UNION ALL\n" +
+                        "    (SELECT DISTINCT \n" +
+                        "        1 AS \"x\"\n" +
+                        "    FROM (SELECT 1) tdummy)\n" +
+                        ")\n" +
+                        "SELECT *\n" +
+                        "FROM (\n" +
+                        "SELECT \n" +
+                        "    s.\"x\" AS \"x\"\n" +
+                        "FROM \"cte\" s\n" +
+                        "    CROSS JOIN \"cte\" t\n" +
+                        ") SUB_QVIEW\n" +
+                        "LIMIT 10\n",
+                sql);
+    }
+
+    @Test
+    public void testGroupBy() {
+        SQLSelect select = new SQLSelect(false,
+                ImmutableList.of(new SQLSelect.Projection("a.\"x\"", "\"x\""),
+                        new SQLSelect.Projection("COUNT(a.\"y\")", "\"c\"")),
+                Optional.of(new SQLTable("\"A\"", "a")),
+                ImmutableList.of("a.\"y\" IS NOT NULL"),
+                ImmutableList.of("a.\"x\""));
+
+        assertEquals("SELECT \n" +
+                        "    a.\"x\" AS \"x\", \n" +
+                        "    COUNT(a.\"y\") AS \"c\"\n" +
+                        "FROM \"A\" a\n" +
+                        "WHERE a.\"y\" IS NOT NULL\n" +
+                        "GROUP BY a.\"x\"",
+                render(select));
+    }
+
+    @Test
+    public void testRecursiveCommonTableExpression() {
+        SQLSelect initial = new SQLSelect(false,
+                ImmutableList.of(new SQLSelect.Projection("a.\"s\"", "\"s\""),
+                        new SQLSelect.Projection("a.\"o\"", "\"o\"")),
+                Optional.of(new SQLTable("\"A\"", "a")), ImmutableList.of());
+        SQLSelect recursive = new SQLSelect(false,
+                ImmutableList.of(new SQLSelect.Projection("c.\"s\"", "\"s\""),
+                        new SQLSelect.Projection("a.\"o\"", "\"o\"")),
+                Optional.of(SQLJoin.crossJoin(new SQLTable("\"closure\"", "c"), new SQLTable("\"A\"", "a"))),
+                ImmutableList.of("(c.\"o\" = a.\"s\")"));
+        SQLSelect top = new SQLSelect(false,
+                ImmutableList.of(new SQLSelect.Projection("c.\"o\"", "\"o\"")),
+                Optional.of(new SQLTable("\"closure\"", "c")), ImmutableList.of());
+
+        String sql = new SQLRenderer(new PostgreSQLDialectAdapter())
+                .render(new SQLStatement(ImmutableMap.of("\"closure\"", new SQLRecursiveQuery(
+                        ImmutableList.of("\"s\"", "\"o\""), initial, recursive, false)),
+                        top, ImmutableList.of(), -1, -1));
+
+        assertEquals("WITH RECURSIVE \"closure\"(\"s\", \"o\") AS (\n" +
+                        "    (SELECT \n" +
+                        "        a.\"s\" AS \"s\", \n" +
+                        "        a.\"o\" AS \"o\"\n" +
+                        "    FROM \"A\" a)\n" +
+                        "    UNION\n" +
+                        "    (SELECT \n" +
+                        "        c.\"s\" AS \"s\", \n" +
+                        "        a.\"o\" AS \"o\"\n" +
+                        "    FROM \"closure\" c\n" +
+                        "        CROSS JOIN \"A\" a\n" +
+                        "    WHERE (c.\"o\" = a.\"s\"))\n" +
+                        ")\n" +
+                        "SELECT \n" +
+                        "    c.\"o\" AS \"o\"\n" +
+                        "FROM \"closure\" c",
+                sql);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoRecursiveCommonTableExpressionForSQL99() {
+        SQLSelect select = new SQLSelect(false,
+                ImmutableList.of(new SQLSelect.Projection("1", "\"x\"")),
+                Optional.empty(), ImmutableList.of());
+        renderer.render(new SQLStatement(
+                ImmutableMap.of("cte", new SQLRecursiveQuery(ImmutableList.of("\"x\""), select, select, true)),
+                select, ImmutableList.of(), -1, -1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoCommonTableExpressionForOldMySQL() {
+        SQLSelect select = new SQLSelect(false,
+                ImmutableList.of(new SQLSelect.Projection("1", "\"x\"")),
+                Optional.empty(), ImmutableList.of());
+        new SQLRenderer(new Mysql2SQLDialectAdapter())
+                .render(new SQLStatement(ImmutableMap.of("cte", select), select, ImmutableList.of(), -1, -1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoJoinOnTheRightOfLeftJoin() {
+        SQLJoin.leftOuterJoin(new SQLTable("\"A\"", "a"),
+                SQLJoin.crossJoin(new SQLTable("\"B\"", "b"), new SQLTable("\"C\"", "c")),
+                ImmutableList.of());
+    }
+
+    private String render(SQLQuery query) {
+        return renderer.render(new SQLStatement(ImmutableMap.of(), query, ImmutableList.of(), -1, -1));
+    }
+}
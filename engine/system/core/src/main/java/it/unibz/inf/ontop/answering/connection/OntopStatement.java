@@ -2,8 +2,12 @@ package it.unibz.inf.ontop.answering.connection;
 
 import it.unibz.inf.ontop.answering.reformulation.ExecutableQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
+import it.unibz.inf.ontop.answering.reformulation.metrics.QueryReformulationMetrics;
+import it.unibz.inf.ontop.answering.reformulation.trace.PlanTrace;
 import it.unibz.inf.ontop.exception.*;
 
+import java.util.Optional;
+
 /**
  * OBDAStatement specific to Ontop.
  *
@@ -18,4 +22,21 @@ public interface OntopStatement extends OBDAStatement {
     String getRewritingRendering(InputQuery inputQuery) throws OntopReformulationException;
 
     ExecutableQuery getExecutableQuery(InputQuery inputQuery) throws OntopReformulationException;
+
+    /**
+     * Metrics of the last reformulation performed by this statement
+     * (empty if none or if their recording is disabled)
+     */
+    Optional<QueryReformulationMetrics> getLastReformulationMetrics();
+
+    /**
+     * When enabled, the query plan is traced after each phase of the next reformulations
+     * (which then bypass the query cache). Disabled by default.
+     */
+    void setPlanTracingEnabled(boolean enabled);
+
+    /**
+     * Trace of the last reformulation performed while plan tracing was enabled
+     */
+    Optional<PlanTrace> getLastPlanTrace();
 }
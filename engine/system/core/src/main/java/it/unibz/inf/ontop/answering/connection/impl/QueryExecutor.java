@@ -0,0 +1,174 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import it.unibz.inf.ontop.exception.OntopQueryEvaluationException;
+import it.unibz.inf.ontop.injection.OntopSystemSettings;
+import it.unibz.inf.ontop.injection.OntopSystemSettings.QueryRejectionPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of threads executing the queries, shared by all the statements of a query engine.
+ *
+ * Admission control: at most getMaxConcurrentQueries() queries are executed at the same time
+ * and at most getQueryQueueSize() are waiting. Beyond, the query is rejected or executed by the calling thread,
+ * depending on the rejection policy.
+ *
+ * When executed by the calling thread, the query is run when its result is requested (Future.get()),
+ * so that its deadline still applies: the calling thread is interrupted once the deadline is reached.
+ *
+ * Thread-safe.
+ */
+public class QueryExecutor implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryExecutor.class);
+    private static final AtomicInteger POOL_COUNTER = new AtomicInteger(0);
+
+    private final ThreadPoolExecutor executor;
+    private final QueryRejectionPolicy rejectionPolicy;
+    private final int defaultQueryTimeout;
+    // Interrupts the queries executed by the calling threads (lazily created)
+    @Nullable
+    private ScheduledExecutorService watchdog;
+
+    public QueryExecutor(OntopSystemSettings settings) {
+        int maxConcurrentQueries = settings.getMaxConcurrentQueries();
+        if (maxConcurrentQueries < 1)
+            throw new IllegalArgumentException(OntopSystemSettings.MAX_CONCURRENT_QUERIES + " must be positive");
+
+        int queueSize = settings.getQueryQueueSize();
+        BlockingQueue<Runnable> queue = (queueSize > 0)
+                ? new ArrayBlockingQueue<>(queueSize)
+                : new SynchronousQueue<>();
+
+        this.rejectionPolicy = settings.getQueryRejectionPolicy();
+        // Caller-runs is handled in submit(), so that the deadline applies
+        this.executor = new ThreadPoolExecutor(maxConcurrentQueries, maxConcurrentQueries,
+                60L, TimeUnit.SECONDS, queue, new QueryThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        // Idle threads do not need to be kept
+        this.executor.allowCoreThreadTimeOut(true);
+        this.defaultQueryTimeout = settings.getDefaultQueryTimeout();
+    }
+
+    /**
+     * In seconds (0 means no timeout)
+     */
+    int getDefaultQueryTimeout() {
+        return defaultQueryTimeout;
+    }
+
+    <T> Future<T> submit(Callable<T> task) throws OntopQueryEvaluationException {
+        FutureTask<T> future = new FutureTask<>(task);
+        try {
+            executor.execute(future);
+            return future;
+        } catch (RejectedExecutionException e) {
+            if (rejectionPolicy == QueryRejectionPolicy.CALLER_RUNS && !executor.isShutdown()) {
+                log.debug("Query executed by the calling thread: {} queries running and {} waiting",
+                        executor.getActiveCount(), executor.getQueue().size());
+                return new CallerRunsFuture<>(future);
+            }
+            log.warn("Query rejected: {} queries running and {} waiting", executor.getActiveCount(),
+                    executor.getQueue().size());
+            throw new OntopQueryEvaluationException("Too many concurrent queries, please retry later", e);
+        }
+    }
+
+    private synchronized ScheduledExecutorService getWatchdog() {
+        if (watchdog == null) {
+            watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "ontop-query-watchdog-" + POOL_COUNTER.get());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return watchdog;
+    }
+
+    /**
+     * Interrupts the running queries
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        synchronized (this) {
+            if (watchdog != null)
+                watchdog.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Task run by the thread waiting for its result.
+     *
+     * With a timeout, the task is cancelled (and the thread interrupted) once the timeout is reached,
+     * which then leads to a TimeoutException, like for the tasks executed by the pool.
+     */
+    private class CallerRunsFuture<T> implements Future<T> {
+        private final FutureTask<T> future;
+
+        private CallerRunsFuture(FutureTask<T> future) {
+            this.future = future;
+        }
+
+        @Override
+        public T get() throws InterruptedException, ExecutionException {
+            future.run();
+            if (future.isCancelled())
+                Thread.interrupted();
+            return future.get();
+        }
+
+        @Override
+        public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            if (timeout <= 0) {
+                future.cancel(false);
+                throw new TimeoutException();
+            }
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            ScheduledFuture<?> timer = getWatchdog().schedule(() -> future.cancel(true), timeout, unit);
+            try {
+                future.run();
+            } finally {
+                timer.cancel(false);
+                // The interruption (timeout or cancellation) was aimed at the task, not at the caller
+                if (future.isCancelled())
+                    Thread.interrupted();
+            }
+            if (future.isCancelled() && (System.nanoTime() - deadline >= 0))
+                throw new TimeoutException();
+            return future.get();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return future.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return future.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return future.isDone();
+        }
+    }
+
+
+    private static class QueryThreadFactory implements ThreadFactory {
+        private final int poolId = POOL_COUNTER.incrementAndGet();
+        private final AtomicInteger threadCounter = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "ontop-query-" + poolId + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -20,12 +20,17 @@ package it.unibz.inf.ontop.answering.connection.impl;
  * #L%
  */
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import it.unibz.inf.ontop.answering.connection.OntopStatement;
 import it.unibz.inf.ontop.answering.reformulation.ExecutableQuery;
 import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
 import it.unibz.inf.ontop.answering.reformulation.input.*;
+import it.unibz.inf.ontop.answering.reformulation.metrics.QueryReformulationMetrics;
+import it.unibz.inf.ontop.answering.reformulation.trace.PlanTrace;
 import it.unibz.inf.ontop.answering.resultset.*;
+import it.unibz.inf.ontop.answering.resultset.impl.DescribeGraphResultSet;
 import it.unibz.inf.ontop.exception.*;
 import it.unibz.inf.ontop.model.term.Constant;
 import it.unibz.inf.ontop.model.term.IRIConstant;
@@ -33,7 +38,10 @@ import org.eclipse.rdf4j.query.MalformedQueryException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.CountDownLatch;
+import javax.annotation.Nullable;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.*;
 
 
 /**
@@ -44,17 +52,36 @@ public abstract class QuestStatement implements OntopStatement {
 
 	private final QueryReformulator engine;
 	private final InputQueryFactory inputQueryFactory;
-
-	private QueryExecutionThread executionThread;
-	private boolean canceled = false;
+	private final QueryExecutor queryExecutor;
+
+	@Nullable
+	private volatile Future<?> currentExecution;
+	private volatile boolean canceled = false;
+	// In seconds (0: default timeout)
+	private int queryTimeout = 0;
+	// In nanoseconds (System.nanoTime()), only if hasDeadline
+	private volatile long deadline;
+	private volatile boolean hasDeadline = false;
+	@Nullable
+	private volatile QueryReformulationMetrics lastReformulationMetrics;
+	private volatile boolean planTracingEnabled = false;
+	@Nullable
+	private volatile PlanTrace lastPlanTrace;
 
 
 	private static final Logger log = LoggerFactory.getLogger(QuestStatement.class);
 
+	/**
+	 * Number of resources described by one CONSTRUCT query
+	 */
+	private static final int DESCRIBE_BATCH_SIZE = 50;
+
 
-	public QuestStatement(QueryReformulator queryProcessor, InputQueryFactory inputQueryFactory) {
+	public QuestStatement(QueryReformulator queryProcessor, InputQueryFactory inputQueryFactory,
+						  QueryExecutor queryExecutor) {
 		this.engine = queryProcessor;
 		this.inputQueryFactory = inputQueryFactory;
+		this.queryExecutor = queryExecutor;
 	}
 
 	/**
@@ -67,79 +94,6 @@ public abstract class QuestStatement implements OntopStatement {
 				throws OntopQueryEvaluationException, OntopResultConversionException, OntopConnectionException;
 	}
 
-	/**
-	 * Execution thread
-	 */
-	private class QueryExecutionThread<R extends OBDAResultSet, Q extends InputQuery<R>> extends Thread {
-
-		private final Q inputQuery;
-		private final QuestStatement.Evaluator<R, Q> evaluator;
-		private final CountDownLatch monitor;
-		private final ExecutableQuery executableQuery;
-
-		private R resultSet;	  // only for SELECT and ASK queries
-		private Exception exception;
-		private boolean executingTargetQuery;
-
-		QueryExecutionThread(Q inputQuery, ExecutableQuery executableQuery, Evaluator<R,Q> evaluator,
-							 CountDownLatch monitor) {
-			this.executableQuery = executableQuery;
-			this.inputQuery = inputQuery;
-			this.evaluator = evaluator;
-			this.monitor = monitor;
-			this.exception = null;
-			this.executingTargetQuery = false;
-		}
-
-		public boolean errorStatus() {
-			return exception != null;
-		}
-
-		public Exception getException() {
-			return exception;
-		}
-
-		public R getResultSet() {
-			return resultSet;
-		}
-
-		public void cancel() throws OntopQueryEvaluationException {
-			canceled = true;
-			if (!executingTargetQuery) {
-				this.stop();
-			} else {
-				cancelExecution();
-			}
-		}
-
-		@Override
-		public void run() {
-			//                        FOR debugging H2 in-memory database
-//			try {
-//				org.h2.tools.Server.startWebServer(((QuestConnection)conn).getSQLConnection());
-//			} catch (SQLException e) {
-//				e.printStackTrace();
-//			}
-			try {
-				/**
-				 * Executes the target query.
-				 */
-				log.debug("Executing the query and get the result...");
-				executingTargetQuery = true;
-				resultSet = evaluator.evaluate(inputQuery, executableQuery);
-				log.debug("Execution finished.\n");
-				/*
-				 * TODO: re-handle the timeout exception.
-				 */
-			} catch (Exception e) {
-				exception = e;
-				log.error(e.getMessage(), e);
-			} finally {
-				monitor.countDown();
-			}
-		}
-	}
-
 	protected abstract TupleResultSet executeSelectQuery(ExecutableQuery executableQuery)
 			throws OntopQueryEvaluationException;
 
@@ -156,31 +110,24 @@ public abstract class QuestStatement implements OntopStatement {
 		return executeBooleanQuery(executableQuery);
 	}
 
-	/**
-	 * TODO: describe
-	 */
-	private SimpleGraphResultSet executeDescribeConstructQuery(ConstructQuery constructQuery, ExecutableQuery executableQuery)
-			throws OntopQueryEvaluationException, OntopResultConversionException, OntopConnectionException {
-		return executeGraphQuery(constructQuery, executableQuery, true);
-	}
-
 	/**
 	 * TODO: describe
 	 */
 	private SimpleGraphResultSet executeConstructQuery(ConstructQuery constructQuery, ExecutableQuery executableQuery)
 			throws OntopQueryEvaluationException, OntopResultConversionException, OntopConnectionException {
-		return executeGraphQuery(constructQuery, executableQuery, false);
+		return executeGraphQuery(constructQuery, executableQuery);
 	}
 
 	/**
 	 * TODO: refactor
 	 */
-	protected abstract SimpleGraphResultSet executeGraphQuery(ConstructQuery query, ExecutableQuery executableQuery,
-															  boolean collectResults)
+	protected abstract SimpleGraphResultSet executeGraphQuery(ConstructQuery query, ExecutableQuery executableQuery)
 			throws OntopQueryEvaluationException, OntopResultConversionException, OntopConnectionException;
 
 	/**
 	 * Cancel the processing of the target query.
+	 *
+	 * Also called once the results have been returned (i.e. while they are iterated).
 	 */
 	protected abstract void cancelExecution() throws OntopQueryEvaluationException;
 
@@ -191,6 +138,12 @@ public abstract class QuestStatement implements OntopStatement {
 	@Override
 	public <R extends OBDAResultSet> R execute(InputQuery<R> inputQuery) throws OntopConnectionException,
             OntopReformulationException, OntopQueryEvaluationException, OntopResultConversionException {
+		canceled = false;
+		int timeout = getEffectiveQueryTimeout();
+		hasDeadline = timeout > 0;
+		if (hasDeadline)
+			deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout);
+
 		if (inputQuery instanceof SelectQuery) {
 			return (R) executeInThread((SelectQuery) inputQuery, this::executeSelectQuery);
 		}
@@ -209,8 +162,10 @@ public abstract class QuestStatement implements OntopStatement {
 	}
 
 	/**
-	 * TODO: completely refactor this old-way of processing DESCRIBE.
-	 *  ---> should be converted into 1 CONSTRUCT query
+	 * The resources are described by batches of DESCRIBE_BATCH_SIZE, each batch being one CONSTRUCT query.
+	 *
+	 * The first batch is evaluated immediately, the next ones only when the results of the previous batch
+	 * have been consumed (the SQL statement is shared).
 	 */
 	private SimpleGraphResultSet executeDescribeQuery(DescribeQuery inputQuery)
 			throws OntopReformulationException, OntopResultConversionException, OntopConnectionException,
@@ -218,44 +173,27 @@ public abstract class QuestStatement implements OntopStatement {
 
 		ImmutableSet<String> constants = extractDescribeQueryConstants(inputQuery);
 
-		SimpleGraphResultSet describeResultSet = null;
+		Iterator<ImmutableList<String>> batchIterator = Lists.partition(constants.asList(), DESCRIBE_BATCH_SIZE).stream()
+				.map(ImmutableList::copyOf)
+				.iterator();
+
+		SimpleGraphResultSet firstResultSet = batchIterator.hasNext()
+				? executeDescribeBatch(batchIterator.next())
+				: null;
 
+		return new DescribeGraphResultSet(firstResultSet, batchIterator, this::executeDescribeBatch);
+	}
+
+	private SimpleGraphResultSet executeDescribeBatch(ImmutableList<String> constants)
+			throws OntopReformulationException, OntopQueryEvaluationException {
+		String str = SPARQLQueryUtility.getConstructDescribeQuery(constants);
 		try {
-			// execute describe <uriconst> in subject position
-			for (String constant : constants) {
-				// for each constant we execute a construct with
-				// the uri as subject, and collect the results
-				String str = SPARQLQueryUtility.getConstructSubjQuery(constant);
-				ConstructQuery constructQuery = inputQueryFactory.createConstructQuery(str);
-
-				SimpleGraphResultSet set = executeInThread(constructQuery, this::executeDescribeConstructQuery);
-				if (describeResultSet == null) { // just for the first time
-					describeResultSet = set;
-				} else if (set != null) {
-					// 2nd and manyth times execute, but collect result into one object
-					while (set.hasNext())
-						describeResultSet.addNewResult(set.next());
-				}
-			}
-			// execute describe <uriconst> in object position
-			for (String constant : constants) {
-				String str = SPARQLQueryUtility.getConstructObjQuery(constant);
-
-				ConstructQuery constructQuery = inputQueryFactory.createConstructQuery(str);
-				SimpleGraphResultSet set = executeInThread(constructQuery, this::executeDescribeConstructQuery);
-
-				if (describeResultSet == null) { // just for the first time
-					describeResultSet = set;
-				} else if (set != null) {
-					while (set.hasNext())
-						describeResultSet.addNewResult(set.next());
-				}
-			}
+			ConstructQuery constructQuery = inputQueryFactory.createConstructQuery(str);
+			return executeInThread(constructQuery, this::executeConstructQuery);
 			// Exception is re-cast because not due to the initial input query
 		} catch (OntopInvalidInputQueryException e) {
 			throw new OntopReformulationException(e);
 		}
-		return describeResultSet;
 	}
 
 	private ImmutableSet<String> extractDescribeQueryConstants(DescribeQuery inputQuery)
@@ -267,10 +205,15 @@ public abstract class QuestStatement implements OntopStatement {
 		if (SPARQLQueryUtility.isVarDescribe(inputQueryString)) {
 			// if describe ?var, we have to do select distinct ?var first
 			String sel = SPARQLQueryUtility.getSelectVarDescribe(inputQueryString);
+			SelectQuery selectQuery;
 			try {
-				SelectQuery selectQuery = inputQueryFactory.createSelectQuery(sel);
-				TupleResultSet resultSet = execute(selectQuery);
-
+				selectQuery = inputQueryFactory.createSelectQuery(sel);
+				// Exception is re-cast because not due to the initial input query
+			} catch (OntopInvalidInputQueryException e) {
+				throw new OntopReformulationException(e);
+			}
+			// Same deadline as the DESCRIBE query
+			try (TupleResultSet resultSet = executeInThread(selectQuery, this::executeSelectQuery)) {
 				ImmutableSet.Builder<String> constantSetBuilder = ImmutableSet.builder();
 				while (resultSet.hasNext()) {
                     final OntopBindingSet bindingSet = resultSet.next();
@@ -281,9 +224,6 @@ public abstract class QuestStatement implements OntopStatement {
 					}
 				}
 				return constantSetBuilder.build();
-				// Exception is re-cast because not due to the initial input query
-			} catch (OntopInvalidInputQueryException e) {
-				throw new OntopReformulationException(e);
 			}
 		}
 		else if (SPARQLQueryUtility.isURIDescribe(inputQueryString)) {
@@ -301,58 +241,181 @@ public abstract class QuestStatement implements OntopStatement {
 
 
 	/**
-	 * Internal method to start a new query execution thread type defines the
-	 * query type SELECT, ASK, CONSTRUCT, or DESCRIBE
+	 * Reformulates and evaluates the query in the shared query executor, and waits for the result
+	 * (until the deadline, if any).
+	 *
+	 * A result produced after the caller stopped waiting (timeout, cancellation, interruption) is closed
+	 * by the task itself, so that its JDBC resources are released.
 	 */
 	private <R extends OBDAResultSet, Q extends InputQuery<R>> R executeInThread(Q inputQuery, Evaluator<R, Q> evaluator)
 			throws OntopReformulationException, OntopQueryEvaluationException {
 
 		log.debug("Executing SPARQL query: \n{}", inputQuery);
 
-		CountDownLatch monitor = new CountDownLatch(1);
-		ExecutableQuery executableQuery = engine.reformulateIntoNativeQuery(inputQuery);
+		if (canceled)
+			throw new OntopQueryEvaluationException("Query execution was cancelled");
 
-		QueryExecutionThread<R, Q> executionthread = new QueryExecutionThread<>(inputQuery, executableQuery, evaluator,
-				monitor);
+		ResultHandoff<R> handoff = new ResultHandoff<>();
+		Future<R> future = queryExecutor.submit(() -> {
+			ExecutableQuery executableQuery = reformulate(inputQuery);
+			if (canceled || Thread.currentThread().isInterrupted())
+				throw new OntopQueryEvaluationException("Query execution was cancelled");
+
+			log.debug("Executing the query and get the result...");
+			R resultSet = evaluator.evaluate(inputQuery, executableQuery);
+			if (!handoff.deliver(resultSet)) {
+				closeLateResult(resultSet);
+				throw new OntopQueryEvaluationException("Query execution was cancelled");
+			}
+			log.debug("Execution finished.\n");
+			return resultSet;
+		});
+		currentExecution = future;
 
-		this.executionThread = executionthread;
-		executionthread.start();
 		try {
-			monitor.await();
+			return hasDeadline
+					? future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)
+					: future.get();
+		} catch (ExecutionException e) {
+			if (canceled)
+				throw new OntopQueryEvaluationException("Query execution was cancelled");
+
+			Throwable cause = e.getCause();
+			if (hasDeadline && (System.nanoTime() - deadline >= 0)) {
+				log.debug("Query timed out: {}", cause.getMessage());
+				throw new OntopQueryEvaluationException("Query timed out after " + getEffectiveQueryTimeout() + " seconds");
+			}
+			else if (isCausedByUser(cause))
+				log.debug(cause.getMessage(), cause);
+			else
+				log.error(cause.getMessage(), cause);
+
+			if (cause instanceof OntopReformulationException)
+				throw (OntopReformulationException) cause;
+			else if (cause instanceof OntopQueryEvaluationException)
+				throw (OntopQueryEvaluationException) cause;
+			else if (cause instanceof Exception)
+				throw new OntopQueryEvaluationException((Exception) cause);
+			else
+				throw (Error) cause;
+		} catch (TimeoutException e) {
+			handoff.abandon().ifPresent(this::closeLateResult);
+			abort(future);
+			log.debug("Query timed out after {} seconds", getEffectiveQueryTimeout());
+			throw new OntopQueryEvaluationException("Query timed out after " + getEffectiveQueryTimeout() + " seconds");
+		} catch (CancellationException e) {
+			handoff.abandon().ifPresent(this::closeLateResult);
+			log.debug("Query execution was cancelled");
+			throw new OntopQueryEvaluationException("Query execution was cancelled");
 		} catch (InterruptedException e) {
-			e.printStackTrace();
+			handoff.abandon().ifPresent(this::closeLateResult);
+			abort(future);
+			Thread.currentThread().interrupt();
+			throw new OntopQueryEvaluationException("Interrupted while waiting for the query results");
+		} finally {
+			currentExecution = null;
 		}
-		if (executionthread.errorStatus()) {
-			Exception ex = executionthread.getException();
-			if (ex instanceof OntopReformulationException) {
-				throw (OntopReformulationException) ex;
-			}
-			else if (ex instanceof OntopQueryEvaluationException) {
-				throw (OntopQueryEvaluationException) ex;
-			}
-			else {
-				throw new OntopQueryEvaluationException(ex);
-			}
+	}
+
+	/**
+	 * Failures due to the query itself (not to Ontop or to the DB)
+	 */
+	private static boolean isCausedByUser(Throwable cause) {
+		return (cause instanceof OntopInvalidInputQueryException)
+				|| (cause instanceof OntopUnsupportedInputQueryException)
+				|| (cause instanceof MalformedQueryException)
+				|| (cause instanceof CancellationException);
+	}
+
+	private void closeLateResult(OBDAResultSet resultSet) {
+		try {
+			resultSet.close();
+		} catch (Exception e) {
+			log.debug("Could not close a result set produced after the end of the wait: {}", e.getMessage());
 		}
+	}
 
-		if (canceled) {
-			canceled = false;
-			throw new OntopQueryEvaluationException("Query execution was cancelled");
+	/**
+	 * Hands the result over from the task to the waiting caller.
+	 *
+	 * Once the caller has given up, the result is not delivered anymore (the task has to close it).
+	 * If the result was delivered just before the caller gave up, the caller gets it back for closing it.
+	 */
+	private static class ResultHandoff<R extends OBDAResultSet> {
+		@Nullable
+		private R result;
+		private boolean abandoned = false;
+
+		synchronized boolean deliver(R resultSet) {
+			if (abandoned)
+				return false;
+			result = resultSet;
+			return true;
+		}
+
+		synchronized Optional<R> abandon() {
+			abandoned = true;
+			Optional<R> lateResult = Optional.ofNullable(result);
+			result = null;
+			return lateResult;
 		}
-		return executionthread.getResultSet();
 	}
 
-	
+	/**
+	 * Interrupts the reformulation (cooperative) and cancels the execution of the native query.
+	 */
+	private void abort(Future<?> future) throws OntopQueryEvaluationException {
+		future.cancel(true);
+		cancelExecution();
+	}
+
+	/**
+	 * Once the results have been returned, only the native query (still producing the results) is cancelled.
+	 */
 	@Override
 	public void cancel() throws OntopConnectionException {
 		canceled = true;
+		Future<?> future = currentExecution;
 		try {
-			QuestStatement.this.executionThread.cancel();
+			if (future != null)
+				abort(future);
+			else
+				cancelExecution();
 		} catch (Exception e) {
 			throw new OntopConnectionException(e);
 		}
 	}
 
+	@Override
+	public void setQueryTimeout(int seconds) throws OntopConnectionException {
+		if (seconds < 0)
+			throw new OntopConnectionException("The query timeout must not be negative");
+		this.queryTimeout = seconds;
+	}
+
+	@Override
+	public int getQueryTimeout() throws OntopConnectionException {
+		return queryTimeout;
+	}
+
+	private int getEffectiveQueryTimeout() {
+		return queryTimeout > 0 ? queryTimeout : queryExecutor.getDefaultQueryTimeout();
+	}
+
+	/**
+	 * Time left (in seconds, rounded up) before the deadline of the current query, to be passed to the DB.
+	 *
+	 * Returns 0 if there is no deadline.
+	 */
+	protected int getRemainingQueryTimeout() throws OntopQueryEvaluationException {
+		if (!hasDeadline)
+			return 0;
+		long remaining = deadline - System.nanoTime();
+		if (remaining <= 0)
+			throw new OntopQueryEvaluationException("Query timed out after " + getEffectiveQueryTimeout() + " seconds");
+		return (int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remaining + TimeUnit.SECONDS.toNanos(1) - 1));
+	}
+
 	/**
 	 * Called to check whether the statement was cancelled on purpose
 	 */
@@ -368,7 +431,33 @@ public abstract class QuestStatement implements OntopStatement {
 
 	@Override
 	public ExecutableQuery getExecutableQuery(InputQuery inputQuery) throws OntopReformulationException {
-			return engine.reformulateIntoNativeQuery(inputQuery);
+			return reformulate(inputQuery);
+	}
+
+	private ExecutableQuery reformulate(InputQuery inputQuery) throws OntopReformulationException {
+		if (!planTracingEnabled)
+			return engine.reformulateIntoNativeQuery(inputQuery, m -> lastReformulationMetrics = m);
+
+		PlanTrace planTrace = PlanTrace.create();
+		ExecutableQuery executableQuery = engine.reformulateIntoNativeQuery(inputQuery,
+				m -> lastReformulationMetrics = m, planTrace);
+		lastPlanTrace = planTrace;
+		return executableQuery;
+	}
+
+	@Override
+	public Optional<QueryReformulationMetrics> getLastReformulationMetrics() {
+		return Optional.ofNullable(lastReformulationMetrics);
+	}
+
+	@Override
+	public void setPlanTracingEnabled(boolean enabled) {
+		this.planTracingEnabled = enabled;
+	}
+
+	@Override
+	public Optional<PlanTrace> getLastPlanTrace() {
+		return Optional.ofNullable(lastPlanTrace);
 	}
 
 }
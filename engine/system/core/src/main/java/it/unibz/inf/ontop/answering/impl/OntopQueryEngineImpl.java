@@ -5,6 +5,7 @@ import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import it.unibz.inf.ontop.answering.OntopQueryEngine;
 import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
+import it.unibz.inf.ontop.answering.reformulation.metrics.ReformulationMonitor;
 import it.unibz.inf.ontop.exception.OntopConnectionException;
 import it.unibz.inf.ontop.injection.OntopSystemFactory;
 import it.unibz.inf.ontop.injection.ReformulationFactory;
@@ -16,14 +17,17 @@ import it.unibz.inf.ontop.spec.OBDASpecification;
 public class OntopQueryEngineImpl implements OntopQueryEngine {
 
     private final DBConnector dbConnector;
+    private final ReformulationMonitor reformulationMonitor;
 
     @AssistedInject
     private OntopQueryEngineImpl(@Assisted OBDASpecification obdaSpecification,
                                  @Assisted ExecutorRegistry executorRegistry,
                                  ReformulationFactory translationFactory,
-                                 OntopSystemFactory systemFactory) {
+                                 OntopSystemFactory systemFactory,
+                                 ReformulationMonitor reformulationMonitor) {
         QueryReformulator queryReformulator = translationFactory.create(obdaSpecification, executorRegistry);
         dbConnector = systemFactory.create(queryReformulator, obdaSpecification.getDBMetadata());
+        this.reformulationMonitor = reformulationMonitor;
     }
 
     @Override
@@ -33,7 +37,11 @@ public class OntopQueryEngineImpl implements OntopQueryEngine {
 
     @Override
     public void close() throws OntopConnectionException {
-        dbConnector.close();
+        try {
+            dbConnector.close();
+        } finally {
+            reformulationMonitor.close();
+        }
     }
 
     @Override
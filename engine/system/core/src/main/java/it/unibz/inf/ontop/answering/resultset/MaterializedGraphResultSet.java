@@ -1,6 +1,7 @@
 package it.unibz.inf.ontop.answering.resultset;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import it.unibz.inf.ontop.exception.OntopQueryAnsweringException;
 import org.apache.commons.rdf.api.IRI;
@@ -20,6 +21,15 @@ public interface MaterializedGraphResultSet extends GraphResultSet<OntopQueryAns
      */
     long getTripleCountSoFar();
 
+    /**
+     * Number of RDF triples that have been materialized for each RDF property/class.
+     *
+     * With several workers, also includes the triples not consumed yet.
+     *
+     * May evolve until the materialization completes.
+     */
+    ImmutableMap<IRI, Long> getTripleCountsPerPropertyAndClassSoFar();
+
     /**
      * Returns true if a problem has occurred so far.
      *
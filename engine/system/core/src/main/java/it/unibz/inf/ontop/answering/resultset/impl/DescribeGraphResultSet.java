@@ -0,0 +1,88 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.answering.resultset.SimpleGraphResultSet;
+import it.unibz.inf.ontop.exception.OntopConnectionException;
+import it.unibz.inf.ontop.exception.OntopQueryAnsweringException;
+import it.unibz.inf.ontop.exception.OntopResultConversionException;
+import it.unibz.inf.ontop.spec.ontology.Assertion;
+
+import javax.annotation.Nullable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams the results of a DESCRIBE query, whose resources are described by batches.
+ *
+ * The query of the next batch is only executed once the results of the previous one have been consumed
+ * (and its result set closed).
+ */
+public class DescribeGraphResultSet implements SimpleGraphResultSet {
+
+    @FunctionalInterface
+    public interface BatchEvaluator {
+        SimpleGraphResultSet evaluate(ImmutableList<String> resources)
+                throws OntopQueryAnsweringException, OntopConnectionException;
+    }
+
+    private final Iterator<ImmutableList<String>> remainingBatches;
+    private final BatchEvaluator evaluator;
+
+    @Nullable
+    private SimpleGraphResultSet currentResultSet;
+
+    /**
+     * @param firstResultSet already evaluated (null if there is nothing to describe)
+     */
+    public DescribeGraphResultSet(@Nullable SimpleGraphResultSet firstResultSet,
+                                  Iterator<ImmutableList<String>> remainingBatches, BatchEvaluator evaluator) {
+        this.currentResultSet = firstResultSet;
+        this.remainingBatches = remainingBatches;
+        this.evaluator = evaluator;
+    }
+
+    @Override
+    public int getFetchSize() throws OntopConnectionException {
+        return currentResultSet == null ? 0 : currentResultSet.getFetchSize();
+    }
+
+    @Override
+    public boolean hasNext() throws OntopConnectionException, OntopResultConversionException {
+        while (currentResultSet != null) {
+            if (currentResultSet.hasNext())
+                return true;
+
+            currentResultSet.close();
+            currentResultSet = remainingBatches.hasNext()
+                    ? evaluateBatch(remainingBatches.next())
+                    : null;
+        }
+        return false;
+    }
+
+    private SimpleGraphResultSet evaluateBatch(ImmutableList<String> resources)
+            throws OntopConnectionException, OntopResultConversionException {
+        try {
+            return evaluator.evaluate(resources);
+        } catch (OntopConnectionException | OntopResultConversionException e) {
+            throw e;
+        } catch (OntopQueryAnsweringException e) {
+            throw new OntopConnectionException("Could not evaluate the next batch of the DESCRIBE query", e);
+        }
+    }
+
+    @Override
+    public Assertion next() throws OntopConnectionException, OntopResultConversionException {
+        if (!hasNext())
+            throw new NoSuchElementException("Please call hasNext() before calling next()");
+        return currentResultSet.next();
+    }
+
+    @Override
+    public void close() throws OntopConnectionException {
+        if (currentResultSet != null) {
+            currentResultSet.close();
+            currentResultSet = null;
+        }
+    }
+}
@@ -9,11 +9,68 @@ public interface OntopSystemSettings extends OntopReformulationSettings {
      */
     boolean isPermanentDBConnectionEnabled();
 
+    //--------------------------
+    // Query execution
+    //--------------------------
+
+    /**
+     * Maximum number of queries executed at the same time by a query engine
+     */
+    int getMaxConcurrentQueries();
+
+    /**
+     * Maximum number of queries waiting for being executed
+     */
+    int getQueryQueueSize();
+
+    /**
+     * What to do with a query when the maximum number of concurrent and waiting queries is reached
+     */
+    QueryRejectionPolicy getQueryRejectionPolicy();
+
+    /**
+     * In seconds. Applies to the statements without an explicit timeout. 0 means no timeout.
+     */
+    int getDefaultQueryTimeout();
+
+    //--------------------------
+    // Consistency and emptiness checks
+    //--------------------------
+
+    /**
+     * Number of checks (e.g. disjointness axioms or empty classes) evaluated by one query.
+     * 1 means one query per check.
+     */
+    int getValidationBatchSize();
+
+    /**
+     * Maximum number of check queries executed at the same time
+     */
+    int getValidationThreads();
+
+    enum QueryRejectionPolicy {
+        /**
+         * The query fails immediately
+         */
+        ABORT,
+        /**
+         * The query is executed by the thread of the client
+         */
+        CALLER_RUNS
+    }
+
     //--------------------------
     // Keys
     //--------------------------
 
     String PERMANENT_DB_CONNECTION = "ontop.permanentConnection";
+    String MAX_CONCURRENT_QUERIES = "ontop.query.maxConcurrent";
+    String QUERY_QUEUE_SIZE = "ontop.query.queueSize";
+    String QUERY_REJECTION_POLICY = "ontop.query.rejectionPolicy";
+    // In seconds
+    String DEFAULT_QUERY_TIMEOUT = "ontop.query.defaultTimeout";
+    String VALIDATION_BATCH_SIZE = "ontop.validation.batchSize";
+    String VALIDATION_THREADS = "ontop.validation.threads";
 
 
 }
@@ -1,6 +1,7 @@
 package it.unibz.inf.ontop.injection.impl;
 
 import it.unibz.inf.ontop.injection.OntopOBDASettings;
+import it.unibz.inf.ontop.exception.InvalidOntopConfigurationException;
 import it.unibz.inf.ontop.injection.OntopSystemSettings;
 
 import java.util.Properties;
@@ -27,4 +28,40 @@ public class OntopSystemSettingsImpl extends OntopReformulationSettingsImpl impl
     public boolean isPermanentDBConnectionEnabled() {
         return getRequiredBoolean(PERMANENT_DB_CONNECTION);
     }
+
+    @Override
+    public int getMaxConcurrentQueries() {
+        return getRequiredInteger(MAX_CONCURRENT_QUERIES);
+    }
+
+    @Override
+    public int getQueryQueueSize() {
+        return getRequiredInteger(QUERY_QUEUE_SIZE);
+    }
+
+    @Override
+    public QueryRejectionPolicy getQueryRejectionPolicy() {
+        String value = getRequiredProperty(QUERY_REJECTION_POLICY);
+        try {
+            return QueryRejectionPolicy.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidOntopConfigurationException("Invalid value for " + QUERY_REJECTION_POLICY
+                    + ": is " + value);
+        }
+    }
+
+    @Override
+    public int getDefaultQueryTimeout() {
+        return getRequiredInteger(DEFAULT_QUERY_TIMEOUT);
+    }
+
+    @Override
+    public int getValidationBatchSize() {
+        return getRequiredInteger(VALIDATION_BATCH_SIZE);
+    }
+
+    @Override
+    public int getValidationThreads() {
+        return getRequiredInteger(VALIDATION_THREADS);
+    }
 }
@@ -23,6 +23,14 @@ public interface MaterializationParams {
      */
     boolean canMaterializationBeIncomplete();
 
+    /**
+     * Number of RDF properties/classes materialized in parallel
+     * (each one on its own connection).
+     *
+     * 1 by default (sequential materialization).
+     */
+    int getNumberOfWorkers();
+
 
     static Builder defaultBuilder() {
         return new MaterializationParamsImpl.DefaultBuilder<>();
@@ -35,6 +43,8 @@ public interface MaterializationParams {
 
         B enableIncompleteMaterialization(boolean enable);
 
+        B numberOfWorkers(int numberOfWorkers);
+
         MaterializationParams build();
 
     }
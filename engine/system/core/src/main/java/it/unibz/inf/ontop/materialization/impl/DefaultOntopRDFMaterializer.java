@@ -49,6 +49,7 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
@@ -62,14 +63,14 @@ import java.util.stream.Stream;
  */
 public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 
-	private static int FETCH_SIZE = 50000;
+	static final int FETCH_SIZE = 50000;
 	private final MaterializationParams params;
 	private final InputQueryFactory inputQueryFactory;
 	private final OntopQueryEngine queryEngine;
 
 	private final ImmutableMap<IRI, VocabularyEntry> vocabulary;
 
-	private static final class VocabularyEntry {
+	static final class VocabularyEntry {
         private final IRI name;
         private final int arity;
 
@@ -83,6 +84,10 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
         private static final String PROPERTY_QUERY = "CONSTRUCT {?s <%s> ?o} WHERE {?s <%s> ?o}";
         private static final String CLASS_QUERY = "CONSTRUCT {?s a <%s>} WHERE {?s a <%s>}";
 
+        IRI getName() {
+            return name;
+        }
+
         String getQuery() {
             return String.format((arity == 1) ? CLASS_QUERY : PROPERTY_QUERY, name.getIRIString(), name.getIRIString());
         }
@@ -100,12 +105,18 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 
 	@Override
 	public MaterializedGraphResultSet materialize() {
-		return new DefaultMaterializedGraphResultSet(vocabulary, params, queryEngine, inputQueryFactory);
+		return createResultSet(vocabulary);
 	}
 
 	@Override
 	public MaterializedGraphResultSet materialize(@Nonnull ImmutableSet<IRI> selectedVocabulary) {
-		return new DefaultMaterializedGraphResultSet(filterVocabularyEntries(selectedVocabulary), params, queryEngine, inputQueryFactory);
+		return createResultSet(filterVocabularyEntries(selectedVocabulary));
+	}
+
+	private MaterializedGraphResultSet createResultSet(ImmutableMap<IRI, VocabularyEntry> selectedVocabulary) {
+		return (params.getNumberOfWorkers() > 1) && (selectedVocabulary.size() > 1)
+				? new ParallelMaterializedGraphResultSet(selectedVocabulary, params, queryEngine, inputQueryFactory)
+				: new DefaultMaterializedGraphResultSet(selectedVocabulary, params, queryEngine, inputQueryFactory);
 	}
 
 	private ImmutableMap<IRI,VocabularyEntry> filterVocabularyEntries(ImmutableSet<IRI> selectedVocabulary) {
@@ -164,6 +175,11 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 		private final UnmodifiableIterator<VocabularyEntry> vocabularyIterator;
 
 		private int counter;
+		private final Map<IRI, Long> tripleCounts;
+		@Nullable
+		private VocabularyEntry currentEntry;
+		// Triples of the current entry not yet added to tripleCounts
+		private long currentEntryCount;
 		@Nullable
 		private OntopConnection ontopConnection;
 		@Nullable
@@ -188,6 +204,7 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 			this.canBeIncomplete = params.canMaterializationBeIncomplete();
 			this.inputQueryFactory = inputQueryFactory;
 			this.possiblyIncompleteClassesAndProperties = new ArrayList<>();
+			this.tripleCounts = new HashMap<>();
 
 			if (doStreamResults) {
 				// Autocommit must be OFF (needed for autocommit)
@@ -249,6 +266,8 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 				 * New query for the next RDF property/class
 				 */
                 VocabularyEntry predicate = vocabularyIterator.next();
+				flushCurrentEntryCount();
+				currentEntry = predicate;
 				ConstructQuery query = inputQueryFactory.createConstructQuery(predicate.getQuery());
 
 				try {
@@ -281,6 +300,7 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 		@Override
 		public Assertion next() throws OntopQueryAnsweringException {
 			counter++;
+			currentEntryCount++;
 			try {
 				return tmpGraphResultSet.next();
 			} catch (OntopResultConversionException e) {
@@ -300,10 +320,25 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 			}
 		}
 
+		/**
+		 * Triples are counted locally for the current entry (no map access per triple)
+		 */
+		private void flushCurrentEntryCount() {
+			if (currentEntryCount > 0) {
+				tripleCounts.merge(currentEntry.name, currentEntryCount, Long::sum);
+				currentEntryCount = 0;
+			}
+		}
+
 		public long getTripleCountSoFar() {
 			return counter;
 		}
 
+		public ImmutableMap<IRI, Long> getTripleCountsPerPropertyAndClassSoFar() {
+			flushCurrentEntryCount();
+			return ImmutableMap.copyOf(tripleCounts);
+		}
+
 		public ImmutableList<IRI> getPossiblyIncompleteRDFPropertiesAndClassesSoFar() {
 			return ImmutableList.copyOf(possiblyIncompleteClassesAndProperties);
 		}
@@ -6,10 +6,13 @@ public class MaterializationParamsImpl implements MaterializationParams {
 
     private final boolean enableDBResultStreaming;
     private final boolean enableIncompleteMaterialization;
+    private final int numberOfWorkers;
 
-    private MaterializationParamsImpl(boolean enableDBResultStreaming, boolean enableIncompleteMaterialization) {
+    private MaterializationParamsImpl(boolean enableDBResultStreaming, boolean enableIncompleteMaterialization,
+                                      int numberOfWorkers) {
         this.enableDBResultStreaming = enableDBResultStreaming;
         this.enableIncompleteMaterialization = enableIncompleteMaterialization;
+        this.numberOfWorkers = numberOfWorkers;
     }
 
 
@@ -23,16 +26,23 @@ public class MaterializationParamsImpl implements MaterializationParams {
         return enableIncompleteMaterialization;
     }
 
+    @Override
+    public int getNumberOfWorkers() {
+        return numberOfWorkers;
+    }
+
 
     public static class DefaultBuilder<B extends Builder<B>> implements Builder<B> {
 
         private final B builder;
         private boolean isDBResultStreamingEnabled;
         private boolean canMaterializationBeIncomplete;
+        private int numberOfWorkers;
 
         public DefaultBuilder() {
             this.isDBResultStreamingEnabled = false;
             this.canMaterializationBeIncomplete = false;
+            this.numberOfWorkers = 1;
             this.builder = (B) this;
         }
 
@@ -49,9 +59,18 @@ public class MaterializationParamsImpl implements MaterializationParams {
             return builder;
         }
 
+        @Override
+        public B numberOfWorkers(int numberOfWorkers) {
+            if (numberOfWorkers < 1)
+                throw new IllegalArgumentException("The number of workers must be positive");
+            this.numberOfWorkers = numberOfWorkers;
+            return builder;
+        }
+
         @Override
         public MaterializationParams build() {
-            return new MaterializationParamsImpl(isDBResultStreamingEnabled, canMaterializationBeIncomplete);
+            return new MaterializationParamsImpl(isDBResultStreamingEnabled, canMaterializationBeIncomplete,
+                    numberOfWorkers);
         }
     }
 
@@ -0,0 +1,270 @@
+package it.unibz.inf.ontop.materialization.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.reformulation.input.ConstructQuery;
+import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
+import it.unibz.inf.ontop.answering.resultset.MaterializedGraphResultSet;
+import it.unibz.inf.ontop.answering.resultset.SimpleGraphResultSet;
+import it.unibz.inf.ontop.exception.OntopConnectionException;
+import it.unibz.inf.ontop.exception.OntopQueryAnsweringException;
+import it.unibz.inf.ontop.exception.OntopQueryEngineException;
+import it.unibz.inf.ontop.materialization.MaterializationParams;
+import it.unibz.inf.ontop.materialization.impl.DefaultOntopRDFMaterializer.VocabularyEntry;
+import it.unibz.inf.ontop.spec.ontology.Assertion;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.apache.commons.rdf.api.IRI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Materializes several RDF properties/classes in parallel.
+ *
+ * Each worker takes the next RDF property/class, evaluates its CONSTRUCT query on its own connection
+ * and pushes the triples into a bounded queue, which is consumed by this result set.
+ * A worker blocks when the queue is full, so slow consumers do not cause triples to pile up in memory.
+ *
+ * Like the sequential result set, does not allocate resources before hasNext() is called.
+ */
+class ParallelMaterializedGraphResultSet implements MaterializedGraphResultSet {
+
+    private static final int QUEUE_CAPACITY = 10000;
+    private static final long POLL_TIMEOUT_MS = 100;
+    private static final AtomicInteger POOL_COUNTER = new AtomicInteger(0);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelMaterializedGraphResultSet.class);
+
+    private final ImmutableMap<IRI, VocabularyEntry> vocabulary;
+    private final OntopQueryEngine queryEngine;
+    private final InputQueryFactory inputQueryFactory;
+    private final boolean doStreamResults, canBeIncomplete;
+    private final int numberOfWorkers;
+
+    private final Queue<VocabularyEntry> remainingEntries;
+    private final BlockingQueue<Assertion> assertionQueue;
+    private final Map<IRI, AtomicLong> tripleCounts;
+    private final Queue<IRI> possiblyIncompleteClassesAndProperties;
+    // Statements being executed by the workers (cancelled on close)
+    private final Set<OntopStatement> runningStatements;
+    private final AtomicInteger activeWorkers;
+    // First critical exception thrown by a worker
+    private final AtomicReference<OntopQueryEngineException> failure;
+
+    private volatile boolean closed;
+    private long counter;
+    @Nullable
+    private ExecutorService workerPool;
+    @Nullable
+    private Assertion nextAssertion;
+
+    ParallelMaterializedGraphResultSet(ImmutableMap<IRI, VocabularyEntry> vocabulary, MaterializationParams params,
+                                       OntopQueryEngine queryEngine, InputQueryFactory inputQueryFactory) {
+        this.vocabulary = vocabulary;
+        this.queryEngine = queryEngine;
+        this.inputQueryFactory = inputQueryFactory;
+        this.doStreamResults = params.isDBResultStreamingEnabled();
+        this.canBeIncomplete = params.canMaterializationBeIncomplete();
+        this.numberOfWorkers = Math.min(params.getNumberOfWorkers(), vocabulary.size());
+
+        this.remainingEntries = new ConcurrentLinkedQueue<>(vocabulary.values());
+        this.assertionQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        this.tripleCounts = new ConcurrentHashMap<>();
+        this.possiblyIncompleteClassesAndProperties = new ConcurrentLinkedQueue<>();
+        this.runningStatements = ConcurrentHashMap.newKeySet();
+        this.activeWorkers = new AtomicInteger(0);
+        this.failure = new AtomicReference<>();
+
+        this.closed = false;
+        this.counter = 0;
+        // Lately initiated
+        this.workerPool = null;
+        this.nextAssertion = null;
+    }
+
+    @Override
+    public ImmutableSet<IRI> getSelectedVocabulary() {
+        return vocabulary.keySet();
+    }
+
+    @Override
+    public boolean hasNext() throws OntopQueryAnsweringException, OntopConnectionException {
+        if (closed)
+            return false;
+        if (workerPool == null)
+            startWorkers();
+
+        if (nextAssertion != null)
+            return true;
+
+        try {
+            while (true) {
+                rethrowFailure();
+                Assertion assertion = assertionQueue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (assertion != null) {
+                    nextAssertion = assertion;
+                    return true;
+                }
+                // The workers only stop after having pushed all their triples
+                if (activeWorkers.get() == 0 && assertionQueue.isEmpty()) {
+                    rethrowFailure();
+                    return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OntopQueryAnsweringException(e);
+        }
+    }
+
+    @Override
+    public Assertion next() throws OntopQueryAnsweringException, OntopConnectionException {
+        if (!hasNext())
+            throw new NoSuchElementException("Please call hasNext() before calling next()");
+        Assertion assertion = nextAssertion;
+        nextAssertion = null;
+        counter++;
+        return assertion;
+    }
+
+    private void startWorkers() {
+        int poolId = POOL_COUNTER.incrementAndGet();
+        AtomicInteger threadCounter = new AtomicInteger(0);
+        workerPool = Executors.newFixedThreadPool(numberOfWorkers, r -> {
+            Thread thread = new Thread(r, "ontop-materialization-" + poolId + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        activeWorkers.set(numberOfWorkers);
+        for (int i = 0; i < numberOfWorkers; i++)
+            workerPool.execute(this::runWorker);
+        // No new task
+        workerPool.shutdown();
+    }
+
+    private void runWorker() {
+        try (OntopConnection connection = queryEngine.getConnection()) {
+            VocabularyEntry entry;
+            while ((!closed) && (failure.get() == null) && ((entry = remainingEntries.poll()) != null)) {
+                try {
+                    materialize(entry, connection);
+                } catch (OntopQueryAnsweringException | OntopConnectionException e) {
+                    if (closed)
+                        return;
+                    if (canBeIncomplete) {
+                        LOGGER.warn("Possibly incomplete class/property " + entry.getName() + " (materialization problem).\n"
+                                + "Details: " + e);
+                        possiblyIncompleteClassesAndProperties.add(entry.getName());
+                    }
+                    else {
+                        LOGGER.error("Problem materializing the class/property " + entry.getName());
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closed by the consumer
+        } catch (OntopConnectionException e) {
+            if (!closed) {
+                LOGGER.error("Cannot obtain a connection for materializing: " + e);
+                failure.compareAndSet(null, e);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Unexpected exception while materializing: " + e);
+            failure.compareAndSet(null, new OntopQueryAnsweringException(e));
+        } finally {
+            activeWorkers.decrementAndGet();
+        }
+    }
+
+    private void materialize(VocabularyEntry entry, OntopConnection connection)
+            throws OntopQueryAnsweringException, OntopConnectionException, InterruptedException {
+        ConstructQuery query = inputQueryFactory.createConstructQuery(entry.getQuery());
+        AtomicLong tripleCount = tripleCounts.computeIfAbsent(entry.getName(), n -> new AtomicLong(0));
+
+        OntopStatement statement = connection.createStatement();
+        runningStatements.add(statement);
+        try {
+            if (doStreamResults)
+                statement.setFetchSize(DefaultOntopRDFMaterializer.FETCH_SIZE);
+
+            SimpleGraphResultSet graphResultSet = statement.execute(query);
+            try {
+                while ((!closed) && graphResultSet.hasNext()) {
+                    assertionQueue.put(graphResultSet.next());
+                    tripleCount.incrementAndGet();
+                }
+            } finally {
+                graphResultSet.close();
+            }
+        } finally {
+            runningStatements.remove(statement);
+            try {
+                statement.close();
+            } catch (OntopConnectionException e) {
+                LOGGER.warn("Non-critical exception while closing the statement: " + e);
+            }
+        }
+    }
+
+    private void rethrowFailure() throws OntopQueryAnsweringException, OntopConnectionException {
+        OntopQueryEngineException e = failure.get();
+        if (e == null)
+            return;
+        if (e instanceof OntopConnectionException)
+            throw (OntopConnectionException) e;
+        if (e instanceof OntopQueryAnsweringException)
+            throw (OntopQueryAnsweringException) e;
+        throw new OntopQueryAnsweringException(e);
+    }
+
+    /**
+     * Stops the workers and releases their connections
+     */
+    @Override
+    public void close() throws OntopConnectionException {
+        if (closed)
+            return;
+        closed = true;
+        if (workerPool == null)
+            return;
+
+        for (OntopStatement statement : runningStatements) {
+            try {
+                statement.cancel();
+            } catch (OntopConnectionException e) {
+                LOGGER.warn("Non-critical exception while cancelling a statement: " + e);
+            }
+        }
+        // Unblocks the workers waiting for space in the queue
+        workerPool.shutdownNow();
+        assertionQueue.clear();
+    }
+
+    @Override
+    public long getTripleCountSoFar() {
+        return counter;
+    }
+
+    @Override
+    public ImmutableMap<IRI, Long> getTripleCountsPerPropertyAndClassSoFar() {
+        return tripleCounts.entrySet().stream()
+                .collect(ImmutableCollectors.toMap(Map.Entry::getKey, e -> e.getValue().get()));
+    }
+
+    @Override
+    public ImmutableList<IRI> getPossiblyIncompleteRDFPropertiesAndClassesSoFar() {
+        return ImmutableList.copyOf(possiblyIncompleteClassesAndProperties);
+    }
+}
@@ -44,6 +44,8 @@ public class JDBCConnector implements DBConnector {
     private final TermFactory termFactory;
     private final TypeFactory typeFactory;
     private final RDF rdfFactory;
+    // Shared by all the connections
+    private final QueryExecutor queryExecutor;
 
     @AssistedInject
     private JDBCConnector(@Assisted QueryReformulator queryReformulator,
@@ -64,6 +66,7 @@ public class JDBCConnector implements DBConnector {
         this.connectionPool = connectionPool;
         this.typeFactory = typeFactory;
         this.rdfFactory = rdfFactory;
+        this.queryExecutor = new QueryExecutor(settings);
     }
 
     /**
@@ -96,6 +99,7 @@ public class JDBCConnector implements DBConnector {
         } catch (Exception e) {
             log.error(e.getMessage());
         }
+        queryExecutor.close();
         connectionPool.close();
     }
 
@@ -124,7 +128,7 @@ public class JDBCConnector implements DBConnector {
     @Override
     public OntopConnection getConnection() throws OntopConnectionException {
 
-        return new SQLConnection(this, queryReformulator, getSQLPoolConnection(), iriDictionary,
+        return new SQLConnection(this, queryReformulator, getSQLPoolConnection(), queryExecutor, iriDictionary,
                 dbMetadata, inputQueryFactory, termFactory, typeFactory, rdfFactory, settings);
     }
 
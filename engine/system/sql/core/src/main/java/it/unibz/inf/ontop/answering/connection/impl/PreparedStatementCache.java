@@ -0,0 +1,173 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Bounded LRU cache of the prepared statements of one JDBC connection, indexed by their SQL string.
+ *
+ * A cached statement is only reused once the result set of its previous execution has been closed.
+ * Otherwise, a new non-cached statement is prepared (and closed together with its result set).
+ *
+ * Also remembers the SQL strings that the DB failed to execute as prepared statements
+ * (e.g. because of parameter typing issues), so that they are directly executed with inlined values.
+ *
+ * The JDBC types of the parameters are also cached, so that the values can be bound with the type
+ * of the column they are compared to.
+ *
+ * Thread-safe.
+ */
+class PreparedStatementCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PreparedStatementCache.class);
+
+    private final int maxSize;
+    private final Map<String, PreparedStatement> statements;
+    private final Set<String> nonPreparableQueries;
+    // JDBC types of the parameters, as reported by the driver (empty if unknown)
+    private final Map<String, Optional<int[]>> parameterTypes;
+    // Cached statements handed out but not executed yet
+    private final Set<PreparedStatement> reservedStatements;
+
+    PreparedStatementCache(int maxSize) {
+        this.maxSize = maxSize;
+        // Access order
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+        this.nonPreparableQueries = new HashSet<>();
+        this.parameterTypes = new HashMap<>();
+        this.reservedStatements = Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    synchronized boolean isPreparable(String sql) {
+        return isEnabled() && !nonPreparableQueries.contains(sql);
+    }
+
+    synchronized void markAsNonPreparable(String sql) {
+        nonPreparableQueries.add(sql);
+        PreparedStatement statement = statements.remove(sql);
+        if (statement != null)
+            close(statement);
+    }
+
+    /**
+     * Returns a prepared statement that is not in use for the given SQL string.
+     *
+     * Must be followed by a call to release() once the statement has been executed.
+     */
+    synchronized PreparedStatement getStatement(Connection connection, String sql) throws SQLException {
+        PreparedStatement cachedStatement = statements.get(sql);
+        if (cachedStatement != null) {
+            if (cachedStatement.isClosed() || (cachedStatement.getConnection() != connection)) {
+                statements.remove(sql);
+            }
+            else if (isAvailable(cachedStatement)) {
+                reservedStatements.add(cachedStatement);
+                return cachedStatement;
+            }
+            else {
+                // Still in use: not cached
+                PreparedStatement statement = prepare(connection, sql);
+                statement.closeOnCompletion();
+                return statement;
+            }
+        }
+
+        PreparedStatement statement = prepare(connection, sql);
+        statements.put(sql, statement);
+        reservedStatements.add(statement);
+        evictIfNecessary();
+        return statement;
+    }
+
+    /**
+     * JDBC types (see java.sql.Types) of the parameters of the prepared statement,
+     * or empty if the driver cannot infer them.
+     *
+     * Computed once per SQL string.
+     */
+    synchronized Optional<int[]> getParameterTypes(PreparedStatement statement, String sql) {
+        return parameterTypes.computeIfAbsent(sql, s -> extractParameterTypes(statement));
+    }
+
+    private static Optional<int[]> extractParameterTypes(PreparedStatement statement) {
+        try {
+            ParameterMetaData metadata = statement.getParameterMetaData();
+            int[] types = new int[metadata.getParameterCount()];
+            for (int i = 0; i < types.length; i++)
+                types[i] = metadata.getParameterType(i + 1);
+            return Optional.of(types);
+        } catch (SQLException e) {
+            log.debug("The types of the parameters are not available ({}). They will be bound as strings.",
+                    e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * From now on, the availability of the statement is determined by its result set
+     */
+    synchronized void release(PreparedStatement statement) {
+        reservedStatements.remove(statement);
+    }
+
+    synchronized void clear() {
+        statements.values().forEach(this::close);
+        statements.clear();
+        parameterTypes.clear();
+        reservedStatements.clear();
+    }
+
+    private PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        return connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    }
+
+    private void evictIfNecessary() {
+        Iterator<Map.Entry<String, PreparedStatement>> it = statements.entrySet().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            PreparedStatement statement = it.next().getValue();
+            it.remove();
+            if (isAvailable(statement))
+                close(statement);
+            else
+                closeOnCompletion(statement);
+        }
+    }
+
+    private boolean isAvailable(PreparedStatement statement) {
+        if (reservedStatements.contains(statement))
+            return false;
+        try {
+            ResultSet previousResultSet = statement.getResultSet();
+            return (previousResultSet == null) || previousResultSet.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void close(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            log.warn("Could not close a prepared statement: {}", e.getMessage());
+        }
+    }
+
+    private void closeOnCompletion(PreparedStatement statement) {
+        try {
+            statement.closeOnCompletion();
+        } catch (SQLException e) {
+            close(statement);
+        }
+    }
+}
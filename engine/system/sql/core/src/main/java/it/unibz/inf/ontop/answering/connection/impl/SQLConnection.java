@@ -61,10 +61,12 @@ public class SQLConnection implements OntopConnection {
 	private final JDBCConnector jdbcConnector;
 	private boolean isClosed;
 	private final RDF rdfFactory;
+	private final PreparedStatementCache preparedStatementCache;
+	private final QueryExecutor queryExecutor;
 
 
 	public SQLConnection(JDBCConnector jdbcConnector, QueryReformulator queryProcessor, Connection connection,
-						 Optional<IRIDictionary> iriDictionary, DBMetadata dbMetadata,
+						 QueryExecutor queryExecutor, Optional<IRIDictionary> iriDictionary, DBMetadata dbMetadata,
 						 InputQueryFactory inputQueryFactory, TermFactory termFactory, TypeFactory typeFactory,
 						 RDF rdfFactory, OntopSystemSQLSettings settings) {
 		this.jdbcConnector = jdbcConnector;
@@ -78,11 +80,14 @@ public class SQLConnection implements OntopConnection {
 		this.settings = settings;
 		this.rdfFactory = rdfFactory;
 		this.isClosed = false;
+		this.queryExecutor = queryExecutor;
+		this.preparedStatementCache = new PreparedStatementCache(settings.getPreparedStatementCacheSize());
 	}
 	
 	@Override
 	public void close() throws OntopConnectionException {
 		try {
+			preparedStatementCache.clear();
 			conn.close();
 		} catch (Exception e) {
 			throw new OntopConnectionException(e);
@@ -94,11 +99,13 @@ public class SQLConnection implements OntopConnection {
 		try {
 			if (conn.isClosed()) {
 				// Sometimes it gets dropped, reconnect
+				preparedStatementCache.clear();
 				conn = jdbcConnector.getSQLPoolConnection();
 			}
 			return new SQLQuestStatement(
 					this.queryProcessor,
 					conn.createStatement(java.sql.ResultSet.TYPE_FORWARD_ONLY, java.sql.ResultSet.CONCUR_READ_ONLY),
+					preparedStatementCache, queryExecutor,
 					iriDictionary, dbMetadata, inputQueryFactory, termFactory, typeFactory, rdfFactory, settings);
 		} catch (Exception e) {
 			throw new OntopConnectionException(e);
@@ -1,12 +1,17 @@
 package it.unibz.inf.ontop.answering.connection.impl;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
+import com.google.common.collect.ImmutableList;
 import it.unibz.inf.ontop.answering.reformulation.ExecutableQuery;
+import it.unibz.inf.ontop.answering.reformulation.impl.PreparedSQLExecutableQuery;
 import it.unibz.inf.ontop.answering.reformulation.impl.SQLExecutableQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.*;
 import it.unibz.inf.ontop.answering.resultset.impl.*;
 import it.unibz.inf.ontop.answering.resultset.BooleanResultSet;
+import it.unibz.inf.ontop.answering.resultset.OntopBindingSet;
 import it.unibz.inf.ontop.answering.resultset.SimpleGraphResultSet;
 import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
 import it.unibz.inf.ontop.dbschema.DBMetadata;
@@ -19,6 +24,8 @@ import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
 import it.unibz.inf.ontop.model.term.TermFactory;
 import it.unibz.inf.ontop.model.type.TypeFactory;
 import org.apache.commons.rdf.api.RDF;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.sql.*;
 import java.sql.ResultSet;
@@ -29,7 +36,12 @@ import java.sql.ResultSet;
  */
 public class SQLQuestStatement extends QuestStatement {
 
+    private static final Logger log = LoggerFactory.getLogger(SQLQuestStatement.class);
+
     private final Statement sqlStatement;
+    private final PreparedStatementCache preparedStatementCache;
+    // Prepared statement of the last execution, until its result set is closed (for cancelling it)
+    private final AtomicReference<PreparedStatement> currentPreparedStatement = new AtomicReference<>();
     private final DBMetadata dbMetadata;
     private final Optional<IRIDictionary> iriDictionary;
     private final TermFactory termFactory;
@@ -37,13 +49,15 @@ public class SQLQuestStatement extends QuestStatement {
     private final RDF rdfFactory;
     private final OntopSystemSQLSettings settings;
 
-    public SQLQuestStatement(QueryReformulator queryProcessor, Statement sqlStatement,
-                             Optional<IRIDictionary> iriDictionary, DBMetadata dbMetadata,
-                             InputQueryFactory inputQueryFactory,
-                             TermFactory termFactory, TypeFactory typeFactory,
-                             RDF rdfFactory, OntopSystemSQLSettings settings) {
-        super(queryProcessor, inputQueryFactory);
+    SQLQuestStatement(QueryReformulator queryProcessor, Statement sqlStatement,
+                      PreparedStatementCache preparedStatementCache, QueryExecutor queryExecutor,
+                      Optional<IRIDictionary> iriDictionary, DBMetadata dbMetadata,
+                      InputQueryFactory inputQueryFactory,
+                      TermFactory termFactory, TypeFactory typeFactory,
+                      RDF rdfFactory, OntopSystemSQLSettings settings) {
+        super(queryProcessor, inputQueryFactory, queryExecutor);
         this.sqlStatement = sqlStatement;
+        this.preparedStatementCache = preparedStatementCache;
         this.dbMetadata = dbMetadata;
         this.iriDictionary = iriDictionary;
         this.termFactory = termFactory;
@@ -102,24 +116,6 @@ public class SQLQuestStatement extends QuestStatement {
 
     }
 
-    @Override
-    public void setQueryTimeout(int seconds) throws OntopConnectionException {
-        try {
-            sqlStatement.setQueryTimeout(seconds);
-        } catch (SQLException e) {
-            throw new OntopConnectionException(e);
-        }
-    }
-
-    @Override
-    public int getQueryTimeout() throws OntopConnectionException {
-        try {
-            return sqlStatement.getQueryTimeout();
-        } catch (SQLException e) {
-            throw new OntopConnectionException(e);
-        }
-    }
-
     @Override
     public boolean isClosed() throws OntopConnectionException {
         try {
@@ -140,6 +136,7 @@ public class SQLQuestStatement extends QuestStatement {
         if (!isCanceled()) {
             try {
 
+                sqlStatement.setQueryTimeout(getQueryTimeout());
                 java.sql.ResultSet set = sqlStatement.executeQuery(newsql);
                 if (set.next()) {
                     return set.getInt(1);
@@ -158,6 +155,7 @@ public class SQLQuestStatement extends QuestStatement {
 
     @Override
     public void close() throws OntopConnectionException {
+        currentPreparedStatement.set(null);
         try {
             if (sqlStatement != null)
                 sqlStatement.close();
@@ -166,9 +164,17 @@ public class SQLQuestStatement extends QuestStatement {
         }
     }
 
+    /**
+     * The prepared statement of the last execution is also cancelled until its result set is closed
+     * (e.g. while the results are iterated)
+     */
     protected void cancelExecution() throws OntopQueryEvaluationException {
         try {
-            sqlStatement.cancel();
+            PreparedStatement preparedStatement = currentPreparedStatement.get();
+            if (preparedStatement != null)
+                preparedStatement.cancel();
+            if (!sqlStatement.isClosed())
+                sqlStatement.cancel();
         } catch (SQLException e) {
             throw new OntopQueryEvaluationException(e);
         }
@@ -184,8 +190,8 @@ public class SQLQuestStatement extends QuestStatement {
         }
 
         try {
-            java.sql.ResultSet set = sqlStatement.executeQuery(sqlQuery);
-            return new SQLBooleanResultSet(set);
+            java.sql.ResultSet set = executeSQLQuery(sqlTargetQuery);
+            return registerUntilClosed(new SQLBooleanResultSet(set));
         } catch (SQLException e) {
             throw new OntopQueryEvaluationException(e.getMessage());
         }
@@ -201,20 +207,19 @@ public class SQLQuestStatement extends QuestStatement {
             return new EmptyTupleResultSet(executableQuery.getSignature());
         }
         try {
-            java.sql.ResultSet set = sqlStatement.executeQuery(sqlQuery);
-            return settings.isDistinctPostProcessingEnabled()
+            java.sql.ResultSet set = executeSQLQuery(sqlTargetQuery);
+            return registerUntilClosed(settings.isDistinctPostProcessingEnabled()
                     ? new SQLDistinctTupleResultSet(set, executableQuery.getSignature(), dbMetadata, iriDictionary,
                     termFactory, typeFactory, rdfFactory)
                     : new DelegatedIriSQLTupleResultSet(set, executableQuery.getSignature(), dbMetadata, iriDictionary,
-                    termFactory, typeFactory, rdfFactory);
+                    termFactory, typeFactory, rdfFactory));
         } catch (SQLException e) {
             throw new OntopQueryEvaluationException(e);
         }
     }
 
     @Override
-    protected SimpleGraphResultSet executeGraphQuery(ConstructQuery inputQuery, ExecutableQuery executableQuery,
-                                                     boolean collectResults)
+    protected SimpleGraphResultSet executeGraphQuery(ConstructQuery inputQuery, ExecutableQuery executableQuery)
             throws OntopQueryEvaluationException, OntopResultConversionException, OntopConnectionException {
         SQLExecutableQuery sqlTargetQuery = checkAndConvertTargetQuery(executableQuery);
 
@@ -227,14 +232,152 @@ public class SQLQuestStatement extends QuestStatement {
         }
         else {
             try {
-                ResultSet set = sqlStatement.executeQuery(sqlQuery);
-                tuples = new DelegatedIriSQLTupleResultSet(set, executableQuery.getSignature(), dbMetadata,
-                        iriDictionary, termFactory, typeFactory, rdfFactory);
+                ResultSet set = executeSQLQuery(sqlTargetQuery);
+                tuples = registerUntilClosed(new DelegatedIriSQLTupleResultSet(set, executableQuery.getSignature(),
+                        dbMetadata, iriDictionary, termFactory, typeFactory, rdfFactory));
             } catch (SQLException e) {
                 throw new OntopQueryEvaluationException(e.getMessage());
             }
         }
-        return new DefaultSimpleGraphResultSet(tuples, inputQuery.getConstructTemplate(), collectResults, termFactory, rdfFactory);
+        return new DefaultSimpleGraphResultSet(tuples, inputQuery.getConstructTemplate(), termFactory, rdfFactory);
+    }
+
+    /**
+     * Uses a cached prepared statement for the instances of parameterized queries.
+     *
+     * Falls back to the SQL query with inlined values if the DB rejects the prepared one.
+     *
+     * The time left before the deadline of the query is passed to the DB as query timeout.
+     *
+     * The prepared statement stays registered for cancellation after the execution
+     * (see registerUntilClosed()).
+     */
+    private ResultSet executeSQLQuery(SQLExecutableQuery sqlTargetQuery)
+            throws SQLException, OntopQueryEvaluationException {
+        currentPreparedStatement.set(null);
+        int timeout = getRemainingQueryTimeout();
+
+        if (sqlTargetQuery instanceof PreparedSQLExecutableQuery) {
+            PreparedSQLExecutableQuery preparedQuery = (PreparedSQLExecutableQuery) sqlTargetQuery;
+            String preparedSQL = preparedQuery.getPreparedSQL();
+
+            if (preparedStatementCache.isPreparable(preparedSQL)) {
+                PreparedStatement preparedStatement = preparedStatementCache.getStatement(
+                        sqlStatement.getConnection(), preparedSQL);
+                boolean executed = false;
+                try {
+                    preparedStatement.setFetchSize(sqlStatement.getFetchSize());
+                    preparedStatement.setMaxRows(sqlStatement.getMaxRows());
+                    preparedStatement.setQueryTimeout(timeout);
+
+                    if (bindParameters(preparedStatement, preparedSQL, preparedQuery.getParameterValues())) {
+                        currentPreparedStatement.set(preparedStatement);
+                        ResultSet resultSet = preparedStatement.executeQuery();
+                        executed = true;
+                        return resultSet;
+                    }
+                    log.debug("A parameter value does not match the type of its column. Values are inlined " +
+                            "for this execution of:\n{}", preparedSQL);
+                } catch (SQLTimeoutException e) {
+                    throw e;
+                } catch (SQLException e) {
+                    if (isCanceled())
+                        throw e;
+                    log.debug("Prepared query rejected by the DB ({}). Values are now inlined for:\n{}",
+                            e.getMessage(), preparedSQL);
+                    preparedStatementCache.markAsNonPreparable(preparedSQL);
+                } finally {
+                    if (!executed)
+                        currentPreparedStatement.compareAndSet(preparedStatement, null);
+                    preparedStatementCache.release(preparedStatement);
+                }
+            }
+        }
+        sqlStatement.setQueryTimeout(timeout);
+        return sqlStatement.executeQuery(sqlTargetQuery.getSQL());
+    }
+
+    /**
+     * Unregisters the prepared statement of the last execution (if any) when the result set is closed
+     */
+    private TupleResultSet registerUntilClosed(TupleResultSet resultSet) {
+        PreparedStatement preparedStatement = currentPreparedStatement.get();
+        return (preparedStatement == null)
+                ? resultSet
+                : new UnregisteringTupleResultSet(resultSet,
+                        () -> currentPreparedStatement.compareAndSet(preparedStatement, null));
+    }
+
+    private BooleanResultSet registerUntilClosed(BooleanResultSet resultSet) {
+        PreparedStatement preparedStatement = currentPreparedStatement.get();
+        return (preparedStatement == null)
+                ? resultSet
+                : new UnregisteringBooleanResultSet(resultSet,
+                        () -> currentPreparedStatement.compareAndSet(preparedStatement, null));
+    }
+
+    /**
+     * Binds the values with the JDBC types of the parameters (e.g. of the columns they are compared to),
+     * so that the DB does not have to rely on implicit casts (not supported by all the DBs,
+     * and which may prevent the use of indexes).
+     *
+     * Falls back to strings when the types are not provided by the driver.
+     *
+     * Returns false if a value cannot be converted into the type of its parameter.
+     */
+    private boolean bindParameters(PreparedStatement preparedStatement, String preparedSQL,
+                                   ImmutableList<String> values) throws SQLException {
+        Optional<int[]> types = preparedStatementCache.getParameterTypes(preparedStatement, preparedSQL)
+                .filter(t -> t.length == values.size());
+        for (int i = 0; i < values.size(); i++) {
+            try {
+                bindParameter(preparedStatement, i + 1, values.get(i),
+                        types.isPresent() ? types.get()[i] : Types.VARCHAR);
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Throws an IllegalArgumentException (incl. NumberFormatException) if the value cannot be converted
+     */
+    private static void bindParameter(PreparedStatement preparedStatement, int index, String value, int type)
+            throws SQLException {
+        switch (type) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                preparedStatement.setInt(index, Integer.parseInt(value));
+                break;
+            case Types.BIGINT:
+                preparedStatement.setLong(index, Long.parseLong(value));
+                break;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                preparedStatement.setBigDecimal(index, new java.math.BigDecimal(value));
+                break;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                preparedStatement.setDouble(index, Double.parseDouble(value));
+                break;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false"))
+                    throw new IllegalArgumentException("Not a boolean: " + value);
+                preparedStatement.setBoolean(index, Boolean.parseBoolean(value));
+                break;
+            case Types.DATE:
+                preparedStatement.setDate(index, Date.valueOf(value));
+                break;
+            case Types.TIMESTAMP:
+                preparedStatement.setTimestamp(index, Timestamp.valueOf(value));
+                break;
+            default:
+                preparedStatement.setString(index, value);
+        }
     }
 
     private SQLExecutableQuery checkAndConvertTargetQuery(ExecutableQuery executableQuery) {
@@ -243,4 +386,80 @@ public class SQLQuestStatement extends QuestStatement {
         }
         return (SQLExecutableQuery) executableQuery;
     }
+
+    /**
+     * Runs onClose once the result set is closed
+     */
+    private static class UnregisteringTupleResultSet implements TupleResultSet {
+
+        private final TupleResultSet resultSet;
+        private final Runnable onClose;
+
+        UnregisteringTupleResultSet(TupleResultSet resultSet, Runnable onClose) {
+            this.resultSet = resultSet;
+            this.onClose = onClose;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return resultSet.getColumnCount();
+        }
+
+        @Override
+        public List<String> getSignature() throws OntopConnectionException {
+            return resultSet.getSignature();
+        }
+
+        @Override
+        public int getFetchSize() throws OntopConnectionException {
+            return resultSet.getFetchSize();
+        }
+
+        @Override
+        public boolean hasNext() throws OntopConnectionException, OntopResultConversionException {
+            return resultSet.hasNext();
+        }
+
+        @Override
+        public OntopBindingSet next() throws OntopConnectionException, OntopResultConversionException {
+            return resultSet.next();
+        }
+
+        @Override
+        public void close() throws OntopConnectionException {
+            try {
+                resultSet.close();
+            } finally {
+                onClose.run();
+            }
+        }
+    }
+
+    /**
+     * Runs onClose once the result set is closed
+     */
+    private static class UnregisteringBooleanResultSet implements BooleanResultSet {
+
+        private final BooleanResultSet resultSet;
+        private final Runnable onClose;
+
+        UnregisteringBooleanResultSet(BooleanResultSet resultSet, Runnable onClose) {
+            this.resultSet = resultSet;
+            this.onClose = onClose;
+        }
+
+        @Override
+        public boolean getValue() throws OntopConnectionException {
+            return resultSet.getValue();
+        }
+
+        @Override
+        public void close() throws OntopConnectionException {
+            try {
+                resultSet.close();
+            } finally {
+                onClose.run();
+            }
+        }
+    }
 }
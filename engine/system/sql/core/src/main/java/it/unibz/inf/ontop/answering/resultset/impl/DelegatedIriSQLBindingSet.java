@@ -8,17 +8,30 @@ import it.unibz.inf.ontop.exception.OntopResultConversionException;
 import it.unibz.inf.ontop.model.term.Constant;
 
 import javax.annotation.Nullable;
-import java.util.List;
 
+/**
+ * Points to a row of the current batch of its result set, until the batch is reused for the next rows.
+ * The constants of the row are then copied (see detach()).
+ */
 public class DelegatedIriSQLBindingSet extends AbstractOntopBindingSet implements OntopBindingSet {
 
     private final JDBC2ConstantConverter constantRetriever;
-    private final List<MainTypeLangValues> row;
+    // Null once detached
+    @Nullable
+    private SQLRowBatch batch;
+    // 0-based
+    private final int row;
     private final ImmutableMap<String, Integer> columnMap;
+    // Only once detached
+    @Nullable
+    private Constant[] constants;
+    @Nullable
+    private OntopResultConversionException[] conversionExceptions;
 
-    public DelegatedIriSQLBindingSet(List<MainTypeLangValues> row, ImmutableList<String> signature, ImmutableMap<String, Integer> columnMap,
-                                     JDBC2ConstantConverter constantRetriever) {
+    DelegatedIriSQLBindingSet(SQLRowBatch batch, int row, ImmutableList<String> signature,
+                              ImmutableMap<String, Integer> columnMap, JDBC2ConstantConverter constantRetriever) {
         super(signature);
+        this.batch = batch;
         this.row = row;
         this.constantRetriever = constantRetriever;
         this.columnMap = columnMap;
@@ -40,7 +53,39 @@ public class DelegatedIriSQLBindingSet extends AbstractOntopBindingSet implement
         return variableName2BindingMap.isPresent()?
                 variableName2BindingMap.get().containsKey(bindingName):
                 signature.contains(bindingName) &&
-                        row.get(columnMap.get(bindingName) - 1).getMainValue() != null;
+                        !isNull(columnMap.get(bindingName));
+    }
+
+    /**
+     * Called before the batch is reused: the constants of the row are created (if not already)
+     * and kept by the binding set.
+     */
+    void detach() {
+        if (batch == null)
+            return;
+        int columnCount = signature.size();
+        Constant[] rowConstants = new Constant[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            try {
+                rowConstants[i] = batch.getConstant(row, i, constantRetriever);
+            } catch (OntopResultConversionException e) {
+                if (conversionExceptions == null)
+                    conversionExceptions = new OntopResultConversionException[columnCount];
+                conversionExceptions[i] = e;
+            }
+        }
+        constants = rowConstants;
+        batch = null;
+    }
+
+    /**
+     * @param column 1-based
+     */
+    private boolean isNull(int column) {
+        return batch != null
+                ? batch.isNull(row, column - 1)
+                : (constants[column - 1] == null)
+                    && (conversionExceptions == null || conversionExceptions[column - 1] == null);
     }
 
     /***
@@ -49,12 +94,11 @@ public class DelegatedIriSQLBindingSet extends AbstractOntopBindingSet implement
     @Override
     @Nullable
     public Constant getConstant(int column) throws OntopResultConversionException {
-        final MainTypeLangValues cell = row.get(column - 1);
-        if (cell.getMainValue() == null) {
-            return null;
-        } else {
-            return constantRetriever.getConstantFromJDBC(cell);
-        }
+        if (batch != null)
+            return batch.getConstant(row, column - 1, constantRetriever);
+        if (conversionExceptions != null && conversionExceptions[column - 1] != null)
+            throw conversionExceptions[column - 1];
+        return constants[column - 1];
     }
 
     @Override
@@ -72,11 +116,10 @@ public class DelegatedIriSQLBindingSet extends AbstractOntopBindingSet implement
     }
 
     private OntopBinding computeBinding(int column) {
-        final MainTypeLangValues cell = row.get(column - 1);
-        if (cell.getMainValue() == null) {
+        if (isNull(column)) {
             return null;
         } else {
-            return new SQLOntopBinding(signature.get(column - 1), cell, constantRetriever);
+            return new SQLOntopBinding(signature.get(column - 1), this, column);
         }
     }
 }
@@ -32,8 +32,10 @@ import it.unibz.inf.ontop.model.type.TypeFactory;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
 import org.apache.commons.rdf.api.RDF;
 
+import javax.annotation.Nullable;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -44,8 +46,21 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class DelegatedIriSQLTupleResultSet extends AbstractSQLTupleResultSet implements TupleResultSet {
 
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int MAX_BATCH_SIZE = 1000;
+
     private final ImmutableMap<String, Integer> columnMap;
     protected final JDBC2ConstantConverter ontopConstantRetriever;
+    private final SQLRowBatch.ColumnTypeResolver typeResolver;
+
+    // Reused from one batch to the next
+    @Nullable
+    private SQLRowBatch currentBatch;
+    // Binding sets pointing to the current batch
+    private final List<DelegatedIriSQLBindingSet> issuedBindingSets;
+    // 0-based, in the current batch
+    private int currentRow;
+    private boolean isSQLResultSetExhausted;
 
     public DelegatedIriSQLTupleResultSet(ResultSet rs, ImmutableList<String> signature, DBMetadata dbMetadata,
                                          Optional<IRIDictionary> iriDictionary, TermFactory termFactory,
@@ -54,17 +69,79 @@ public class DelegatedIriSQLTupleResultSet extends AbstractSQLTupleResultSet imp
         this.columnMap = buildColumnMap();
         this.ontopConstantRetriever = new JDBC2ConstantConverter(dbMetadata, iriDictionary, termFactory, typeFactory,
                 rdfFactory);
+        this.typeResolver = new SQLRowBatch.ColumnTypeResolver(signature.size());
+        this.currentBatch = null;
+        this.issuedBindingSets = new ArrayList<>();
+        this.currentRow = -1;
+        this.isSQLResultSetExhausted = false;
     }
 
+    /**
+     * Rows are read from the JDBC result set by batches (of the size of the fetch size, when set)
+     */
     @Override
-    protected DelegatedIriSQLBindingSet readCurrentRow() throws OntopConnectionException {
-        SQLRowReader rowReader = new SQLRowReader();
-        try {
-            final List<MainTypeLangValues> cells = rowReader.read(rs, getColumnCount());
-            return new DelegatedIriSQLBindingSet(cells, signature, columnMap, ontopConstantRetriever);
-        } catch (SQLException e) {
-            throw new OntopConnectionException(e);
+    protected boolean moveCursor() throws SQLException, OntopConnectionException {
+        if (currentBatch != null && currentRow + 1 < currentBatch.size()) {
+            currentRow++;
+            return true;
+        }
+        if (isSQLResultSetExhausted)
+            return false;
+
+        currentBatch = readBatch();
+        currentRow = 0;
+        return currentBatch.size() > 0;
+    }
+
+    /**
+     * The binding sets pointing to the previous batch are detached before its buffers are reused
+     */
+    private SQLRowBatch readBatch() throws SQLException {
+        SQLRowBatch batch;
+        if (currentBatch == null) {
+            batch = new SQLRowBatch(SQLRowBatch.getValueKinds(rs.getMetaData(), getColumnCount()), getBatchSize());
+        }
+        else {
+            issuedBindingSets.forEach(DelegatedIriSQLBindingSet::detach);
+            issuedBindingSets.clear();
+            batch = currentBatch;
+            batch.clear();
+        }
+
+        while (!batch.isFull()) {
+            if (!rs.next()) {
+                isSQLResultSetExhausted = true;
+                break;
+            }
+            batch.readRow(rs, typeResolver);
+            if (isFreshRow(batch, batch.size()))
+                batch.commitRow();
         }
+        return batch;
+    }
+
+    private int getBatchSize() throws SQLException {
+        int fetchSize = rs.getFetchSize();
+        return fetchSize > 0
+                ? Math.min(fetchSize, MAX_BATCH_SIZE)
+                : DEFAULT_BATCH_SIZE;
+    }
+
+    /**
+     * Can be overwritten to ensure distinct rows
+     *
+     * @param row 0-based, not yet committed
+     */
+    protected boolean isFreshRow(SQLRowBatch batch, int row) {
+        return true;
+    }
+
+    @Override
+    protected DelegatedIriSQLBindingSet readCurrentRow() throws OntopConnectionException {
+        DelegatedIriSQLBindingSet bindingSet = new DelegatedIriSQLBindingSet(currentBatch, currentRow, signature,
+                columnMap, ontopConstantRetriever);
+        issuedBindingSets.add(bindingSet);
+        return bindingSet;
     }
 
     private ImmutableMap<String, Integer> buildColumnMap() {
@@ -13,6 +13,7 @@ import it.unibz.inf.ontop.model.vocabulary.XSD;
 import org.apache.commons.lang3.time.DateUtils;
 import org.apache.commons.rdf.api.RDF;
 
+import javax.annotation.Nullable;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.net.URISyntaxException;
@@ -117,23 +118,81 @@ public class JDBC2ConstantConverter {
         return DEFAULT;
     }
 
-    public Constant getConstantFromJDBC(MainTypeLangValues cell) throws OntopResultConversionException {
+    /**
+     * For values read with ResultSet.getLong(): the lexical value is built without going through a boxed object
+     *
+     * @param type resolved from the type code (null if unknown)
+     */
+    public Constant getConstantFromLong(long value, int typeCode, @Nullable COL_TYPE type,
+                                        @Nullable String language) throws OntopResultConversionException {
+        if (type != null) {
+            switch (type) {
+                case INT:
+                    return termFactory.getConstantLiteral(Long.toString(value), XSD.INT);
+                case LONG:
+                    return termFactory.getConstantLiteral(Long.toString(value), XSD.LONG);
+                case UNSIGNED_INT:
+                    return termFactory.getConstantLiteral(Long.toString(value), XSD.UNSIGNED_INT);
+                case INTEGER:
+                    return termFactory.getConstantLiteral(Long.toString(value), XSD.INTEGER);
+                case NEGATIVE_INTEGER:
+                    return termFactory.getConstantLiteral(Long.toString(value), XSD.NEGATIVE_INTEGER);
+                case NON_NEGATIVE_INTEGER:
+                    return termFactory.getConstantLiteral(Long.toString(value), XSD.NON_NEGATIVE_INTEGER);
+                case POSITIVE_INTEGER:
+                    return termFactory.getConstantLiteral(Long.toString(value), XSD.POSITIVE_INTEGER);
+                case NON_POSITIVE_INTEGER:
+                    return termFactory.getConstantLiteral(Long.toString(value), XSD.NON_POSITIVE_INTEGER);
+            }
+        }
+        return getConstantFromJDBC(Long.toString(value), typeCode, type, language);
+    }
+
+    /**
+     * For values read with ResultSet.getDouble() or getFloat()
+     *
+     * @param isFloat true if the value has been read as a float (single precision)
+     * @param type resolved from the type code (null if unknown)
+     */
+    public Constant getConstantFromDouble(double value, boolean isFloat, int typeCode, @Nullable COL_TYPE type,
+                                          @Nullable String language) throws OntopResultConversionException {
+        String stringValue = isFloat ? Float.toString((float) value) : Double.toString(value);
+        if ((type == COL_TYPE.FLOAT || type == COL_TYPE.DOUBLE) && !Double.isNaN(value) && !Double.isInfinite(value)) {
+            BigDecimal bigDecimal = isFloat ? new BigDecimal(stringValue) : BigDecimal.valueOf(value);
+            return termFactory.getConstantLiteral(extractFloatingValue(bigDecimal),
+                    type == COL_TYPE.FLOAT ? XSD.FLOAT : XSD.DOUBLE);
+        }
+        return getConstantFromJDBC(stringValue, typeCode, type, language);
+    }
+
+    /**
+     * For values read with ResultSet.getBoolean()
+     *
+     * @param type resolved from the type code (null if unknown)
+     */
+    public Constant getConstantFromBoolean(boolean value, int typeCode, @Nullable COL_TYPE type,
+                                           @Nullable String language) throws OntopResultConversionException {
+        return type == COL_TYPE.BOOLEAN
+                ? termFactory.getBooleanConstant(value)
+                : getConstantFromJDBC(Boolean.toString(value), typeCode, type, language);
+    }
+
+    /**
+     * @param type resolved from the type code (null if unknown)
+     */
+    public Constant getConstantFromJDBC(@Nullable Object value, int typeCode, @Nullable COL_TYPE type,
+                                        @Nullable String language) throws OntopResultConversionException {
 
-        Object value = "";
         String stringValue;
 
         try {
-            value = cell.getMainValue();
-
             if (value == null) {
                 return null;
             }
             stringValue = String.valueOf(value);
 
-            int t = cell.getTypeValue();
-            COL_TYPE type = COL_TYPE.getQuestType(t);
             if (type == null)
-                throw new OntopResultConversionException("typeCode unknown: " + t);
+                throw new OntopResultConversionException("typeCode unknown: " + typeCode);
 
             switch (type) {
                 case UNSUPPORTED:
@@ -164,7 +223,6 @@ public class JDBC2ConstantConverter {
                     // The constant is a literal, we need to find if its
                     // rdfs:Literal or a normal literal and construct it
                     // properly.
-                    String language = cell.getLangValue();
                     if (language == null || language.trim().equals(""))
                         return termFactory.getConstantLiteral(stringValue);
                     else
@@ -256,6 +314,10 @@ public class JDBC2ConstantConverter {
         catch (NumberFormatException e){
             return stringValue;
         }
+        return extractFloatingValue(bigDecimal);
+    }
+
+    private String extractFloatingValue(BigDecimal bigDecimal) {
         DecimalFormat formatter = new DecimalFormat("0.0E0");
         formatter.setRoundingMode(RoundingMode.UNNECESSARY);
         formatter.setMaximumFractionDigits((bigDecimal.scale() > 0) ? bigDecimal.precision() -1 : bigDecimal.precision() -1 + bigDecimal.scale() *-1);
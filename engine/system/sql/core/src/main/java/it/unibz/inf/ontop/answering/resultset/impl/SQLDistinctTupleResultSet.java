@@ -23,14 +23,12 @@ package it.unibz.inf.ontop.answering.resultset.impl;
 import com.google.common.collect.ImmutableList;
 import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
 import it.unibz.inf.ontop.dbschema.DBMetadata;
-import it.unibz.inf.ontop.exception.OntopConnectionException;
 import it.unibz.inf.ontop.answering.reformulation.IRIDictionary;
 import it.unibz.inf.ontop.model.term.TermFactory;
 import it.unibz.inf.ontop.model.type.TypeFactory;
 import org.apache.commons.rdf.api.RDF;
 
 import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.*;
 
 /**
@@ -52,42 +50,21 @@ public class SQLDistinctTupleResultSet extends DelegatedIriSQLTupleResultSet imp
     }
 
     /**
-     * Moves cursor until we get a fresh row
+     * Skips the rows already seen
      */
     @Override
-    protected boolean moveCursor() throws SQLException, OntopConnectionException {
-        boolean foundFreshRow;
-        List<Object> currentKey;
-        do{
-           foundFreshRow = rs.next();
-           // Cannot use this in the while condition: limit case where the last row was a duplicate
-           if(!foundFreshRow) {
-               break;
-           }
-           currentKey = computeRowKey(rs);
-        } while(!rowKeys.add(currentKey));
-
-        return foundFreshRow;
+    protected boolean isFreshRow(SQLRowBatch batch, int row) {
+        return rowKeys.add(computeRowKey(batch, row));
     }
 
-    private List<Object> computeRowKey(ResultSet rs) throws OntopConnectionException {
-
-        ArrayList rowKey = new ArrayList<>();
-        for (int i = 1; i <= getSignature().size();  i ++ ) {
-            int column = i * 3;
-            rowKey.add(getRawObject(column-2));  //type
-            rowKey.add(getRawObject(column-1)); //lang
-            rowKey.add(getRawObject(column)); //value
+    private List<Object> computeRowKey(SQLRowBatch batch, int row) {
+        int columnCount = getSignature().size();
+        List<Object> rowKey = new ArrayList<>(3 * columnCount);
+        for (int column = 0; column < columnCount; column++) {
+            rowKey.add(batch.getTypeCode(row, column));
+            rowKey.add(batch.getLangValue(row, column));
+            rowKey.add(batch.getMainValueKey(row, column));
         }
         return rowKey;
     }
-
-    Object getRawObject(int column) throws OntopConnectionException {
-        try {
-            Object realValue = rs.getObject(column);
-            return realValue;
-        } catch (Exception e) {
-            throw new OntopConnectionException(e);
-        }
-    }
 }
@@ -7,13 +7,14 @@ import it.unibz.inf.ontop.model.term.Constant;
 public class SQLOntopBinding implements OntopBinding {
 
     private final String name;
-    private final JDBC2ConstantConverter constantRetriever;
-    private final MainTypeLangValues cell;
+    private final DelegatedIriSQLBindingSet bindingSet;
+    // 1-based
+    private final int column;
 
-    public SQLOntopBinding(String name, MainTypeLangValues cell, JDBC2ConstantConverter constantRetriever){
+    SQLOntopBinding(String name, DelegatedIriSQLBindingSet bindingSet, int column){
         this.name = name;
-        this.cell = cell;
-        this.constantRetriever = constantRetriever;
+        this.bindingSet = bindingSet;
+        this.column = column;
     }
     
     @Override
@@ -23,7 +24,7 @@ public class SQLOntopBinding implements OntopBinding {
 
     @Override
     public Constant getValue() throws OntopResultConversionException {
-        return constantRetriever.getConstantFromJDBC(cell);
+        return bindingSet.getConstant(column);
     }
 
     @Override
@@ -43,14 +44,14 @@ public class SQLOntopBinding implements OntopBinding {
         SQLOntopBinding that = (SQLOntopBinding) o;
 
         if (!getName().equals(that.getName())) return false;
-        if (!constantRetriever.equals(that.constantRetriever)) return false;
-        return cell.equals(that.cell);
+        return bindingSet == that.bindingSet && column == that.column;
     }
 
     @Override
     public int hashCode() {
         int result = getName().hashCode();
-        result = 31 * result + cell.hashCode();
+        result = 31 * result + System.identityHashCode(bindingSet);
+        result = 31 * result + column;
         return result;
     }
 }
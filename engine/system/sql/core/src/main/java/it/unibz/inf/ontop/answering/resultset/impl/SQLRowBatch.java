@@ -0,0 +1,313 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import it.unibz.inf.ontop.answering.reformulation.generation.utils.COL_TYPE;
+import it.unibz.inf.ontop.exception.OntopResultConversionException;
+import it.unibz.inf.ontop.model.term.Constant;
+
+import javax.annotation.Nullable;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Batch of rows read from a JDBC result set, stored column by column in flat arrays
+ * (index: row * columnCount + column).
+ *
+ * Each variable corresponds to three SQL columns (type, lang and main value).
+ * The lang column is only read for language-tagged strings.
+ *
+ * The main values are read with the getter matching the SQL type of their column (see ValueKind):
+ * integers, floating-point numbers and booleans are stored unboxed and are directly converted into constants,
+ * without going through their string representation.
+ *
+ * Constants are only created when accessed (and then memoized).
+ *
+ * The buffers are reused from one batch to the next (see clear()): the binding sets pointing to
+ * the rows of the batch must be detached before.
+ */
+final class SQLRowBatch {
+
+    /**
+     * How the main values of a column are read and stored
+     */
+    enum ValueKind {
+        LONG,
+        DOUBLE,
+        FLOAT,
+        BOOLEAN,
+        STRING,
+        // E.g. dates and decimals
+        OBJECT
+    }
+
+    private final int columnCount;
+    private final int capacity;
+    private final ValueKind[] valueKinds;
+
+    private final int[] typeCodes;
+    // Null when the type code is unknown
+    private final COL_TYPE[] types;
+    private final String[] langValues;
+    private final boolean[] nulls;
+    private final long[] longValues;
+    private final double[] doubleValues;
+    private final boolean[] booleanValues;
+    private final String[] stringValues;
+    private final Object[] objectValues;
+
+    private final Constant[] constants;
+    private final boolean[] converted;
+
+    private int size;
+
+    SQLRowBatch(ValueKind[] valueKinds, int capacity) {
+        this.columnCount = valueKinds.length;
+        this.capacity = capacity;
+        this.valueKinds = valueKinds;
+        int cellCount = columnCount * capacity;
+        this.typeCodes = new int[cellCount];
+        this.types = new COL_TYPE[cellCount];
+        this.langValues = new String[cellCount];
+        this.nulls = new boolean[cellCount];
+        this.longValues = hasKind(valueKinds, ValueKind.LONG) ? new long[cellCount] : null;
+        this.doubleValues = (hasKind(valueKinds, ValueKind.DOUBLE) || hasKind(valueKinds, ValueKind.FLOAT))
+                ? new double[cellCount] : null;
+        this.booleanValues = hasKind(valueKinds, ValueKind.BOOLEAN) ? new boolean[cellCount] : null;
+        this.stringValues = hasKind(valueKinds, ValueKind.STRING) ? new String[cellCount] : null;
+        this.objectValues = hasKind(valueKinds, ValueKind.OBJECT) ? new Object[cellCount] : null;
+        this.constants = new Constant[cellCount];
+        this.converted = new boolean[cellCount];
+        this.size = 0;
+    }
+
+    private static boolean hasKind(ValueKind[] valueKinds, ValueKind kind) {
+        for (ValueKind k : valueKinds) {
+            if (k == kind)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Determined once per result set, from the SQL types of the main columns
+     */
+    static ValueKind[] getValueKinds(ResultSetMetaData metadata, int columnCount) throws SQLException {
+        ValueKind[] kinds = new ValueKind[columnCount];
+        for (int column = 0; column < columnCount; column++) {
+            switch (metadata.getColumnType(3 * column + 3)) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                    kinds[column] = ValueKind.LONG;
+                    break;
+                case Types.DOUBLE:
+                case Types.FLOAT:
+                    kinds[column] = ValueKind.DOUBLE;
+                    break;
+                case Types.REAL:
+                    kinds[column] = ValueKind.FLOAT;
+                    break;
+                case Types.BOOLEAN:
+                case Types.BIT:
+                    kinds[column] = ValueKind.BOOLEAN;
+                    break;
+                case Types.CHAR:
+                case Types.VARCHAR:
+                case Types.LONGVARCHAR:
+                case Types.NCHAR:
+                case Types.NVARCHAR:
+                case Types.LONGNVARCHAR:
+                    kinds[column] = ValueKind.STRING;
+                    break;
+                default:
+                    kinds[column] = ValueKind.OBJECT;
+            }
+        }
+        return kinds;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * Empties the batch, so that its buffers can be reused for the next rows
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Reads the current row of the result set into the next free slot.
+     *
+     * The row is only part of the batch after calling commitRow().
+     */
+    void readRow(ResultSet rs, ColumnTypeResolver typeResolver) throws SQLException {
+        int offset = size * columnCount;
+        for (int column = 0; column < columnCount; column++) {
+            int cell = offset + column;
+            int mainColumnIndex = 3 * column + 3;
+            int typeColumnIndex = 3 * column + 1;
+            int langColumnIndex = 3 * column + 2;
+
+            int typeCode = rs.getInt(typeColumnIndex);
+            COL_TYPE type = typeResolver.resolve(column, typeCode);
+
+            typeCodes[cell] = typeCode;
+            types[cell] = type;
+            readMainValue(rs, mainColumnIndex, valueKinds[column], cell);
+            langValues[cell] = (type == COL_TYPE.LANG_STRING)
+                    ? rs.getString(langColumnIndex)
+                    : null;
+            constants[cell] = null;
+            converted[cell] = false;
+        }
+    }
+
+    private void readMainValue(ResultSet rs, int columnIndex, ValueKind kind, int cell) throws SQLException {
+        switch (kind) {
+            case LONG:
+                longValues[cell] = rs.getLong(columnIndex);
+                nulls[cell] = rs.wasNull();
+                break;
+            case DOUBLE:
+                doubleValues[cell] = rs.getDouble(columnIndex);
+                nulls[cell] = rs.wasNull();
+                break;
+            case FLOAT:
+                doubleValues[cell] = rs.getFloat(columnIndex);
+                nulls[cell] = rs.wasNull();
+                break;
+            case BOOLEAN:
+                booleanValues[cell] = rs.getBoolean(columnIndex);
+                nulls[cell] = rs.wasNull();
+                break;
+            case STRING:
+                String stringValue = rs.getString(columnIndex);
+                stringValues[cell] = stringValue;
+                nulls[cell] = stringValue == null;
+                break;
+            default:
+                Object value = rs.getObject(columnIndex);
+                objectValues[cell] = value;
+                nulls[cell] = value == null;
+        }
+    }
+
+    void commitRow() {
+        size++;
+    }
+
+    /**
+     * Row and column are 0-based
+     */
+    boolean isNull(int row, int column) {
+        return nulls[row * columnCount + column];
+    }
+
+    /**
+     * Boxed main value, for comparing rows (null for NULL)
+     */
+    @Nullable
+    Object getMainValueKey(int row, int column) {
+        int cell = row * columnCount + column;
+        if (nulls[cell])
+            return null;
+        switch (valueKinds[column]) {
+            case LONG:
+                return longValues[cell];
+            case DOUBLE:
+            case FLOAT:
+                return doubleValues[cell];
+            case BOOLEAN:
+                return booleanValues[cell];
+            case STRING:
+                return stringValues[cell];
+            default:
+                return objectValues[cell];
+        }
+    }
+
+    int getTypeCode(int row, int column) {
+        return typeCodes[row * columnCount + column];
+    }
+
+    @Nullable
+    String getLangValue(int row, int column) {
+        return langValues[row * columnCount + column];
+    }
+
+    /**
+     * Row and column are 0-based
+     */
+    @Nullable
+    Constant getConstant(int row, int column, JDBC2ConstantConverter converter)
+            throws OntopResultConversionException {
+        int cell = row * columnCount + column;
+        if (!converted[cell]) {
+            constants[cell] = convert(cell, valueKinds[column], converter);
+            converted[cell] = true;
+        }
+        return constants[cell];
+    }
+
+    @Nullable
+    private Constant convert(int cell, ValueKind kind, JDBC2ConstantConverter converter)
+            throws OntopResultConversionException {
+        if (nulls[cell])
+            return null;
+        switch (kind) {
+            case LONG:
+                return converter.getConstantFromLong(longValues[cell], typeCodes[cell], types[cell], langValues[cell]);
+            case DOUBLE:
+                return converter.getConstantFromDouble(doubleValues[cell], false, typeCodes[cell], types[cell],
+                        langValues[cell]);
+            case FLOAT:
+                return converter.getConstantFromDouble(doubleValues[cell], true, typeCodes[cell], types[cell],
+                        langValues[cell]);
+            case BOOLEAN:
+                return converter.getConstantFromBoolean(booleanValues[cell], typeCodes[cell], types[cell],
+                        langValues[cell]);
+            case STRING:
+                return converter.getConstantFromJDBC(stringValues[cell], typeCodes[cell], types[cell],
+                        langValues[cell]);
+            default:
+                return converter.getConstantFromJDBC(objectValues[cell], typeCodes[cell], types[cell],
+                        langValues[cell]);
+        }
+    }
+
+
+    /**
+     * Resolves the COL_TYPE of the type codes, column by column.
+     *
+     * The type code of a column is usually constant: the last resolution is reused.
+     */
+    static class ColumnTypeResolver {
+        private final int[] lastTypeCodes;
+        private final COL_TYPE[] lastTypes;
+
+        ColumnTypeResolver(int columnCount) {
+            this.lastTypeCodes = new int[columnCount];
+            this.lastTypes = new COL_TYPE[columnCount];
+        }
+
+        @Nullable
+        COL_TYPE resolve(int column, int typeCode) {
+            COL_TYPE lastType = lastTypes[column];
+            if (lastType != null && lastTypeCodes[column] == typeCode)
+                return lastType;
+
+            COL_TYPE type = COL_TYPE.getQuestType(typeCode);
+            lastTypeCodes[column] = typeCode;
+            lastTypes[column] = type;
+            return type;
+        }
+    }
+}
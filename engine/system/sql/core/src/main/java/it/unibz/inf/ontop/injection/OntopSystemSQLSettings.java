@@ -14,6 +14,13 @@ public interface OntopSystemSQLSettings extends OntopSystemSettings, OntopReform
     int getConnectionPoolInitialSize();
     int getConnectionPoolMaxSize();
 
+    /**
+     * Maximum number of prepared statements cached per connection (0 disables them).
+     *
+     * Prepared statements are used for the parameterized queries (see OntopReformulationSettings).
+     */
+    int getPreparedStatementCacheSize();
+
     //--------------------------
     // Keys
     //--------------------------
@@ -24,4 +31,5 @@ public interface OntopSystemSQLSettings extends OntopSystemSettings, OntopReform
     // Connection timeout (in ms)
     String CONNECTION_TIMEOUT = "jdbc.pool.connectionTimeout";
     String KEEP_ALIVE = "jdbc.pool.keepAlive";
+    String PREPARED_STATEMENT_CACHE_SIZE = "jdbc.preparedStatementCacheSize";
 }
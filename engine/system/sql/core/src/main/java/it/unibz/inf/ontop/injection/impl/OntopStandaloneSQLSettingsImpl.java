@@ -3,6 +3,7 @@ package it.unibz.inf.ontop.injection.impl;
 import it.unibz.inf.ontop.injection.OntopStandaloneSQLSettings;
 import it.unibz.inf.ontop.injection.OntopSystemSQLSettings;
 
+import java.util.Optional;
 import java.util.Properties;
 
 
@@ -36,6 +37,41 @@ public class OntopStandaloneSQLSettingsImpl extends OntopMappingSQLAllSettingsIm
         return systemSettings.isIRISafeEncodingEnabled();
     }
 
+    @Override
+    public int getQueryCacheMaxSize() {
+        return systemSettings.getQueryCacheMaxSize();
+    }
+
+    @Override
+    public long getQueryCacheMaxWeight() {
+        return systemSettings.getQueryCacheMaxWeight();
+    }
+
+    @Override
+    public boolean isQueryParameterizationEnabled() {
+        return systemSettings.isQueryParameterizationEnabled();
+    }
+
+    @Override
+    public boolean isReformulationMetricsEnabled() {
+        return systemSettings.isReformulationMetricsEnabled();
+    }
+
+    @Override
+    public boolean isReformulationMetricsJMXEnabled() {
+        return systemSettings.isReformulationMetricsJMXEnabled();
+    }
+
+    @Override
+    public Optional<Integer> getPropertyPathMaxDepth() {
+        return systemSettings.getPropertyPathMaxDepth();
+    }
+
+    @Override
+    public int getPropertyPathUnrollingDepth() {
+        return systemSettings.getPropertyPathUnrollingDepth();
+    }
+
     @Override
     public boolean isKeepAliveEnabled() {
         return systemSettings.isKeepAliveEnabled();
@@ -61,8 +97,33 @@ public class OntopStandaloneSQLSettingsImpl extends OntopMappingSQLAllSettingsIm
         return systemSettings.getConnectionPoolMaxSize();
     }
 
+    @Override
+    public int getPreparedStatementCacheSize() {
+        return systemSettings.getPreparedStatementCacheSize();
+    }
+
     @Override
     public boolean isPermanentDBConnectionEnabled() {
         return systemSettings.isPermanentDBConnectionEnabled();
     }
+
+    @Override
+    public int getMaxConcurrentQueries() {
+        return systemSettings.getMaxConcurrentQueries();
+    }
+
+    @Override
+    public int getQueryQueueSize() {
+        return systemSettings.getQueryQueueSize();
+    }
+
+    @Override
+    public QueryRejectionPolicy getQueryRejectionPolicy() {
+        return systemSettings.getQueryRejectionPolicy();
+    }
+
+    @Override
+    public int getDefaultQueryTimeout() {
+        return systemSettings.getDefaultQueryTimeout();
+    }
 }
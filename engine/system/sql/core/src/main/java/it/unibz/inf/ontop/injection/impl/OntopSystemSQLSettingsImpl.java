@@ -61,11 +61,36 @@ public class OntopSystemSQLSettingsImpl extends OntopReformulationSQLSettingsImp
         return getRequiredInteger(MAX_POOL_SIZE);
     }
 
+    @Override
+    public int getPreparedStatementCacheSize() {
+        return getRequiredInteger(PREPARED_STATEMENT_CACHE_SIZE);
+    }
+
     @Override
     public boolean isPermanentDBConnectionEnabled() {
         return systemSettings.isPermanentDBConnectionEnabled();
     }
 
+    @Override
+    public int getMaxConcurrentQueries() {
+        return systemSettings.getMaxConcurrentQueries();
+    }
+
+    @Override
+    public int getQueryQueueSize() {
+        return systemSettings.getQueryQueueSize();
+    }
+
+    @Override
+    public QueryRejectionPolicy getQueryRejectionPolicy() {
+        return systemSettings.getQueryRejectionPolicy();
+    }
+
+    @Override
+    public int getDefaultQueryTimeout() {
+        return systemSettings.getDefaultQueryTimeout();
+    }
+
     @Override
     public String getJdbcUser() {
         return sqlCredentialSettings.getJdbcUser();
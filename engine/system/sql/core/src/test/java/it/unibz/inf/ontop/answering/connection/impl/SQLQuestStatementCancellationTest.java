@@ -0,0 +1,198 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Injector;
+import it.unibz.inf.ontop.answering.reformulation.impl.PreparedSQLExecutableQuery;
+import it.unibz.inf.ontop.answering.resultset.BooleanResultSet;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.dbschema.DBMetadata;
+import it.unibz.inf.ontop.dbschema.DummyRDBMetadata;
+import it.unibz.inf.ontop.injection.OntopStandaloneSQLConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSQLSettings;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.model.type.TypeFactory;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Cancellation of the prepared statements executing the instances of parameterized queries, on H2.
+ *
+ * The prepared statements created through the connection count their calls to cancel().
+ */
+public class SQLQuestStatementCancellationTest {
+
+    private static final String OBDA_FILE = "src/test/resources/marriage/marriage.obda";
+    private static final String URL = "jdbc:h2:mem:sqlqueststatementcancellationdb";
+    private static final String USERNAME = "sa";
+    private static final String PASSWORD = "";
+    private static final int ROW_COUNT = 50;
+
+    // Integer type code (see COL_TYPE)
+    private static final String PREPARED_QUERY = "SELECT 4 AS \"vType\", CAST(NULL AS VARCHAR) AS \"vLang\", " +
+            "\"id\" AS \"v\" FROM \"item\" WHERE \"id\" > ? ORDER BY \"id\"";
+    private static final String INLINED_QUERY = PREPARED_QUERY.replace("?", "0");
+    private static final ImmutableList<String> SIGNATURE = ImmutableList.of("v");
+
+    private static Connection CONNECTION;
+    private static OntopSystemSQLSettings SETTINGS;
+    private static TermFactory TERM_FACTORY;
+    private static TypeFactory TYPE_FACTORY;
+    private static RDF RDF_FACTORY;
+    private static DBMetadata DB_METADATA;
+
+    private final AtomicInteger preparedStatementCancellations = new AtomicInteger(0);
+    private SQLQuestStatement statement;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        OntopStandaloneSQLConfiguration configuration = OntopStandaloneSQLConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(OBDA_FILE)
+                .jdbcUrl(URL)
+                .jdbcUser(USERNAME)
+                .jdbcPassword(PASSWORD)
+                .enableTestMode()
+                .build();
+        SETTINGS = configuration.getSettings();
+        Injector injector = configuration.getInjector();
+        TERM_FACTORY = injector.getInstance(TermFactory.class);
+        TYPE_FACTORY = injector.getInstance(TypeFactory.class);
+        RDF_FACTORY = injector.getInstance(RDF.class);
+        DB_METADATA = injector.getInstance(DummyRDBMetadata.class);
+
+        CONNECTION = DriverManager.getConnection(URL, USERNAME, PASSWORD);
+        try (Statement st = CONNECTION.createStatement()) {
+            st.executeUpdate("CREATE TABLE \"item\" (\"id\" INTEGER PRIMARY KEY)");
+        }
+        try (PreparedStatement st = CONNECTION.prepareStatement("INSERT INTO \"item\" VALUES (?)")) {
+            for (int i = 1; i <= ROW_COUNT; i++) {
+                st.setInt(1, i);
+                st.executeUpdate();
+            }
+        }
+        CONNECTION.commit();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        try (Statement st = CONNECTION.createStatement()) {
+            st.executeUpdate("DROP TABLE \"item\"");
+        }
+        CONNECTION.commit();
+        CONNECTION.close();
+    }
+
+    @Before
+    public void createStatement() throws Exception {
+        Connection connection = countingConnection(CONNECTION);
+        statement = new SQLQuestStatement(null, connection.createStatement(), new PreparedStatementCache(10),
+                null, Optional.empty(), DB_METADATA, null, TERM_FACTORY, TYPE_FACTORY, RDF_FACTORY, SETTINGS);
+    }
+
+    @After
+    public void closeStatement() throws Exception {
+        statement.close();
+    }
+
+    @Test
+    public void testCancelWhileIterating() throws Exception {
+        TupleResultSet resultSet = statement.executeSelectQuery(createQuery());
+        assertTrue(resultSet.hasNext());
+        resultSet.next();
+
+        statement.cancel();
+        assertEquals(1, preparedStatementCancellations.get());
+        resultSet.close();
+    }
+
+    /**
+     * The prepared statement may be reused by another query once its result set is closed
+     */
+    @Test
+    public void testNoCancelAfterClose() throws Exception {
+        TupleResultSet resultSet = statement.executeSelectQuery(createQuery());
+        int count = 0;
+        while (resultSet.hasNext()) {
+            resultSet.next();
+            count++;
+        }
+        assertEquals(ROW_COUNT, count);
+        resultSet.close();
+
+        statement.cancel();
+        assertEquals(0, preparedStatementCancellations.get());
+    }
+
+    @Test
+    public void testCancelBooleanQuery() throws Exception {
+        BooleanResultSet resultSet = statement.executeBooleanQuery(createQuery());
+
+        statement.cancel();
+        assertEquals(1, preparedStatementCancellations.get());
+        assertTrue(resultSet.getValue());
+        resultSet.close();
+
+        statement.cancel();
+        assertEquals(1, preparedStatementCancellations.get());
+    }
+
+    private static PreparedSQLExecutableQuery createQuery() {
+        return new PreparedSQLExecutableQuery(INLINED_QUERY, PREPARED_QUERY, ImmutableList.of("0"), SIGNATURE);
+    }
+
+    /**
+     * The statements created by the connection return it as their connection (used for preparing the queries)
+     */
+    private Connection countingConnection(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, result) -> {
+            if (result instanceof PreparedStatement)
+                return countingPreparedStatement((PreparedStatement) result);
+            if (result instanceof Statement)
+                return proxy(Statement.class, result, (p, m, r) -> m.getName().equals("getConnection") ? proxy : r);
+            return result;
+        });
+    }
+
+    private PreparedStatement countingPreparedStatement(PreparedStatement preparedStatement) {
+        return proxy(PreparedStatement.class, preparedStatement, (proxy, method, result) -> {
+            if (method.getName().equals("cancel"))
+                preparedStatementCancellations.incrementAndGet();
+            return result;
+        });
+    }
+
+    @FunctionalInterface
+    private interface ResultTransformer {
+        Object transform(Object proxy, Method method, Object result);
+    }
+
+    /**
+     * Delegates to the target, the result being then transformed
+     */
+    private static <T> T proxy(Class<T> type, Object target, ResultTransformer transformer) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> {
+                    try {
+                        return transformer.transform(proxy, method, method.invoke(target, args));
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }));
+    }
+}
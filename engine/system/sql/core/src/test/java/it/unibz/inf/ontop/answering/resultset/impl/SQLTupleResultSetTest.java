@@ -0,0 +1,335 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Injector;
+import it.unibz.inf.ontop.answering.reformulation.generation.utils.COL_TYPE;
+import it.unibz.inf.ontop.answering.resultset.OntopBindingSet;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.dbschema.DBMetadata;
+import it.unibz.inf.ontop.dbschema.DummyRDBMetadata;
+import it.unibz.inf.ontop.injection.OntopModelConfiguration;
+import it.unibz.inf.ontop.model.term.Constant;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.model.type.TypeFactory;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Batch decoding of the SQL tuple result sets (see SQLRowBatch), on H2.
+ *
+ * Each variable corresponds to three SQL columns (type, lang and main value).
+ *
+ * ROW_COUNT is not a multiple of the batch size (100 by default, or the fetch size): the last batch is partial.
+ */
+public class SQLTupleResultSetTest {
+
+    private static final int ROW_COUNT = 250;
+    private static final int FETCH_SIZE = 7;
+    private static final int DISTINCT_VALUE_COUNT = 30;
+
+    private static final String URL = "jdbc:h2:mem:sqltupleresultsetdb";
+    private static final String USERNAME = "sa";
+    private static final String PASSWORD = "";
+
+    // Type codes (see COL_TYPE)
+    private static final int INTEGER_CODE = 4;
+    private static final int DECIMAL_CODE = 5;
+    private static final int DOUBLE_CODE = 6;
+    private static final int STRING_CODE = 7;
+    private static final int DATETIME_CODE = 8;
+    private static final int BOOLEAN_CODE = 9;
+    private static final int DATE_CODE = 10;
+    private static final int FLOAT_CODE = 14;
+    private static final int LANG_STRING_CODE = -3;
+
+    /**
+     * v: id, w: name (NULL for the even ids)
+     */
+    private static final String ROWS_QUERY = "SELECT " +
+            INTEGER_CODE + " AS \"vType\", CAST(NULL AS VARCHAR) AS \"vLang\", \"id\" AS \"v\", " +
+            STRING_CODE + " AS \"wType\", CAST(NULL AS VARCHAR) AS \"wLang\", \"name\" AS \"w\" " +
+            "FROM \"item\" ORDER BY \"id\"";
+    private static final ImmutableList<String> ROWS_SIGNATURE = ImmutableList.of("v", "w");
+
+    private static final String DISTINCT_QUERY = "SELECT " +
+            INTEGER_CODE + " AS \"vType\", CAST(NULL AS VARCHAR) AS \"vLang\", \"grp\" AS \"v\" " +
+            "FROM \"item\" ORDER BY \"id\"";
+    private static final ImmutableList<String> DISTINCT_SIGNATURE = ImmutableList.of("v");
+
+    private static final String TYPED_QUERY = "SELECT " +
+            BOOLEAN_CODE + ", CAST(NULL AS VARCHAR), \"b\", " +
+            DECIMAL_CODE + ", CAST(NULL AS VARCHAR), \"d\", " +
+            DATE_CODE + ", CAST(NULL AS VARCHAR), \"dt\", " +
+            DATETIME_CODE + ", CAST(NULL AS VARCHAR), \"ts\", " +
+            LANG_STRING_CODE + ", \"lang\", \"s\", " +
+            INTEGER_CODE + ", CAST(NULL AS VARCHAR), \"n\", " +
+            FLOAT_CODE + ", CAST(NULL AS VARCHAR), \"r\", " +
+            DOUBLE_CODE + ", CAST(NULL AS VARCHAR), \"f\" " +
+            "FROM \"typed\" ORDER BY \"id\"";
+    private static final ImmutableList<String> TYPED_SIGNATURE = ImmutableList.of("b", "d", "dt", "ts", "s", "n", "r", "f");
+
+    private static Connection CONNECTION;
+    private static TermFactory TERM_FACTORY;
+    private static TypeFactory TYPE_FACTORY;
+    private static RDF RDF_FACTORY;
+    private static DBMetadata DB_METADATA;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        Injector injector = OntopModelConfiguration.defaultBuilder()
+                .enableTestMode()
+                .build()
+                .getInjector();
+        TERM_FACTORY = injector.getInstance(TermFactory.class);
+        TYPE_FACTORY = injector.getInstance(TypeFactory.class);
+        RDF_FACTORY = injector.getInstance(RDF.class);
+        DB_METADATA = injector.getInstance(DummyRDBMetadata.class);
+
+        CONNECTION = DriverManager.getConnection(URL, USERNAME, PASSWORD);
+        try (Statement st = CONNECTION.createStatement()) {
+            st.executeUpdate("CREATE TABLE \"item\" (\"id\" INTEGER PRIMARY KEY, \"grp\" INTEGER, \"name\" VARCHAR(20))");
+            st.executeUpdate("CREATE TABLE \"typed\" (\"id\" INTEGER PRIMARY KEY, \"b\" BOOLEAN, \"d\" DECIMAL(10,2), " +
+                    "\"dt\" DATE, \"ts\" TIMESTAMP, \"s\" VARCHAR(20), \"lang\" VARCHAR(5), \"n\" INTEGER, " +
+                    "\"r\" REAL, \"f\" DOUBLE)");
+            st.executeUpdate("INSERT INTO \"typed\" VALUES " +
+                    "(1, TRUE, 12.50, '2018-03-05', '2018-03-05 10:15:30', 'chat', 'fr', 42, 1.5, 0.25), " +
+                    "(2, FALSE, 0.01, '1999-12-31', '1999-12-31 23:59:59.5', 'cat', 'en', -7, -2.75, 1e20), " +
+                    "(3, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL)");
+        }
+        try (PreparedStatement st = CONNECTION.prepareStatement("INSERT INTO \"item\" VALUES (?, ?, ?)")) {
+            for (int i = 0; i < ROW_COUNT; i++) {
+                st.setInt(1, i);
+                st.setInt(2, i % DISTINCT_VALUE_COUNT);
+                st.setString(3, (i % 2 == 0) ? null : "name" + i);
+                st.executeUpdate();
+            }
+        }
+        CONNECTION.commit();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        try (Statement st = CONNECTION.createStatement()) {
+            st.executeUpdate("DROP TABLE \"item\"");
+            st.executeUpdate("DROP TABLE \"typed\"");
+        }
+        CONNECTION.commit();
+        CONNECTION.close();
+    }
+
+    @Test
+    public void testSeveralBatches() throws Exception {
+        testSeveralBatches(0);
+    }
+
+    @Test
+    public void testSeveralBatchesWithFetchSize() throws Exception {
+        testSeveralBatches(FETCH_SIZE);
+    }
+
+    private void testSeveralBatches(int fetchSize) throws Exception {
+        try (Statement st = CONNECTION.createStatement()) {
+            st.setFetchSize(fetchSize);
+            TupleResultSet resultSet = createResultSet(st.executeQuery(ROWS_QUERY), ROWS_SIGNATURE);
+            int count = 0;
+            while (resultSet.hasNext()) {
+                OntopBindingSet bindingSet = resultSet.next();
+                assertRow(count, bindingSet);
+                count++;
+            }
+            assertFalse(resultSet.hasNext());
+            resultSet.close();
+            assertEquals(ROW_COUNT, count);
+        }
+    }
+
+    /**
+     * The binding sets are kept after their batch has been reused for the next rows (they are detached)
+     */
+    @Test
+    public void testBindingSetsKeptAfterTheirBatch() throws Exception {
+        try (Statement st = CONNECTION.createStatement()) {
+            st.setFetchSize(FETCH_SIZE);
+            TupleResultSet resultSet = createResultSet(st.executeQuery(ROWS_QUERY), ROWS_SIGNATURE);
+            List<OntopBindingSet> bindingSets = new ArrayList<>();
+            while (resultSet.hasNext())
+                bindingSets.add(resultSet.next());
+            resultSet.close();
+
+            assertEquals(ROW_COUNT, bindingSets.size());
+            for (int i = 0; i < ROW_COUNT; i++)
+                assertRow(i, bindingSets.get(i));
+        }
+    }
+
+    /**
+     * Only some constants are accessed before the batch is reused: the others are created when detaching
+     */
+    @Test
+    public void testPartiallyAccessedBindingSetsKeptAfterTheirBatch() throws Exception {
+        try (Statement st = CONNECTION.createStatement()) {
+            TupleResultSet resultSet = createResultSet(st.executeQuery(ROWS_QUERY), ROWS_SIGNATURE);
+            List<OntopBindingSet> bindingSets = new ArrayList<>();
+            while (resultSet.hasNext()) {
+                OntopBindingSet bindingSet = resultSet.next();
+                if (bindingSets.size() % 3 == 0)
+                    bindingSet.getConstant("v");
+                bindingSets.add(bindingSet);
+            }
+            resultSet.close();
+
+            assertEquals(ROW_COUNT, bindingSets.size());
+            for (int i = 0; i < ROW_COUNT; i++)
+                assertRow(i, bindingSets.get(i));
+        }
+    }
+
+    /**
+     * The duplicates are spread over several batches
+     */
+    @Test
+    public void testDistinctAcrossBatches() throws Exception {
+        testDistinctAcrossBatches(0);
+        testDistinctAcrossBatches(FETCH_SIZE);
+    }
+
+    private void testDistinctAcrossBatches(int fetchSize) throws Exception {
+        try (Statement st = CONNECTION.createStatement()) {
+            st.setFetchSize(fetchSize);
+            TupleResultSet resultSet = new SQLDistinctTupleResultSet(st.executeQuery(DISTINCT_QUERY),
+                    DISTINCT_SIGNATURE, DB_METADATA, Optional.empty(), TERM_FACTORY, TYPE_FACTORY, RDF_FACTORY);
+
+            List<OntopBindingSet> bindingSets = new ArrayList<>();
+            while (resultSet.hasNext())
+                bindingSets.add(resultSet.next());
+            resultSet.close();
+
+            assertEquals(DISTINCT_VALUE_COUNT, bindingSets.size());
+            Set<String> values = new HashSet<>();
+            for (int i = 0; i < DISTINCT_VALUE_COUNT; i++) {
+                // In the order of their first occurrence
+                assertEquals(String.valueOf(i), bindingSets.get(i).getConstant("v").getValue());
+                values.add(bindingSets.get(i).getConstant("v").getValue());
+            }
+            assertEquals(DISTINCT_VALUE_COUNT, values.size());
+        }
+    }
+
+    /**
+     * Same constants as the conversion of the objects returned by ResultSet.getObject()
+     * (the conversion used before the typed getters)
+     */
+    @Test
+    public void testTypedColumns() throws Exception {
+        JDBC2ConstantConverter converter = new JDBC2ConstantConverter(DB_METADATA, Optional.empty(), TERM_FACTORY,
+                TYPE_FACTORY, RDF_FACTORY);
+
+        List<List<Constant>> expectedRows = new ArrayList<>();
+        try (Statement st = CONNECTION.createStatement();
+             ResultSet rs = st.executeQuery(TYPED_QUERY)) {
+            while (rs.next()) {
+                List<Constant> row = new ArrayList<>();
+                for (int i = 1; i <= TYPED_SIGNATURE.size(); i++) {
+                    int typeCode = rs.getInt(3 * i - 2);
+                    row.add(converter.getConstantFromJDBC(rs.getObject(3 * i), typeCode,
+                            COL_TYPE.getQuestType(typeCode), rs.getString(3 * i - 1)));
+                }
+                expectedRows.add(row);
+            }
+        }
+
+        List<OntopBindingSet> bindingSets = new ArrayList<>();
+        try (Statement st = CONNECTION.createStatement()) {
+            // One row per batch: the first binding sets are detached
+            st.setFetchSize(1);
+            TupleResultSet resultSet = createResultSet(st.executeQuery(TYPED_QUERY), TYPED_SIGNATURE);
+            while (resultSet.hasNext())
+                bindingSets.add(resultSet.next());
+            resultSet.close();
+        }
+
+        assertEquals(3, expectedRows.size());
+        assertEquals(expectedRows.size(), bindingSets.size());
+        for (int row = 0; row < expectedRows.size(); row++) {
+            for (int i = 1; i <= TYPED_SIGNATURE.size(); i++) {
+                assertEquals(TYPED_SIGNATURE.get(i - 1) + " at row " + row,
+                        expectedRows.get(row).get(i - 1), bindingSets.get(row).getConstant(i));
+            }
+        }
+
+        // Lang tag
+        assertEquals(TERM_FACTORY.getConstantLiteral("chat", "fr"), bindingSets.get(0).getConstant("s"));
+        // NULLs
+        OntopBindingSet nullRow = bindingSets.get(2);
+        for (String variable : TYPED_SIGNATURE) {
+            assertNull(nullRow.getConstant(variable));
+            assertFalse(nullRow.hasBinding(variable));
+        }
+    }
+
+    @Test
+    public void testTypedGetters() throws Exception {
+        JDBC2ConstantConverter converter = new JDBC2ConstantConverter(DB_METADATA, Optional.empty(), TERM_FACTORY,
+                TYPE_FACTORY, RDF_FACTORY);
+
+        for (long value : new long[] { 0, 42, -7, Long.MAX_VALUE }) {
+            for (COL_TYPE type : new COL_TYPE[] { COL_TYPE.INTEGER, COL_TYPE.INT, COL_TYPE.LONG, COL_TYPE.DECIMAL,
+                    COL_TYPE.STRING }) {
+                assertEquals(converter.getConstantFromJDBC(value, type.getQuestCode(), type, null),
+                        converter.getConstantFromLong(value, type.getQuestCode(), type, null));
+            }
+        }
+
+        for (double value : new double[] { 0.25, -2.75, 1e20, 3.0, 1.0 / 3 }) {
+            for (COL_TYPE type : new COL_TYPE[] { COL_TYPE.DOUBLE, COL_TYPE.FLOAT, COL_TYPE.DECIMAL }) {
+                assertEquals(converter.getConstantFromJDBC(value, type.getQuestCode(), type, null),
+                        converter.getConstantFromDouble(value, false, type.getQuestCode(), type, null));
+            }
+        }
+
+        for (float value : new float[] { 1.5f, -2.75f, 0.1f }) {
+            assertEquals(converter.getConstantFromJDBC(value, FLOAT_CODE, COL_TYPE.FLOAT, null),
+                    converter.getConstantFromDouble(value, true, FLOAT_CODE, COL_TYPE.FLOAT, null));
+        }
+
+        for (boolean value : new boolean[] { true, false }) {
+            assertEquals(converter.getConstantFromJDBC(value, BOOLEAN_CODE, COL_TYPE.BOOLEAN, null),
+                    converter.getConstantFromBoolean(value, BOOLEAN_CODE, COL_TYPE.BOOLEAN, null));
+        }
+    }
+
+    private static TupleResultSet createResultSet(ResultSet rs, ImmutableList<String> signature) {
+        return new DelegatedIriSQLTupleResultSet(rs, signature, DB_METADATA, Optional.empty(), TERM_FACTORY,
+                TYPE_FACTORY, RDF_FACTORY);
+    }
+
+    private static void assertRow(int id, OntopBindingSet bindingSet) throws Exception {
+        assertEquals(String.valueOf(id), bindingSet.getConstant("v").getValue());
+        if (id % 2 == 0) {
+            assertNull(bindingSet.getConstant("w"));
+            assertFalse(bindingSet.hasBinding("w"));
+        }
+        else {
+            assertEquals("name" + id, bindingSet.getConstant("w").getValue());
+            assertTrue(bindingSet.hasBinding("w"));
+        }
+    }
+}
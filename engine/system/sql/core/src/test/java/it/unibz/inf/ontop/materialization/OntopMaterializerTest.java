@@ -60,6 +60,9 @@ import java.io.FileReader;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
@@ -155,21 +158,7 @@ public class OntopMaterializerTest {
 		// source.setParameter(RDBMSourceParameterConstants.IS_IN_MEMORY, "true");
 		// source.setParameter(RDBMSourceParameterConstants.USE_DATASOURCE_FOR_ABOXDUMP, "true");
 
-		Connection conn = DriverManager.getConnection(url, username, password);
-		Statement st = conn.createStatement();
-
-		FileReader reader = new FileReader("src/test/resources/mapping-test-db.sql");
-		BufferedReader in = new BufferedReader(reader);
-		StringBuilder bf = new StringBuilder();
-		String line = in.readLine();
-		while (line != null) {
-			bf.append(line);
-			line = in.readLine();
-		}
-		in.close();
-
-		st.executeUpdate(bf.toString());
-		conn.commit();
+		Connection conn = createDatabase();
 
 		ImmutableSet<IRI> vocabulary = Stream.of(fnIRI, lnIRI, ageIRI, hasschoolIRI, schoolIRI)
 				.collect(ImmutableCollectors.toSet());
@@ -199,6 +188,72 @@ public class OntopMaterializerTest {
 
 
 
+	/**
+	 * The parallel result set must produce the same triples (and counts) as the sequential one
+	 */
+	@Test
+	public void testParallelSameAsSequential() throws Exception {
+		OntopStandaloneSQLConfiguration configuration = createAndInitConfiguration()
+				.ppMapping(createMapping())
+				.build();
+
+		Connection conn = createDatabase();
+
+		ImmutableSet<IRI> vocabulary = Stream.of(personIRI, fnIRI, lnIRI, ageIRI, hasschoolIRI, schoolIRI)
+				.collect(ImmutableCollectors.toSet());
+
+		OntopRDFMaterializer sequentialMaterializer = OntopRDFMaterializer.defaultMaterializer(configuration);
+		OntopRDFMaterializer parallelMaterializer = OntopRDFMaterializer.defaultMaterializer(configuration,
+				MaterializationParams.defaultBuilder()
+						.numberOfWorkers(3)
+						.build());
+
+		try (MaterializedGraphResultSet sequentialResultSet = sequentialMaterializer.materialize(vocabulary);
+			 MaterializedGraphResultSet parallelResultSet = parallelMaterializer.materialize(vocabulary)) {
+
+			ImmutableList<String> sequentialAssertions = collectSortedAssertions(sequentialResultSet);
+			ImmutableList<String> parallelAssertions = collectSortedAssertions(parallelResultSet);
+
+			assertEquals(18, sequentialAssertions.size());
+			assertEquals(sequentialAssertions, parallelAssertions);
+			assertEquals(sequentialResultSet.getTripleCountSoFar(), parallelResultSet.getTripleCountSoFar());
+			assertEquals(sequentialResultSet.getTripleCountsPerPropertyAndClassSoFar(),
+					parallelResultSet.getTripleCountsPerPropertyAndClassSoFar());
+			assertEquals(ImmutableList.of(), parallelResultSet.getPossiblyIncompleteRDFPropertiesAndClassesSoFar());
+		}
+
+		conn.close();
+	}
+
+	private static ImmutableList<String> collectSortedAssertions(MaterializedGraphResultSet resultSet)
+			throws Exception {
+		List<String> assertions = new ArrayList<>();
+		while (resultSet.hasNext()) {
+			assertions.add(resultSet.next().toString());
+		}
+		Collections.sort(assertions);
+		return ImmutableList.copyOf(assertions);
+	}
+
+	private static Connection createDatabase() throws Exception {
+		Connection conn = DriverManager.getConnection(url, username, password);
+		Statement st = conn.createStatement();
+
+		FileReader reader = new FileReader("src/test/resources/mapping-test-db.sql");
+		BufferedReader in = new BufferedReader(reader);
+		StringBuilder bf = new StringBuilder();
+		String line = in.readLine();
+		while (line != null) {
+			bf.append(line);
+			line = in.readLine();
+		}
+		in.close();
+
+		st.executeUpdate(bf.toString());
+		conn.commit();
+		return conn;
+	}
+
 	private SQLPPMapping createMapping() throws DuplicateMappingException {
 
     	// TODO: we should not have to create an high-level configuration just for constructing these objects...
@@ -36,6 +36,18 @@ public interface OntopMappingSettings extends OntopOBDASettings, OntopOptimizati
      */
     boolean isCanIRIComplete();
 
+    /**
+     * Number of threads used for saturating the mapping with the ontology (T-mappings).
+     *
+     * The classes and properties of the ontology are then processed in parallel.
+     */
+    int getNumberOfTMappingThreads();
+
+    /**
+     * Number of threads used for parsing the source queries of the mapping assertions.
+     */
+    int getNumberOfSourceQueryParsingThreads();
+
     //--------------------------
     // Keys
     //--------------------------
@@ -45,6 +57,8 @@ public interface OntopMappingSettings extends OntopOBDASettings, OntopOptimizati
     String COMPLETE_PROVIDED_METADATA = "ontop.completeProvidedMetadata";
     String INFER_DEFAULT_DATATYPE = "ontop.inferDefaultDatatype";
     String IS_CANONICAL_IRI_COMPLETE = "ontop.isCanonicalIRIComplete";
+    String TMAPPING_THREADS = "ontop.tMappingThreads";
+    String SOURCE_QUERY_PARSING_THREADS = "ontop.sourceQueryParsingThreads";
 
 
     /**
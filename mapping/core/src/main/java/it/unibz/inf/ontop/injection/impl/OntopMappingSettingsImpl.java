@@ -51,4 +51,14 @@ class OntopMappingSettingsImpl extends OntopOBDASettingsImpl implements OntopMap
     public boolean isCanIRIComplete() {
         return getRequiredBoolean(IS_CANONICAL_IRI_COMPLETE);
     }
+
+    @Override
+    public int getNumberOfTMappingThreads() {
+        return getRequiredInteger(TMAPPING_THREADS);
+    }
+
+    @Override
+    public int getNumberOfSourceQueryParsingThreads() {
+        return getRequiredInteger(SOURCE_QUERY_PARSING_THREADS);
+    }
 }
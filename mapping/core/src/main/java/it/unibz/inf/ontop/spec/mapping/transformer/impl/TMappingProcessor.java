@@ -21,12 +21,14 @@ package it.unibz.inf.ontop.spec.mapping.transformer.impl;
  */
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.inject.Inject;
 import it.unibz.inf.ontop.datalog.CQIE;
 import it.unibz.inf.ontop.datalog.DatalogFactory;
 import it.unibz.inf.ontop.datalog.EQNormalizer;
 import it.unibz.inf.ontop.datalog.impl.CQContainmentCheckUnderLIDs;
 import it.unibz.inf.ontop.exception.MinorOntopInternalBugException;
+import it.unibz.inf.ontop.injection.OntopMappingSettings;
 import it.unibz.inf.ontop.model.atom.AtomFactory;
 import it.unibz.inf.ontop.model.atom.AtomPredicate;
 import it.unibz.inf.ontop.model.atom.RDFAtomPredicate;
@@ -52,6 +54,10 @@ import org.apache.commons.rdf.api.IRI;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class TMappingProcessor {
 
@@ -256,30 +262,27 @@ public class TMappingProcessor {
 	private final SubstitutionUtilities substitutionUtilities;
 	private final EQNormalizer eqNormalizer;
 	private final ImmutabilityTools immutabilityTools;
+	private final int numberOfThreads;
 
 	@Inject
 	private TMappingProcessor(AtomFactory atomFactory, TermFactory termFactory, DatalogFactory datalogFactory,
 							  SubstitutionUtilities substitutionUtilities, EQNormalizer eqNormalizer,
-							  ImmutabilityTools immutabilityTools) {
+							  ImmutabilityTools immutabilityTools, OntopMappingSettings settings) {
 		this.atomFactory = atomFactory;
 		this.termFactory = termFactory;
 		this.datalogFactory = datalogFactory;
 		this.substitutionUtilities = substitutionUtilities;
 		this.eqNormalizer = eqNormalizer;
 		this.immutabilityTools = immutabilityTools;
+		this.numberOfThreads = settings.getNumberOfTMappingThreads();
 	}
 
 	/**
-	 * constructs the TMappings for object properties using DAG
-	 * @param mappingIndex
-	 * @param originalMappings
-	 * @param dag
+	 * Nodes of the object property DAG
 	 */
-	private void getObjectTMappings(Map<IRI, TMappingIndexEntry> mappingIndex,
-			Map<IRI, List<TMappingRule>> originalMappings,
-			EquivalencesDAG<ObjectPropertyExpression> dag,
-			TMappingExclusionConfig excludeFromTMappings) {
-
+	private ImmutableList<SaturationNode> getObjectPropertyNodes(EquivalencesDAG<ObjectPropertyExpression> dag,
+																 TMappingExclusionConfig excludeFromTMappings) {
+		ImmutableList.Builder<SaturationNode> nodes = ImmutableList.builder();
 		for (Equivalences<ObjectPropertyExpression> propertySet : dag) {
 
 			ObjectPropertyExpression representative = propertySet.getRepresentative();
@@ -290,98 +293,196 @@ public class TMappingProcessor {
 				continue;
 			}
 
-			/* Getting the current node mappings */
-			IRI currentPredicate = representative.getIRI();
-			TMappingIndexEntry currentNodeMappings = getMappings(mappingIndex, currentPredicate);	
-
-			for (Equivalences<ObjectPropertyExpression> descendants : dag.getSub(propertySet)) {
-				for(ObjectPropertyExpression childproperty : descendants) {
-					/*
-					 * adding the mappings of the children as own mappings, the new
-					 * mappings use the current predicate instead of the child's
-					 * predicate and, if the child is inverse and the current is
-					 * positive, it will also invert the terms in the head
-					 */
-					List<TMappingRule> childmappings = originalMappings.get(childproperty.getIRI());
-					if (childmappings == null)
-						continue;
-					
-					for (TMappingRule childmapping : childmappings) {
-						List<Term> terms = childmapping.getHeadTerms();
-						Function newMappingHead = !childproperty.isInverse()
-								? atomFactory.getMutableTripleHeadAtom(terms.get(0), currentPredicate, terms.get(2))
-								: atomFactory.getMutableTripleHeadAtom(terms.get(2), currentPredicate, terms.get(0));
-
-						TMappingRule newmapping = new TMappingRule(newMappingHead, childmapping, datalogFactory,
-								termFactory, eqNormalizer, false);
-						currentNodeMappings.mergeMappingsWithCQC(newmapping);
-					}
-				}
-			}
-
-			/* Setting up mappings for the equivalent classes */
-			for (ObjectPropertyExpression equivProperty : propertySet) {
-				if (!equivProperty.isInverse())
-					setMappings(mappingIndex, equivProperty.getIRI(), currentNodeMappings);
-			}
-		} // Properties loop ended
-		
+			/*
+			 * the mappings of the children use the current predicate instead of the child's
+			 * predicate and, if the child is inverse and the current is
+			 * positive, the terms in the head are inverted
+			 */
+			ImmutableList<ChildSource> children = dag.getSub(propertySet).stream()
+					.flatMap(descendants -> descendants.getMembers().stream())
+					.map(p -> p.isInverse()
+							? new ChildSource(p.getIRI(), 2, 0)
+							: new ChildSource(p.getIRI(), 0, 2))
+					.collect(ImmutableCollectors.toList());
+
+			ImmutableList<IRI> equivalents = propertySet.getMembers().stream()
+					.filter(p -> !p.isInverse())
+					.map(ObjectPropertyExpression::getIRI)
+					.collect(ImmutableCollectors.toList());
+
+			nodes.add(new SaturationNode(representative.getIRI(), false, equivalents, children));
+		}
+		return nodes.build();
 	}
 
 	/**
-	 * constructs the TMappings for data properties using DAG
-	 * @param mappingIndex
-	 * @param originalMappings
-	 * @param dag
+	 * Nodes of the data property DAG
 	 */
-	private void getDataTMappings(Map<IRI, TMappingIndexEntry> mappingIndex,
-			Map<IRI, List<TMappingRule>> originalMappings,
-			EquivalencesDAG<DataPropertyExpression> dag,
-			TMappingExclusionConfig excludeFromTMappings) {
-		
+	private ImmutableList<SaturationNode> getDataPropertyNodes(EquivalencesDAG<DataPropertyExpression> dag,
+															   TMappingExclusionConfig excludeFromTMappings) {
+		ImmutableList.Builder<SaturationNode> nodes = ImmutableList.builder();
 		for (Equivalences<DataPropertyExpression> propertySet : dag) {
 			DataPropertyExpression representative = propertySet.getRepresentative();
 
 			if (excludeFromTMappings.contains(representative)) {
 				continue;
 			}
-			/* Getting the current node mappings */
-			IRI currentPredicate = representative.getIRI();
-			TMappingIndexEntry currentNodeMappings = getMappings(mappingIndex, currentPredicate);
-
-			for (Equivalences<DataPropertyExpression> descendants : dag.getSub(propertySet)) {
-				for(DataPropertyExpression childproperty : descendants) {
-
-					/*
-					 * adding the mappings of the children as own mappings, the new
-					 * mappings use the current predicate instead of the child's
-					 * predicate and, if the child is inverse and the current is
-					 * positive, it will also invert the terms in the head
-					 */
-					List<TMappingRule> childmappings = originalMappings.get(childproperty.getIRI());
-					if (childmappings == null)
-						continue;
-
-					for (TMappingRule childmapping : childmappings) {
-						List<Term> terms = childmapping.getHeadTerms();
-
-						Function newMappingHead = atomFactory.getMutableTripleHeadAtom(terms.get(0), currentPredicate,
-								terms.get(2));
-						TMappingRule newmapping = new TMappingRule(newMappingHead, childmapping, datalogFactory,
-								termFactory, eqNormalizer, false);
-						currentNodeMappings.mergeMappingsWithCQC(newmapping);
-					}
-				}
+
+			ImmutableList<ChildSource> children = dag.getSub(propertySet).stream()
+					.flatMap(descendants -> descendants.getMembers().stream())
+					.map(p -> new ChildSource(p.getIRI(), 0, 2))
+					.collect(ImmutableCollectors.toList());
+
+			ImmutableList<IRI> equivalents = propertySet.getMembers().stream()
+					.map(DataPropertyExpression::getIRI)
+					.collect(ImmutableCollectors.toList());
+
+			nodes.add(new SaturationNode(representative.getIRI(), false, equivalents, children));
+		}
+		return nodes.build();
+	}
+
+	/**
+	 * Nodes of the class DAG
+	 */
+	private ImmutableList<SaturationNode> getClassNodes(EquivalencesDAG<ClassExpression> dag,
+														TMappingExclusionConfig excludeFromTMappings) {
+		ImmutableList.Builder<SaturationNode> nodes = ImmutableList.builder();
+		for (Equivalences<ClassExpression> classSet : dag) {
+
+			if (!(classSet.getRepresentative() instanceof OClass))
+				continue;
+
+			OClass representative = (OClass)classSet.getRepresentative();
+
+			if (excludeFromTMappings.contains(representative)) {
+				continue;
 			}
 
-			/* Setting up mappings for the equivalent classes */
-			for (DataPropertyExpression equivProperty : propertySet) {
-				setMappings(mappingIndex, equivProperty.getIRI(), currentNodeMappings);
+			/*
+			 * There are three cases, when the child is a named
+			 * class, or when it is an \exists P or \exists \inv P.
+			 */
+			ImmutableList<ChildSource> children = dag.getSub(classSet).stream()
+					.flatMap(descendants -> descendants.getMembers().stream())
+					.map(TMappingProcessor::getClassChildSource)
+					.collect(ImmutableCollectors.toList());
+
+			ImmutableList<IRI> equivalents = classSet.getMembers().stream()
+					.filter(c -> c instanceof OClass)
+					.map(c -> ((OClass) c).getIRI())
+					.collect(ImmutableCollectors.toList());
+
+			nodes.add(new SaturationNode(representative.getIRI(), true, equivalents, children));
+		}
+		return nodes.build();
+	}
+
+	private static ChildSource getClassChildSource(ClassExpression childDescription) {
+		if (childDescription instanceof OClass) {
+			return new ChildSource(((OClass) childDescription).getIRI(), 0, -1);
+		}
+		else if (childDescription instanceof ObjectSomeValuesFrom) {
+			ObjectPropertyExpression some = ((ObjectSomeValuesFrom) childDescription).getProperty();
+			return new ChildSource(some.getIRI(), some.isInverse() ? 2 : 0, -1);
+		}
+		else {
+			assert (childDescription instanceof DataSomeValuesFrom);
+			DataPropertyExpression some = ((DataSomeValuesFrom) childDescription).getProperty();
+			// can never be an inverse
+			return new ChildSource(some.getIRI(), 0, -1);
+		}
+	}
+
+	/**
+	 * Saturates the nodes of one DAG. The nodes are independent, and are therefore processed in parallel
+	 * when several threads are available.
+	 *
+	 * The index is only modified by the calling thread.
+	 */
+	private void saturate(ImmutableList<SaturationNode> nodes, Map<IRI, TMappingIndexEntry> mappingIndex,
+						  Map<IRI, List<TMappingRule>> originalMappings) {
+
+		/* Getting the current node mappings (before the parallel processing, as the index may be extended) */
+		ImmutableList<TMappingIndexEntry> initialEntries = nodes.stream()
+				.map(n -> getMappings(mappingIndex, n.predicate))
+				.collect(ImmutableCollectors.toList());
+
+		List<ImmutableMap<IRI, TMappingIndexEntry>> results = map(
+				IntStream.range(0, nodes.size()).boxed().collect(Collectors.toList()),
+				i -> saturate(nodes.get(i), initialEntries.get(i), originalMappings));
+
+		/*
+		 * Setting up mappings for the equivalent classes/properties
+		 */
+		for (ImmutableMap<IRI, TMappingIndexEntry> entries : results)
+			mappingIndex.putAll(entries);
+	}
+
+	/**
+	 * Adds the mappings of the children as own mappings of the node.
+	 *
+	 * Returns the entries of the node and of its equivalent classes/properties.
+	 */
+	private ImmutableMap<IRI, TMappingIndexEntry> saturate(SaturationNode node, TMappingIndexEntry currentNodeMappings,
+														   Map<IRI, List<TMappingRule>> originalMappings) {
+
+		for (ChildSource child : node.children) {
+			List<TMappingRule> childmappings = originalMappings.get(child.iri);
+			if (childmappings == null)
+				continue;
+
+			for (TMappingRule childmapping : childmappings) {
+				List<Term> terms = childmapping.getHeadTerms();
+				Function newMappingHead = node.isClass
+						? atomFactory.getMutableTripleHeadAtom(terms.get(child.subjectIndex), node.predicate)
+						: atomFactory.getMutableTripleHeadAtom(terms.get(child.subjectIndex), node.predicate,
+								terms.get(child.objectIndex));
+
+				TMappingRule newmapping = new TMappingRule(newMappingHead, childmapping, datalogFactory,
+						termFactory, eqNormalizer, node.isClass);
+				currentNodeMappings.mergeMappingsWithCQC(newmapping);
 			}
-		} // Properties loop ended
-		
+		}
+
+		Map<IRI, TMappingIndexEntry> entries = new LinkedHashMap<>();
+		for (IRI equivalent : node.equivalents)
+			entries.put(equivalent, currentNodeMappings.copyOf(equivalent));
+
+		return ImmutableMap.copyOf(entries);
 	}
-	
+
+	/**
+	 * Fork/join over the items (sequential when only one thread is configured)
+	 */
+	private <T, R> List<R> map(List<T> items, java.util.function.Function<T, R> function) {
+		if ((numberOfThreads <= 1) || (items.size() <= 1))
+			return items.stream()
+					.map(function)
+					.collect(Collectors.toList());
+
+		ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+		try {
+			return pool.submit(() -> items.parallelStream()
+					.map(function)
+					.collect(Collectors.toList()))
+					.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted during the saturation of the mapping", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new MinorOntopInternalBugException("Unexpected exception during the saturation of the mapping: "
+					+ cause);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
 	/**
 	 * constructs the TMappings using DAG
 	 * @param originalMappings
@@ -459,75 +560,17 @@ public class TMappingProcessor {
 		 * the TMappings specification.
 		 */
 
-		getObjectTMappings(mappingIndex, originalMappingIndex, reasoner.objectPropertiesDAG(), excludeFromTMappings);
-		getDataTMappings(mappingIndex, originalMappingIndex, reasoner.dataPropertiesDAG(), excludeFromTMappings);
+		saturate(getObjectPropertyNodes(reasoner.objectPropertiesDAG(), excludeFromTMappings),
+				mappingIndex, originalMappingIndex);
+		saturate(getDataPropertyNodes(reasoner.dataPropertiesDAG(), excludeFromTMappings),
+				mappingIndex, originalMappingIndex);
 
 		/*
 		 * Property t-mappings are done, we now continue with class t-mappings.
 		 */
 
-		for (Equivalences<ClassExpression> classSet : reasoner.classesDAG()) {
-
-			if (!(classSet.getRepresentative() instanceof OClass))
-				continue;
-
-			OClass representative = (OClass)classSet.getRepresentative();
-
-			if (excludeFromTMappings.contains(representative)) {
-				continue;
-			}
-
-			/* Getting the current node mappings */
-			IRI currentPredicate = representative.getIRI();
-			TMappingIndexEntry currentNodeMappings = getMappings(mappingIndex, currentPredicate);
-
-			for (Equivalences<ClassExpression> descendants : reasoner.classesDAG().getSub(classSet)) {
-				for (ClassExpression childDescription : descendants) {
-
-                    /* adding the mappings of the children as own mappings, the new
-					 * mappings. There are three cases, when the child is a named
-					 * class, or when it is an \exists P or \exists \inv P. 
-					 */
-					
-					final int arg;
-					final IRI childPredicate;
-					if (childDescription instanceof OClass) {
-						childPredicate = ((OClass) childDescription).getIRI();
-						arg = 0;
-					}
-					else if (childDescription instanceof ObjectSomeValuesFrom) {
-						ObjectPropertyExpression some = ((ObjectSomeValuesFrom) childDescription).getProperty();
-						childPredicate = some.getIRI();
-						arg = some.isInverse() ? 2 : 0;
-					} 
-					else {
-						assert (childDescription instanceof DataSomeValuesFrom);
-						DataPropertyExpression some = ((DataSomeValuesFrom) childDescription).getProperty();
-						childPredicate = some.getIRI();
-						arg = 0; // can never be an inverse
-					} 
-					
-					List<TMappingRule> childmappings = originalMappingIndex.get(childPredicate);
-					if (childmappings == null)
-						continue;
-					
-					for (TMappingRule childmapping : childmappings) {
-						List<Term> terms = childmapping.getHeadTerms();
-						Function newMappingHead = atomFactory.getMutableTripleHeadAtom(terms.get(arg), currentPredicate);
-						TMappingRule newmapping = new TMappingRule(newMappingHead, childmapping, datalogFactory,
-								termFactory, eqNormalizer, true);
-						currentNodeMappings.mergeMappingsWithCQC(newmapping);
-					}
-				}
-			}
-
-			/* Setting up mappings for the equivalent classes */
-			for (ClassExpression equiv : classSet) {
-				if (equiv instanceof OClass)
-					setMappings(mappingIndex, ((OClass) equiv).getIRI(), currentNodeMappings);
-			}
-		}
-		
+		saturate(getClassNodes(reasoner.classesDAG(), excludeFromTMappings),
+				mappingIndex, originalMappingIndex);
 
 		List<CQIE> tmappingsProgram = new LinkedList<>();
 		for (Entry<IRI, TMappingIndexEntry> entry : mappingIndex.entrySet()) {
@@ -615,6 +658,43 @@ public class TMappingProcessor {
 	}
 
 
+	/**
+	 * Class or property whose T-mapping is built from the mappings of its descendants (itself included).
+	 *
+	 * Only depends on the original mappings, so the nodes of a DAG can be saturated independently.
+	 */
+	private static final class SaturationNode {
+		private final IRI predicate;
+		private final boolean isClass;
+		// Receive the same mappings
+		private final ImmutableList<IRI> equivalents;
+		private final ImmutableList<ChildSource> children;
+
+		private SaturationNode(IRI predicate, boolean isClass, ImmutableList<IRI> equivalents,
+							   ImmutableList<ChildSource> children) {
+			this.predicate = predicate;
+			this.isClass = isClass;
+			this.equivalents = equivalents;
+			this.children = children;
+		}
+	}
+
+	/**
+	 * Where to find the subject (and the object for properties) in the head of the mappings of a child
+	 */
+	private static final class ChildSource {
+		private final IRI iri;
+		private final int subjectIndex;
+		// -1 for classes
+		private final int objectIndex;
+
+		private ChildSource(IRI iri, int subjectIndex, int objectIndex) {
+			this.iri = iri;
+			this.subjectIndex = subjectIndex;
+			this.objectIndex = objectIndex;
+		}
+	}
+
 	private class RDFPredicate {
 		private final boolean isClass;
 		private final IRI iri;
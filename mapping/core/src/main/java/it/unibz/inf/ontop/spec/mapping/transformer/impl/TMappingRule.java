@@ -1,13 +1,16 @@
 package it.unibz.inf.ontop.spec.mapping.transformer.impl;
 
+import com.google.common.collect.ImmutableSet;
 import it.unibz.inf.ontop.datalog.CQIE;
 import it.unibz.inf.ontop.datalog.DatalogFactory;
 import it.unibz.inf.ontop.datalog.impl.CQContainmentCheckUnderLIDs;
 import it.unibz.inf.ontop.model.atom.AtomPredicate;
 import it.unibz.inf.ontop.model.term.*;
 import it.unibz.inf.ontop.datalog.EQNormalizer;
+import it.unibz.inf.ontop.model.term.functionsymbol.Predicate;
 import it.unibz.inf.ontop.substitution.Substitution;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -33,6 +36,11 @@ public class TMappingRule {
 	private final TermFactory termFactory;
 	private final EQNormalizer eqNormalizer;
 	private final boolean isClass;
+	// Relations used in the body: cheap filter before the homomorphism checks
+	private final ImmutableSet<Predicate> databasePredicates;
+	// LAZY: chased and indexed stripped rule (built once for all the containment checks)
+	@Nullable
+	private CQContainmentCheckUnderLIDs.IndexedCQ indexedStripped;
 
 
 	/***
@@ -81,6 +89,7 @@ public class TMappingRule {
 		
 		this.head = replaceConstants(head, filters);
 		this.stripped = this.datalogFactory.getCQIE(this.head, databaseAtoms);
+		this.databasePredicates = extractPredicates(databaseAtoms);
 		this.cqc = cqc;
 	}
 
@@ -123,6 +132,7 @@ public class TMappingRule {
 		this.isClass = baseRule.isClass();
 
 		this.stripped = this.datalogFactory.getCQIE(head, databaseAtoms);
+		this.databasePredicates = baseRule.databasePredicates;
 		this.cqc = baseRule.cqc;
 	}
 	
@@ -141,8 +151,16 @@ public class TMappingRule {
 		this.head = (Function)head.clone();
 		
 		this.stripped = this.datalogFactory.getCQIE(head, databaseAtoms);
+		this.databasePredicates = baseRule.databasePredicates;
 		this.cqc = baseRule.cqc;
 	}
+
+	private static ImmutableSet<Predicate> extractPredicates(List<Function> atoms) {
+		ImmutableSet.Builder<Predicate> builder = ImmutableSet.builder();
+		for (Function atom : atoms)
+			builder.add(atom.getFunctionSymbol());
+		return builder.build();
+	}
 	
 	
 	public static List<Function> cloneList(List<Function> list) {
@@ -163,8 +181,20 @@ public class TMappingRule {
 		return filterAtoms.isEmpty();
 	}
 	
+	/**
+	 * Returns null if there is no homomorphism from the stripped other rule into this one.
+	 *
+	 * The relations of the other rule must all appear in the (chased) body of this rule:
+	 * checked before searching for the homomorphism.
+	 */
 	public Substitution computeHomomorphsim(TMappingRule other) {
-		return cqc.computeHomomorphsim(stripped, other.stripped);
+		if (indexedStripped == null)
+			indexedStripped = cqc.getIndexedCQ(stripped);
+
+		if (!indexedStripped.getPredicates().containsAll(other.databasePredicates))
+			return null;
+
+		return cqc.computeHomomorphsim(indexedStripped, other.stripped);
 	}
 	
 	public CQIE asCQIE() {
@@ -0,0 +1,142 @@
+package it.unibz.inf.ontop.dbschema;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static it.unibz.inf.ontop.utils.SQLAllMappingTestingTools.JDBC_TYPE_MAPPER;
+import static it.unibz.inf.ontop.utils.SQLAllMappingTestingTools.TYPE_FACTORY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Bulk (schema-wide) and per-table extractions must give the same metadata.
+ *
+ * The schema BULK has enough tables for the bulk extraction, the schema SMALL has not.
+ */
+public class RDBMetadataExtractionToolsTest {
+
+    private static final String URL = "jdbc:h2:mem:metadata_extraction";
+    private static final String USER = "sa";
+    private static final String PASSWORD = "";
+    private static final int BULK_TABLE_COUNT = 25;
+
+    // Keeps the in-memory DB alive
+    private static Connection connection;
+
+    @BeforeClass
+    public static void setUp() throws SQLException {
+        connection = DriverManager.getConnection(URL, USER, PASSWORD);
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE SCHEMA BULK");
+            st.execute("CREATE SCHEMA SMALL");
+            for (int i = 0; i < BULK_TABLE_COUNT; i++) {
+                st.execute("CREATE TABLE BULK.T" + i + " (ID INT PRIMARY KEY, CODE VARCHAR(10) NOT NULL, " +
+                        "A INT, B INT, REF INT, " +
+                        "CONSTRAINT UC_T" + i + " UNIQUE (A, B))");
+                st.execute("CREATE UNIQUE INDEX UIDX_T" + i + " ON BULK.T" + i + " (CODE)");
+                if (i > 0)
+                    st.execute("ALTER TABLE BULK.T" + i + " ADD CONSTRAINT FK_T" + i +
+                            " FOREIGN KEY (REF) REFERENCES BULK.T" + (i - 1) + " (ID)");
+            }
+            // Composite keys, foreign key across schemas
+            st.execute("CREATE TABLE SMALL.PARENT (K1 INT NOT NULL, K2 VARCHAR(10) NOT NULL, " +
+                    "CONSTRAINT PK_PARENT PRIMARY KEY (K2, K1))");
+            st.execute("CREATE TABLE SMALL.CHILD (ID INT PRIMARY KEY, P1 INT, P2 VARCHAR(10), T0 INT, " +
+                    "CONSTRAINT FK_PARENT FOREIGN KEY (P2, P1) REFERENCES SMALL.PARENT (K2, K1), " +
+                    "CONSTRAINT FK_T0 FOREIGN KEY (T0) REFERENCES BULK.T0 (ID))");
+        }
+    }
+
+    @AfterClass
+    public static void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void testBulkSameAsPerTable() throws SQLException {
+        ImmutableList<String> perTable = describe(extract(false, 1));
+        ImmutableList<String> bulk = describe(extract(true, 1));
+
+        assertEquals(perTable, bulk);
+    }
+
+    @Test
+    public void testPooledSameAsSingleConnection() throws SQLException {
+        ImmutableList<String> singleConnection = describe(extract(false, 1));
+
+        assertEquals(singleConnection, describe(extract(false, 3)));
+        assertEquals(singleConnection, describe(extract(true, 3)));
+    }
+
+    @Test
+    public void testExtractedConstraints() throws SQLException {
+        RDBMetadata metadata = extract(true, 3);
+        QuotedIDFactory idfac = metadata.getQuotedIDFactory();
+
+        DatabaseRelationDefinition t1 = metadata.getDatabaseRelation(
+                RelationID.createRelationIdFromDatabaseRecord(idfac, "BULK", "T1"));
+        assertNotNull(t1);
+        assertEquals(ImmutableList.of("ID"), getAttributeNames(t1.getPrimaryKey()));
+        // Primary key, UC_T1 and UIDX_T1 (the unique index of the primary key is ignored)
+        assertEquals(3, t1.getUniqueConstraints().size());
+        assertEquals(1, t1.getForeignKeys().size());
+        assertEquals("T0", t1.getForeignKeys().get(0).getReferencedRelation().getID().getTableName());
+
+        DatabaseRelationDefinition child = metadata.getDatabaseRelation(
+                RelationID.createRelationIdFromDatabaseRecord(idfac, "SMALL", "CHILD"));
+        assertNotNull(child);
+        ForeignKeyConstraint fkParent = child.getForeignKeys().stream()
+                .filter(fk -> fk.getName().equals("FK_PARENT"))
+                .findAny()
+                .orElseThrow(() -> new AssertionError("FK_PARENT is missing"));
+        // In the order of the referenced key
+        assertEquals(ImmutableList.of("P2", "P1"), fkParent.getComponents().stream()
+                .map(c -> c.getAttribute().getID().getName())
+                .collect(ImmutableCollectors.toList()));
+        assertEquals(2, child.getForeignKeys().size());
+
+        DatabaseRelationDefinition parent = metadata.getDatabaseRelation(
+                RelationID.createRelationIdFromDatabaseRecord(idfac, "SMALL", "PARENT"));
+        assertEquals(ImmutableList.of("K2", "K1"), getAttributeNames(parent.getPrimaryKey()));
+    }
+
+    private static RDBMetadata extract(boolean bulkExtraction, int numberOfConnections) throws SQLException {
+        RDBMetadata metadata = RDBMetadataExtractionTools.createMetadata(connection, TYPE_FACTORY, JDBC_TYPE_MAPPER);
+        RDBMetadataExtractionTools.loadMetadata(metadata, connection, null, bulkExtraction, numberOfConnections,
+                () -> DriverManager.getConnection(URL, USER, PASSWORD));
+        return metadata;
+    }
+
+    /**
+     * Relations with their attributes, keys and foreign keys (sorted, as the extraction order may differ)
+     */
+    private static ImmutableList<String> describe(RDBMetadata metadata) {
+        return metadata.getDatabaseRelations().stream()
+                .map(r -> r.getID() + " " + r.getAttributes()
+                        + " PK: " + r.getPrimaryKey()
+                        + " UCs: " + r.getUniqueConstraints().stream()
+                                .map(Object::toString)
+                                .sorted()
+                                .collect(ImmutableCollectors.toList())
+                        + " FKs: " + r.getForeignKeys().stream()
+                                .map(Object::toString)
+                                .sorted()
+                                .collect(ImmutableCollectors.toList()))
+                .sorted()
+                .collect(ImmutableCollectors.toList());
+    }
+
+    private static ImmutableList<String> getAttributeNames(UniqueConstraint uc) {
+        return uc.getAttributes().stream()
+                .map(a -> a.getID().getName())
+                .collect(ImmutableCollectors.toList());
+    }
+}
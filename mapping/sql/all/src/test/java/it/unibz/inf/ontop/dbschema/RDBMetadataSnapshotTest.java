@@ -0,0 +1,102 @@
+package it.unibz.inf.ontop.dbschema;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.Types;
+
+import static it.unibz.inf.ontop.utils.SQLAllMappingTestingTools.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RDBMetadataSnapshotTest {
+
+    private static final RDBMetadataSnapshot.Fingerprint FINGERPRINT = new RDBMetadataSnapshot.Fingerprint(
+            "jdbc:h2:mem:snapshot", "sa", "0123abcd");
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        RDBMetadata metadata = createDummyMetadata();
+        // Same IDs as the ones extracted through JDBC
+        QuotedIDFactory idfac = metadata.getQuotedIDFactory();
+
+        DatabaseRelationDefinition person = metadata.createDatabaseRelation(
+                RelationID.createRelationIdFromDatabaseRecord(idfac, "ex", "PERSON"));
+        Attribute personId = person.addAttribute(QuotedID.createIdFromDatabaseRecord(idfac, "ID"),
+                Types.INTEGER, "INTEGER", false);
+        Attribute personName = person.addAttribute(QuotedID.createIdFromDatabaseRecord(idfac, "name"),
+                Types.VARCHAR, "VARCHAR", true);
+        person.addAttribute(QuotedID.createIdFromDatabaseRecord(idfac, "ssn"), Types.VARCHAR, null, true);
+        person.addUniqueConstraint(UniqueConstraint.primaryKeyOf(personId));
+        person.addFunctionalDependency(FunctionalDependency.defaultBuilder()
+                .addDeterminant(personName)
+                .addDependent(person.getAttribute(3))
+                .build());
+
+        DatabaseRelationDefinition address = metadata.createDatabaseRelation(
+                RelationID.createRelationIdFromDatabaseRecord(idfac, null, "address"));
+        Attribute addressId = address.addAttribute(QuotedID.createIdFromDatabaseRecord(idfac, "id"),
+                Types.INTEGER, "INTEGER", false);
+        Attribute owner = address.addAttribute(QuotedID.createIdFromDatabaseRecord(idfac, "owner"),
+                Types.INTEGER, "INTEGER", false);
+        address.addUniqueConstraint(UniqueConstraint.primaryKeyOf(addressId));
+        address.addForeignKeyConstraint(ForeignKeyConstraint.of("fk_owner", owner, personId));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        RDBMetadataSnapshot.write(metadata, FINGERPRINT, outputStream);
+
+        RDBMetadata loadedMetadata = RDBMetadataSnapshot.read(new ByteArrayInputStream(outputStream.toByteArray()),
+                FINGERPRINT, TYPE_FACTORY, JDBC_TYPE_MAPPER);
+
+        assertEquals(metadata.getDriverName(), loadedMetadata.getDriverName());
+        assertEquals(metadata.getQuotedIDFactory().getClass(), loadedMetadata.getQuotedIDFactory().getClass());
+        assertEquals(metadata.getDatabaseRelations().toString(), loadedMetadata.getDatabaseRelations().toString());
+
+        DatabaseRelationDefinition loadedPerson = loadedMetadata.getDatabaseRelation(person.getID());
+        assertEquals(person.getAttributes().toString(), loadedPerson.getAttributes().toString());
+        assertEquals(ImmutableList.of(Types.INTEGER, Types.VARCHAR, Types.VARCHAR),
+                loadedPerson.getAttributes().stream().map(Attribute::getType).collect(ImmutableCollectors.toList()));
+        assertTrue(loadedPerson.getAttribute(2).canNull());
+        assertEquals(1, loadedPerson.getOtherFunctionalDependencies().size());
+
+        DatabaseRelationDefinition loadedAddress = loadedMetadata.getDatabaseRelation(address.getID());
+        assertEquals(1, loadedAddress.getForeignKeys().size());
+        ForeignKeyConstraint loadedFk = loadedAddress.getForeignKeys().get(0);
+        assertEquals("fk_owner", loadedFk.getName());
+        assertTrue(loadedFk.getReferencedRelation() == loadedPerson);
+        assertEquals(loadedPerson.getPrimaryKey().getAttributes(),
+                ImmutableList.of(loadedFk.getComponents().get(0).getReference()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidSnapshot() throws IOException {
+        RDBMetadataSnapshot.read(new ByteArrayInputStream(new byte[]{0, 3, 'a', 'b', 'c'}),
+                FINGERPRINT, TYPE_FACTORY, JDBC_TYPE_MAPPER);
+    }
+
+    @Test(expected = IOException.class)
+    public void testStaleSnapshotOtherDB() throws IOException {
+        readWithFingerprint(new RDBMetadataSnapshot.Fingerprint("jdbc:h2:mem:other", "sa", "0123abcd"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testStaleSnapshotOtherUser() throws IOException {
+        readWithFingerprint(new RDBMetadataSnapshot.Fingerprint("jdbc:h2:mem:snapshot", "other", "0123abcd"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testStaleSnapshotOtherMapping() throws IOException {
+        readWithFingerprint(new RDBMetadataSnapshot.Fingerprint("jdbc:h2:mem:snapshot", "sa", "4567ef"));
+    }
+
+    private static void readWithFingerprint(RDBMetadataSnapshot.Fingerprint fingerprint) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        RDBMetadataSnapshot.write(createDummyMetadata(), FINGERPRINT, outputStream);
+        RDBMetadataSnapshot.read(new ByteArrayInputStream(outputStream.toByteArray()), fingerprint,
+                TYPE_FACTORY, JDBC_TYPE_MAPPER);
+    }
+}
@@ -27,6 +27,7 @@ public class SQLAllMappingTestingTools {
     public static final SubstitutionFactory SUBSTITUTION_FACTORY;
     public static final RDF RDF_FACTORY;
     public static final SpecificationFactory MAPPING_FACTORY;
+    public static final JdbcTypeMapper JDBC_TYPE_MAPPER;
     private static final DummyRDBMetadata DEFAULT_DUMMY_DB_METADATA;
 
     static {
@@ -44,6 +45,7 @@ public class SQLAllMappingTestingTools {
         TARGET_ATOM_FACTORY = injector.getInstance(TargetAtomFactory.class);
         SUBSTITUTION_FACTORY = injector.getInstance(SubstitutionFactory.class);
         RDF_FACTORY = injector.getInstance(RDF.class);
+        JDBC_TYPE_MAPPER = injector.getInstance(JdbcTypeMapper.class);
 
         DEFAULT_DUMMY_DB_METADATA = injector.getInstance(DummyRDBMetadata.class);
 
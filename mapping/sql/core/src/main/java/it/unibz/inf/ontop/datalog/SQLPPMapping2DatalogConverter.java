@@ -26,6 +26,8 @@ import com.google.inject.Inject;
 import com.google.common.collect.ImmutableMap;
 import it.unibz.inf.ontop.dbschema.*;
 import it.unibz.inf.ontop.exception.InvalidMappingSourceQueriesException;
+import it.unibz.inf.ontop.exception.MinorOntopInternalBugException;
+import it.unibz.inf.ontop.injection.OntopMappingSettings;
 import it.unibz.inf.ontop.model.atom.TargetAtom;
 import it.unibz.inf.ontop.model.term.*;
 import it.unibz.inf.ontop.model.term.impl.ImmutabilityTools;
@@ -42,7 +44,11 @@ import it.unibz.inf.ontop.utils.ImmutableCollectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 
 public class SQLPPMapping2DatalogConverter {
@@ -52,89 +58,97 @@ public class SQLPPMapping2DatalogConverter {
     private final TypeFactory typeFactory;
     private final DatalogFactory datalogFactory;
     private final ImmutabilityTools immutabilityTools;
+    private final int numberOfThreads;
 
     @Inject
     private SQLPPMapping2DatalogConverter(TermFactory termFactory, TypeFactory typeFactory, DatalogFactory datalogFactory,
-                                          ImmutabilityTools immutabilityTools) {
+                                          ImmutabilityTools immutabilityTools, OntopMappingSettings settings) {
         this.termFactory = termFactory;
         this.typeFactory = typeFactory;
         this.datalogFactory = datalogFactory;
         this.immutabilityTools = immutabilityTools;
+        this.numberOfThreads = settings.getNumberOfSourceQueryParsingThreads();
     }
 
     /**
      * returns a Datalog representation of the mappings
+     *
+     * The source queries are parsed in parallel (when several threads are configured), the metadata being only read.
+     * The parser views are then created when merging the results, in the order of the triples maps
+     * (so that their names do not depend on the number of threads).
      */
     public ImmutableMap<CQIE, PPMappingAssertionProvenance> convert(Collection<SQLPPTriplesMap> triplesMaps,
                                                                      RDBMetadata metadata) throws InvalidMappingSourceQueriesException {
-        Map<CQIE, PPMappingAssertionProvenance> mutableMap = new HashMap<>();
+        ImmutableList<SQLPPTriplesMap> triplesMapList = ImmutableList.copyOf(triplesMaps);
+        List<ParsedSourceQuery> parsedSourceQueries = map(triplesMapList, m -> parseSourceQuery(m, metadata));
+
+        Map<CQIE, PPMappingAssertionProvenance> mutableMap = new LinkedHashMap<>();
 
         List<String> errorMessages = new ArrayList<>();
 
         QuotedIDFactory idfac = metadata.getQuotedIDFactory();
 
-        for (SQLPPTriplesMap mappingAxiom : triplesMaps) {
-            try {
-                OBDASQLQuery sourceQuery = mappingAxiom.getSourceQuery();
+        for (int i = 0; i < triplesMapList.size(); i++) {
+            SQLPPTriplesMap mappingAxiom = triplesMapList.get(i);
+            ParsedSourceQuery parsedSourceQuery = parsedSourceQueries.get(i);
 
-                List<Function> body;
-                ImmutableMap<QualifiedAttributeID, Term> lookupTable;
+            if (parsedSourceQuery.errorMessage != null) {
+                errorMessages.add("Error: " + parsedSourceQuery.errorMessage
+                        + " \nProblem location: source query of triplesMap \n["
+                        +  mappingAxiom.getTriplesMapProvenance().getProvenanceInfo() + "]");
+                continue;
+            }
 
-                try {
-                    SelectQueryParser sqp = new SelectQueryParser(metadata, termFactory, typeFactory);
-                    RAExpression re = sqp.parse(sourceQuery.toString());
-                    lookupTable = re.getAttributes();
+            List<Function> body;
+            ImmutableMap<QualifiedAttributeID, Term> lookupTable;
 
-                    body = new ArrayList<>(re.getDataAtoms().size() + re.getFilterAtoms().size());
-                    body.addAll(re.getDataAtoms());
-                    body.addAll(re.getFilterAtoms());
-                }
-                catch (UnsupportedSelectQueryException e) {
-                    ImmutableList<QuotedID> attributes = new SelectQueryAttributeExtractor(metadata, termFactory)
-                            .extract(sourceQuery.toString());
-                    ParserViewDefinition view = metadata.createParserView(sourceQuery.toString(), attributes);
+            if (parsedSourceQuery.expression != null) {
+                RAExpression re = parsedSourceQuery.expression;
+                lookupTable = re.getAttributes();
 
-                    // this is required to preserve the order of the variables
-                    ImmutableList<Map.Entry<QualifiedAttributeID,Variable>> list = view.getAttributes().stream()
-                            .map(att -> new AbstractMap.SimpleEntry<>(
-                                    new QualifiedAttributeID(null, att.getID()), // strip off the ParserViewDefinitionName
-                                    termFactory.getVariable(att.getID().getName())))
-                            .collect(ImmutableCollectors.toList());
+                body = new ArrayList<>(re.getDataAtoms().size() + re.getFilterAtoms().size());
+                body.addAll(re.getDataAtoms());
+                body.addAll(re.getFilterAtoms());
+            }
+            else {
+                ParserViewDefinition view = metadata.createParserView(mappingAxiom.getSourceQuery().toString(),
+                        parsedSourceQuery.viewAttributes);
 
-                    lookupTable = list.stream().collect(ImmutableCollectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+                // this is required to preserve the order of the variables
+                ImmutableList<Map.Entry<QualifiedAttributeID,Variable>> list = view.getAttributes().stream()
+                        .map(att -> new AbstractMap.SimpleEntry<>(
+                                new QualifiedAttributeID(null, att.getID()), // strip off the ParserViewDefinitionName
+                                termFactory.getVariable(att.getID().getName())))
+                        .collect(ImmutableCollectors.toList());
 
-                    List<Term> arguments = list.stream().map(Map.Entry::getValue).collect(ImmutableCollectors.toList());
+                lookupTable = list.stream().collect(ImmutableCollectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
 
-                    body = new ArrayList<>(1);
-                    body.add(termFactory.getFunction(view.getAtomPredicate(), arguments));
-                }
+                List<Term> arguments = list.stream().map(Map.Entry::getValue).collect(ImmutableCollectors.toList());
 
-                for (TargetAtom atom : mappingAxiom.getTargetAtoms()) {
-                    PPMappingAssertionProvenance provenance = mappingAxiom.getMappingAssertionProvenance(atom);
-                    try {
-
-                        Function mergedAtom = immutabilityTools.convertToMutableFunction(
-                                atom.getProjectionAtom().getPredicate(),
-                                atom.getSubstitutedTerms());
-
-                        Function head = renameVariables(mergedAtom, lookupTable, idfac);
-                        CQIE rule = datalogFactory.getCQIE(head, body);
-
-                        PPMappingAssertionProvenance previous = mutableMap.put(rule, provenance);
-                        if (previous != null)
-                            LOGGER.warn("Redundant triples maps: \n" + provenance + "\n and \n" + previous);
-                    }
-                    catch (AttributeNotFoundException e) {
-                        errorMessages.add("Error: " + e.getMessage()
-                                + " \nProblem location: source query of the mapping assertion \n["
-                                + provenance.getProvenanceInfo() + "]");
-                    }
-                }
+                body = new ArrayList<>(1);
+                body.add(termFactory.getFunction(view.getAtomPredicate(), arguments));
             }
-            catch (InvalidSelectQueryException e) {
-                errorMessages.add("Error: " + e.getMessage()
-                        + " \nProblem location: source query of triplesMap \n["
-                        +  mappingAxiom.getTriplesMapProvenance().getProvenanceInfo() + "]");
+
+            for (TargetAtom atom : mappingAxiom.getTargetAtoms()) {
+                PPMappingAssertionProvenance provenance = mappingAxiom.getMappingAssertionProvenance(atom);
+                try {
+
+                    Function mergedAtom = immutabilityTools.convertToMutableFunction(
+                            atom.getProjectionAtom().getPredicate(),
+                            atom.getSubstitutedTerms());
+
+                    Function head = renameVariables(mergedAtom, lookupTable, idfac);
+                    CQIE rule = datalogFactory.getCQIE(head, body);
+
+                    PPMappingAssertionProvenance previous = mutableMap.put(rule, provenance);
+                    if (previous != null)
+                        LOGGER.warn("Redundant triples maps: \n" + provenance + "\n and \n" + previous);
+                }
+                catch (AttributeNotFoundException e) {
+                    errorMessages.add("Error: " + e.getMessage()
+                            + " \nProblem location: source query of the mapping assertion \n["
+                            + provenance.getProvenanceInfo() + "]");
+                }
             }
         }
 
@@ -144,6 +158,62 @@ public class SQLPPMapping2DatalogConverter {
         return ImmutableMap.copyOf(mutableMap);
     }
 
+    /**
+     * Does not modify the metadata: the source queries not supported by the parser
+     * only get the attributes of their future parser view.
+     *
+     * Thread-safe.
+     */
+    private ParsedSourceQuery parseSourceQuery(SQLPPTriplesMap mappingAxiom, RDBMetadata metadata) {
+        OBDASQLQuery sourceQuery = mappingAxiom.getSourceQuery();
+        try {
+            try {
+                SelectQueryParser sqp = new SelectQueryParser(metadata, termFactory, typeFactory);
+                return new ParsedSourceQuery(sqp.parse(sourceQuery.toString()), null, null);
+            }
+            catch (UnsupportedSelectQueryException e) {
+                ImmutableList<QuotedID> attributes = new SelectQueryAttributeExtractor(metadata, termFactory)
+                        .extract(sourceQuery.toString());
+                return new ParsedSourceQuery(null, attributes, null);
+            }
+        }
+        catch (InvalidSelectQueryException e) {
+            return new ParsedSourceQuery(null, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Fork/join over the items (sequential when only one thread is configured).
+     * The results are in the order of the items.
+     */
+    private <T, R> List<R> map(List<T> items, java.util.function.Function<T, R> function) {
+        if ((numberOfThreads <= 1) || (items.size() <= 1))
+            return items.stream()
+                    .map(function)
+                    .collect(Collectors.toList());
+
+        ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+        try {
+            return pool.submit(() -> items.parallelStream()
+                    .map(function)
+                    .collect(Collectors.toList()))
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during the parsing of the source queries", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new MinorOntopInternalBugException("Unexpected exception during the parsing of the source queries: "
+                    + cause);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
 
     /**
      * Returns a new function by renaming variables occurring in the {@code function}
@@ -184,6 +254,26 @@ public class SQLPPMapping2DatalogConverter {
     }
 
 
+    /**
+     * Either the relational expression of the source query, the attributes of its parser view
+     * (when not supported by the parser) or an error message
+     */
+    private static class ParsedSourceQuery {
+        @Nullable
+        private final RAExpression expression;
+        @Nullable
+        private final ImmutableList<QuotedID> viewAttributes;
+        @Nullable
+        private final String errorMessage;
+
+        private ParsedSourceQuery(@Nullable RAExpression expression, @Nullable ImmutableList<QuotedID> viewAttributes,
+                                  @Nullable String errorMessage) {
+            this.expression = expression;
+            this.viewAttributes = viewAttributes;
+            this.errorMessage = errorMessage;
+        }
+    }
+
     private static class AttributeNotFoundException extends Exception {
         AttributeNotFoundException(String message) {
             super(message);
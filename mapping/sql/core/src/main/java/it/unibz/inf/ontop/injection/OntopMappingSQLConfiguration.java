@@ -6,6 +6,7 @@ import it.unibz.inf.ontop.injection.impl.OntopMappingSQLConfigurationImpl;
 import it.unibz.inf.ontop.spec.mapping.pp.SQLPPMapping;
 
 import javax.annotation.Nonnull;
+import java.io.File;
 import java.util.Optional;
 
 public interface OntopMappingSQLConfiguration extends OntopSQLCredentialConfiguration, OntopMappingConfiguration {
@@ -34,6 +35,12 @@ public interface OntopMappingSQLConfiguration extends OntopSQLCredentialConfigur
     interface OntopMappingSQLBuilderFragment<B extends Builder<B>> {
 
         B ppMapping(@Nonnull SQLPPMapping ppMapping);
+
+        /**
+         * DB metadata snapshot (e.g. produced by "ontop compile"), used instead of extracting the metadata
+         * from the database. Ignored when a DBMetadata object is provided.
+         */
+        B dbMetadataSnapshotFile(@Nonnull File snapshotFile);
     }
 
     interface Builder<B extends Builder<B>> extends OntopMappingSQLBuilderFragment<B>,
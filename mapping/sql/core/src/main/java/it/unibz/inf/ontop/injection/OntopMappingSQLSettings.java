@@ -1,6 +1,44 @@
 package it.unibz.inf.ontop.injection;
 
 
+import java.util.Optional;
+
 public interface OntopMappingSQLSettings extends OntopMappingSettings, OntopSQLCredentialSettings {
 
+    /**
+     * Snapshot of the DB metadata (see "ontop compile")
+     */
+    Optional<String> getDBMetadataSnapshotFile();
+
+    /**
+     * If true, extracts the metadata with schema-wide calls and catalog queries
+     * (instead of several calls per table)
+     */
+    boolean isBulkMetadataExtractionEnabled();
+
+    /**
+     * Number of connections used in parallel for extracting the metadata table per table
+     */
+    int getNumberOfMetadataExtractionConnections();
+
+    /**
+     * Number of connections used in parallel for running the queries that expand the meta-mappings
+     */
+    int getNumberOfMetaMappingExpansionConnections();
+
+    /**
+     * File keeping the results of the meta-mapping expansion queries between two starts.
+     * Must be deleted when the values used by the meta-mappings change in the database.
+     */
+    Optional<String> getMetaMappingExpansionCacheFile();
+
+    //--------------------------
+    // Keys
+    //--------------------------
+
+    String DB_METADATA_SNAPSHOT_FILE = "ontop.dbMetadataSnapshotFile";
+    String BULK_METADATA_EXTRACTION = "ontop.bulkMetadataExtraction";
+    String METADATA_EXTRACTION_CONNECTIONS = "ontop.metadataExtractionConnections";
+    String META_MAPPING_EXPANSION_CONNECTIONS = "ontop.metaMappingExpansionConnections";
+    String META_MAPPING_EXPANSION_CACHE_FILE = "ontop.metaMappingExpansionCacheFile";
 }
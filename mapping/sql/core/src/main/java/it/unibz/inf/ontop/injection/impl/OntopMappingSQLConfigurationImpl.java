@@ -170,6 +170,7 @@ public class OntopMappingSQLConfigurationImpl extends OntopMappingConfigurationI
         private final Supplier<Boolean> isMappingDefinedSupplier;
         private final Runnable declareMappingDefinedCB;
         private Optional<SQLPPMapping> ppMapping = Optional.empty();
+        private Optional<File> dbMetadataSnapshotFile = Optional.empty();
 
         /**
          * Default constructor
@@ -195,6 +196,12 @@ public class OntopMappingSQLConfigurationImpl extends OntopMappingConfigurationI
             return builder;
         }
 
+        @Override
+        public B dbMetadataSnapshotFile(@Nonnull File snapshotFile) {
+            this.dbMetadataSnapshotFile = Optional.of(snapshotFile);
+            return builder;
+        }
+
 
         final OntopMappingSQLOptions generateMappingSQLOptions(OntopSQLCredentialOptions sqlOptions,
                                                                OntopMappingOptions mappingOptions) {
@@ -202,7 +209,10 @@ public class OntopMappingSQLConfigurationImpl extends OntopMappingConfigurationI
         }
 
         Properties generateProperties() {
-            return new Properties();
+            Properties properties = new Properties();
+            dbMetadataSnapshotFile.ifPresent(f -> properties.put(OntopMappingSQLSettings.DB_METADATA_SNAPSHOT_FILE,
+                    f.getAbsolutePath()));
+            return properties;
         }
     }
 
@@ -228,6 +238,11 @@ public class OntopMappingSQLConfigurationImpl extends OntopMappingConfigurationI
             return localBuilderFragment.ppMapping(ppMapping);
         }
 
+        @Override
+        public B dbMetadataSnapshotFile(@Nonnull File snapshotFile) {
+            return localBuilderFragment.dbMetadataSnapshotFile(snapshotFile);
+        }
+
         @Override
         protected Properties generateProperties() {
             Properties properties = super.generateProperties();
@@ -28,6 +28,31 @@ public class OntopMappingSQLSettingsImpl extends OntopMappingSettingsImpl implem
         return loadDefaultPropertiesFromFile(OntopMappingSQLSettings.class, DEFAULT_PROPERTY_FILE);
     }
 
+    @Override
+    public Optional<String> getDBMetadataSnapshotFile() {
+        return getProperty(DB_METADATA_SNAPSHOT_FILE);
+    }
+
+    @Override
+    public boolean isBulkMetadataExtractionEnabled() {
+        return getRequiredBoolean(BULK_METADATA_EXTRACTION);
+    }
+
+    @Override
+    public int getNumberOfMetadataExtractionConnections() {
+        return getRequiredInteger(METADATA_EXTRACTION_CONNECTIONS);
+    }
+
+    @Override
+    public int getNumberOfMetaMappingExpansionConnections() {
+        return getRequiredInteger(META_MAPPING_EXPANSION_CONNECTIONS);
+    }
+
+    @Override
+    public Optional<String> getMetaMappingExpansionCacheFile() {
+        return getProperty(META_MAPPING_EXPANSION_CACHE_FILE);
+    }
+
     @Override
     public String getJdbcUrl() {
         return sqlSettings.getJdbcUrl();
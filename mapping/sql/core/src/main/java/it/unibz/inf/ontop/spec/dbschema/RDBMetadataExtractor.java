@@ -27,4 +27,18 @@ public interface RDBMetadataExtractor {
     RDBMetadata extract(SQLPPMapping ppMapping, @Nullable Connection dbConnection,
                         DBMetadata partiallyDefinedMetadata, Optional<File> constraintFile)
             throws DBMetadataExtractionException;
+
+    /**
+     * Loads a snapshot previously written by saveSnapshot() (no connection to the DB).
+     *
+     * The snapshot is rejected if it has been produced for another DB, mapping or constraint file.
+     */
+    RDBMetadata loadSnapshot(File snapshotFile, SQLPPMapping ppMapping, Optional<File> constraintFile)
+            throws DBMetadataExtractionException;
+
+    /**
+     * Saves the metadata extracted for the mapping and the constraint file (see RDBMetadataSnapshot)
+     */
+    void saveSnapshot(RDBMetadata metadata, SQLPPMapping ppMapping, Optional<File> constraintFile, File snapshotFile)
+            throws DBMetadataExtractionException;
 }
@@ -1,18 +1,24 @@
 package it.unibz.inf.ontop.spec.dbschema.impl;
 
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import it.unibz.inf.ontop.dbschema.*;
 import it.unibz.inf.ontop.injection.OntopMappingSQLSettings;
 import it.unibz.inf.ontop.exception.DBMetadataExtractionException;
 import it.unibz.inf.ontop.model.type.TypeFactory;
 import it.unibz.inf.ontop.spec.mapping.pp.SQLPPMapping;
+import it.unibz.inf.ontop.spec.mapping.pp.SQLPPTriplesMap;
 import it.unibz.inf.ontop.spec.dbschema.RDBMetadataExtractor;
 import it.unibz.inf.ontop.spec.dbschema.PreProcessedImplicitRelationalDBConstraintExtractor;
 import it.unibz.inf.ontop.spec.dbschema.PreProcessedImplicitRelationalDBConstraintSet;
+import it.unibz.inf.ontop.utils.LocalJDBCConnectionUtils;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
-import java.io.File;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Optional;
@@ -37,6 +43,7 @@ public class DefaultRDBMetadataExtractor implements RDBMetadataExtractor {
      * Can be useful for eliminating self-joins
      */
     private final PreProcessedImplicitRelationalDBConstraintExtractor implicitDBConstraintExtractor;
+    private final OntopMappingSQLSettings settings;
     private final JdbcTypeMapper jdbcTypeMapper;
     private final TypeFactory typeFactory;
 
@@ -45,6 +52,7 @@ public class DefaultRDBMetadataExtractor implements RDBMetadataExtractor {
                                         PreProcessedImplicitRelationalDBConstraintExtractor implicitDBConstraintExtractor,
                                         JdbcTypeMapper jdbcTypeMapper, TypeFactory typeFactory) {
         this.obtainFullMetadata = settings.isFullMetadataExtractionEnabled();
+        this.settings = settings;
         this.implicitDBConstraintExtractor = implicitDBConstraintExtractor;
         this.jdbcTypeMapper = jdbcTypeMapper;
         this.typeFactory = typeFactory;
@@ -80,7 +88,7 @@ public class DefaultRDBMetadataExtractor implements RDBMetadataExtractor {
 
             // if we have to parse the full metadata or just the table list in the mappings
             if (obtainFullMetadata) {
-                RDBMetadataExtractionTools.loadMetadata(metadata, connection, null);
+                loadMetadata(metadata, connection, null);
             }
             else {
                 try {
@@ -96,7 +104,7 @@ public class DefaultRDBMetadataExtractor implements RDBMetadataExtractor {
                         realTables.addAll(referredTables);
                     });
 
-                    RDBMetadataExtractionTools.loadMetadata(metadata, connection, realTables);
+                    loadMetadata(metadata, connection, realTables);
                 }
                 catch (SQLException e) {
                     System.out.println("Error obtaining the metadata " + e);
@@ -115,4 +123,63 @@ public class DefaultRDBMetadataExtractor implements RDBMetadataExtractor {
             throw new DBMetadataExtractionException(e.getMessage());
         }
     }
+
+    private void loadMetadata(RDBMetadata metadata, Connection connection, @Nullable Set<RelationID> realTables)
+            throws SQLException {
+        RDBMetadataExtractionTools.loadMetadata(metadata, connection, realTables,
+                settings.isBulkMetadataExtractionEnabled(), settings.getNumberOfMetadataExtractionConnections(),
+                () -> LocalJDBCConnectionUtils.createConnection(settings));
+    }
+
+    @Override
+    public RDBMetadata loadSnapshot(File snapshotFile, SQLPPMapping ppMapping, Optional<File> constraintFile)
+            throws DBMetadataExtractionException {
+        RDBMetadataSnapshot.Fingerprint fingerprint = computeFingerprint(ppMapping, constraintFile);
+        try (InputStream inputStream = new FileInputStream(snapshotFile)) {
+            return RDBMetadataSnapshot.read(inputStream, fingerprint, typeFactory, jdbcTypeMapper);
+        }
+        catch (IOException e) {
+            throw new DBMetadataExtractionException("Cannot load the DB metadata snapshot "
+                    + snapshotFile + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void saveSnapshot(RDBMetadata metadata, SQLPPMapping ppMapping, Optional<File> constraintFile,
+                             File snapshotFile) throws DBMetadataExtractionException {
+        RDBMetadataSnapshot.Fingerprint fingerprint = computeFingerprint(ppMapping, constraintFile);
+        try (OutputStream outputStream = new FileOutputStream(snapshotFile)) {
+            RDBMetadataSnapshot.write(metadata, fingerprint, outputStream);
+        }
+        catch (IOException e) {
+            throw new DBMetadataExtractionException("Cannot write the DB metadata snapshot "
+                    + snapshotFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * The mapping hash covers the source queries, the content of the constraint file
+     * and whether the full metadata is extracted.
+     */
+    private RDBMetadataSnapshot.Fingerprint computeFingerprint(SQLPPMapping ppMapping, Optional<File> constraintFile)
+            throws DBMetadataExtractionException {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putBoolean(obtainFullMetadata);
+        for (SQLPPTriplesMap triplesMap : ppMapping.getTripleMaps()) {
+            String sourceQuery = triplesMap.getSourceQuery().getSQLQuery();
+            hasher.putInt(sourceQuery.length());
+            hasher.putString(sourceQuery, StandardCharsets.UTF_8);
+        }
+        if (constraintFile.isPresent()) {
+            try {
+                hasher.putBytes(Files.readAllBytes(constraintFile.get().toPath()));
+            }
+            catch (IOException e) {
+                throw new DBMetadataExtractionException("Cannot read the constraint file "
+                        + constraintFile.get() + ": " + e.getMessage());
+            }
+        }
+        return new RDBMetadataSnapshot.Fingerprint(settings.getJdbcUrl(), settings.getJdbcUser(),
+                hasher.hash().toString());
+    }
 }
@@ -29,6 +29,7 @@ import it.unibz.inf.ontop.dbschema.DBMetadata;
 import it.unibz.inf.ontop.dbschema.QualifiedAttributeID;
 import it.unibz.inf.ontop.dbschema.QuotedID;
 import it.unibz.inf.ontop.dbschema.QuotedIDFactory;
+import it.unibz.inf.ontop.dbschema.RDBMetadataExtractionTools;
 import it.unibz.inf.ontop.exception.MetaMappingExpansionException;
 import it.unibz.inf.ontop.model.atom.TargetAtom;
 import it.unibz.inf.ontop.model.atom.AtomFactory;
@@ -60,13 +61,26 @@ import net.sf.jsqlparser.statement.select.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.io.File;
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -100,6 +114,51 @@ public class MetaMappingExpander {
 		}
 	}
 
+	/**
+	 * Expansion query of a meta-mapping (or the error message of its preparation)
+	 */
+	private static final class PreparedExpansion {
+		private final Expansion expansion;
+		private final boolean isClass;
+		@Nullable
+		private final ImmutableFunctionalTerm templateAtom;
+		@Nullable
+		private final List<SelectExpressionItem> templateColumns;
+		@Nullable
+		private final List<SelectItem> newColumns;
+		@Nullable
+		private final String query;
+		@Nullable
+		private final String errorMessage;
+
+		PreparedExpansion(Expansion expansion, boolean isClass, @Nullable ImmutableFunctionalTerm templateAtom,
+						  @Nullable List<SelectExpressionItem> templateColumns, @Nullable List<SelectItem> newColumns,
+						  @Nullable String query, @Nullable String errorMessage) {
+			this.expansion = expansion;
+			this.isClass = isClass;
+			this.templateAtom = templateAtom;
+			this.templateColumns = templateColumns;
+			this.newColumns = newColumns;
+			this.query = query;
+			this.errorMessage = errorMessage;
+		}
+	}
+
+	/**
+	 * Values of the template columns (or the error message of the query)
+	 */
+	private static final class QueryResult {
+		@Nullable
+		private final List<List<String>> rows;
+		@Nullable
+		private final String errorMessage;
+
+		QueryResult(@Nullable List<List<String>> rows, @Nullable String errorMessage) {
+			this.rows = rows;
+			this.errorMessage = errorMessage;
+		}
+	}
+
 	public MetaMappingExpander(Collection<SQLPPTriplesMap> mappings, TermFactory termFactory,
 							   SubstitutionFactory substitutionFactory) {
 		this.termFactory = termFactory;
@@ -152,90 +211,67 @@ public class MetaMappingExpander {
 	 */
 	public ImmutableList<SQLPPTriplesMap> getExpandedMappings(Connection connection, DBMetadata metadata)
 			throws MetaMappingExpansionException {
+		return getExpandedMappings(connection, metadata, 1, null, Optional.empty());
+	}
+
+	/**
+	 * The expansion queries are run in parallel on at most numberOfConnections connections
+	 * (the given one and additional ones created by the factory, if any).
+	 * When a cache file is given, the results found in it are reused and the new ones are added to it.
+	 *
+	 * The expanded mappings are in the same order as with a sequential expansion.
+	 */
+	public ImmutableList<SQLPPTriplesMap> getExpandedMappings(Connection connection, DBMetadata metadata,
+															  int numberOfConnections,
+															  @Nullable RDBMetadataExtractionTools.ConnectionFactory connectionFactory,
+															  Optional<File> cacheFile)
+			throws MetaMappingExpansionException {
 
 		List<String> errorMessages = new LinkedList<>();
 
+		ImmutableList<PreparedExpansion> preparedExpansions = mappingsToBeExpanded.stream()
+				.map(m -> prepareExpansion(m, metadata))
+				.collect(ImmutableCollectors.toList());
+
+		Optional<MetaMappingExpansionCache> cache = cacheFile.map(MetaMappingExpansionCache::load);
+
+		Map<String, QueryResult> queryResults = new HashMap<>();
+		List<String> queriesToRun = new ArrayList<>();
+		for (PreparedExpansion expansion : preparedExpansions) {
+			if (expansion.query == null || queryResults.containsKey(expansion.query) || queriesToRun.contains(expansion.query))
+				continue;
+			Optional<List<List<String>>> cachedRows = cache.flatMap(c -> c.get(expansion.query));
+			if (cachedRows.isPresent())
+				queryResults.put(expansion.query, new QueryResult(cachedRows.get(), null));
+			else
+				queriesToRun.add(expansion.query);
+		}
+		log.debug("Meta-mapping expansion: {} queries to run, {} taken from the cache",
+				queriesToRun.size(), queryResults.size());
+
+		List<QueryResult> newResults = runQueries(queriesToRun, connection, numberOfConnections, connectionFactory);
+		for (int i = 0; i < queriesToRun.size(); i++) {
+			String query = queriesToRun.get(i);
+			QueryResult result = newResults.get(i);
+			queryResults.put(query, result);
+			if (result.rows != null)
+				cache.ifPresent(c -> c.put(query, result.rows));
+		}
+		cache.ifPresent(MetaMappingExpansionCache::save);
+
 		ImmutableList.Builder<SQLPPTriplesMap> builder = ImmutableList.builder();
 		builder.addAll(nonExpandableMappings);
 
-		for (Expansion m : mappingsToBeExpanded) {
+		for (PreparedExpansion expansion : preparedExpansions) {
 			try {
-				boolean isClass = isURIRDFType(m.target.getSubstitutedTerm(1));
-				// if isClass, then the template is the object;
-				// otherwise, it's a property and the template is the predicate
-				ImmutableFunctionalTerm templateAtom = (ImmutableFunctionalTerm)m.target.getSubstitutedTerm(isClass ? 2 : 1);
-
-				List<QuotedID> templateColumnIds = getTemplateColumnNames(metadata.getQuotedIDFactory(), templateAtom.getTerms());
+				if (expansion.errorMessage != null)
+					throw new IllegalArgumentException(expansion.errorMessage);
 
-				Map<QuotedID, SelectExpressionItem> queryColumns = getQueryColumns(metadata, m.source.getSQLQuery());
+				QueryResult result = queryResults.get(expansion.query);
+				if (result.errorMessage != null)
+					throw new IllegalArgumentException(result.errorMessage);
 
-				List<SelectExpressionItem> templateColumns;
-				try {
-					templateColumns = templateColumnIds.stream()
-							.map(id -> queryColumns.get(id))
-							.collect(ImmutableCollectors.toList());
-				}
-				catch (NullPointerException e) {
-					throw new IllegalArgumentException(templateColumnIds.stream()
-							.filter(id -> !queryColumns.containsKey(id))
-							.map(Object::toString)
-							.collect(Collectors.joining(", ",
-									"The placeholder(s) ",
-									" in the target do(es) not occur in the body of the mapping")));
-				}
-
-				List<SelectItem> newColumns = queryColumns.values().stream()
-						.filter(c -> !templateColumns.contains(c))
-						.collect(ImmutableCollectors.toList());
-				if (newColumns.isEmpty())   // avoid empty SELECT clause
-					newColumns = ImmutableList.of(new AllColumns());
-
-				String query = getTemplateValuesQuery(m.source.getSQLQuery(), templateColumns);
-				final int size = templateColumns.size();
-				try (Statement st = connection.createStatement(); ResultSet rs = st.executeQuery(query)) {
-					while (rs.next()) {
-						List<String> values = Lists.newArrayListWithCapacity(size);
-						for (int i = 1; i <= size; i++)
-							values.add(rs.getString(i));
-
-						String newSourceQuery = getInstantiatedSQL(m.source.getSQLQuery(), newColumns, templateColumns, values);
-
-						ImmutableList<Variable> templateVariables = templateAtom.getTerms().stream()
-										.filter(t -> t instanceof Variable)
-										.map(v -> (Variable) v)
-										.distinct()
-										.collect(ImmutableCollectors.toList());
-
-						// Transforms the result set into a substitution
-						ImmutableSubstitution<ValueConstant> valueSubstitution = substitutionFactory.getSubstitution(
-								IntStream.range(0, values.size())
-								.boxed()
-								.collect(ImmutableCollectors.toMap(
-										templateVariables::get,
-										i -> termFactory.getConstantLiteral(values.get(i)))));
-
-						// In a mapping assertion, we create ground terms instead of constants for IRIs
-						// (so as to guarantee that RDF functions can ALWAYS be lifted after unfolding)
-						GroundFunctionalTerm predicateTerm = (GroundFunctionalTerm) termFactory.getImmutableUriTemplate(
-								termFactory.getConstantLiteral(getPredicateName(templateAtom.getTerm(0), values)));
-						Variable predicateVariable = m.target.getProjectionAtom().getArguments().get(isClass ? 2 : 1);
-						// TODO: simplify (for the beta-4)
-						ImmutableSubstitution<ImmutableTerm> newSubstitution = valueSubstitution.composeWith(
-								m.target.getSubstitution()
-										.composeWith(substitutionFactory.getSubstitution(predicateVariable, predicateTerm)));
-
-						TargetAtom newTarget = m.target.changeSubstitution(newSubstitution);
-
-						// TODO: see how to keep the provenance
-						SQLPPTriplesMap newMapping = new OntopNativeSQLPPTriplesMap(
-								IDGenerator.getNextUniqueID(m.id + "#"),
-								MAPPING_FACTORY.getSQLQuery(newSourceQuery),
-								ImmutableList.of(newTarget));
-
-						builder.add(newMapping);
-						log.debug("Expanded Mapping: {}", newMapping);
-					}
-				}
+				builder.addAll(instantiate(expansion, result.rows));
 			}
 			catch (Exception e) {
 				log.warn("Expanding meta-mappings exception: " + e.getMessage());
@@ -249,6 +285,195 @@ public class MetaMappingExpander {
 		return builder.build();
 	}
 
+	/**
+	 * Computes the query returning the values of the template columns (no access to the database)
+	 */
+	private PreparedExpansion prepareExpansion(Expansion m, DBMetadata metadata) {
+		try {
+			boolean isClass = isURIRDFType(m.target.getSubstitutedTerm(1));
+			// if isClass, then the template is the object;
+			// otherwise, it's a property and the template is the predicate
+			ImmutableFunctionalTerm templateAtom = (ImmutableFunctionalTerm)m.target.getSubstitutedTerm(isClass ? 2 : 1);
+
+			List<QuotedID> templateColumnIds = getTemplateColumnNames(metadata.getQuotedIDFactory(), templateAtom.getTerms());
+
+			Map<QuotedID, SelectExpressionItem> queryColumns = getQueryColumns(metadata, m.source.getSQLQuery());
+
+			List<SelectExpressionItem> templateColumns;
+			try {
+				templateColumns = templateColumnIds.stream()
+						.map(id -> queryColumns.get(id))
+						.collect(ImmutableCollectors.toList());
+			}
+			catch (NullPointerException e) {
+				throw new IllegalArgumentException(templateColumnIds.stream()
+						.filter(id -> !queryColumns.containsKey(id))
+						.map(Object::toString)
+						.collect(Collectors.joining(", ",
+								"The placeholder(s) ",
+								" in the target do(es) not occur in the body of the mapping")));
+			}
+
+			List<SelectItem> newColumns = queryColumns.values().stream()
+					.filter(c -> !templateColumns.contains(c))
+					.collect(ImmutableCollectors.toList());
+			if (newColumns.isEmpty())   // avoid empty SELECT clause
+				newColumns = ImmutableList.of(new AllColumns());
+
+			String query = getTemplateValuesQuery(m.source.getSQLQuery(), templateColumns);
+			return new PreparedExpansion(m, isClass, templateAtom, templateColumns, newColumns, query, null);
+		}
+		catch (Exception e) {
+			return new PreparedExpansion(m, false, null, null, null, null, e.getMessage());
+		}
+	}
+
+	/**
+	 * One mapping per tuple of values of the template columns
+	 */
+	private ImmutableList<SQLPPTriplesMap> instantiate(PreparedExpansion expansion, List<List<String>> rows)
+			throws JSQLParserException {
+		Expansion m = expansion.expansion;
+		ImmutableFunctionalTerm templateAtom = expansion.templateAtom;
+
+		ImmutableList.Builder<SQLPPTriplesMap> builder = ImmutableList.builder();
+		for (List<String> values : rows) {
+			String newSourceQuery = getInstantiatedSQL(m.source.getSQLQuery(), expansion.newColumns,
+					expansion.templateColumns, values);
+
+			ImmutableList<Variable> templateVariables = templateAtom.getTerms().stream()
+							.filter(t -> t instanceof Variable)
+							.map(v -> (Variable) v)
+							.distinct()
+							.collect(ImmutableCollectors.toList());
+
+			// Transforms the result set into a substitution
+			ImmutableSubstitution<ValueConstant> valueSubstitution = substitutionFactory.getSubstitution(
+					IntStream.range(0, values.size())
+					.boxed()
+					.collect(ImmutableCollectors.toMap(
+							templateVariables::get,
+							i -> termFactory.getConstantLiteral(values.get(i)))));
+
+			// In a mapping assertion, we create ground terms instead of constants for IRIs
+			// (so as to guarantee that RDF functions can ALWAYS be lifted after unfolding)
+			GroundFunctionalTerm predicateTerm = (GroundFunctionalTerm) termFactory.getImmutableUriTemplate(
+					termFactory.getConstantLiteral(getPredicateName(templateAtom.getTerm(0), values)));
+			Variable predicateVariable = m.target.getProjectionAtom().getArguments().get(expansion.isClass ? 2 : 1);
+			// TODO: simplify (for the beta-4)
+			ImmutableSubstitution<ImmutableTerm> newSubstitution = valueSubstitution.composeWith(
+					m.target.getSubstitution()
+							.composeWith(substitutionFactory.getSubstitution(predicateVariable, predicateTerm)));
+
+			TargetAtom newTarget = m.target.changeSubstitution(newSubstitution);
+
+			// TODO: see how to keep the provenance
+			SQLPPTriplesMap newMapping = new OntopNativeSQLPPTriplesMap(
+					IDGenerator.getNextUniqueID(m.id + "#"),
+					MAPPING_FACTORY.getSQLQuery(newSourceQuery),
+					ImmutableList.of(newTarget));
+
+			builder.add(newMapping);
+			log.debug("Expanded Mapping: {}", newMapping);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Results are in the order of the queries.
+	 *
+	 * The additional connections are only created when there are several queries, and closed at the end.
+	 */
+	private static List<QueryResult> runQueries(List<String> queries, Connection mainConnection,
+												int numberOfConnections,
+												@Nullable RDBMetadataExtractionTools.ConnectionFactory connectionFactory) {
+		List<Connection> additionalConnections = new ArrayList<>();
+		if (connectionFactory != null && queries.size() > 1) {
+			for (int i = 1; i < Math.min(numberOfConnections, queries.size()); i++) {
+				try {
+					additionalConnections.add(connectionFactory.createConnection());
+				}
+				catch (SQLException e) {
+					log.warn("Cannot create an additional connection for expanding the meta-mappings: " + e.getMessage());
+					break;
+				}
+			}
+		}
+
+		try {
+			if (additionalConnections.isEmpty())
+				return queries.stream()
+						.map(q -> runQuery(mainConnection, q))
+						.collect(Collectors.toList());
+
+			BlockingQueue<Connection> availableConnections = new LinkedBlockingQueue<>(additionalConnections);
+			availableConnections.add(mainConnection);
+			ExecutorService executor = Executors.newFixedThreadPool(availableConnections.size(), r -> {
+				Thread thread = new Thread(r, "ontop-meta-mapping-expansion");
+				thread.setDaemon(true);
+				return thread;
+			});
+			try {
+				List<Future<QueryResult>> futures = new ArrayList<>(queries.size());
+				for (String query : queries)
+					futures.add(executor.submit(() -> {
+						Connection connection = availableConnections.take();
+						try {
+							return runQuery(connection, query);
+						}
+						finally {
+							availableConnections.put(connection);
+						}
+					}));
+
+				List<QueryResult> results = new ArrayList<>(queries.size());
+				for (Future<QueryResult> future : futures)
+					results.add(future.get());
+				return results;
+			}
+			catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				throw new IllegalStateException(cause);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted during the expansion of the meta-mappings", e);
+			}
+			finally {
+				executor.shutdownNow();
+			}
+		}
+		finally {
+			for (Connection connection : additionalConnections) {
+				try {
+					connection.close();
+				}
+				catch (SQLException e) {
+					log.warn("Cannot close a connection used for expanding the meta-mappings: " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	private static QueryResult runQuery(Connection connection, String query) {
+		try (Statement st = connection.createStatement(); ResultSet rs = st.executeQuery(query)) {
+			int size = rs.getMetaData().getColumnCount();
+			List<List<String>> rows = new ArrayList<>();
+			while (rs.next()) {
+				// May contain nulls
+				List<String> values = Lists.newArrayListWithCapacity(size);
+				for (int i = 1; i <= size; i++)
+					values.add(rs.getString(i));
+				rows.add(Collections.unmodifiableList(values));
+			}
+			return new QueryResult(Collections.unmodifiableList(rows), null);
+		}
+		catch (SQLException e) {
+			return new QueryResult(null, e.getMessage());
+		}
+	}
 
 
 	private ImmutableMap<QuotedID, SelectExpressionItem> getQueryColumns(DBMetadata metadata, String sql)
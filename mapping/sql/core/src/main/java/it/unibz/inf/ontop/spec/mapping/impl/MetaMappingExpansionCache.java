@@ -0,0 +1,148 @@
+package it.unibz.inf.ontop.spec.mapping.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Versioned binary file keeping the results of the meta-mapping expansion queries
+ * (the distinct values of the template columns, possibly null), indexed by the SQL query.
+ *
+ * The cache is not invalidated automatically: the file must be deleted when the values
+ * used by the meta-mappings change in the database.
+ *
+ * Not thread-safe.
+ */
+class MetaMappingExpansionCache {
+
+    private static final Logger log = LoggerFactory.getLogger(MetaMappingExpansionCache.class);
+
+    private static final String MAGIC = "ONTOP-META-MAPPING-EXPANSION";
+    /**
+     * To be incremented on any change of the format
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private final File file;
+    private final Map<String, List<List<String>>> entries;
+    private boolean isModified = false;
+
+    private MetaMappingExpansionCache(File file, Map<String, List<List<String>>> entries) {
+        this.file = file;
+        this.entries = entries;
+    }
+
+    /**
+     * An unreadable or outdated file is ignored (and replaced when saving)
+     */
+    static MetaMappingExpansionCache load(File file) {
+        if (!file.exists())
+            return new MetaMappingExpansionCache(file, new HashMap<>());
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (!in.readUTF().equals(MAGIC) || in.readInt() != FORMAT_VERSION) {
+                log.warn("Ignoring the meta-mapping expansion cache {} (unknown format)", file);
+                return new MetaMappingExpansionCache(file, new HashMap<>());
+            }
+
+            int entryCount = in.readInt();
+            Map<String, List<List<String>>> entries = new HashMap<>(entryCount);
+            for (int i = 0; i < entryCount; i++) {
+                String query = readString(in);
+                int rowCount = in.readInt();
+                int columnCount = in.readInt();
+                List<List<String>> rows = new ArrayList<>(rowCount);
+                for (int j = 0; j < rowCount; j++) {
+                    // May contain nulls
+                    List<String> row = new ArrayList<>(columnCount);
+                    for (int k = 0; k < columnCount; k++)
+                        row.add(readNullableString(in));
+                    rows.add(Collections.unmodifiableList(row));
+                }
+                entries.put(query, Collections.unmodifiableList(rows));
+            }
+            log.debug("{} meta-mapping expansion queries loaded from the cache {}", entryCount, file);
+            return new MetaMappingExpansionCache(file, entries);
+        }
+        // Also for corrupted files (e.g. negative sizes)
+        catch (IOException | RuntimeException e) {
+            log.warn("Ignoring the meta-mapping expansion cache {}: {}", file, e.getMessage());
+            return new MetaMappingExpansionCache(file, new HashMap<>());
+        }
+    }
+
+    Optional<List<List<String>>> get(String query) {
+        return Optional.ofNullable(entries.get(query));
+    }
+
+    void put(String query, List<List<String>> rows) {
+        entries.put(query, rows);
+        isModified = true;
+    }
+
+    /**
+     * Only writes the file when new results have been added.
+     * The file is replaced at once (written next to it first).
+     */
+    void save() {
+        if (!isModified)
+            return;
+
+        try {
+            File absoluteFile = file.getAbsoluteFile();
+            File tmpFile = File.createTempFile(absoluteFile.getName(), ".tmp", absoluteFile.getParentFile());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                out.writeUTF(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, List<List<String>>> e : new TreeMap<>(entries).entrySet()) {
+                    writeString(out, e.getKey());
+                    List<List<String>> rows = e.getValue();
+                    out.writeInt(rows.size());
+                    out.writeInt(rows.isEmpty() ? 0 : rows.get(0).size());
+                    for (List<String> row : rows)
+                        for (String value : row)
+                            writeNullableString(out, value);
+                }
+            }
+            Files.move(tmpFile.toPath(), absoluteFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            isModified = false;
+        }
+        catch (IOException e) {
+            // The cache is only an optimization
+            log.warn("Cannot save the meta-mapping expansion cache {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Not limited to 64KB (unlike writeUTF)
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeNullableString(DataOutputStream out, @Nullable String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null)
+            writeString(out, value);
+    }
+
+    @Nullable
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readString(in) : null;
+    }
+}
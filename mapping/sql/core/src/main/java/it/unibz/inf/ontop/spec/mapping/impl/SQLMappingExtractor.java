@@ -29,6 +29,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import java.io.File;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Optional;
@@ -106,7 +107,10 @@ public class SQLMappingExtractor extends AbstractMappingExtractor<SQLPPMapping,
         final ImmutableList<SQLPPTriplesMap> expandedMappingAxioms;
         if (expander.hasMappingsToBeExpanded()) {
             try (Connection connection = LocalJDBCConnectionUtils.createConnection(settings)) {
-                expandedMappingAxioms = expander.getExpandedMappings(connection, dbMetadata);
+                expandedMappingAxioms = expander.getExpandedMappings(connection, dbMetadata,
+                        settings.getNumberOfMetaMappingExpansionConnections(),
+                        () -> LocalJDBCConnectionUtils.createConnection(settings),
+                        settings.getMetaMappingExpansionCacheFile().map(File::new));
             }
             // Problem while creating the connection
             catch (SQLException e) {
@@ -132,6 +136,16 @@ public class SQLMappingExtractor extends AbstractMappingExtractor<SQLPPMapping,
                                           OBDASpecInput specInput)
             throws DBMetadataExtractionException {
 
+        /*
+         * A snapshot replaces the extraction (no connection to the DB).
+         * Only used when no DBMetadata object is given.
+         */
+        if ((!optionalDBMetadata.isPresent()) && settings.getDBMetadataSnapshotFile().isPresent()) {
+            File snapshotFile = new File(settings.getDBMetadataSnapshotFile().get());
+            log.debug("Loading the DB metadata snapshot {}", snapshotFile);
+            return dbMetadataExtractor.loadSnapshot(snapshotFile, ppMapping, specInput.getConstraintFile());
+        }
+
         boolean isDBMetadataProvided = optionalDBMetadata.isPresent();
 
         /*
@@ -25,6 +25,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.inject.Injector;
 import it.unibz.inf.ontop.dbschema.*;
 import it.unibz.inf.ontop.injection.OntopMappingConfiguration;
+import it.unibz.inf.ontop.injection.OntopMappingSettings;
 import it.unibz.inf.ontop.injection.SpecificationFactory;
 import it.unibz.inf.ontop.model.atom.TargetAtom;
 import it.unibz.inf.ontop.spec.mapping.PrefixManager;
@@ -39,6 +40,7 @@ import junit.framework.TestCase;
 import java.sql.Types;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 
 import static it.unibz.inf.ontop.utils.SQLMappingTestingTools.*;
@@ -291,5 +293,49 @@ public class SQLPPMapping2DatalogConverterTest extends TestCase {
                 ":S_{lid} a :Student .");
     }
 
+	/**
+	 * The parallel conversion returns the same rules, in the same order, with the same parser views
+	 */
+	public void testParallelConversion() throws Exception {
+		Properties properties = new Properties();
+		properties.put(OntopMappingSettings.SOURCE_QUERY_PARSING_THREADS, "4");
+		SQLPPMapping2DatalogConverter parallelConverter = OntopMappingConfiguration.defaultBuilder()
+				.properties(properties)
+				.enableTestMode()
+				.build()
+				.getInjector()
+				.getInstance(SQLPPMapping2DatalogConverter.class);
+
+		TargetQueryParser targetParser = new TurtleOBDASQLParser(pm.getPrefixMap(), TERM_FACTORY,
+				TARGET_ATOM_FACTORY, RDF_FACTORY);
+		ImmutableList.Builder<SQLPPTriplesMap> triplesMapBuilder = ImmutableList.builder();
+		for (int i = 0; i < 50; i++) {
+			triplesMapBuilder.add(new OntopNativeSQLPPTriplesMap(
+					MAPPING_FACTORY.getSQLQuery("select id, first_name from Student where year = " + i),
+					targetParser.parse(":S_{id} :fname {first_name} .")));
+			// Not supported by the parser (parser view)
+			triplesMapBuilder.add(new OntopNativeSQLPPTriplesMap(
+					MAPPING_FACTORY.getSQLQuery("select id from Student where year = " + i
+							+ " union select student_id as id from Enrollment"),
+					targetParser.parse(":S_{id} a :Student" + i + " .")));
+		}
+		ImmutableList<SQLPPTriplesMap> triplesMaps = triplesMapBuilder.build();
+
+		RDBMetadata sequentialMetadata = md.clone();
+		ImmutableList<CQIE> sequentialRules = ppMapping2DatalogConverter.convert(triplesMaps, sequentialMetadata)
+				.keySet().asList();
+		RDBMetadata parallelMetadata = md.clone();
+		ImmutableList<CQIE> parallelRules = parallelConverter.convert(triplesMaps, parallelMetadata)
+				.keySet().asList();
+
+		assertEquals(100, sequentialRules.size());
+		assertEquals(sequentialRules.toString(), parallelRules.toString());
+		for (RelationDefinition relation : sequentialMetadata.copyRelations().values()) {
+			if (relation instanceof ParserViewDefinition)
+				assertEquals(((ParserViewDefinition) relation).getStatement(),
+						((ParserViewDefinition) parallelMetadata.getRelation(relation.getID())).getStatement());
+		}
+	}
+
 
 }
@@ -0,0 +1,154 @@
+package it.unibz.inf.ontop.benchmark;
+
+import it.unibz.inf.ontop.answering.reformulation.QueryCache;
+import it.unibz.inf.ontop.answering.reformulation.impl.DummyQueryCache;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+/**
+ * Synthetic OBDA setting on an in-memory H2 database.
+ *
+ * For a mapping size n, the ontology has n classes :C0 ... :C(n-1) forming a binary tree
+ * (:Ci is a sub-class of :C((i-1)/2)), the object property :knows and the data properties :name and :value.
+ * :C1 is also a sub-class of (:knows some :C0), which makes the tree-witness rewriting non-trivial.
+ *
+ * Each class :Ci is populated by its own table Ti (one mapping assertion per table).
+ *
+ * The database stays alive until the dataset is closed.
+ */
+public class BenchmarkDataset implements AutoCloseable {
+
+    static final String NAMESPACE = "http://example.org/ontop-benchmark#";
+    private static final String INDIVIDUAL_PREFIX = "http://example.org/ontop-benchmark/";
+    private static final String JDBC_USER = "sa";
+    private static final String JDBC_PASSWORD = "";
+
+    private final int mappingSize;
+    private final String jdbcUrl;
+    private final Connection connection;
+    private final File directory;
+    private final File ontologyFile;
+    private final File mappingFile;
+
+    /**
+     * @param rowCount number of rows of each table
+     */
+    public BenchmarkDataset(int mappingSize, int rowCount) throws SQLException, IOException {
+        if (mappingSize < 2)
+            throw new IllegalArgumentException("At least two classes are required");
+
+        this.mappingSize = mappingSize;
+        this.jdbcUrl = "jdbc:h2:mem:ontop-benchmark-" + mappingSize + "-" + rowCount + "-" + System.nanoTime();
+        this.connection = DriverManager.getConnection(jdbcUrl, JDBC_USER, JDBC_PASSWORD);
+        createTables(rowCount);
+
+        this.directory = Files.createTempDirectory("ontop-benchmark").toFile();
+        this.ontologyFile = new File(directory, "ontology.ttl");
+        this.mappingFile = new File(directory, "mapping.obda");
+        writeOntology();
+        writeMapping();
+    }
+
+    public int getMappingSize() {
+        return mappingSize;
+    }
+
+    /**
+     * Existential reasoning is enabled (tree-witness rewriting) and the cache of reformulated queries
+     * is disabled, so that the reformulation is measured at each invocation.
+     */
+    public OntopSQLOWLAPIConfiguration createConfiguration() {
+        Properties properties = new Properties();
+        properties.setProperty(QueryCache.class.getCanonicalName(), DummyQueryCache.class.getCanonicalName());
+
+        return OntopSQLOWLAPIConfiguration.defaultBuilder()
+                .ontologyFile(ontologyFile)
+                .nativeOntopMappingFile(mappingFile)
+                .jdbcUrl(jdbcUrl)
+                .jdbcUser(JDBC_USER)
+                .jdbcPassword(JDBC_PASSWORD)
+                .enableExistentialReasoning(true)
+                .properties(properties)
+                .enableTestMode()
+                .build();
+    }
+
+    private void createTables(int rowCount) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (int i = 0; i < mappingSize; i++)
+                statement.executeUpdate("CREATE TABLE T" + i
+                        + " (ID INT PRIMARY KEY, NAME VARCHAR(100) NOT NULL, VAL INT, REF INT)");
+        }
+        for (int i = 0; i < mappingSize; i++) {
+            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO T" + i + " VALUES (?, ?, ?, ?)")) {
+                for (int r = 0; r < rowCount; r++) {
+                    statement.setInt(1, r);
+                    statement.setString(2, "name " + i + "-" + r);
+                    statement.setInt(3, r % 100);
+                    statement.setInt(4, (r + 1) % rowCount);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        }
+    }
+
+    private void writeOntology() throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(ontologyFile.toPath(), StandardCharsets.UTF_8))) {
+            writer.println("@prefix : <" + NAMESPACE + "> .");
+            writer.println("@prefix owl: <http://www.w3.org/2002/07/owl#> .");
+            writer.println("@prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#> .");
+            writer.println();
+            writer.println("<" + NAMESPACE + "> a owl:Ontology .");
+            writer.println(":knows a owl:ObjectProperty .");
+            writer.println(":name a owl:DatatypeProperty .");
+            writer.println(":value a owl:DatatypeProperty .");
+            writer.println(":C0 a owl:Class .");
+            for (int i = 1; i < mappingSize; i++)
+                writer.println(":C" + i + " a owl:Class ; rdfs:subClassOf :C" + ((i - 1) / 2) + " .");
+            writer.println(":C1 rdfs:subClassOf [ a owl:Restriction ; owl:onProperty :knows ; owl:someValuesFrom :C0 ] .");
+        }
+    }
+
+    private void writeMapping() throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(mappingFile.toPath(), StandardCharsets.UTF_8))) {
+            writer.println("[PrefixDeclaration]");
+            writer.println(":\t\t" + NAMESPACE);
+            writer.println("xsd:\t\thttp://www.w3.org/2001/XMLSchema#");
+            writer.println();
+            writer.println("[MappingDeclaration] @collection [[");
+            for (int i = 0; i < mappingSize; i++) {
+                writer.println("mappingId\tmapping" + i);
+                String template = "<" + INDIVIDUAL_PREFIX + "c" + i + "/";
+                writer.println("target\t\t" + template + "{ID}> a :C" + i
+                        + " ; :name {NAME}^^xsd:string ; :value {VAL}^^xsd:integer ; :knows " + template + "{REF}> . ");
+                writer.println("source\t\tSELECT ID, NAME, VAL, REF FROM T" + i);
+                writer.println();
+            }
+            writer.println("]]");
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        } finally {
+            connection.close();
+            ontologyFile.delete();
+            mappingFile.delete();
+            directory.delete();
+        }
+    }
+}
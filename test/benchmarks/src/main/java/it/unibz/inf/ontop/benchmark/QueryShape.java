@@ -0,0 +1,41 @@
+package it.unibz.inf.ontop.benchmark;
+
+import static it.unibz.inf.ontop.benchmark.BenchmarkDataset.NAMESPACE;
+
+/**
+ * SPARQL queries over the synthetic dataset (see BenchmarkDataset)
+ */
+public enum QueryShape {
+
+    /**
+     * Root of the class hierarchy: union over all the mapping assertions
+     */
+    HIERARCHY("SELECT ?x WHERE { ?x a :C0 }"),
+
+    /**
+     * Leaf of the class hierarchy: a single mapping assertion
+     */
+    LEAF_CLASS("SELECT ?x WHERE { ?x a :%LEAF% }"),
+
+    STAR("SELECT ?x ?n ?v ?y WHERE { ?x a :C1 ; :name ?n ; :value ?v ; :knows ?y }"),
+
+    CHAIN("SELECT ?x ?n WHERE { ?x :knows ?y . ?y :knows ?z . ?z a :C2 ; :name ?n }"),
+
+    OPTIONAL("SELECT ?x ?v WHERE { ?x a :C1 OPTIONAL { ?x :value ?v FILTER (?v > 10) } }"),
+
+    /**
+     * Anonymous individuals implied by :C1 subClassOf (:knows some :C0)
+     */
+    EXISTENTIAL("SELECT ?x WHERE { ?x :knows ?y . ?y a :C0 }");
+
+    private final String body;
+
+    QueryShape(String body) {
+        this.body = body;
+    }
+
+    public String getQueryString(int mappingSize) {
+        return "PREFIX : <" + NAMESPACE + ">\n"
+                + body.replace("%LEAF%", "C" + (mappingSize - 1));
+    }
+}
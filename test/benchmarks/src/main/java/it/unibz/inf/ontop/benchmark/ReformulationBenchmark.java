@@ -0,0 +1,217 @@
+package it.unibz.inf.ontop.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Injector;
+import it.unibz.inf.ontop.answering.reformulation.ExecutableQuery;
+import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
+import it.unibz.inf.ontop.answering.reformulation.generation.NativeQueryGenerator;
+import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
+import it.unibz.inf.ontop.answering.reformulation.input.SelectQuery;
+import it.unibz.inf.ontop.answering.reformulation.input.translation.InputQueryTranslator;
+import it.unibz.inf.ontop.answering.reformulation.rewriting.QueryRewriter;
+import it.unibz.inf.ontop.answering.reformulation.unfolding.QueryUnfolder;
+import it.unibz.inf.ontop.datalog.*;
+import it.unibz.inf.ontop.dbschema.DBMetadata;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import it.unibz.inf.ontop.injection.TranslationFactory;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IntermediateQuery;
+import it.unibz.inf.ontop.iq.optimizer.*;
+import it.unibz.inf.ontop.iq.tools.ExecutorRegistry;
+import it.unibz.inf.ontop.iq.tools.IQConverter;
+import it.unibz.inf.ontop.spec.OBDASpecification;
+import it.unibz.inf.ontop.spec.mapping.Mapping;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each phase of QuestQueryProcessor, measured separately, plus the complete reformulation
+ * (with the query cache disabled).
+ *
+ * The input of each phase is computed once at setup by running the previous phases.
+ * As the IntermediateQuery optimizers may modify their input, they are applied to a snapshot:
+ * copyIntermediateQuery() measures the cost of this copy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReformulationBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ReformulationState {
+
+        @Param({"10", "100", "1000"})
+        int mappingSize;
+
+        @Param
+        QueryShape queryShape;
+
+        BenchmarkDataset dataset;
+        String queryString;
+
+        QueryReformulator queryReformulator;
+        InputQueryFactory inputQueryFactory;
+        InputQueryTranslator inputQueryTranslator;
+        QueryRewriter rewriter;
+        QueryUnfolder unfolder;
+        IQConverter iqConverter;
+        BindingLiftOptimizer bindingLiftOptimizer;
+        PushUpBooleanExpressionOptimizer pushUpBooleanExpressionOptimizer;
+        ProjectionShrinkingOptimizer projectionShrinkingOptimizer;
+        JoinLikeOptimizer joinLikeOptimizer;
+        FlattenUnionOptimizer flattenUnionOptimizer;
+        NativeQueryGenerator nativeQueryGenerator;
+        DBMetadata dbMetadata;
+        ExecutorRegistry executorRegistry;
+
+        SelectQuery selectQuery;
+        InternalSparqlQuery translation;
+        IQ convertedIQ;
+        IQ rewrittenIQ;
+        IQ unfoldedIQ;
+        IntermediateQuery beforeBindingLift;
+        IntermediateQuery beforePushUp;
+        IntermediateQuery beforeProjectionShrinking;
+        IntermediateQuery beforeJoinLike;
+        IntermediateQuery beforeFlattenUnion;
+        IntermediateQuery beforeGeneration;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            dataset = new BenchmarkDataset(mappingSize, 10);
+            OntopSQLOWLAPIConfiguration configuration = dataset.createConfiguration();
+            Injector injector = configuration.getInjector();
+            OBDASpecification specification = configuration.loadSpecification();
+            Mapping mapping = specification.getSaturatedMapping();
+            TranslationFactory translationFactory = injector.getInstance(TranslationFactory.class);
+
+            queryReformulator = configuration.loadQueryReformulator();
+            inputQueryFactory = queryReformulator.getInputQueryFactory();
+            inputQueryTranslator = translationFactory.createInputQueryTranslator(
+                    mapping.getMetadata().getUriTemplateMatcher());
+            rewriter = injector.getInstance(QueryRewriter.class);
+            rewriter.setTBox(specification.getSaturatedTBox());
+            unfolder = translationFactory.create(mapping);
+            iqConverter = injector.getInstance(IQConverter.class);
+            bindingLiftOptimizer = injector.getInstance(BindingLiftOptimizer.class);
+            pushUpBooleanExpressionOptimizer = injector.getInstance(PushUpBooleanExpressionOptimizer.class);
+            projectionShrinkingOptimizer = new ProjectionShrinkingOptimizer();
+            joinLikeOptimizer = injector.getInstance(JoinLikeOptimizer.class);
+            flattenUnionOptimizer = injector.getInstance(FlattenUnionOptimizer.class);
+            dbMetadata = specification.getDBMetadata();
+            nativeQueryGenerator = translationFactory.create(dbMetadata);
+            executorRegistry = configuration.getExecutorRegistry();
+
+            queryString = queryShape.getQueryString(mappingSize);
+            selectQuery = inputQueryFactory.createSelectQuery(queryString);
+            translation = selectQuery.translate(inputQueryTranslator);
+            convertedIQ = convert(translation, injector);
+            rewrittenIQ = rewriter.rewrite(convertedIQ);
+            unfoldedIQ = unfolder.optimize(rewrittenIQ);
+            if (unfoldedIQ.getTree().isDeclaredAsEmpty())
+                throw new IllegalStateException("Empty query: " + queryString);
+
+            beforeBindingLift = iqConverter.convert(unfoldedIQ, dbMetadata, executorRegistry);
+            beforePushUp = bindingLiftOptimizer.optimize(beforeBindingLift.createSnapshot());
+            beforeProjectionShrinking = pushUpBooleanExpressionOptimizer.optimize(beforePushUp.createSnapshot());
+            beforeJoinLike = projectionShrinkingOptimizer.optimize(beforeProjectionShrinking.createSnapshot());
+            beforeFlattenUnion = joinLikeOptimizer.optimize(beforeJoinLike.createSnapshot());
+            beforeGeneration = flattenUnionOptimizer.optimize(beforeFlattenUnion.createSnapshot());
+        }
+
+        /**
+         * Same pre-processing as QuestQueryProcessor (equalities are enforced on a copy of the rules)
+         */
+        private static IQ convert(InternalSparqlQuery translation, Injector injector) throws Exception {
+            DatalogFactory datalogFactory = injector.getInstance(DatalogFactory.class);
+            EQNormalizer eqNormalizer = injector.getInstance(EQNormalizer.class);
+            DatalogProgram2QueryConverter datalogConverter = injector.getInstance(DatalogProgram2QueryConverter.class);
+
+            DatalogProgram program = translation.getProgram();
+            DatalogProgram normalizedProgram = datalogFactory.getDatalogProgram(program.getQueryModifiers());
+            for (CQIE query : program.getRules()) {
+                CQIE rule = query.clone();
+                eqNormalizer.enforceEqualities(rule);
+                normalizedProgram.appendRule(rule);
+            }
+            return datalogConverter.convertDatalogProgram(normalizedProgram, ImmutableList.of(),
+                    translation.getSignature());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            dataset.close();
+        }
+    }
+
+    @Benchmark
+    public ExecutableQuery reformulate(ReformulationState state) throws Exception {
+        return state.queryReformulator.reformulateIntoNativeQuery(state.selectQuery);
+    }
+
+    @Benchmark
+    public SelectQuery parseSparql(ReformulationState state) throws Exception {
+        return state.inputQueryFactory.createSelectQuery(state.queryString);
+    }
+
+    @Benchmark
+    public InternalSparqlQuery translateSparql(ReformulationState state) throws Exception {
+        return state.selectQuery.translate(state.inputQueryTranslator);
+    }
+
+    @Benchmark
+    public IQ rewrite(ReformulationState state) throws Exception {
+        return state.rewriter.rewrite(state.convertedIQ);
+    }
+
+    @Benchmark
+    public IQ unfold(ReformulationState state) {
+        return state.unfolder.optimize(state.rewrittenIQ);
+    }
+
+    @Benchmark
+    public IntermediateQuery convertToIntermediateQuery(ReformulationState state) throws Exception {
+        return state.iqConverter.convert(state.unfoldedIQ, state.dbMetadata, state.executorRegistry);
+    }
+
+    /**
+     * Baseline of the optimizer benchmarks
+     */
+    @Benchmark
+    public IntermediateQuery copyIntermediateQuery(ReformulationState state) {
+        return state.beforeBindingLift.createSnapshot();
+    }
+
+    @Benchmark
+    public IntermediateQuery liftBindings(ReformulationState state) throws Exception {
+        return state.bindingLiftOptimizer.optimize(state.beforeBindingLift.createSnapshot());
+    }
+
+    @Benchmark
+    public IntermediateQuery pushUpBooleanExpressions(ReformulationState state) throws Exception {
+        return state.pushUpBooleanExpressionOptimizer.optimize(state.beforePushUp.createSnapshot());
+    }
+
+    @Benchmark
+    public IntermediateQuery shrinkProjections(ReformulationState state) throws Exception {
+        return state.projectionShrinkingOptimizer.optimize(state.beforeProjectionShrinking.createSnapshot());
+    }
+
+    @Benchmark
+    public IntermediateQuery optimizeJoins(ReformulationState state) throws Exception {
+        return state.joinLikeOptimizer.optimize(state.beforeJoinLike.createSnapshot());
+    }
+
+    @Benchmark
+    public IntermediateQuery flattenUnions(ReformulationState state) throws Exception {
+        return state.flattenUnionOptimizer.optimize(state.beforeFlattenUnion.createSnapshot());
+    }
+
+    @Benchmark
+    public ExecutableQuery generateSourceQuery(ReformulationState state) throws Exception {
+        return state.nativeQueryGenerator.generateSourceQuery(state.beforeGeneration.createSnapshot());
+    }
+}
@@ -0,0 +1,162 @@
+package it.unibz.inf.ontop.benchmark;
+
+import it.unibz.inf.ontop.answering.reformulation.generation.utils.COL_TYPE;
+import it.unibz.inf.ontop.answering.resultset.impl.JDBC2ConstantConverter;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import it.unibz.inf.ontop.owlapi.OntopOWLFactory;
+import it.unibz.inf.ontop.owlapi.OntopOWLReasoner;
+import it.unibz.inf.ontop.owlapi.connection.OWLConnection;
+import it.unibz.inf.ontop.owlapi.connection.OWLStatement;
+import it.unibz.inf.ontop.owlapi.resultset.OWLBindingSet;
+import it.unibz.inf.ontop.owlapi.resultset.TupleOWLResultSet;
+import it.unibz.inf.ontop.rdf4j.repository.OntopRepository;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryLanguage;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static it.unibz.inf.ontop.benchmark.BenchmarkDataset.NAMESPACE;
+
+/**
+ * Conversion of the JDBC values into RDF terms, and iteration over the RDF4J and OWLAPI result wrappers.
+ *
+ * The end-to-end benchmarks also include the reformulation (no cache) and the evaluation by H2:
+ * compare them with the reformulation benchmarks and with the row count.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultConversionBenchmark {
+
+    private static final int MAPPING_SIZE = 10;
+    private static final String QUERY = "PREFIX : <" + NAMESPACE + ">\n"
+            + "SELECT ?x ?n ?v WHERE { ?x a :C0 ; :name ?n ; :value ?v }";
+
+    @State(Scope.Benchmark)
+    public static class ConversionState {
+
+        /**
+         * Rows per table (the query returns MAPPING_SIZE times more rows)
+         */
+        @Param({"100", "10000"})
+        int rowCount;
+
+        BenchmarkDataset dataset;
+        JDBC2ConstantConverter converter;
+
+        OntopRepository repository;
+        RepositoryConnection rdf4jConnection;
+        OntopOWLReasoner reasoner;
+        OWLConnection owlConnection;
+
+        /**
+         * Typical mix of values, types codes and column types, as returned by the JDBC result sets
+         */
+        Object[] values;
+        int[] typeCodes;
+        COL_TYPE[] columnTypes;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            dataset = new BenchmarkDataset(MAPPING_SIZE, rowCount);
+
+            OntopSQLOWLAPIConfiguration configuration = dataset.createConfiguration();
+            converter = new JDBC2ConstantConverter(configuration.loadSpecification().getDBMetadata(), Optional.empty(),
+                    configuration.getTermFactory(), configuration.getTypeFactory(), configuration.getRdfFactory());
+
+            repository = OntopRepository.defaultRepository(configuration);
+            repository.initialize();
+            rdf4jConnection = repository.getConnection();
+
+            reasoner = OntopOWLFactory.defaultFactory().createReasoner(dataset.createConfiguration());
+            owlConnection = reasoner.getConnection();
+
+            int size = 1000;
+            values = new Object[size];
+            typeCodes = new int[size];
+            columnTypes = new COL_TYPE[size];
+            for (int i = 0; i < size; i++) {
+                switch (i % 6) {
+                    case 0:
+                        setValue(i, "http://example.org/ontop-benchmark/c0/" + i, Types.VARCHAR, COL_TYPE.OBJECT);
+                        break;
+                    case 1:
+                        setValue(i, "name " + i, Types.VARCHAR, COL_TYPE.STRING);
+                        break;
+                    case 2:
+                        setValue(i, i, Types.INTEGER, COL_TYPE.INTEGER);
+                        break;
+                    case 3:
+                        setValue(i, new BigDecimal(i + ".25"), Types.DECIMAL, COL_TYPE.DECIMAL);
+                        break;
+                    case 4:
+                        setValue(i, i * 0.5, Types.DOUBLE, COL_TYPE.DOUBLE);
+                        break;
+                    default:
+                        setValue(i, new Timestamp(1500000000000L + i * 1000L), Types.TIMESTAMP, COL_TYPE.DATETIME);
+                }
+            }
+        }
+
+        private void setValue(int i, Object value, int typeCode, COL_TYPE columnType) {
+            values[i] = value;
+            typeCodes[i] = typeCode;
+            columnTypes[i] = columnType;
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            rdf4jConnection.close();
+            repository.shutDown();
+            owlConnection.close();
+            reasoner.dispose();
+            dataset.close();
+        }
+    }
+
+    /**
+     * Converts 1000 values
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void convertJDBCValues(ConversionState state, Blackhole blackhole) throws Exception {
+        for (int i = 0; i < state.values.length; i++)
+            blackhole.consume(state.converter.getConstantFromJDBC(state.values[i], state.typeCodes[i],
+                    state.columnTypes[i], null));
+    }
+
+    @Benchmark
+    public void iterateRDF4JResult(ConversionState state, Blackhole blackhole) {
+        try (TupleQueryResult result = state.rdf4jConnection.prepareTupleQuery(QueryLanguage.SPARQL, QUERY).evaluate()) {
+            while (result.hasNext()) {
+                BindingSet bindingSet = result.next();
+                blackhole.consume(bindingSet.getValue("x"));
+                blackhole.consume(bindingSet.getValue("n"));
+                blackhole.consume(bindingSet.getValue("v"));
+            }
+        }
+    }
+
+    @Benchmark
+    public void iterateOWLAPIResult(ConversionState state, Blackhole blackhole) throws Exception {
+        try (OWLStatement statement = state.owlConnection.createStatement();
+             TupleOWLResultSet resultSet = statement.executeSelectQuery(QUERY)) {
+            while (resultSet.hasNext()) {
+                OWLBindingSet bindingSet = resultSet.next();
+                blackhole.consume(bindingSet.getOWLIndividual("x"));
+                blackhole.consume(bindingSet.getOWLLiteral("n"));
+                blackhole.consume(bindingSet.getOWLLiteral("v"));
+            }
+        }
+    }
+}